@@ -31,6 +31,7 @@ package org.opennms.core.cache;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.function.BiPredicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -111,6 +112,13 @@ public class Cache<K, V> {
         }
     }
 
+    public void invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        Objects.requireNonNull(predicate);
+        if (delegate != null) {
+            delegate.asMap().entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue()));
+        }
+    }
+
     public void refresh(K key) {
         if (delegate != null) {
             delegate.refresh(key);
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.scheduler;
+
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the {@link Scheduler} used by a daemon.
+ * <p>
+ * The implementation is chosen per daemon with the system property
+ * <code>org.opennms.netmgt.scheduler.&lt;daemon&gt;</code>, i.e.
+ * <code>org.opennms.netmgt.scheduler.collectd=timing-wheel</code>. When the
+ * property is not set, <code>org.opennms.netmgt.scheduler.default</code> is
+ * consulted and the {@link LegacyScheduler} is used otherwise.
+ * <p>
+ * The {@link TimingWheelScheduler} can be tuned with
+ * <code>org.opennms.netmgt.scheduler.&lt;daemon&gt;.tick</code> and
+ * <code>org.opennms.netmgt.scheduler.&lt;daemon&gt;.spread</code>, both in
+ * milliseconds.
+ */
+public final class SchedulerFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchedulerFactory.class);
+
+    public static final String SCHEDULER_SYS_PROP_PREFIX = "org.opennms.netmgt.scheduler.";
+
+    public static final String DEFAULT_SYS_PROP = SCHEDULER_SYS_PROP_PREFIX + "default";
+
+    public static final String LEGACY = "legacy";
+
+    public static final String TIMING_WHEEL = "timing-wheel";
+
+    private SchedulerFactory() {
+    }
+
+    /**
+     * Creates the scheduler for the given daemon.
+     *
+     * @param parent
+     *            The name of the daemon, also used as the name of the thread pool.
+     * @param maxSize
+     *            The maximum size of the thread pool.
+     * @return the scheduler selected for the daemon
+     */
+    public static PooledScheduler createScheduler(final String parent, final int maxSize) {
+        final String prefix = SCHEDULER_SYS_PROP_PREFIX + parent.toLowerCase(Locale.ROOT);
+        final String type = System.getProperty(prefix, System.getProperty(DEFAULT_SYS_PROP, LEGACY)).trim();
+
+        if (TIMING_WHEEL.equalsIgnoreCase(type)) {
+            final long tickDuration = Long.getLong(prefix + ".tick", TimingWheelScheduler.DEFAULT_TICK_DURATION);
+            final long spread = Long.getLong(prefix + ".spread", 0L);
+            LOG.info("Using timing wheel scheduler for {} with a tick duration of {}ms and a spread of {}ms", parent, tickDuration, spread);
+            return new TimingWheelScheduler(parent, maxSize, tickDuration, spread);
+        }
+
+        if (!LEGACY.equalsIgnoreCase(type)) {
+            LOG.warn("Unknown scheduler type '{}' for {}, using the legacy scheduler", type, parent);
+        }
+        return new LegacyScheduler(parent, maxSize);
+    }
+}
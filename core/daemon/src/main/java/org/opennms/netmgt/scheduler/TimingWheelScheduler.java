@@ -0,0 +1,630 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.scheduler;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.opennms.core.concurrent.LogPreservingThreadFactory;
+import org.opennms.core.fiber.PausableFiber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link Scheduler} backed by a hierarchical timing wheel.
+ * <p>
+ * Time is divided into ticks of a fixed duration. Scheduled tasks are kept in
+ * {@link #LEVELS} wheels of {@link #WHEEL_SIZE} buckets each, where every
+ * level covers {@link #WHEEL_SIZE} times the range of the level below it.
+ * Tasks far in the future are placed in a coarse bucket and cascaded down to
+ * finer levels as their deadline approaches, so inserting, cancelling and
+ * expiring a task are all O(1) regardless of how many tasks are scheduled.
+ * <p>
+ * Callers never take a lock: new tasks and cancellations are handed to the
+ * worker thread through lock-free queues and only the worker touches the
+ * wheels. A task that is due but not {@link ReadyRunnable#isReady() ready} is
+ * re-checked after {@link #NOT_READY_RECHECK_DELAY} milliseconds without
+ * holding back any other task.
+ * <p>
+ * Optionally, tasks that are scheduled to run immediately can be spread
+ * randomly over a window to avoid a thundering herd when a daemon schedules
+ * all of its work at startup. Since periodic tasks reschedule themselves
+ * relative to their last run, the spread is kept for subsequent runs without
+ * stretching their intervals.
+ */
+public class TimingWheelScheduler implements Runnable, PausableFiber, PooledScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TimingWheelScheduler.class);
+
+    /**
+     * Default duration of a single tick in milliseconds.
+     */
+    public static final long DEFAULT_TICK_DURATION = 100;
+
+    /**
+     * Delay in milliseconds after which a due task that was not ready is checked again.
+     */
+    public static final long NOT_READY_RECHECK_DELAY = 1000;
+
+    static final int WHEEL_BITS = 6;
+    static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    static final int LEVELS = 4;
+
+    /**
+     * The number of ticks covered by all levels of the wheel. Tasks with a
+     * deadline beyond this range are parked in the last bucket of the top
+     * level and re-inserted when it is cascaded.
+     */
+    private static final long MAX_TICKS = 1L << (WHEEL_BITS * LEVELS);
+
+    /**
+     * The wheels, indexed by level and then by bucket.
+     */
+    private final Bucket[][] m_wheels;
+
+    /**
+     * Tasks that have been submitted but not yet been placed on the wheel.
+     */
+    private final Queue<Timeout> m_submissions = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Tasks that have been cancelled and must be unlinked from their bucket.
+     */
+    private final Queue<Timeout> m_cancellations = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The pool of threads that are used to executed the runnable instances
+     * scheduled by the class' instance.
+     */
+    private final ExecutorService m_runner;
+
+    private final long m_tickNanos;
+
+    private final long m_notReadyTicks;
+
+    private final long m_spread;
+
+    private final long m_startNanos;
+
+    /**
+     * The next tick to be processed. Only accessed by the worker thread.
+     */
+    private long m_tick;
+
+    /**
+     * The total number of tasks currently scheduled.
+     */
+    private final AtomicInteger m_scheduled = new AtomicInteger();
+
+    /**
+     * Used to keep track of the number of tasks that have been executed.
+     */
+    private final LongAdder m_numTasksExecuted = new LongAdder();
+
+    /**
+     * The status for this fiber.
+     */
+    private volatile int m_status;
+
+    /**
+     * The worker thread that executes this instance.
+     */
+    private volatile Thread m_worker;
+
+    /**
+     * Constructs a new instance of the scheduler using the default tick
+     * duration and no spreading of immediate tasks.
+     *
+     * @param parent
+     *            String prepended to "Scheduler" to create fiber name
+     * @param maxSize
+     *            The maximum size of the thread pool.
+     */
+    public TimingWheelScheduler(final String parent, final int maxSize) {
+        this(parent, maxSize, DEFAULT_TICK_DURATION, 0);
+    }
+
+    /**
+     * Constructs a new instance of the scheduler.
+     *
+     * @param parent
+     *            String prepended to "Scheduler" to create fiber name
+     * @param maxSize
+     *            The maximum size of the thread pool.
+     * @param tickDuration
+     *            The resolution of the wheel in milliseconds.
+     * @param spread
+     *            The window in milliseconds over which tasks scheduled with
+     *            an interval of zero are spread randomly, or zero to run
+     *            them as soon as possible.
+     */
+    public TimingWheelScheduler(final String parent, final int maxSize, final long tickDuration, final long spread) {
+        Assert.isTrue(tickDuration > 0, "tickDuration must be positive");
+        Assert.isTrue(spread >= 0, "spread must not be negative");
+
+        m_status = START_PENDING;
+        m_runner = Executors.newFixedThreadPool(maxSize, new LogPreservingThreadFactory(parent, maxSize));
+        m_tickNanos = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+        m_notReadyTicks = Math.max(1, NOT_READY_RECHECK_DELAY / tickDuration);
+        m_spread = spread;
+        m_startNanos = System.nanoTime();
+        m_tick = 0;
+        m_worker = null;
+
+        m_wheels = new Bucket[LEVELS][WHEEL_SIZE];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                m_wheels[level][i] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * Schedules a ready runnable to be executed as soon as it is ready.
+     *
+     * @param runnable
+     *            The element to run when it is ready.
+     * @param interval
+     *            Ignored, kept for compatibility with {@link LegacyScheduler}.
+     */
+    public void schedule(final ReadyRunnable runnable, final long interval) {
+        submit(runnable, 0);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void schedule(final long interval, final ReadyRunnable runnable) {
+        long delay = interval;
+        if (delay <= 0 && m_spread > 0) {
+            delay = ThreadLocalRandom.current().nextLong(m_spread);
+        }
+        submit(runnable, delay);
+    }
+
+    /**
+     * Schedules a ready runnable to be executed once the given delay has
+     * elapsed and the runnable is ready.
+     *
+     * @param runnable
+     *            The element to run.
+     * @param delay
+     *            The delay in milliseconds.
+     * @return a handle that can be used to cancel the task
+     */
+    public Timeout submit(final ReadyRunnable runnable, final long delay) {
+        final long deadlineNanos = System.nanoTime() - m_startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay));
+        // Round up so that a task never runs before its delay has elapsed
+        final long deadline = (deadlineNanos + m_tickNanos - 1) / m_tickNanos;
+
+        LOG.debug("schedule: Adding ready runnable {} at tick {}", runnable, deadline);
+
+        final Timeout timeout = new Timeout(runnable, deadline);
+        m_scheduled.incrementAndGet();
+        m_submissions.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * <p>getCurrentTime</p>
+     *
+     * @return a long.
+     */
+    @Override
+    public long getCurrentTime() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * <p>start</p>
+     */
+    @Override
+    public synchronized void start() {
+        Assert.state(m_worker == null, "The fiber has already run or is running");
+
+        m_worker = new Thread(this, getName());
+        m_worker.start();
+        m_status = STARTING;
+
+        LOG.info("start: scheduler started");
+    }
+
+    /**
+     * <p>stop</p>
+     */
+    @Override
+    public synchronized void stop() {
+        Assert.state(m_worker != null, "The fiber has never been started");
+
+        m_status = STOP_PENDING;
+        m_worker.interrupt();
+        m_runner.shutdown();
+
+        LOG.info("stop: scheduler stopped");
+    }
+
+    /**
+     * <p>pause</p>
+     */
+    @Override
+    public synchronized void pause() {
+        Assert.state(m_worker != null, "The fiber has never been started");
+        Assert.state(m_status != STOPPED && m_status != STOP_PENDING, "The fiber is not running or a stop is pending");
+
+        if (m_status == PAUSED) {
+            return;
+        }
+
+        m_status = PAUSE_PENDING;
+        notifyAll();
+    }
+
+    /**
+     * <p>resume</p>
+     */
+    @Override
+    public synchronized void resume() {
+        Assert.state(m_worker != null, "The fiber has never been started");
+        Assert.state(m_status != STOPPED && m_status != STOP_PENDING, "The fiber is not running or a stop is pending");
+
+        if (m_status == RUNNING) {
+            return;
+        }
+
+        m_status = RESUME_PENDING;
+        notifyAll();
+    }
+
+    /**
+     * <p>getStatus</p>
+     *
+     * @return a int.
+     */
+    @Override
+    public synchronized int getStatus() {
+        if (m_worker != null && m_worker.isAlive() == false) {
+            m_status = STOPPED;
+        }
+        return m_status;
+    }
+
+    /**
+     * Returns the name of this fiber.
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    @Override
+    public String getName() {
+        return m_runner.toString();
+    }
+
+    /**
+     * Returns total number of tasks currently scheduled.
+     *
+     * @return the number of tasks that have neither been executed nor cancelled
+     */
+    @Override
+    public int getScheduled() {
+        return m_scheduled.get();
+    }
+
+    /**
+     * Returns the pool of threads that are used to executed the runnable
+     * instances scheduled by the class' instance.
+     *
+     * @return thread pool
+     */
+    @Override
+    public ExecutorService getRunner() {
+        return m_runner;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getNumTasksExecuted() {
+        return m_numTasksExecuted.sum();
+    }
+
+    /**
+     * The main method of the scheduler. This method advances the wheel tick
+     * by tick and hands the expired tasks to the thread pool for execution.
+     */
+    @Override
+    public void run() {
+        synchronized (this) {
+            m_status = RUNNING;
+        }
+
+        LOG.debug("run: scheduler running");
+
+        try {
+            for (;;) {
+                synchronized (this) {
+                    if (m_status != RUNNING && m_status != PAUSED && m_status != PAUSE_PENDING && m_status != RESUME_PENDING) {
+                        LOG.debug("run: status = {}, time to exit", m_status);
+                        break;
+                    }
+
+                    // if paused or pause pending then block
+                    while (m_status == PAUSE_PENDING || m_status == PAUSED) {
+                        if (m_status == PAUSE_PENDING) {
+                            LOG.debug("run: pausing.");
+                        }
+                        m_status = PAUSED;
+                        wait();
+                    }
+
+                    if (m_status == RESUME_PENDING) {
+                        LOG.debug("run: resuming.");
+                        m_status = RUNNING;
+                    }
+                }
+
+                // Catch up with the wall clock, processing every tick that has elapsed
+                final long currentTick = (System.nanoTime() - m_startNanos) / m_tickNanos;
+                processCancellations();
+                transferSubmissions();
+                while (m_tick <= currentTick) {
+                    advance();
+                }
+
+                final long sleepNanos = m_startNanos + m_tick * m_tickNanos - System.nanoTime();
+                if (sleepNanos > 0) {
+                    synchronized (this) {
+                        if (m_status == RUNNING) {
+                            TimeUnit.NANOSECONDS.timedWait(this, sleepNanos);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.debug("run: interrupted");
+        }
+
+        LOG.debug("run: scheduler exiting, state = STOPPED");
+        synchronized (this) {
+            m_status = STOPPED;
+        }
+    }
+
+    private void transferSubmissions() {
+        Timeout timeout;
+        while ((timeout = m_submissions.poll()) != null) {
+            if (timeout.isPending()) {
+                add(timeout);
+            }
+        }
+    }
+
+    private void processCancellations() {
+        Timeout timeout;
+        while ((timeout = m_cancellations.poll()) != null) {
+            if (timeout.m_bucket != null) {
+                timeout.m_bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * Places the task in the bucket of the finest level that can hold its
+     * deadline relative to the current tick.
+     */
+    private void add(final Timeout timeout) {
+        long deadline = Math.max(timeout.m_deadline, m_tick);
+        if (deadline - m_tick >= MAX_TICKS) {
+            deadline = m_tick + MAX_TICKS - 1;
+        }
+        final long delta = deadline - m_tick;
+
+        int level = 0;
+        while (delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        final int index = (int) ((deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        m_wheels[level][index].add(timeout);
+    }
+
+    /**
+     * Processes the current tick: when the finest wheel wraps around, the
+     * buckets of the coarser levels that are now in range are cascaded down
+     * before the current bucket is expired.
+     */
+    private void advance() {
+        final int index = (int) (m_tick & WHEEL_MASK);
+        if (index == 0) {
+            for (int level = 1; level < LEVELS; level++) {
+                final int levelIndex = (int) ((m_tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+                cascade(m_wheels[level][levelIndex]);
+                if (levelIndex != 0) {
+                    break;
+                }
+            }
+        }
+        expire(m_wheels[0][index]);
+        m_tick++;
+    }
+
+    private void cascade(final Bucket bucket) {
+        Timeout timeout = bucket.clear();
+        while (timeout != null) {
+            final Timeout next = timeout.m_next;
+            timeout.m_next = null;
+            if (timeout.isPending()) {
+                add(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void expire(final Bucket bucket) {
+        Timeout timeout = bucket.clear();
+        while (timeout != null) {
+            final Timeout next = timeout.m_next;
+            timeout.m_next = null;
+
+            if (timeout.m_deadline > m_tick) {
+                // Parked beyond the range of the wheel, put it back
+                add(timeout);
+            } else if (timeout.isPending()) {
+                if (!timeout.m_runnable.isReady()) {
+                    timeout.m_deadline = m_tick + m_notReadyTicks;
+                    add(timeout);
+                } else if (timeout.m_state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                    LOG.debug("run: found ready runnable {}", timeout.m_runnable);
+                    m_scheduled.decrementAndGet();
+                    try {
+                        m_runner.execute(timeout.m_runnable);
+                    } catch (RejectedExecutionException e) {
+                        throw new UndeclaredThrowableException(e);
+                    }
+                    m_numTasksExecuted.increment();
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * A handle to a task scheduled on the wheel.
+     */
+    public final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final ReadyRunnable m_runnable;
+        private final AtomicInteger m_state = new AtomicInteger(PENDING);
+
+        // The following fields are only accessed by the worker thread
+        private long m_deadline;
+        private Bucket m_bucket;
+        private Timeout m_prev;
+        private Timeout m_next;
+
+        private Timeout(final ReadyRunnable runnable, final long deadline) {
+            m_runnable = runnable;
+            m_deadline = deadline;
+        }
+
+        public ReadyRunnable getRunnable() {
+            return m_runnable;
+        }
+
+        /**
+         * Cancels the task if it has not been executed yet.
+         *
+         * @return true if the task was cancelled by this call
+         */
+        public boolean cancel() {
+            if (m_state.compareAndSet(PENDING, CANCELLED)) {
+                m_scheduled.decrementAndGet();
+                m_cancellations.offer(this);
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return m_state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return m_state.get() == EXPIRED;
+        }
+
+        private boolean isPending() {
+            return m_state.get() == PENDING;
+        }
+
+        @Override
+        public String toString() {
+            return m_runnable.toString();
+        }
+    }
+
+    /**
+     * An intrusive doubly-linked list of tasks.
+     */
+    private static final class Bucket {
+        private Timeout m_head;
+        private Timeout m_tail;
+
+        private void add(final Timeout timeout) {
+            timeout.m_bucket = this;
+            timeout.m_prev = m_tail;
+            timeout.m_next = null;
+            if (m_tail == null) {
+                m_head = timeout;
+            } else {
+                m_tail.m_next = timeout;
+            }
+            m_tail = timeout;
+        }
+
+        private void remove(final Timeout timeout) {
+            if (timeout.m_prev == null) {
+                m_head = timeout.m_next;
+            } else {
+                timeout.m_prev.m_next = timeout.m_next;
+            }
+            if (timeout.m_next == null) {
+                m_tail = timeout.m_prev;
+            } else {
+                timeout.m_next.m_prev = timeout.m_prev;
+            }
+            timeout.m_bucket = null;
+            timeout.m_prev = null;
+            timeout.m_next = null;
+        }
+
+        /**
+         * Detaches all tasks from this bucket. The returned tasks are still
+         * chained through their next pointers.
+         */
+        private Timeout clear() {
+            final Timeout head = m_head;
+            for (Timeout timeout = head; timeout != null; timeout = timeout.m_next) {
+                timeout.m_bucket = null;
+                timeout.m_prev = null;
+            }
+            m_head = null;
+            m_tail = null;
+            return head;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.scheduler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opennms.core.fiber.PausableFiber;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to compare the {@link LegacyScheduler} with the
+ * {@link TimingWheelScheduler}.
+ * <p>
+ * Every benchmark method call schedules {@link BState#numTasks} no-op tasks with intervals of up to
+ * {@link #MAX_INTERVAL} milliseconds and, for the <code>scheduleAndRun</code> variants, waits until all
+ * of them have been executed.
+ */
+public class TimingWheelSchedulerBenchmark {
+
+    private static final int MAX_INTERVAL = 1000;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        @Param({"1000000"})
+        public int numTasks;
+
+        private LegacyScheduler legacyScheduler;
+        private TimingWheelScheduler timingWheelScheduler;
+        private CountDownLatch latch;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            legacyScheduler = new LegacyScheduler("Benchmark", 4);
+            timingWheelScheduler = new TimingWheelScheduler("Benchmark", 4, 10, 0);
+            latch = new CountDownLatch(numTasks);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            stop(legacyScheduler);
+            stop(timingWheelScheduler);
+        }
+
+        private static void stop(final Scheduler scheduler) {
+            if (scheduler.getStatus() == PausableFiber.START_PENDING) {
+                scheduler.start();
+            }
+            scheduler.stop();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public void legacySchedule(BState state) {
+        schedule(state.legacyScheduler, state.numTasks, null);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public void timingWheelSchedule(BState state) {
+        schedule(state.timingWheelScheduler, state.numTasks, null);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public void legacyScheduleAndRun(BState state) throws InterruptedException {
+        state.legacyScheduler.start();
+        schedule(state.legacyScheduler, state.numTasks, state.latch);
+        state.latch.await();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public void timingWheelScheduleAndRun(BState state) throws InterruptedException {
+        state.timingWheelScheduler.start();
+        schedule(state.timingWheelScheduler, state.numTasks, state.latch);
+        state.latch.await();
+    }
+
+    private static void schedule(final Scheduler scheduler, final int numTasks, final CountDownLatch latch) {
+        for (int i = 0; i < numTasks; i++) {
+            scheduler.schedule(i % MAX_INTERVAL, new ReadyRunnable() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void run() {
+                    if (latch != null) {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+    }
+}
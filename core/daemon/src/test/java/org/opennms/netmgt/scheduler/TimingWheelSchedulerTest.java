@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.core.fiber.PausableFiber;
+
+public class TimingWheelSchedulerTest {
+
+    private TimingWheelScheduler m_scheduler;
+
+    @Before
+    public void setUp() {
+        m_scheduler = new TimingWheelScheduler("TimingWheelSchedulerTest", 4, 1, 0);
+        m_scheduler.start();
+    }
+
+    @After
+    public void tearDown() {
+        m_scheduler.stop();
+    }
+
+    @Test
+    public void canRunTasksNoEarlierThanTheirDeadline() throws InterruptedException {
+        // Cover the first three levels of the wheel with a 1ms tick
+        final long[] delays = new long[] { 0, 5, 63, 64, 200, 4100 };
+        final CountDownLatch latch = new CountDownLatch(delays.length);
+        final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+        for (final long delay : delays) {
+            final long scheduledAt = System.nanoTime();
+            m_scheduler.schedule(delay, new Task(() -> {
+                final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledAt);
+                if (elapsed < delay) {
+                    failures.add("task with delay " + delay + "ms ran after " + elapsed + "ms");
+                }
+                latch.countDown();
+            }));
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(Collections.emptyList(), failures);
+        assertEquals(delays.length, m_scheduler.getNumTasksExecuted());
+        assertEquals(0, m_scheduler.getScheduled());
+    }
+
+    @Test
+    public void canCancelTasks() throws InterruptedException {
+        final AtomicBoolean cancelledRan = new AtomicBoolean(false);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        final TimingWheelScheduler.Timeout cancelled = m_scheduler.submit(new Task(() -> cancelledRan.set(true)), 50);
+        m_scheduler.submit(new Task(latch::countDown), 100);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertTrue(cancelled.isCancelled());
+        assertEquals(1, m_scheduler.getScheduled());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertFalse(cancelledRan.get());
+        assertEquals(1, m_scheduler.getNumTasksExecuted());
+    }
+
+    @Test
+    public void canRunReadyTasksWhileOthersAreNotReady() throws InterruptedException {
+        final AtomicBoolean ready = new AtomicBoolean(false);
+        final CountDownLatch notReadyLatch = new CountDownLatch(1);
+        final CountDownLatch readyLatch = new CountDownLatch(1);
+
+        final TimingWheelScheduler.Timeout notReady = m_scheduler.submit(new Task(notReadyLatch::countDown) {
+            @Override
+            public boolean isReady() {
+                return ready.get();
+            }
+        }, 0);
+        m_scheduler.submit(new Task(readyLatch::countDown), 10);
+
+        assertTrue(readyLatch.await(5, TimeUnit.SECONDS));
+        assertFalse(notReady.isExpired());
+
+        ready.set(true);
+        assertTrue(notReadyLatch.await(5, TimeUnit.SECONDS));
+        assertTrue(notReady.isExpired());
+    }
+
+    @Test
+    public void canRunManyTasksExactlyOnce() throws InterruptedException {
+        final int numTasks = 100000;
+        final Random random = new Random(42);
+        final AtomicInteger[] counts = new AtomicInteger[numTasks];
+        final CountDownLatch latch = new CountDownLatch(numTasks);
+
+        for (int i = 0; i < numTasks; i++) {
+            final AtomicInteger count = counts[i] = new AtomicInteger();
+            m_scheduler.schedule(random.nextInt(500), new Task(() -> {
+                count.incrementAndGet();
+                latch.countDown();
+            }));
+        }
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        for (final AtomicInteger count : counts) {
+            assertEquals(1, count.get());
+        }
+        assertEquals(numTasks, m_scheduler.getNumTasksExecuted());
+    }
+
+    @Test
+    public void canPauseAndResume() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        waitForStatus(PausableFiber.RUNNING);
+        m_scheduler.pause();
+        waitForStatus(PausableFiber.PAUSED);
+
+        m_scheduler.schedule(0, new Task(latch::countDown));
+        assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+
+        m_scheduler.resume();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(PausableFiber.RUNNING, m_scheduler.getStatus());
+    }
+
+    private void waitForStatus(final int status) throws InterruptedException {
+        final long end = System.currentTimeMillis() + 5000;
+        while (m_scheduler.getStatus() != status && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(status, m_scheduler.getStatus());
+    }
+
+    private static class Task implements ReadyRunnable {
+        private final Runnable m_runnable;
+
+        private Task(final Runnable runnable) {
+            m_runnable = runnable;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void run() {
+            m_runnable.run();
+        }
+    }
+}
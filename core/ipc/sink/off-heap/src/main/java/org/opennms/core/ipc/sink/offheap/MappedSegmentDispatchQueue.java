@@ -0,0 +1,700 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.ipc.sink.offheap;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import org.opennms.core.ipc.sink.api.DispatchQueue;
+import org.opennms.core.ipc.sink.api.WriteFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.swrve.ratelimitedlogger.RateLimitedLog;
+
+/**
+ * A {@link DispatchQueue} backed by an append log of fixed size, memory-mapped segment files.
+ * <p>
+ * Producers reserve space in the current segment with a single atomic add and copy their record into the mapping
+ * without holding a lock. A record becomes visible to the consumers once its header word, which carries the record
+ * length along with the generation of the segment, is published. Only switching to the next segment is serialized.
+ * <p>
+ * Segments which have been fully consumed are recycled: the file is renamed and its mapping is reused for the next
+ * segment instead of allocating a new one. Stale records of a previous generation are ignored since their header does
+ * not match the generation of the segment.
+ * <p>
+ * The read position is stored in a small offset file after every dequeue, so only entries which have not been read
+ * yet are replayed after a restart. When and how often the segments and the offset file are forced to disk is
+ * controlled by the {@link FsyncPolicy}.
+ * <p>
+ * All entries are persisted in the log, so {@link #enqueue} always returns {@link EnqueueResult#DEFERRED}. Once the
+ * configured number of segments is in use, {@link #enqueue} blocks until the consumers recycle a segment.
+ *
+ * @param <T> the type being queued
+ */
+public class MappedSegmentDispatchQueue<T> implements DispatchQueue<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedSegmentDispatchQueue.class);
+    private final RateLimitedLog RATE_LIMITED_LOGGER = RateLimitedLog
+            .withRateLimit(LOG)
+            .maxRate(5)
+            .every(Duration.ofSeconds(30))
+            .build();
+
+    /**
+     * Defines when the data written to the memory mapped files is forced to disk.
+     */
+    public enum FsyncPolicy {
+        /**
+         * Leave it to the operating system to write back the dirty pages.
+         */
+        NEVER,
+        /**
+         * Force the segments and the read offset to disk periodically.
+         */
+        INTERVAL,
+        /**
+         * Force the segment after every enqueue and the read offset after every dequeue.
+         */
+        ALWAYS;
+
+        public static FsyncPolicy fromString(String value) {
+            return FsyncPolicy.valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    private static final String SEGMENT_EXTENSION = ".seg";
+    private static final String OFFSET_FILE = "read.offset";
+
+    // A record consists of a header word (generation and length), the CRC of the payload, padding and the payload
+    private static final int RECORD_HEADER_SIZE = 16;
+    private static final int RECORD_ALIGNMENT = 8;
+    private static final int END_OF_SEGMENT = -1;
+
+    private static final int OFFSET_FILE_SIZE = 24;
+    private static final long OFFSET_CHECKSUM_SEED = 0x6f6e6d732d6f6666L;
+
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Function<T, byte[]> serializer;
+    private final Function<byte[], T> deserializer;
+    private final String moduleName;
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+
+    // All segments which have not been consumed yet, by id
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile Segment writeSegment;
+
+    // Used to guard switching segments and the pool of recycled segments
+    private final Lock segmentLock = new ReentrantLock();
+    private final Condition segmentRecycled = segmentLock.newCondition();
+    private final Deque<Segment> recycledSegments = new ArrayDeque<>();
+    private volatile boolean full = false;
+
+    // Used to ensure only one thread is reading at a time
+    private final Lock readLock = new ReentrantLock(true);
+    private final Condition notEmpty = readLock.newCondition();
+    private final AtomicInteger waitingReaders = new AtomicInteger(0);
+    private Segment readSegment;
+    private int readPosition;
+
+    private final FileChannel offsetChannel;
+    private final MappedByteBuffer offsetBuffer;
+
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    private final ScheduledExecutorService fsyncExecutor;
+
+    public MappedSegmentDispatchQueue(Function<T, byte[]> serializer, Function<byte[], T> deserializer,
+                                      String moduleName, Path filePath, int segmentSize, long maxFileSizeInBytes,
+                                      FsyncPolicy fsyncPolicy, long fsyncIntervalMs) throws IOException {
+        this.serializer = Objects.requireNonNull(serializer);
+        this.deserializer = Objects.requireNonNull(deserializer);
+        this.moduleName = Objects.requireNonNull(moduleName);
+        this.fsyncPolicy = Objects.requireNonNull(fsyncPolicy);
+        Objects.requireNonNull(filePath);
+
+        if (segmentSize < 2 * RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + 2 * RECORD_HEADER_SIZE + " bytes");
+        }
+
+        if (maxFileSizeInBytes < segmentSize) {
+            throw new IllegalArgumentException("Max file size must not be smaller than the segment size");
+        }
+
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && fsyncIntervalMs <= 0) {
+            throw new IllegalArgumentException("Fsync interval must be a positive integer");
+        }
+
+        this.segmentSize = segmentSize - (segmentSize % RECORD_ALIGNMENT);
+        this.maxSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxFileSizeInBytes / this.segmentSize));
+        this.directory = filePath.resolve(moduleName + "-segments");
+        Files.createDirectories(directory);
+
+        offsetChannel = FileChannel.open(directory.resolve(OFFSET_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        offsetBuffer = offsetChannel.map(FileChannel.MapMode.READ_WRITE, 0, OFFSET_FILE_SIZE);
+
+        recover();
+
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            fsyncExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "offheap-fsync-" + moduleName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            fsyncExecutor.scheduleWithFixedDelay(this::force, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            fsyncExecutor = null;
+        }
+    }
+
+    /**
+     * Serializes the message and appends it to the current segment. Switching to the next segment is the only
+     * operation that requires a lock, it blocks when all segments are in use.
+     */
+    @Override
+    public EnqueueResult enqueue(T message, String key) throws WriteFailedException {
+        final byte[] payload = serializer.apply(message);
+        final int recordSize = align(RECORD_HEADER_SIZE + payload.length);
+        if (recordSize > segmentSize) {
+            throw new WriteFailedException(new IllegalArgumentException("Message of " + payload.length +
+                    " bytes does not fit into a segment of " + segmentSize + " bytes"));
+        }
+
+        LOG.trace("Enqueueing {} with key {} as record of {} bytes", message, key, recordSize);
+
+        while (true) {
+            final Segment segment = writeSegment;
+            final long state = segment.reserve(recordSize);
+            final int generation = Segment.generationOf(state);
+            final long start = Segment.positionOf(state);
+            if (start + recordSize <= segmentSize) {
+                segment.write((int) start, generation, payload);
+                if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                    segment.buffer.force();
+                }
+                break;
+            }
+
+            // The first writer to overflow the segment marks its end, all of them move on to the next segment
+            if (start < segmentSize) {
+                segment.publish((int) start, generation, END_OF_SEGMENT);
+            }
+
+            try {
+                rollover(segment, generation);
+            } catch (InterruptedException e) {
+                throw new WriteFailedException(e);
+            } catch (IOException e) {
+                RATE_LIMITED_LOGGER.warn("Failed to roll over to the next segment for module {}", moduleName, e);
+                throw new WriteFailedException(e);
+            }
+        }
+
+        size.incrementAndGet();
+        if (waitingReaders.get() > 0) {
+            signalReaders();
+        }
+
+        return EnqueueResult.DEFERRED;
+    }
+
+    /**
+     * Reads the record at the current read position. Consumers take turns on the read lock and wait for producers to
+     * publish when the log has been consumed completely.
+     */
+    @Override
+    public Map.Entry<String, T> dequeue() throws InterruptedException {
+        final byte[] payload;
+        readLock.lockInterruptibly();
+        try {
+            byte[] next = read();
+            while (next == null) {
+                waitingReaders.incrementAndGet();
+                try {
+                    next = read();
+                    if (next == null) {
+                        // Producers signal when readers are waiting, the timeout only guards against a stalled producer
+                        notEmpty.await(100, TimeUnit.MILLISECONDS);
+                        next = read();
+                    }
+                } finally {
+                    waitingReaders.decrementAndGet();
+                }
+            }
+            payload = next;
+        } catch (IOException e) {
+            RATE_LIMITED_LOGGER.warn("Exception while dequeueing", e);
+            throw new RuntimeException(e);
+        } finally {
+            readLock.unlock();
+        }
+
+        return new AbstractMap.SimpleImmutableEntry<>(null, deserializer.apply(payload));
+    }
+
+    @Override
+    public boolean isFull() {
+        return full;
+    }
+
+    @Override
+    public int getSize() {
+        return size.get();
+    }
+
+    @VisibleForTesting
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Forces all segments and the read offset to disk and releases the files. The queue must not be used afterwards.
+     */
+    public void shutdown() {
+        if (fsyncExecutor != null) {
+            fsyncExecutor.shutdownNow();
+        }
+
+        force();
+
+        segmentLock.lock();
+        try {
+            for (final Segment segment : segments.values()) {
+                segment.close();
+            }
+            for (final Segment segment : recycledSegments) {
+                segment.close();
+            }
+            offsetChannel.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close segments of module {}", moduleName, e);
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    private void force() {
+        try {
+            for (final Segment segment : segments.values()) {
+                segment.buffer.force();
+            }
+            offsetBuffer.force();
+        } catch (Exception e) {
+            RATE_LIMITED_LOGGER.warn("Failed to force segments of module {} to disk", moduleName, e);
+        }
+    }
+
+    private void signalReaders() {
+        readLock.lock();
+        try {
+            notEmpty.signalAll();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with the read lock held.
+     *
+     * @return the payload of the next record or null if there is none published yet
+     */
+    private byte[] read() throws IOException {
+        while (true) {
+            final Segment segment = readSegment;
+            if (readPosition + Long.BYTES > segmentSize) {
+                if (!advance(segment)) {
+                    return null;
+                }
+                continue;
+            }
+
+            final long header = segment.readHeader(readPosition);
+            if (!segment.isCurrentGeneration(header)) {
+                // Not written yet
+                return null;
+            }
+
+            final int length = (int) header;
+            if (length < 0 || readPosition + align(RECORD_HEADER_SIZE + length) > segmentSize) {
+                // End of the segment
+                if (!advance(segment)) {
+                    return null;
+                }
+                continue;
+            }
+
+            final byte[] payload = segment.payload(readPosition, length);
+            final boolean valid = segment.readCrc(readPosition) == crc(payload);
+            readPosition += align(RECORD_HEADER_SIZE + length);
+            storeReadOffset();
+            size.decrementAndGet();
+
+            if (valid) {
+                return payload;
+            }
+            RATE_LIMITED_LOGGER.warn("Skipping corrupt record in segment {} of module {}", segment.id, moduleName);
+        }
+    }
+
+    /**
+     * Moves the read position to the next segment once the writers have moved on and recycles the consumed one.
+     */
+    private boolean advance(Segment segment) throws IOException {
+        final Segment next = segments.get(segment.id + 1);
+        if (next == null) {
+            return false;
+        }
+
+        readSegment = next;
+        readPosition = 0;
+        storeReadOffset();
+
+        segmentLock.lock();
+        try {
+            segments.remove(segment.id);
+            recycledSegments.push(segment);
+            segmentRecycled.signalAll();
+        } finally {
+            segmentLock.unlock();
+        }
+        return true;
+    }
+
+    private void rollover(Segment segment, int generation) throws IOException, InterruptedException {
+        segmentLock.lockInterruptibly();
+        try {
+            while (true) {
+                if (writeSegment != segment || segment.generation() != generation) {
+                    // Someone else already moved on, the segment may even have been recycled in the meantime
+                    return;
+                }
+                if (segments.size() < maxSegments) {
+                    break;
+                }
+                if (!full) {
+                    RATE_LIMITED_LOGGER.info("Off heap segments for module {} are now full", moduleName);
+                    full = true;
+                }
+                segmentRecycled.await();
+            }
+            if (full) {
+                RATE_LIMITED_LOGGER.info("Off heap segments for module {} are no longer full", moduleName);
+                full = false;
+            }
+
+            final long nextId = segment.id + 1;
+            final Segment recycled = recycledSegments.poll();
+            final Segment next = recycled != null ? recycled.reuse(nextId) : Segment.create(segmentPath(nextId), nextId, segmentSize);
+            segments.put(nextId, next);
+            writeSegment = next;
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * Restores the segments and the read offset from disk.
+     * <p>
+     * Segments before the stored read offset have been consumed and are recycled. A record that was not completely
+     * written before a crash closes its segment, so that the consumers do not wait for it.
+     */
+    private void recover() throws IOException {
+        final ConcurrentSkipListMap<Long, Path> files = new ConcurrentSkipListMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_EXTENSION)) {
+            for (final Path file : stream) {
+                final String name = file.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length())), file);
+                } catch (NumberFormatException e) {
+                    LOG.warn("Ignoring unexpected file {} in {}", file, directory);
+                }
+            }
+        }
+
+        long readSegmentId = offsetBuffer.getLong(0);
+        int position = (int) offsetBuffer.getLong(8);
+        if (offsetBuffer.getLong(16) != offsetChecksum(readSegmentId, position)
+                || !files.containsKey(readSegmentId) || position < 0 || position > segmentSize) {
+            if (!files.isEmpty() && (readSegmentId != 0 || position != 0)) {
+                LOG.warn("Invalid read offset for module {}, reading all segments from the start", moduleName);
+            }
+            readSegmentId = files.isEmpty() ? 1 : files.firstKey();
+            position = 0;
+        }
+
+        int recovered = 0;
+        for (final Map.Entry<Long, Path> file : files.entrySet()) {
+            final long id = file.getKey();
+            if (id < readSegmentId) {
+                Files.delete(file.getValue());
+                continue;
+            }
+
+            final Segment segment;
+            try {
+                segment = Segment.open(file.getValue(), id, segmentSize);
+            } catch (IOException e) {
+                LOG.warn("Failed to open segment {} of module {}, dropping it", file.getValue(), moduleName, e);
+                Files.delete(file.getValue());
+                continue;
+            }
+            if (!segments.isEmpty() && segments.lastKey() != id - 1) {
+                LOG.warn("Segment {} of module {} follows a gap, dropping it", id, moduleName);
+                segment.close();
+                Files.delete(file.getValue());
+                continue;
+            }
+
+            // Count the records and find the end of the segment
+            int offset = id == readSegmentId ? position : 0;
+            while (offset + Long.BYTES <= segmentSize) {
+                final long header = segment.readHeader(offset);
+                final int length = (int) header;
+                if (!segment.isCurrentGeneration(header) || length < 0
+                        || offset + align(RECORD_HEADER_SIZE + length) > segmentSize
+                        || segment.readCrc(offset) != crc(segment.payload(offset, length))) {
+                    break;
+                }
+                offset += align(RECORD_HEADER_SIZE + length);
+                recovered++;
+            }
+            segment.resetWriteState(offset);
+            segments.put(id, segment);
+        }
+
+        // Close all but the last segment, anything after a partially written record is lost
+        for (final Segment segment : segments.headMap(segments.isEmpty() ? 0 : segments.lastKey()).values()) {
+            final int offset = (int) Segment.positionOf(segment.writeState.get());
+            if (offset + Long.BYTES <= segmentSize && segment.readHeader(offset) != segment.endOfSegmentHeader()) {
+                segment.publish(offset, segment.generation(), END_OF_SEGMENT);
+            }
+            segment.resetWriteState(segmentSize);
+        }
+
+        if (segments.isEmpty()) {
+            segments.put(readSegmentId, Segment.create(segmentPath(readSegmentId), readSegmentId, segmentSize));
+            position = 0;
+        }
+        if (!segments.containsKey(readSegmentId)) {
+            readSegmentId = segments.firstKey();
+            position = 0;
+        }
+
+        writeSegment = segments.lastEntry().getValue();
+        readSegment = segments.get(readSegmentId);
+        readPosition = position;
+        storeReadOffset();
+        size.set(recovered);
+
+        LOG.info("Recovered {} entries in {} segments for module {}", recovered, segments.size(), moduleName);
+    }
+
+    private void storeReadOffset() {
+        offsetBuffer.putLong(0, readSegment.id);
+        offsetBuffer.putLong(8, readPosition);
+        offsetBuffer.putLong(16, offsetChecksum(readSegment.id, readPosition));
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            offsetBuffer.force();
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_EXTENSION));
+    }
+
+    private static long offsetChecksum(long segmentId, long position) {
+        return OFFSET_CHECKSUM_SEED ^ (segmentId * 31 + position);
+    }
+
+    private static int align(int size) {
+        return (size + RECORD_ALIGNMENT - 1) & -RECORD_ALIGNMENT;
+    }
+
+    private static int crc(byte[] payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A memory mapped segment file.
+     * <p>
+     * The header word of each record holds the generation (derived from the segment id) in its upper and the payload
+     * length in its lower half. It is written last, so a record is complete once its header is visible.
+     * <p>
+     * The write state combines the generation with the write position, so a reservation made while the segment is
+     * being recycled is never mistaken for one of its next generation.
+     */
+    private static final class Segment {
+        private static final int POSITION_BITS = 40;
+        private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final AtomicLong writeState = new AtomicLong(0);
+        private Path path;
+        private volatile long id;
+
+        private Segment(Path path, long id, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.id = id;
+            this.channel = channel;
+            this.buffer = buffer;
+            resetWriteState(0);
+        }
+
+        static Segment create(Path path, long id, int segmentSize) throws IOException {
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.setLength(segmentSize);
+            }
+            return open(path, id, segmentSize);
+        }
+
+        static Segment open(Path path, long id, int segmentSize) throws IOException {
+            final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() < segmentSize) {
+                channel.close();
+                throw new IOException("Segment " + path + " is smaller than " + segmentSize + " bytes");
+            }
+            return new Segment(path, id, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        }
+
+        static int generationOf(long state) {
+            return (int) (state >>> POSITION_BITS);
+        }
+
+        static long positionOf(long state) {
+            return state & POSITION_MASK;
+        }
+
+        /**
+         * Renames the file for the given id and resets the write position. The content is left as is, the records of
+         * the previous generation are invalid for the new one.
+         */
+        Segment reuse(long newId) throws IOException {
+            final Path newPath = path.resolveSibling(String.format("%020d%s", newId, SEGMENT_EXTENSION));
+            Files.move(path, newPath, StandardCopyOption.ATOMIC_MOVE);
+            path = newPath;
+            id = newId;
+            resetWriteState(0);
+            return this;
+        }
+
+        long reserve(int recordSize) {
+            return writeState.getAndAdd(recordSize);
+        }
+
+        void resetWriteState(long position) {
+            writeState.set(((long) generation() << POSITION_BITS) | position);
+        }
+
+        void write(int offset, int generation, byte[] payload) {
+            final ByteBuffer target = buffer.duplicate();
+            target.position(offset + RECORD_HEADER_SIZE);
+            target.put(payload);
+            buffer.putInt(offset + Long.BYTES, crc(payload));
+            publish(offset, generation, payload.length);
+        }
+
+        void publish(int offset, int generation, int length) {
+            LONG_VIEW.setVolatile(buffer, offset, headerWord(generation, length));
+        }
+
+        long readHeader(int offset) {
+            return (long) LONG_VIEW.getVolatile(buffer, offset);
+        }
+
+        int readCrc(int offset) {
+            return buffer.getInt(offset + Long.BYTES);
+        }
+
+        byte[] payload(int offset, int length) {
+            final byte[] payload = new byte[length];
+            final ByteBuffer source = buffer.duplicate();
+            source.position(offset + RECORD_HEADER_SIZE);
+            source.get(payload);
+            return payload;
+        }
+
+        boolean isCurrentGeneration(long header) {
+            return (int) (header >>> 32) == generation();
+        }
+
+        long endOfSegmentHeader() {
+            return headerWord(generation(), END_OF_SEGMENT);
+        }
+
+        int generation() {
+            // Never 0, so that a zeroed file never contains a valid record
+            return (int) (id & 0x7FFFFF) | 0x800000;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+
+        private static long headerWord(int generation, int length) {
+            return ((long) generation << 32) | (length & 0xFFFFFFFFL);
+        }
+    }
+}
@@ -45,18 +45,43 @@ public class QueueFileOffHeapDispatchQueueFactory implements DispatchQueueFactor
 
     private static final Logger LOG = LoggerFactory.getLogger(QueueFileOffHeapDispatchQueueFactory.class);
 
+    public static final String QUEUE_TYPE_QUEUE_FILE = "queue-file";
+    public static final String QUEUE_TYPE_MAPPED_SEGMENTS = "mapped-segments";
+
     private final int inMemoryEntrySize;
     private final long offHeapSize;
     private final int batchSize;
     private final Path baseFilePath;
+    private final String queueType;
+    private final int segmentSize;
+    private final MappedSegmentDispatchQueue.FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMs;
 
     private final Map<String, DispatchQueue<?>> queues = new ConcurrentHashMap<>();
 
     public QueueFileOffHeapDispatchQueueFactory(int inMemoryEntrySize, int batchSize, String offHeapSize,
                                                 String baseFilePath) {
+        this(inMemoryEntrySize, batchSize, offHeapSize, baseFilePath, QUEUE_TYPE_QUEUE_FILE, "64MB",
+                MappedSegmentDispatchQueue.FsyncPolicy.INTERVAL.name(), 1000);
+    }
+
+    public QueueFileOffHeapDispatchQueueFactory(int inMemoryEntrySize, int batchSize, String offHeapSize,
+                                                String baseFilePath, String queueType, String segmentSize,
+                                                String fsyncPolicy, long fsyncIntervalMs) {
         this.inMemoryEntrySize = inMemoryEntrySize;
         this.batchSize = batchSize;
         this.offHeapSize = convertToBytes(offHeapSize);
+        this.queueType = queueType == null || queueType.length() == 0 ? QUEUE_TYPE_QUEUE_FILE : queueType;
+        if (!QUEUE_TYPE_QUEUE_FILE.equals(this.queueType) && !QUEUE_TYPE_MAPPED_SEGMENTS.equals(this.queueType)) {
+            throw new IllegalArgumentException("Invalid queue type " + queueType);
+        }
+        final long segmentSizeInBytes = convertToBytes(segmentSize);
+        if (segmentSizeInBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be smaller than 2GB");
+        }
+        this.segmentSize = (int) segmentSizeInBytes;
+        this.fsyncPolicy = MappedSegmentDispatchQueue.FsyncPolicy.fromString(fsyncPolicy);
+        this.fsyncIntervalMs = fsyncIntervalMs;
 
         if (baseFilePath == null || baseFilePath.length() == 0) {
             this.baseFilePath = Paths.get(System.getProperty("karaf.data"));
@@ -64,9 +89,15 @@ public class QueueFileOffHeapDispatchQueueFactory implements DispatchQueueFactor
             this.baseFilePath = Paths.get(baseFilePath);
         }
 
-        LOG.info("DispatchQueue factory initialized with on-heap size: {}, batch size: {}, off-heap size: {}, " +
-                        "and file path: {}", this.inMemoryEntrySize, this.batchSize, this.offHeapSize,
-                this.baseFilePath);
+        if (QUEUE_TYPE_MAPPED_SEGMENTS.equals(this.queueType) && this.offHeapSize <= 0) {
+            LOG.warn("The {} queue type requires an off-heap size greater than 0, but the off-heap size is '{}'. " +
+                    "Messages will only be queued on the heap, with at most {} entries per module.",
+                    QUEUE_TYPE_MAPPED_SEGMENTS, offHeapSize, this.inMemoryEntrySize);
+        }
+
+        LOG.info("DispatchQueue factory initialized with queue type: {}, on-heap size: {}, batch size: {}, " +
+                        "off-heap size: {}, and file path: {}", this.queueType, this.inMemoryEntrySize, this.batchSize,
+                this.offHeapSize, this.baseFilePath);
     }
 
     @Override
@@ -79,6 +110,11 @@ public class QueueFileOffHeapDispatchQueueFactory implements DispatchQueueFactor
 
         return (DispatchQueue<T>) queues.computeIfAbsent(moduleName, (k) -> {
             try {
+                // The segmented log has no in-memory portion, it requires an off-heap size
+                if (QUEUE_TYPE_MAPPED_SEGMENTS.equals(queueType) && offHeapSize > 0) {
+                    return new MappedSegmentDispatchQueue<>(serializer, deserializer, k, baseFilePath, segmentSize,
+                            offHeapSize, fsyncPolicy, fsyncIntervalMs);
+                }
                 return new QueueFileOffHeapDispatchQueue<>(serializer, deserializer, k, baseFilePath,
                         inMemoryEntrySize, batchSize,
                         offHeapSize);
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.ipc.sink.offheap;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.awaitility.core.ConditionTimeoutException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opennms.core.ipc.sink.api.DispatchQueue;
+import org.opennms.core.ipc.sink.api.WriteFailedException;
+import org.opennms.core.ipc.sink.offheap.MappedSegmentDispatchQueue.FsyncPolicy;
+
+public class MappedSegmentDispatchQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void canQueueAndDequeue() throws IOException, WriteFailedException, InterruptedException {
+        DispatchQueue<String> queue = new MappedSegmentDispatchQueue<>(String::getBytes, String::new,
+                "canQueueAndDequeue", Paths.get(folder.newFolder().toURI()), 4096, 1_000_000, FsyncPolicy.NEVER, 0);
+
+        assertThat(queue.enqueue("msg1", "key1"), equalTo(DispatchQueue.EnqueueResult.DEFERRED));
+        assertThat(queue.enqueue("msg2", "key2"), equalTo(DispatchQueue.EnqueueResult.DEFERRED));
+
+        assertThat(queue.getSize(), equalTo(2));
+
+        assertThat(queue.dequeue().getValue(), equalTo("msg1"));
+        assertThat(queue.dequeue().getValue(), equalTo("msg2"));
+        assertThat(queue.getSize(), equalTo(0));
+    }
+
+    @Test
+    public void dequeuesInOrderAcrossSegments() throws IOException, WriteFailedException, InterruptedException {
+        Path path = Paths.get(folder.newFolder().toURI());
+        MappedSegmentDispatchQueue<String> queue = new MappedSegmentDispatchQueue<>(String::getBytes, String::new,
+                "dequeuesInOrderAcrossSegments", path, 1024, 8 * 1024, FsyncPolicy.NEVER, 0);
+
+        List<String> dequeued = new ArrayList<>();
+        List<String> toQueue = IntStream.range(0, 10_000)
+                .boxed()
+                .map(Object::toString)
+                .collect(Collectors.toList());
+
+        // Interleave enqueues and dequeues so that the segments get recycled
+        for (String s : toQueue) {
+            queue.enqueue(s, "key" + s);
+            if (queue.getSize() > 100) {
+                dequeued.add(queue.dequeue().getValue());
+            }
+        }
+        while (queue.getSize() > 0) {
+            dequeued.add(queue.dequeue().getValue());
+        }
+
+        assertThat(dequeued, equalTo(toQueue));
+        assertThat(queue.getSegmentCount(), equalTo(1));
+        try (Stream<Path> files = Files.list(path.resolve("dequeuesInOrderAcrossSegments-segments"))) {
+            // The recycled segments plus the read offset
+            assertThat(files.count() <= 9, is(true));
+        }
+    }
+
+    @Test
+    public void canQueueAndDequeueInParallel() throws IOException, InterruptedException {
+        DispatchQueue<String> queue = new MappedSegmentDispatchQueue<>(String::getBytes, String::new,
+                "canQueueAndDequeueInParallel", Paths.get(folder.newFolder().toURI()), 4096, 64 * 1024,
+                FsyncPolicy.INTERVAL, 10);
+
+        int numProducers = 4;
+        int numEntries = 10_000;
+        for (int p = 0; p < numProducers; p++) {
+            final int producer = p;
+            CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < numEntries; i++) {
+                    try {
+                        queue.enqueue(producer + ":" + i, null);
+                    } catch (WriteFailedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+
+        List<List<String>> dequeued = Collections.synchronizedList(new ArrayList<>());
+        for (int c = 0; c < 2; c++) {
+            List<String> consumed = Collections.synchronizedList(new ArrayList<>());
+            dequeued.add(consumed);
+            CompletableFuture.runAsync(() -> {
+                while (true) {
+                    try {
+                        consumed.add(queue.dequeue().getValue());
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+
+        await().atMost(1, TimeUnit.MINUTES)
+                .until(() -> dequeued.stream().mapToInt(List::size).sum(), equalTo(numProducers * numEntries));
+
+        // Every entry was received exactly once
+        final ConcurrentHashMap<String, Boolean> unique = new ConcurrentHashMap<>();
+        dequeued.forEach(consumed -> consumed.forEach(value -> unique.put(value, true)));
+        assertThat(unique.size(), equalTo(numProducers * numEntries));
+    }
+
+    @Test
+    public void blocksWhenEmpty() throws IOException, WriteFailedException {
+        DispatchQueue<String> queue = new MappedSegmentDispatchQueue<>(String::getBytes, String::new,
+                "blocksWhenEmpty", Paths.get(folder.newFolder().toURI()), 4096, 1_000_000, FsyncPolicy.NEVER, 0);
+
+        AtomicBoolean receivedValue = new AtomicBoolean(false);
+        CompletableFuture.runAsync(() -> {
+            try {
+                queue.dequeue();
+                receivedValue.set(true);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        try {
+            await().pollDelay(10, TimeUnit.MILLISECONDS)
+                    .atMost(100, TimeUnit.MILLISECONDS)
+                    .until(receivedValue::get);
+            fail("Dequeue did not block");
+        } catch (ConditionTimeoutException expected) {
+        }
+
+        queue.enqueue("a", "key");
+
+        await().atMost(1, TimeUnit.SECONDS).until(receivedValue::get);
+    }
+
+    @Test
+    public void blocksWhenFull() throws IOException, WriteFailedException, InterruptedException {
+        MappedSegmentDispatchQueue<byte[]> queue = new MappedSegmentDispatchQueue<>(b -> b, b -> b,
+                "blocksWhenFull", Paths.get(folder.newFolder().toURI()), 128, 256, FsyncPolicy.NEVER, 0);
+
+        // Each record takes 16 bytes of header and 48 bytes of payload, so both segments hold 2 records each
+        for (int i = 0; i < 4; i++) {
+            queue.enqueue(new byte[48], "key");
+        }
+
+        AtomicBoolean didQueue = new AtomicBoolean(false);
+        CompletableFuture.runAsync(() -> {
+            try {
+                queue.enqueue(new byte[48], "key");
+                didQueue.set(true);
+            } catch (WriteFailedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        try {
+            await().pollDelay(10, TimeUnit.MILLISECONDS)
+                    .atMost(100, TimeUnit.MILLISECONDS)
+                    .until(didQueue::get);
+            fail("Enqueue happened but we should have been blocking");
+        } catch (ConditionTimeoutException expected) {
+        }
+        assertThat(queue.isFull(), is(true));
+
+        // Consuming the first segment recycles it for the blocked producer
+        queue.dequeue();
+        queue.dequeue();
+        queue.dequeue();
+
+        await().atMost(1, TimeUnit.SECONDS).until(didQueue::get);
+        assertThat(queue.isFull(), is(false));
+        assertThat(queue.getSize(), equalTo(2));
+    }
+
+    @Test
+    public void canDequeueAfterRestart() throws IOException, WriteFailedException, InterruptedException {
+        Path path = Paths.get(folder.newFolder().toURI());
+        String moduleName = "canDequeueAfterRestart";
+        MappedSegmentDispatchQueue<String> queue = new MappedSegmentDispatchQueue<>(String::getBytes, String::new,
+                moduleName, path, 256, 4096, FsyncPolicy.ALWAYS, 0);
+
+        for (int i = 0; i < 20; i++) {
+            queue.enqueue("msg" + i, "key" + i);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertThat(queue.dequeue().getValue(), equalTo("msg" + i));
+        }
+        queue.shutdown();
+
+        // Reinitialize to simulate coming back up after restart, only the unread entries are replayed
+        queue = new MappedSegmentDispatchQueue<>(String::getBytes, String::new, moduleName, path, 256, 4096,
+                FsyncPolicy.ALWAYS, 0);
+        assertThat(queue.getSize(), equalTo(15));
+        for (int i = 5; i < 20; i++) {
+            assertThat(queue.dequeue().getValue(), equalTo("msg" + i));
+        }
+
+        // Appending continues after the recovered entries
+        queue.enqueue("msg20", "key20");
+        assertThat(queue.dequeue().getValue(), equalTo("msg20"));
+    }
+
+    @Test
+    public void recoversFromCorruptOffset() throws IOException, WriteFailedException, InterruptedException {
+        Path path = Paths.get(folder.newFolder().toURI());
+        String moduleName = "recoversFromCorruptOffset";
+        MappedSegmentDispatchQueue<String> queue = new MappedSegmentDispatchQueue<>(String::getBytes, String::new,
+                moduleName, path, 4096, 1_000_000, FsyncPolicy.NEVER, 0);
+        queue.enqueue("msg1", "key1");
+        queue.enqueue("msg2", "key2");
+        assertThat(queue.dequeue().getValue(), equalTo("msg1"));
+        queue.shutdown();
+
+        Files.write(path.resolve(moduleName + "-segments").resolve("read.offset"), "corrupt!".getBytes());
+
+        // Without a valid offset all entries are replayed
+        queue = new MappedSegmentDispatchQueue<>(String::getBytes, String::new, moduleName, path, 4096, 1_000_000,
+                FsyncPolicy.NEVER, 0);
+        assertThat(queue.getSize(), equalTo(2));
+        assertThat(queue.dequeue().getValue(), equalTo("msg1"));
+        assertThat(queue.dequeue().getKey(), is(nullValue()));
+    }
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.ipc.sink.offheap;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opennms.core.ipc.sink.api.DispatchQueue;
+import org.opennms.core.ipc.sink.api.WriteFailedException;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to compare the enqueue throughput of the off-heap dispatch queues.
+ * <p>
+ * Four producers enqueue messages while a single thread drains the queue, like the sink consumers do once the broker
+ * is available again. The in-memory portions of the tape2 and RocksDB based queues are kept small so that most of the
+ * messages end up off-heap.
+ */
+public class OffHeapDispatchQueueBenchmark {
+
+    private static final int PAYLOAD_SIZE = 512;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        @Param({"queue-file", "rocksdb", "mapped-segments"})
+        public String queueType;
+
+        private Path path;
+        private DispatchQueue<byte[]> queue;
+        private Thread drain;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            path = Files.createTempDirectory("offheap-benchmark");
+            switch (queueType) {
+                case "queue-file":
+                    queue = new QueueFileOffHeapDispatchQueue<>(b -> b, b -> b, "benchmark", path, 1000, 100,
+                            1024L * 1024L * 1024L);
+                    break;
+                case "rocksdb":
+                    queue = new DataBlocksOffHeapQueue<>(b -> b, b -> b, "benchmark", path, 1000, 100,
+                            1024L * 1024L * 1024L);
+                    break;
+                case "mapped-segments":
+                    queue = new MappedSegmentDispatchQueue<>(b -> b, b -> b, "benchmark", path, 64 * 1024 * 1024,
+                            1024L * 1024L * 1024L, MappedSegmentDispatchQueue.FsyncPolicy.INTERVAL, 1000);
+                    break;
+                default:
+                    throw new IllegalArgumentException(queueType);
+            }
+
+            drain = new Thread(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        queue.dequeue();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "offheap-benchmark-drain");
+            drain.setDaemon(true);
+            drain.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            drain.interrupt();
+            if (queue instanceof MappedSegmentDispatchQueue) {
+                ((MappedSegmentDispatchQueue<byte[]>) queue).shutdown();
+            } else if (queue instanceof DataBlocksOffHeapQueue) {
+                ((DataBlocksOffHeapQueue<byte[]>) queue).shutdown();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TState {
+        private final byte[] payload = new byte[PAYLOAD_SIZE];
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Threads(4)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public DispatchQueue.EnqueueResult enqueue(BState state, TState thread) throws WriteFailedException {
+        return state.queue.enqueue(thread.payload, null);
+    }
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.ipc.sink.protobuf;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Objects;
+
+import org.opennms.core.ipc.sink.api.Message;
+import org.opennms.core.ipc.sink.xml.AbstractXmlSinkModule;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+
+/**
+ * Sink module which marshals messages using protobuf instead of XML.
+ *
+ * Subclasses map their messages to and from protoc-generated classes. Binary payloads are prefixed
+ * with a header consisting of a zero byte, which can never start an XML document, followed by the
+ * version of the encoding. Payloads without this header are unmarshaled as XML, so messages sent by
+ * Minions which are not aware of the binary encoding are still accepted.
+ *
+ * The encoding is not negotiated between Minion and core. Which encoding is sent is a configuration
+ * switch on the sending side: the {@value #CODEC_SYS_PROP} system property must be set to
+ * {@code protobuf}, which should only be done once all consumers understand the binary encoding.
+ *
+ * @param <S> type of message that will be sent by the producers
+ * @param <T> type of message that will be received by the consumers
+ * @param <P> type of the protobuf message used to encode the received messages
+ */
+public abstract class AbstractProtobufSinkModule<S extends Message, T extends Message, P extends MessageLite> extends AbstractXmlSinkModule<S, T> {
+
+    public static final String CODEC_SYS_PROP = "org.opennms.core.ipc.sink.codec";
+
+    public static final String XML_CODEC = "xml";
+
+    public static final String PROTOBUF_CODEC = "protobuf";
+
+    /** First byte of a binary payload */
+    protected static final byte MAGIC = 0x00;
+
+    /** Version of the binary encoding written by this module */
+    protected static final byte VERSION = 1;
+
+    private static final int HEADER_SIZE = 2;
+
+    private final Parser<P> parser;
+
+    private final boolean protobufEnabled;
+
+    public AbstractProtobufSinkModule(Class<T> messageClazz, Parser<P> parser) {
+        this(messageClazz, parser, PROTOBUF_CODEC.equalsIgnoreCase(System.getProperty(CODEC_SYS_PROP, XML_CODEC)));
+    }
+
+    public AbstractProtobufSinkModule(Class<T> messageClazz, Parser<P> parser, boolean protobufEnabled) {
+        super(messageClazz);
+        this.parser = Objects.requireNonNull(parser);
+        this.protobufEnabled = protobufEnabled;
+    }
+
+    /**
+     * Maps the message to its protobuf representation.
+     */
+    protected abstract P toProto(T message);
+
+    /**
+     * Maps the protobuf representation back to a message.
+     */
+    protected abstract T fromProto(P proto);
+
+    /**
+     * Determines if the message can be represented using the binary encoding.
+     *
+     * Messages which can not be represented are marshaled as XML.
+     */
+    protected boolean isEncodable(T message) {
+        return true;
+    }
+
+    public boolean isProtobufEnabled() {
+        return protobufEnabled;
+    }
+
+    @Override
+    public byte[] marshal(T message) {
+        if (!protobufEnabled || !isEncodable(message)) {
+            return super.marshal(message);
+        }
+
+        // The generated code caches the sizes of all nested messages, so the whole message is written into one buffer
+        final P proto = toProto(message);
+        final int size = proto.getSerializedSize();
+        final byte[] bytes = new byte[HEADER_SIZE + size];
+        bytes[0] = MAGIC;
+        bytes[1] = VERSION;
+        try {
+            final CodedOutputStream out = CodedOutputStream.newInstance(bytes, HEADER_SIZE, size);
+            proto.writeTo(out);
+            out.checkNoSpaceLeft();
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to marshal message for module " + getId(), e);
+        }
+        return bytes;
+    }
+
+    @Override
+    public T unmarshal(byte[] bytes) {
+        if (!isProtobuf(bytes)) {
+            return super.unmarshal(bytes);
+        }
+
+        final int version = bytes[1];
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported encoding version " + version + " for module " + getId());
+        }
+
+        try {
+            return fromProto(parser.parseFrom(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE));
+        } catch (final InvalidProtocolBufferException e) {
+            throw new IllegalArgumentException("Failed to unmarshal message for module " + getId(), e);
+        }
+    }
+
+    /**
+     * Checks if the given payload uses the binary encoding.
+     */
+    public static boolean isProtobuf(byte[] bytes) {
+        return bytes.length >= HEADER_SIZE && bytes[0] == MAGIC;
+    }
+
+    protected static ByteString toByteString(final InetAddress value) {
+        return ByteString.copyFrom(value.getAddress());
+    }
+
+    protected static InetAddress toInetAddress(final ByteString value) {
+        try {
+            return InetAddress.getByAddress(value.toByteArray());
+        } catch (final UnknownHostException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
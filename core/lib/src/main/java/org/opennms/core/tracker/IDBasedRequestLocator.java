@@ -28,8 +28,8 @@
 
 package org.opennms.core.tracker;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,45 +43,35 @@ public class IDBasedRequestLocator<ReqIdT, ReqT extends Request<ReqIdT, ReqT, Re
 
     private static final Logger s_log = LoggerFactory.getLogger(IDBasedRequestLocator.class);
 
-    private Map<ReqIdT, ReqT> m_pendingRequests = new HashMap<ReqIdT, ReqT>();
+    private final Map<ReqIdT, ReqT> m_pendingRequests = new ConcurrentHashMap<ReqIdT, ReqT>();
 
     public ReqT requestTimedOut(ReqT timedOutRequest) {
-        synchronized (m_pendingRequests) {
-            ReqT pendingRequest = m_pendingRequests.get(timedOutRequest.getId());
-            if (pendingRequest == timedOutRequest) {
-                m_pendingRequests.remove(timedOutRequest.getId());
-            }
-            // we return pendingRequest anyway to the tracker processes this as an error
-            return pendingRequest;
+        ReqT pendingRequest = m_pendingRequests.get(timedOutRequest.getId());
+        if (pendingRequest == timedOutRequest) {
+            m_pendingRequests.remove(timedOutRequest.getId(), timedOutRequest);
         }
+        // we return pendingRequest anyway to the tracker processes this as an error
+        return pendingRequest;
     }
 
     public void requestComplete(ReqT request) {
-        synchronized (m_pendingRequests) {
-            m_pendingRequests.remove(request.getId());
-        }
+        m_pendingRequests.remove(request.getId(), request);
     }
 
 
     public ReqT locateMatchingRequest(ReplyT reply) {
 
         ReqIdT id = reply.getRequestId();
-        synchronized (m_pendingRequests) {
-            s_log.debug("Looking for request with Id: {} in map {}", id, m_pendingRequests);
-            return m_pendingRequests.get(id);
-        }
+        s_log.debug("Looking for request with Id: {} in map {}", id, m_pendingRequests);
+        return m_pendingRequests.get(id);
 
     }
 
     public boolean trackRequest(ReqT request) {
-        synchronized(m_pendingRequests) {
-            ReqT oldRequest = m_pendingRequests.get(request.getId());
-            if (oldRequest != null) {
-                request.processError(new IllegalStateException("Duplicate request; keeping old request: "+oldRequest+"; removing new request: "+request));
-                return false;
-            } else {
-                m_pendingRequests.put(request.getId(), request);
-            }
+        ReqT oldRequest = m_pendingRequests.putIfAbsent(request.getId(), request);
+        if (oldRequest != null) {
+            request.processError(new IllegalStateException("Duplicate request; keeping old request: "+oldRequest+"; removing new request: "+request));
+            return false;
         }
         return true;
     }
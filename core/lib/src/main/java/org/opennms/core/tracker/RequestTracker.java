@@ -29,13 +29,17 @@
 package org.opennms.core.tracker;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.opennms.core.sysprops.SystemProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,33 +47,37 @@ import org.slf4j.LoggerFactory;
  *
  * Request Tracker Design
  *
- * The request tracker has four components that are all static
+ * The request tracker has four components
  *
  * a messenger
  * a pending requests map
- * a callback queue (LinkedBlockingQueue)
- * a timeout queue (DelayQueue)
+ * N callback queues (LinkedBlockingQueue), one per callback processor
+ * a timeout wheel (TimeoutWheel)
  *
- * It also has two threads:
+ * It also has N + 1 threads:
  *
- * a thread to process the callbacks (Callback-Processor)
+ * N threads to process the callbacks (Callback-Processor-0 .. Callback-Processor-N-1)
  * a thread to process the timeouts (Timeout-Processor)
  *
  * Thread Details:
  *
- * 1.  The callback processor thread is responsible for handling all of the callbacks to
- *     the request object. This thread will pull callbacks off the linked blocking queue
- *     and issue the call in the order in which they were added.
+ * 1.  The callback processor threads are responsible for handling all of the callbacks to
+ *     the request objects. Callbacks are partitioned by request id, so all callbacks of a
+ *     request are issued by the same thread in the order in which they were added.
  *
- *     All of the callback are handled from a single thread in order to avoid synchronization
- *     issue in processing the replies and responses. In the versions of the tracker before 0.7,
- *     it was possible for RequestTracker to receive a reply, but issue the timeout before it had
- *     a chance to process it.
+ *     All of the callbacks of a request are handled from a single thread in order to avoid
+ *     synchronization issues in processing the replies and responses. In the versions of the
+ *     tracker before 0.7, it was possible for RequestTracker to receive a reply, but issue the
+ *     timeout before it had a chance to process it.
+ *
+ *     Callbacks can only be partitioned if the request can be found from the id of the reply,
+ *     so trackers using a locator other than the IDBasedRequestLocator use a single thread.
  *
  * 2.  The timeout processor is only responsible creating callbacks for timeouts, and adding these
- *     to the callback queue when timeouts occur. The timeout processor pulls the requests off a DelayQueue
- *     and creates a callback if the request had not yet been processed. Note that a DelayQueue does not allow
- *     things to be removed until the timeout has expired.
+ *     to the callback queues when timeouts occur. The timeout processor advances a hashed timer
+ *     wheel and creates a callback for every expired request that had not yet been processed.
+ *     The timeout of a request is cancelled in O(1) when its reply was processed, so completed
+ *     requests do not pile up until their timeout expires.
  *
  * Processing:
  *
@@ -79,22 +87,24 @@ import org.slf4j.LoggerFactory;
  * Making a request: (client thread)
  * - create a request (client does this)
  * - send the request (via the Messenger)
- * - add it to the timeout queue
+ * - schedule its timeout on the timeout wheel
  *
  * Replies come from the messenger:
  * - as replies come in, the messenger invokes the handleReply method on the request tracker
  *   (which was passed during initializing)
  * - the handleReply method adds a callback that will process the reply to the callback queue
+ *   of the request id
  * - when called, this callback will:
  * -- look up and remove the matching request in the pendingRequest map
  * -- call request.processReply(reply) - this will store the reply and
  * -- call the handleReply call back
  * -- pending request sets completed to true
+ * -- cancel the timeout of the request
  *
  * Processing a timeout: (Timeout-Processor)
- * - take a request from the timeout queue
+ * - expire a request from the timeout wheel
  * - if the request is completed discard it
- * - add a callback to the callback queue process the timedout request:
+ * - add a callback to the callback queue of the request id to process the timedout request:
  * - when called, this callback will:
  * -- discard the request if it was completed
  * -- call request.processTimeout(), this will check the number
@@ -123,14 +133,25 @@ public class RequestTracker<ReqT extends Request<?, ReqT, ReplyT>, ReplyT extend
 
     private static final Logger s_log = LoggerFactory.getLogger(RequestTracker.class);
 
+    public static final String CALLBACK_THREADS_PROPERTY = "org.opennms.core.tracker.callbackThreads";
+
+    public static final String TIMEOUT_TICK_PROPERTY = "org.opennms.core.tracker.timeoutTickMillis";
+
+    private static final int TIMEOUT_WHEEL_SIZE = 512;
+
     private RequestLocator<ReqT, ReplyT> m_requestLocator;
     private Messenger<ReqT, ReplyT> m_messenger;
-    private final BlockingQueue<Callable<Void>> m_callbackQueue;
-    private DelayQueue<ReqT> m_timeoutQueue;
+    private final BlockingQueue<QueuedCallback>[] m_callbackQueues;
+    private final TimeoutWheel<ReqT> m_timeoutWheel;
+    private final Map<Object, TimeoutWheel.Timeout<ReqT>> m_timeouts = new ConcurrentHashMap<>();
 
-    private Thread m_callbackProcessor;
+    private final Thread[] m_callbackProcessors;
     private Thread m_timeoutProcessor;
 
+    private final LongAdder m_callbackCount = new LongAdder();
+    private final LongAdder m_callbackLatencyNanos = new LongAdder();
+    private final AtomicLong m_maxCallbackLatencyNanos = new AtomicLong();
+
     private static final int NEW = 0;
     private static final int STARTING = 1;
     private static final int STARTED = 2;
@@ -140,18 +161,33 @@ public class RequestTracker<ReqT extends Request<?, ReqT, ReplyT>, ReplyT extend
     /**
      * Construct a RequestTracker that sends and received messages using the
      * indicated messenger. The name is using to name the threads created by
-     * the tracker.
+     * the tracker. The number of callback threads is read from the
+     * {@value #CALLBACK_THREADS_PROPERTY} system property.
      */
     public RequestTracker(String name, Messenger<ReqT, ReplyT> messenger, RequestLocator<ReqT, ReplyT> requestLocator) throws IOException {
+        this(name, messenger, requestLocator, SystemProperties.getInteger(CALLBACK_THREADS_PROPERTY, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    }
+
+    /**
+     * Construct a RequestTracker that processes callbacks with the given
+     * number of threads.
+     */
+    @SuppressWarnings("unchecked")
+    public RequestTracker(String name, Messenger<ReqT, ReplyT> messenger, RequestLocator<ReqT, ReplyT> requestLocator, int callbackThreads) throws IOException {
 
         m_requestLocator = requestLocator;
-        m_callbackQueue = new LinkedBlockingQueue<Callable<Void>>();
-            m_timeoutQueue = new DelayQueue<ReqT>();
 
-            m_callbackProcessor = new Thread(name+"-Callback-Processor") {
+        // replies can only be partitioned by request id if the locator matches them by id
+        final int shards = requestLocator instanceof IDBasedRequestLocator ? Math.max(1, callbackThreads) : 1;
+        m_callbackQueues = new BlockingQueue[shards];
+        m_callbackProcessors = new Thread[shards];
+        for (int i = 0; i < shards; i++) {
+            final BlockingQueue<QueuedCallback> callbackQueue = new LinkedBlockingQueue<>();
+            m_callbackQueues[i] = callbackQueue;
+            m_callbackProcessors[i] = new Thread(name+"-Callback-Processor-"+i) {
                 public void run() {
                     try {
-                        processCallbacks();
+                        processCallbacks(callbackQueue);
                     } catch (InterruptedException e) {
                         s_log.error("Thread {} interrupted!", this);
                     } catch (Throwable t) {
@@ -159,21 +195,23 @@ public class RequestTracker<ReqT extends Request<?, ReqT, ReplyT>, ReplyT extend
                     }
                 }
             };
+        }
 
-            m_timeoutProcessor = new Thread(name+"-Timeout-Processor") {
-                public void run() {
-                    try {
-                        processTimeouts();
-                    } catch (InterruptedException e) {
-                        s_log.error("Thread {} interrupted!", this);
-                    } catch (Throwable t) {
-                        s_log.error("Unexpected exception on Thread " + this + "!", t);
-                    }
+        m_timeoutWheel = new TimeoutWheel<>(SystemProperties.getLong(TIMEOUT_TICK_PROPERTY, 5L), TimeUnit.MILLISECONDS, TIMEOUT_WHEEL_SIZE, this::processTimeout);
+        m_timeoutProcessor = new Thread(name+"-Timeout-Processor") {
+            public void run() {
+                try {
+                    m_timeoutWheel.run();
+                } catch (InterruptedException e) {
+                    s_log.error("Thread {} interrupted!", this);
+                } catch (Throwable t) {
+                    s_log.error("Unexpected exception on Thread " + this + "!", t);
                 }
-            };
+            }
+        };
 
         m_messenger = messenger;
-        }
+    }
 
     /**
      * This method starts all the threads that are used to process the
@@ -184,7 +222,9 @@ public class RequestTracker<ReqT extends Request<?, ReqT, ReplyT>, ReplyT extend
         if (startNeeded) {
             m_messenger.start(this);
             m_timeoutProcessor.start();
-            m_callbackProcessor.start();
+            for (final Thread callbackProcessor : m_callbackProcessors) {
+                callbackProcessor.start();
+            }
             m_state.set(STARTED);
         }
     }
@@ -202,47 +242,126 @@ public class RequestTracker<ReqT extends Request<?, ReqT, ReplyT>, ReplyT extend
     public void sendRequest(ReqT request) throws Exception {
         assertStarted();
         if (!m_requestLocator.trackRequest(request)) return;
+
         m_messenger.sendRequest(request);
+
+        // schedule the timeout after sending, requests like the ping requests only start their clock in send()
         s_log.debug("Scheduling timeout for request to {} in {} ms", request, request.getDelay(TimeUnit.MILLISECONDS));
-        m_timeoutQueue.offer(request);
+        final TimeoutWheel.Timeout<ReqT> timeout = m_timeoutWheel.schedule(request, request.getDelay(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        m_timeouts.put(request.getId(), timeout);
+        if (timeout.isDone() || request.isProcessed()) {
+            // the timeout expired, or a reply was processed, before we got here
+            cancelTimeout(request);
+        }
     }
 
     public void handleReply(final ReplyT reply) {
-        m_callbackQueue.add(new ReplyCallback<ReqT, ReplyT>(m_requestLocator, reply));
+        final Object requestId = reply instanceof ResponseWithId ? ((ResponseWithId<?>) reply).getRequestId() : null;
+        addCallback(requestId, new ReplyCallback<ReqT, ReplyT>(this, m_requestLocator, reply));
     }
 
-    private void processTimeouts() throws InterruptedException {
-        while (true) {
-            final ReqT timedOutRequest = m_timeoutQueue.take();
+    /**
+     * Returns the number of callbacks waiting to be processed.
+     */
+    public int getCallbackQueueDepth() {
+        int depth = 0;
+        for (final BlockingQueue<QueuedCallback> callbackQueue : m_callbackQueues) {
+            depth += callbackQueue.size();
+        }
+        return depth;
+    }
 
-            // do nothing is the request has already been processed
-            if (timedOutRequest.isProcessed()) {
-                continue;
-            }
+    /**
+     * Returns the number of requests waiting for their reply or timeout.
+     */
+    public int getPendingTimeouts() {
+        return m_timeoutWheel.getPendingTimeouts();
+    }
+
+    /**
+     * Returns the number of callbacks processed since the tracker was started.
+     */
+    public long getCallbackCount() {
+        return m_callbackCount.sum();
+    }
+
+    /**
+     * Returns the total time the processed callbacks took from being queued until they completed.
+     */
+    public long getTotalCallbackLatency(TimeUnit unit) {
+        return unit.convert(m_callbackLatencyNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the longest time a callback took from being queued until it completed.
+     */
+    public long getMaxCallbackLatency(TimeUnit unit) {
+        return unit.convert(m_maxCallbackLatencyNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    private void processTimeout(final ReqT timedOutRequest) {
+        m_timeouts.computeIfPresent(timedOutRequest.getId(), (id, timeout) -> timeout.getItem() == timedOutRequest ? null : timeout);
 
-            // the request hasn't been processed yet, but we'll
-            // check again when the callback is issued
-            m_callbackQueue.add(new TimedOutRequestCallback<ReqT, ReplyT>(this, m_requestLocator, timedOutRequest));
+        // do nothing is the request has already been processed
+        if (timedOutRequest.isProcessed()) {
+            return;
+        }
+
+        // the request hasn't been processed yet, but we'll
+        // check again when the callback is issued
+        addCallback(timedOutRequest.getId(), new TimedOutRequestCallback<ReqT, ReplyT>(this, m_requestLocator, timedOutRequest));
+    }
+
+    private void cancelTimeout(final Request<?, ?, ?> request) {
+        final Object requestId = request.getId();
+        final TimeoutWheel.Timeout<ReqT> timeout = m_timeouts.get(requestId);
+        if (timeout != null && timeout.getItem() == request && m_timeouts.remove(requestId, timeout)) {
+            timeout.cancel();
         }
     }
 
-    private void processCallbacks() throws InterruptedException {
+    private void addCallback(final Object requestId, final Callable<Void> callback) {
+        final int shard = requestId == null ? 0 : Math.floorMod(requestId.hashCode(), m_callbackQueues.length);
+        m_callbackQueues[shard].add(new QueuedCallback(callback));
+    }
+
+    private void processCallbacks(final BlockingQueue<QueuedCallback> callbackQueue) throws InterruptedException {
         while (true) {
-            Callable<Void> callback = m_callbackQueue.take();
+            QueuedCallback callback = callbackQueue.take();
             try {
-                callback.call();
+                callback.m_callback.call();
             } catch (Exception e) {
-                s_log.error("Failed to issue callback {}.", callback, e);
+                s_log.error("Failed to issue callback {}.", callback.m_callback, e);
             }
+
+            final long latency = System.nanoTime() - callback.m_queuedNanos;
+            m_callbackCount.increment();
+            m_callbackLatencyNanos.add(latency);
+            m_maxCallbackLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+    }
+
+    private static class QueuedCallback {
+        private final Callable<Void> m_callback;
+        private final long m_queuedNanos = System.nanoTime();
+
+        private QueuedCallback(Callable<Void> callback) {
+            m_callback = callback;
         }
     }
 
     public static class ReplyCallback<ReqT extends Request<?, ?, ReplyT>, ReplyT> implements Callable<Void> {
 
+        private final RequestTracker<?, ?> m_tracker;
         private final RequestLocator<ReqT, ReplyT> m_requestLocator;
         private final ReplyT m_reply;
 
         public ReplyCallback(RequestLocator<ReqT, ReplyT> requestLocator, ReplyT reply) {
+            this(null, requestLocator, reply);
+        }
+
+        public ReplyCallback(RequestTracker<?, ?> tracker, RequestLocator<ReqT, ReplyT> requestLocator, ReplyT reply) {
+            m_tracker = tracker;
             m_requestLocator = requestLocator;
             m_reply = reply;
         }
@@ -266,6 +385,9 @@ public class RequestTracker<ReqT extends Request<?, ReqT, ReplyT>, ReplyT extend
 
                 if (isComplete) {
                     m_requestLocator.requestComplete(request);
+                    if (m_tracker != null) {
+                        m_tracker.cancelTimeout(request);
+                    }
                 }
             } else {
                 s_log.info("No request found for reply {}", m_reply);
@@ -283,7 +405,6 @@ public class RequestTracker<ReqT extends Request<?, ReqT, ReplyT>, ReplyT extend
             }
         }
     }
-
     public static class TimedOutRequestCallback<ReqT extends Request<?, ReqT, ?>, ReplyT> implements Callable<Void> {
 
         private final RequestTracker<ReqT, ?> m_tracker;
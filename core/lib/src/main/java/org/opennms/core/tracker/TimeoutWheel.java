@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.tracker;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timer wheel used by the {@link RequestTracker} to time out requests.
+ * <p>
+ * Scheduling and cancelling are O(1) and can be called from any thread; both only enqueue the timeout, which is then
+ * moved into or out of its bucket by the thread running {@link #run()}. That thread advances the wheel one bucket per
+ * tick and hands the expired items to the expiry callback. Items never expire early, but may expire up to one tick
+ * late.
+ */
+class TimeoutWheel<T> {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final Consumer<T> m_expiry;
+    private final long m_tickNanos;
+    private final Bucket<T>[] m_wheel;
+    private final int m_mask;
+    private final long m_startTime = System.nanoTime();
+
+    private final Queue<Timeout<T>> m_scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<T>> m_cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger m_pending = new AtomicInteger();
+
+    private long m_tick = 0;
+
+    @SuppressWarnings("unchecked")
+    TimeoutWheel(long tickDuration, TimeUnit unit, int wheelSize, Consumer<T> expiry) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of 2: " + wheelSize);
+        }
+        m_expiry = expiry;
+        m_tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        m_wheel = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            m_wheel[i] = new Bucket<>();
+        }
+        m_mask = wheelSize - 1;
+    }
+
+    /**
+     * Schedules the item to expire after the given delay.
+     */
+    Timeout<T> schedule(T item, long delay, TimeUnit unit) {
+        final Timeout<T> timeout = new Timeout<>(this, item, System.nanoTime() - m_startTime + Math.max(0, unit.toNanos(delay)));
+        m_pending.incrementAndGet();
+        m_scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Returns the number of scheduled timeouts which neither expired nor were cancelled.
+     */
+    int getPendingTimeouts() {
+        return m_pending.get();
+    }
+
+    /**
+     * Advances the wheel until the thread is interrupted.
+     */
+    void run() throws InterruptedException {
+        while (true) {
+            final long deadline = waitForNextTick();
+            removeCancelled();
+            transferScheduled();
+            m_wheel[(int) (m_tick & m_mask)].expire(deadline);
+            m_tick++;
+        }
+    }
+
+    private long waitForNextTick() throws InterruptedException {
+        final long deadline = m_tickNanos * (m_tick + 1);
+        while (true) {
+            final long now = System.nanoTime() - m_startTime;
+            final long sleepNanos = deadline - now;
+            if (sleepNanos <= 0) {
+                return now;
+            }
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout<T> timeout;
+        while ((timeout = m_cancelled.poll()) != null) {
+            if (timeout.m_bucket != null) {
+                timeout.m_bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferScheduled() {
+        Timeout<T> timeout;
+        while ((timeout = m_scheduled.poll()) != null) {
+            if (timeout.m_state.get() != PENDING) {
+                continue;
+            }
+            final long calculated = timeout.m_deadline / m_tickNanos;
+            timeout.m_remainingRounds = (calculated - m_tick) / m_wheel.length;
+            // Timeouts already due go into the current bucket
+            final long ticks = Math.max(calculated, m_tick);
+            m_wheel[(int) (ticks & m_mask)].add(timeout);
+        }
+    }
+
+    /**
+     * A scheduled timeout.
+     */
+    static final class Timeout<T> {
+        private final TimeoutWheel<T> m_wheel;
+        private final T m_item;
+        private final long m_deadline;
+        private final AtomicInteger m_state = new AtomicInteger(PENDING);
+
+        // Only accessed by the thread running the wheel
+        private long m_remainingRounds;
+        private Bucket<T> m_bucket;
+        private Timeout<T> m_prev;
+        private Timeout<T> m_next;
+
+        private Timeout(TimeoutWheel<T> wheel, T item, long deadline) {
+            m_wheel = wheel;
+            m_item = item;
+            m_deadline = deadline;
+        }
+
+        T getItem() {
+            return m_item;
+        }
+
+        /**
+         * Returns true if the timeout expired or was cancelled.
+         */
+        boolean isDone() {
+            return m_state.get() != PENDING;
+        }
+
+        /**
+         * Cancels the timeout.
+         *
+         * @return false if the timeout already expired or was cancelled before
+         */
+        boolean cancel() {
+            if (!m_state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            m_wheel.m_pending.decrementAndGet();
+            m_wheel.m_cancelled.add(this);
+            return true;
+        }
+    }
+
+    /**
+     * A doubly linked list of the timeouts of one slot of the wheel.
+     */
+    private static final class Bucket<T> {
+        private Timeout<T> m_head;
+        private Timeout<T> m_tail;
+
+        private void add(Timeout<T> timeout) {
+            timeout.m_bucket = this;
+            if (m_head == null) {
+                m_head = m_tail = timeout;
+            } else {
+                m_tail.m_next = timeout;
+                timeout.m_prev = m_tail;
+                m_tail = timeout;
+            }
+        }
+
+        private void expire(long deadline) {
+            Timeout<T> timeout = m_head;
+            while (timeout != null) {
+                final Timeout<T> next = timeout.m_next;
+                if (timeout.m_remainingRounds <= 0) {
+                    if (timeout.m_deadline <= deadline) {
+                        remove(timeout);
+                        if (timeout.m_state.compareAndSet(PENDING, EXPIRED)) {
+                            timeout.m_wheel.m_pending.decrementAndGet();
+                            timeout.m_wheel.m_expiry.accept(timeout.m_item);
+                        }
+                    }
+                } else {
+                    timeout.m_remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout<T> timeout) {
+            if (timeout.m_bucket != this) {
+                return;
+            }
+            if (timeout.m_prev != null) {
+                timeout.m_prev.m_next = timeout.m_next;
+            } else {
+                m_head = timeout.m_next;
+            }
+            if (timeout.m_next != null) {
+                timeout.m_next.m_prev = timeout.m_prev;
+            } else {
+                m_tail = timeout.m_prev;
+            }
+            timeout.m_prev = null;
+            timeout.m_next = null;
+            timeout.m_bucket = null;
+        }
+    }
+}
@@ -64,11 +64,27 @@ public abstract class SocketUtils {
     }
 
     public static SSLSocket wrapSocketInSslContext(Socket socket, String protocol, String[] cipherSuites) throws IOException {
+        SSLSocketFactory socketFactory = createRelaxedSslContext(protocol).getSocketFactory();
+        InetAddress inetAddress = socket.getInetAddress();
+        String hostAddress = InetAddressUtils.str(inetAddress);
+        SSLSocket wrappedSocket = (SSLSocket) socketFactory.createSocket(socket, hostAddress, socket.getPort(), true);
+        if (cipherSuites != null && cipherSuites.length > 0) {
+            wrappedSocket.setEnabledCipherSuites(cipherSuites);
+        }
+        return wrappedSocket;
+    }
+
+    /**
+     * Creates an SSL context which trusts all certificates, as used to poll services with self-signed certificates.
+     *
+     * @param protocol the protocol of the context or {@code null} for "SSL"
+     */
+    public static SSLContext createRelaxedSslContext(String protocol) {
         TrustManager[] tm = { new RelaxedX509ExtendedTrustManager() };
-        SSLContext sslContext = null;
         try {
-            sslContext = SSLContext.getInstance(protocol == null ? "SSL" : protocol);
+            SSLContext sslContext = SSLContext.getInstance(protocol == null ? "SSL" : protocol);
             sslContext.init(null, tm, new java.security.SecureRandom());
+            return sslContext;
         } catch (NoSuchAlgorithmException e) {
         	LOG.error("wrapSocket: Error wrapping socket, throwing runtime exception", e);
             throw new IllegalStateException("No such algorithm in SSLSocketFactory: " + e);
@@ -76,14 +92,6 @@ public abstract class SocketUtils {
         	LOG.error("wrapSocket: Error wrapping socket, throwing runtime exception", e);
             throw new IllegalStateException("Key management exception in SSLSocketFactory: " + e);
         }
-        SSLSocketFactory socketFactory = sslContext.getSocketFactory();
-        InetAddress inetAddress = socket.getInetAddress();
-        String hostAddress = InetAddressUtils.str(inetAddress);
-        SSLSocket wrappedSocket = (SSLSocket) socketFactory.createSocket(socket, hostAddress, socket.getPort(), true);
-        if (cipherSuites != null && cipherSuites.length > 0) {
-            wrappedSocket.setEnabledCipherSuites(cipherSuites);
-        }
-        return wrappedSocket;
     }
 
     /**
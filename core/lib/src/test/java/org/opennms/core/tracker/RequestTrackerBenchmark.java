@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.tracker;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to measure how fast the {@link RequestTracker} gets through a burst of
+ * requests, as sent by a ping sweep.
+ * <p>
+ * Every benchmark method call sends {@link #OUTSTANDING} requests, which are all outstanding before the first reply
+ * is handed to the tracker, and waits until all replies were processed. The reported number of operations per second
+ * must be multiplied by {@link #OUTSTANDING} to get the number of requests per second.
+ */
+public class RequestTrackerBenchmark {
+
+    private static final int OUTSTANDING = 100000;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        @Param({"1", "4"})
+        public int callbackThreads;
+
+        private final HoldingMessenger messenger = new HoldingMessenger();
+        private final AtomicInteger replied = new AtomicInteger();
+        private RequestTracker<BenchRequest, BenchReply> tracker;
+        private int nextId = 0;
+
+        @Setup
+        public void setup() throws Exception {
+            tracker = new RequestTracker<>("Benchmark", messenger, new IDBasedRequestLocator<Integer, BenchRequest, BenchReply>(), callbackThreads);
+            tracker.start();
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void burst(BState state) throws Exception {
+        state.replied.set(0);
+        for (int i = 0; i < OUTSTANDING; i++) {
+            state.tracker.sendRequest(new BenchRequest(state.nextId++, state.replied));
+        }
+        BenchRequest request;
+        while ((request = state.messenger.sent.poll()) != null) {
+            state.messenger.replyHandler.handleReply(new BenchReply(request.getId()));
+        }
+        while (state.replied.get() < OUTSTANDING) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static class HoldingMessenger implements Messenger<BenchRequest, BenchReply> {
+        private final Queue<BenchRequest> sent = new ConcurrentLinkedQueue<>();
+        private ReplyHandler<BenchReply> replyHandler;
+
+        @Override
+        public void sendRequest(BenchRequest request) {
+            sent.add(request);
+        }
+
+        @Override
+        public void start(ReplyHandler<BenchReply> callback) {
+            replyHandler = callback;
+        }
+    }
+
+    private static class BenchReply implements ResponseWithId<Integer> {
+        private final Integer m_requestId;
+
+        private BenchReply(Integer requestId) {
+            m_requestId = requestId;
+        }
+
+        @Override
+        public Integer getRequestId() {
+            return m_requestId;
+        }
+    }
+
+    private static class BenchRequest implements Request<Integer, BenchRequest, BenchReply> {
+        private final Integer m_id;
+        private final AtomicInteger m_replied;
+        private final long m_expiration = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        private volatile boolean m_processed = false;
+
+        private BenchRequest(Integer id, AtomicInteger replied) {
+            m_id = id;
+            m_replied = replied;
+        }
+
+        @Override
+        public Integer getId() {
+            return m_id;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(m_expiration - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean processResponse(BenchReply reply) {
+            m_processed = true;
+            m_replied.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public BenchRequest processTimeout() {
+            m_processed = true;
+            return null;
+        }
+
+        @Override
+        public void processError(Throwable t) {
+            m_processed = true;
+        }
+
+        @Override
+        public boolean isProcessed() {
+            return m_processed;
+        }
+    }
+}
@@ -37,6 +37,7 @@ import static org.junit.Assert.assertTrue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.is;
+import static org.awaitility.Awaitility.await;
 
 import java.io.IOException;
 import java.util.concurrent.DelayQueue;
@@ -91,15 +92,30 @@ public class RequestTrackerTest {
         private Callback<TestRequest, TestReply> m_cb;
         private Long m_expirationTimestamp;
         private Long m_sentTimestamp;
+        private boolean m_expiresOnSend;
 
         public TestRequest(Integer id, long timeout, int retries, Callback<TestRequest, TestReply> cb) {
+            this(id, timeout, retries, cb, false);
+        }
+
+        /**
+         * Like the ping requests, requests which expire on send only start their clock once they are sent.
+         */
+        public TestRequest(Integer id, long timeout, int retries, Callback<TestRequest, TestReply> cb, boolean expiresOnSend) {
             m_id = id;
             m_timeout = timeout;
             m_retries = retries;
-            m_expirationTimestamp = System.currentTimeMillis() + timeout;
+            m_expiresOnSend = expiresOnSend;
+            m_expirationTimestamp = expiresOnSend ? -1 : System.currentTimeMillis() + timeout;
             m_cb = cb;
         }
 
+        public void send() {
+            if (m_expiresOnSend) {
+                m_expirationTimestamp = System.currentTimeMillis() + m_timeout;
+            }
+        }
+
 
         public void setSentTimestamp(long sentTimestamp) {
             m_sentTimestamp = sentTimestamp;
@@ -132,7 +148,7 @@ public class RequestTrackerTest {
         public TestRequest processTimeout() {
             m_processed.set(true);
             if (m_retries > 0) {
-                return new TestRequest(m_id, m_timeout, m_retries-1, m_cb);
+                return new TestRequest(m_id, m_timeout, m_retries-1, m_cb, m_expiresOnSend);
             } else {
                 if (m_cb != null) m_cb.processTimeout(this);
                 return null;
@@ -238,6 +254,7 @@ public class RequestTrackerTest {
     private static class ImmediateTestMessenger extends TestMessenger {
 
         public void sendRequest(TestRequest request) throws IOException {
+            request.send();
             sendRequested();
             doSend(request);
         }
@@ -247,6 +264,7 @@ public class RequestTrackerTest {
 
         public void sendRequest(TestRequest request) throws IOException {
             // create a reply so the sent timesteamp is set.. but throw it away
+            request.send();
             sendRequested();
             new TestReply(request);
         }
@@ -311,6 +329,7 @@ public class RequestTrackerTest {
         }
 
         public void sendRequest(TestRequest request) throws IOException {
+            request.send();
             sendRequested();
             m_delayedRequests.offer(new Waiter(request, m_delay));
         }
@@ -541,4 +560,65 @@ public class RequestTrackerTest {
         // assert reply has the same requestId
         assertEquals(cb.request.getId(), cb.response.getRequestId());
     }
+
+    /**
+     * Requests which only set their expiration when they are sent must not
+     * be timed out before the reply arrives.
+     */
+    @Test
+    public void testResponseForRequestExpiringOnSend() throws Exception {
+
+        final long REPLY_DELAY = TIMEOUT / 2;
+
+        DelayedTestMessenger messenger = new DelayedTestMessenger(REPLY_DELAY);
+        RequestTracker<TestRequest, TestReply> rt = new RequestTracker<TestRequest, TestReply>("Delayed", messenger, new IDBasedRequestLocator<Integer, TestRequest, TestReply>());
+
+        rt.start();
+
+        TestCallback cb = new TestCallback();
+        TestRequest req = new TestRequest(1, TIMEOUT, 0, cb, true);
+
+        rt.sendRequest(req);
+
+        await().atMost(TIMEOUT * 5, TimeUnit.MILLISECONDS).until(() -> cb.getCallbackCount() > 0);
+
+        // no error and no timeout
+        assertNull(cb.error);
+        assertNull(cb.timeoutTimestamp);
+
+        // expect the reply
+        assertNotNull(cb.response);
+        assertEquals(req.getId(), cb.response.getRequestId());
+        assertEquals(1, cb.getCallbackCount());
+
+        await().atMost(TIMEOUT * 5, TimeUnit.MILLISECONDS).until(() -> rt.getPendingTimeouts() == 0);
+    }
+
+    /**
+     * Verifies that replies processed by several callback threads all reach
+     * their request and cancel its timeout.
+     */
+    @Test
+    public void testShardedCallbacks() throws Exception {
+        final int requests = 1000;
+
+        RequestTracker<TestRequest, TestReply> rt = new RequestTracker<TestRequest, TestReply>("Sharded", new ImmediateTestMessenger(), new IDBasedRequestLocator<Integer, TestRequest, TestReply>(), 4);
+
+        rt.start();
+
+        TestCallback cb = new TestCallback();
+        for (int i = 0; i < requests; i++) {
+            rt.sendRequest(new TestRequest(i, 60000, 0, cb));
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> rt.getCallbackCount() == requests);
+
+        // every reply cancelled the timeout of its request
+        assertEquals(requests, cb.getCallbackCount());
+        assertNull(cb.error);
+        assertNull(cb.timeoutTimestamp);
+        assertEquals(0, rt.getPendingTimeouts());
+        assertEquals(0, rt.getCallbackQueueDepth());
+        assertTrue(rt.getMaxCallbackLatency(TimeUnit.NANOSECONDS) <= rt.getTotalCallbackLatency(TimeUnit.NANOSECONDS));
+    }
 }
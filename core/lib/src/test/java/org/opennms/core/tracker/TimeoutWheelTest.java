@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.core.tracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimeoutWheelTest {
+
+    private final Map<String, Long> m_expired = new ConcurrentHashMap<>();
+
+    private final CountDownLatch m_latch = new CountDownLatch(2);
+
+    private TimeoutWheel<String> m_wheel;
+
+    private Thread m_thread;
+
+    @Before
+    public void setUp() {
+        // a small wheel, so the long timeout needs several rounds
+        m_wheel = new TimeoutWheel<>(5, TimeUnit.MILLISECONDS, 8, item -> {
+            m_expired.put(item, System.nanoTime());
+            m_latch.countDown();
+        });
+        m_thread = new Thread(() -> {
+            try {
+                m_wheel.run();
+            } catch (InterruptedException e) {
+                // done
+            }
+        }, "TimeoutWheelTest");
+        m_thread.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        m_thread.interrupt();
+        m_thread.join();
+    }
+
+    @Test
+    public void testExpiresAfterDelay() throws Exception {
+        final long start = System.nanoTime();
+        m_wheel.schedule("short", 20, TimeUnit.MILLISECONDS);
+        m_wheel.schedule("long", 200, TimeUnit.MILLISECONDS);
+        assertEquals(2, m_wheel.getPendingTimeouts());
+
+        assertTrue(m_latch.await(5, TimeUnit.SECONDS));
+        assertTrue(m_expired.get("short") - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(m_expired.get("long") - start >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(0, m_wheel.getPendingTimeouts());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final TimeoutWheel.Timeout<String> cancelled = m_wheel.schedule("cancelled", 20, TimeUnit.MILLISECONDS);
+        m_wheel.schedule("first", 40, TimeUnit.MILLISECONDS);
+        m_wheel.schedule("second", 60, TimeUnit.MILLISECONDS);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertTrue(cancelled.isDone());
+        assertEquals(2, m_wheel.getPendingTimeouts());
+
+        assertTrue(m_latch.await(5, TimeUnit.SECONDS));
+        assertFalse(m_expired.containsKey("cancelled"));
+        assertEquals(0, m_wheel.getPendingTimeouts());
+    }
+}
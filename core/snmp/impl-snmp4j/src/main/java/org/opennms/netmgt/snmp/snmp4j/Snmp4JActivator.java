@@ -40,6 +40,8 @@ import org.osgi.framework.BundleContext;
 
 public class Snmp4JActivator implements BundleActivator {
 
+    private Snmp4JSharedTransportStrategy m_sharedTransportStrategy;
+
     @Override
     public void start(BundleContext context) throws Exception {
         if (!SnmpUtils.isClassBasedStrategyInstantiable()) {
@@ -47,12 +49,20 @@ public class Snmp4JActivator implements BundleActivator {
             props.put("implementation", Snmp4JStrategy.class.getName());
             Snmp4JStrategy strategy = new Snmp4JStrategy();
             context.registerService(SnmpStrategy.class.getName(), strategy, props);
+
+            Dictionary<String, String> sharedProps = new Hashtable<String, String>();
+            sharedProps.put("implementation", Snmp4JSharedTransportStrategy.class.getName());
+            m_sharedTransportStrategy = new Snmp4JSharedTransportStrategy();
+            context.registerService(SnmpStrategy.class.getName(), m_sharedTransportStrategy, sharedProps);
         }
     }
 
     @Override
     public void stop(BundleContext context) throws Exception {
-
+        if (m_sharedTransportStrategy != null) {
+            m_sharedTransportStrategy.close();
+            m_sharedTransportStrategy = null;
+        }
     }
 
 }
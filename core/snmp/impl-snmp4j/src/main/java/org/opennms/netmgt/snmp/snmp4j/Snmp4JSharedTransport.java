@@ -0,0 +1,502 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.netmgt.snmp.snmp4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opennms.core.sysprops.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.snmp4j.MessageDispatcher;
+import org.snmp4j.MessageDispatcherImpl;
+import org.snmp4j.PDU;
+import org.snmp4j.Snmp;
+import org.snmp4j.Target;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.event.ResponseListener;
+import org.snmp4j.mp.MPv1;
+import org.snmp4j.mp.MPv2c;
+import org.snmp4j.mp.MPv3;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.security.SecurityProtocols;
+import org.snmp4j.security.USM;
+import org.snmp4j.security.UsmUser;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.VariableBinding;
+import org.snmp4j.transport.DefaultUdpTransportMapping;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A fixed set of SNMP sessions which is shared by all requests instead of opening
+ * a new socket for every request.
+ * <p>
+ * SNMP4J already correlates responses to outstanding requests by request-id, so a
+ * single socket can carry any number of requests. Every agent is pinned to one of
+ * the sockets, which keeps the engine discovery and time synchronization of SNMPv3
+ * agents in one place. All sockets share a single {@link USM} in which the users are
+ * localized per authoritative engine, so agents using the same security name with
+ * different credentials do not interfere with each other.
+ * <p>
+ * The number of concurrent requests per agent is limited. Requests exceeding the
+ * limit are queued and sent as soon as an outstanding request to the same agent
+ * completes. The state of agents which have not been queried for a while is dropped,
+ * so their engine ID is discovered again on the next request.
+ */
+public class Snmp4JSharedTransport implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(Snmp4JSharedTransport.class);
+
+    public static final String SOCKETS_PROPERTY = "org.opennms.snmp.snmp4j.sharedTransport.sockets";
+    public static final String MAX_REQUESTS_PER_AGENT_PROPERTY = "org.opennms.snmp.snmp4j.sharedTransport.maxRequestsPerAgent";
+    public static final String AGENT_IDLE_TIMEOUT_PROPERTY = "org.opennms.snmp.snmp4j.sharedTransport.agentIdleTimeout";
+
+    public static final int DEFAULT_SOCKETS = 4;
+    public static final int DEFAULT_MAX_REQUESTS_PER_AGENT = 4;
+    public static final long DEFAULT_AGENT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(15);
+
+    private final Snmp[] m_sessions;
+    private final MPv3[] m_mpv3s;
+    private final USM m_usm;
+    private final int m_maxRequestsPerAgent;
+    private final long m_agentIdleTimeoutNanos;
+
+    private final Map<Address, AgentState> m_agents = new ConcurrentHashMap<>();
+    private final AtomicLong m_nextExpiry = new AtomicLong();
+
+    private final ExecutorService m_dispatchExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("SNMP4J-Shared-Dispatch-%d")
+            .setDaemon(true)
+            .build());
+
+    private final MetricRegistry m_metrics = new MetricRegistry();
+    private final AtomicInteger m_inFlight = new AtomicInteger();
+    private final Counter m_queued = m_metrics.counter("queued");
+    private final Meter m_requests = m_metrics.meter("requests");
+    private final Meter m_timeouts = m_metrics.meter("timeouts");
+    private final Meter m_errors = m_metrics.meter("errors");
+    private final Meter m_engineDiscoveries = m_metrics.meter("engineDiscoveries");
+    private final Meter m_engineResets = m_metrics.meter("engineResets");
+    private final Meter m_expiredAgents = m_metrics.meter("expiredAgents");
+
+    public Snmp4JSharedTransport() throws IOException {
+        this(SystemProperties.getInteger(SOCKETS_PROPERTY, DEFAULT_SOCKETS),
+             SystemProperties.getInteger(MAX_REQUESTS_PER_AGENT_PROPERTY, DEFAULT_MAX_REQUESTS_PER_AGENT),
+             SystemProperties.getLong(AGENT_IDLE_TIMEOUT_PROPERTY, DEFAULT_AGENT_IDLE_TIMEOUT));
+    }
+
+    public Snmp4JSharedTransport(final int sockets, final int maxRequestsPerAgent) throws IOException {
+        this(sockets, maxRequestsPerAgent, DEFAULT_AGENT_IDLE_TIMEOUT);
+    }
+
+    public Snmp4JSharedTransport(final int sockets, final int maxRequestsPerAgent, final long agentIdleTimeoutMs) throws IOException {
+        if (sockets < 1) {
+            throw new IllegalArgumentException("At least one socket is required: " + sockets);
+        }
+        if (maxRequestsPerAgent < 1) {
+            throw new IllegalArgumentException("At least one request per agent must be allowed: " + maxRequestsPerAgent);
+        }
+        if (agentIdleTimeoutMs < 1) {
+            throw new IllegalArgumentException("The agent idle timeout must be positive: " + agentIdleTimeoutMs);
+        }
+        m_maxRequestsPerAgent = maxRequestsPerAgent;
+        m_agentIdleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(agentIdleTimeoutMs);
+        m_nextExpiry.set(System.nanoTime() + m_agentIdleTimeoutNanos);
+        m_usm = new USM(SecurityProtocols.getInstance(), new OctetString(MPv3.createLocalEngineID()), 0);
+
+        m_sessions = new Snmp[sockets];
+        m_mpv3s = new MPv3[sockets];
+        try {
+            for (int i = 0; i < sockets; i++) {
+                final MessageDispatcher disp = new MessageDispatcherImpl();
+                disp.addMessageProcessingModel(new MPv1());
+                disp.addMessageProcessingModel(new MPv2c());
+                m_mpv3s[i] = new MPv3(m_usm);
+                disp.addMessageProcessingModel(m_mpv3s[i]);
+                m_sessions[i] = new Snmp(disp, new DefaultUdpTransportMapping());
+                m_sessions[i].listen();
+            }
+        } catch (final IOException e) {
+            close();
+            throw e;
+        }
+
+        m_metrics.register("inFlight", (Gauge<Integer>) m_inFlight::get);
+        m_metrics.register("agents", (Gauge<Integer>) m_agents::size);
+        m_metrics.register("sockets", (Gauge<Integer>) () -> m_sessions.length);
+        LOG.info("Shared SNMP transport listening on {} sockets with at most {} concurrent requests per agent.", sockets, maxRequestsPerAgent);
+    }
+
+    /**
+     * Sends the given request and passes the response, or the timeout, to the listener.
+     * <p>
+     * The request is held back if the agent already has the maximum number of requests
+     * outstanding. Errors which occur before the request was handed to SNMP4J are
+     * thrown directly if the request was sent immediately and are otherwise passed to
+     * the listener as an event without response.
+     */
+    public void send(final Snmp4JAgentConfig agentConfig, final PDU pdu, final ResponseListener listener) throws IOException {
+        expireIdleAgents();
+
+        final Target target = agentConfig.getTarget();
+        while (true) {
+            final AgentState agent = m_agents.computeIfAbsent(target.getAddress(), AgentState::new);
+            final Request request = new Request(agentConfig, target, pdu, listener, agent);
+            switch (agent.admit(request)) {
+                case SEND:
+                    request.send();
+                    return;
+                case QUEUED:
+                    return;
+                default:
+                    // The agent expired concurrently, continue with a fresh state
+                    m_agents.remove(target.getAddress(), agent);
+            }
+        }
+    }
+
+    public MetricRegistry getMetrics() {
+        return m_metrics;
+    }
+
+    public int getInFlight() {
+        return m_inFlight.get();
+    }
+
+    public long getTimeouts() {
+        return m_timeouts.getCount();
+    }
+
+    public int getSocketCount() {
+        return m_sessions.length;
+    }
+
+    public int getAgentCount() {
+        return m_agents.size();
+    }
+
+    @Override
+    public void close() {
+        m_dispatchExecutor.shutdownNow();
+        for (final Snmp session : m_sessions) {
+            if (session == null) {
+                continue;
+            }
+            try {
+                session.close();
+            } catch (final IOException e) {
+                LOG.warn("Failed to close shared SNMP session {}", session, e);
+            }
+        }
+    }
+
+    private int indexFor(final Address address) {
+        return Math.floorMod(address.hashCode(), m_sessions.length);
+    }
+
+    private Snmp sessionFor(final Address address) {
+        return m_sessions[indexFor(address)];
+    }
+
+    /**
+     * Drops the state of agents without outstanding requests which have not been
+     * queried within the idle timeout. Runs at most once per idle timeout.
+     */
+    private void expireIdleAgents() {
+        final long now = System.nanoTime();
+        final long nextExpiry = m_nextExpiry.get();
+        if (now - nextExpiry < 0 || !m_nextExpiry.compareAndSet(nextExpiry, now + m_agentIdleTimeoutNanos)) {
+            return;
+        }
+
+        for (final AgentState agent : m_agents.values()) {
+            if (agent.retireIfIdleSince(now - m_agentIdleTimeoutNanos)) {
+                m_agents.remove(agent.m_address, agent);
+                m_mpv3s[indexFor(agent.m_address)].removeEngineID(agent.m_address);
+                m_expiredAgents.mark();
+            }
+        }
+    }
+
+    /**
+     * Forgets the engine ID of the agent if it answered with a report that the engine
+     * ID is unknown or the engine time is out of sync, e.g. because the agent was
+     * restarted or its engine ID changed. The engine ID is discovered again with the
+     * next request.
+     */
+    private void resetEngineOnReport(final Snmp4JAgentConfig agentConfig, final AgentState agent, final PDU response) {
+        if (!agentConfig.isSnmpV3() || response == null || response.getType() != PDU.REPORT || response.size() == 0) {
+            return;
+        }
+        final VariableBinding vb = response.get(0);
+        if (!SnmpConstants.usmStatsUnknownEngineIDs.equals(vb.getOid()) && !SnmpConstants.usmStatsNotInTimeWindows.equals(vb.getOid())) {
+            return;
+        }
+
+        synchronized (agent.m_userLock) {
+            if (agent.m_engineId == null) {
+                return;
+            }
+            LOG.debug("Agent {} answered with report {}, discovering its engine ID again", agent.m_address, vb.getOid());
+            m_usm.removeEngineTime(agent.m_engineId);
+            m_mpv3s[indexFor(agent.m_address)].removeEngineID(agent.m_address);
+            agent.m_engineId = null;
+            agent.m_user = null;
+            m_engineResets.mark();
+        }
+    }
+
+    private static UsmUser createUsmUser(final Snmp4JAgentConfig agentConfig) {
+        return new UsmUser(
+                agentConfig.getSecurityName(),
+                agentConfig.getAuthProtocol(),
+                agentConfig.getAuthPassPhrase(),
+                agentConfig.getPrivProtocol(),
+                agentConfig.getPrivPassPhrase());
+    }
+
+    /**
+     * Makes sure that the user of the given agent is known to the USM for the
+     * authoritative engine of the agent. The engine ID is discovered on the first
+     * request and again after the agent reported an unknown engine ID or time window.
+     *
+     * @return false if the engine ID of the agent could not be discovered
+     */
+    private boolean ensureUser(final Snmp session, final Snmp4JAgentConfig agentConfig, final Target target, final AgentState agent) {
+        final UserKey userKey = new UserKey(agentConfig);
+        synchronized (agent.m_userLock) {
+            if (agent.m_engineId == null) {
+                m_engineDiscoveries.mark();
+                final byte[] engineId = session.discoverAuthoritativeEngineID(target.getAddress(), target.getTimeout());
+                if (engineId == null) {
+                    LOG.debug("Failed to discover the engine ID of agent {}", target.getAddress());
+                    return false;
+                }
+                agent.m_engineId = new OctetString(engineId);
+                agent.m_user = null;
+            }
+            if (!userKey.equals(agent.m_user)) {
+                m_usm.addUser(agentConfig.getSecurityName(), agent.m_engineId, createUsmUser(agentConfig));
+                agent.m_user = userKey;
+            }
+        }
+        return true;
+    }
+
+    private class Request implements ResponseListener {
+        private final Snmp4JAgentConfig m_agentConfig;
+        private final Target m_target;
+        private final PDU m_pdu;
+        private final ResponseListener m_listener;
+        private final AgentState m_agent;
+
+        private Request(final Snmp4JAgentConfig agentConfig, final Target target, final PDU pdu, final ResponseListener listener, final AgentState agent) {
+            m_agentConfig = agentConfig;
+            m_target = target;
+            m_pdu = pdu;
+            m_listener = listener;
+            m_agent = agent;
+        }
+
+        private void send() throws IOException {
+            final Snmp session = sessionFor(m_target.getAddress());
+            if (m_agentConfig.isSnmpV3() && !ensureUser(session, m_agentConfig, m_target, m_agent)) {
+                m_timeouts.mark();
+                release();
+                m_listener.onResponse(new ResponseEvent(session, m_target.getAddress(), m_pdu, null, null));
+                return;
+            }
+
+            m_inFlight.incrementAndGet();
+            m_requests.mark();
+            try {
+                session.send(m_pdu, m_target, null, this);
+            } catch (final IOException | RuntimeException e) {
+                m_inFlight.decrementAndGet();
+                m_errors.mark();
+                release();
+                throw e;
+            }
+        }
+
+        /**
+         * Sends a request which was held back because of the concurrency limit.
+         */
+        private void sendQueued() {
+            try {
+                send();
+            } catch (final Exception e) {
+                LOG.warn("Failed to send queued SNMP request to {}", m_target.getAddress(), e);
+                m_listener.onResponse(new ResponseEvent(this, m_target.getAddress(), m_pdu, null, null, e));
+            }
+        }
+
+        @Override
+        public void onResponse(final ResponseEvent event) {
+            // SNMP4J keeps asynchronous requests around until they are cancelled
+            ((Snmp) event.getSource()).cancel(event.getRequest(), this);
+
+            m_inFlight.decrementAndGet();
+            if (event.getResponse() == null) {
+                m_timeouts.mark();
+            } else if (event.getError() != null) {
+                m_errors.mark();
+            }
+            resetEngineOnReport(m_agentConfig, m_agent, event.getResponse());
+            release();
+            m_listener.onResponse(event);
+        }
+
+        private void release() {
+            final Request next = m_agent.releaseAndPoll();
+            if (next != null) {
+                m_dispatchExecutor.execute(next::sendQueued);
+            }
+        }
+    }
+
+    private enum Admission {
+        SEND, QUEUED, RETIRED
+    }
+
+    private class AgentState {
+        private final Address m_address;
+        private final Queue<Request> m_pending = new ArrayDeque<>();
+        private int m_active = 0;
+        private long m_lastUsed = System.nanoTime();
+        private boolean m_retired = false;
+
+        private final Object m_userLock = new Object();
+        private OctetString m_engineId;
+        private UserKey m_user;
+
+        private AgentState(final Address address) {
+            m_address = address;
+        }
+
+        /**
+         * Takes a permit for the request, or queues it if the agent has the maximum
+         * number of requests outstanding.
+         */
+        private synchronized Admission admit(final Request request) {
+            if (m_retired) {
+                return Admission.RETIRED;
+            }
+            m_lastUsed = System.nanoTime();
+            if (m_active < m_maxRequestsPerAgent) {
+                m_active++;
+                return Admission.SEND;
+            }
+            m_pending.add(request);
+            m_queued.inc();
+            return Admission.QUEUED;
+        }
+
+        /**
+         * Retires the agent if it has nothing outstanding and was last used before the given time.
+         */
+        private synchronized boolean retireIfIdleSince(final long cutoff) {
+            if (m_retired || m_active > 0 || !m_pending.isEmpty() || m_lastUsed - cutoff >= 0) {
+                return false;
+            }
+            m_retired = true;
+            return true;
+        }
+
+        /**
+         * Releases a permit, or hands it over to the next pending request.
+         */
+        private synchronized Request releaseAndPoll() {
+            final Request next = m_pending.poll();
+            if (next == null) {
+                m_active--;
+            } else {
+                m_queued.dec();
+            }
+            return next;
+        }
+
+        @Override
+        public String toString() {
+            return "AgentState[address=" + m_address + ", active=" + m_active + ", pending=" + m_pending.size() + "]";
+        }
+    }
+
+    private static class UserKey {
+        private final OctetString m_securityName;
+        private final OID m_authProtocol;
+        private final OctetString m_authPassPhrase;
+        private final OID m_privProtocol;
+        private final OctetString m_privPassPhrase;
+
+        private UserKey(final Snmp4JAgentConfig agentConfig) {
+            m_securityName = agentConfig.getSecurityName();
+            m_authProtocol = agentConfig.getAuthProtocol();
+            m_authPassPhrase = agentConfig.getAuthPassPhrase();
+            m_privProtocol = agentConfig.getPrivProtocol();
+            m_privPassPhrase = agentConfig.getPrivPassPhrase();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof UserKey)) {
+                return false;
+            }
+            final UserKey that = (UserKey) obj;
+            return Objects.equals(m_securityName, that.m_securityName)
+                    && Objects.equals(m_authProtocol, that.m_authProtocol)
+                    && Objects.equals(m_authPassPhrase, that.m_authPassPhrase)
+                    && Objects.equals(m_privProtocol, that.m_privProtocol)
+                    && Objects.equals(m_privPassPhrase, that.m_privPassPhrase);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m_securityName, m_authProtocol, m_authPassPhrase, m_privProtocol, m_privPassPhrase);
+        }
+    }
+}
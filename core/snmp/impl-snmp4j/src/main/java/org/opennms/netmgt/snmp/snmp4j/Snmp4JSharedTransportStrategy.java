@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.netmgt.snmp.snmp4j;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.jmx.JmxReporter;
+
+/**
+ * A {@link Snmp4JStrategy} which sends all requests through a small, fixed set of
+ * shared sockets instead of opening a session for every request.
+ * <p>
+ * Enable it by setting <code>org.opennms.snmp.strategyClass</code> to the name of
+ * this class. The number of sockets and the number of concurrent requests per agent
+ * are configured with the {@link Snmp4JSharedTransport#SOCKETS_PROPERTY} and
+ * {@link Snmp4JSharedTransport#MAX_REQUESTS_PER_AGENT_PROPERTY} system properties.
+ * Traps, and other requests which do not expect a response, still use a session of
+ * their own.
+ */
+public class Snmp4JSharedTransportStrategy extends Snmp4JStrategy {
+    private static final Logger LOG = LoggerFactory.getLogger(Snmp4JSharedTransportStrategy.class);
+
+    private volatile Snmp4JSharedTransport m_sharedTransport;
+    private JmxReporter m_jmxReporter;
+
+    @Override
+    protected Snmp4JSharedTransport getSharedTransport() {
+        Snmp4JSharedTransport sharedTransport = m_sharedTransport;
+        if (sharedTransport == null) {
+            synchronized (this) {
+                sharedTransport = m_sharedTransport;
+                if (sharedTransport == null) {
+                    try {
+                        sharedTransport = new Snmp4JSharedTransport();
+                    } catch (final IOException e) {
+                        throw new IllegalStateException("Could not open the shared SNMP transport", e);
+                    }
+                    m_jmxReporter = JmxReporter.forRegistry(sharedTransport.getMetrics())
+                            .inDomain("org.opennms.netmgt.snmp.snmp4j.shared")
+                            .build();
+                    m_jmxReporter.start();
+                    m_sharedTransport = sharedTransport;
+                }
+            }
+        }
+        return sharedTransport;
+    }
+
+    public MetricRegistry getMetrics() {
+        return getSharedTransport().getMetrics();
+    }
+
+    public synchronized void close() {
+        if (m_jmxReporter != null) {
+            m_jmxReporter.stop();
+            m_jmxReporter = null;
+        }
+        if (m_sharedTransport != null) {
+            LOG.debug("Closing the shared SNMP transport");
+            m_sharedTransport.close();
+            m_sharedTransport = null;
+        }
+    }
+}
@@ -194,7 +194,15 @@ public class Snmp4JStrategy implements SnmpStrategy {
      */
         @Override
     public SnmpWalker createWalker(SnmpAgentConfig snmpAgentConfig, String name, CollectionTracker tracker) {
-        return new Snmp4JWalker(new Snmp4JAgentConfig(snmpAgentConfig), name, tracker);
+        return new Snmp4JWalker(new Snmp4JAgentConfig(snmpAgentConfig), name, tracker, getSharedTransport());
+    }
+
+    /**
+     * The transport shared by all requests of this strategy, or null if every
+     * request opens a session of its own.
+     */
+    protected Snmp4JSharedTransport getSharedTransport() {
+        return null;
     }
     
     /**
@@ -329,6 +337,26 @@ public class Snmp4JStrategy implements SnmpStrategy {
     }
 
     private void send(Snmp4JAgentConfig agentConfig, PDU pdu, boolean expectResponse, CompletableFuture<SnmpValue[]> future) {
+        final Snmp4JSharedTransport sharedTransport = getSharedTransport();
+        if (expectResponse && sharedTransport != null) {
+            try {
+                sharedTransport.send(agentConfig, pdu, new ResponseListener() {
+                    @Override
+                    public void onResponse(final ResponseEvent responseEvent) {
+                        try {
+                            future.complete(processResponse(agentConfig, responseEvent, pdu));
+                        } catch (final Exception e) {
+                            future.completeExceptionally(new SnmpException(e));
+                        }
+                    }
+                });
+            } catch (final Exception e) {
+                LOG.error("send: error during SNMP operation", e);
+                future.completeExceptionally(e);
+            }
+            return;
+        }
+
         Snmp session;
 
         try {
@@ -163,7 +163,10 @@ public class Snmp4JWalker extends SnmpWalker {
         @Override
         public void onResponse(ResponseEvent responseEvent) {
             // need to cancel the request here otherwise SNMP4J Keeps it around forever... go figure
-            m_session.cancel(responseEvent.getRequest(), this);
+            // (the shared transport takes care of this itself)
+            if (m_session != null) {
+                m_session.cancel(responseEvent.getRequest(), this);
+            }
 
             // Check to see if we got an interrupted exception
             if (responseEvent.getError() instanceof InterruptedException) {
@@ -192,11 +195,17 @@ public class Snmp4JWalker extends SnmpWalker {
     private final Target m_tgt;
     private final ResponseListener m_listener;
     private final Snmp4JAgentConfig m_agentConfig;
+    private final Snmp4JSharedTransport m_sharedTransport;
 
     public Snmp4JWalker(Snmp4JAgentConfig agentConfig, String name, CollectionTracker tracker) {
+        this(agentConfig, name, tracker, null);
+    }
+
+    public Snmp4JWalker(Snmp4JAgentConfig agentConfig, String name, CollectionTracker tracker, Snmp4JSharedTransport sharedTransport) {
         super(agentConfig.getInetAddress(), name, agentConfig.getMaxVarsPerPdu(), agentConfig.getMaxRepetitions(), agentConfig.getRetries(), tracker);
         
         m_agentConfig = agentConfig;
+        m_sharedTransport = sharedTransport;
         
         m_tgt = agentConfig.getTarget();
         m_listener = new Snmp4JResponseListener();
@@ -220,6 +229,17 @@ public class Snmp4JWalker extends SnmpWalker {
         @Override
     protected void sendNextPdu(WalkerPduBuilder pduBuilder) throws SnmpException {
         Snmp4JPduBuilder snmp4JPduBuilder = (Snmp4JPduBuilder)pduBuilder;
+        if (m_sharedTransport != null) {
+            LOG.debug("Sending tracker pdu of size {} using the shared transport", snmp4JPduBuilder.getPdu().size());
+            try {
+                m_sharedTransport.send(m_agentConfig, snmp4JPduBuilder.getPdu(), m_listener);
+            } catch (final IOException e) {
+                LOG.debug("Failed to send pdu of size {}", snmp4JPduBuilder.getPdu().size(), e);
+                throw new SnmpException(e);
+            }
+            return;
+        }
+
         try {
             if (m_session == null) {
                 m_session = m_agentConfig.createSnmpSession();
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.netmgt.snmp.snmp4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.opennms.netmgt.snmp.ColumnTracker;
+import org.opennms.netmgt.snmp.SnmpAgentConfig;
+import org.opennms.netmgt.snmp.SnmpObjId;
+import org.opennms.netmgt.snmp.SnmpResult;
+import org.opennms.netmgt.snmp.SnmpValue;
+import org.opennms.netmgt.snmp.SnmpWalker;
+
+/**
+ * Runs requests through the {@link Snmp4JSharedTransportStrategy} against the mock agent.
+ */
+public class Snmp4JSharedTransportIT extends MockSnmpAgentITCase {
+
+    private static final SnmpObjId INT_OID = SnmpObjId.get(".1.3.5.1.1.3.0");
+
+    private final Snmp4JSharedTransportStrategy m_strategy = new Snmp4JSharedTransportStrategy();
+
+    @Override
+    protected boolean usingMockStrategy() {
+        return false;
+    }
+
+    @After
+    public void closeStrategy() {
+        m_strategy.close();
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        final SnmpValue value = m_strategy.get(getAgentConfig(), INT_OID);
+
+        assertNotNull("value should not be null", value);
+        assertEquals(42, value.toInt());
+        assertEquals(0, m_strategy.getSharedTransport().getInFlight());
+    }
+
+    @Test
+    public void testConcurrentRequestsAreMultiplexed() throws Exception {
+        final List<CompletableFuture<SnmpValue[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(m_strategy.getAsync(getAgentConfig(), new SnmpObjId[] { INT_OID }));
+        }
+
+        for (final CompletableFuture<SnmpValue[]> future : futures) {
+            final SnmpValue[] values = future.get(30, TimeUnit.SECONDS);
+            assertEquals(1, values.length);
+            assertEquals(42, values[0].toInt());
+        }
+
+        final Snmp4JSharedTransport transport = m_strategy.getSharedTransport();
+        assertEquals(0, transport.getInFlight());
+        assertEquals(0, transport.getTimeouts());
+        assertEquals(0L, transport.getMetrics().counter("queued").getCount());
+        assertEquals(100L, transport.getMetrics().meter("requests").getCount());
+        assertEquals(Snmp4JSharedTransport.DEFAULT_SOCKETS, transport.getSocketCount());
+    }
+
+    @Test
+    public void testWalk() throws Exception {
+        final AtomicInteger results = new AtomicInteger();
+        final ColumnTracker tracker = new ColumnTracker(SnmpObjId.get(".1.3.5.1.1")) {
+            @Override
+            protected void storeResult(final SnmpResult res) {
+                results.incrementAndGet();
+            }
+        };
+
+        final SnmpWalker walker = m_strategy.createWalker(getAgentConfig(), "test", tracker);
+        walker.start();
+        walker.waitFor();
+
+        assertFalse(walker.failed());
+        assertEquals(9, results.get());
+        assertEquals(0, m_strategy.getSharedTransport().getInFlight());
+    }
+
+    @Test
+    public void testSnmpV3() throws Exception {
+        final SnmpAgentConfig agentConfig = getAgentConfig();
+        agentConfig.setVersion(SnmpAgentConfig.VERSION3);
+        agentConfig.setSecurityLevel(SnmpAgentConfig.AUTH_PRIV);
+        agentConfig.setSecurityName("opennmsUser");
+        agentConfig.setAuthProtocol("MD5");
+        agentConfig.setAuthPassPhrase("0p3nNMSv3");
+        agentConfig.setPrivProtocol("DES");
+        agentConfig.setPrivPassPhrase("0p3nNMSv3");
+
+        for (int i = 0; i < 3; i++) {
+            final SnmpValue value = m_strategy.get(agentConfig, INT_OID);
+            assertNotNull("value should not be null", value);
+            assertEquals(42, value.toInt());
+        }
+
+        // The engine of the agent is only discovered once
+        assertEquals(1L, m_strategy.getSharedTransport().getMetrics().meter("engineDiscoveries").getCount());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final SnmpAgentConfig agentConfig = getAgentConfig();
+        agentConfig.setPort(getAgentPort() + 1);
+        agentConfig.setTimeout(500);
+        agentConfig.setRetries(0);
+
+        assertNull(m_strategy.get(agentConfig, INT_OID));
+
+        final Snmp4JSharedTransport transport = m_strategy.getSharedTransport();
+        assertEquals(1L, transport.getTimeouts());
+        assertEquals(0, transport.getInFlight());
+    }
+}
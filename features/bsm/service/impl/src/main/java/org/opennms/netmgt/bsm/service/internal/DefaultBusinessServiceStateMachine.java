@@ -34,8 +34,10 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -43,10 +45,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -70,6 +74,8 @@ import org.opennms.netmgt.bsm.service.model.graph.GraphEdge;
 import org.opennms.netmgt.bsm.service.model.graph.GraphVertex;
 import org.opennms.netmgt.bsm.service.model.graph.internal.BusinessServiceGraphImpl;
 import org.opennms.netmgt.bsm.service.model.graph.internal.GraphAlgorithms;
+import org.opennms.netmgt.bsm.service.model.graph.internal.GraphElement;
+import org.opennms.netmgt.bsm.service.model.graph.internal.GraphStatusTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -87,167 +93,238 @@ public class DefaultBusinessServiceStateMachine implements BusinessServiceStateM
     public static final Status MIN_SEVERITY = Status.NORMAL;
 
     @Autowired
-    private AlarmProvider m_alarmProvider;
+    private volatile AlarmProvider m_alarmProvider;
 
-    private final List<BusinessServiceStateChangeHandler> m_handlers = Lists.newArrayList();
-    private final ReadWriteLock m_rwLock = new ReentrantReadWriteLock();
-    private BusinessServiceGraph m_g = new BusinessServiceGraphImpl(Collections.emptyList());
+    private final List<BusinessServiceStateChangeHandler> m_handlers = new CopyOnWriteArrayList<>();
 
-    private boolean m_recordAndDeferStatusUpdates = false;
-    private final Map<GraphVertex, StatusUpdate> m_statusUpdatesByVertex = new LinkedHashMap<>();
+    // Only writers take the lock, readers work on the graph and statuses that were last published
+    private final Lock m_writeLock = new ReentrantLock();
+    private volatile BusinessServiceGraphImpl m_g = new BusinessServiceGraphImpl(Collections.emptyList());
+
+    // Latest status by reduction key, waiting to be applied by whichever thread holds the write lock next
+    private final Map<String, Status> m_pendingAlarms = new ConcurrentHashMap<>();
 
     @Override
     public void setBusinessServices(List<BusinessService> businessServices) {
-        m_rwLock.writeLock().lock();
+        m_writeLock.lock();
         try {
-            // Defer status updates until we've processed the whole graph
-            m_recordAndDeferStatusUpdates = true;
+            // Make sure the alarms which were already received are carried over
+            applyPendingAlarms();
+            final BusinessServiceGraphImpl previousGraph = m_g;
 
             // Create a new graph
-            BusinessServiceGraph g = new BusinessServiceGraphImpl(businessServices);
+            final BusinessServiceGraphImpl g = new BusinessServiceGraphImpl(businessServices);
 
             // Prime the graph with the state from the previous graph and
             // keep track of the new reductions keys
-            Set<String> reductionsKeysToLookup = Sets.newHashSet();
+            final Map<GraphVertex, Status> updates = new HashMap<>();
+            final Set<String> reductionsKeysToLookup = Sets.newHashSet();
             for (String reductionKey : g.getReductionKeys()) {
-                GraphVertex reductionKeyVertex = m_g.getVertexByReductionKey(reductionKey);
+                GraphVertex reductionKeyVertex = previousGraph.getVertexByReductionKey(reductionKey);
                 if (reductionKeyVertex != null) {
-                    updateAndPropagateVertex(g, g.getVertexByReductionKey(reductionKey), reductionKeyVertex.getStatus());
+                    updates.put(g.getVertexByReductionKey(reductionKey), reductionKeyVertex.getStatus());
                 } else {
                     reductionsKeysToLookup.add(reductionKey);
                 }
             }
 
+            final AlarmProvider alarmProvider = m_alarmProvider;
             if (!reductionsKeysToLookup.isEmpty()) {
-                if (m_alarmProvider == null) {
+                if (alarmProvider == null) {
                     LOG.warn("There are one or more reduction keys to lookup, but no alarm provider is set.");
                 } else {
                     // Query the status of the reductions keys that were added
                     // We do this so that we can immediately reflect the state of the new
                     // graph without having to wait for calls to handleNewOrUpdatedAlarm()
-                    final Map<String, AlarmWrapper> lookup = m_alarmProvider.lookup(reductionsKeysToLookup);
+                    final Map<String, AlarmWrapper> lookup = alarmProvider.lookup(reductionsKeysToLookup);
                     for (Entry<String, AlarmWrapper> eachEntry : lookup.entrySet()) {
-                        updateAndPropagateVertex(g, g.getVertexByReductionKey(eachEntry.getKey()), eachEntry.getValue().getStatus());
+                        final GraphVertex reductionKeyVertex = g.getVertexByReductionKey(eachEntry.getKey());
+                        if (reductionKeyVertex != null) {
+                            updates.put(reductionKeyVertex, eachEntry.getValue().getStatus());
+                        }
                     }
                 }
             }
+
+            // Propagate all of the statuses at once before making the new graph visible
+            final List<StatusUpdate> statusUpdates = propagate(g, updates);
             m_g = g;
 
-            // Stop recording, and release the status updates
-            m_recordAndDeferStatusUpdates = false;
-            for (StatusUpdate statusUpdate : m_statusUpdatesByVertex.values()) {
-                for (BusinessServiceStateChangeHandler handler : m_handlers) {
-                    handler.handleBusinessServiceStateChanged(statusUpdate.graph, statusUpdate.vertex.getBusinessService(),
-                            statusUpdate.vertex.getStatus(), statusUpdate.previousStatus);
+            for (StatusUpdate statusUpdate : statusUpdates) {
+                // Only send a status update if the new status is different than the one in the previous graph
+                final GraphVertex previousVertex = previousGraph.getVertexByBusinessServiceId(statusUpdate.vertex.getBusinessService().getId());
+                if (previousVertex != null && statusUpdate.status.equals(previousVertex.getStatus())) {
+                    continue;
                 }
+                notifyHandlers(g, statusUpdate);
             }
-            m_statusUpdatesByVertex.clear();
         } finally {
-            m_rwLock.writeLock().unlock();
+            m_writeLock.unlock();
         }
     }
 
     @Override
     public void handleNewOrUpdatedAlarm(AlarmWrapper alarm) {
-        m_rwLock.writeLock().lock();
+        if (alarm.getReductionKey() == null) {
+            // Nothing to do here
+            return;
+        }
+        // Only the latest status of every reduction key is kept while another thread
+        // is propagating, so a burst of updates is applied in a single batch
+        m_pendingAlarms.put(alarm.getReductionKey(), alarm.getStatus());
+        m_writeLock.lock();
         try {
-            // Recursively propagate the status
-            updateAndPropagateVertex(m_g, m_g.getVertexByReductionKey(alarm.getReductionKey()), alarm.getStatus());
+            applyPendingAlarms();
         } finally {
-            m_rwLock.writeLock().unlock();
+            m_writeLock.unlock();
         }
     }
 
     @Override
     public void handleAllAlarms(List<AlarmWrapper> alarms) {
         final Set<String> reductionKeysFromGivenAlarms = new HashSet<>(alarms.size());
-        m_rwLock.writeLock().lock();
+        m_writeLock.lock();
         try {
+            final BusinessServiceGraphImpl g = m_g;
+            final Map<GraphVertex, Status> updates = new HashMap<>();
             for (AlarmWrapper alarm : alarms) {
-                // Recursively propagate the status for all of the given alarms
-                updateAndPropagateVertex(m_g, m_g.getVertexByReductionKey(alarm.getReductionKey()), alarm.getStatus());
+                final GraphVertex vertex = g.getVertexByReductionKey(alarm.getReductionKey());
+                if (vertex != null) {
+                    updates.put(vertex, alarm.getStatus());
+                }
                 // Keep track of the reduction keys that have been processed
                 reductionKeysFromGivenAlarms.add(alarm.getReductionKey());
             }
 
-            for (String missingReductionKey : Sets.difference(m_g.getReductionKeys(), reductionKeysFromGivenAlarms)) {
+            for (String missingReductionKey : Sets.difference(g.getReductionKeys(), reductionKeysFromGivenAlarms)) {
                 // There is a vertex on the graph that corresponds to this reduction key
                 // but no alarm with this reduction key exists
-                updateAndPropagateVertex(m_g, m_g.getVertexByReductionKey(missingReductionKey), Status.INDETERMINATE);
+                updates.put(g.getVertexByReductionKey(missingReductionKey), Status.INDETERMINATE);
             }
+            notifyHandlers(g, propagate(g, updates));
+
+            // Alarms which were received in the meantime are newer than the given ones
+            applyPendingAlarms();
         } finally {
-            m_rwLock.writeLock().unlock();
+            m_writeLock.unlock();
         }
     }
 
-    private void updateAndPropagateVertex(BusinessServiceGraph graph, GraphVertex vertex, Status newStatus) {
-        if (vertex == null) {
-            // Nothing to do here
+    /**
+     * Applies the pending alarms to the current graph. Must be called while holding the write lock.
+     */
+    private void applyPendingAlarms() {
+        if (m_pendingAlarms.isEmpty()) {
             return;
         }
+        final BusinessServiceGraphImpl g = m_g;
+        final Map<GraphVertex, Status> updates = new HashMap<>();
+        for (String reductionKey : m_pendingAlarms.keySet()) {
+            final Status status = m_pendingAlarms.remove(reductionKey);
+            final GraphVertex vertex = g.getVertexByReductionKey(reductionKey);
+            if (status != null && vertex != null) {
+                updates.put(vertex, status);
+            }
+        }
+        notifyHandlers(g, propagate(g, updates));
+    }
+
+    /**
+     * Sets the status of the given vertices and propagates the changes up to the root vertices.
+     *
+     * Vertices are reduced from the highest level to the lowest, so that every vertex is only reduced
+     * once all of its children have been updated. The statuses are published together once the
+     * propagation is complete.
+     *
+     * @return the business services which changed, along with their status before the update
+     */
+    private static List<StatusUpdate> propagate(BusinessServiceGraphImpl graph, Map<GraphVertex, Status> updates) {
+        if (updates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final GraphStatusTable.Update statuses = graph.getStatusTable().update();
+        final Map<GraphVertex, Status> previousStatuses = new LinkedHashMap<>();
+        final Set<GraphVertex> queued = new HashSet<>();
+        final PriorityQueue<GraphVertex> queue = new PriorityQueue<>(Comparator.comparingInt(GraphVertex::getLevel).reversed());
+
+        for (Entry<GraphVertex, Status> update : updates.entrySet()) {
+            updateVertex(graph, statuses, update.getKey(), update.getValue(), previousStatuses, queue, queued);
+        }
+
+        while (!queue.isEmpty()) {
+            final GraphVertex vertex = queue.poll();
+            final int index = ((GraphElement)vertex).getIndex();
+            queued.remove(vertex);
+
+            // Weigh the statuses from the child edges
+            final GraphEdge[] childEdges = graph.getChildEdges(index);
+            final int[] relativeWeights = graph.getRelativeChildWeights(index);
+            final List<StatusWithIndex> weighedStatuses = new ArrayList<>();
+            for (int k = 0; k < childEdges.length; k++) {
+                final Status edgeStatus = statuses.get(((GraphElement)childEdges[k]).getIndex());
+                for (int i = 0; i < relativeWeights[k]; i++) {
+                    weighedStatuses.add(new StatusWithIndex(edgeStatus, k));
+                }
+            }
+
+            // Reduce
+            final Status reducedStatus = vertex.getReductionFunction().reduce(weighedStatuses)
+                    .map(StatusWithIndices::getStatus)
+                    .orElse(MIN_SEVERITY);
+            updateVertex(graph, statuses, vertex, reducedStatus, previousStatuses, queue, queued);
+        }
+        statuses.publish();
+
+        final List<StatusUpdate> statusUpdates = new ArrayList<>();
+        for (Entry<GraphVertex, Status> entry : previousStatuses.entrySet()) {
+            final GraphVertex vertex = entry.getKey();
+            // Only send updates for business services (and not for reduction keys)
+            if (vertex.getBusinessService() != null && !entry.getValue().equals(vertex.getStatus())) {
+                statusUpdates.add(new StatusUpdate(vertex, vertex.getStatus(), entry.getValue()));
+            }
+        }
+        return statusUpdates;
+    }
 
+    private static void updateVertex(BusinessServiceGraphImpl graph, GraphStatusTable.Update statuses, GraphVertex vertex, Status newStatus,
+                                     Map<GraphVertex, Status> previousStatuses, PriorityQueue<GraphVertex> queue, Set<GraphVertex> queued) {
         // Apply lower bound
         newStatus = newStatus.isLessThan(MIN_SEVERITY) ? MIN_SEVERITY : newStatus;
 
         // Update the status if necessary
-        Status previousStatus = vertex.getStatus();
+        final int index = ((GraphElement)vertex).getIndex();
+        final Status previousStatus = statuses.get(index);
         if (previousStatus.equals(newStatus)) {
             // The status hasn't changed, there's nothing to propagate
             return;
         }
-        vertex.setStatus(newStatus);
-
-        // Notify the listeners
-        onStatusUpdated(graph, vertex, previousStatus);
-
-        // Update the edges with the mapped status
-        List<GraphEdge> updatedEges = Lists.newArrayList();
-        for (GraphEdge edge : graph.getInEdges(vertex)) {
-            Status mappedStatus = newStatus;
+        statuses.set(index, newStatus);
+        previousStatuses.putIfAbsent(vertex, previousStatus);
+
+        // Update the edges with the mapped status and queue the parents of the edges that changed
+        final GraphEdge[] parentEdges = graph.getParentEdges(index);
+        final int[] parentIndices = graph.getParentIndices(index);
+        for (int k = 0; k < parentEdges.length; k++) {
+            final Status mappedStatus;
             if (newStatus.isGreaterThan(MIN_SEVERITY)) {
                 // Only apply the map function when the status is > the minimum
-                mappedStatus = edge.getMapFunction().map(newStatus).orElse(MIN_SEVERITY);
+                mappedStatus = parentEdges[k].getMapFunction().map(newStatus).orElse(MIN_SEVERITY);
             } else {
                 mappedStatus = newStatus;
             }
 
-            if (mappedStatus.equals(edge.getStatus())) {
+            final int edgeIndex = ((GraphElement)parentEdges[k]).getIndex();
+            if (mappedStatus.equals(statuses.get(edgeIndex))) {
                 // The status hasn't changed
                 continue;
             }
+            statuses.set(edgeIndex, mappedStatus);
 
-            // Update the status and add it to the list of edges to propagate
-            edge.setStatus(mappedStatus);
-            updatedEges.add(edge);
-        }
-
-        // Propagate once all of the edges have been updated
-        for (GraphEdge edge : updatedEges) {
-            reduceUpdateAndPropagateVertex(graph, graph.getOpposite(vertex, edge));
-        }
-    }
-
-    private void reduceUpdateAndPropagateVertex(BusinessServiceGraph graph, GraphVertex vertex) {
-        if (vertex == null) {
-            // Nothing to do here
-            return;
-        }
-
-        // Calculate the weighed statuses from the child edges
-        List<StatusWithIndex> statuses = weighEdges(graph.getOutEdges(vertex));
-
-        // Reduce
-        Optional<StatusWithIndices> reducedStatus = vertex.getReductionFunction().reduce(statuses);
-
-        Status newStatus;
-        if (reducedStatus.isPresent()) {
-            newStatus = reducedStatus.get().getStatus();
-        } else {
-            newStatus = MIN_SEVERITY;
+            final GraphVertex parent = graph.getVertexByIndex(parentIndices[k]);
+            if (queued.add(parent)) {
+                queue.add(parent);
+            }
         }
-
-        // Update and propagate
-        updateAndPropagateVertex(graph, vertex, newStatus);
     }
 
     public static List<StatusWithIndex> weighEdges(Collection<GraphEdge> edges) {
@@ -286,160 +363,103 @@ public class DefaultBusinessServiceStateMachine implements BusinessServiceStateM
         return statuses;
     }
 
-    private void onStatusUpdated(BusinessServiceGraph graph, GraphVertex vertex, Status previousStatus) {
-        BusinessService businessService = vertex.getBusinessService();
-        if (businessService == null) {
-            // Only send updates for business services (and not for reduction keys)
-            return;
-        }
-
-        if (graph != m_g) {
-            // We're working with a new graph, only send a status update if the new status is different
-            // than the one in the previous graph
-            GraphVertex previousVertex = m_g.getVertexByBusinessServiceId(businessService.getId());
-            if (previousVertex != null && vertex.getStatus().equals(previousVertex.getStatus())) {
-                // The vertex for this business service in the previous graph
-                // had the same status, don't issue any notifications
-                if (m_recordAndDeferStatusUpdates) {
-                    m_statusUpdatesByVertex.remove(vertex);
-                }
-                return;
-            }
+    private void notifyHandlers(BusinessServiceGraph graph, List<StatusUpdate> statusUpdates) {
+        for (StatusUpdate statusUpdate : statusUpdates) {
+            notifyHandlers(graph, statusUpdate);
         }
+    }
 
-        if (m_recordAndDeferStatusUpdates) {
-            m_statusUpdatesByVertex.computeIfAbsent(vertex, v -> new StatusUpdate(graph, v, previousStatus));
-        } else {
-            for (BusinessServiceStateChangeHandler handler : m_handlers) {
-                handler.handleBusinessServiceStateChanged(graph, businessService, vertex.getStatus(), previousStatus);
-            }
+    private void notifyHandlers(BusinessServiceGraph graph, StatusUpdate statusUpdate) {
+        for (BusinessServiceStateChangeHandler handler : m_handlers) {
+            handler.handleBusinessServiceStateChanged(graph, statusUpdate.vertex.getBusinessService(),
+                    statusUpdate.status, statusUpdate.previousStatus);
         }
     }
 
     @Override
     public Status getOperationalStatus(BusinessService businessService) {
         Objects.requireNonNull(businessService);
-        m_rwLock.readLock().lock();
-        try {
-            GraphVertex vertex = m_g.getVertexByBusinessServiceId(businessService.getId());
-            if (vertex != null) {
-                return vertex.getStatus();
-            }
-            return null;
-        } finally {
-            m_rwLock.readLock().unlock();
+        GraphVertex vertex = m_g.getVertexByBusinessServiceId(businessService.getId());
+        if (vertex != null) {
+            return vertex.getStatus();
         }
+        return null;
     }
 
     @Override
     public Status getOperationalStatus(IpService ipService) {
-        m_rwLock.readLock().lock();
-        try {
-            GraphVertex vertex = m_g.getVertexByIpServiceId(ipService.getId());
-            if (vertex != null) {
-                return vertex.getStatus();
-            }
-            return null;
-        } finally {
-            m_rwLock.readLock().unlock();
+        GraphVertex vertex = m_g.getVertexByIpServiceId(ipService.getId());
+        if (vertex != null) {
+            return vertex.getStatus();
         }
+        return null;
     }
 
     @Override
     public Status getOperationalStatus(String reductionKey) {
-        m_rwLock.readLock().lock();
-        try {
-            GraphVertex vertex = m_g.getVertexByReductionKey(reductionKey);
-            if (vertex != null) {
-                return vertex.getStatus();
-            }
-            return null;
-        } finally {
-            m_rwLock.readLock().unlock();
+        GraphVertex vertex = m_g.getVertexByReductionKey(reductionKey);
+        if (vertex != null) {
+            return vertex.getStatus();
         }
+        return null;
     }
 
     @Override
     public Status getOperationalStatus(Edge edge) {
-        m_rwLock.readLock().lock();
-        try {
-            GraphVertex vertex = m_g.getVertexByEdgeId(edge.getId());
-            if (vertex != null) {
-                return vertex.getStatus();
-            }
-            return null;
-        } finally {
-            m_rwLock.readLock().unlock();
+        GraphVertex vertex = m_g.getVertexByEdgeId(edge.getId());
+        if (vertex != null) {
+            return vertex.getStatus();
         }
+        return null;
     }
 
     public void setAlarmProvider(AlarmProvider alarmProvider) {
-        m_rwLock.writeLock().lock();
-        try {
-            m_alarmProvider = alarmProvider;
-        } finally {
-            m_rwLock.writeLock().unlock();
-        }
+        m_alarmProvider = alarmProvider;
     }
 
     @Override
     public void addHandler(BusinessServiceStateChangeHandler handler, Map<String, String> attributes) {
-        m_rwLock.writeLock().lock();
-        try {
-            m_handlers.add(handler);
-        } finally {
-            m_rwLock.writeLock().unlock();
-        }
+        m_handlers.add(handler);
     }
 
     @Override
     public boolean removeHandler(BusinessServiceStateChangeHandler handler, Map<String, String> attributes) {
-        m_rwLock.writeLock().lock();
-        try {
-            return m_handlers.remove(handler);
-        } finally {
-            m_rwLock.writeLock().unlock();
-        }
+        return m_handlers.remove(handler);
     }
 
     @Override
     public void renderGraphToPng(File tempFile) {
-        m_rwLock.readLock().lock();
-        try {
-            Layout<GraphVertex,GraphEdge> layout = new KKLayout<GraphVertex,GraphEdge>(m_g);
-            layout.setSize(new Dimension(1024,1024)); // Size of the layout
-
-            VisualizationImageServer<GraphVertex, GraphEdge> vv = new VisualizationImageServer<GraphVertex, GraphEdge>(layout, layout.getSize());
-            vv.setPreferredSize(new Dimension(1200,1200)); // Viewing area size
-            vv.getRenderContext().setVertexLabelTransformer((GraphVertex vertex) -> {
-                if (vertex.getBusinessService() != null) {
-                    return String.format("BS[%s]", vertex.getBusinessService().getName());
-                }
-                if (vertex.getIpService() != null) {
-                    IpService ipService = vertex.getIpService();
-                    return String.format("IP_SERVICE[%s,%s]", ipService.getId(), ipService.getServiceName());
-                }
-                if (vertex.getReductionKey() != null) {
-                    return String.format("RK[%s]", vertex.getReductionKey());
-                }
-                return "UNKNOWN";
-            });
-            vv.getRenderContext().setEdgeLabelTransformer((GraphEdge edge) -> String.format("%s", edge.getMapFunction().getClass().getSimpleName()));
-
-            // Create the buffered image
-            BufferedImage image = (BufferedImage) vv.getImage(
-                    new Point2D.Double(vv.getGraphLayout().getSize().getWidth() / 2,
-                    vv.getGraphLayout().getSize().getHeight() / 2),
-                    new Dimension(vv.getGraphLayout().getSize()));
-
-            // Render
-            try {
-                ImageIO.write(image, "png", tempFile);
-            } catch (IOException e) {
-                throw Throwables.propagate(e);
+        Layout<GraphVertex,GraphEdge> layout = new KKLayout<GraphVertex,GraphEdge>(m_g);
+        layout.setSize(new Dimension(1024,1024)); // Size of the layout
+
+        VisualizationImageServer<GraphVertex, GraphEdge> vv = new VisualizationImageServer<GraphVertex, GraphEdge>(layout, layout.getSize());
+        vv.setPreferredSize(new Dimension(1200,1200)); // Viewing area size
+        vv.getRenderContext().setVertexLabelTransformer((GraphVertex vertex) -> {
+            if (vertex.getBusinessService() != null) {
+                return String.format("BS[%s]", vertex.getBusinessService().getName());
             }
-        } finally {
-            m_rwLock.readLock().unlock();
+            if (vertex.getIpService() != null) {
+                IpService ipService = vertex.getIpService();
+                return String.format("IP_SERVICE[%s,%s]", ipService.getId(), ipService.getServiceName());
+            }
+            if (vertex.getReductionKey() != null) {
+                return String.format("RK[%s]", vertex.getReductionKey());
+            }
+            return "UNKNOWN";
+        });
+        vv.getRenderContext().setEdgeLabelTransformer((GraphEdge edge) -> String.format("%s", edge.getMapFunction().getClass().getSimpleName()));
+
+        // Create the buffered image
+        BufferedImage image = (BufferedImage) vv.getImage(
+                new Point2D.Double(vv.getGraphLayout().getSize().getWidth() / 2,
+                vv.getGraphLayout().getSize().getHeight() / 2),
+                new Dimension(vv.getGraphLayout().getSize()));
+
+        // Render
+        try {
+            ImageIO.write(image, "png", tempFile);
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
         }
     }
 
@@ -450,112 +470,82 @@ public class DefaultBusinessServiceStateMachine implements BusinessServiceStateM
 
     @Override
     public Set<GraphEdge> calculateImpacting(BusinessService businessService) {
-        m_rwLock.readLock().lock();
-        try {
-            final GraphVertex vertex = m_g.getVertexByBusinessServiceId(businessService.getId());
-            return GraphAlgorithms.calculateImpacting(m_g, vertex);
-        } finally {
-            m_rwLock.readLock().unlock();
-        }
+        final BusinessServiceGraph g = m_g;
+        final GraphVertex vertex = g.getVertexByBusinessServiceId(businessService.getId());
+        return GraphAlgorithms.calculateImpacting(g, vertex);
     }
 
     @Override
     public BusinessServiceStateMachine clone(boolean preserveState) {
-        m_rwLock.readLock().lock();
-        try {
-            final BusinessServiceStateMachine sm = new DefaultBusinessServiceStateMachine();
-
-            // Rebuild the graph using the business services from the existing state machine
-            final BusinessServiceGraph graph = getGraph();
-            sm.setBusinessServices(graph.getVertices().stream()
-                    .map(GraphVertex::getBusinessService)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList()));
-
-            // Prime the state
-            if (preserveState) {
-                for (String reductionKey : graph.getReductionKeys()) {
-                    GraphVertex reductionKeyVertex = graph.getVertexByReductionKey(reductionKey);
-                    sm.handleNewOrUpdatedAlarm(new AlarmWrapper() {
-                        @Override
-                        public String getReductionKey() {
-                            return reductionKey;
-                        }
+        final BusinessServiceStateMachine sm = new DefaultBusinessServiceStateMachine();
+
+        // Rebuild the graph using the business services from the existing state machine
+        final BusinessServiceGraph graph = getGraph();
+        sm.setBusinessServices(graph.getVertices().stream()
+                .map(GraphVertex::getBusinessService)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+
+        // Prime the state
+        if (preserveState) {
+            final List<AlarmWrapper> alarms = new ArrayList<>();
+            for (String reductionKey : graph.getReductionKeys()) {
+                final Status status = graph.getVertexByReductionKey(reductionKey).getStatus();
+                alarms.add(new AlarmWrapper() {
+                    @Override
+                    public String getReductionKey() {
+                        return reductionKey;
+                    }
 
-                        @Override
-                        public Status getStatus() {
-                            return reductionKeyVertex.getStatus();
-                        }
-                    });
-                }
+                    @Override
+                    public Status getStatus() {
+                        return status;
+                    }
+                });
             }
-            return sm;
-        } finally {
-            m_rwLock.readLock().unlock();
+            sm.handleAllAlarms(alarms);
         }
+        return sm;
     }
 
     @Override
     public List<GraphVertex> calculateRootCause(BusinessService businessService) {
-        m_rwLock.readLock().lock();
-        try {
-            final GraphVertex vertex = m_g.getVertexByBusinessServiceId(businessService.getId());
-            return GraphAlgorithms.calculateRootCause(m_g, vertex);
-        } finally {
-            m_rwLock.readLock().unlock();
-        }
+        final BusinessServiceGraph g = m_g;
+        final GraphVertex vertex = g.getVertexByBusinessServiceId(businessService.getId());
+        return GraphAlgorithms.calculateRootCause(g, vertex);
     }
 
     @Override
     public List<GraphVertex> calculateImpact(BusinessService businessService) {
-        m_rwLock.readLock().lock();
-        try {
-            final GraphVertex vertex = m_g.getVertexByBusinessServiceId(businessService.getId());
-            return calculateImpact(vertex);
-        } finally {
-            m_rwLock.readLock().unlock();
-        }
+        final BusinessServiceGraph g = m_g;
+        return GraphAlgorithms.calculateImpact(g, g.getVertexByBusinessServiceId(businessService.getId()));
     }
 
     @Override
     public List<GraphVertex> calculateImpact(IpService ipService) {
-        m_rwLock.readLock().lock();
-        try {
-            final GraphVertex vertex = m_g.getVertexByIpServiceId(ipService.getId());
-            return calculateImpact(vertex);
-        } finally {
-            m_rwLock.readLock().unlock();
-        }
+        final BusinessServiceGraph g = m_g;
+        return GraphAlgorithms.calculateImpact(g, g.getVertexByIpServiceId(ipService.getId()));
     }
 
     @Override
     public List<GraphVertex> calculateImpact(Application application) {
-        m_rwLock.readLock().lock();
-        try {
-            final GraphVertex vertex = m_g.getVertexByApplicationId(application.getId());
-            return calculateImpact(vertex);
-        } finally {
-            m_rwLock.readLock().unlock();
-        }
+        final BusinessServiceGraph g = m_g;
+        return GraphAlgorithms.calculateImpact(g, g.getVertexByApplicationId(application.getId()));
     }
 
     @Override
     public List<GraphVertex> calculateImpact(String reductionKey) {
-        m_rwLock.readLock().lock();
-        try {
-            final GraphVertex vertex = m_g.getVertexByReductionKey(reductionKey);
-            return calculateImpact(vertex);
-        } finally {
-            m_rwLock.readLock().unlock();
-        }
+        final BusinessServiceGraph g = m_g;
+        return GraphAlgorithms.calculateImpact(g, g.getVertexByReductionKey(reductionKey));
     }
 
     @Override
     public ThresholdResultExplanation explain(BusinessService businessService, Threshold threshold) {
-        final GraphVertex vertex = getGraph().getVertexByBusinessServiceId(businessService.getId());
+        final BusinessServiceGraph graph = m_g;
+        final GraphVertex vertex = graph.getVertexByBusinessServiceId(businessService.getId());
 
         // Calculate the weighed statuses from the child edges
-        List<StatusWithIndex> statusesWithIndices = weighEdges(getGraph().getOutEdges(vertex));
+        List<StatusWithIndex> statusesWithIndices = weighEdges(graph.getOutEdges(vertex));
         List<Status> statuses = statusesWithIndices.stream()
             .map(StatusWithIndex::getStatus)
             .collect(Collectors.toList());
@@ -568,14 +558,14 @@ public class DefaultBusinessServiceStateMachine implements BusinessServiceStateM
         ThresholdResultExplanation explanation = new ThresholdResultExplanation();
         explanation.setStatus(reducedStatus);
         explanation.setHitsByStatus(threshold.getHitsByStatus(statuses));
-        explanation.setGraphEdges(getGraph().getOutEdges(vertex));
+        explanation.setGraphEdges(graph.getOutEdges(vertex));
         explanation.setWeightStatuses(statuses);
         explanation.setFunction(threshold);
 
         Map<GraphEdge, GraphVertex> graphEdgeToGraphVertex = new HashMap<>();
         for (Edge eachEdge : businessService.getEdges()) {
-            GraphVertex vertexForEdge = getGraph().getVertexByEdgeId(eachEdge.getId());
-            GraphEdge graphEdge = getGraph().getGraphEdgeByEdgeId(eachEdge.getId());
+            GraphVertex vertexForEdge = graph.getVertexByEdgeId(eachEdge.getId());
+            GraphEdge graphEdge = graph.getGraphEdgeByEdgeId(eachEdge.getId());
             if (vertexForEdge != null && graphEdge != null) {
                 graphEdgeToGraphVertex.put(graphEdge, vertexForEdge);
             }
@@ -584,18 +574,14 @@ public class DefaultBusinessServiceStateMachine implements BusinessServiceStateM
         return explanation;
     }
 
-    private List<GraphVertex> calculateImpact(GraphVertex vertex) {
-        return GraphAlgorithms.calculateImpact(m_g, vertex);
-    }
-
     private static class StatusUpdate {
-        private final BusinessServiceGraph graph;
         private final GraphVertex vertex;
+        private final Status status;
         private final Status previousStatus;
 
-        public StatusUpdate(BusinessServiceGraph graph, GraphVertex vertex, Status previousStatus) {
-            this.graph = graph;
+        public StatusUpdate(GraphVertex vertex, Status status, Status previousStatus) {
             this.vertex = vertex;
+            this.status = status;
             this.previousStatus = previousStatus;
         }
     }
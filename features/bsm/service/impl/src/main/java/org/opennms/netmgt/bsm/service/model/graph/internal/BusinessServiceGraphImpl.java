@@ -28,6 +28,8 @@
 
 package org.opennms.netmgt.bsm.service.model.graph.internal;
 
+import java.math.BigInteger;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -67,6 +69,14 @@ public class BusinessServiceGraphImpl extends DirectedSparseMultigraph<GraphVert
     private final Map<Integer, Set<GraphVertex>> m_verticesByLevel = Maps.newHashMap();
     private final Map<Long, GraphEdge> m_edgesByEdgeId = Maps.newHashMap();
 
+    // Statuses and propagation paths, indexed by GraphElement.getIndex() once the graph is built
+    private GraphStatusTable m_statusTable = new GraphStatusTable(0);
+    private GraphVertex[] m_verticesByIndex = new GraphVertex[0];
+    private GraphEdge[][] m_childEdgesByIndex = new GraphEdge[0][];
+    private int[][] m_relativeChildWeightsByIndex = new int[0][];
+    private GraphEdge[][] m_parentEdgesByIndex = new GraphEdge[0][];
+    private int[][] m_parentIndicesByIndex = new int[0][];
+
     public BusinessServiceGraphImpl(final List<? extends BusinessService> businessServices) {
         // Build the graph
         Objects.requireNonNull(businessServices).stream()
@@ -74,6 +84,9 @@ public class BusinessServiceGraphImpl extends DirectedSparseMultigraph<GraphVert
 
         // Calculate and index the hierarchical levels
         calculateAndIndexLevels();
+
+        // Move the statuses to a shared table and precompute the propagation paths
+        indexElements();
     }
 
     private GraphVertex addBusinessServiceVertex(BusinessService businessService) {
@@ -224,6 +237,104 @@ public class BusinessServiceGraphImpl extends DirectedSparseMultigraph<GraphVert
         }
     }
 
+    private void indexElements() {
+        final Collection<GraphVertex> vertices = getVertices();
+        final Collection<GraphEdge> edges = getEdges();
+        final GraphStatusTable statusTable = new GraphStatusTable(vertices.size() + edges.size());
+
+        final GraphStatusTable.Update initialStatuses = statusTable.update();
+
+        final GraphVertex[] verticesByIndex = new GraphVertex[vertices.size()];
+        int index = 0;
+        for (GraphVertex vertex : vertices) {
+            initialStatuses.set(index, vertex.getStatus());
+            ((GraphElement)vertex).bind(statusTable, index);
+            verticesByIndex[index] = vertex;
+            index++;
+        }
+        for (GraphEdge edge : edges) {
+            initialStatuses.set(index, edge.getStatus());
+            ((GraphElement)edge).bind(statusTable, index++);
+        }
+        initialStatuses.publish();
+
+        final GraphEdge[][] childEdgesByIndex = new GraphEdge[verticesByIndex.length][];
+        final int[][] relativeChildWeightsByIndex = new int[verticesByIndex.length][];
+        final GraphEdge[][] parentEdgesByIndex = new GraphEdge[verticesByIndex.length][];
+        final int[][] parentIndicesByIndex = new int[verticesByIndex.length][];
+        for (int i = 0; i < verticesByIndex.length; i++) {
+            final GraphEdge[] childEdges = getOutEdges(verticesByIndex[i]).toArray(new GraphEdge[0]);
+            childEdgesByIndex[i] = childEdges;
+            relativeChildWeightsByIndex[i] = relativeWeights(childEdges);
+
+            final GraphEdge[] parentEdges = getInEdges(verticesByIndex[i]).toArray(new GraphEdge[0]);
+            final int[] parentIndices = new int[parentEdges.length];
+            for (int k = 0; k < parentEdges.length; k++) {
+                parentIndices[k] = ((GraphElement)getSource(parentEdges[k])).getIndex();
+            }
+            parentEdgesByIndex[i] = parentEdges;
+            parentIndicesByIndex[i] = parentIndices;
+        }
+
+        m_statusTable = statusTable;
+        m_verticesByIndex = verticesByIndex;
+        m_childEdgesByIndex = childEdgesByIndex;
+        m_relativeChildWeightsByIndex = relativeChildWeightsByIndex;
+        m_parentEdgesByIndex = parentEdgesByIndex;
+        m_parentIndicesByIndex = parentIndicesByIndex;
+    }
+
+    /**
+     * Divides the weights of the given edges by their greatest common divisor.
+     */
+    private static int[] relativeWeights(GraphEdge[] edges) {
+        int gcd = 0;
+        for (GraphEdge edge : edges) {
+            gcd = gcd == 0 ? edge.getWeight() : BigInteger.valueOf(gcd).gcd(BigInteger.valueOf(edge.getWeight())).intValue();
+        }
+        final int[] weights = new int[edges.length];
+        for (int k = 0; k < edges.length; k++) {
+            weights[k] = Math.floorDiv(edges[k].getWeight(), gcd);
+        }
+        return weights;
+    }
+
+    /**
+     * @return the table holding the status of every vertex and edge in this graph
+     */
+    public GraphStatusTable getStatusTable() {
+        return m_statusTable;
+    }
+
+    public GraphVertex getVertexByIndex(int index) {
+        return m_verticesByIndex[index];
+    }
+
+    /**
+     * @return the edges to the children of the vertex with the given index, in the order of {@link #getOutEdges(Object)}
+     */
+    public GraphEdge[] getChildEdges(int index) {
+        return m_childEdgesByIndex[index];
+    }
+
+    /**
+     * @return the weights of the child edges divided by their greatest common divisor
+     */
+    public int[] getRelativeChildWeights(int index) {
+        return m_relativeChildWeightsByIndex[index];
+    }
+
+    public GraphEdge[] getParentEdges(int index) {
+        return m_parentEdgesByIndex[index];
+    }
+
+    /**
+     * @return the indices of the parent vertices, aligned with {@link #getParentEdges(int)}
+     */
+    public int[] getParentIndices(int index) {
+        return m_parentIndicesByIndex[index];
+    }
+
     @Override
     public GraphVertex getVertexByBusinessServiceId(Long id) {
         return m_verticesByBusinessServiceId.get(id);
@@ -33,12 +33,34 @@ import org.opennms.netmgt.bsm.service.model.Status;
 public abstract class GraphElement {
 
     private Status m_status = Status.NORMAL;
+    private GraphStatusTable m_statusTable;
+    private int m_index = -1;
+
+    /**
+     * Reads and writes the status of this element from the given table from now on.
+     * The caller is responsible for copying the current status to the table.
+     */
+    void bind(GraphStatusTable statusTable, int index) {
+        m_statusTable = statusTable;
+        m_index = index;
+    }
+
+    /**
+     * @return the position of this element in the status table of its graph, -1 if not bound to a graph
+     */
+    public int getIndex() {
+        return m_index;
+    }
 
     public Status getStatus() {
-        return m_status;
+        return m_statusTable != null ? m_statusTable.get(m_index) : m_status;
     }
 
     public void setStatus(Status status) {
-        m_status = status;
+        if (m_statusTable != null) {
+            m_statusTable.set(m_index, status);
+        } else {
+            m_status = status;
+        }
     }
 }
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.bsm.service.model.graph.internal;
+
+import java.util.Arrays;
+
+import org.opennms.netmgt.bsm.service.model.Status;
+
+/**
+ * Holds the status of every vertex and edge of a graph in fixed-size pages which are
+ * replaced, never modified, when the statuses change.
+ *
+ * Readers always see a complete set of statuses without taking any lock. Writers
+ * collect their changes in an {@link Update}, which only copies the pages it touches,
+ * and make all of them visible at once with {@link Update#publish()}.
+ */
+public class GraphStatusTable {
+
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int m_size;
+    private volatile Status[][] m_pages;
+
+    public GraphStatusTable(int size) {
+        final Status[][] pages = new Status[(size + PAGE_MASK) >>> PAGE_BITS][];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = new Status[Math.min(PAGE_SIZE, size - (i << PAGE_BITS))];
+            Arrays.fill(pages[i], Status.NORMAL);
+        }
+        m_size = size;
+        m_pages = pages;
+    }
+
+    public Status get(int index) {
+        return m_pages[index >>> PAGE_BITS][index & PAGE_MASK];
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    /**
+     * Starts a new set of changes based on the current statuses.
+     * Changes made by other updates in the meantime are lost when this one is published.
+     */
+    public Update update() {
+        return new Update();
+    }
+
+    public synchronized void set(int index, Status status) {
+        final Update update = update();
+        update.set(index, status);
+        update.publish();
+    }
+
+    public class Update {
+        private final Status[][] m_updatedPages = m_pages.clone();
+        private final boolean[] m_copied = new boolean[m_updatedPages.length];
+
+        private Update() {
+        }
+
+        public Status get(int index) {
+            return m_updatedPages[index >>> PAGE_BITS][index & PAGE_MASK];
+        }
+
+        public void set(int index, Status status) {
+            final int page = index >>> PAGE_BITS;
+            if (!m_copied[page]) {
+                m_updatedPages[page] = m_updatedPages[page].clone();
+                m_copied[page] = true;
+            }
+            m_updatedPages[page][index & PAGE_MASK] = status;
+        }
+
+        public void publish() {
+            m_pages = m_updatedPages;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.bsm.service.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opennms.netmgt.bsm.mock.MockAlarmWrapper;
+import org.opennms.netmgt.bsm.mock.MockBusinessServiceHierarchy;
+import org.opennms.netmgt.bsm.service.model.AlarmWrapper;
+import org.opennms.netmgt.bsm.service.model.BusinessService;
+import org.opennms.netmgt.bsm.service.model.Status;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to measure how fast alarms are propagated through
+ * a hierarchy with {@link #TOP_LEVEL_SERVICES} * {@link #CHILD_SERVICES} * ({@link #REDUCTION_KEYS} + 1) edges.
+ * <p>
+ * Every benchmark method call sends a burst of {@link #BURST_SIZE} alarms, alternating between two severities
+ * so that every alarm changes the status of the graph.
+ */
+public class BusinessServiceStateMachineBenchmark {
+
+    private static final int TOP_LEVEL_SERVICES = 100;
+    private static final int CHILD_SERVICES = 100;
+    private static final int REDUCTION_KEYS = 9;
+    private static final int BURST_SIZE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        private DefaultBusinessServiceStateMachine stateMachine;
+        private List<String> reductionKeys;
+        private List<BusinessService> businessServices;
+        private int burst;
+
+        @Setup
+        public void setup() {
+            final MockBusinessServiceHierarchy.HierarchyBuilder builder = MockBusinessServiceHierarchy.builder();
+            reductionKeys = new ArrayList<>();
+            // Child edges use the id of the business service, so start the reduction key edges after those
+            long reductionKeyEdgeId = TOP_LEVEL_SERVICES * (CHILD_SERVICES + 1);
+            long businessServiceId = 0;
+            for (int i = 0; i < TOP_LEVEL_SERVICES; i++) {
+                final MockBusinessServiceHierarchy.HierarchyBuilder.BusinessServiceBuilder topLevel = builder.withBusinessService(++businessServiceId);
+                for (int j = 0; j < CHILD_SERVICES; j++) {
+                    final MockBusinessServiceHierarchy.HierarchyBuilder.BusinessServiceBuilder child = topLevel.withBusinessService(++businessServiceId);
+                    for (int k = 0; k < REDUCTION_KEYS; k++) {
+                        final String reductionKey = String.format("uei.opennms.org/bsm/benchmark::%d:%d", businessServiceId, k);
+                        child.withReductionKey(++reductionKeyEdgeId, reductionKey);
+                        reductionKeys.add(reductionKey);
+                    }
+                    child.commit();
+                }
+                topLevel.commit();
+            }
+            businessServices = builder.build().getBusinessServices();
+
+            stateMachine = new DefaultBusinessServiceStateMachine();
+            stateMachine.setBusinessServices(businessServices);
+        }
+
+        private List<AlarmWrapper> nextBurst() {
+            final Status status = burst++ % 2 == 0 ? Status.MAJOR : Status.MINOR;
+            final List<AlarmWrapper> alarms = new ArrayList<>(BURST_SIZE);
+            for (int i = 0; i < BURST_SIZE; i++) {
+                alarms.add(new MockAlarmWrapper(reductionKeys.get((i * 97 + burst) % reductionKeys.size()), status));
+            }
+            return alarms;
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void handleNewOrUpdatedAlarm(BState state) {
+        for (AlarmWrapper alarm : state.nextBurst()) {
+            state.stateMachine.handleNewOrUpdatedAlarm(alarm);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    @Group("readWhileUpdating")
+    @GroupThreads(1)
+    public void update(BState state) {
+        for (AlarmWrapper alarm : state.nextBurst()) {
+            state.stateMachine.handleNewOrUpdatedAlarm(alarm);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    @Group("readWhileUpdating")
+    @GroupThreads(3)
+    public void read(BState state, Blackhole blackhole) {
+        for (BusinessService businessService : state.businessServices) {
+            blackhole.consume(state.stateMachine.getOperationalStatus(businessService));
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void setBusinessServices(BState state) {
+        state.stateMachine.setBusinessServices(state.businessServices);
+    }
+}
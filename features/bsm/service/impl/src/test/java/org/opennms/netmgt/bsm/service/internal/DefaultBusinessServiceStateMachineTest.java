@@ -33,6 +33,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -156,6 +157,58 @@ public class DefaultBusinessServiceStateMachineTest {
         assertEquals(1, stateChangeHandler.getStateChanges().size());
     }
 
+    @Test
+    public void canPropagateABatchOfAlarms() {
+        // B1 depends on a1, a2 and B2, B2 depends on a3
+        MockBusinessServiceHierarchy h = MockBusinessServiceHierarchy.builder()
+                .withBusinessService(1)
+                    .withReductionKey(11, "a1")
+                    .withReductionKey(12, "a2")
+                    .withBusinessService(2)
+                        .withReductionKey(13, "a3")
+                        .commit()
+                    .commit()
+                .build();
+        BusinessService b1 = h.getBusinessServiceById(1);
+        BusinessService b2 = h.getBusinessServiceById(2);
+
+        // Setup the state machine
+        BusinessServiceStateMachine stateMachine = new DefaultBusinessServiceStateMachine();
+        LoggingStateChangeHandler stateChangeHandler = new LoggingStateChangeHandler();
+        stateMachine.addHandler(stateChangeHandler, Maps.newHashMap());
+        stateMachine.setBusinessServices(h.getBusinessServices());
+
+        // Apply all of the alarms at once
+        stateMachine.handleAllAlarms(Arrays.asList(
+                new MockAlarmWrapper("a1", Status.MINOR),
+                new MockAlarmWrapper("a2", Status.MAJOR),
+                new MockAlarmWrapper("a3", Status.CRITICAL)));
+        assertEquals(Status.MINOR, stateMachine.getOperationalStatus(h.getEdgeByReductionKey("a1")));
+        assertEquals(Status.MAJOR, stateMachine.getOperationalStatus(h.getEdgeByReductionKey("a2")));
+        assertEquals(Status.CRITICAL, stateMachine.getOperationalStatus(b2));
+        assertEquals(Status.CRITICAL, stateMachine.getOperationalStatus(b1));
+
+        // Every business service should have changed once, even though B1 has several changed children
+        assertEquals(2, stateChangeHandler.getStateChanges().size());
+        for (LoggingStateChangeHandler.StateChange stateChange : stateChangeHandler.getStateChanges()) {
+            assertEquals(Status.NORMAL, stateChange.getPrevSeverity());
+            assertEquals(Status.CRITICAL, stateChange.getNewSeverity());
+        }
+
+        // The same alarms again should not change anything
+        stateMachine.handleAllAlarms(Arrays.asList(
+                new MockAlarmWrapper("a1", Status.MINOR),
+                new MockAlarmWrapper("a2", Status.MAJOR),
+                new MockAlarmWrapper("a3", Status.CRITICAL)));
+        assertEquals(2, stateChangeHandler.getStateChanges().size());
+
+        // Clearing a3 lowers B2, and B1 to its next highest child
+        stateMachine.handleNewOrUpdatedAlarm(new MockAlarmWrapper("a3", Status.NORMAL));
+        assertEquals(Status.NORMAL, stateMachine.getOperationalStatus(b2));
+        assertEquals(Status.MAJOR, stateMachine.getOperationalStatus(b1));
+        assertEquals(4, stateChangeHandler.getStateChanges().size());
+    }
+
     @Test
     public void canPerformRootCauseAndImpactAnalysis() {
         // Create a hierarchy using all of the available reduction functions
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.bsm.service.model.graph.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.opennms.netmgt.bsm.service.model.Status;
+
+public class GraphStatusTableTest {
+
+    @Test
+    public void canCreateTablesOfAnySize() {
+        // Sizes around the page boundaries
+        for (int size : new int[] { 0, 1, 255, 256, 257, 1000 }) {
+            final GraphStatusTable table = new GraphStatusTable(size);
+            assertEquals(size, table.size());
+            verifyStatuses(table, Status.NORMAL);
+        }
+    }
+
+    @Test
+    public void changesAreOnlyVisibleOncePublished() {
+        final GraphStatusTable table = new GraphStatusTable(600);
+
+        final GraphStatusTable.Update update = table.update();
+        update.set(1, Status.MINOR);
+        update.set(300, Status.MAJOR);
+
+        // The update sees its own changes, the table does not
+        assertEquals(Status.MINOR, update.get(1));
+        assertEquals(Status.MAJOR, update.get(300));
+        verifyStatuses(table, Status.NORMAL);
+
+        update.publish();
+        assertEquals(Status.MINOR, table.get(1));
+        assertEquals(Status.MAJOR, table.get(300));
+        verifyStatuses(table, Status.NORMAL, 1, 300);
+    }
+
+    @Test
+    public void canCoalesceChangesToTheSameElement() {
+        final GraphStatusTable table = new GraphStatusTable(600);
+
+        final GraphStatusTable.Update update = table.update();
+        update.set(10, Status.WARNING);
+        update.set(10, Status.CRITICAL);
+        update.set(10, Status.MINOR);
+        // Neighbours on the same page
+        update.set(11, Status.MAJOR);
+        update.set(11, Status.NORMAL);
+        update.publish();
+
+        // Only the last change of every element remains
+        assertEquals(Status.MINOR, table.get(10));
+        verifyStatuses(table, Status.NORMAL, 10);
+    }
+
+    @Test
+    public void canUpdateElementsOnEveryPage() {
+        final GraphStatusTable table = new GraphStatusTable(600);
+
+        // The first and last element of every page, the last page being partial
+        final int[] indices = { 0, 255, 256, 511, 512, 599 };
+        final GraphStatusTable.Update update = table.update();
+        for (int index : indices) {
+            update.set(index, Status.CRITICAL);
+        }
+        update.publish();
+
+        for (int index : indices) {
+            assertEquals(Status.CRITICAL, table.get(index));
+        }
+        verifyStatuses(table, Status.NORMAL, indices);
+    }
+
+    @Test
+    public void publishedStatusesAreNotModifiedByLaterUpdates() {
+        final GraphStatusTable table = new GraphStatusTable(600);
+        table.set(1, Status.MAJOR);
+
+        // Change another element on the same page, and discard the update
+        final GraphStatusTable.Update discarded = table.update();
+        discarded.set(2, Status.CRITICAL);
+        discarded.set(1, Status.NORMAL);
+        assertEquals(Status.MAJOR, table.get(1));
+        verifyStatuses(table, Status.NORMAL, 1);
+
+        // A new update starts from the published statuses
+        final GraphStatusTable.Update update = table.update();
+        assertEquals(Status.MAJOR, update.get(1));
+        assertEquals(Status.NORMAL, update.get(2));
+        update.set(2, Status.MINOR);
+        update.publish();
+
+        assertEquals(Status.MAJOR, table.get(1));
+        assertEquals(Status.MINOR, table.get(2));
+        verifyStatuses(table, Status.NORMAL, 1, 2);
+    }
+
+    @Test
+    public void lastPublishedUpdateWins() {
+        final GraphStatusTable table = new GraphStatusTable(600);
+
+        final GraphStatusTable.Update first = table.update();
+        final GraphStatusTable.Update second = table.update();
+        first.set(1, Status.MINOR);
+        second.set(400, Status.MAJOR);
+        second.publish();
+        first.publish();
+
+        // The first update was based on the statuses from before the second one
+        assertEquals(Status.MINOR, table.get(1));
+        verifyStatuses(table, Status.NORMAL, 1);
+    }
+
+    /**
+     * Verifies that all of the elements of the table, except for the given ones, have the expected status.
+     */
+    private static void verifyStatuses(GraphStatusTable table, Status expected, int... except) {
+        final Set<Integer> exceptions = IntStream.of(except).boxed().collect(Collectors.toSet());
+        for (int i = 0; i < table.size(); i++) {
+            if (!exceptions.contains(i)) {
+                assertEquals("Status of element " + i, expected, table.get(i));
+            }
+        }
+    }
+}
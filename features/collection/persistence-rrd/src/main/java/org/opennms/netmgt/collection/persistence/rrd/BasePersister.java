@@ -39,6 +39,7 @@ import org.opennms.netmgt.collection.api.PersistException;
 import org.opennms.netmgt.collection.api.ServiceParameters;
 import org.opennms.netmgt.dao.api.ResourceStorageDao;
 import org.opennms.netmgt.model.ResourcePath;
+import org.opennms.netmgt.model.ResourceTypeUtils;
 import org.opennms.netmgt.rrd.RrdRepository;
 import org.opennms.netmgt.rrd.RrdStrategy;
 import org.slf4j.Logger;
@@ -57,6 +58,7 @@ public class BasePersister extends AbstractPersister {
     private final RrdStrategy<?, ?> m_rrdStrategy;
     protected final ResourceStorageDao m_resourceStorageDao;
     private boolean m_dontReorderAttributes = false;
+    private RrdPersistOperationBuilder m_rrdBuilder;
 
     /**
      * <p>Constructor for BasePersister.</p>
@@ -93,6 +95,21 @@ public class BasePersister extends AbstractPersister {
 
     protected void setBuilder(RrdPersistOperationBuilder builder) {
         super.setBuilder(builder);
+        m_rrdBuilder = builder;
+    }
+
+    /**
+     * Commits the current builder and notifies the {@link ResourceStorageDao} about
+     * the persisted metrics, so that it can keep its view of the resource tree current.
+     */
+    @Override
+    public void commitBuilder() {
+        final RrdPersistOperationBuilder builder = m_rrdBuilder;
+        m_rrdBuilder = null;
+        super.commitBuilder();
+        if (builder != null && builder.isPersisted()) {
+            m_resourceStorageDao.metricsPersisted(ResourceTypeUtils.getResourcePathWithRepository(getRepository(), builder.getResourcePath()), builder.getName());
+        }
     }
 
     @Override
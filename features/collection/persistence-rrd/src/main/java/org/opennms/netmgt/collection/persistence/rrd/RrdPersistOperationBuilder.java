@@ -71,6 +71,7 @@ public class RrdPersistOperationBuilder implements PersistOperationBuilder {
     private final Map<CollectionAttributeType, Number> m_declarations;
     private final Map<String, String> m_metaData = new LinkedHashMap<String, String>();
     private TimeKeeper m_timeKeeper = new DefaultTimeKeeper();
+    private boolean m_persisted = false;
 
     /** Constant <code>MAX_DS_NAME_LENGTH=19</code> */
     public static final int MAX_DS_NAME_LENGTH = 19;
@@ -209,6 +210,7 @@ public class RrdPersistOperationBuilder implements PersistOperationBuilder {
             if (dataSources != null && dataSources.size() > 0) {
                 createRRD(m_rrdStrategy, ownerName, absolutePath, m_rrdName, getRepository().getStep(), dataSources, getRepository().getRraList());
                 updateRRD(m_rrdStrategy, ownerName, absolutePath, m_rrdName, m_timeKeeper.getCurrentTime(), getValues());
+                m_persisted = true;
             }
         } catch (FileNotFoundException e) {
             LoggerFactory.getLogger(getClass()).warn("Could not get resource directory: " + e.getMessage(), e);
@@ -345,6 +347,20 @@ public class RrdPersistOperationBuilder implements PersistOperationBuilder {
         return m_rrdName;
     }
 
+    /**
+     * Returns the path of the resource, relative to the repository.
+     */
+    public ResourcePath getResourcePath() {
+        return m_resource.getPath();
+    }
+
+    /**
+     * Returns true once {@link #commit()} has written the values to the RRD file.
+     */
+    public boolean isPersisted() {
+        return m_persisted;
+    }
+
     /**
      * <p>getTimeKeeper</p>
      *
@@ -36,15 +36,20 @@ import java.util.Map;
 import java.util.Objects;
 
 import org.apache.commons.jexl2.ExpressionImpl;
-import org.apache.commons.jexl2.MapContext;
+import org.apache.commons.jexl2.JexlContext;
 import org.opennms.core.mate.api.EmptyScope;
 import org.opennms.core.mate.api.Interpolator;
 import org.opennms.core.mate.api.Scope;
+import org.opennms.core.sysprops.SystemProperties;
 import org.opennms.core.utils.jexl.OnmsJexlEngine;
 import org.opennms.netmgt.config.threshd.Expression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * 
  * @author <a href="mailto:agalue@opennms.org">Alejandro Galue</a>
@@ -54,13 +59,34 @@ import org.slf4j.LoggerFactory;
 public class ExpressionConfigWrapper extends BaseThresholdDefConfigWrapper {
     private static final Logger LOG = LoggerFactory.getLogger(ExpressionConfigWrapper.class);
 
+    /**
+     * Maximum number of compiled expressions kept per threshold. Expressions using meta-data may be interpolated
+     * differently for every resource, so the cache is bounded.
+     */
+    private static final int EXPRESSION_CACHE_SIZE = SystemProperties.getInteger("org.opennms.netmgt.threshd.expression_cache_size", 1000);
+
+    private static final String MATH = "math";
+    private static final String DATASOURCES = "datasources";
+    private static final MathBinding MATH_BINDING = new MathBinding();
+
     private final Expression m_expression;
-    private final Collection<String> m_datasources;
+    private final List<String> m_datasources;
+    private final String[] m_slots;
+    private final Map<String, Integer> m_slotsByName = new HashMap<>();
     private final OnmsJexlEngine jexlEngine;
+    private final Cache<String, org.apache.commons.jexl2.Expression> m_compiledExpressions;
 
     public ExpressionConfigWrapper(Expression expression) throws ThresholdExpressionException {
+        this(expression, EXPRESSION_CACHE_SIZE);
+    }
+
+    @VisibleForTesting
+    ExpressionConfigWrapper(Expression expression, int expressionCacheSize) throws ThresholdExpressionException {
         super(expression);
         m_expression = expression;
+        m_compiledExpressions = CacheBuilder.newBuilder()
+                .maximumSize(expressionCacheSize)
+                .build();
 
         jexlEngine = new OnmsJexlEngine();
         jexlEngine.white(HashMap.class.getName());
@@ -75,20 +101,28 @@ public class ExpressionConfigWrapper extends BaseThresholdDefConfigWrapper {
                     .createExpression(interpolateExpression(m_expression.getExpression(), EmptyScope.EMPTY));
             LOG.trace("List of Variables on the Expression: {}", e.getVariables());
             for (List<String> list : e.getVariables()) { // Requires JEXL 2.1.x
-                if (list.get(0).equalsIgnoreCase("math")) {
+                if (list.get(0).equalsIgnoreCase(MATH)) {
                     continue;
                 }
-                if (list.get(0).equalsIgnoreCase("datasources")) {
+                final String datasource;
+                if (list.get(0).equalsIgnoreCase(DATASOURCES)) {
                     // Include the internal parameter. See NMS-5019
-                    m_datasources.add(list.get(1).intern());
+                    datasource = list.get(1).intern();
                 } else {
                     // Include the first element, because datasources and math are the only composite elements
-                    m_datasources.add(list.get(0).intern());
+                    datasource = list.get(0).intern();
+                }
+                if (!m_datasources.contains(datasource)) {
+                    m_datasources.add(datasource);
                 }
             }
         } catch (Throwable e) {
             throw new ThresholdExpressionException("Could not parse threshold expression:" + e.getMessage(), e);
         }
+        m_slots = m_datasources.toArray(new String[0]);
+        for (int i = 0; i < m_slots.length; i++) {
+            m_slotsByName.put(m_slots[i], i);
+        }
         LOG.trace("Threshold Variables: {}", m_datasources);
     }
 
@@ -157,14 +191,17 @@ public class ExpressionConfigWrapper extends BaseThresholdDefConfigWrapper {
      * Evaluate given an already interpolated expression that contains no mate data.
      */
     public double evaluate(String expression, Map<String, Double> values) throws ThresholdExpressionException {
-        // Add all of the variable values to the script context
-        Map<String, Object> context = new HashMap<>(values);
-        context.put("datasources", new HashMap<>(values)); // To workaround NMS-5019
-        context.put("math", new MathBinding());
+        final Object[] slotValues = new Object[m_slots.length];
+        for (int i = 0; i < m_slots.length; i++) {
+            slotValues[i] = values.get(m_slots[i]);
+        }
+        return evaluate(expression, new SlotContext(slotValues, values));
+    }
+
+    private double evaluate(String expression, JexlContext context) throws ThresholdExpressionException {
         double result;
         try {
-            // Fetch an instance of the JEXL script engine to evaluate the script expression
-            Object resultObject = jexlEngine.createExpression(expression).evaluate(new MapContext(context));
+            Object resultObject = getCompiledExpression(expression).evaluate(context);
             result = Double.parseDouble(resultObject.toString());
         } catch (Throwable e) {
             throw new ThresholdExpressionException("Error while evaluating expression " + m_expression.getExpression() + ": " + e.getMessage(), e);
@@ -172,6 +209,92 @@ public class ExpressionConfigWrapper extends BaseThresholdDefConfigWrapper {
         return result;
     }
 
+    /**
+     * Compiled expressions are immutable and can be evaluated by multiple threads at once, so they are shared by all
+     * resources using the same interpolated expression.
+     */
+    private org.apache.commons.jexl2.Expression getCompiledExpression(String expression) {
+        org.apache.commons.jexl2.Expression compiled = m_compiledExpressions.getIfPresent(expression);
+        if (compiled == null) {
+            compiled = jexlEngine.createExpression(expression);
+            m_compiledExpressions.put(expression, compiled);
+        }
+        return compiled;
+    }
+
+    @VisibleForTesting
+    long getCompiledExpressionCount() {
+        return m_compiledExpressions.size();
+    }
+
+    /**
+     * Resolves the datasources of the expression from an array indexed by slot. Names that are not a slot of the
+     * expression fall back to the map of all values.
+     */
+    private final class SlotContext implements JexlContext {
+        private final Object[] m_values;
+        private final Map<String, Double> m_allValues;
+        private Map<String, Object> m_other;
+
+        private SlotContext(Object[] values, Map<String, Double> allValues) {
+            m_values = values;
+            m_allValues = allValues;
+        }
+
+        private int slotOf(String name) {
+            final Integer slot = m_slotsByName.get(name);
+            return slot != null ? slot : -1;
+        }
+
+        private Map<String, Object> other() {
+            if (m_other == null) {
+                m_other = new HashMap<>();
+                final Map<String, Object> datasources = new HashMap<>();
+                m_other.putAll(m_allValues);
+                datasources.putAll(m_allValues);
+                for (int i = 0; i < m_slots.length; i++) {
+                    if (m_values[i] != null) {
+                        datasources.put(m_slots[i], m_values[i]);
+                    }
+                }
+                m_other.put(DATASOURCES, datasources); // To workaround NMS-5019
+            }
+            return m_other;
+        }
+
+        @Override
+        public Object get(String name) {
+            final int slot = slotOf(name);
+            if (slot >= 0) {
+                return m_values[slot];
+            }
+            if (MATH.equals(name)) {
+                return MATH_BINDING;
+            }
+            return other().get(name);
+        }
+
+        @Override
+        public void set(String name, Object value) {
+            final int slot = slotOf(name);
+            if (slot >= 0) {
+                m_values[slot] = value;
+            } else {
+                other().put(name, value);
+            }
+        }
+
+        @Override
+        public boolean has(String name) {
+            final int slot = slotOf(name);
+            if (slot >= 0) {
+                // Datasources without a value are still defined in relaxed mode
+                return m_values[slot] != null || m_allValues.containsKey(m_slots[slot]);
+            }
+            return MATH.equals(name) || other().containsKey(name);
+        }
+    }
+
     /**
      * Evaluate with un-interpolated expression that may contain mate data, meaning we need to interpolate it first. The
      * interpolation should happen once here and future calls to evaluate should use the resulting interpolated value.
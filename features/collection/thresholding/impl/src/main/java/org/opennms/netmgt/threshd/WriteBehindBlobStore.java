@@ -0,0 +1,609 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.threshd;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.opennms.core.sysprops.SystemProperties;
+import org.opennms.features.distributed.kvstore.api.AbstractKeyValueStore;
+import org.opennms.features.distributed.kvstore.api.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.jmx.JmxReporter;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A write-behind {@link BlobStore} for the threshold evaluator state.
+ * <p>
+ * Writes and deletes are applied to an in-memory state table and coalesced per key, so only the latest value of a
+ * key is written to the delegate. Dirty entries are flushed in batches every {@link #FLUSH_INTERVAL_PROPERTY}
+ * milliseconds, or as soon as {@link #MAX_DIRTY_PROPERTY} keys are dirty. Reads are served from the table, which is
+ * loaded lazily from the delegate with a single bulk read per context.
+ * <p>
+ * The table holds at most {@link #MAX_ENTRIES_PROPERTY} entries. Beyond that, expired and then least recently used
+ * entries are dropped once they have been flushed, and keys missing from a context that lost entries this way are
+ * read from the delegate one by one. Entries written with a TTL expire in the table as they would in the delegate;
+ * values read from the delegate carry the time they were read as their last update.
+ * <p>
+ * The table assumes it is the only writer of the delegate, so write-behind must not be used when thresholding is
+ * distributed across several instances. With a flush interval of 0 (the default) all calls go straight to the
+ * delegate.
+ */
+public class WriteBehindBlobStore extends AbstractKeyValueStore<byte[]> implements BlobStore, Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindBlobStore.class);
+
+    public static final String FLUSH_INTERVAL_PROPERTY = "org.opennms.netmgt.threshd.write_behind.flush_interval";
+    public static final String MAX_DIRTY_PROPERTY = "org.opennms.netmgt.threshd.write_behind.max_dirty";
+    public static final String MAX_ENTRIES_PROPERTY = "org.opennms.netmgt.threshd.write_behind.max_entries";
+
+    private static final String JMX_DOMAIN = "org.opennms.netmgt.threshd.writebehind";
+
+    private final BlobStore delegate;
+    private final long flushIntervalMs;
+    private final int maxDirty;
+    private final int maxEntries;
+
+    private final Map<Key, Entry> table = new ConcurrentHashMap<>();
+    private final Map<Key, Entry> dirty = new ConcurrentHashMap<>();
+    /**
+     * Contexts whose keys are all in the table, so a miss means the key does not exist.
+     */
+    private final Set<String> loadedContexts = ConcurrentHashMap.newKeySet();
+    /**
+     * Contexts that could not be loaded in bulk or lost entries to eviction, so misses are read from the delegate.
+     */
+    private final Set<String> partialContexts = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Serializes flushes against each other and against truncating a context, so a flush can not write back a
+     * key that was truncated in the meantime.
+     */
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final AtomicBoolean evictionRequested = new AtomicBoolean(false);
+    private final ScheduledExecutorService flusher;
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final Histogram batchSize = metrics.histogram("batchSize");
+    private final Histogram flushLag = metrics.histogram("flushLag");
+    private final Meter flushFailures = metrics.meter("flushFailures");
+    private final Meter bulkLoads = metrics.meter("bulkLoads");
+    private final Meter evictions = metrics.meter("evictions");
+    private final JmxReporter reporter;
+
+    public WriteBehindBlobStore(BlobStore delegate) {
+        this(delegate, SystemProperties.getLong(FLUSH_INTERVAL_PROPERTY, 0L),
+                SystemProperties.getInteger(MAX_DIRTY_PROPERTY, 10000),
+                SystemProperties.getInteger(MAX_ENTRIES_PROPERTY, 100000), true);
+    }
+
+    @VisibleForTesting
+    WriteBehindBlobStore(BlobStore delegate, long flushIntervalMs, int maxDirty, int maxEntries, boolean exposeMetrics) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxDirty = Math.max(1, maxDirty);
+        this.maxEntries = Math.max(1, maxEntries);
+
+        metrics.register("dirty", (Gauge<Integer>) dirty::size);
+        metrics.register("entries", (Gauge<Integer>) table::size);
+
+        if (isEnabled()) {
+            LOG.info("Writing threshold state behind every {}ms or {} dirty keys, keeping at most {} keys.",
+                    flushIntervalMs, this.maxDirty, this.maxEntries);
+            flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("threshold-state-flusher")
+                    .setDaemon(true)
+                    .build());
+            flusher.scheduleWithFixedDelay(() -> {
+                flushQuietly();
+                evictQuietly();
+            }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+
+        if (isEnabled() && exposeMetrics) {
+            reporter = JmxReporter.forRegistry(metrics).inDomain(JMX_DOMAIN).build();
+            reporter.start();
+        } else {
+            reporter = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return flushIntervalMs > 0;
+    }
+
+    public MetricRegistry getMetrics() {
+        return metrics;
+    }
+
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    public int getEntryCount() {
+        return table.size();
+    }
+
+    @Override
+    public long put(String key, byte[] value, String context, Integer ttlInSeconds) {
+        if (!isEnabled()) {
+            return delegate.put(key, value, context, ttlInSeconds);
+        }
+
+        Objects.requireNonNull(value);
+        return markDirty(new Key(key, context), value, ttlInSeconds);
+    }
+
+    @Override
+    public Optional<byte[]> get(String key, String context) {
+        if (!isEnabled()) {
+            return delegate.get(key, context);
+        }
+
+        final Entry entry = lookup(new Key(key, context));
+        return entry == null ? Optional.empty() : Optional.of(entry.value);
+    }
+
+    @Override
+    public Optional<Optional<byte[]>> getIfStale(String key, String context, long timestamp) {
+        if (!isEnabled()) {
+            return delegate.getIfStale(key, context, timestamp);
+        }
+
+        final Entry entry = lookup(new Key(key, context));
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return entry.timestamp > timestamp ? Optional.of(Optional.of(entry.value)) : Optional.of(Optional.empty());
+    }
+
+    @Override
+    public OptionalLong getLastUpdated(String key, String context) {
+        if (!isEnabled()) {
+            return delegate.getLastUpdated(key, context);
+        }
+
+        final Entry entry = lookup(new Key(key, context));
+        return entry == null ? OptionalLong.empty() : OptionalLong.of(entry.timestamp);
+    }
+
+    @Override
+    public Map<String, byte[]> enumerateContext(String context) {
+        if (isEnabled()) {
+            flush();
+        }
+        return delegate.enumerateContext(context);
+    }
+
+    @Override
+    public void delete(String key, String context) {
+        if (!isEnabled()) {
+            delegate.delete(key, context);
+            return;
+        }
+
+        markDirty(new Key(key, context), null, null);
+    }
+
+    @Override
+    public void truncateContext(String context) {
+        if (!isEnabled()) {
+            delegate.truncateContext(context);
+            return;
+        }
+
+        synchronized (flushLock) {
+            dirty.keySet().removeIf(k -> k.context.equals(context));
+            table.keySet().removeIf(k -> k.context.equals(context));
+            delegate.truncateContext(context);
+            // Nothing is left for this context, so misses can be answered without asking the delegate
+            loadedContexts.add(context);
+            partialContexts.remove(context);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Long> putAsync(String key, byte[] value, String context, Integer ttlInSeconds) {
+        return isEnabled() ? completed(() -> put(key, value, context, ttlInSeconds))
+                : delegate.putAsync(key, value, context, ttlInSeconds);
+    }
+
+    @Override
+    public CompletableFuture<Optional<byte[]>> getAsync(String key, String context) {
+        return isEnabled() ? completed(() -> get(key, context)) : delegate.getAsync(key, context);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Optional<byte[]>>> getIfStaleAsync(String key, String context, long timestamp) {
+        return isEnabled() ? completed(() -> getIfStale(key, context, timestamp))
+                : delegate.getIfStaleAsync(key, context, timestamp);
+    }
+
+    @Override
+    public CompletableFuture<OptionalLong> getLastUpdatedAsync(String key, String context) {
+        return isEnabled() ? completed(() -> getLastUpdated(key, context)) : delegate.getLastUpdatedAsync(key, context);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, byte[]>> enumerateContextAsync(String context) {
+        return isEnabled() ? completed(() -> enumerateContext(context)) : delegate.enumerateContextAsync(context);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(String key, String context) {
+        return isEnabled() ? completed(() -> {
+            delete(key, context);
+            return null;
+        }) : delegate.deleteAsync(key, context);
+    }
+
+    @Override
+    public CompletableFuture<Void> truncateContextAsync(String context) {
+        return isEnabled() ? completed(() -> {
+            truncateContext(context);
+            return null;
+        }) : delegate.truncateContextAsync(context);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    /**
+     * Writes all dirty entries to the delegate and waits for the writes to complete. Entries that could not be
+     * written stay dirty and are retried with the next flush, unless they have been updated in the meantime.
+     * Values are written with the remaining part of their TTL, and values that expired before they were flushed
+     * are deleted instead.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            final List<Map.Entry<Key, Entry>> batch = new ArrayList<>(dirty.size());
+            for (final Map.Entry<Key, Entry> e : dirty.entrySet()) {
+                if (dirty.remove(e.getKey(), e.getValue())) {
+                    batch.add(e);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            final long now = System.currentTimeMillis();
+            long oldest = now;
+            final CompletableFuture<?>[] writes = new CompletableFuture<?>[batch.size()];
+            for (int i = 0; i < writes.length; i++) {
+                final Key key = batch.get(i).getKey();
+                final Entry entry = batch.get(i).getValue();
+                oldest = Math.min(oldest, entry.dirtySince);
+                final boolean deleting = entry.isDeleted() || entry.isExpired(now);
+                writes[i] = write(key, entry, now).handle((res, ex) -> {
+                    if (ex != null) {
+                        LOG.warn("Failed to write threshold state for key {} in context {}.", key.key, key.context, ex);
+                        flushFailures.mark();
+                        dirty.putIfAbsent(key, entry);
+                    } else if (deleting) {
+                        table.remove(key, entry);
+                    }
+                    return null;
+                });
+            }
+            batchSize.update(batch.size());
+            flushLag.update(now - oldest);
+
+            CompletableFuture.allOf(writes).join();
+        }
+    }
+
+    /**
+     * Drops expired entries and, while the table holds more than {@link #MAX_ENTRIES_PROPERTY} entries, the least
+     * recently used ones down to 90% of the limit. Dirty entries are kept until they have been flushed.
+     */
+    public void evict() {
+        final long now = System.currentTimeMillis();
+        final List<Map.Entry<Key, Entry>> candidates = new ArrayList<>();
+        for (final Map.Entry<Key, Entry> e : table.entrySet()) {
+            if (isDirty(e.getKey(), e.getValue())) {
+                continue;
+            }
+            if (e.getValue().isExpired(now)) {
+                // The delegate expired the key as well, so the context stays complete
+                table.remove(e.getKey(), e.getValue());
+            } else {
+                candidates.add(e);
+            }
+        }
+
+        if (table.size() <= maxEntries) {
+            return;
+        }
+        final int excess = table.size() - (maxEntries - maxEntries / 10);
+        candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        final List<Map.Entry<Key, Entry>> victims = candidates.subList(0, Math.min(excess, candidates.size()));
+
+        // Mark the contexts before dropping their keys, so a concurrent miss is never taken for a missing key
+        final Set<String> contexts = new HashSet<>();
+        victims.forEach(e -> contexts.add(e.getKey().context));
+        for (final String context : contexts) {
+            partialContexts.add(context);
+            loadedContexts.remove(context);
+        }
+
+        int evicted = 0;
+        for (final Map.Entry<Key, Entry> e : victims) {
+            if (table.remove(e.getKey(), e.getValue())) {
+                evicted++;
+            }
+        }
+        evictions.mark(evicted);
+        LOG.debug("Evicted {} threshold states, {} left.", evicted, table.size());
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flushQuietly();
+        }
+        if (reporter != null) {
+            reporter.stop();
+        }
+    }
+
+    private CompletableFuture<?> write(Key key, Entry entry, long now) {
+        try {
+            return entry.isDeleted() || entry.isExpired(now) ? delegate.deleteAsync(key.key, key.context)
+                    : delegate.putAsync(key.key, entry.value, key.context, entry.remainingTtl(now));
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+    }
+
+    private long markDirty(Key key, byte[] value, Integer ttl) {
+        final long now = System.currentTimeMillis();
+        final Entry previous = dirty.get(key);
+        final Entry entry = new Entry(value, now, ttl, previous != null ? previous.dirtySince : now);
+        table.put(key, entry);
+        dirty.put(key, entry);
+
+        if (dirty.size() >= maxDirty && !flusher.isShutdown() && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+                evictQuietly();
+            });
+        } else {
+            requestEvictionIfFull();
+        }
+        return now;
+    }
+
+    /**
+     * Returns the live entry of the key, or {@code null} if the key is deleted, expired or does not exist.
+     */
+    private Entry lookup(Key key) {
+        final long now = System.currentTimeMillis();
+        Entry entry = table.get(key);
+        if (entry != null) {
+            return live(key, entry, now);
+        }
+
+        if (!loadedContexts.contains(key.context) && !partialContexts.contains(key.context)) {
+            load(key.context);
+            entry = table.get(key);
+            if (entry != null) {
+                return live(key, entry, now);
+            }
+        }
+
+        if (loadedContexts.contains(key.context)) {
+            return null;
+        }
+
+        // The context is not complete in the table, fall back to reading the key alone
+        final Optional<byte[]> value = delegate.get(key.key, key.context);
+        if (!value.isPresent()) {
+            return null;
+        }
+        final Entry loaded = new Entry(value.get(), now, null, 0);
+        final Entry existing = table.putIfAbsent(key, loaded);
+        if (existing != null) {
+            return live(key, existing, now);
+        }
+        requestEvictionIfFull();
+        return loaded;
+    }
+
+    private Entry live(Key key, Entry entry, long now) {
+        if (entry.isDeleted()) {
+            return null;
+        }
+        if (entry.isExpired(now)) {
+            // Dirty entries are deleted from the delegate with the next flush
+            if (!isDirty(key, entry)) {
+                table.remove(key, entry);
+            }
+            return null;
+        }
+        entry.lastAccess = now;
+        return entry;
+    }
+
+    private boolean isDirty(Key key, Entry entry) {
+        return dirty.get(key) == entry;
+    }
+
+    private synchronized void load(String context) {
+        if (loadedContexts.contains(context) || partialContexts.contains(context)) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final Map<String, byte[]> values;
+        try {
+            values = delegate.enumerateContext(context);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to load threshold state for context {} in bulk. Falling back to reading single keys.", context, e);
+            partialContexts.add(context);
+            return;
+        }
+
+        // Keep anything written locally before the load completed
+        values.forEach((k, v) -> table.putIfAbsent(new Key(k, context), new Entry(v, now, null, 0)));
+        loadedContexts.add(context);
+        bulkLoads.mark();
+        LOG.debug("Loaded {} threshold states for context {}.", values.size(), context);
+        requestEvictionIfFull();
+    }
+
+    private void requestEvictionIfFull() {
+        if (table.size() > maxEntries && !flusher.isShutdown() && evictionRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                evictionRequested.set(false);
+                evictQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to flush threshold state.", e);
+        }
+    }
+
+    private void evictQuietly() {
+        try {
+            evict();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to evict threshold state.", e);
+        }
+    }
+
+    private static <T> CompletableFuture<T> completed(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.completedFuture(supplier.get());
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable t) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+
+    private static final class Key {
+        private final String key;
+        private final String context;
+
+        private Key(String key, String context) {
+            this.key = Objects.requireNonNull(key);
+            this.context = Objects.requireNonNull(context);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) o;
+            return key.equals(that.key) && context.equals(that.context);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + context.hashCode();
+        }
+    }
+
+    /**
+     * A value in the state table. A {@code null} value marks a deleted key that has not been flushed yet. Values
+     * read from the delegate carry no TTL, since the delegate expires them on its own.
+     */
+    private static final class Entry {
+        private final byte[] value;
+        private final long timestamp;
+        private final long expiresAt;
+        private final long dirtySince;
+        private volatile long lastAccess;
+
+        private Entry(byte[] value, long timestamp, Integer ttl, long dirtySince) {
+            this.value = value;
+            this.timestamp = timestamp;
+            this.expiresAt = ttl != null && ttl > 0 ? timestamp + TimeUnit.SECONDS.toMillis(ttl) : Long.MAX_VALUE;
+            this.dirtySince = dirtySince;
+            this.lastAccess = timestamp;
+        }
+
+        private boolean isDeleted() {
+            return value == null;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+
+        private Integer remainingTtl(long now) {
+            if (expiresAt == Long.MAX_VALUE) {
+                return null;
+            }
+            // Round up, so the delegate never expires the value before the table does
+            return (int) ((expiresAt - now + 999) / 1000);
+        }
+    }
+}
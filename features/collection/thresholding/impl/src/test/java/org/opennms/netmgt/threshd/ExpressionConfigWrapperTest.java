@@ -179,4 +179,42 @@ public class ExpressionConfigWrapperTest {
         values.put("ifSpeed", 10.0);
         Assert.assertEquals(160.0, wrapper.interpolateAndEvaluate(values, scope).value, 0.0);
     }
+
+    @Test
+    public void testRelaxedModeWithMissingDatasource() throws Exception {
+        Expression exp = new Expression();
+        exp.setRelaxed(true);
+        exp.setExpression("ifHCInOctets == null ? ifInOctets * 8 : ifHCInOctets * 8");
+        ExpressionConfigWrapper wrapper = new ExpressionConfigWrapper(exp);
+        Assert.assertEquals(2, wrapper.getRequiredDatasources().size());
+
+        // In relaxed mode, missing datasources are passed as null
+        Map<String, Double> values = new HashMap<String,Double>();
+        values.put("ifHCInOctets", null);
+        values.put("ifInOctets", 100.0);
+        Assert.assertEquals(800.0, wrapper.interpolateAndEvaluate(values, scope).value, 0.0);
+
+        values.put("ifHCInOctets", 200.0);
+        Assert.assertEquals(1600.0, wrapper.interpolateAndEvaluate(values, scope).value, 0.0);
+    }
+
+    @Test
+    public void testCompiledExpressionsAreCached() throws Exception {
+        Expression exp = new Expression();
+        exp.setExpression("data * ${requisition:testMultiplier|1}");
+        ExpressionConfigWrapper wrapper = new ExpressionConfigWrapper(exp, 2);
+        Map<String, Double> values = new HashMap<String,Double>();
+        values.put("data", 10.0);
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(1000.0, wrapper.interpolateAndEvaluate(values, scope).value, 0.0);
+        }
+        Assert.assertEquals(1, wrapper.getCompiledExpressionCount());
+
+        // The cache is bounded
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(10.0 * i, wrapper.evaluate("data * " + i, values), 0.0);
+        }
+        Assert.assertTrue(wrapper.getCompiledExpressionCount() <= 2);
+    }
 }
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.netmgt.threshd;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opennms.netmgt.config.threshd.Expression;
+import org.opennms.netmgt.config.threshd.Threshold;
+import org.opennms.netmgt.config.threshd.ThresholdType;
+import org.opennms.netmgt.threshd.ThresholdEvaluatorHighLow.ThresholdEvaluatorStateHighLow;
+import org.opennms.netmgt.threshd.ThresholdEvaluatorRelativeChange.ThresholdEvaluatorStateRelativeChange;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to measure threshold evaluation.
+ * <p>
+ * Every benchmark method call evaluates one threshold against all {@link #RESOURCES} resources, so the reported
+ * number of operations per second must be multiplied by {@link #RESOURCES} to get the number of evaluations per
+ * second. Expressions are evaluated by compiling them for every evaluation (as done before compiled expressions
+ * were cached), and from the cache.
+ */
+public class ThresholdEvaluationBenchmark {
+
+    private static final int RESOURCES = 100000;
+
+    private static final String EXPRESSION = "ifHighSpeed > 0 ? ((ifHCInOctets * 8) / (ifHighSpeed * 1000000)) * 100 : 0";
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        private ThresholdEvaluatorState[] highLowStates;
+        private ThresholdEvaluatorState[] relativeChangeStates;
+        private ExpressionConfigWrapper uncachedExpression;
+        private ExpressionConfigWrapper cachedExpression;
+        private double[] dsValues;
+        private Map<String, Double>[] valueMaps;
+
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void setup() throws Exception {
+            final Random random = new Random(1234L);
+
+            final ThresholdConfigWrapper highLow = new ThresholdConfigWrapper(threshold(ThresholdType.HIGH, "90.0", "80.0"));
+            final ThresholdConfigWrapper relativeChange = new ThresholdConfigWrapper(threshold(ThresholdType.RELATIVE_CHANGE, "1.5", "0.5"));
+            highLowStates = new ThresholdEvaluatorState[RESOURCES];
+            relativeChangeStates = new ThresholdEvaluatorState[RESOURCES];
+            dsValues = new double[RESOURCES];
+            for (int i = 0; i < RESOURCES; i++) {
+                highLowStates[i] = new ThresholdEvaluatorStateHighLow(highLow, MockSession.getSession());
+                relativeChangeStates[i] = new ThresholdEvaluatorStateRelativeChange(relativeChange, MockSession.getSession());
+                dsValues[i] = random.nextDouble() * 100.0;
+            }
+
+            final Expression expression = new Expression();
+            expression.setExpression(EXPRESSION);
+            uncachedExpression = new ExpressionConfigWrapper(expression, 0);
+            cachedExpression = new ExpressionConfigWrapper(expression);
+
+            valueMaps = new Map[RESOURCES];
+            for (int i = 0; i < RESOURCES; i++) {
+                final Map<String, Double> values = new HashMap<>();
+                values.put("ifHCInOctets", random.nextDouble() * 1.0e9);
+                values.put("ifHighSpeed", random.nextBoolean() ? 1000.0 : 10000.0);
+                valueMaps[i] = values;
+            }
+        }
+
+        private static Threshold threshold(ThresholdType type, String value, String rearm) {
+            final Threshold threshold = new Threshold();
+            threshold.setType(type);
+            threshold.setDsName("ds-name");
+            threshold.setDsType("node");
+            threshold.setValue(value);
+            threshold.setRearm(rearm);
+            threshold.setTrigger("3");
+            return threshold;
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void highLow(BState state, Blackhole blackhole) {
+        for (int i = 0; i < RESOURCES; i++) {
+            blackhole.consume(state.highLowStates[i].evaluate(state.dsValues[i]));
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void relativeChange(BState state, Blackhole blackhole) {
+        for (int i = 0; i < RESOURCES; i++) {
+            blackhole.consume(state.relativeChangeStates[i].evaluate(state.dsValues[i]));
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void expressionUncached(BState state, Blackhole blackhole) throws ThresholdExpressionException {
+        for (int i = 0; i < RESOURCES; i++) {
+            blackhole.consume(state.uncachedExpression.evaluate(EXPRESSION, state.valueMaps[i]));
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void expressionCached(BState state, Blackhole blackhole) throws ThresholdExpressionException {
+        for (int i = 0; i < RESOURCES; i++) {
+            blackhole.consume(state.cachedExpression.evaluate(EXPRESSION, state.valueMaps[i]));
+        }
+    }
+}
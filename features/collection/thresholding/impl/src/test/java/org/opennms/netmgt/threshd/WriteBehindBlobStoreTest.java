@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.threshd;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.features.distributed.kvstore.blob.inmemory.InMemoryMapBlobStore;
+
+public class WriteBehindBlobStoreTest {
+    private static final String CONTEXT = "thresholding";
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+    private static final int UNBOUNDED = 100000;
+
+    private CountingBlobStore delegate;
+    private WriteBehindBlobStore store;
+
+    @Before
+    public void setUp() {
+        delegate = new CountingBlobStore();
+    }
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void shouldCoalesceWritesUntilFlushed() {
+        store = new WriteBehindBlobStore(delegate, NEVER, 1000, UNBOUNDED, false);
+
+        for (int i = 0; i < 10; i++) {
+            store.put("a", new byte[]{(byte) i}, CONTEXT);
+            store.put("b", new byte[]{(byte) i}, CONTEXT);
+        }
+        assertEquals(0, delegate.puts.get());
+        assertArrayEquals(new byte[]{9}, store.get("a", CONTEXT).get());
+        assertEquals(2, store.getDirtyCount());
+
+        store.flush();
+        assertEquals(2, delegate.puts.get());
+        assertEquals(0, store.getDirtyCount());
+        assertArrayEquals(new byte[]{9}, delegate.get("a", CONTEXT).get());
+        assertEquals(1, store.getMetrics().histogram("batchSize").getCount());
+    }
+
+    @Test
+    public void shouldLoadContextInBulk() {
+        delegate.put("a", new byte[]{1}, CONTEXT);
+        delegate.put("b", new byte[]{2}, CONTEXT);
+        store = new WriteBehindBlobStore(delegate, NEVER, 1000, UNBOUNDED, false);
+
+        assertArrayEquals(new byte[]{1}, store.get("a", CONTEXT).get());
+        assertArrayEquals(new byte[]{2}, store.get("b", CONTEXT).get());
+        assertFalse(store.get("c", CONTEXT).isPresent());
+        assertEquals(1, delegate.enumerations.get());
+        assertEquals(0, delegate.gets.get());
+    }
+
+    @Test
+    public void shouldAnswerStaleChecksFromTable() {
+        store = new WriteBehindBlobStore(delegate, NEVER, 1000, UNBOUNDED, false);
+
+        final long timestamp = store.put("a", new byte[]{1}, CONTEXT);
+        assertFalse(store.getIfStale("a", CONTEXT, timestamp).get().isPresent());
+        assertArrayEquals(new byte[]{1}, store.getIfStale("a", CONTEXT, timestamp - 1).get().get());
+        assertFalse(store.getIfStale("b", CONTEXT, timestamp).isPresent());
+    }
+
+    @Test
+    public void shouldRecordTimestampOfLoadedEntries() {
+        delegate.put("a", new byte[]{1}, CONTEXT);
+        store = new WriteBehindBlobStore(delegate, NEVER, 1000, UNBOUNDED, false);
+
+        final long before = System.currentTimeMillis();
+        final long lastUpdated = store.getLastUpdated("a", CONTEXT).getAsLong();
+        assertTrue(lastUpdated >= before);
+        assertFalse(store.getIfStale("a", CONTEXT, lastUpdated).get().isPresent());
+        assertEquals(0, delegate.lastUpdates.get());
+        assertEquals(0, delegate.gets.get());
+    }
+
+    @Test
+    public void shouldExpireEntriesWithTtl() {
+        store = new WriteBehindBlobStore(delegate, NEVER, 1000, UNBOUNDED, false);
+
+        store.put("a", new byte[]{1}, CONTEXT, 1);
+        store.put("b", new byte[]{2}, CONTEXT, 3600);
+        assertTrue(store.get("a", CONTEXT).isPresent());
+        await().atMost(10, TimeUnit.SECONDS).until(() -> store.get("a", CONTEXT).isPresent(), equalTo(false));
+        assertFalse(store.getLastUpdated("a", CONTEXT).isPresent());
+
+        store.flush();
+        assertFalse(delegate.get("a", CONTEXT).isPresent());
+        assertEquals(1, delegate.puts.get());
+        assertTrue(delegate.lastTtl > 3590 && delegate.lastTtl <= 3600);
+        assertTrue(store.get("b", CONTEXT).isPresent());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedFlushedEntries() throws InterruptedException {
+        store = new WriteBehindBlobStore(delegate, NEVER, 1000, 10, false);
+
+        for (int i = 0; i < 15; i++) {
+            store.put("key" + i, new byte[]{(byte) i}, CONTEXT);
+        }
+        // Dirty entries are kept until they have been written
+        store.evict();
+        assertEquals(15, store.getEntryCount());
+
+        store.flush();
+        Thread.sleep(10);
+        assertTrue(store.get("key0", CONTEXT).isPresent());
+        store.evict();
+        assertTrue(store.getEntryCount() <= 9);
+
+        // Recently used keys stay in the table, evicted keys and misses are read from the delegate alone
+        assertArrayEquals(new byte[]{0}, store.get("key0", CONTEXT).get());
+        assertEquals(0, delegate.gets.get());
+        assertArrayEquals(new byte[]{1}, store.get("key1", CONTEXT).get());
+        assertEquals(1, delegate.gets.get());
+        assertFalse(store.get("missing", CONTEXT).isPresent());
+        assertEquals(2, delegate.gets.get());
+        assertEquals(0, delegate.enumerations.get());
+    }
+
+    @Test
+    public void shouldNotResurrectDeletedKeys() {
+        delegate.put("a", new byte[]{1}, CONTEXT);
+        store = new WriteBehindBlobStore(delegate, NEVER, 1000, UNBOUNDED, false);
+        assertTrue(store.get("a", CONTEXT).isPresent());
+
+        store.delete("a", CONTEXT);
+        assertFalse(store.get("a", CONTEXT).isPresent());
+        assertTrue(delegate.get("a", CONTEXT).isPresent());
+
+        store.flush();
+        assertFalse(delegate.get("a", CONTEXT).isPresent());
+        assertFalse(store.get("a", CONTEXT).isPresent());
+
+        store.put("b", new byte[]{2}, CONTEXT);
+        store.truncateContext(CONTEXT);
+        store.flush();
+        assertFalse(store.get("b", CONTEXT).isPresent());
+        assertTrue(delegate.enumerateContext(CONTEXT).isEmpty());
+    }
+
+    @Test
+    public void shouldFlushAtDirtyLimit() {
+        store = new WriteBehindBlobStore(delegate, NEVER, 5, UNBOUNDED, false);
+
+        for (int i = 0; i < 5; i++) {
+            store.put("key" + i, new byte[]{(byte) i}, CONTEXT);
+        }
+        await().atMost(10, TimeUnit.SECONDS).until(() -> delegate.puts.get(), equalTo(5));
+    }
+
+    @Test
+    public void shouldRetryFailedWrites() {
+        store = new WriteBehindBlobStore(delegate, NEVER, 1000, UNBOUNDED, false);
+        store.put("a", new byte[]{1}, CONTEXT);
+
+        delegate.fail = true;
+        store.flush();
+        assertEquals(1, store.getDirtyCount());
+        assertEquals(1, store.getMetrics().meter("flushFailures").getCount());
+
+        delegate.fail = false;
+        store.flush();
+        assertEquals(0, store.getDirtyCount());
+        assertArrayEquals(new byte[]{1}, delegate.get("a", CONTEXT).get());
+    }
+
+    @Test
+    public void shouldPassThroughWhenDisabled() {
+        store = new WriteBehindBlobStore(delegate, 0, 1000, UNBOUNDED, false);
+        assertFalse(store.isEnabled());
+
+        store.put("a", new byte[]{1}, CONTEXT);
+        assertEquals(1, delegate.puts.get());
+        assertArrayEquals(new byte[]{1}, store.get("a", CONTEXT).get());
+        assertEquals(1, delegate.gets.get());
+    }
+
+    /**
+     * Counts the calls that reach the delegate. The in-memory store is not thread safe, so the calls are
+     * serialized.
+     */
+    private static class CountingBlobStore extends InMemoryMapBlobStore {
+        private final AtomicInteger puts = new AtomicInteger();
+        private final AtomicInteger gets = new AtomicInteger();
+        private final AtomicInteger enumerations = new AtomicInteger();
+        private final AtomicInteger lastUpdates = new AtomicInteger();
+        private volatile Integer lastTtl;
+        private volatile boolean fail = false;
+
+        private CountingBlobStore() {
+            super(System::currentTimeMillis);
+        }
+
+        @Override
+        public synchronized long put(String key, byte[] value, String context, Integer ttlInSeconds) {
+            if (fail) {
+                throw new IllegalStateException("unavailable");
+            }
+            puts.incrementAndGet();
+            lastTtl = ttlInSeconds;
+            return super.put(key, value, context, ttlInSeconds);
+        }
+
+        @Override
+        public synchronized OptionalLong getLastUpdated(String key, String context) {
+            lastUpdates.incrementAndGet();
+            return super.getLastUpdated(key, context);
+        }
+
+        @Override
+        public synchronized Optional<byte[]> get(String key, String context) {
+            gets.incrementAndGet();
+            return super.get(key, context);
+        }
+
+        @Override
+        public synchronized Map<String, byte[]> enumerateContext(String context) {
+            enumerations.incrementAndGet();
+            return super.enumerateContext(context);
+        }
+
+        @Override
+        public synchronized void delete(String key, String context) {
+            super.delete(key, context);
+        }
+    }
+}
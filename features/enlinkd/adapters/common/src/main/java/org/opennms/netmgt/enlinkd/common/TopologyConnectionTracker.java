@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.enlinkd.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.opennms.netmgt.enlinkd.service.api.TopologyConnection;
+import org.opennms.netmgt.enlinkd.service.api.TopologyConnectionDelta;
+
+/**
+ * Keeps the matched connections of a protocol between topology runs.
+ * <p>
+ * The first update takes the complete list of connections, every later update only applies the
+ * delta of the incremental match. The deltas are handed out once, so the tracker has to be the only
+ * consumer of the match of its topology service.
+ *
+ * @param <L> the link type
+ */
+public class TopologyConnectionTracker<L> {
+
+    private final Function<L, Integer> m_linkId;
+    private final Map<Integer, TopologyConnection<L, L>> m_connections = new TreeMap<>();
+    private boolean m_initialized = false;
+
+    public TopologyConnectionTracker(Function<L, Integer> linkId) {
+        m_linkId = Objects.requireNonNull(linkId);
+    }
+
+    /**
+     * @param match supplies all connections, used for the first update
+     * @param matchDelta supplies the connections changed since the last match
+     * @return all connections, ordered by the id of the source link
+     */
+    public synchronized List<TopologyConnection<L, L>> update(Supplier<List<TopologyConnection<L, L>>> match,
+                                                              Supplier<TopologyConnectionDelta<L, L>> matchDelta) {
+        if (!m_initialized) {
+            for (TopologyConnection<L, L> connection : match.get()) {
+                m_connections.put(m_linkId.apply(connection.getLeft()), connection);
+            }
+            m_initialized = true;
+        } else {
+            final TopologyConnectionDelta<L, L> delta = matchDelta.get();
+            for (TopologyConnection<L, L> connection : delta.getRemoved()) {
+                final Integer left = m_linkId.apply(connection.getLeft());
+                final TopologyConnection<L, L> current = m_connections.get(left);
+                if (current != null && m_linkId.apply(current.getRight()).equals(m_linkId.apply(connection.getRight()))) {
+                    m_connections.remove(left);
+                }
+            }
+            for (TopologyConnection<L, L> connection : delta.getAdded()) {
+                m_connections.put(m_linkId.apply(connection.getLeft()), connection);
+            }
+            for (TopologyConnection<L, L> connection : delta.getUpdated()) {
+                m_connections.put(m_linkId.apply(connection.getLeft()), connection);
+            }
+        }
+        return new ArrayList<>(m_connections.values());
+    }
+}
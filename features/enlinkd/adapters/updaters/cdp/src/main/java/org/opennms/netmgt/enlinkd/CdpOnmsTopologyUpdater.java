@@ -30,6 +30,7 @@ package org.opennms.netmgt.enlinkd;
 
 import java.util.Map;
 
+import org.opennms.netmgt.enlinkd.common.TopologyConnectionTracker;
 import org.opennms.netmgt.enlinkd.common.TopologyUpdater;
 import org.opennms.netmgt.enlinkd.model.CdpElementTopologyEntity;
 import org.opennms.netmgt.enlinkd.model.CdpLinkTopologyEntity;
@@ -70,6 +71,7 @@ public class CdpOnmsTopologyUpdater extends TopologyUpdater {
     }
     
     private final CdpTopologyService m_cdpTopologyService;
+    private final TopologyConnectionTracker<CdpLinkTopologyEntity> m_connections = new TopologyConnectionTracker<>(CdpLinkTopologyEntity::getId);
 
     public CdpOnmsTopologyUpdater(
             OnmsTopologyDao topologyDao, CdpTopologyService cdpTopologyService, NodeTopologyService nodeTopologyService) {
@@ -92,7 +94,7 @@ public class CdpOnmsTopologyUpdater extends TopologyUpdater {
             topology.getVertices().add(create(nodeMap.get(element.getNodeId()),ipMap.get(element.getNodeId())));
         }
         
-        for(TopologyConnection<CdpLinkTopologyEntity, CdpLinkTopologyEntity> pair : m_cdpTopologyService.match()) {
+        for(TopologyConnection<CdpLinkTopologyEntity, CdpLinkTopologyEntity> pair : m_connections.update(m_cdpTopologyService::match, m_cdpTopologyService::matchDelta)) {
             topology.getEdges().add(
                 OnmsTopologyEdge.create(
                         Topology.getDefaultEdgeId(pair.getLeft().getId(), pair.getRight().getId()),
@@ -30,6 +30,7 @@ package org.opennms.netmgt.enlinkd;
 
 import java.util.Map;
 
+import org.opennms.netmgt.enlinkd.common.TopologyConnectionTracker;
 import org.opennms.netmgt.enlinkd.common.TopologyUpdater;
 import org.opennms.netmgt.enlinkd.model.IpInterfaceTopologyEntity;
 import org.opennms.netmgt.enlinkd.model.IsIsElementTopologyEntity;
@@ -77,6 +78,7 @@ public class IsisOnmsTopologyUpdater extends TopologyUpdater {
 
 
     private final IsisTopologyService m_isisTopologyService;
+    private final TopologyConnectionTracker<IsIsLinkTopologyEntity> m_connections = new TopologyConnectionTracker<>(IsIsLinkTopologyEntity::getId);
 
     public IsisOnmsTopologyUpdater(
             OnmsTopologyDao topologyDao, IsisTopologyService isisTopologyService, NodeTopologyService nodeTopologyService) {
@@ -100,7 +102,7 @@ public class IsisOnmsTopologyUpdater extends TopologyUpdater {
             topology.getVertices().add(create(nodeMap.get(element.getNodeId()),ipMap.get(element.getNodeId())));
         }
         
-    for(TopologyConnection<IsIsLinkTopologyEntity, IsIsLinkTopologyEntity> pair : m_isisTopologyService.match()){
+    for(TopologyConnection<IsIsLinkTopologyEntity, IsIsLinkTopologyEntity> pair : m_connections.update(m_isisTopologyService::match, m_isisTopologyService::matchDelta)){
         topology.getEdges().add(
                                 OnmsTopologyEdge.create(
                                                             Topology.getDefaultEdgeId(pair.getLeft().getId(), pair.getRight().getId()),
@@ -31,6 +31,7 @@ package org.opennms.netmgt.enlinkd;
 import java.util.Map;
 
 import org.opennms.core.utils.LldpUtils;
+import org.opennms.netmgt.enlinkd.common.TopologyConnectionTracker;
 import org.opennms.netmgt.enlinkd.common.TopologyUpdater;
 import org.opennms.netmgt.enlinkd.model.IpInterfaceTopologyEntity;
 import org.opennms.netmgt.enlinkd.model.LldpElementTopologyEntity;
@@ -85,6 +86,7 @@ public class LldpOnmsTopologyUpdater extends TopologyUpdater {
     }
 
     private final LldpTopologyService m_lldpTopologyService;
+    private final TopologyConnectionTracker<LldpLinkTopologyEntity> m_connections = new TopologyConnectionTracker<>(LldpLinkTopologyEntity::getId);
 
     public LldpOnmsTopologyUpdater(
             OnmsTopologyDao topologyDao, LldpTopologyService lldpTopologyService, NodeTopologyService nodeTopologyService) {
@@ -107,7 +109,7 @@ public class LldpOnmsTopologyUpdater extends TopologyUpdater {
             topology.getVertices().add(create(nodeMap.get(element.getNodeId()),ipMap.get(element.getNodeId())));
         }
         
-    for (TopologyConnection<LldpLinkTopologyEntity, LldpLinkTopologyEntity> pair : m_lldpTopologyService.match()) {
+    for (TopologyConnection<LldpLinkTopologyEntity, LldpLinkTopologyEntity> pair : m_connections.update(m_lldpTopologyService::match, m_lldpTopologyService::matchDelta)) {
             topology.getEdges().add(
                                     OnmsTopologyEdge.create(
                                                             Topology.getDefaultEdgeId(pair.getLeft().getId(), pair.getRight().getId()),
@@ -30,6 +30,7 @@ package org.opennms.netmgt.enlinkd;
 
 import java.util.Map;
 
+import org.opennms.netmgt.enlinkd.common.TopologyConnectionTracker;
 import org.opennms.netmgt.enlinkd.common.TopologyUpdater;
 import org.opennms.netmgt.enlinkd.model.IpInterfaceTopologyEntity;
 import org.opennms.netmgt.enlinkd.model.NodeTopologyEntity;
@@ -75,6 +76,7 @@ public class OspfOnmsTopologyUpdater extends TopologyUpdater {
     }
 
     private final OspfTopologyService m_ospfTopologyService;
+    private final TopologyConnectionTracker<OspfLinkTopologyEntity> m_connections = new TopologyConnectionTracker<>(OspfLinkTopologyEntity::getId);
 
     public OspfOnmsTopologyUpdater(
             OnmsTopologyDao topologyDao, OspfTopologyService ospfTopologyService, NodeTopologyService nodeTopologyService) {
@@ -97,7 +99,7 @@ public class OspfOnmsTopologyUpdater extends TopologyUpdater {
             topology.getVertices().add(create(nodeMap.get(element.getNode().getId()),ipMap.get(element.getNode().getId())));
         }
         
-        for(TopologyConnection<OspfLinkTopologyEntity, OspfLinkTopologyEntity> pair : m_ospfTopologyService.match()) {
+        for(TopologyConnection<OspfLinkTopologyEntity, OspfLinkTopologyEntity> pair : m_connections.update(m_ospfTopologyService::match, m_ospfTopologyService::matchDelta)) {
             OspfLinkTopologyEntity left = pair.getLeft();
             if (topology.getVertex(left.getNodeIdAsString()) == null) {
                 topology.getVertices().add(create(nodeMap.get(left.getNodeId()),ipMap.get(left.getNodeId())));                
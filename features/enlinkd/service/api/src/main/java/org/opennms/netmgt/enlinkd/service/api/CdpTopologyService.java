@@ -46,6 +46,7 @@ public interface CdpTopologyService extends TopologyService {
 
     List<CdpElementTopologyEntity> findAllCdpElements();
     List<TopologyConnection<CdpLinkTopologyEntity, CdpLinkTopologyEntity>> match();
+    TopologyConnectionDelta<CdpLinkTopologyEntity, CdpLinkTopologyEntity> matchDelta();
 
     void deletePersistedData();
 
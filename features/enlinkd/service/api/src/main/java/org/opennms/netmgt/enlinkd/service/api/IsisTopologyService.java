@@ -46,6 +46,7 @@ public interface IsisTopologyService extends TopologyService {
 
     List<IsIsElementTopologyEntity> findAllIsIsElements();
     List<TopologyConnection<IsIsLinkTopologyEntity, IsIsLinkTopologyEntity>> match();
+    TopologyConnectionDelta<IsIsLinkTopologyEntity, IsIsLinkTopologyEntity> matchDelta();
 
     void deletePersistedData();
 
@@ -46,6 +46,7 @@ public interface LldpTopologyService extends TopologyService {
     
     List<LldpElementTopologyEntity> findAllLldpElements();
     List<TopologyConnection<LldpLinkTopologyEntity, LldpLinkTopologyEntity>> match();
+    TopologyConnectionDelta<LldpLinkTopologyEntity, LldpLinkTopologyEntity> matchDelta();
 
     void deletePersistedData();
 
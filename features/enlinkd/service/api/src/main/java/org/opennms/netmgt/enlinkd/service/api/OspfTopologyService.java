@@ -49,6 +49,7 @@ public interface OspfTopologyService extends TopologyService {
     List<OspfElement> findAllOspfElements();
     List<OspfAreaTopologyEntity> findAllOspfAreas();
     List<TopologyConnection<OspfLinkTopologyEntity, OspfLinkTopologyEntity>> match();
+    TopologyConnectionDelta<OspfLinkTopologyEntity, OspfLinkTopologyEntity> matchDelta();
 
     void deletePersistedData();
 
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.enlinkd.service.api;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Connections added and removed by a single incremental match run, and the connections
+ * which stayed in place but whose links were reloaded.
+ */
+public class TopologyConnectionDelta<L,R> {
+
+    private final List<TopologyConnection<L,R>> added;
+    private final List<TopologyConnection<L,R>> removed;
+    private final List<TopologyConnection<L,R>> updated;
+
+    public TopologyConnectionDelta(List<TopologyConnection<L,R>> added, List<TopologyConnection<L,R>> removed,
+                                   List<TopologyConnection<L,R>> updated) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.updated = Collections.unmodifiableList(updated);
+    }
+
+    public List<TopologyConnection<L,R>> getAdded() {
+        return added;
+    }
+
+    public List<TopologyConnection<L,R>> getRemoved() {
+        return removed;
+    }
+
+    public List<TopologyConnection<L,R>> getUpdated() {
+        return updated;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && updated.isEmpty();
+    }
+
+}
@@ -28,14 +28,9 @@
 
 package org.opennms.netmgt.enlinkd.service.impl;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import org.opennms.netmgt.dao.support.UpsertTemplate;
 import org.opennms.netmgt.enlinkd.model.CdpElement;
@@ -47,23 +42,21 @@ import org.opennms.netmgt.enlinkd.persistence.api.CdpLinkDao;
 import org.opennms.netmgt.enlinkd.service.api.CdpTopologyService;
 import org.opennms.netmgt.enlinkd.service.api.CompositeKey;
 import org.opennms.netmgt.enlinkd.service.api.TopologyConnection;
-import org.opennms.netmgt.enlinkd.service.api.TopologyService;
+import org.opennms.netmgt.enlinkd.service.api.TopologyConnectionDelta;
 import org.opennms.netmgt.model.OnmsNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 public class CdpTopologyServiceImpl extends TopologyServiceImpl implements CdpTopologyService {
 
-    private static final Logger LOG = LoggerFactory.getLogger(CdpTopologyServiceImpl.class);
-
     @Autowired
     private PlatformTransactionManager m_transactionManager;
     
     private CdpLinkDao m_cdpLinkDao;
     private CdpElementDao m_cdpElementDao;
+
+    private final CdpMatcher m_matcher = new CdpMatcher();
     
     public CdpTopologyServiceImpl() {
     }
@@ -73,7 +66,8 @@ public class CdpTopologyServiceImpl extends TopologyServiceImpl implements CdpTo
         m_cdpElementDao.deleteByNodeId(nodeid);
         m_cdpLinkDao.deleteByNodeId(nodeid);
         m_cdpElementDao.flush();
-        m_cdpLinkDao.flush();        
+        m_cdpLinkDao.flush();
+        nodeChanged(nodeid);
     }
 
     @Override
@@ -86,6 +80,7 @@ public class CdpTopologyServiceImpl extends TopologyServiceImpl implements CdpTo
         }
         m_cdpLinkDao.deleteByNodeIdOlderThen(nodeId, now);
         m_cdpLinkDao.flush();
+        nodeChanged(nodeId);
     }
 
     @Override
@@ -100,6 +95,7 @@ public class CdpTopologyServiceImpl extends TopologyServiceImpl implements CdpTo
             dbelement.merge(element);
             m_cdpElementDao.saveOrUpdate(dbelement);
             m_cdpElementDao.flush();
+            nodeChanged(nodeId);
             return;
         } 
         
@@ -109,6 +105,7 @@ public class CdpTopologyServiceImpl extends TopologyServiceImpl implements CdpTo
         element.setCdpNodeLastPollTime(element.getCdpNodeCreateTime());
         m_cdpElementDao.saveOrUpdate(element);
         m_cdpElementDao.flush();
+        nodeChanged(nodeId);
         updatesAvailable();
 
     }
@@ -118,6 +115,7 @@ public class CdpTopologyServiceImpl extends TopologyServiceImpl implements CdpTo
         if (link == null)
             return;
         saveCdpLink(nodeId, link);
+        nodeChanged(nodeId);
         updatesAvailable();
     }
     
@@ -156,58 +154,17 @@ public class CdpTopologyServiceImpl extends TopologyServiceImpl implements CdpTo
 
     @Override
     public List<TopologyConnection<CdpLinkTopologyEntity, CdpLinkTopologyEntity>> match() {
-
-        final Collection<CdpElementTopologyEntity> cdpElements = getTopologyEntityCache().getCdpElementTopologyEntities();
-        final List<CdpLinkTopologyEntity> allLinks = getTopologyEntityCache().getCdpLinkTopologyEntities();
-        // 1. create lookup maps:
-        Map<Integer, CdpElementTopologyEntity> cdpelementmap = new HashMap<>();
-        for (CdpElementTopologyEntity cdpelement: cdpElements) {
-            cdpelementmap.put(cdpelement.getNodeId(), cdpelement);
-        }
-        Map<CompositeKey, CdpLinkTopologyEntity> targetLinkMap = new HashMap<>();
-        for (CdpLinkTopologyEntity targetLink : allLinks) {
-            CompositeKey key = new CompositeKey(targetLink.getCdpCacheDevicePort(),
-                    targetLink.getCdpInterfaceName(),
-                    cdpelementmap.get(targetLink.getNodeId()).getCdpGlobalDeviceId(),
-                    targetLink.getCdpCacheDeviceId());
-            targetLinkMap.put(key, targetLink);
+        synchronized (m_matcher) {
+            matchDelta();
+            return m_matcher.getConnections();
         }
-        Set<Integer> parsed = new HashSet<>();
-
-        // 2. iterate
-        List<TopologyConnection<CdpLinkTopologyEntity, CdpLinkTopologyEntity>> results = new ArrayList<>();
-        for (CdpLinkTopologyEntity sourceLink : allLinks) {
-            if (parsed.contains(sourceLink.getId())) {
-                continue;
-            }
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("getCdpLinks: source: {} ", sourceLink);
-            }
-            CdpElementTopologyEntity sourceCdpElement = cdpelementmap.get(sourceLink.getNodeId());
-
-            CdpLinkTopologyEntity targetLink = targetLinkMap.get(new CompositeKey(sourceLink.getCdpInterfaceName(),
-                    sourceLink.getCdpCacheDevicePort(),
-                    sourceLink.getCdpCacheDeviceId(),
-                    sourceCdpElement.getCdpGlobalDeviceId()));
-
-            if (targetLink == null) {
-                LOG.debug("getCdpLinks: cannot found target for source: '{}'", sourceLink.getId());
-                continue;
-            }
-
-            if (sourceLink.getId().equals(targetLink.getId()) || parsed.contains(targetLink.getId())) {
-                continue;
-            }
-
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("getCdpLinks: cdp: {}, target: {} ", sourceLink.getCdpCacheDevicePort(), targetLink);
-            }
+    }
 
-            parsed.add(sourceLink.getId());
-            parsed.add(targetLink.getId());
-            results.add(TopologyService.of(sourceLink, targetLink));
-        }
-        return results;
+    @Override
+    public TopologyConnectionDelta<CdpLinkTopologyEntity, CdpLinkTopologyEntity> matchDelta() {
+        return m_matcher.update(IncrementalTopologyMatcher.byNodeId(getTopologyEntityCache().getCdpElementTopologyEntities(), CdpElementTopologyEntity::getNodeId),
+                                getTopologyEntityCache().getCdpLinkTopologyEntities(),
+                                pollRefreshedNodes());
     }
 
     @Override
@@ -217,6 +174,7 @@ public class CdpTopologyServiceImpl extends TopologyServiceImpl implements CdpTo
 
         m_cdpLinkDao.deleteAll();
         m_cdpLinkDao.flush();
+        m_matcher.invalidate();
     }
 
 
@@ -241,4 +199,42 @@ public class CdpTopologyServiceImpl extends TopologyServiceImpl implements CdpTo
         m_cdpElementDao = cdpElementDao;
     }
 
+    private static class CdpMatcher extends IncrementalTopologyMatcher<CdpElementTopologyEntity, CdpLinkTopologyEntity> {
+
+        private CdpMatcher() {
+            super(true);
+        }
+
+        @Override
+        protected Integer getLinkId(CdpLinkTopologyEntity link) {
+            return link.getId();
+        }
+
+        @Override
+        protected Integer getLinkNodeId(CdpLinkTopologyEntity link) {
+            return link.getNodeId();
+        }
+
+        @Override
+        protected List<CompositeKey> getIndexKeys(CdpLinkTopologyEntity targetLink, CdpElementTopologyEntity element) {
+            if (element == null) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new CompositeKey(targetLink.getCdpCacheDevicePort(),
+                    targetLink.getCdpInterfaceName(),
+                    element.getCdpGlobalDeviceId(),
+                    targetLink.getCdpCacheDeviceId()));
+        }
+
+        @Override
+        protected List<CompositeKey> getLookupKeys(CdpLinkTopologyEntity sourceLink, CdpElementTopologyEntity element) {
+            if (element == null) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new CompositeKey(sourceLink.getCdpInterfaceName(),
+                    sourceLink.getCdpCacheDevicePort(),
+                    sourceLink.getCdpCacheDeviceId(),
+                    element.getCdpGlobalDeviceId()));
+        }
+    }
 }
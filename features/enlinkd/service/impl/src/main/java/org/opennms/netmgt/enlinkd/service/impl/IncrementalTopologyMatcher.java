@@ -0,0 +1,509 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.netmgt.enlinkd.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import org.opennms.netmgt.enlinkd.service.api.CompositeKey;
+import org.opennms.netmgt.enlinkd.service.api.TopologyConnection;
+import org.opennms.netmgt.enlinkd.service.api.TopologyConnectionDelta;
+import org.opennms.netmgt.enlinkd.service.api.TopologyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the {@link CompositeKey} indexes used to pair links of a protocol alive between match runs.
+ * <p>
+ * Every link is indexed under the keys by which other links may find it and, if it can act as source,
+ * carries an ordered list of lookup keys. A source is matched with the first link found under its lookup
+ * keys, trying the keys in order and preferring the lowest link id for each key. Sources remember the keys
+ * they looked at, so that a link appearing or disappearing under one of those keys only re-matches the
+ * sources which looked at it.
+ * <p>
+ * With exclusive targets a link is part of at most one connection: sources only pick links which are not
+ * connected yet, and a connection stays in place until one of its links changes. Without, a link may be
+ * the target of any number of sources and every source is connected with its target; two links finding
+ * each other form a single connection with the lower link id as source. The result then does not depend
+ * on the order in which the links are processed.
+ * <p>
+ * {@link #update(Map, Collection, Set)} only recomputes the links of the given nodes and returns the
+ * connections added, removed and updated by the run. The first run, and the first run after
+ * {@link #invalidate()}, processes all links.
+ *
+ * @param <E> the element type, holding the per node data the keys are built from
+ * @param <L> the link type
+ */
+abstract class IncrementalTopologyMatcher<E, L> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalTopologyMatcher.class);
+
+    private static final class Entry<L> {
+        private L link;
+        private final int nodeId;
+        private final List<CompositeKey> indexKeys;
+        private final List<CompositeKey> lookupKeys;
+        private List<CompositeKey> consulted = Collections.emptyList();
+        private Integer target;
+
+        private Entry(L link, int nodeId, List<CompositeKey> indexKeys, List<CompositeKey> lookupKeys) {
+            this.link = link;
+            this.nodeId = nodeId;
+            this.indexKeys = indexKeys;
+            this.lookupKeys = lookupKeys;
+        }
+
+        private boolean sameKeys(int nodeId, List<CompositeKey> indexKeys, List<CompositeKey> lookupKeys) {
+            return this.nodeId == nodeId && this.indexKeys.equals(indexKeys) && this.lookupKeys.equals(lookupKeys);
+        }
+    }
+
+    /**
+     * The state of a single update: the sources to re-match and the connections as they were before.
+     */
+    private static final class Run<L> {
+        private final Set<Integer> dirty = new TreeSet<>();
+        private final Map<Integer, Integer> before = new HashMap<>();
+        private final Map<Integer, Entry<L>> gone = new HashMap<>();
+        private final Set<Integer> reloaded = new HashSet<>();
+    }
+
+    private final boolean m_exclusiveTargets;
+    private final Map<Integer, Entry<L>> m_entries = new HashMap<>();
+    private final Map<Integer, Set<Integer>> m_linksByNode = new HashMap<>();
+    private final Map<CompositeKey, SortedSet<Integer>> m_index = new HashMap<>();
+    private final Map<CompositeKey, Set<Integer>> m_consulting = new HashMap<>();
+    private final Map<Integer, Set<Integer>> m_referrers = new HashMap<>();
+    private final TreeMap<Integer, Integer> m_pairs = new TreeMap<>();
+    private boolean m_fullScan = true;
+
+    /**
+     * @param exclusiveTargets whether a link may only be part of a single connection
+     */
+    protected IncrementalTopologyMatcher(boolean exclusiveTargets) {
+        m_exclusiveTargets = exclusiveTargets;
+    }
+
+    /**
+     * @return the elements by node id, the last element wins if a node has several
+     */
+    static <E> Map<Integer, E> byNodeId(Collection<E> elements, Function<E, Integer> nodeId) {
+        final Map<Integer, E> elementsByNode = new HashMap<>();
+        for (E element : elements) {
+            elementsByNode.put(nodeId.apply(element), element);
+        }
+        return elementsByNode;
+    }
+
+    protected abstract Integer getLinkId(L link);
+
+    protected abstract Integer getLinkNodeId(L link);
+
+    /**
+     * @param element the element of the link's node, may be {@code null}
+     * @return the keys other links find this link with
+     */
+    protected abstract List<CompositeKey> getIndexKeys(L link, E element);
+
+    /**
+     * @param element the element of the link's node, may be {@code null}
+     * @return the keys to look up a target with, in order of preference, empty if the link is never a source
+     */
+    protected abstract List<CompositeKey> getLookupKeys(L link, E element);
+
+    /**
+     * Forces the next update to process all links.
+     */
+    public synchronized void invalidate() {
+        m_fullScan = true;
+    }
+
+    /**
+     * Brings the indexes up to date with the links of the changed nodes and re-matches the affected links.
+     *
+     * @param elements the elements by node id, only those of changed nodes are looked at
+     * @param links all links, only those of changed nodes are looked at
+     * @param changedNodes the nodes whose elements or links changed since the last update
+     * @return the connections added, removed and updated by this update
+     */
+    public synchronized TopologyConnectionDelta<L, L> update(Map<Integer, E> elements, Collection<L> links, Set<Integer> changedNodes) {
+        final Set<Integer> scope = m_fullScan ? null : changedNodes;
+        m_fullScan = false;
+        if (scope != null && scope.isEmpty()) {
+            return new TopologyConnectionDelta<>(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        }
+
+        final Map<Integer, L> current = new HashMap<>();
+        for (L link : links) {
+            if (scope == null || scope.contains(getLinkNodeId(link))) {
+                current.put(getLinkId(link), link);
+            }
+        }
+
+        final Run<L> run = new Run<>();
+
+        // 1.) forget the links which are gone
+        final Collection<Integer> known = scope == null ? new ArrayList<>(m_entries.keySet()) : knownLinks(scope);
+        for (Integer id : known) {
+            if (!current.containsKey(id)) {
+                remove(id, run);
+            }
+        }
+
+        // 2.) (re)index new and changed links
+        for (L link : current.values()) {
+            final Integer id = getLinkId(link);
+            final int nodeId = getLinkNodeId(link);
+            final E element = elements.get(nodeId);
+            final List<CompositeKey> indexKeys = getIndexKeys(link, element);
+            final List<CompositeKey> lookupKeys = getLookupKeys(link, element);
+            final Entry<L> existing = m_entries.get(id);
+            if (existing != null) {
+                run.reloaded.add(id);
+                if (existing.sameKeys(nodeId, indexKeys, lookupKeys)) {
+                    existing.link = link;
+                    continue;
+                }
+                remove(id, run);
+            }
+            final Entry<L> entry = new Entry<>(link, nodeId, indexKeys, lookupKeys);
+            m_entries.put(id, entry);
+            m_linksByNode.computeIfAbsent(nodeId, k -> new HashSet<>()).add(id);
+            for (CompositeKey key : indexKeys) {
+                m_index.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+            }
+            run.dirty.add(id);
+            markConsulting(entry, run);
+        }
+
+        // 3.) match
+        for (Integer id : run.dirty) {
+            final Entry<L> entry = m_entries.get(id);
+            if (entry == null) {
+                continue;
+            }
+            if (m_exclusiveTargets) {
+                matchExclusive(id, entry, run);
+            } else {
+                matchShared(id, entry, run);
+            }
+        }
+        if (!m_exclusiveTargets) {
+            for (Integer id : run.before.keySet()) {
+                final Integer right = getSharedTarget(id);
+                if (right == null) {
+                    m_pairs.remove(id);
+                } else {
+                    m_pairs.put(id, right);
+                }
+            }
+        }
+
+        // 4.) delta
+        return delta(run, scope, current.size());
+    }
+
+    /**
+     * @return all connections currently formed, ordered by the id of the source link
+     */
+    public synchronized List<TopologyConnection<L, L>> getConnections() {
+        final List<TopologyConnection<L, L>> connections = new ArrayList<>(m_pairs.size());
+        for (Map.Entry<Integer, Integer> pair : m_pairs.entrySet()) {
+            connections.add(TopologyService.of(m_entries.get(pair.getKey()).link, m_entries.get(pair.getValue()).link));
+        }
+        return connections;
+    }
+
+    private Collection<Integer> knownLinks(Set<Integer> nodes) {
+        final List<Integer> known = new ArrayList<>();
+        for (Integer nodeId : nodes) {
+            final Set<Integer> ids = m_linksByNode.get(nodeId);
+            if (ids != null) {
+                known.addAll(ids);
+            }
+        }
+        return known;
+    }
+
+    private void matchExclusive(Integer id, Entry<L> entry, Run<L> run) {
+        if (entry.target != null || entry.lookupKeys.isEmpty()) {
+            return;
+        }
+        unconsult(id, entry);
+        final Integer targetId = findFreeTarget(id, entry);
+        if (targetId == null) {
+            LOG.debug("update: cannot find target for link: {}", entry.link);
+            consult(id, entry, entry.lookupKeys);
+            return;
+        }
+        final Entry<L> target = m_entries.get(targetId);
+        unconsult(targetId, target);
+        touch(id, run);
+        entry.target = targetId;
+        target.target = id;
+        m_pairs.put(id, targetId);
+        LOG.debug("update: source: {}, target: {}", entry.link, target.link);
+    }
+
+    private void matchShared(Integer id, Entry<L> entry, Run<L> run) {
+        unconsult(id, entry);
+        final List<CompositeKey> consulted = new ArrayList<>();
+        Integer targetId = null;
+        for (CompositeKey key : entry.lookupKeys) {
+            consulted.add(key);
+            targetId = findTarget(id, key);
+            if (targetId != null) {
+                break;
+            }
+        }
+        consult(id, entry, consulted);
+        if (Objects.equals(targetId, entry.target)) {
+            return;
+        }
+        touch(id, run);
+        if (entry.target != null) {
+            touch(entry.target, run);
+            removeReferrer(entry.target, id);
+        }
+        if (targetId != null) {
+            touch(targetId, run);
+            m_referrers.computeIfAbsent(targetId, k -> new HashSet<>()).add(id);
+            LOG.debug("update: source: {}, target: {}", entry.link, m_entries.get(targetId).link);
+        } else if (!entry.lookupKeys.isEmpty()) {
+            LOG.debug("update: cannot find target for link: {}", entry.link);
+        }
+        entry.target = targetId;
+    }
+
+    /**
+     * @return the right side of the connection with the given link as source, two links finding each other
+     * are connected once with the lower id as source
+     */
+    private Integer getSharedTarget(Integer id) {
+        final Entry<L> entry = m_entries.get(id);
+        if (entry == null || entry.target == null) {
+            return null;
+        }
+        final Entry<L> target = m_entries.get(entry.target);
+        if (target == null) {
+            return null;
+        }
+        if (id.equals(target.target) && entry.target < id) {
+            return null;
+        }
+        return entry.target;
+    }
+
+    private Integer findFreeTarget(Integer id, Entry<L> entry) {
+        for (CompositeKey key : entry.lookupKeys) {
+            final SortedSet<Integer> candidates = m_index.get(key);
+            if (candidates == null) {
+                continue;
+            }
+            for (Integer candidate : candidates) {
+                if (!candidate.equals(id) && m_entries.get(candidate).target == null) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Integer findTarget(Integer id, CompositeKey key) {
+        final SortedSet<Integer> candidates = m_index.get(key);
+        if (candidates != null) {
+            for (Integer candidate : candidates) {
+                if (!candidate.equals(id)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void remove(Integer id, Run<L> run) {
+        final Entry<L> entry = m_entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        run.gone.put(id, entry);
+        final Set<Integer> nodeLinks = m_linksByNode.get(entry.nodeId);
+        if (nodeLinks != null) {
+            nodeLinks.remove(id);
+            if (nodeLinks.isEmpty()) {
+                m_linksByNode.remove(entry.nodeId);
+            }
+        }
+        for (CompositeKey key : entry.indexKeys) {
+            final SortedSet<Integer> ids = m_index.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    m_index.remove(key);
+                }
+            }
+        }
+        unconsult(id, entry);
+        // sources which found this link, or waited on one of its keys, have to look again
+        markConsulting(entry, run);
+        if (entry.target == null) {
+            return;
+        }
+        if (m_exclusiveTargets) {
+            final Entry<L> partner = m_entries.get(entry.target);
+            final Integer left = m_pairs.containsKey(id) ? id : entry.target;
+            touch(left, run);
+            m_pairs.remove(left);
+            LOG.debug("remove: connection of {} and {} broken", id, entry.target);
+            partner.target = null;
+            run.dirty.add(entry.target);
+            markConsulting(partner, run);
+        } else {
+            touch(id, run);
+            touch(entry.target, run);
+            removeReferrer(entry.target, id);
+        }
+    }
+
+    private TopologyConnectionDelta<L, L> delta(Run<L> run, Set<Integer> scope, int processed) {
+        final List<TopologyConnection<L, L>> added = new ArrayList<>();
+        final List<TopologyConnection<L, L>> removed = new ArrayList<>();
+        final Set<Integer> changed = new HashSet<>();
+        for (Map.Entry<Integer, Integer> pair : run.before.entrySet()) {
+            final Integer left = pair.getKey();
+            final Integer right = m_pairs.get(left);
+            if (Objects.equals(pair.getValue(), right)) {
+                continue;
+            }
+            changed.add(left);
+            if (pair.getValue() != null) {
+                removed.add(TopologyService.of(getLink(left, run), getLink(pair.getValue(), run)));
+            }
+            if (right != null) {
+                added.add(TopologyService.of(getLink(left, run), getLink(right, run)));
+            }
+        }
+
+        // connections which are still in place, but with reloaded links
+        final Set<Integer> updatedLefts = new LinkedHashSet<>();
+        for (Integer id : run.reloaded) {
+            final Entry<L> entry = m_entries.get(id);
+            if (entry == null) {
+                continue;
+            }
+            final Set<Integer> lefts = new HashSet<>();
+            lefts.add(id);
+            if (m_exclusiveTargets) {
+                if (entry.target != null) {
+                    lefts.add(entry.target);
+                }
+            } else {
+                lefts.addAll(m_referrers.getOrDefault(id, Collections.emptySet()));
+            }
+            for (Integer left : lefts) {
+                final Integer right = m_pairs.get(left);
+                if (right != null && (left.equals(id) || right.equals(id)) && !changed.contains(left)) {
+                    updatedLefts.add(left);
+                }
+            }
+        }
+        final List<TopologyConnection<L, L>> updated = new ArrayList<>(updatedLefts.size());
+        for (Integer left : updatedLefts) {
+            updated.add(TopologyService.of(m_entries.get(left).link, m_entries.get(m_pairs.get(left)).link));
+        }
+
+        LOG.debug("update: scope: {} nodes, processed: {} links, added: {}, removed: {}, updated: {}",
+                  scope == null ? "all" : scope.size(), processed, added.size(), removed.size(), updated.size());
+        return new TopologyConnectionDelta<>(added, removed, updated);
+    }
+
+    private L getLink(Integer id, Run<L> run) {
+        final Entry<L> entry = m_entries.get(id);
+        return entry != null ? entry.link : run.gone.get(id).link;
+    }
+
+    /**
+     * Remembers the connection of the given source as it was before this run.
+     */
+    private void touch(Integer id, Run<L> run) {
+        if (!run.before.containsKey(id)) {
+            run.before.put(id, m_pairs.get(id));
+        }
+    }
+
+    private void markConsulting(Entry<L> entry, Run<L> run) {
+        for (CompositeKey key : entry.indexKeys) {
+            final Set<Integer> sources = m_consulting.get(key);
+            if (sources != null) {
+                run.dirty.addAll(sources);
+            }
+        }
+    }
+
+    private void consult(Integer id, Entry<L> entry, List<CompositeKey> keys) {
+        entry.consulted = keys;
+        for (CompositeKey key : keys) {
+            m_consulting.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void unconsult(Integer id, Entry<L> entry) {
+        for (CompositeKey key : entry.consulted) {
+            final Set<Integer> sources = m_consulting.get(key);
+            if (sources != null) {
+                sources.remove(id);
+                if (sources.isEmpty()) {
+                    m_consulting.remove(key);
+                }
+            }
+        }
+        entry.consulted = Collections.emptyList();
+    }
+
+    private void removeReferrer(Integer targetId, Integer id) {
+        final Set<Integer> referrers = m_referrers.get(targetId);
+        if (referrers != null) {
+            referrers.remove(id);
+            if (referrers.isEmpty()) {
+                m_referrers.remove(targetId);
+            }
+        }
+    }
+}
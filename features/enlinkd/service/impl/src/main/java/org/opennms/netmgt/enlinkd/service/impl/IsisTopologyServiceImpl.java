@@ -28,13 +28,9 @@
 
 package org.opennms.netmgt.enlinkd.service.impl;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import org.opennms.netmgt.dao.support.UpsertTemplate;
 import org.opennms.netmgt.enlinkd.model.IsIsElement;
@@ -46,24 +42,22 @@ import org.opennms.netmgt.enlinkd.persistence.api.IsIsLinkDao;
 import org.opennms.netmgt.enlinkd.service.api.CompositeKey;
 import org.opennms.netmgt.enlinkd.service.api.IsisTopologyService;
 import org.opennms.netmgt.enlinkd.service.api.TopologyConnection;
-import org.opennms.netmgt.enlinkd.service.api.TopologyService;
+import org.opennms.netmgt.enlinkd.service.api.TopologyConnectionDelta;
 import org.opennms.netmgt.model.OnmsNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 public class IsisTopologyServiceImpl extends TopologyServiceImpl implements IsisTopologyService {
 
-    private static final Logger LOG = LoggerFactory.getLogger(IsisTopologyServiceImpl.class);
-
     @Autowired
     private PlatformTransactionManager m_transactionManager;
 
     private IsIsLinkDao m_isisLinkDao;
     private IsIsElementDao m_isisElementDao;
 
+    private final IsisMatcher m_matcher = new IsisMatcher();
+
     public IsisTopologyServiceImpl() {
     }
 
@@ -73,6 +67,7 @@ public class IsisTopologyServiceImpl extends TopologyServiceImpl implements Isis
         m_isisLinkDao.deleteByNodeId(nodeid);
         m_isisElementDao.flush();
         m_isisLinkDao.flush();
+        nodeChanged(nodeid);
     }
 
     @Override
@@ -85,6 +80,7 @@ public class IsisTopologyServiceImpl extends TopologyServiceImpl implements Isis
         }
         m_isisLinkDao.deleteByNodeIdOlderThen(nodeId, now);
         m_isisLinkDao.flush();
+        nodeChanged(nodeId);
     }
 
     @Override
@@ -92,6 +88,7 @@ public class IsisTopologyServiceImpl extends TopologyServiceImpl implements Isis
         if (link == null)
             return;
         saveIsisLink(nodeId, link);
+        nodeChanged(nodeId);
         updatesAvailable();
     }
 
@@ -141,6 +138,7 @@ public class IsisTopologyServiceImpl extends TopologyServiceImpl implements Isis
             dbelement.merge(element);
             m_isisElementDao.saveOrUpdate(dbelement);
             m_isisElementDao.flush();
+            nodeChanged(nodeId);
             return;
         }
         
@@ -150,6 +148,7 @@ public class IsisTopologyServiceImpl extends TopologyServiceImpl implements Isis
         element.setIsisNodeLastPollTime(element.getIsisNodeCreateTime());
         m_isisElementDao.saveOrUpdate(element);
         m_isisElementDao.flush();
+        nodeChanged(nodeId);
         updatesAvailable();
 
     
@@ -178,53 +177,17 @@ public class IsisTopologyServiceImpl extends TopologyServiceImpl implements Isis
 
     @Override
     public List<TopologyConnection<IsIsLinkTopologyEntity, IsIsLinkTopologyEntity>> match() {
-        List<IsIsElementTopologyEntity> elements = getTopologyEntityCache().getIsIsElementTopologyEntities();
-        List<IsIsLinkTopologyEntity> allLinks = getTopologyEntityCache().getIsIsLinkTopologyEntities();
-        // 1.) create lookupMaps
-        Map<Integer, IsIsElementTopologyEntity> elementmap = new HashMap<>();
-        for (IsIsElementTopologyEntity element: elements) {
-            elementmap.put(element.getNodeId(), element);
-        }
-
-        Map<CompositeKey, IsIsLinkTopologyEntity> targetLinkMap = new HashMap<>();
-        for (IsIsLinkTopologyEntity targetLink : allLinks) {
-            IsIsElementTopologyEntity targetElement = elementmap.get(targetLink.getNodeId());
-            targetLinkMap.put(new CompositeKey(targetLink.getIsisISAdjIndex(),
-                      targetElement.getIsisSysID(),
-                      targetLink.getIsisISAdjNeighSysID()), targetLink);
+        synchronized (m_matcher) {
+            matchDelta();
+            return m_matcher.getConnections();
         }
+    }
 
-        // 2. iterate
-        Set<Integer> parsed = new HashSet<>();
-        List<TopologyConnection<IsIsLinkTopologyEntity, IsIsLinkTopologyEntity>> results = new ArrayList<>();
-
-        for (IsIsLinkTopologyEntity sourceLink : allLinks) {
-            if (parsed.contains(sourceLink.getId())) {
-                continue;
-            }
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("getIsIsLinks: source: {}", sourceLink);
-            }
-            IsIsElementTopologyEntity sourceElement = elementmap.get(sourceLink.getNodeId());
-            IsIsLinkTopologyEntity targetLink = targetLinkMap.get(new CompositeKey(sourceLink.getIsisISAdjIndex(),
-                    sourceLink.getIsisISAdjNeighSysID(),
-                    sourceElement.getIsisSysID()));
-
-            if (targetLink == null) {
-                LOG.debug("getIsIsLinks: cannot found target for source: '{}'", sourceLink.getId());
-                continue;
-            }
-            if (sourceLink.getId().intValue() == targetLink.getId().intValue()|| parsed.contains(targetLink.getId())) {
-                continue;
-            }
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("getIsIsLinks: target: {}", targetLink);
-            }
-            results.add(TopologyService.of(sourceLink, targetLink));
-            parsed.add(sourceLink.getId());
-            parsed.add(targetLink.getId());
-        }
-        return results;
+    @Override
+    public TopologyConnectionDelta<IsIsLinkTopologyEntity, IsIsLinkTopologyEntity> matchDelta() {
+        return m_matcher.update(IncrementalTopologyMatcher.byNodeId(getTopologyEntityCache().getIsIsElementTopologyEntities(), IsIsElementTopologyEntity::getNodeId),
+                                getTopologyEntityCache().getIsIsLinkTopologyEntities(),
+                                pollRefreshedNodes());
     }
 
     @Override
@@ -233,6 +196,43 @@ public class IsisTopologyServiceImpl extends TopologyServiceImpl implements Isis
         m_isisElementDao.flush();
         m_isisLinkDao.deleteAll();
         m_isisLinkDao.flush();
+        m_matcher.invalidate();
     }
 
+    private static class IsisMatcher extends IncrementalTopologyMatcher<IsIsElementTopologyEntity, IsIsLinkTopologyEntity> {
+
+        private IsisMatcher() {
+            super(true);
+        }
+
+        @Override
+        protected Integer getLinkId(IsIsLinkTopologyEntity link) {
+            return link.getId();
+        }
+
+        @Override
+        protected Integer getLinkNodeId(IsIsLinkTopologyEntity link) {
+            return link.getNodeId();
+        }
+
+        @Override
+        protected List<CompositeKey> getIndexKeys(IsIsLinkTopologyEntity targetLink, IsIsElementTopologyEntity targetElement) {
+            if (targetElement == null) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new CompositeKey(targetLink.getIsisISAdjIndex(),
+                    targetElement.getIsisSysID(),
+                    targetLink.getIsisISAdjNeighSysID()));
+        }
+
+        @Override
+        protected List<CompositeKey> getLookupKeys(IsIsLinkTopologyEntity sourceLink, IsIsElementTopologyEntity sourceElement) {
+            if (sourceElement == null) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new CompositeKey(sourceLink.getIsisISAdjIndex(),
+                    sourceLink.getIsisISAdjNeighSysID(),
+                    sourceElement.getIsisSysID()));
+        }
+    }
 }
@@ -28,14 +28,10 @@
 
 package org.opennms.netmgt.enlinkd.service.impl;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.opennms.netmgt.dao.support.UpsertTemplate;
 import org.opennms.netmgt.enlinkd.model.LldpElement;
@@ -47,7 +43,7 @@ import org.opennms.netmgt.enlinkd.persistence.api.LldpLinkDao;
 import org.opennms.netmgt.enlinkd.service.api.CompositeKey;
 import org.opennms.netmgt.enlinkd.service.api.LldpTopologyService;
 import org.opennms.netmgt.enlinkd.service.api.TopologyConnection;
-import org.opennms.netmgt.enlinkd.service.api.TopologyService;
+import org.opennms.netmgt.enlinkd.service.api.TopologyConnectionDelta;
 import org.opennms.netmgt.model.OnmsNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,6 +61,8 @@ public class LldpTopologyServiceImpl extends TopologyServiceImpl implements Lldp
     private LldpLinkDao m_lldpLinkDao;
     private LldpElementDao m_lldpElementDao;
 
+    private final LldpMatcher m_matcher = new LldpMatcher();
+
     public LldpTopologyServiceImpl() {
     }
 
@@ -74,6 +72,7 @@ public class LldpTopologyServiceImpl extends TopologyServiceImpl implements Lldp
         m_lldpLinkDao.deleteByNodeId(nodeid);
         m_lldpElementDao.flush();
         m_lldpLinkDao.flush();
+        nodeChanged(nodeid);
     }
 
     @Override
@@ -86,6 +85,7 @@ public class LldpTopologyServiceImpl extends TopologyServiceImpl implements Lldp
         }
         m_lldpLinkDao.deleteByNodeIdOlderThen(nodeId, now);
         m_lldpLinkDao.flush();
+        nodeChanged(nodeId);
     }
 
     @Override
@@ -97,6 +97,7 @@ public class LldpTopologyServiceImpl extends TopologyServiceImpl implements Lldp
             link.setLldpPortIfindex(m_lldpLinkDao.getIfIndex(nodeId, link.getLldpPortId()));
         }
         saveLldpLink(nodeId, link);
+        nodeChanged(nodeId);
         updatesAvailable();
     }
 
@@ -143,6 +144,7 @@ public class LldpTopologyServiceImpl extends TopologyServiceImpl implements Lldp
             dbelement.merge(element);
             m_lldpElementDao.saveOrUpdate(dbelement);
             m_lldpElementDao.flush();
+            nodeChanged(nodeId);
             return;
         }
 
@@ -152,6 +154,7 @@ public class LldpTopologyServiceImpl extends TopologyServiceImpl implements Lldp
         element.setLldpNodeLastPollTime(element.getLldpNodeCreateTime());
         m_lldpElementDao.saveOrUpdate(element);
         m_lldpElementDao.flush();
+        nodeChanged(nodeId);
         updatesAvailable();
 
     }
@@ -179,137 +182,132 @@ public class LldpTopologyServiceImpl extends TopologyServiceImpl implements Lldp
 
     @Override
     public List<TopologyConnection<LldpLinkTopologyEntity, LldpLinkTopologyEntity>> match() {
+        synchronized (m_matcher) {
+            matchDelta();
+            return m_matcher.getConnections();
+        }
+    }
+
+    @Override
+    public TopologyConnectionDelta<LldpLinkTopologyEntity, LldpLinkTopologyEntity> matchDelta() {
+        return m_matcher.update(IncrementalTopologyMatcher.byNodeId(getTopologyEntityCache().getLldpElementTopologyEntities(), LldpElementTopologyEntity::getNodeId),
+                                getTopologyEntityCache().getLldpLinkTopologyEntities(),
+                                pollRefreshedNodes());
+    }
 
-            Map<Integer, LldpElementTopologyEntity> nodelldpelementidMap = getTopologyEntityCache().getLldpElementTopologyEntities().stream()
-                    .collect(Collectors.toMap(LldpElementTopologyEntity::getNodeId, lldpelem -> lldpelem));
-            List<LldpLinkTopologyEntity> lldpLinks = getTopologyEntityCache().getLldpLinkTopologyEntities();
-            // 1.) create mapping
-            Map<CompositeKey, LldpLinkTopologyEntity> lldpLinkCompositeKeyMap = new HashMap<>();
-            List<LldpLinkTopologyEntity> goodLldpLinks = new ArrayList<>();
-            for(LldpLinkTopologyEntity lldpLink : lldpLinks){
-                if (lldpLink.getLldpPortIfindex() == -1 ) {
-                    CompositeKey elementarKeyA = new CompositeKey(
+    @Override
+    public void deletePersistedData() {
+        m_lldpElementDao.deleteAll();
+        m_lldpElementDao.flush();
+
+        m_lldpLinkDao.deleteAll();
+        m_lldpLinkDao.flush();
+        m_matcher.invalidate();
+    }
+
+    /**
+     * Links with an unknown ifindex are only matched as targets, self links are never matched as sources.
+     * A link may be the target of several sources.
+     */
+    private static class LldpMatcher extends IncrementalTopologyMatcher<LldpElementTopologyEntity, LldpLinkTopologyEntity> {
+
+        private LldpMatcher() {
+            super(false);
+        }
+
+        @Override
+        protected Integer getLinkId(LldpLinkTopologyEntity link) {
+            return link.getId();
+        }
+
+        @Override
+        protected Integer getLinkNodeId(LldpLinkTopologyEntity link) {
+            return link.getNodeId();
+        }
+
+        @Override
+        protected List<CompositeKey> getIndexKeys(LldpLinkTopologyEntity lldpLink, LldpElementTopologyEntity element) {
+            if (element == null) {
+                return Collections.emptyList();
+            }
+            if (lldpLink.getLldpPortIfindex() == -1) {
+                return Arrays.asList(
+                        new CompositeKey(
+                                lldpLink.getLldpRemChassisId(),
+                                element.getLldpChassisId(),
+                                lldpLink.getLldpRemPortId(),
+                                lldpLink.getLldpRemPortIdSubType()),
+                        new CompositeKey(
+                                lldpLink.getLldpRemChassisId(),
+                                element.getLldpChassisId(),
+                                lldpLink.getLldpRemPortDescr()));
+            }
+            return Arrays.asList(
+                    new CompositeKey(
                             lldpLink.getLldpRemChassisId(),
-                            nodelldpelementidMap.get(lldpLink.getNodeId()).getLldpChassisId(),
+                            element.getLldpChassisId(),
+                            lldpLink.getLldpPortId(),
+                            lldpLink.getLldpPortIdSubType(),
                             lldpLink.getLldpRemPortId(),
-                            lldpLink.getLldpRemPortIdSubType());
-                    CompositeKey elementarKeyB = new CompositeKey(
+                            lldpLink.getLldpRemPortIdSubType()),
+                    new CompositeKey(
                             lldpLink.getLldpRemChassisId(),
-                            nodelldpelementidMap.get(lldpLink.getNodeId()).getLldpChassisId(),
-                            lldpLink.getLldpRemPortDescr());
-                    lldpLinkCompositeKeyMap.put(elementarKeyA,lldpLink);
-                    lldpLinkCompositeKeyMap.put(elementarKeyB,lldpLink);
-                    continue;
-                }
-                goodLldpLinks.add(lldpLink);
-                CompositeKey key = new CompositeKey(
-                        lldpLink.getLldpRemChassisId(),
-                        nodelldpelementidMap.get(lldpLink.getNodeId()).getLldpChassisId(),
-                        lldpLink.getLldpPortId(),
-                        lldpLink.getLldpPortIdSubType(),
-                        lldpLink.getLldpRemPortId(),
-                        lldpLink.getLldpRemPortIdSubType());
-                lldpLinkCompositeKeyMap.put(key, lldpLink);
-                CompositeKey descrkey = new CompositeKey(
-                        lldpLink.getLldpRemChassisId(),
-                        nodelldpelementidMap.get(lldpLink.getNodeId()).getLldpChassisId(),
-                        lldpLink.getLldpPortDescr(),
-                        lldpLink.getLldpRemPortDescr());
-                lldpLinkCompositeKeyMap.put(descrkey,lldpLink);
-                CompositeKey sysnameKey = new CompositeKey(
-                    lldpLink.getLldpRemSysname(),
-                    nodelldpelementidMap.get(lldpLink.getNodeId()).getLldpSysname(),
-                    lldpLink.getLldpPortId(),
-                    lldpLink.getLldpPortIdSubType(),
-                    lldpLink.getLldpRemPortId(),
-                    lldpLink.getLldpRemPortIdSubType()
-                );
-                lldpLinkCompositeKeyMap.put(sysnameKey,lldpLink);
-            }
+                            element.getLldpChassisId(),
+                            lldpLink.getLldpPortDescr(),
+                            lldpLink.getLldpRemPortDescr()),
+                    new CompositeKey(
+                            lldpLink.getLldpRemSysname(),
+                            element.getLldpSysname(),
+                            lldpLink.getLldpPortId(),
+                            lldpLink.getLldpPortIdSubType(),
+                            lldpLink.getLldpRemPortId(),
+                            lldpLink.getLldpRemPortIdSubType()));
+        }
 
-            // 2.) iterate
-        Set<Integer> parsed = new HashSet<>();
-        List<TopologyConnection<LldpLinkTopologyEntity, LldpLinkTopologyEntity>> results = new ArrayList<>();
-
-        for (LldpLinkTopologyEntity sourceLink : goodLldpLinks) {
-                if (parsed.contains(sourceLink.getId())) {
-                    continue;
-                }
-
-                if (nodelldpelementidMap.get(sourceLink.getNodeId()).getLldpChassisId().equals(sourceLink.getLldpRemChassisId())
-                   || nodelldpelementidMap.get(sourceLink.getNodeId()).getLldpSysname().equals(sourceLink.getLldpRemSysname())) {
-                    LOG.info("match: self link, skipping:{}",sourceLink);
-                    continue;
-                }
-
-                String compositeKeyExplained="composite key: default";
-                CompositeKey key = new CompositeKey(
-                        nodelldpelementidMap.get(sourceLink.getNodeId()).getLldpChassisId(),
-                        sourceLink.getLldpRemChassisId(),
-                        sourceLink.getLldpRemPortId(),
-                        sourceLink.getLldpRemPortIdSubType(),
-                        sourceLink.getLldpPortId(),
-                        sourceLink.getLldpPortIdSubType());
-                LldpLinkTopologyEntity targetLink = lldpLinkCompositeKeyMap.get(key);
-                if (targetLink == null) {
-                    compositeKeyExplained="composite key: port description";
-                    CompositeKey descrkey = new CompositeKey(
-                            nodelldpelementidMap.get(sourceLink.getNodeId()).getLldpChassisId(),
+        @Override
+        protected List<CompositeKey> getLookupKeys(LldpLinkTopologyEntity sourceLink, LldpElementTopologyEntity element) {
+            if (element == null || sourceLink.getLldpPortIfindex() == -1) {
+                return Collections.emptyList();
+            }
+            if (element.getLldpChassisId().equals(sourceLink.getLldpRemChassisId())
+               || element.getLldpSysname().equals(sourceLink.getLldpRemSysname())) {
+                LOG.info("match: self link, skipping:{}", sourceLink);
+                return Collections.emptyList();
+            }
+            return Arrays.asList(
+                    // composite key: default
+                    new CompositeKey(
+                            element.getLldpChassisId(),
+                            sourceLink.getLldpRemChassisId(),
+                            sourceLink.getLldpRemPortId(),
+                            sourceLink.getLldpRemPortIdSubType(),
+                            sourceLink.getLldpPortId(),
+                            sourceLink.getLldpPortIdSubType()),
+                    // composite key: port description
+                    new CompositeKey(
+                            element.getLldpChassisId(),
                             sourceLink.getLldpRemChassisId(),
                             sourceLink.getLldpRemPortDescr(),
-                            sourceLink.getLldpPortDescr());
-                    targetLink = lldpLinkCompositeKeyMap.get(descrkey);
-                }
-                if (targetLink == null) {
-                    compositeKeyExplained="composite key: sysname";
-                    CompositeKey sysnamekey = new CompositeKey(
-                            nodelldpelementidMap.get(sourceLink.getNodeId()).getLldpSysname(),
+                            sourceLink.getLldpPortDescr()),
+                    // composite key: sysname
+                    new CompositeKey(
+                            element.getLldpSysname(),
                             sourceLink.getLldpRemSysname(),
                             sourceLink.getLldpRemPortId(),
                             sourceLink.getLldpRemPortIdSubType(),
                             sourceLink.getLldpPortId(),
-                            sourceLink.getLldpPortIdSubType());
-                    targetLink = lldpLinkCompositeKeyMap.get(sysnamekey);
-                }
-                if (targetLink == null) {
-                    compositeKeyExplained="composite key: elementary with port id";
-                    CompositeKey elementaryA = new CompositeKey(
-                            nodelldpelementidMap.get(sourceLink.getNodeId()).getLldpChassisId(),
+                            sourceLink.getLldpPortIdSubType()),
+                    // composite key: elementary with port id
+                    new CompositeKey(
+                            element.getLldpChassisId(),
                             sourceLink.getLldpRemChassisId(),
                             sourceLink.getLldpPortId(),
-                            sourceLink.getLldpPortIdSubType());
-                    targetLink = lldpLinkCompositeKeyMap.get(elementaryA);
-                }
-                if (targetLink == null) {
-                    compositeKeyExplained="composite key: elementary with port descr";
-                    CompositeKey elementaryB = new CompositeKey(
-                            nodelldpelementidMap.get(sourceLink.getNodeId()).getLldpChassisId(),
+                            sourceLink.getLldpPortIdSubType()),
+                    // composite key: elementary with port descr
+                    new CompositeKey(
+                            element.getLldpChassisId(),
                             sourceLink.getLldpRemChassisId(),
-                            sourceLink.getLldpPortDescr());
-                    targetLink = lldpLinkCompositeKeyMap.get(elementaryB);
-                }
-                if (targetLink == null) {
-                    LOG.info("match: cannot found target for lldplink:{}", sourceLink);
-                    continue;
-                }
-
-                LOG.info("match: {}, source:{}, target:{}", compositeKeyExplained, sourceLink, targetLink);
-
-                parsed.add(sourceLink.getId());
-                parsed.add(targetLink.getId());
-                results.add(TopologyService.of(sourceLink, targetLink));
-            }
-            return results;
-       // }
-
-    }
-
-    @Override
-    public void deletePersistedData() {
-        m_lldpElementDao.deleteAll();
-        m_lldpElementDao.flush();
-
-        m_lldpLinkDao.deleteAll();
-        m_lldpLinkDao.flush();
+                            sourceLink.getLldpPortDescr()));
+        }
     }
 }
@@ -28,13 +28,9 @@
 
 package org.opennms.netmgt.enlinkd.service.impl;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import org.opennms.netmgt.dao.support.UpsertTemplate;
 import org.opennms.netmgt.enlinkd.model.OspfArea;
@@ -48,18 +44,14 @@ import org.opennms.netmgt.enlinkd.persistence.api.OspfLinkDao;
 import org.opennms.netmgt.enlinkd.service.api.CompositeKey;
 import org.opennms.netmgt.enlinkd.service.api.OspfTopologyService;
 import org.opennms.netmgt.enlinkd.service.api.TopologyConnection;
-import org.opennms.netmgt.enlinkd.service.api.TopologyService;
+import org.opennms.netmgt.enlinkd.service.api.TopologyConnectionDelta;
 import org.opennms.netmgt.model.OnmsNode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 public class OspfTopologyServiceImpl extends TopologyServiceImpl implements OspfTopologyService {
 
-    private static final Logger LOG = LoggerFactory.getLogger(OspfTopologyServiceImpl.class);
-
     @Autowired
     private PlatformTransactionManager m_transactionManager;
 
@@ -67,6 +59,8 @@ public class OspfTopologyServiceImpl extends TopologyServiceImpl implements Ospf
     private OspfElementDao m_ospfElementDao;
     private OspfAreaDao m_ospfAreaDao;
 
+    private final OspfMatcher m_matcher = new OspfMatcher();
+
     public OspfTopologyServiceImpl() {
     }
 
@@ -78,6 +72,7 @@ public class OspfTopologyServiceImpl extends TopologyServiceImpl implements Ospf
         m_ospfElementDao.flush();
         m_ospfLinkDao.flush();
         m_ospfAreaDao.flush();
+        nodeChanged(nodeid);
     }
 
     @Override
@@ -90,6 +85,7 @@ public class OspfTopologyServiceImpl extends TopologyServiceImpl implements Ospf
         }
         m_ospfLinkDao.deleteByNodeIdOlderThen(nodeId, now);
         m_ospfLinkDao.flush();
+        nodeChanged(nodeId);
         m_ospfAreaDao.deleteByNodeIdOlderThen(nodeId, now);
         m_ospfAreaDao.flush();
     }
@@ -123,6 +119,7 @@ public class OspfTopologyServiceImpl extends TopologyServiceImpl implements Ospf
         if (link == null)
             return;
         saveOspfLink(nodeId, link);
+        nodeChanged(nodeId);
         updatesAvailable();
     }
 
@@ -237,40 +234,17 @@ public class OspfTopologyServiceImpl extends TopologyServiceImpl implements Ospf
 
     @Override
     public List<TopologyConnection<OspfLinkTopologyEntity, OspfLinkTopologyEntity>> match() {
-        List<OspfLinkTopologyEntity> allLinks = getTopologyEntityCache().getOspfLinkTopologyEntities();
-        List<TopologyConnection<OspfLinkTopologyEntity, OspfLinkTopologyEntity>> results = new ArrayList<>();
-        Set<Integer> parsed = new HashSet<>();
-
-        // build mapping:
-        Map<CompositeKey, OspfLinkTopologyEntity> targetLinks = new HashMap<>();
-        for(OspfLinkTopologyEntity targetLink : allLinks){
-            targetLinks.put(new CompositeKey(targetLink.getOspfIpAddr(), targetLink.getOspfRemIpAddr()) , targetLink);
-        }
-
-        for(OspfLinkTopologyEntity sourceLink : allLinks) {
-            if (parsed.contains(sourceLink.getId())) {
-                continue;
-            }
-            parsed.add(sourceLink.getId());
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("getOspfLinks: source: {}", sourceLink);
-            }
-            OspfLinkTopologyEntity targetLink = targetLinks.get(new CompositeKey(sourceLink.getOspfRemIpAddr() , sourceLink.getOspfIpAddr()));
-            if(targetLink == null) {
-                LOG.debug("getOspfLinks: cannot find target for source: '{}'", sourceLink.getId());
-                continue;
-            }
-
-            if (sourceLink.getId().equals(targetLink.getId()) || parsed.contains(targetLink.getId())) {
-                    continue;
-            }
-
-            LOG.debug("getOspfLinks: target: {}", targetLink);
-            parsed.add(targetLink.getId());
-            results.add(TopologyService.of(sourceLink, targetLink));
+        synchronized (m_matcher) {
+            matchDelta();
+            return m_matcher.getConnections();
         }
-        return results;
+    }
 
+    @Override
+    public TopologyConnectionDelta<OspfLinkTopologyEntity, OspfLinkTopologyEntity> matchDelta() {
+        return m_matcher.update(Collections.emptyMap(),
+                                getTopologyEntityCache().getOspfLinkTopologyEntities(),
+                                pollRefreshedNodes());
     }
 
     @Override
@@ -280,5 +254,36 @@ public class OspfTopologyServiceImpl extends TopologyServiceImpl implements Ospf
 
         m_ospfLinkDao.deleteAll();
         m_ospfLinkDao.flush();
+        m_matcher.invalidate();
+    }
+
+    /**
+     * OSPF links are paired by their addresses only, no element is needed.
+     */
+    private static class OspfMatcher extends IncrementalTopologyMatcher<Void, OspfLinkTopologyEntity> {
+
+        private OspfMatcher() {
+            super(true);
+        }
+
+        @Override
+        protected Integer getLinkId(OspfLinkTopologyEntity link) {
+            return link.getId();
+        }
+
+        @Override
+        protected Integer getLinkNodeId(OspfLinkTopologyEntity link) {
+            return link.getNodeId();
+        }
+
+        @Override
+        protected List<CompositeKey> getIndexKeys(OspfLinkTopologyEntity targetLink, Void element) {
+            return Collections.singletonList(new CompositeKey(targetLink.getOspfIpAddr(), targetLink.getOspfRemIpAddr()));
+        }
+
+        @Override
+        protected List<CompositeKey> getLookupKeys(OspfLinkTopologyEntity sourceLink, Void element) {
+            return Collections.singletonList(new CompositeKey(sourceLink.getOspfRemIpAddr(), sourceLink.getOspfIpAddr()));
+        }
     }
 }
@@ -28,6 +28,9 @@
 
 package org.opennms.netmgt.enlinkd.service.impl;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.opennms.netmgt.enlinkd.persistence.api.TopologyEntityCache;
@@ -37,6 +40,8 @@ public class TopologyServiceImpl implements TopologyService {
 
     private TopologyEntityCache m_topologyEntityCache;
     private final AtomicBoolean m_updates = new AtomicBoolean(false);
+    private final Set<Integer> m_changedNodes = ConcurrentHashMap.newKeySet();
+    private Set<Integer> m_refreshedNodes = new HashSet<>();
 
     @Override
     public  boolean parseUpdates() {
@@ -59,9 +64,34 @@ public class TopologyServiceImpl implements TopologyService {
 
     @Override
     public void refresh() {
+        // nodes changed from here on may not be part of the reloaded cache and stay pending
+        synchronized (this) {
+            for (Integer nodeId : m_changedNodes) {
+                if (m_changedNodes.remove(nodeId)) {
+                    m_refreshedNodes.add(nodeId);
+                }
+            }
+        }
         m_topologyEntityCache.refresh();
     }
 
+    /**
+     * Marks the elements or links of a node as changed, the change is picked up by the
+     * next match after the next {@link #refresh()}.
+     */
+    protected void nodeChanged(int nodeId) {
+        m_changedNodes.add(nodeId);
+    }
+
+    /**
+     * @return the nodes changed before the last {@link #refresh()} and not yet matched
+     */
+    protected synchronized Set<Integer> pollRefreshedNodes() {
+        final Set<Integer> refreshed = m_refreshedNodes;
+        m_refreshedNodes = new HashSet<>();
+        return refreshed;
+    }
+
     public TopologyEntityCache getTopologyEntityCache() {
         return m_topologyEntityCache;
     }
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.enlinkd.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.netmgt.enlinkd.service.api.CompositeKey;
+import org.opennms.netmgt.enlinkd.service.api.TopologyConnection;
+import org.opennms.netmgt.enlinkd.service.api.TopologyConnectionDelta;
+
+public class IncrementalTopologyMatcherTest {
+
+    private static class Link {
+        private final int id;
+        private final int nodeId;
+        private final String local;
+        private final String remote;
+
+        private Link(int id, int nodeId, String local, String remote) {
+            this.id = id;
+            this.nodeId = nodeId;
+            this.local = local;
+            this.remote = remote;
+        }
+    }
+
+    private static class Matcher extends IncrementalTopologyMatcher<Void, Link> {
+        private Matcher(boolean exclusiveTargets) {
+            super(exclusiveTargets);
+        }
+
+        @Override
+        protected Integer getLinkId(Link link) {
+            return link.id;
+        }
+
+        @Override
+        protected Integer getLinkNodeId(Link link) {
+            return link.nodeId;
+        }
+
+        @Override
+        protected List<CompositeKey> getIndexKeys(Link link, Void element) {
+            return Collections.singletonList(new CompositeKey(link.local, link.remote));
+        }
+
+        @Override
+        protected List<CompositeKey> getLookupKeys(Link link, Void element) {
+            return Collections.singletonList(new CompositeKey(link.remote, link.local));
+        }
+    }
+
+    private Matcher matcher;
+    private List<Link> links;
+
+    @Before
+    public void setUp() {
+        matcher = new Matcher(true);
+        links = new ArrayList<>(Arrays.asList(
+                new Link(1, 1, "a", "b"),
+                new Link(2, 2, "b", "a"),
+                new Link(3, 3, "c", "d"),
+                new Link(5, 5, "b", "a")));
+    }
+
+    @Test
+    public void firstRunMatchesAllLinks() {
+        TopologyConnectionDelta<Link, Link> delta = update();
+
+        assertEquals("[1-2]", describe(delta.getAdded()));
+        assertTrue(delta.getRemoved().isEmpty());
+        assertEquals("[1-2]", describe(matcher.getConnections()));
+    }
+
+    @Test
+    public void newLinkMatchesWaitingLink() {
+        update();
+        links.add(new Link(4, 4, "d", "c"));
+
+        TopologyConnectionDelta<Link, Link> delta = update(4);
+
+        assertEquals("[3-4]", describe(delta.getAdded()));
+        assertTrue(delta.getRemoved().isEmpty());
+        assertEquals("[1-2, 3-4]", describe(matcher.getConnections()));
+    }
+
+    @Test
+    public void removedLinkFreesPartner() {
+        update();
+        links.remove(1);
+
+        TopologyConnectionDelta<Link, Link> delta = update(2);
+
+        assertEquals("[1-2]", describe(delta.getRemoved()));
+        assertEquals("[1-5]", describe(delta.getAdded()));
+        assertEquals("[1-5]", describe(matcher.getConnections()));
+    }
+
+    @Test
+    public void changedKeysBreakConnection() {
+        update();
+        links.set(1, new Link(2, 2, "b", "x"));
+
+        TopologyConnectionDelta<Link, Link> delta = update(2);
+
+        assertEquals("[1-2]", describe(delta.getRemoved()));
+        assertEquals("[1-5]", describe(delta.getAdded()));
+    }
+
+    @Test
+    public void unchangedKeysKeepConnection() {
+        update();
+        Link updated = new Link(2, 2, "b", "a");
+        links.set(1, updated);
+
+        TopologyConnectionDelta<Link, Link> delta = update(2);
+
+        assertTrue(delta.getAdded().isEmpty());
+        assertTrue(delta.getRemoved().isEmpty());
+        assertEquals("[1-2]", describe(delta.getUpdated()));
+        assertEquals(updated, delta.getUpdated().get(0).getRight());
+        assertEquals(updated, matcher.getConnections().get(0).getRight());
+    }
+
+    @Test
+    public void onlyChangedNodesAreProcessed() {
+        update();
+        links.remove(0);
+
+        assertTrue(update().isEmpty());
+        assertTrue(update(3).isEmpty());
+        assertEquals("[1-2]", describe(matcher.getConnections()));
+
+        matcher.invalidate();
+        TopologyConnectionDelta<Link, Link> delta = update();
+
+        assertEquals("[1-2]", describe(delta.getRemoved()));
+        assertTrue(delta.getAdded().isEmpty());
+    }
+
+    @Test
+    public void sharedTargetsAreReused() {
+        matcher = new Matcher(false);
+        links.add(new Link(4, 4, "d", "c"));
+
+        TopologyConnectionDelta<Link, Link> delta = update();
+
+        assertEquals("[1-2, 3-4, 5-1]", describe(delta.getAdded()));
+        assertEquals("[1-2, 3-4, 5-1]", describe(matcher.getConnections()));
+    }
+
+    @Test
+    public void sharedTargetsDoNotDependOnOrder() {
+        matcher = new Matcher(false);
+        links.add(new Link(4, 4, "d", "c"));
+        update();
+
+        Matcher reversed = new Matcher(false);
+        List<Link> reversedLinks = new ArrayList<>(links);
+        Collections.reverse(reversedLinks);
+        reversed.update(Collections.emptyMap(), reversedLinks, Collections.emptySet());
+
+        assertEquals(describe(matcher.getConnections()), describe(reversed.getConnections()));
+    }
+
+    @Test
+    public void sharedTargetsFollowChanges() {
+        matcher = new Matcher(false);
+        update();
+        links.remove(0);
+
+        TopologyConnectionDelta<Link, Link> delta = update(1);
+
+        assertEquals("[1-2, 5-1]", describe(delta.getRemoved()));
+        assertTrue(delta.getAdded().isEmpty());
+        assertEquals("[]", describe(matcher.getConnections()));
+
+        links.add(new Link(1, 1, "a", "b"));
+        delta = update(1);
+
+        assertEquals("[1-2, 5-1]", describe(delta.getAdded()));
+        assertTrue(delta.getRemoved().isEmpty());
+    }
+
+    private TopologyConnectionDelta<Link, Link> update(Integer... changedNodes) {
+        return matcher.update(Collections.emptyMap(), links, new HashSet<>(Arrays.asList(changedNodes)));
+    }
+
+    private static String describe(List<TopologyConnection<Link, Link>> connections) {
+        return connections.stream()
+                .map(c -> c.getLeft().id + "-" + c.getRight().id)
+                .sorted()
+                .collect(Collectors.toList())
+                .toString();
+    }
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.enlinkd.service.impl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.opennms.enlinkd.generator.TopologyGenerator;
+import org.opennms.enlinkd.generator.TopologyPersister;
+import org.opennms.enlinkd.generator.TopologySettings;
+import org.opennms.netmgt.dao.api.GenericPersistenceAccessor;
+import org.opennms.netmgt.enlinkd.model.LldpElement;
+import org.opennms.netmgt.enlinkd.model.LldpElementTopologyEntity;
+import org.opennms.netmgt.enlinkd.model.LldpLink;
+import org.opennms.netmgt.enlinkd.model.LldpLinkTopologyEntity;
+import org.opennms.netmgt.enlinkd.persistence.api.TopologyEntityCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to compare matching all LLDP links of a generated topology
+ * against an incremental match after a few nodes changed.
+ * <p>
+ * The incremental benchmark alternately drops and restores the links of {@link #CHANGED_NODES} nodes and
+ * marks these nodes as changed, so every call breaks and re-forms their connections.
+ */
+public class TopologyMatcherBenchmark {
+
+    private static final int CHANGED_NODES = 10;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        @Param({"10000", "50000"})
+        private int nodes;
+
+        private List<LldpElementTopologyEntity> elements;
+        private List<LldpLinkTopologyEntity> links;
+        private List<LldpLinkTopologyEntity> reducedLinks;
+        private Set<Integer> changedNodes;
+        private boolean reduced;
+        private LldpTopologyServiceImpl incrementalService;
+
+        @Setup
+        public void setup() {
+            final List<LldpElement> lldpElements = new ArrayList<>();
+            final List<LldpLink> lldpLinks = new ArrayList<>();
+            final GenericPersistenceAccessor accessor = mock(GenericPersistenceAccessor.class);
+            doAnswer(invocation -> {
+                for (Object entity : (Collection<?>) invocation.getArgument(0)) {
+                    if (entity instanceof LldpElement) {
+                        ((LldpElement) entity).setId(lldpElements.size() + 1);
+                        lldpElements.add((LldpElement) entity);
+                    } else if (entity instanceof LldpLink) {
+                        ((LldpLink) entity).setId(lldpLinks.size() + 1);
+                        lldpLinks.add((LldpLink) entity);
+                    }
+                }
+                return null;
+            }).when(accessor).saveAll(any());
+
+            TopologyGenerator.builder()
+                    .persister(new TopologyPersister(accessor, new TopologyGenerator.ProgressCallback(progress -> {})))
+                    .progressCallback(new TopologyGenerator.ProgressCallback(progress -> {}))
+                    .build()
+                    .generateTopology(TopologySettings.builder()
+                            .protocol(TopologyGenerator.Protocol.lldp)
+                            .topology(TopologyGenerator.Topology.random)
+                            .amountNodes(nodes)
+                            .build());
+
+            elements = lldpElements.stream().map(LldpElementTopologyEntity::create).collect(Collectors.toList());
+            links = lldpLinks.stream().map(LldpLinkTopologyEntity::create).collect(Collectors.toList());
+            changedNodes = new HashSet<>();
+            for (int i = 0; i < CHANGED_NODES; i++) {
+                changedNodes.add(links.get(i * (links.size() / CHANGED_NODES)).getNodeId());
+            }
+            reducedLinks = links.stream().filter(l -> !changedNodes.contains(l.getNodeId())).collect(Collectors.toList());
+
+            incrementalService = createService(this);
+            incrementalService.match();
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void fullMatch(BState state, Blackhole blackhole) {
+        blackhole.consume(createService(state).match());
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void incrementalMatch(BState state, Blackhole blackhole) {
+        state.reduced = !state.reduced;
+        state.changedNodes.forEach(state.incrementalService::nodeChanged);
+        state.incrementalService.refresh();
+        blackhole.consume(state.incrementalService.matchDelta());
+    }
+
+    private static LldpTopologyServiceImpl createService(BState state) {
+        final TopologyEntityCache cache = mock(TopologyEntityCache.class);
+        when(cache.getLldpElementTopologyEntities()).thenAnswer(invocation -> state.elements);
+        when(cache.getLldpLinkTopologyEntities()).thenAnswer(invocation -> state.reduced ? state.reducedLinks : state.links);
+        final LldpTopologyServiceImpl service = new LldpTopologyServiceImpl();
+        service.setTopologyEntityCache(cache);
+        return service;
+    }
+}
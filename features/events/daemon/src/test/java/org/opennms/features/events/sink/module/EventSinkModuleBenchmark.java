@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.features.events.sink.module;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opennms.core.ipc.sink.protobuf.AbstractProtobufSinkModule;
+import org.opennms.netmgt.xml.event.Log;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to compare the XML and the protobuf encoding of the Events sink module.
+ * <p>
+ * The size of the encoded batch and the resulting number of bytes per event are printed during the setup.
+ */
+public class EventSinkModuleBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        @Param({ AbstractProtobufSinkModule.XML_CODEC, AbstractProtobufSinkModule.PROTOBUF_CODEC })
+        public String codec;
+
+        private EventSinkModule module;
+        private Log log;
+        private byte[] bytes;
+
+        @Setup
+        public void setup() {
+            System.setProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP, codec);
+            module = new EventSinkModule(null);
+            System.clearProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP);
+
+            log = EventSinkModuleTest.createLog(BATCH_SIZE);
+            bytes = module.marshal(log);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public byte[] marshal(BState state) {
+        return state.module.marshal(state.log);
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public Log unmarshal(BState state) {
+        return state.module.unmarshal(state.bytes);
+    }
+}
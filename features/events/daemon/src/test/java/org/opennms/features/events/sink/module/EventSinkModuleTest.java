@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.features.events.sink.module;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Test;
+import org.opennms.core.ipc.sink.protobuf.AbstractProtobufSinkModule;
+import org.opennms.core.utils.InetAddressUtils;
+import org.opennms.core.xml.JaxbUtils;
+import org.opennms.netmgt.model.events.EventBuilder;
+import org.opennms.netmgt.xml.event.AlarmData;
+import org.opennms.netmgt.xml.event.Event;
+import org.opennms.netmgt.xml.event.Log;
+import org.opennms.netmgt.xml.event.Logmsg;
+import org.opennms.netmgt.xml.event.ManagedObject;
+import org.opennms.netmgt.xml.event.Mask;
+import org.opennms.netmgt.xml.event.Snmp;
+import org.opennms.netmgt.xml.event.UpdateField;
+
+public class EventSinkModuleTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final EventSinkModule xmlModule = new EventSinkModule(null);
+        System.setProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP, AbstractProtobufSinkModule.PROTOBUF_CODEC);
+        final EventSinkModule protobufModule = new EventSinkModule(null);
+
+        final Log log = createLog(10);
+
+        final byte[] protobufBytes = protobufModule.marshal(log);
+        assertTrue(AbstractProtobufSinkModule.isProtobuf(protobufBytes));
+        assertEquals(JaxbUtils.marshal(log), JaxbUtils.marshal(protobufModule.unmarshal(protobufBytes)));
+        assertEquals(JaxbUtils.marshal(log), JaxbUtils.marshal(xmlModule.unmarshal(protobufBytes)));
+
+        // Messages sent by Minions using XML are still accepted
+        final byte[] xmlBytes = xmlModule.marshal(log);
+        assertFalse(AbstractProtobufSinkModule.isProtobuf(xmlBytes));
+        assertEquals(JaxbUtils.marshal(log), JaxbUtils.marshal(protobufModule.unmarshal(xmlBytes)));
+
+        assertTrue(protobufBytes.length < xmlBytes.length);
+    }
+
+    @Test
+    public void testFallbackToXml() {
+        System.setProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP, AbstractProtobufSinkModule.PROTOBUF_CODEC);
+        final EventSinkModule module = new EventSinkModule(null);
+
+        // Events with elements not covered by the binary encoding are sent as XML
+        final Log log = createLog(2);
+        log.getEvents().getEvent(1).setMask(new Mask());
+
+        final byte[] bytes = module.marshal(log);
+        assertFalse(AbstractProtobufSinkModule.isProtobuf(bytes));
+        assertEquals(JaxbUtils.marshal(log), JaxbUtils.marshal(module.unmarshal(bytes)));
+    }
+
+    static Log createLog(int count) {
+        final Log log = new Log();
+        for (int i = 0; i < count; i++) {
+            final EventBuilder builder = new EventBuilder("uei.opennms.org/test/sinkEvent", "EventSinkModuleTest", new Date(1600000000000L + i));
+            builder.setNodeid(i + 1);
+            builder.setInterface(InetAddressUtils.addr("10.0.0." + i));
+            builder.setService("ICMP");
+            builder.setSeverity("Minor");
+            builder.addParam("ifIndex", i);
+            builder.addParam("message", "Something happened on interface " + i);
+
+            final Event event = builder.getEvent();
+            event.setDistPoller("00000000-0000-0000-0000-000000000000");
+            event.setIfIndex(i);
+            event.addLoggroup("test");
+
+            final Logmsg logmsg = new Logmsg();
+            logmsg.setContent("Something happened");
+            event.setLogmsg(logmsg);
+
+            final Snmp snmp = new Snmp();
+            snmp.setId(".1.3.6.1.4.1.5813");
+            snmp.setVersion("v2c");
+            snmp.setGeneric(6);
+            snmp.setSpecific(i);
+            event.setSnmp(snmp);
+
+            final AlarmData alarmData = new AlarmData();
+            alarmData.setReductionKey("%uei%:%dpname%:%nodeid%");
+            alarmData.setAlarmType(1);
+            final UpdateField updateField = new UpdateField();
+            updateField.setFieldName("severity");
+            updateField.setUpdateOnReduction(false);
+            alarmData.getUpdateFieldList().add(updateField);
+            final ManagedObject managedObject = new ManagedObject();
+            managedObject.setType("node");
+            alarmData.setManagedObject(managedObject);
+            event.setAlarmData(alarmData);
+
+            log.addEvent(event);
+        }
+        return log;
+    }
+}
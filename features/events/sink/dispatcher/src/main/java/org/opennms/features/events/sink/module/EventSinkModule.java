@@ -31,26 +31,36 @@
  */
 package org.opennms.features.events.sink.module;
 
+import java.util.Date;
 import java.util.Objects;
 
 import org.opennms.core.ipc.sink.api.AggregationPolicy;
 import org.opennms.core.ipc.sink.api.AsyncPolicy;
-import org.opennms.core.ipc.sink.xml.AbstractXmlSinkModule;
+import org.opennms.core.ipc.sink.protobuf.AbstractProtobufSinkModule;
 import org.opennms.netmgt.config.api.EventdConfig;
+import org.opennms.netmgt.xml.event.AlarmData;
 import org.opennms.netmgt.xml.event.Event;
+import org.opennms.netmgt.xml.event.Events;
+import org.opennms.netmgt.xml.event.Header;
 import org.opennms.netmgt.xml.event.Log;
+import org.opennms.netmgt.xml.event.Logmsg;
+import org.opennms.netmgt.xml.event.ManagedObject;
+import org.opennms.netmgt.xml.event.Parm;
+import org.opennms.netmgt.xml.event.Snmp;
+import org.opennms.netmgt.xml.event.UpdateField;
+import org.opennms.netmgt.xml.event.Value;
 
 /**
  * @author Malatesh Sudarshan
  */
-public class EventSinkModule extends AbstractXmlSinkModule<Event, Log> {
+public class EventSinkModule extends AbstractProtobufSinkModule<Event, Log, EventSinkProtos.Log> {
 
     public static final String MODULE_ID = "Events";
 
     private final EventdConfig m_config;
 
     public EventSinkModule(EventdConfig config) {
-        super(Log.class);
+        super(Log.class, EventSinkProtos.Log.parser());
         this.m_config = config;
     }
 
@@ -120,6 +130,452 @@ public class EventSinkModule extends AbstractXmlSinkModule<Event, Log> {
         };
     }
 
+    /**
+     * Events using the configuration-only elements (mask, correlation, actions, forwards, scripts
+     * and trouble tickets) are not covered by the binary encoding and are sent as XML.
+     */
+    @Override
+    protected boolean isEncodable(Log log) {
+        if (log.getEvents() == null) {
+            return true;
+        }
+        for (final Event event : log.getEvents().getEventCollection()) {
+            if (event.getMask() != null
+                    || event.getCorrelation() != null
+                    || event.getAutoacknowledge() != null
+                    || event.getTticket() != null
+                    || event.getAutoactionCount() > 0
+                    || event.getOperactionCount() > 0
+                    || event.getForwardCount() > 0
+                    || event.getScriptCount() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected EventSinkProtos.Log toProto(Log log) {
+        final EventSinkProtos.Log.Builder builder = EventSinkProtos.Log.newBuilder();
+        final Header header = log.getHeader();
+        if (header != null) {
+            final EventSinkProtos.Header.Builder headerBuilder = EventSinkProtos.Header.newBuilder();
+            if (header.getVer() != null) {
+                headerBuilder.setVer(header.getVer());
+            }
+            if (header.getDpName() != null) {
+                headerBuilder.setDpName(header.getDpName());
+            }
+            if (header.getCreated() != null) {
+                headerBuilder.setCreated(header.getCreated());
+            }
+            if (header.getMstation() != null) {
+                headerBuilder.setMstation(header.getMstation());
+            }
+            builder.setHeader(headerBuilder);
+        }
+        final Events events = log.getEvents();
+        if (events != null) {
+            final EventSinkProtos.Events.Builder eventsBuilder = EventSinkProtos.Events.newBuilder();
+            for (final Event event : events.getEventCollection()) {
+                eventsBuilder.addEvent(toProto(event));
+            }
+            builder.setEvents(eventsBuilder);
+        }
+        return builder.build();
+    }
+
+    @Override
+    protected Log fromProto(EventSinkProtos.Log proto) {
+        final Log log = new Log();
+        if (proto.hasHeader()) {
+            final EventSinkProtos.Header headerProto = proto.getHeader();
+            final Header header = new Header();
+            if (headerProto.hasVer()) {
+                header.setVer(headerProto.getVer());
+            }
+            if (headerProto.hasDpName()) {
+                header.setDpName(headerProto.getDpName());
+            }
+            if (headerProto.hasCreated()) {
+                header.setCreated(headerProto.getCreated());
+            }
+            if (headerProto.hasMstation()) {
+                header.setMstation(headerProto.getMstation());
+            }
+            log.setHeader(header);
+        }
+        if (proto.hasEvents()) {
+            final Events events = new Events();
+            for (final EventSinkProtos.Event eventProto : proto.getEvents().getEventList()) {
+                events.addEvent(fromProto(eventProto));
+            }
+            log.setEvents(events);
+        }
+        return log;
+    }
+
+    private static EventSinkProtos.Event toProto(Event event) {
+        final EventSinkProtos.Event.Builder builder = EventSinkProtos.Event.newBuilder();
+        if (event.getUuid() != null) {
+            builder.setUuid(event.getUuid());
+        }
+        if (event.getDbid() != null) {
+            builder.setDbid(event.getDbid());
+        }
+        if (event.getDistPoller() != null) {
+            builder.setDistPoller(event.getDistPoller());
+        }
+        if (event.getCreationTime() != null) {
+            builder.setCreationTime(event.getCreationTime().getTime());
+        }
+        if (event.getMasterStation() != null) {
+            builder.setMasterStation(event.getMasterStation());
+        }
+        if (event.getUei() != null) {
+            builder.setUei(event.getUei());
+        }
+        if (event.getSource() != null) {
+            builder.setSource(event.getSource());
+        }
+        if (event.getNodeid() != null) {
+            builder.setNodeid(event.getNodeid());
+        }
+        if (event.getTime() != null) {
+            builder.setTime(event.getTime().getTime());
+        }
+        if (event.getHost() != null) {
+            builder.setHost(event.getHost());
+        }
+        if (event.getInterfaceAddress() != null) {
+            builder.setInterface(toByteString(event.getInterfaceAddress()));
+        }
+        if (event.getSnmphost() != null) {
+            builder.setSnmphost(event.getSnmphost());
+        }
+        if (event.getService() != null) {
+            builder.setService(event.getService());
+        }
+        if (event.getSnmp() != null) {
+            builder.setSnmp(toProto(event.getSnmp()));
+        }
+        for (final Parm parm : event.getParmCollection()) {
+            builder.addParms(toProto(parm));
+        }
+        if (event.getDescr() != null) {
+            builder.setDescr(event.getDescr());
+        }
+        final Logmsg logmsg = event.getLogmsg();
+        if (logmsg != null) {
+            final EventSinkProtos.Logmsg.Builder logmsgBuilder = EventSinkProtos.Logmsg.newBuilder();
+            if (logmsg.getContent() != null) {
+                logmsgBuilder.setContent(logmsg.getContent());
+            }
+            if (logmsg.getNotify() != null) {
+                logmsgBuilder.setNotify(logmsg.getNotify());
+            }
+            if (logmsg.getDest() != null) {
+                logmsgBuilder.setDest(logmsg.getDest());
+            }
+            builder.setLogmsg(logmsgBuilder);
+        }
+        if (event.getSeverity() != null) {
+            builder.setSeverity(event.getSeverity());
+        }
+        if (event.getPathoutage() != null) {
+            builder.setPathoutage(event.getPathoutage());
+        }
+        if (event.getOperinstruct() != null) {
+            builder.setOperinstruct(event.getOperinstruct());
+        }
+        for (final String loggroup : event.getLoggroupCollection()) {
+            builder.addLoggroup(loggroup);
+        }
+        if (event.getIfIndex() != null) {
+            builder.setIfIndex(event.getIfIndex());
+        }
+        if (event.getIfAlias() != null) {
+            builder.setIfAlias(event.getIfAlias());
+        }
+        if (event.getMouseovertext() != null) {
+            builder.setMouseovertext(event.getMouseovertext());
+        }
+        if (event.getAlarmData() != null) {
+            builder.setAlarmData(toProto(event.getAlarmData()));
+        }
+        return builder.build();
+    }
+
+    private static Event fromProto(EventSinkProtos.Event proto) {
+        final Event event = new Event();
+        if (proto.hasUuid()) {
+            event.setUuid(proto.getUuid());
+        }
+        if (proto.hasDbid()) {
+            event.setDbid(proto.getDbid());
+        }
+        if (proto.hasDistPoller()) {
+            event.setDistPoller(proto.getDistPoller());
+        }
+        if (proto.hasCreationTime()) {
+            event.setCreationTime(new Date(proto.getCreationTime()));
+        }
+        if (proto.hasMasterStation()) {
+            event.setMasterStation(proto.getMasterStation());
+        }
+        if (proto.hasUei()) {
+            event.setUei(proto.getUei());
+        }
+        if (proto.hasSource()) {
+            event.setSource(proto.getSource());
+        }
+        if (proto.hasNodeid()) {
+            event.setNodeid(proto.getNodeid());
+        }
+        if (proto.hasTime()) {
+            event.setTime(new Date(proto.getTime()));
+        }
+        if (proto.hasHost()) {
+            event.setHost(proto.getHost());
+        }
+        if (proto.hasInterface()) {
+            event.setInterfaceAddress(toInetAddress(proto.getInterface()));
+        }
+        if (proto.hasSnmphost()) {
+            event.setSnmphost(proto.getSnmphost());
+        }
+        if (proto.hasService()) {
+            event.setService(proto.getService());
+        }
+        if (proto.hasSnmp()) {
+            event.setSnmp(fromProto(proto.getSnmp()));
+        }
+        for (final EventSinkProtos.Parm parm : proto.getParmsList()) {
+            event.addParm(fromProto(parm));
+        }
+        if (proto.hasDescr()) {
+            event.setDescr(proto.getDescr());
+        }
+        if (proto.hasLogmsg()) {
+            // Absent fields were null on the sending side, so don't keep the defaults
+            final EventSinkProtos.Logmsg logmsgProto = proto.getLogmsg();
+            final Logmsg logmsg = new Logmsg();
+            logmsg.setContent(logmsgProto.hasContent() ? logmsgProto.getContent() : null);
+            logmsg.setNotify(logmsgProto.hasNotify() ? logmsgProto.getNotify() : null);
+            logmsg.setDest(logmsgProto.hasDest() ? logmsgProto.getDest() : null);
+            event.setLogmsg(logmsg);
+        }
+        if (proto.hasSeverity()) {
+            event.setSeverity(proto.getSeverity());
+        }
+        if (proto.hasPathoutage()) {
+            event.setPathoutage(proto.getPathoutage());
+        }
+        if (proto.hasOperinstruct()) {
+            event.setOperinstruct(proto.getOperinstruct());
+        }
+        for (final String loggroup : proto.getLoggroupList()) {
+            event.addLoggroup(loggroup);
+        }
+        if (proto.hasIfIndex()) {
+            event.setIfIndex(proto.getIfIndex());
+        }
+        if (proto.hasIfAlias()) {
+            event.setIfAlias(proto.getIfAlias());
+        }
+        if (proto.hasMouseovertext()) {
+            event.setMouseovertext(proto.getMouseovertext());
+        }
+        if (proto.hasAlarmData()) {
+            event.setAlarmData(fromProto(proto.getAlarmData()));
+        }
+        return event;
+    }
+
+    private static EventSinkProtos.Snmp toProto(Snmp snmp) {
+        final EventSinkProtos.Snmp.Builder builder = EventSinkProtos.Snmp.newBuilder();
+        if (snmp.getId() != null) {
+            builder.setId(snmp.getId());
+        }
+        if (snmp.getIdtext() != null) {
+            builder.setIdtext(snmp.getIdtext());
+        }
+        if (snmp.getVersion() != null) {
+            builder.setVersion(snmp.getVersion());
+        }
+        if (snmp.getSpecific() != null) {
+            builder.setSpecific(snmp.getSpecific());
+        }
+        if (snmp.getGeneric() != null) {
+            builder.setGeneric(snmp.getGeneric());
+        }
+        if (snmp.getCommunity() != null) {
+            builder.setCommunity(snmp.getCommunity());
+        }
+        if (snmp.getTimeStamp() != null) {
+            builder.setTimeStamp(snmp.getTimeStamp());
+        }
+        if (snmp.getTrapOID() != null) {
+            builder.setTrapOid(snmp.getTrapOID());
+        }
+        return builder.build();
+    }
+
+    private static Snmp fromProto(EventSinkProtos.Snmp proto) {
+        final Snmp snmp = new Snmp();
+        if (proto.hasId()) {
+            snmp.setId(proto.getId());
+        }
+        if (proto.hasIdtext()) {
+            snmp.setIdtext(proto.getIdtext());
+        }
+        if (proto.hasVersion()) {
+            snmp.setVersion(proto.getVersion());
+        }
+        if (proto.hasSpecific()) {
+            snmp.setSpecific(proto.getSpecific());
+        }
+        if (proto.hasGeneric()) {
+            snmp.setGeneric(proto.getGeneric());
+        }
+        if (proto.hasCommunity()) {
+            snmp.setCommunity(proto.getCommunity());
+        }
+        if (proto.hasTimeStamp()) {
+            snmp.setTimeStamp(proto.getTimeStamp());
+        }
+        if (proto.hasTrapOid()) {
+            snmp.setTrapOID(proto.getTrapOid());
+        }
+        return snmp;
+    }
+
+    private static EventSinkProtos.Parm toProto(Parm parm) {
+        final EventSinkProtos.Parm.Builder builder = EventSinkProtos.Parm.newBuilder();
+        if (parm.getParmName() != null) {
+            builder.setParmName(parm.getParmName());
+        }
+        final Value value = parm.getValue();
+        if (value != null) {
+            final EventSinkProtos.Value.Builder valueBuilder = EventSinkProtos.Value.newBuilder();
+            if (value.getContent() != null) {
+                valueBuilder.setContent(value.getContent());
+            }
+            if (value.getType() != null) {
+                valueBuilder.setType(value.getType());
+            }
+            if (value.getEncoding() != null) {
+                valueBuilder.setEncoding(value.getEncoding());
+            }
+            if (value.isExpand() != null) {
+                valueBuilder.setExpand(value.isExpand());
+            }
+            builder.setValue(valueBuilder);
+        }
+        return builder.build();
+    }
+
+    private static Parm fromProto(EventSinkProtos.Parm proto) {
+        final Parm parm = new Parm();
+        if (proto.hasParmName()) {
+            parm.setParmName(proto.getParmName());
+        }
+        if (proto.hasValue()) {
+            // Absent fields were null on the sending side, so don't keep the defaults
+            final EventSinkProtos.Value valueProto = proto.getValue();
+            final Value value = new Value();
+            value.setContent(valueProto.hasContent() ? valueProto.getContent() : null);
+            value.setType(valueProto.hasType() ? valueProto.getType() : null);
+            value.setEncoding(valueProto.hasEncoding() ? valueProto.getEncoding() : null);
+            value.setExpand(valueProto.hasExpand() ? valueProto.getExpand() : null);
+            parm.setValue(value);
+        }
+        return parm;
+    }
+
+    private static EventSinkProtos.AlarmData toProto(AlarmData alarmData) {
+        final EventSinkProtos.AlarmData.Builder builder = EventSinkProtos.AlarmData.newBuilder();
+        if (alarmData.getReductionKey() != null) {
+            builder.setReductionKey(alarmData.getReductionKey());
+        }
+        if (alarmData.getAlarmType() != null) {
+            builder.setAlarmType(alarmData.getAlarmType());
+        }
+        if (alarmData.getClearKey() != null) {
+            builder.setClearKey(alarmData.getClearKey());
+        }
+        if (alarmData.getAutoClean() != null) {
+            builder.setAutoClean(alarmData.getAutoClean());
+        }
+        if (alarmData.getX733AlarmType() != null) {
+            builder.setX733AlarmType(alarmData.getX733AlarmType());
+        }
+        if (alarmData.getX733ProbableCause() != null) {
+            builder.setX733ProbableCause(alarmData.getX733ProbableCause());
+        }
+        for (final UpdateField updateField : alarmData.getUpdateFieldList()) {
+            final EventSinkProtos.UpdateField.Builder updateFieldBuilder = EventSinkProtos.UpdateField.newBuilder();
+            if (updateField.getFieldName() != null) {
+                updateFieldBuilder.setFieldName(updateField.getFieldName());
+            }
+            if (updateField.isUpdateOnReduction() != null) {
+                updateFieldBuilder.setUpdateOnReduction(updateField.isUpdateOnReduction());
+            }
+            if (updateField.getValueExpression() != null) {
+                updateFieldBuilder.setValueExpression(updateField.getValueExpression());
+            }
+            builder.addUpdateField(updateFieldBuilder);
+        }
+        final ManagedObject managedObject = alarmData.getManagedObject();
+        if (managedObject != null) {
+            final EventSinkProtos.ManagedObject.Builder managedObjectBuilder = EventSinkProtos.ManagedObject.newBuilder();
+            if (managedObject.getType() != null) {
+                managedObjectBuilder.setType(managedObject.getType());
+            }
+            builder.setManagedObject(managedObjectBuilder);
+        }
+        return builder.build();
+    }
+
+    private static AlarmData fromProto(EventSinkProtos.AlarmData proto) {
+        final AlarmData alarmData = new AlarmData();
+        if (proto.hasReductionKey()) {
+            alarmData.setReductionKey(proto.getReductionKey());
+        }
+        if (proto.hasAlarmType()) {
+            alarmData.setAlarmType(proto.getAlarmType());
+        }
+        if (proto.hasClearKey()) {
+            alarmData.setClearKey(proto.getClearKey());
+        }
+        alarmData.setAutoClean(proto.hasAutoClean() ? proto.getAutoClean() : null);
+        if (proto.hasX733AlarmType()) {
+            alarmData.setX733AlarmType(proto.getX733AlarmType());
+        }
+        if (proto.hasX733ProbableCause()) {
+            alarmData.setX733ProbableCause(proto.getX733ProbableCause());
+        }
+        for (final EventSinkProtos.UpdateField updateFieldProto : proto.getUpdateFieldList()) {
+            final UpdateField updateField = new UpdateField();
+            if (updateFieldProto.hasFieldName()) {
+                updateField.setFieldName(updateFieldProto.getFieldName());
+            }
+            updateField.setUpdateOnReduction(updateFieldProto.hasUpdateOnReduction() ? updateFieldProto.getUpdateOnReduction() : null);
+            if (updateFieldProto.hasValueExpression()) {
+                updateField.setValueExpression(updateFieldProto.getValueExpression());
+            }
+            alarmData.getUpdateFieldList().add(updateField);
+        }
+        if (proto.hasManagedObject()) {
+            final ManagedObject managedObject = new ManagedObject();
+            if (proto.getManagedObject().hasType()) {
+                managedObject.setType(proto.getManagedObject().getType());
+            }
+            alarmData.setManagedObject(managedObject);
+        }
+        return alarmData;
+    }
+
     @Override
     public Event unmarshalSingleMessage(byte[] bytes) {
         Log log = unmarshal(bytes);
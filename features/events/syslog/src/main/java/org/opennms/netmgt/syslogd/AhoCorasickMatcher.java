@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.syslogd;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton used to find all occurrences of a fixed set of
+ * literals in a single pass over the input.
+ *
+ * The automaton is immutable once built and can be shared between threads.
+ */
+public class AhoCorasickMatcher {
+
+    /** Sorted transition characters per state */
+    private final char[][] m_keys;
+
+    /** Target states matching {@link #m_keys} */
+    private final int[][] m_targets;
+
+    private final int[] m_fail;
+
+    /** Ids of the literals ending in each state, including the ones reachable through failure links */
+    private final int[][] m_outputs;
+
+    private final int m_literalCount;
+
+    /**
+     * Builds an automaton for the given literals.
+     *
+     * The id of a literal is its position in the given list. Empty literals are matched by any input.
+     */
+    public AhoCorasickMatcher(final List<String> literals) {
+        m_literalCount = literals.size();
+
+        // Build the trie
+        final List<TreeMap<Character, Integer>> transitions = new ArrayList<>();
+        final List<List<Integer>> outputs = new ArrayList<>();
+        transitions.add(new TreeMap<>());
+        outputs.add(new ArrayList<>());
+
+        for (int id = 0; id < literals.size(); id++) {
+            final String literal = literals.get(id);
+            int state = 0;
+            for (int i = 0; i < literal.length(); i++) {
+                final char c = literal.charAt(i);
+                Integer next = transitions.get(state).get(c);
+                if (next == null) {
+                    next = transitions.size();
+                    transitions.add(new TreeMap<>());
+                    outputs.add(new ArrayList<>());
+                    transitions.get(state).put(c, next);
+                }
+                state = next;
+            }
+            outputs.get(state).add(id);
+        }
+
+        final int stateCount = transitions.size();
+        m_keys = new char[stateCount][];
+        m_targets = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            final TreeMap<Character, Integer> stateTransitions = transitions.get(state);
+            m_keys[state] = new char[stateTransitions.size()];
+            m_targets[state] = new int[stateTransitions.size()];
+            int i = 0;
+            for (final Map.Entry<Character, Integer> e : stateTransitions.entrySet()) {
+                m_keys[state][i] = e.getKey();
+                m_targets[state][i] = e.getValue();
+                i++;
+            }
+        }
+
+        // Compute the failure links in breadth-first order and merge the outputs along them
+        m_fail = new int[stateCount];
+        final Queue<Integer> queue = new ArrayDeque<>();
+        for (final int target : m_targets[0]) {
+            m_fail[target] = 0;
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.remove();
+            for (int i = 0; i < m_keys[state].length; i++) {
+                final char c = m_keys[state][i];
+                final int target = m_targets[state][i];
+
+                int fail = m_fail[state];
+                while (fail != 0 && transition(fail, c) < 0) {
+                    fail = m_fail[fail];
+                }
+                final int failTarget = transition(fail, c);
+                m_fail[target] = failTarget >= 0 ? failTarget : 0;
+                outputs.get(target).addAll(outputs.get(m_fail[target]));
+
+                queue.add(target);
+            }
+        }
+
+        m_outputs = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            m_outputs[state] = outputs.get(state).stream().mapToInt(Integer::intValue).distinct().toArray();
+        }
+    }
+
+    /**
+     * Finds all literals occurring in the given text.
+     *
+     * @return the ids of the literals found
+     */
+    public BitSet find(final CharSequence text) {
+        final BitSet found = new BitSet(m_literalCount);
+        for (final int id : m_outputs[0]) {
+            found.set(id);
+        }
+
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            int next = transition(state, c);
+            while (next < 0 && state != 0) {
+                state = m_fail[state];
+                next = transition(state, c);
+            }
+            state = next < 0 ? 0 : next;
+            for (final int id : m_outputs[state]) {
+                found.set(id);
+            }
+        }
+        return found;
+    }
+
+    public int getLiteralCount() {
+        return m_literalCount;
+    }
+
+    private int transition(final int state, final char c) {
+        final int index = Arrays.binarySearch(m_keys[state], c);
+        return index < 0 ? -1 : m_targets[state][index];
+    }
+}
@@ -33,6 +33,7 @@ import static org.opennms.core.utils.InetAddressUtils.str;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
@@ -44,6 +45,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
 
 import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
@@ -97,6 +99,11 @@ public class ConvertToEvent {
 
     private final Cache<HostNameWithLocationKey, String> m_dnsCache;
 
+    private int m_rulesEvaluated = 0;
+
+    /** Prefilters for the rules of the most recently used configuration, rebuilt whenever its generation changes */
+    private static volatile Prefilters s_prefilters;
+
     private static final LoadingCache<String,Pattern> CACHED_PATTERNS = CacheBuilder.newBuilder().build(
         new CacheLoader<String,Pattern>() {
             public Pattern load(String expression) {
@@ -400,8 +407,16 @@ public class ConvertToEvent {
 
         EventBuilder bldr = toEventBuilder(message, systemId, location, receivedTimestamp, m_locationAwareDnsLookupClient, dnsCache);
 
-        final List<UeiMatch> ueiMatch = (config.getUeiList() == null ? Collections.emptyList() : config.getUeiList());
-        for (final UeiMatch uei : ueiMatch) {
+        // The rules are taken from the prefilters, so that they always match the indices of the candidates
+        final Prefilters prefilters = getPrefilters(config);
+        final List<UeiMatch> ueiMatch = prefilters.ueiMatch;
+        final List<HideMatch> hideMatch = prefilters.hideMatch;
+
+        final BitSet ueiCandidates = prefilters.ueiPrefilter.candidates(message.getMessage());
+        for (int i = ueiCandidates.nextSetBit(0); i >= 0; i = ueiCandidates.nextSetBit(i + 1)) {
+            final UeiMatch uei = ueiMatch.get(i);
+            m_rulesEvaluated++;
+
             final boolean messageMatchesUeiListEntry = containsIgnoreCase(uei.getFacilities(), facilityTxt) &&
                                               containsIgnoreCase(uei.getSeverities(), priorityTxt) &&
                                               matchProcess(uei.getProcessMatch().orElse(null), message.getProcessName()) &&
@@ -422,13 +437,16 @@ public class ConvertToEvent {
         }
 
         // Time to verify if we need to hide the message
-        final List<HideMatch> hideMatch = (config.getHideMessages() == null ? Collections.emptyList() : config.getHideMessages());
         boolean doHide = false;
         if (hideMatch.size() > 0) {
             // Match this regex against the full string of the message
             final String fullText = message.asRfc3164Message();
 
-            for (final HideMatch hide : hideMatch) {
+            final BitSet hideCandidates = prefilters.hidePrefilter.candidates(fullText);
+            for (int i = hideCandidates.nextSetBit(0); i >= 0; i = hideCandidates.nextSetBit(i + 1)) {
+                final HideMatch hide = hideMatch.get(i);
+                m_rulesEvaluated++;
+
                 if (hide.getMatch().getType().equals("substr")) {
                     if (fullText.contains(hide.getMatch().getExpression())) {
                         // We should hide the message based on this match
@@ -460,6 +478,18 @@ public class ConvertToEvent {
         m_event = bldr.getEvent();
     }
 
+    private static Prefilters getPrefilters(final SyslogdConfig config) {
+        // Read the generation before the rules: if the config is reloaded in between,
+        // the prefilters are built from the newer rules and are only rebuilt once more
+        final long generation = config.getGeneration();
+        Prefilters prefilters = s_prefilters;
+        if (prefilters == null || prefilters.config != config || prefilters.generation != generation) {
+            prefilters = new Prefilters(config, generation);
+            s_prefilters = prefilters;
+        }
+        return prefilters;
+    }
+
     private static boolean matchFind(final String expression, final String input, final String context) {
         if (input == null) {
             return false;
@@ -611,6 +641,15 @@ public class ConvertToEvent {
         return m_event;
     }
 
+    /**
+     * Returns the number of uei-match and hide-match rules which had to be evaluated for this message.
+     *
+     * @return the number of rules evaluated
+     */
+    public int getRulesEvaluated() {
+        return m_rulesEvaluated;
+    }
+
     /**
      * <p>toString</p>
      *
@@ -622,4 +661,27 @@ public class ConvertToEvent {
             .append("Event", m_event)
             .toString();
     }
+
+    private static class Prefilters {
+        private final SyslogdConfig config;
+        private final long generation;
+
+        private final List<UeiMatch> ueiMatch;
+        private final List<HideMatch> hideMatch;
+
+        private final MatchPrefilter ueiPrefilter;
+        private final MatchPrefilter hidePrefilter;
+
+        private Prefilters(final SyslogdConfig config, final long generation) {
+            this.config = config;
+            this.generation = generation;
+            this.ueiMatch = (config.getUeiList() == null ? Collections.emptyList() : config.getUeiList());
+            this.hideMatch = (config.getHideMessages() == null ? Collections.emptyList() : config.getHideMessages());
+
+            this.ueiPrefilter = new MatchPrefilter(ueiMatch.stream().map(UeiMatch::getMatch).collect(Collectors.toList()),
+                                                   type -> type.startsWith("regex"));
+            this.hidePrefilter = new MatchPrefilter(hideMatch.stream().map(HideMatch::getMatch).collect(Collectors.toList()),
+                                                    type -> type.equals("regex"));
+        }
+    }
 }
@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.syslogd;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.opennms.netmgt.config.syslogd.Match;
+
+/**
+ * Selects the candidate rules out of an ordered list of {@link Match}es for a given text.
+ *
+ * All substring rules and the literals required by the regex rules are evaluated at once using a
+ * {@link AhoCorasickMatcher}. A rule is only a candidate if its literal occurs in the text. Rules
+ * without an extractable literal are always candidates. The candidates still have to be evaluated
+ * in order, so first-match semantics are left untouched.
+ */
+public class MatchPrefilter {
+
+    /** Minimal length of a literal extracted from a regular expression to be used for prefiltering */
+    private static final int MIN_LITERAL_LENGTH = 3;
+
+    private final int m_size;
+
+    private final AhoCorasickMatcher m_matcher;
+
+    /** For each literal id, the rules requiring that literal */
+    private final BitSet[] m_rulesByLiteral;
+
+    /** Rules which must be evaluated regardless of the text */
+    private final BitSet m_unfiltered;
+
+    /**
+     * @param matches the rules in evaluation order
+     * @param isRegex determines which match types are evaluated as regular expressions
+     */
+    public MatchPrefilter(final List<Match> matches, final Predicate<String> isRegex) {
+        m_size = matches.size();
+        m_unfiltered = new BitSet(m_size);
+
+        final Map<String, Integer> literalIds = new HashMap<>();
+        final List<String> literals = new ArrayList<>();
+        final List<BitSet> rulesByLiteral = new ArrayList<>();
+
+        for (int i = 0; i < matches.size(); i++) {
+            final Match match = matches.get(i);
+
+            final String literal;
+            if (match == null || match.getType() == null || match.getExpression() == null) {
+                literal = null;
+            } else if ("substr".equals(match.getType())) {
+                literal = match.getExpression();
+            } else if (isRegex.test(match.getType())) {
+                literal = requiredLiteral(match.getExpression());
+            } else {
+                literal = null;
+            }
+
+            if (literal == null) {
+                m_unfiltered.set(i);
+                continue;
+            }
+
+            final int id = literalIds.computeIfAbsent(literal, l -> {
+                literals.add(l);
+                rulesByLiteral.add(new BitSet(m_size));
+                return literals.size() - 1;
+            });
+            rulesByLiteral.get(id).set(i);
+        }
+
+        m_matcher = new AhoCorasickMatcher(literals);
+        m_rulesByLiteral = rulesByLiteral.toArray(new BitSet[0]);
+    }
+
+    /**
+     * Returns the indices of the rules which may match the given text.
+     *
+     * All rules are returned if the text is {@code null}.
+     */
+    public BitSet candidates(final String text) {
+        final BitSet candidates = new BitSet(m_size);
+        if (text == null) {
+            candidates.set(0, m_size);
+            return candidates;
+        }
+
+        candidates.or(m_unfiltered);
+        final BitSet literals = m_matcher.find(text);
+        for (int id = literals.nextSetBit(0); id >= 0; id = literals.nextSetBit(id + 1)) {
+            candidates.or(m_rulesByLiteral[id]);
+        }
+        return candidates;
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    /**
+     * Extracts a literal which must be contained in every text the given regular expression can be found in.
+     *
+     * Only literals outside of any group are considered. Expressions using top-level alternation, inline
+     * flags, quoting or other constructs which would make the extraction ambiguous are rejected.
+     *
+     * @return the longest required literal or {@code null} if none could be extracted
+     */
+    protected static String requiredLiteral(final String regex) {
+        try {
+            Pattern.compile(regex, Pattern.MULTILINE);
+        } catch (final PatternSyntaxException e) {
+            return null;
+        }
+
+        final StringBuilder run = new StringBuilder();
+        String best = "";
+        boolean lastLiteral = false;
+        int depth = 0;
+
+        int i = 0;
+        while (i < regex.length()) {
+            final char c = regex.charAt(i);
+
+            if (c == '*' || c == '?' || c == '{') {
+                // The preceding atom is optional
+                if (lastLiteral && depth == 0) {
+                    run.setLength(run.length() - 1);
+                    if (run.length() > 0 && Character.isHighSurrogate(run.charAt(run.length() - 1))) {
+                        run.setLength(run.length() - 1);
+                    }
+                }
+                best = longest(best, run);
+                lastLiteral = false;
+                i = skipQuantifier(regex, i);
+                continue;
+            }
+
+            if (c == '+') {
+                // The preceding atom is required, but may be repeated
+                best = longest(best, run);
+                lastLiteral = false;
+                i = skipQuantifier(regex, i);
+                continue;
+            }
+
+            if (c == '|') {
+                if (depth == 0) {
+                    return null;
+                }
+                i++;
+                continue;
+            }
+
+            if (c == '(') {
+                best = longest(best, run);
+                lastLiteral = false;
+                if (regex.startsWith("(?:", i)) {
+                    i += 3;
+                } else if (regex.startsWith("(?<", i) && i + 3 < regex.length() && Character.isLetter(regex.charAt(i + 3))) {
+                    i = regex.indexOf('>', i) + 1;
+                } else if (regex.startsWith("(?", i)) {
+                    return null;
+                } else {
+                    i++;
+                }
+                depth++;
+                continue;
+            }
+
+            if (c == ')') {
+                best = longest(best, run);
+                lastLiteral = false;
+                depth--;
+                i++;
+                continue;
+            }
+
+            if (c == '[') {
+                best = longest(best, run);
+                lastLiteral = false;
+                i = skipCharacterClass(regex, i);
+                if (i < 0) {
+                    return null;
+                }
+                continue;
+            }
+
+            if (c == '.' || c == '^' || c == '$') {
+                best = longest(best, run);
+                lastLiteral = false;
+                i++;
+                continue;
+            }
+
+            final char literal;
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    return null;
+                }
+                final char escaped = regex.charAt(i + 1);
+                if (Character.isLetterOrDigit(escaped)) {
+                    if ("QxucpPNk0123456789".indexOf(escaped) >= 0) {
+                        return null;
+                    }
+                    // Character class, anchor or control character escape
+                    best = longest(best, run);
+                    lastLiteral = false;
+                    i += 2;
+                    continue;
+                }
+                literal = escaped;
+                i += 2;
+            } else {
+                literal = c;
+                i++;
+            }
+
+            if (depth == 0) {
+                run.append(literal);
+                lastLiteral = true;
+            }
+        }
+        best = longest(best, run);
+
+        return best.length() >= MIN_LITERAL_LENGTH ? best : null;
+    }
+
+    private static String longest(final String best, final StringBuilder run) {
+        final String result = run.length() > best.length() ? run.toString() : best;
+        run.setLength(0);
+        return result;
+    }
+
+    private static int skipQuantifier(final String regex, int i) {
+        if (regex.charAt(i) == '{') {
+            i = regex.indexOf('}', i);
+        }
+        i++;
+        // Lazy or possessive suffix
+        if (i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the index following the character class starting at {@code i} or {@code -1} if the class
+     *         contains constructs which are not supported
+     */
+    private static int skipCharacterClass(final String regex, int i) {
+        i++;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        while (i < regex.length()) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+                    return -1;
+                }
+                i += 2;
+            } else if (c == '[') {
+                return -1;
+            } else if (c == ']') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+}
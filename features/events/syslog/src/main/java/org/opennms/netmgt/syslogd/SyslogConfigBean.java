@@ -131,6 +131,12 @@ public final class SyslogConfigBean implements SyslogdConfig {
 		return Collections.emptyList();
 	}
 
+	@Override
+	public long getGeneration() {
+		// The lists of rules are always empty
+		return 0;
+	}
+
 	@Override
 	public String getDiscardUei() {
 		return m_discardUei;
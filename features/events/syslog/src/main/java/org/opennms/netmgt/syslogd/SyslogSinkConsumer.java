@@ -60,6 +60,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.codahale.metrics.Timer.Context;
@@ -92,11 +93,13 @@ public class SyslogSinkConsumer implements MessageConsumer<SyslogConnection, Sys
     private final Timer consumerTimer;
     private final Timer toEventTimer;
     private final Timer broadcastTimer;
+    private final Histogram rulesEvaluatedHistogram;
 
     public SyslogSinkConsumer(MetricRegistry registry) {
         consumerTimer = registry.timer("consumer");
         toEventTimer = registry.timer("consumer.toevent");
         broadcastTimer = registry.timer("consumer.broadcast");
+        rulesEvaluatedHistogram = registry.histogram("consumer.rulesEvaluated");
         String cacheConfig = System.getProperty(dnsCacheConfigProperty, defaultCacheConfig);
         dnsCache = CacheBuilder.from(cacheConfig).recordStats().build();
         registry.register("dnsCacheSize", (Gauge<Long>) () -> dnsCache.size());
@@ -143,6 +146,7 @@ public class SyslogSinkConsumer implements MessageConsumer<SyslogConnection, Sys
                         syslogdConfig,
                         m_locationAwareDnsLookupClient,
                         dnsCache);
+                rulesEvaluatedHistogram.update(re.getRulesEvaluated());
                 events.addEvent(re.getEvent());
             } catch (final MessageDiscardedException e) {
                 LOG.info("Message discarded, returning without enqueueing event.", e);
@@ -29,26 +29,32 @@
 package org.opennms.netmgt.syslogd;
 
 import java.net.InetSocketAddress;
+import java.util.Date;
 import java.util.Objects;
 
 import org.opennms.core.ipc.sink.api.AggregationPolicy;
 import org.opennms.core.ipc.sink.api.AsyncPolicy;
-import org.opennms.core.ipc.sink.xml.AbstractXmlSinkModule;
+import org.opennms.core.ipc.sink.protobuf.AbstractProtobufSinkModule;
+import org.opennms.core.xml.ByteBufferXmlAdapter;
 import org.opennms.netmgt.config.SyslogdConfig;
 import org.opennms.netmgt.dao.api.DistPollerDao;
 import org.opennms.netmgt.syslogd.api.SyslogConnection;
 import org.opennms.netmgt.syslogd.api.SyslogMessageDTO;
 import org.opennms.netmgt.syslogd.api.SyslogMessageLogDTO;
 
-public class SyslogSinkModule extends AbstractXmlSinkModule<SyslogConnection, SyslogMessageLogDTO> {
+import com.google.protobuf.ByteString;
+
+public class SyslogSinkModule extends AbstractProtobufSinkModule<SyslogConnection, SyslogMessageLogDTO, SyslogSinkProtos.SyslogMessageLog> {
 
     public static final String MODULE_ID = "Syslog";
 
+    private static final ByteBufferXmlAdapter BYTE_BUFFER_ADAPTER = new ByteBufferXmlAdapter();
+
     private final SyslogdConfig config;
     private final DistPollerDao distPollerDao;
 
     public SyslogSinkModule(SyslogdConfig config, DistPollerDao distPollerDao) {
-        super(SyslogMessageLogDTO.class);
+        super(SyslogMessageLogDTO.class, SyslogSinkProtos.SyslogMessageLog.parser());
         this.config = Objects.requireNonNull(config);
         this.distPollerDao = Objects.requireNonNull(distPollerDao);
     }
@@ -120,6 +126,59 @@ public class SyslogSinkModule extends AbstractXmlSinkModule<SyslogConnection, Sy
         };
     }
 
+    @Override
+    protected SyslogSinkProtos.SyslogMessageLog toProto(SyslogMessageLogDTO messageLog) {
+        final SyslogSinkProtos.SyslogMessageLog.Builder builder = SyslogSinkProtos.SyslogMessageLog.newBuilder()
+                .setSourcePort(messageLog.getSourcePort());
+        if (messageLog.getSourceAddress() != null) {
+            builder.setSourceAddress(toByteString(messageLog.getSourceAddress()));
+        }
+        if (messageLog.getSystemId() != null) {
+            builder.setSystemId(messageLog.getSystemId());
+        }
+        if (messageLog.getLocation() != null) {
+            builder.setLocation(messageLog.getLocation());
+        }
+        for (final SyslogMessageDTO message : messageLog.getMessages()) {
+            final SyslogSinkProtos.SyslogMessage.Builder messageBuilder = SyslogSinkProtos.SyslogMessage.newBuilder();
+            if (message.getTimestamp() != null) {
+                messageBuilder.setTimestamp(message.getTimestamp().getTime());
+            }
+            if (message.getBytes() != null) {
+                // Use the same bytes as the XML encoding
+                messageBuilder.setBytes(ByteString.copyFrom(BYTE_BUFFER_ADAPTER.marshal(message.getBytes())));
+            }
+            builder.addMessages(messageBuilder);
+        }
+        return builder.build();
+    }
+
+    @Override
+    protected SyslogMessageLogDTO fromProto(SyslogSinkProtos.SyslogMessageLog proto) {
+        final SyslogMessageLogDTO messageLog = new SyslogMessageLogDTO();
+        if (proto.hasSourceAddress()) {
+            messageLog.setSourceAddress(toInetAddress(proto.getSourceAddress()));
+        }
+        messageLog.setSourcePort(proto.getSourcePort());
+        if (proto.hasSystemId()) {
+            messageLog.setSystemId(proto.getSystemId());
+        }
+        if (proto.hasLocation()) {
+            messageLog.setLocation(proto.getLocation());
+        }
+        for (final SyslogSinkProtos.SyslogMessage messageProto : proto.getMessagesList()) {
+            final SyslogMessageDTO message = new SyslogMessageDTO();
+            if (messageProto.hasTimestamp()) {
+                message.setTimestamp(new Date(messageProto.getTimestamp()));
+            }
+            if (messageProto.hasBytes()) {
+                message.setBytes(BYTE_BUFFER_ADAPTER.unmarshal(messageProto.getBytes().toByteArray()));
+            }
+            messageLog.getMessages().add(message);
+        }
+        return messageLog;
+    }
+
     @Override
     public SyslogConnection unmarshalSingleMessage(byte[] bytes) {
         SyslogMessageLogDTO syslogMessageLogDTO = unmarshal(bytes);
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.syslogd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.opennms.netmgt.config.syslogd.Match;
+
+public class MatchPrefilterTest {
+
+    @Test
+    public void testAhoCorasick() {
+        final AhoCorasickMatcher matcher = new AhoCorasickMatcher(Arrays.asList("he", "she", "his", "hers", "", "xyz"));
+
+        final BitSet found = matcher.find("ushers");
+        assertEquals(bits(0, 1, 3, 4), found);
+
+        assertEquals(bits(4), matcher.find(""));
+        assertEquals(bits(2, 4), matcher.find("this"));
+        assertEquals(bits(0, 4, 5), matcher.find("xyzhe"));
+    }
+
+    @Test
+    public void testRequiredLiteral() {
+        assertEquals("load test ", MatchPrefilter.requiredLiteral("foo0: .*load test (\\S+) on ((pts\\/\\d+)|(tty\\d+))"));
+        assertEquals("1997", MatchPrefilter.requiredLiteral("1997"));
+        assertEquals("192.168.", MatchPrefilter.requiredLiteral("192\\.168\\.\\d+"));
+        assertEquals("Failed password for ", MatchPrefilter.requiredLiteral("^Failed password for (\\S+) from (\\S+)"));
+        assertEquals("session", MatchPrefilter.requiredLiteral("sessions?(opened|closed)"));
+        assertEquals("c interface", MatchPrefilter.requiredLiteral("ab*c interface(?<name>[A-Z]+)"));
+        assertEquals("lin", MatchPrefilter.requiredLiteral("lin+k"));
+
+        // Alternation inside a group does not affect the literals outside of it
+        assertEquals("Interface ", MatchPrefilter.requiredLiteral("Interface (up|down)"));
+
+        // Too short
+        assertNull(MatchPrefilter.requiredLiteral("a.b.c"));
+        // Top-level alternation
+        assertNull(MatchPrefilter.requiredLiteral("link up|link down"));
+        // Inline flags
+        assertNull(MatchPrefilter.requiredLiteral("(?i)link down"));
+        // Quoting and hex escapes
+        assertNull(MatchPrefilter.requiredLiteral("\\Qlink down\\E"));
+        assertNull(MatchPrefilter.requiredLiteral("\\x41BCD"));
+        // Not a valid expression
+        assertNull(MatchPrefilter.requiredLiteral("link (down"));
+    }
+
+    @Test
+    public void testCandidatesAreSuperset() {
+        final List<Match> matches = new ArrayList<>();
+        matches.add(match("substr", "down"));
+        matches.add(match("regex", "Interface (\\S+) is (up|down)"));
+        matches.add(match("regex", "\\d+ packets"));
+        matches.add(match("regex", "(?i)LINK"));
+        matches.add(match("substr", "up"));
+        matches.add(match("regex", "fan[0-9]+ fail(ed|ure)?"));
+        matches.add(match("regex", "temp.*high"));
+        matches.add(match("unknown", "whatever"));
+
+        final MatchPrefilter prefilter = new MatchPrefilter(matches, type -> type.startsWith("regex"));
+
+        final String[] words = { "Interface", "eth0", "is", "up", "down", "link", "LINK", "fan1", "failed", "failure",
+                                 "12", "packets", "temp", "is", "high", "dropped", "-", ":" };
+        final Random random = new Random(42);
+        for (int n = 0; n < 10000; n++) {
+            final StringBuilder text = new StringBuilder();
+            final int length = random.nextInt(8);
+            for (int w = 0; w < length; w++) {
+                if (w > 0) {
+                    text.append(random.nextBoolean() ? " " : "");
+                }
+                text.append(words[random.nextInt(words.length)]);
+            }
+
+            final BitSet candidates = prefilter.candidates(text.toString());
+            for (int i = 0; i < matches.size(); i++) {
+                if (matches(matches.get(i), text.toString())) {
+                    assertEquals("Rule " + i + " must be a candidate for '" + text + "'", true, candidates.get(i));
+                }
+            }
+        }
+
+        assertEquals(bits(0, 1, 2, 3, 4, 5, 6, 7), prefilter.candidates(null));
+        assertEquals(bits(3, 7), prefilter.candidates("nothing to see"));
+    }
+
+    private static boolean matches(final Match match, final String text) {
+        switch (match.getType()) {
+            case "substr": return text.contains(match.getExpression());
+            case "regex": return Pattern.compile(match.getExpression(), Pattern.MULTILINE).matcher(text).find();
+            default: return false;
+        }
+    }
+
+    private static Match match(final String type, final String expression) {
+        final Match match = new Match();
+        match.setType(type);
+        match.setExpression(expression);
+        return match;
+    }
+
+    private static BitSet bits(final int... indices) {
+        final BitSet bits = new BitSet();
+        for (final int index : indices) {
+            bits.set(index);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.syslogd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.opennms.core.ipc.sink.protobuf.AbstractProtobufSinkModule;
+import org.opennms.netmgt.dao.api.DistPollerDao;
+import org.opennms.netmgt.syslogd.api.SyslogMessageDTO;
+import org.opennms.netmgt.syslogd.api.SyslogMessageLogDTO;
+
+public class SyslogSinkModuleTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final SyslogSinkModule xmlModule = new SyslogSinkModule(new SyslogConfigBean(), Mockito.mock(DistPollerDao.class));
+        System.setProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP, AbstractProtobufSinkModule.PROTOBUF_CODEC);
+        final SyslogSinkModule protobufModule = new SyslogSinkModule(new SyslogConfigBean(), Mockito.mock(DistPollerDao.class));
+
+        final SyslogMessageLogDTO messageLog = new SyslogMessageLogDTO("Default", "00000000-0000-0000-0000-000000000000",
+                new InetSocketAddress(InetAddress.getByName("10.0.0.1"), 514));
+        for (int i = 0; i < 3; i++) {
+            final SyslogMessageDTO message = new SyslogMessageDTO(ByteBuffer.wrap(
+                    ("<34>Oct 11 22:14:15 mymachine su: 'su root' failed for lonvick on /dev/pts/" + i).getBytes(StandardCharsets.US_ASCII)));
+            message.setTimestamp(new Date(1600000000000L + i));
+            messageLog.getMessages().add(message);
+        }
+
+        final byte[] protobufBytes = protobufModule.marshal(messageLog);
+        assertTrue(AbstractProtobufSinkModule.isProtobuf(protobufBytes));
+        assertEquals(messageLog, protobufModule.unmarshal(protobufBytes));
+        assertEquals(messageLog, xmlModule.unmarshal(protobufBytes));
+
+        // Messages sent by Minions using XML are still accepted
+        final byte[] xmlBytes = xmlModule.marshal(messageLog);
+        assertFalse(AbstractProtobufSinkModule.isProtobuf(xmlBytes));
+        assertEquals(messageLog, protobufModule.unmarshal(xmlBytes));
+
+        assertTrue(protobufBytes.length < xmlBytes.length);
+    }
+}
@@ -33,9 +33,14 @@ import java.util.Objects;
 
 import org.opennms.core.ipc.sink.api.AggregationPolicy;
 import org.opennms.core.ipc.sink.api.AsyncPolicy;
-import org.opennms.core.ipc.sink.xml.AbstractXmlSinkModule;
+import org.opennms.core.ipc.sink.protobuf.AbstractProtobufSinkModule;
 import org.opennms.netmgt.config.TrapdConfig;
 import org.opennms.netmgt.model.OnmsDistPoller;
+import org.opennms.netmgt.snmp.SnmpInstId;
+import org.opennms.netmgt.snmp.SnmpObjId;
+import org.opennms.netmgt.snmp.SnmpResult;
+import org.opennms.netmgt.snmp.SnmpUtils;
+import org.opennms.netmgt.snmp.SnmpValue;
 import org.opennms.netmgt.snmp.TrapInformation;
 import org.opennms.netmgt.snmp.snmp4j.Snmp4JStrategy;
 import org.opennms.netmgt.snmp.snmp4j.Snmp4JTrapNotifier;
@@ -44,7 +49,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.snmp4j.PDU;
 
-public class TrapSinkModule extends AbstractXmlSinkModule<TrapInformationWrapper, TrapLogDTO> {
+import com.google.protobuf.ByteString;
+
+public class TrapSinkModule extends AbstractProtobufSinkModule<TrapInformationWrapper, TrapLogDTO, TrapSinkProtos.TrapLog> {
 
     private static final Logger LOG = LoggerFactory.getLogger(TrapSinkModule.class);
 
@@ -53,7 +60,7 @@ public class TrapSinkModule extends AbstractXmlSinkModule<TrapInformationWrapper
     private OnmsDistPoller distPoller;
 
     public TrapSinkModule(TrapdConfig trapdConfig, OnmsDistPoller distPoller) {
-        super(TrapLogDTO.class);
+        super(TrapLogDTO.class, TrapSinkProtos.TrapLog.parser());
         this.config = Objects.requireNonNull(trapdConfig);
         this.distPoller = Objects.requireNonNull(distPoller);
     }
@@ -134,6 +141,128 @@ public class TrapSinkModule extends AbstractXmlSinkModule<TrapInformationWrapper
     }
 
 
+    @Override
+    protected TrapSinkProtos.TrapLog toProto(TrapLogDTO trapLog) {
+        final TrapSinkProtos.TrapLog.Builder builder = TrapSinkProtos.TrapLog.newBuilder();
+        if (trapLog.getSystemId() != null) {
+            builder.setSystemId(trapLog.getSystemId());
+        }
+        if (trapLog.getLocation() != null) {
+            builder.setLocation(trapLog.getLocation());
+        }
+        if (trapLog.getTrapAddress() != null) {
+            builder.setTrapAddress(toByteString(trapLog.getTrapAddress()));
+        }
+        for (final TrapDTO trap : trapLog.getMessages()) {
+            builder.addMessages(toProto(trap));
+        }
+        return builder.build();
+    }
+
+    @Override
+    protected TrapLogDTO fromProto(TrapSinkProtos.TrapLog proto) {
+        final TrapLogDTO trapLog = new TrapLogDTO();
+        if (proto.hasSystemId()) {
+            trapLog.setSystemId(proto.getSystemId());
+        }
+        if (proto.hasLocation()) {
+            trapLog.setLocation(proto.getLocation());
+        }
+        if (proto.hasTrapAddress()) {
+            trapLog.setTrapAddress(toInetAddress(proto.getTrapAddress()));
+        }
+        for (final TrapSinkProtos.Trap trap : proto.getMessagesList()) {
+            trapLog.addMessage(fromProto(trap));
+        }
+        return trapLog;
+    }
+
+    private static TrapSinkProtos.Trap toProto(TrapDTO trap) {
+        final TrapSinkProtos.Trap.Builder builder = TrapSinkProtos.Trap.newBuilder()
+                .setTimestamp(trap.getTimestamp())
+                .setPduLength(trap.getPduLength())
+                .setCreationTime(trap.getCreationTime());
+        if (trap.getAgentAddress() != null) {
+            builder.setAgentAddress(toByteString(trap.getAgentAddress()));
+        }
+        if (trap.getCommunity() != null) {
+            builder.setCommunity(trap.getCommunity());
+        }
+        if (trap.getVersion() != null) {
+            builder.setVersion(trap.getVersion());
+        }
+        if (trap.getRawMessage() != null) {
+            builder.setRawMessage(ByteString.copyFrom(trap.getRawMessage()));
+        }
+        final TrapIdentityDTO trapIdentity = trap.getTrapIdentity();
+        if (trapIdentity != null) {
+            final TrapSinkProtos.TrapIdentity.Builder identityBuilder = TrapSinkProtos.TrapIdentity.newBuilder()
+                    .setGeneric(trapIdentity.getGeneric())
+                    .setSpecific(trapIdentity.getSpecific());
+            if (trapIdentity.getEnterpriseId() != null) {
+                identityBuilder.setEnterpriseId(trapIdentity.getEnterpriseId());
+            }
+            if (trapIdentity.getTrapOID() != null) {
+                identityBuilder.setTrapOid(trapIdentity.getTrapOID());
+            }
+            builder.setTrapIdentity(identityBuilder);
+        }
+        for (final SnmpResult result : trap.getResults()) {
+            final TrapSinkProtos.SnmpResult.Builder resultBuilder = TrapSinkProtos.SnmpResult.newBuilder();
+            if (result.getBase() != null) {
+                resultBuilder.setBase(result.getBase().toString());
+            }
+            if (result.getInstance() != null) {
+                resultBuilder.setInstance(result.getInstance().toString());
+            }
+            if (result.getValue() != null) {
+                resultBuilder.setValueType(result.getValue().getType());
+                resultBuilder.setValue(ByteString.copyFrom(result.getValue().getBytes()));
+            }
+            builder.addResults(resultBuilder);
+        }
+        return builder.build();
+    }
+
+    private static TrapDTO fromProto(TrapSinkProtos.Trap proto) {
+        final TrapDTO trap = new TrapDTO();
+        if (proto.hasAgentAddress()) {
+            trap.setAgentAddress(toInetAddress(proto.getAgentAddress()));
+        }
+        if (proto.hasCommunity()) {
+            trap.setCommunity(proto.getCommunity());
+        }
+        if (proto.hasVersion()) {
+            trap.setVersion(proto.getVersion());
+        }
+        trap.setTimestamp(proto.getTimestamp());
+        trap.setPduLength(proto.getPduLength());
+        trap.setCreationTime(proto.getCreationTime());
+        if (proto.hasRawMessage()) {
+            trap.setRawMessage(proto.getRawMessage().toByteArray());
+        }
+        if (proto.hasTrapIdentity()) {
+            final TrapSinkProtos.TrapIdentity identityProto = proto.getTrapIdentity();
+            final TrapIdentityDTO trapIdentity = new TrapIdentityDTO();
+            trapIdentity.setGeneric(identityProto.getGeneric());
+            trapIdentity.setSpecific(identityProto.getSpecific());
+            if (identityProto.hasEnterpriseId()) {
+                trapIdentity.setEnterpriseId(identityProto.getEnterpriseId());
+            }
+            if (identityProto.hasTrapOid()) {
+                trapIdentity.setTrapOID(identityProto.getTrapOid());
+            }
+            trap.setTrapIdentity(trapIdentity);
+        }
+        for (final TrapSinkProtos.SnmpResult result : proto.getResultsList()) {
+            final SnmpObjId base = result.hasBase() ? SnmpObjId.get(result.getBase()) : null;
+            final SnmpInstId instance = result.hasInstance() ? new SnmpInstId(result.getInstance()) : null;
+            final SnmpValue value = result.hasValue() ? SnmpUtils.getValueFactory().getValue(result.getValueType(), result.getValue().toByteArray()) : null;
+            trap.getResults().add(new SnmpResult(base, instance, value));
+        }
+        return trap;
+    }
+
     @Override
     public AsyncPolicy getAsyncPolicy() {
         return new AsyncPolicy() {
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.trapd;
+
+import java.net.InetAddress;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opennms.core.ipc.sink.protobuf.AbstractProtobufSinkModule;
+import org.opennms.netmgt.model.OnmsDistPoller;
+import org.opennms.netmgt.snmp.SnmpObjId;
+import org.opennms.netmgt.snmp.SnmpResult;
+import org.opennms.netmgt.snmp.SnmpUtils;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to compare the XML and the protobuf encoding of the Trap sink module.
+ * <p>
+ * The size of the encoded batch and the resulting number of bytes per trap are printed during the setup.
+ */
+public class TrapSinkModuleBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        @Param({ AbstractProtobufSinkModule.XML_CODEC, AbstractProtobufSinkModule.PROTOBUF_CODEC })
+        public String codec;
+
+        private TrapSinkModule module;
+        private TrapLogDTO trapLog;
+        private byte[] bytes;
+
+        @Setup
+        public void setup() throws Exception {
+            System.setProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP, codec);
+            module = new TrapSinkModule(new TrapdConfigBean(), Mockito.mock(OnmsDistPoller.class));
+            System.clearProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP);
+
+            trapLog = new TrapLogDTO("00000000-0000-0000-0000-000000000000", "Default", InetAddress.getByName("10.0.0.1"));
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                final TrapDTO trap = TrapSinkModuleTest.createTrapLog().getMessages().get(0);
+                for (int j = 0; j < 8; j++) {
+                    trap.getResults().add(new SnmpResult(SnmpObjId.get(".1.3.6.1.4.1.5813.20.1." + j), null,
+                            SnmpUtils.getValueFactory().getOctetString(("Some varbind value " + i + "." + j).getBytes())));
+                }
+                trapLog.addMessage(trap);
+            }
+
+            bytes = module.marshal(trapLog);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public byte[] marshal(BState state) {
+        return state.module.marshal(state.trapLog);
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public TrapLogDTO unmarshal(BState state) {
+        return state.module.unmarshal(state.bytes);
+    }
+}
@@ -28,16 +28,29 @@
 
 package org.opennms.netmgt.trapd;
 
+import java.net.InetAddress;
+
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.opennms.core.ipc.sink.api.Message;
 import org.opennms.core.ipc.sink.api.SinkModule;
+import org.opennms.core.ipc.sink.protobuf.AbstractProtobufSinkModule;
 import org.opennms.netmgt.config.TrapdConfig;
 import org.opennms.netmgt.model.OnmsDistPoller;
+import org.opennms.netmgt.snmp.SnmpInstId;
+import org.opennms.netmgt.snmp.SnmpObjId;
+import org.opennms.netmgt.snmp.SnmpResult;
+import org.opennms.netmgt.snmp.SnmpUtils;
 
 public class TrapSinkModuleTest {
 
+    @After
+    public void tearDown() {
+        System.clearProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP);
+    }
+
     @Test
     public void testEqualsAndHashCode() throws Exception {
         SinkModule<Message, Message> mockModule = Mockito.mock(SinkModule.class);
@@ -57,4 +70,65 @@ public class TrapSinkModuleTest {
         Assert.assertNotEquals(module, mockModule);
         Assert.assertNotEquals(module.hashCode(), mockModule.hashCode());
     }
+
+    @Test
+    public void testProtobufRoundTrip() throws Exception {
+        System.setProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP, AbstractProtobufSinkModule.PROTOBUF_CODEC);
+        final TrapSinkModule module = new TrapSinkModule(new TrapdConfigBean(), Mockito.mock(OnmsDistPoller.class));
+
+        final TrapLogDTO trapLog = createTrapLog();
+        final byte[] bytes = module.marshal(trapLog);
+        Assert.assertTrue(AbstractProtobufSinkModule.isProtobuf(bytes));
+
+        final TrapLogDTO actual = module.unmarshal(bytes);
+        Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, actual.getMessages().get(0).getRawMessage());
+        actual.getMessages().get(0).setRawMessage(null);
+        trapLog.getMessages().get(0).setRawMessage(null);
+        Assert.assertEquals(trapLog, actual);
+    }
+
+    @Test
+    public void testXmlIsStillAccepted() throws Exception {
+        final TrapSinkModule xmlModule = new TrapSinkModule(new TrapdConfigBean(), Mockito.mock(OnmsDistPoller.class));
+        System.setProperty(AbstractProtobufSinkModule.CODEC_SYS_PROP, AbstractProtobufSinkModule.PROTOBUF_CODEC);
+        final TrapSinkModule protobufModule = new TrapSinkModule(new TrapdConfigBean(), Mockito.mock(OnmsDistPoller.class));
+
+        final TrapLogDTO trapLog = createTrapLog();
+        trapLog.getMessages().get(0).setRawMessage(null);
+
+        // XML is still the default
+        final byte[] bytes = xmlModule.marshal(trapLog);
+        Assert.assertFalse(AbstractProtobufSinkModule.isProtobuf(bytes));
+        Assert.assertEquals(trapLog, protobufModule.unmarshal(bytes));
+
+        // Binary payloads are understood regardless of the codec used for sending
+        Assert.assertEquals(trapLog, xmlModule.unmarshal(protobufModule.marshal(trapLog)));
+    }
+
+    static TrapLogDTO createTrapLog() throws Exception {
+        final TrapDTO trap = new TrapDTO();
+        trap.setAgentAddress(InetAddress.getByName("10.0.0.1"));
+        trap.setCommunity("public");
+        trap.setVersion("v2c");
+        trap.setTimestamp(5000L);
+        trap.setPduLength(2);
+        trap.setCreationTime(1600000000000L);
+        trap.setRawMessage(new byte[] { 1, 2, 3 });
+
+        final TrapIdentityDTO trapIdentity = new TrapIdentityDTO();
+        trapIdentity.setGeneric(6);
+        trapIdentity.setSpecific(1);
+        trapIdentity.setEnterpriseId(".1.3.6.1.4.1.5813");
+        trapIdentity.setTrapOID(".1.3.6.1.4.1.5813.0.1");
+        trap.setTrapIdentity(trapIdentity);
+
+        trap.getResults().add(new SnmpResult(SnmpObjId.get(".1.3.6.1.2.1.1.3.0"), null,
+                SnmpUtils.getValueFactory().getTimeTicks(5000L)));
+        trap.getResults().add(new SnmpResult(SnmpObjId.get(".1.3.6.1.2.1.2.2.1.2"), new SnmpInstId(1),
+                SnmpUtils.getValueFactory().getOctetString("eth0".getBytes())));
+
+        final TrapLogDTO trapLog = new TrapLogDTO("00000000-0000-0000-0000-000000000000", "Default", InetAddress.getByName("10.0.0.1"));
+        trapLog.addMessage(trap);
+        return trapLog;
+    }
 }
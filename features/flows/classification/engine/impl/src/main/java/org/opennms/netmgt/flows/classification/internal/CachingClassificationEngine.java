@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.classification.internal;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opennms.core.cache.Cache;
+import org.opennms.core.cache.CacheConfig;
+import org.opennms.netmgt.flows.classification.ClassificationEngine;
+import org.opennms.netmgt.flows.classification.ClassificationRequest;
+import org.opennms.netmgt.flows.classification.IpAddr;
+import org.opennms.netmgt.flows.classification.persistence.api.Protocol;
+import org.opennms.netmgt.flows.classification.persistence.api.Rule;
+
+import com.google.common.cache.CacheLoader;
+
+/**
+ * A classification engine that caches the classification results of its delegate.
+ * <p>
+ * Flows are dominated by a small number of protocol, port, and address combinations. Their results are cached
+ * keyed by the fields of the classification request. Each key carries the generation of the rules it was classified
+ * with. A reload of the delegate bumps the generation before the cache is cleared, so results that are computed while
+ * a reload takes place can not be found afterwards.
+ */
+public class CachingClassificationEngine implements ClassificationEngine, ClassificationEngine.ClassificationRulesReloadedListener {
+
+    private final ClassificationEngine delegate;
+    private final Cache<Key, Optional<String>> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachingClassificationEngine(ClassificationEngine delegate, CacheConfig cacheConfig) {
+        Objects.requireNonNull(cacheConfig);
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = new org.opennms.core.cache.CacheBuilder<>()
+                .withConfig(cacheConfig)
+                .withCacheLoader(new CacheLoader<Key, Optional<String>>() {
+                    @Override
+                    public Optional<String> load(Key key) {
+                        return Optional.ofNullable(delegate.classify(key.request));
+                    }
+                })
+                .build();
+        this.delegate.addClassificationRulesReloadedListener(this);
+    }
+
+    /**
+     * Wraps the given engine with a cache, unless caching is disabled by the given configuration.
+     *
+     * @return the caching engine, or the delegate itself if caching is disabled
+     */
+    public static ClassificationEngine wrap(ClassificationEngine delegate, CacheConfig cacheConfig) {
+        if (!cacheConfig.isEnabled()) {
+            return delegate;
+        }
+        return new CachingClassificationEngine(delegate, cacheConfig);
+    }
+
+    @Override
+    public String classify(ClassificationRequest classificationRequest) {
+        try {
+            return cache.get(new Key(generation.get(), classificationRequest)).orElse(null);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error loading entry from cache", e);
+        }
+    }
+
+    @Override
+    public void reload() throws InterruptedException {
+        delegate.reload();
+    }
+
+    @Override
+    public List<Rule> getInvalidRules() {
+        return delegate.getInvalidRules();
+    }
+
+    @Override
+    public void classificationRulesReloaded(List<Rule> rules) {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void addClassificationRulesReloadedListener(final ClassificationRulesReloadedListener classificationRulesReloadedListener) {
+        this.delegate.addClassificationRulesReloadedListener(classificationRulesReloadedListener);
+    }
+
+    @Override
+    public void removeClassificationRulesReloadedListener(final ClassificationRulesReloadedListener classificationRulesReloadedListener) {
+        this.delegate.removeClassificationRulesReloadedListener(classificationRulesReloadedListener);
+    }
+
+    /**
+     * Copies the fields of the request because requests are mutable.
+     */
+    private static class Key {
+        private final long generation;
+        private final String location;
+        private final Protocol protocol;
+        private final Integer srcPort;
+        private final IpAddr srcAddress;
+        private final Integer dstPort;
+        private final IpAddr dstAddress;
+        private final String exporterAddress;
+        private final int hashCode;
+
+        // a copy of the request that is used for loading the entry
+        private final ClassificationRequest request;
+
+        private Key(long generation, ClassificationRequest request) {
+            this.generation = generation;
+            this.location = request.getLocation();
+            this.protocol = request.getProtocol();
+            this.srcPort = request.getSrcPort();
+            this.srcAddress = request.getSrcAddress();
+            this.dstPort = request.getDstPort();
+            this.dstAddress = request.getDstAddress();
+            this.exporterAddress = request.getExporterAddress();
+            this.hashCode = Objects.hash(generation, location, protocol, srcPort, srcAddress, dstPort, dstAddress, exporterAddress);
+            this.request = new ClassificationRequest();
+            this.request.setLocation(location);
+            this.request.setProtocol(protocol);
+            this.request.setSrcPort(srcPort);
+            this.request.setSrcAddress(srcAddress);
+            this.request.setDstPort(dstPort);
+            this.request.setDstAddress(dstAddress);
+            this.request.setExporterAddress(exporterAddress);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return generation == key.generation
+                    && Objects.equals(srcPort, key.srcPort)
+                    && Objects.equals(dstPort, key.dstPort)
+                    && Objects.equals(protocol, key.protocol)
+                    && Objects.equals(srcAddress, key.srcAddress)
+                    && Objects.equals(dstAddress, key.dstAddress)
+                    && Objects.equals(location, key.location)
+                    && Objects.equals(exporterAddress, key.exporterAddress);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.classification.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opennms.core.cache.CacheConfigBuilder;
+import org.opennms.netmgt.flows.classification.ClassificationEngine;
+import org.opennms.netmgt.flows.classification.ClassificationRequest;
+import org.opennms.netmgt.flows.classification.FilterService;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to measure the effect of caching classification results.
+ * <p>
+ * A pool of distinct flows is generated from the pre-defined rule set. The replayed flows are drawn from this pool
+ * following a Zipf distribution, i.e. a few flows make up most of the traffic. Every benchmark method call processes
+ * {@link #BATCH_SIZE} flows.
+ */
+public class CachingClassificationEngineBenchmark {
+
+    private static final int BATCH_SIZE = 10000;
+
+    private static final String PRE_DEFINED_RULES_RESOURCE = "/pre-defined-rules.csv";
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+
+        // number of distinct flows
+        @Param({"1000", "100000"})
+        public int distinctFlows;
+
+        // exponent of the Zipf distribution; higher values concentrate traffic on fewer flows
+        @Param({"0.8", "1.2"})
+        public double skew;
+
+        private ClassificationEngine defaultEngine;
+        private ClassificationEngine cachingEngine;
+        private List<ClassificationRequest> requests;
+
+        @Setup
+        public void setup() throws InterruptedException {
+            var rules = ClassificationEngineBenchmark.getRules(PRE_DEFINED_RULES_RESOURCE);
+            defaultEngine = new DefaultClassificationEngine(() -> rules, FilterService.NOOP);
+            cachingEngine = new CachingClassificationEngine(defaultEngine, new CacheConfigBuilder()
+                    .withName("classification")
+                    .withMaximumSize(10000)
+                    .build());
+
+            final List<ClassificationRequest> flows = RandomClassificationEngineTest.streamOfclassificationRequests(rules, 123456L)
+                    .limit(distinctFlows)
+                    .collect(Collectors.toList());
+            requests = zipf(flows, skew, BATCH_SIZE, new Random(654321L));
+        }
+
+        private static List<ClassificationRequest> zipf(List<ClassificationRequest> flows, double skew, int count, Random random) {
+            final double[] cumulative = new double[flows.size()];
+            double sum = 0;
+            for (int i = 0; i < cumulative.length; i++) {
+                sum += 1.0 / Math.pow(i + 1, skew);
+                cumulative[i] = sum;
+            }
+            final List<ClassificationRequest> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                if (index < 0) {
+                    index = -index - 1;
+                }
+                result.add(flows.get(Math.min(index, flows.size() - 1)));
+            }
+            return result;
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void uncached(BState state, Blackhole blackhole) {
+        for (var request : state.requests) {
+            blackhole.consume(state.defaultEngine.classify(request));
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void cached(BState state, Blackhole blackhole) {
+        for (var request : state.requests) {
+            blackhole.consume(state.cachingEngine.classify(request));
+        }
+    }
+}
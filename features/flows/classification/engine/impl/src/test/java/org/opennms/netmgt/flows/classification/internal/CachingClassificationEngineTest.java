@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.classification.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.core.cache.CacheConfig;
+import org.opennms.core.cache.CacheConfigBuilder;
+import org.opennms.netmgt.flows.classification.ClassificationEngine;
+import org.opennms.netmgt.flows.classification.ClassificationRequest;
+import org.opennms.netmgt.flows.classification.ClassificationRequestBuilder;
+import org.opennms.netmgt.flows.classification.FilterService;
+import org.opennms.netmgt.flows.classification.persistence.api.Protocols;
+import org.opennms.netmgt.flows.classification.persistence.api.Rule;
+import org.opennms.netmgt.flows.classification.persistence.api.RuleBuilder;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class CachingClassificationEngineTest {
+
+    private final List<Rule> rules = new ArrayList<>();
+
+    private MetricRegistry delegateMetrics;
+    private ClassificationEngine delegate;
+    private ClassificationEngine cachingEngine;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        rules.add(new RuleBuilder().withName("http").withPosition(1).withDstPort(80).build());
+
+        // the timer of the timing engine counts the classifications that reach the decision tree
+        delegateMetrics = new MetricRegistry();
+        delegate = new TimingClassificationEngine(delegateMetrics, new DefaultClassificationEngine(() -> rules, FilterService.NOOP));
+        cachingEngine = new CachingClassificationEngine(delegate, new CacheConfigBuilder()
+                .withName("classification")
+                .withMaximumSize(1000)
+                .build());
+    }
+
+    @Test
+    public void verifyCaching() {
+        assertEquals("http", cachingEngine.classify(request(1234, 80)));
+        assertEquals("http", cachingEngine.classify(request(1234, 80)));
+        assertNull(cachingEngine.classify(request(1234, 443)));
+        assertNull(cachingEngine.classify(request(1234, 443)));
+
+        assertEquals(2, classifications());
+    }
+
+    @Test
+    public void verifyRequestsAreCopied() {
+        final ClassificationRequest request = request(1234, 80);
+        assertEquals("http", cachingEngine.classify(request));
+
+        // mutating a request must not alter the cached entry
+        request.setDstPort(443);
+        assertNull(cachingEngine.classify(request));
+        assertEquals("http", cachingEngine.classify(request(1234, 80)));
+
+        assertEquals(2, classifications());
+    }
+
+    @Test
+    public void verifyInvalidationOnReload() throws InterruptedException {
+        assertEquals("http", cachingEngine.classify(request(1234, 80)));
+
+        rules.clear();
+        rules.add(new RuleBuilder().withName("www").withPosition(1).withDstPort(80).build());
+        cachingEngine.reload();
+
+        assertEquals("www", cachingEngine.classify(request(1234, 80)));
+        assertEquals("www", cachingEngine.classify(request(1234, 80)));
+
+        assertEquals(2, classifications());
+    }
+
+    @Test
+    public void verifyDisabledCache() {
+        final CacheConfig cacheConfig = new CacheConfigBuilder().withName("classification").build();
+        cacheConfig.setEnabled(false);
+
+        // the delegate is used as is
+        assertSame(delegate, CachingClassificationEngine.wrap(delegate, cacheConfig));
+    }
+
+    private long classifications() {
+        return delegateMetrics.timer("classify").getCount();
+    }
+
+    private static ClassificationRequest request(int srcPort, int dstPort) {
+        return new ClassificationRequestBuilder()
+                .withLocation("Default")
+                .withSrcAddress("10.0.0.1")
+                .withSrcPort(srcPort)
+                .withDstAddress("10.0.0.2")
+                .withDstPort(dstPort)
+                .withProtocol(Protocols.getProtocol("TCP"))
+                .build();
+    }
+}
@@ -41,7 +41,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.After;
 import org.junit.Before;
@@ -294,7 +293,7 @@ public class ThresholdingIT {
     @Test
     public void testApplications() throws Exception {
         for(FlowThresholdingImpl.Session session : this.thresholding.getSessions()) {
-            for(Map.Entry<FlowThresholdingImpl.IndexKey, Map<String, AtomicLong>> entry : session.indexKeyMap.entrySet()) {
+            for(Map.Entry<FlowThresholdingImpl.IndexKey, Map<String, Long>> entry : session.getCounters().entrySet()) {
                 assertEquals(2, entry.getValue().size());
                 assertTrue(entry.getValue().containsKey("APP1"));
                 assertTrue(entry.getValue().containsKey("APP2"));
@@ -311,7 +310,7 @@ public class ThresholdingIT {
         this.thresholding.runTimerTask();
 
         for(FlowThresholdingImpl.Session session : this.thresholding.getSessions()) {
-            for(Map.Entry<FlowThresholdingImpl.IndexKey, Map<String, AtomicLong>> entry : session.indexKeyMap.entrySet()) {
+            for(Map.Entry<FlowThresholdingImpl.IndexKey, Map<String, Long>> entry : session.getCounters().entrySet()) {
                 assertEquals(3, entry.getValue().size());
                 assertTrue(entry.getValue().containsKey("APP1"));
                 assertTrue(entry.getValue().containsKey("APP2"));
@@ -327,7 +326,7 @@ public class ThresholdingIT {
         this.thresholding.runTimerTask();
 
         for(FlowThresholdingImpl.Session session : this.thresholding.getSessions()) {
-            for(Map.Entry<FlowThresholdingImpl.IndexKey, Map<String, AtomicLong>> entry : session.indexKeyMap.entrySet()) {
+            for(Map.Entry<FlowThresholdingImpl.IndexKey, Map<String, Long>> entry : session.getCounters().entrySet()) {
                 assertEquals(1, entry.getValue().size());
                 assertTrue(entry.getValue().containsKey("APP1"));
             }
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.processing.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Byte counters of a single interface and direction indexed by interned application id.
+ * <p>
+ * Flows are added to the front buffer without locking. The timer swaps the buffers and drains the former front buffer
+ * into the cumulative totals. Additions that race with a swap end up in the back buffer and are drained by the
+ * following run, so no bytes are lost.
+ * <p>
+ * If an application id does not fit into the buffers, both buffers are replaced by larger ones. The replaced buffers
+ * are drained by the next two runs to pick up additions that raced with the replacement.
+ */
+public class ApplicationCounters {
+
+    private static class Buffers {
+        private final AtomicLongArray front;
+        private final AtomicLongArray back;
+
+        private Buffers(final AtomicLongArray front, final AtomicLongArray back) {
+            this.front = front;
+            this.back = back;
+        }
+    }
+
+    private volatile Buffers buffers;
+
+    // guarded by this
+    private List<AtomicLongArray> retired = new ArrayList<>();
+
+    // guarded by this, retired buffers which have already been drained once
+    private List<AtomicLongArray> drained = new ArrayList<>();
+
+    // guarded by this
+    private long[] totals;
+
+    public ApplicationCounters(final int capacity) {
+        final int size = Math.max(capacity, 1);
+        this.buffers = new Buffers(new AtomicLongArray(size), new AtomicLongArray(size));
+        this.totals = new long[size];
+    }
+
+    public void add(final int application, final long bytes) {
+        Buffers buffers = this.buffers;
+        if (application >= buffers.front.length()) {
+            buffers = this.grow(application);
+        }
+        buffers.front.getAndAdd(application, bytes);
+    }
+
+    private synchronized Buffers grow(final int application) {
+        final Buffers buffers = this.buffers;
+        if (application < buffers.front.length()) {
+            return buffers;
+        }
+
+        final int size = Math.max(application + 1, buffers.front.length() * 2);
+        this.retired.add(buffers.front);
+        this.retired.add(buffers.back);
+        this.buffers = new Buffers(new AtomicLongArray(size), new AtomicLongArray(size));
+        return this.buffers;
+    }
+
+    /**
+     * Adds the bytes counted since the last run to the totals. The totals of applications which are not contained in
+     * the given set are reset to zero.
+     */
+    public synchronized void drain(final BitSet applications) {
+        final Buffers buffers = this.buffers;
+        this.buffers = new Buffers(buffers.back, buffers.front);
+
+        if (this.totals.length < buffers.front.length()) {
+            this.totals = Arrays.copyOf(this.totals, buffers.front.length());
+        }
+
+        this.drain(buffers.front, applications);
+        for (final AtomicLongArray buffer : this.drained) {
+            this.drain(buffer, applications);
+        }
+        for (final AtomicLongArray buffer : this.retired) {
+            this.drain(buffer, applications);
+        }
+        this.drained = this.retired;
+        this.retired = new ArrayList<>();
+
+        for (int i = applications.nextClearBit(0); i < this.totals.length; i = applications.nextClearBit(i + 1)) {
+            this.totals[i] = 0;
+        }
+    }
+
+    private void drain(final AtomicLongArray buffer, final BitSet applications) {
+        for (int i = 0; i < buffer.length(); i++) {
+            if (buffer.get(i) == 0) {
+                continue;
+            }
+            final long delta = buffer.getAndSet(i, 0);
+            if (applications.get(i)) {
+                this.totals[i] += delta;
+            }
+        }
+    }
+
+    public synchronized long get(final int application) {
+        return application < this.totals.length ? this.totals[application] : 0;
+    }
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.processing.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns application names to dense integer ids.
+ * <p>
+ * Ids are never reused, so counters that are indexed by id stay valid across reloads of the classification rules.
+ */
+public class ApplicationIds {
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private volatile String[] names = new String[0];
+
+    public int intern(final String application) {
+        final Integer id = this.ids.get(application);
+        if (id != null) {
+            return id;
+        }
+        return this.register(application);
+    }
+
+    private synchronized int register(final String application) {
+        final Integer existing = this.ids.get(application);
+        if (existing != null) {
+            return existing;
+        }
+
+        // Publish the name before the id, so every id handed out can be resolved
+        final int id = this.names.length;
+        final String[] names = Arrays.copyOf(this.names, id + 1);
+        names[id] = application;
+        this.names = names;
+
+        this.ids.put(application, id);
+        return id;
+    }
+
+    public BitSet internAll(final Collection<String> applications) {
+        final BitSet result = new BitSet();
+        for (final String application : applications) {
+            result.set(this.intern(application));
+        }
+        return result;
+    }
+
+    public String name(final int id) {
+        return this.names[id];
+    }
+
+    public int size() {
+        return this.names.length;
+    }
+}
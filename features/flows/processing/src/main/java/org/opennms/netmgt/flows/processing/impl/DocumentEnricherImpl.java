@@ -30,25 +30,38 @@ package org.opennms.netmgt.flows.processing.impl;
 
 import java.net.InetAddress;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.opennms.core.cache.Cache;
 import org.opennms.core.cache.CacheBuilder;
 import org.opennms.core.cache.CacheConfig;
 import org.opennms.core.cache.CacheConfigBuilder;
+import org.opennms.core.criteria.CriteriaBuilder;
+import org.opennms.core.criteria.Fetch.FetchType;
 import org.opennms.core.mate.api.ContextKey;
 import org.opennms.core.utils.InetAddressUtils;
 import org.opennms.netmgt.dao.api.InterfaceToNodeCache;
 import org.opennms.netmgt.dao.api.IpInterfaceDao;
 import org.opennms.netmgt.dao.api.NodeDao;
 import org.opennms.netmgt.dao.api.SessionUtils;
+import org.opennms.netmgt.events.api.EventConstants;
+import org.opennms.netmgt.events.api.EventListener;
+import org.opennms.netmgt.events.api.EventSubscriptionService;
+import org.opennms.netmgt.events.api.model.IEvent;
 import org.opennms.netmgt.flows.api.Flow;
 import org.opennms.netmgt.flows.api.FlowSource;
 import org.opennms.netmgt.flows.classification.ClassificationEngine;
@@ -62,16 +75,24 @@ import org.opennms.netmgt.model.OnmsNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.base.Strings;
 import com.google.common.cache.CacheLoader;
 
-public class DocumentEnricherImpl {
+public class DocumentEnricherImpl implements EventListener {
     private static final Logger LOG = LoggerFactory.getLogger(DocumentEnricherImpl.class);
 
     private static final String NODE_METADATA_CACHE = "flows.node.metadata";
 
+    // Events which invalidate the cached node data
+    private static final List<String> NODE_EVENT_UEIS = Arrays.asList(
+            EventConstants.NODE_ADDED_EVENT_UEI,
+            EventConstants.NODE_UPDATED_EVENT_UEI,
+            EventConstants.NODE_DELETED_EVENT_UEI,
+            EventConstants.NODE_CATEGORY_MEMBERSHIP_CHANGED_EVENT_UEI);
+
     private final NodeDao nodeDao;
 
     private final IpInterfaceDao ipInterfaceDao;
@@ -88,8 +109,17 @@ public class DocumentEnricherImpl {
     // Caches NodeDocument data for a given node metadata.
     private final Cache<NodeMetadataKey, Optional<NodeInfo>> nodeMetadataCache;
 
+    // Incremented whenever cached node data is invalidated
+    private final AtomicLong invalidations = new AtomicLong();
+
     private final Timer nodeLoadTimer;
 
+    // Number of enriched flows
+    private final Meter flowsEnriched;
+
+    // Enrichment time per batch of flows
+    private final Timer batchEnrichmentTimer;
+
     private final long clockSkewCorrectionThreshold;
 
     private final DocumentMangler mangler;
@@ -129,6 +159,8 @@ public class DocumentEnricherImpl {
                }).build();
 
         this.nodeLoadTimer = metricRegistry.timer("nodeLoadTime");
+        this.flowsEnriched = metricRegistry.meter("flowsEnriched");
+        this.batchEnrichmentTimer = metricRegistry.timer("batchEnrichment");
 
         this.clockSkewCorrectionThreshold = clockSkewCorrectionThreshold;
 
@@ -141,10 +173,20 @@ public class DocumentEnricherImpl {
             return Collections.emptyList();
         }
 
-        return sessionUtils.withTransaction(() -> flows.stream().flatMap(flow -> {
+        final long start = System.nanoTime();
+
+        // Resolve the node data for all addresses of the batch at once
+        final BatchLookup lookup = new BatchLookup(source);
+        for (final Flow flow : flows) {
+            lookup.addFlow(flow);
+        }
+        lookup.resolve();
+
+        final List<EnrichedFlow> documents = new ArrayList<>(flows.size());
+        for (final Flow flow : flows) {
             final EnrichedFlow document = this.mangler.mangle(EnrichedFlow.from(flow));
             if (document == null) {
-                return Stream.empty();
+                continue;
             }
 
             // Metadata from message
@@ -152,20 +194,20 @@ public class DocumentEnricherImpl {
             document.setLocation(source.getLocation());
 
             // Node data
-            getNodeInfoFromCache(source.getLocation(), source.getSourceAddress(), source.getContextKey(), flow.getNodeIdentifier()).ifPresent(document::setExporterNodeInfo);
+            lookup.getExporterNodeInfo(flow.getNodeIdentifier()).ifPresent(document::setExporterNodeInfo);
             if (flow.getDstAddr() != null) {
-                getNodeInfoFromCache(source.getLocation(), flow.getDstAddr(), null, null).ifPresent(document::setSrcNodeInfo);
+                lookup.getNodeInfo(flow.getDstAddr()).ifPresent(document::setSrcNodeInfo);
             }
             if (flow.getSrcAddr() != null) {
-                getNodeInfoFromCache(source.getLocation(), flow.getSrcAddr(), null, null).ifPresent(document::setDstNodeInfo);
+                lookup.getNodeInfo(flow.getSrcAddr()).ifPresent(document::setDstNodeInfo);
             }
 
             // Locality
             if (flow.getSrcAddr() != null) {
-                document.setSrcLocality(isPrivateAddress(flow.getSrcAddr()) ? EnrichedFlow.Locality.PRIVATE : EnrichedFlow.Locality.PUBLIC);
+                document.setSrcLocality(lookup.isPrivateAddress(flow.getSrcAddr()) ? EnrichedFlow.Locality.PRIVATE : EnrichedFlow.Locality.PUBLIC);
             }
             if (flow.getDstAddr() != null) {
-                document.setDstLocality(isPrivateAddress(flow.getDstAddr()) ? EnrichedFlow.Locality.PRIVATE : EnrichedFlow.Locality.PUBLIC);
+                document.setDstLocality(lookup.isPrivateAddress(flow.getDstAddr()) ? EnrichedFlow.Locality.PRIVATE : EnrichedFlow.Locality.PUBLIC);
             }
 
             if (EnrichedFlow.Locality.PUBLIC.equals(document.getDstLocality()) || EnrichedFlow.Locality.PUBLIC.equals(document.getSrcLocality())) {
@@ -198,42 +240,180 @@ public class DocumentEnricherImpl {
                 }
             }
 
-            return Stream.of(document);
-        }).collect(Collectors.toList()));
+            documents.add(document);
+        }
+
+        this.flowsEnriched.mark(flows.size());
+        this.batchEnrichmentTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        return documents;
+    }
+
+    @Override
+    public String getName() {
+        return DocumentEnricherImpl.class.getName();
+    }
+
+    @Override
+    public void onEvent(final IEvent event) {
+        // The cached node data is derived from the node, its categories and its metadata - drop the entries of the
+        // affected node so the next batch reloads them
+        final Long nodeId = event.getNodeid();
+        this.invalidations.incrementAndGet();
+        if (nodeId == null) {
+            LOG.debug("Invalidating all cached node data on {} without node.", event.getUei());
+            this.nodeInfoCache.invalidateAll();
+            this.nodeMetadataCache.invalidateAll();
+            return;
+        }
+
+        LOG.debug("Invalidating cached node data on {} for node {}.", event.getUei(), nodeId);
+        this.nodeInfoCache.invalidateIf((entry, nodeInfo) -> entry.nodeId == nodeId.intValue());
+        // Lookups which did not resolve to a node may resolve to an added or updated node now
+        this.nodeMetadataCache.invalidateIf((key, nodeInfo) -> !nodeInfo.isPresent() || nodeInfo.get().getNodeId() == nodeId.intValue());
+    }
+
+    public void bindEventSubscriptionService(final EventSubscriptionService eventSubscriptionService) {
+        if (eventSubscriptionService != null) {
+            eventSubscriptionService.addEventListener(this, NODE_EVENT_UEIS);
+        }
+    }
+
+    public void unbindEventSubscriptionService(final EventSubscriptionService eventSubscriptionService) {
+        if (eventSubscriptionService != null) {
+            eventSubscriptionService.removeEventListener(this, NODE_EVENT_UEIS);
+        }
     }
 
-    private static boolean isPrivateAddress(String ipAddress) {
-        final InetAddress inetAddress = InetAddressUtils.addr(ipAddress);
+    private static boolean isPrivateAddress(final InetAddress inetAddress) {
         return inetAddress.isLoopbackAddress() || inetAddress.isLinkLocalAddress() || inetAddress.isSiteLocalAddress();
     }
 
-    private Optional<NodeInfo> getNodeInfoFromCache(final String location, final String ipAddress, final ContextKey contextKey, final String value) {
-        Optional<NodeInfo> nodeDocument = Optional.empty();
-        if (contextKey != null && !Strings.isNullOrEmpty(value)) {
-            final NodeMetadataKey metadataKey = new NodeMetadataKey(contextKey, value);
-            try {
-                nodeDocument = this.nodeMetadataCache.get(metadataKey);
-            } catch (ExecutionException e) {
-                LOG.error("Error while retrieving NodeDocument from NodeMetadataCache: {}.", e.getMessage(), e);
-                throw new RuntimeException(e);
+    /**
+     * Resolves the node data for all addresses seen in a batch of flows.
+     *
+     * Every distinct address is parsed and looked up only once. Lookups are answered from the caches and the misses
+     * of the whole batch are loaded with a single query, so a transaction is only opened if anything is missing.
+     */
+    private class BatchLookup {
+        private final FlowSource source;
+
+        private final Map<String, InetAddress> addresses = new HashMap<>();
+
+        private final Map<String, Optional<InterfaceToNodeCache.Entry>> entries = new HashMap<>();
+
+        private final Map<InterfaceToNodeCache.Entry, Optional<NodeInfo>> nodeInfos = new HashMap<>();
+
+        private final Map<String, Optional<NodeInfo>> exporterNodeInfos = new HashMap<>();
+
+        private BatchLookup(final FlowSource source) {
+            this.source = Objects.requireNonNull(source);
+            this.addAddress(source.getSourceAddress());
+        }
+
+        private void addFlow(final Flow flow) {
+            if (flow.getSrcAddr() != null) {
+                this.addAddress(flow.getSrcAddr());
+            }
+            if (flow.getDstAddr() != null) {
+                this.addAddress(flow.getDstAddr());
             }
-            if(nodeDocument.isPresent()) {
-                return nodeDocument;
+            if (this.source.getContextKey() != null && !Strings.isNullOrEmpty(flow.getNodeIdentifier())) {
+                this.exporterNodeInfos.putIfAbsent(flow.getNodeIdentifier(), null);
             }
         }
 
-        final var entry = this.interfaceToNodeCache.getFirst(location, InetAddressUtils.addr(ipAddress));
-        if(entry.isPresent()) {
-            try {
-                return this.nodeInfoCache.get(entry.get());
-            } catch (ExecutionException e) {
-                LOG.error("Error while retrieving NodeDocument from NodeInfoCache: {}.", e.getMessage(), e);
-                throw new RuntimeException(e);
+        private void addAddress(final String address) {
+            if (this.addresses.containsKey(address)) {
+                return;
             }
+
+            final InetAddress inetAddress = InetAddressUtils.addr(address);
+            this.addresses.put(address, inetAddress);
+
+            final Optional<InterfaceToNodeCache.Entry> entry = interfaceToNodeCache.getFirst(this.source.getLocation(), inetAddress);
+            this.entries.put(address, entry);
+            entry.ifPresent(e -> this.nodeInfos.putIfAbsent(e, nodeInfoCache.getIfCached(e)));
+        }
+
+        private void resolve() {
+            this.exporterNodeInfos.replaceAll((value, nodeInfo) -> nodeMetadataCache.getIfCached(new NodeMetadataKey(this.source.getContextKey(), value)));
+
+            final List<InterfaceToNodeCache.Entry> missingEntries = this.nodeInfos.entrySet().stream()
+                    .filter(e -> e.getValue() == null)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            final List<String> missingValues = this.exporterNodeInfos.entrySet().stream()
+                    .filter(e -> e.getValue() == null)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            if (missingEntries.isEmpty() && missingValues.isEmpty()) {
+                return;
+            }
+
+            sessionUtils.withReadOnlyTransaction(() -> {
+                if (!missingEntries.isEmpty()) {
+                    // Node data loaded across an invalidation may be stale and is only used for this batch
+                    final long generation = invalidations.get();
+                    final Map<Integer, OnmsNode> nodes = loadNodes(missingEntries);
+                    for (final InterfaceToNodeCache.Entry entry : missingEntries) {
+                        final Optional<NodeInfo> nodeInfo = mapOnmsNodeToNodeDocument(nodes.get(entry.nodeId), entry.interfaceId);
+                        if (invalidations.get() == generation) {
+                            nodeInfoCache.put(entry, nodeInfo);
+                            if (invalidations.get() != generation) {
+                                // Invalidated in between, so drop what was just put
+                                nodeInfoCache.invalidateIf((key, value) -> key.equals(entry));
+                            }
+                        }
+                        this.nodeInfos.put(entry, nodeInfo);
+                    }
+                }
+
+                for (final String value : missingValues) {
+                    try {
+                        this.exporterNodeInfos.put(value, nodeMetadataCache.get(new NodeMetadataKey(this.source.getContextKey(), value)));
+                    } catch (ExecutionException e) {
+                        LOG.error("Error while retrieving NodeDocument from NodeMetadataCache: {}.", e.getMessage(), e);
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+
+        private Optional<NodeInfo> getNodeInfo(final String address) {
+            return this.entries.get(address)
+                    .flatMap(this.nodeInfos::get);
+        }
+
+        private Optional<NodeInfo> getExporterNodeInfo(final String value) {
+            if (this.source.getContextKey() != null && !Strings.isNullOrEmpty(value)) {
+                final Optional<NodeInfo> nodeInfo = this.exporterNodeInfos.get(value);
+                if (nodeInfo.isPresent()) {
+                    return nodeInfo;
+                }
+            }
+            return this.getNodeInfo(this.source.getSourceAddress());
+        }
+
+        private boolean isPrivateAddress(final String address) {
+            return DocumentEnricherImpl.isPrivateAddress(this.addresses.get(address));
         }
-        return nodeDocument;
     }
 
+    private Map<Integer, OnmsNode> loadNodes(final Collection<InterfaceToNodeCache.Entry> entries) {
+        final Set<Integer> nodeIds = entries.stream()
+                .map(entry -> entry.nodeId)
+                .collect(Collectors.toSet());
+
+        try (Timer.Context ctx = this.nodeLoadTimer.time()) {
+            // The categories are fetched with the nodes, as a join repeats each node once per category
+            return this.nodeDao.findMatching(new CriteriaBuilder(OnmsNode.class)
+                            .in("id", nodeIds)
+                            .fetch("categories", FetchType.EAGER)
+                            .toCriteria()).stream()
+                    .collect(Collectors.toMap(OnmsNode::getId, Function.identity(), (node, duplicate) -> node));
+        }
+    }
 
     // Key class, which is used to cache NodeInfo for a given node metadata.
     private static class NodeMetadataKey {
@@ -34,6 +34,7 @@ import java.io.Closeable;
 import java.io.File;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -45,11 +46,13 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.opennms.netmgt.collection.api.CollectionAgent;
@@ -83,6 +86,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class FlowThresholdingImpl implements Closeable, ClassificationEngine.ClassificationRulesReloadedListener {
     private static final Logger LOG = LoggerFactory.getLogger(FlowThresholdingImpl.class);
@@ -108,11 +112,17 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
 
     private final ConcurrentMap<ExporterKey, Session> sessions = Maps.newConcurrentMap();
 
+    private final ApplicationIds applicationIds = new ApplicationIds();
+
     private long stepSizeMs = 0;
     private volatile long idleTimeoutMs = 15 * 60 * 1000;
 
     private Timer timer;
 
+    private int timerThreads = 1;
+
+    private volatile ExecutorService timerExecutor;
+
     private FilterService filterService;
 
     private ClassificationEngine classificationEngine;
@@ -202,15 +212,76 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
         this.idleTimeoutMs = idleTimeoutMs;
     }
 
+    public int getTimerThreads() {
+        return this.timerThreads;
+    }
+
+    public synchronized void setTimerThreads(final int timerThreads) {
+        if (this.timerExecutor != null) {
+            this.timerExecutor.shutdown();
+            this.timerExecutor = null;
+        }
+
+        this.timerThreads = Math.max(timerThreads, 1);
+
+        if (this.timerThreads > 1) {
+            this.timerExecutor = Executors.newFixedThreadPool(this.timerThreads, new ThreadFactoryBuilder()
+                    .setNameFormat(SERVICE_NAME + "-Timer-%d")
+                    .setDaemon(true)
+                    .build());
+        }
+    }
+
     public void runTimerTask() {
         // Use one timestamp for the whole timer task run...
         final Date timerTaskDate = new Date();
 
+        LOG.debug("Running Timer task for {} session(s)...", this.sessions.size());
+
+        // Sessions are sharded by exporter, so each session is processed by a single thread
+        final List<List<Map.Entry<ExporterKey, Session>>> shards = Lists.newArrayList();
+        for (int i = 0; i < this.timerThreads; i++) {
+            shards.add(Lists.newArrayList());
+        }
+        for (final Map.Entry<ExporterKey, Session> entry : this.sessions.entrySet()) {
+            shards.get(Math.floorMod(entry.getKey().hashCode(), shards.size())).add(entry);
+        }
+
         final List<ExporterKey> idleSessions = Lists.newArrayList();
 
-        LOG.debug("Running Timer task for {} session(s)...", this.sessions.entrySet().size());
+        final ExecutorService timerExecutor = this.timerExecutor;
+        if (timerExecutor == null || shards.size() == 1) {
+            for (final List<Map.Entry<ExporterKey, Session>> shard : shards) {
+                idleSessions.addAll(this.runTimerTask(timerTaskDate, shard));
+            }
+        } else {
+            final List<Future<List<ExporterKey>>> futures = Lists.newArrayList();
+            for (final List<Map.Entry<ExporterKey, Session>> shard : shards) {
+                futures.add(timerExecutor.submit(() -> this.runTimerTask(timerTaskDate, shard)));
+            }
+            for (final Future<List<ExporterKey>> future : futures) {
+                try {
+                    idleSessions.addAll(future.get());
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (final ExecutionException e) {
+                    LOG.error("Thresholding timer shard bailed", e.getCause());
+                }
+            }
+        }
 
-        for (final Map.Entry<ExporterKey, Session> entry : this.sessions.entrySet()) {
+        // Cleanup idle sessions
+        for (ExporterKey exporterKey : idleSessions) {
+            LOG.debug("Dropping session for exporterKey={}", exporterKey);
+            this.sessions.remove(exporterKey);
+        }
+    }
+
+    private List<ExporterKey> runTimerTask(final Date timerTaskDate, final List<Map.Entry<ExporterKey, Session>> shard) {
+        final List<ExporterKey> idleSessions = Lists.newArrayList();
+
+        for (final Map.Entry<ExporterKey, Session> entry : shard) {
             final var exporterKey = entry.getKey();
             final var session = entry.getValue();
 
@@ -225,30 +296,36 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
             final OnmsIpInterface iface = this.ipInterfaceDao.get(exporterKey.interfaceId);
             final NodeLevelResource nodeResource = new NodeLevelResource(iface.getNodeId());
 
-            for (final Map.Entry<IndexKey, Map<String, AtomicLong>> indexEntry : session.indexKeyMap.entrySet()) {
-                for (final Map.Entry<String, AtomicLong> applicationEntry : indexEntry.getValue().entrySet()) {
-                    try {
-                        final String ifName = getIfNameForNodeIdAndIfIndex(session.collectionAgent.getNodeId(), indexEntry.getKey().iface);
+            final BitSet applications = session.drain();
+
+            for (final Map.Entry<IndexKey, ApplicationCounters> indexEntry : session.counters()) {
+                final String ifName = getIfNameForNodeIdAndIfIndex(session.collectionAgent.getNodeId(), indexEntry.getKey().iface);
+                final String ds = indexEntry.getKey().direction == Direction.INGRESS
+                        ? "bytesIn"
+                        : "bytesOut";
 
+                for (int id = applications.nextSetBit(0); id >= 0; id = applications.nextSetBit(id + 1)) {
+                    final String application = this.applicationIds.name(id);
+                    final long value = indexEntry.getValue().get(id);
+
+                    try {
                         final DeferredGenericTypeResource appResource = new DeferredGenericTypeResource(nodeResource,
                                 RESOURCE_TYPE_NAME,
                                 String.format("%s:%s",
                                         ifName,
-                                        applicationEntry.getKey()));
+                                        application));
 
                         final var collectionSet = new CollectionSetBuilder(session.collectionAgent)
                                 .withTimestamp(timerTaskDate)
                                 .withSequenceNumber(session.sequenceNumber.getAndIncrement())
                                 .withCounter(appResource,
                                         RESOURCE_GROUP,
-                                        indexEntry.getKey().direction == Direction.INGRESS
-                                                ? "bytesIn"
-                                                : "bytesOut",
-                                        applicationEntry.getValue().get())
+                                        ds,
+                                        value)
                                 .withStringAttribute(appResource,
                                         RESOURCE_GROUP,
                                         "application",
-                                        applicationEntry.getKey())
+                                        application)
                                 .withStringAttribute(appResource,
                                         RESOURCE_GROUP,
                                         "ifName",
@@ -257,20 +334,20 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
 
                         if (session.thresholding) {
                             LOG.trace("Checking thresholds for collection-set value={}, ifName={}, application={}, ds={}",
-                                    applicationEntry.getValue().get(),
+                                    value,
                                     ifName,
-                                    applicationEntry.getKey(),
-                                    indexEntry.getKey().direction == Direction.INGRESS ? "bytesIn" : "bytesOut");
+                                    application,
+                                    ds);
 
                             session.thresholdingSession.accept(collectionSet);
                         }
 
                         if (session.dataCollection) {
                             LOG.trace("Persisting data for collection-set value={}, ifName={}, application={}, ds={}",
-                                    applicationEntry.getValue().get(),
+                                    value,
                                     ifName,
-                                    applicationEntry.getKey(),
-                                    indexEntry.getKey().direction == Direction.INGRESS ? "bytesIn" : "bytesOut");
+                                    application,
+                                    ds);
 
                             final var repository = new RrdRepository();
                             repository.setStep(session.packageDefinition.getRrd().getStep());
@@ -292,11 +369,7 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
             }
         }
 
-        // Cleanup idle sessions
-        for (ExporterKey exporterKey : idleSessions) {
-            LOG.debug("Dropping session for exporterKey={}", exporterKey);
-            this.sessions.remove(exporterKey);
-        }
+        return idleSessions;
     }
 
     private Set<String> getListOfApplicationsToPersist(final String exporterIpAddress) {
@@ -362,7 +435,8 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
                                 }
                             }
 
-                            return new Session(thresholdingSession,
+                            return new Session(applicationIds,
+                                    thresholdingSession,
                                     collectionAgent,
                                     systemIdHash,
                                     options.applicationThresholding,
@@ -372,7 +446,7 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
                                     getListOfApplicationsToPersist(collectionAgent.getHostAddress()));
                         }));
 
-                session.process(now, document);
+                session.process(now, this.applicationIds.intern(document.getApplication()), document);
             }
         }
     }
@@ -388,7 +462,9 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
     public static class Session {
         private static final Logger LOG = LoggerFactory.getLogger(Session.class);
 
-        public final Map<IndexKey, Map<String, AtomicLong>> indexKeyMap = Maps.newConcurrentMap();
+        // Counters by ifIndex
+        private final ConcurrentMap<Integer, ApplicationCounters> ingress = Maps.newConcurrentMap();
+        private final ConcurrentMap<Integer, ApplicationCounters> egress = Maps.newConcurrentMap();
 
         public final boolean thresholding;
         public final boolean dataCollection;
@@ -407,11 +483,13 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
 
         private final String exporterIpAddress;
 
-        private ReentrantReadWriteLock applicationsReadWriteLock = new ReentrantReadWriteLock();
+        private final ApplicationIds applicationIds;
 
-        private Set<String> applications;
+        // The ids of the applications to persist, replaced as a whole on updates
+        private volatile BitSet applications;
 
-        private Session(final ThresholdingSession thresholdingSession,
+        private Session(final ApplicationIds applicationIds,
+                        final ThresholdingSession thresholdingSession,
                         final CollectionAgent collectionAgent,
                         final long systemIdHash,
                         final boolean thresholding,
@@ -420,6 +498,7 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
                         final String exporterIpAddress,
                         final Set<String> applicationsToPersist) {
             this.sequenceNumber = new AtomicLong(systemIdHash | ThreadLocalRandom.current().nextInt());
+            this.applicationIds = Objects.requireNonNull(applicationIds);
             this.thresholdingSession = Objects.requireNonNull(thresholdingSession);
             this.collectionAgent = Objects.requireNonNull(collectionAgent);
             this.thresholding = thresholding;
@@ -430,66 +509,74 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
         }
 
         public void updateApplicationList(final Set<String> applications) {
-            final Lock writeLock = applicationsReadWriteLock.writeLock();
-            writeLock.lock();
-
-            try {
-                this.applications = applications;
-
-                LOG.debug("Found {} matching applications for exporter {}", this.applications.size(), exporterIpAddress);
-
-                for (final IndexKey indexKey : indexKeyMap.keySet()) {
-                    final int beforeAdd = indexKeyMap.get(indexKey).size();
+            this.applications = this.applicationIds.internAll(applications);
 
-                    for (final String application : this.applications) {
-                        indexKeyMap.get(indexKey).computeIfAbsent(application, a -> new AtomicLong(0));
-                    }
-
-                    final int afterAddBeforePurge = indexKeyMap.get(indexKey).size();
-                    LOG.debug("Added {} applications for {}/{}/{}", afterAddBeforePurge - beforeAdd, exporterIpAddress, indexKey.iface, indexKey.direction);
-
-                    indexKeyMap.get(indexKey).keySet().retainAll(applications);
-                    final int afterPurge = indexKeyMap.get(indexKey).size();
-                    LOG.debug("Removed {} applications for {}/{}/{}", afterAddBeforePurge - afterPurge, exporterIpAddress, indexKey.iface, indexKey.direction);
-                }
-            } finally {
-                writeLock.unlock();
-            }
+            // Counters of removed applications are reset by the next timer run
+            LOG.debug("Found {} matching applications for exporter {}", applications.size(), exporterIpAddress);
         }
 
-        private void addValue(final IndexKey indexKey, final String application, final long bytes) {
-            if (!indexKeyMap.containsKey(indexKey)) {
-                final Lock readLock = applicationsReadWriteLock.readLock();
-                readLock.lock();
-                try {
-                    indexKeyMap.put(indexKey, applications.stream().collect(Collectors.toConcurrentMap(Function.identity(), e -> new AtomicLong(0))));
-                } finally {
-                    readLock.unlock();
-                }
+        private void addValue(final ConcurrentMap<Integer, ApplicationCounters> counters, final Integer iface, final int application, final long bytes) {
+            ApplicationCounters applicationCounters = counters.get(iface);
+            if (applicationCounters == null) {
+                applicationCounters = counters.computeIfAbsent(iface, i -> new ApplicationCounters(this.applicationIds.size()));
             }
-
-            indexKeyMap.get(indexKey).get(application).addAndGet(bytes);
+            applicationCounters.add(application, bytes);
         }
 
-        public void process(final Instant now, final EnrichedFlow document) {
+        public void process(final Instant now, final int application, final EnrichedFlow document) {
             if (document.getInputSnmp() != null &&
                     document.getInputSnmp() != 0 &&
                     (document.getDirection() == Direction.INGRESS || document.getDirection() == Direction.UNKNOWN)) {
-                final IndexKey indexKey = new IndexKey(document.getInputSnmp(), Direction.INGRESS);
-                addValue(indexKey, document.getApplication(), document.getBytes());
+                addValue(this.ingress, document.getInputSnmp(), application, document.getBytes());
             }
 
             if (document.getOutputSnmp() != null
                     && document.getOutputSnmp() != 0 &&
                     (document.getDirection() == Direction.EGRESS || document.getDirection() == Direction.UNKNOWN)) {
-                final IndexKey indexKey = new IndexKey(document.getOutputSnmp(), Direction.EGRESS);
-                addValue(indexKey, document.getApplication(), document.getBytes());
+                addValue(this.egress, document.getOutputSnmp(), application, document.getBytes());
             }
 
             // Mark session as updated
             this.lastUpdate = now;
         }
 
+        /**
+         * Drains the counters of all interfaces and returns the ids of the applications to persist.
+         */
+        private BitSet drain() {
+            final BitSet applications = this.applications;
+            for (final ApplicationCounters counters : this.ingress.values()) {
+                counters.drain(applications);
+            }
+            for (final ApplicationCounters counters : this.egress.values()) {
+                counters.drain(applications);
+            }
+            return applications;
+        }
+
+        private List<Map.Entry<IndexKey, ApplicationCounters>> counters() {
+            final List<Map.Entry<IndexKey, ApplicationCounters>> result = Lists.newArrayListWithCapacity(this.ingress.size() + this.egress.size());
+            this.ingress.forEach((iface, counters) -> result.add(Maps.immutableEntry(new IndexKey(iface, Direction.INGRESS), counters)));
+            this.egress.forEach((iface, counters) -> result.add(Maps.immutableEntry(new IndexKey(iface, Direction.EGRESS), counters)));
+            return result;
+        }
+
+        /**
+         * Returns the byte counters as of the last timer run for each interface and application to persist.
+         */
+        public Map<IndexKey, Map<String, Long>> getCounters() {
+            final BitSet applications = this.applications;
+            final Map<IndexKey, Map<String, Long>> result = Maps.newHashMap();
+            for (final Map.Entry<IndexKey, ApplicationCounters> entry : this.counters()) {
+                final Map<String, Long> values = Maps.newHashMap();
+                for (int id = applications.nextSetBit(0); id >= 0; id = applications.nextSetBit(id + 1)) {
+                    values.put(this.applicationIds.name(id), entry.getValue().get(id));
+                }
+                result.put(entry.getKey(), values);
+            }
+            return result;
+        }
+
         public Instant getLastUpdate() {
             return this.lastUpdate;
         }
@@ -513,6 +600,12 @@ public class FlowThresholdingImpl implements Closeable, ClassificationEngine.Cla
             timer.cancel();
             timer = null;
         }
+        synchronized (this) {
+            if (timerExecutor != null) {
+                timerExecutor.shutdown();
+                timerExecutor = null;
+            }
+        }
         this.sessions.clear();
     }
 
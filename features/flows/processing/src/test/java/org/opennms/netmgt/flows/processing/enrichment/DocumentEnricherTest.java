@@ -41,9 +41,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.Mockito;
+import org.opennms.core.criteria.Criteria;
 import org.opennms.core.utils.InetAddressUtils;
 import org.opennms.netmgt.dao.api.InterfaceToNodeCache;
 import org.opennms.netmgt.dao.api.NodeDao;
+import org.opennms.netmgt.events.api.EventConstants;
+import org.opennms.netmgt.events.api.model.ImmutableEvent;
 import org.opennms.netmgt.flows.api.Flow;
 import org.opennms.netmgt.flows.api.FlowSource;
 import org.opennms.netmgt.flows.classification.ClassificationRequest;
@@ -63,6 +67,7 @@ public class DocumentEnricherTest {
         final NodeDao nodeDao = factory.getNodeDao();
         final InterfaceToNodeCache interfaceToNodeCache = factory.getInterfaceToNodeCache();
         final AtomicInteger nodeDaoGetCounter = factory.getNodeDaoGetCounter();
+        final AtomicInteger nodeDaoFindMatchingCounter = factory.getNodeDaoFindMatchingCounter();
 
         interfaceToNodeCache.setNodeId("Default", InetAddressUtils.addr("10.0.0.1"), 1);
         interfaceToNodeCache.setNodeId("Default", InetAddressUtils.addr("10.0.0.2"), 2);
@@ -72,20 +77,27 @@ public class DocumentEnricherTest {
         nodeDao.save(createOnmsNode(2, "my-requisition"));
         nodeDao.save(createOnmsNode(3, "my-requisition"));
 
+        // get is called for each save, so we account for those as well
+        Assert.assertEquals(3, nodeDaoGetCounter.get());
+
         final List<Flow> documents = Lists.newArrayList();
         documents.add(createFlowDocument("10.0.0.1", "10.0.0.2"));
         documents.add(createFlowDocument("10.0.0.1", "10.0.0.3"));
-        enricher.enrich(documents, new FlowSource("Default", "127.0.0.1", null));
+        final List<EnrichedFlow> enrichedFlows = enricher.enrich(documents, new FlowSource("Default", "127.0.0.1", null));
 
-        // get is also called for each save, so we account for those as well
-        Assert.assertEquals(6, nodeDaoGetCounter.get());
+        // All nodes of the batch are loaded with a single query
+        Assert.assertEquals(3, nodeDaoGetCounter.get());
+        Assert.assertEquals(1, nodeDaoFindMatchingCounter.get());
+        Assert.assertEquals(2, enrichedFlows.get(0).getSrcNodeInfo().getNodeId());
+        Assert.assertEquals(1, enrichedFlows.get(0).getDstNodeInfo().getNodeId());
+        Assert.assertEquals(3, enrichedFlows.get(1).getSrcNodeInfo().getNodeId());
 
         // Try to enrich flow documents to existing IpAddresses.
         documents.clear();
         documents.add(createFlowDocument("10.0.0.2", "10.0.0.3"));
         enricher.enrich(documents, new FlowSource("Default", "127.0.0.1", null));
         // Since above two addresses are cached, no extra calls to nodeDao.
-        Assert.assertEquals(6, nodeDaoGetCounter.get());
+        Assert.assertEquals(1, nodeDaoFindMatchingCounter.get());
 
         // Add two more interfaces to the system.
         interfaceToNodeCache.setNodeId("Default", InetAddressUtils.addr("10.0.0.4"), 2);
@@ -93,7 +105,63 @@ public class DocumentEnricherTest {
         documents.add(createFlowDocument("10.0.0.4", "10.0.0.5"));
         enricher.enrich(documents, new FlowSource("Default", "127.0.0.1", null));
         // Since above two addresses are added to same nodes, no extra calls to nodeDao
-        Assert.assertEquals(6, nodeDaoGetCounter.get());
+        Assert.assertEquals(1, nodeDaoFindMatchingCounter.get());
+
+        // Node changes invalidate the cached data
+        enricher.onEvent(ImmutableEvent.newBuilder()
+                .setUei(EventConstants.NODE_UPDATED_EVENT_UEI)
+                .setNodeid(2L)
+                .build());
+        enricher.enrich(documents, new FlowSource("Default", "127.0.0.1", null));
+        Assert.assertEquals(2, nodeDaoFindMatchingCounter.get());
+        Assert.assertEquals(3, nodeDaoGetCounter.get());
+
+        // Changes to other nodes keep the cached data
+        enricher.onEvent(ImmutableEvent.newBuilder()
+                .setUei(EventConstants.NODE_UPDATED_EVENT_UEI)
+                .setNodeid(42L)
+                .build());
+        enricher.enrich(documents, new FlowSource("Default", "127.0.0.1", null));
+        Assert.assertEquals(2, nodeDaoFindMatchingCounter.get());
+    }
+
+    @Test
+    public void doesNotCacheNodeDataLoadedAcrossAnInvalidation() throws InterruptedException {
+        final MockDocumentEnricherFactory factory = new MockDocumentEnricherFactory();
+        final DocumentEnricherImpl enricher = factory.getEnricher();
+        final NodeDao nodeDao = factory.getNodeDao();
+        final InterfaceToNodeCache interfaceToNodeCache = factory.getInterfaceToNodeCache();
+
+        interfaceToNodeCache.setNodeId("Default", InetAddressUtils.addr("10.0.0.1"), 1);
+        interfaceToNodeCache.setNodeId("Default", InetAddressUtils.addr("10.0.0.2"), 2);
+        nodeDao.save(createOnmsNode(1, "my-requisition"));
+        nodeDao.save(createOnmsNode(2, "my-requisition"));
+
+        // The first node is updated while the nodes of the first batch are loaded
+        final AtomicInteger findMatchingCounter = new AtomicInteger(0);
+        Mockito.doAnswer(invocationOnMock -> {
+            if (findMatchingCounter.incrementAndGet() == 1) {
+                enricher.onEvent(ImmutableEvent.newBuilder()
+                        .setUei(EventConstants.NODE_UPDATED_EVENT_UEI)
+                        .setNodeid(1L)
+                        .build());
+            }
+            return invocationOnMock.callRealMethod();
+        }).when(nodeDao).findMatching(Mockito.any(Criteria.class));
+
+        final List<Flow> documents = Lists.newArrayList(createFlowDocument("10.0.0.1", "10.0.0.2"));
+        final List<EnrichedFlow> enrichedFlows = enricher.enrich(documents, new FlowSource("Default", "127.0.0.1", null));
+        Assert.assertEquals(1, findMatchingCounter.get());
+        Assert.assertEquals(2, enrichedFlows.get(0).getSrcNodeInfo().getNodeId());
+        Assert.assertEquals(1, enrichedFlows.get(0).getDstNodeInfo().getNodeId());
+
+        // The data loaded across the invalidation was not cached
+        enricher.enrich(documents, new FlowSource("Default", "127.0.0.1", null));
+        Assert.assertEquals(2, findMatchingCounter.get());
+
+        // The data loaded afterwards was
+        enricher.enrich(documents, new FlowSource("Default", "127.0.0.1", null));
+        Assert.assertEquals(2, findMatchingCounter.get());
     }
 
     private static Flow createFlowDocument(String sourceIp, String destIp) {
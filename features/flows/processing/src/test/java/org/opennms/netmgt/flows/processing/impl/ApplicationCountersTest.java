@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.flows.processing.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class ApplicationCountersTest {
+
+    @Test
+    public void canInternApplications() {
+        final ApplicationIds ids = new ApplicationIds();
+        final int http = ids.intern("http");
+        final int https = ids.intern("https");
+
+        assertThat(ids.intern("http"), equalTo(http));
+        assertThat(ids.name(https), equalTo("https"));
+        assertThat(ids.size(), equalTo(2));
+        assertThat(ids.internAll(Arrays.asList("https", "ssh")).cardinality(), equalTo(2));
+        assertThat(ids.size(), equalTo(3));
+    }
+
+    @Test
+    public void countersAreCumulative() {
+        final BitSet applications = new BitSet();
+        applications.set(0, 2);
+
+        final ApplicationCounters counters = new ApplicationCounters(2);
+        counters.add(0, 100);
+        counters.add(1, 10);
+        assertThat(counters.get(0), equalTo(0L));
+
+        counters.drain(applications);
+        assertThat(counters.get(0), equalTo(100L));
+        assertThat(counters.get(1), equalTo(10L));
+
+        counters.add(0, 50);
+        counters.drain(applications);
+        assertThat(counters.get(0), equalTo(150L));
+        assertThat(counters.get(1), equalTo(10L));
+    }
+
+    @Test
+    public void countersGrowAndReset() {
+        final BitSet applications = new BitSet();
+        applications.set(0);
+        applications.set(5);
+
+        final ApplicationCounters counters = new ApplicationCounters(1);
+        counters.add(0, 1);
+        counters.add(5, 2);
+        counters.add(3, 4);
+        counters.drain(applications);
+
+        assertThat(counters.get(0), equalTo(1L));
+        assertThat(counters.get(3), equalTo(0L));
+        assertThat(counters.get(5), equalTo(2L));
+
+        // Applications that are no longer persisted are reset
+        applications.clear(0);
+        counters.add(0, 1);
+        counters.drain(applications);
+        assertThat(counters.get(0), equalTo(0L));
+        assertThat(counters.get(5), equalTo(2L));
+    }
+
+    @Test
+    public void noBytesAreLostWhileDraining() throws Exception {
+        final BitSet applications = new BitSet();
+        applications.set(0, 16);
+
+        final ApplicationCounters counters = new ApplicationCounters(16);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = Lists.newArrayList();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100000; i++) {
+                        counters.add(i % 16, 1);
+                    }
+                }));
+            }
+            while (!futures.stream().allMatch(Future::isDone)) {
+                counters.drain(applications);
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Additions racing with the last swap are left in the back buffer
+        counters.drain(applications);
+        counters.drain(applications);
+
+        long total = 0;
+        for (int i = 0; i < 16; i++) {
+            total += counters.get(i);
+        }
+        assertThat(total, equalTo(400000L));
+    }
+}
@@ -28,17 +28,21 @@
 
 package org.opennms.features.timeseries.plugin;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.opennms.integration.api.v1.timeseries.Metric;
 import org.opennms.integration.api.v1.timeseries.Sample;
@@ -56,71 +60,210 @@ import org.opennms.integration.api.v1.timeseries.immutables.ImmutableTimeSeriesD
 import com.google.re2j.Pattern;
 
 /**
- * Simulates a TimeSeriesStorage in memory (ConcurrentHashMap). The implementation is super simple and not very efficient.
- * For testing and evaluating purposes only, not for production.
+ * Simulates a TimeSeriesStorage in memory. For testing and evaluating purposes only, not for production.
+ * <p>
+ * Every metric is assigned a series id. An inverted index maps tag key and value to the ids of the metrics carrying
+ * that tag, so {@link #findMetrics(Collection)} only touches the tag values of the keys being searched for. The
+ * samples of a series are kept sorted by time in primitive columns and ranges are located with a binary search.
+ * <p>
+ * When a retention is set, samples older than the retention are dropped and metrics without any samples left are
+ * removed altogether.
  */
 public class InMemoryStorage implements TimeSeriesStorage {
 
-    private final Map<Metric, Collection<DataPoint>> data = new ConcurrentHashMap<>();
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** Metric key to series. */
+    private final Map<String, Series> seriesByKey = new ConcurrentHashMap<>();
+
+    /** Series by id, null for ids that are free. Guarded by {@link #indexLock}. */
+    private final List<Series> seriesById = new ArrayList<>();
+
+    /** Tag key to tag value to the ids of the series carrying that tag. Guarded by {@link #indexLock}. */
+    private final Map<String, Map<String, BitSet>> tagIndex = new HashMap<>();
+
+    /** Ids of removed series that can be reused. Guarded by {@link #indexLock}. */
+    private final BitSet freeIds = new BitSet();
+
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    private volatile long retentionMs = 0;
+
+    private volatile long lastEviction = System.currentTimeMillis();
+
+    public InMemoryStorage() {
+    }
+
+    /**
+     * @param retentionMs how long samples are kept, in milliseconds, or zero to keep them forever
+     */
+    public InMemoryStorage(final long retentionMs) {
+        setRetentionMs(retentionMs);
+    }
 
     public final Map<Metric, Collection<DataPoint>> getAllMetrics() {
-        return Collections.unmodifiableMap(data);
+        final Map<Metric, Collection<DataPoint>> metrics = new LinkedHashMap<>();
+        for (final Series series : seriesByKey.values()) {
+            metrics.put(series.metric, series.getDataPoints(Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+        return Collections.unmodifiableMap(metrics);
     }
 
     @Override
     public void store(final List<Sample> samples) {
         Objects.requireNonNull(samples);
         for(Sample sample : samples) {
-            Collection<DataPoint> timeseries = data.computeIfAbsent(sample.getMetric(), k -> new ConcurrentLinkedQueue<>());
-            timeseries.add(new ImmutableDataPoint(sample.getTime(), sample.getValue()));
+            Series series;
+            do {
+                series = seriesByKey.get(sample.getMetric().getKey());
+                if (series == null) {
+                    series = createSeries(sample.getMetric());
+                }
+                // The series may have been removed concurrently, try again with a new one
+            } while (!series.add(sample.getTime().toEpochMilli(), sample.getValue()));
+        }
+        maybeEvict();
+    }
+
+    private Series createSeries(final Metric metric) {
+        indexLock.writeLock().lock();
+        try {
+            Series series = seriesByKey.get(metric.getKey());
+            if (series != null) {
+                return series;
+            }
+
+            final int id = freeIds.isEmpty() ? seriesById.size() : freeIds.nextSetBit(0);
+            series = new Series(id, metric);
+            if (id == seriesById.size()) {
+                seriesById.add(series);
+            } else {
+                freeIds.clear(id);
+                seriesById.set(id, series);
+            }
+            for (final Tag tag : tagsOf(metric)) {
+                tagIndex.computeIfAbsent(tag.getKey(), k -> new HashMap<>())
+                        .computeIfAbsent(tag.getValue(), v -> new BitSet())
+                        .set(id);
+            }
+            seriesByKey.put(metric.getKey(), series);
+            return series;
+        } finally {
+            indexLock.writeLock().unlock();
         }
     }
 
+    private void removeSeries(final Series series, final boolean onlyIfEmpty) {
+        indexLock.writeLock().lock();
+        try {
+            if (!series.markRemoved(onlyIfEmpty) || !seriesByKey.remove(series.metric.getKey(), series)) {
+                return;
+            }
+            for (final Tag tag : tagsOf(series.metric)) {
+                final Map<String, BitSet> values = tagIndex.get(tag.getKey());
+                if (values == null) {
+                    continue;
+                }
+                final BitSet ids = values.get(tag.getValue());
+                if (ids != null) {
+                    ids.clear(series.id);
+                    if (ids.isEmpty()) {
+                        values.remove(tag.getValue());
+                    }
+                }
+                if (values.isEmpty()) {
+                    tagIndex.remove(tag.getKey());
+                }
+            }
+            seriesById.set(series.id, null);
+            freeIds.set(series.id);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private static List<Tag> tagsOf(final Metric metric) {
+        final List<Tag> tags = new ArrayList<>(metric.getIntrinsicTags());
+        tags.addAll(metric.getMetaTags());
+        return tags;
+    }
+
     @Override
     public List<Metric> findMetrics(Collection<TagMatcher> tagMatchers) {
         Objects.requireNonNull(tagMatchers);
         if(tagMatchers.isEmpty()) {
             throw new IllegalArgumentException("We expect at least one TagMatcher but none was given.");
         }
-        return data.keySet()
-                .stream()
-                .filter(metric -> this.matches(tagMatchers, metric))
-                .collect(Collectors.toList());
-    }
 
-    /** Each matcher must be matched by at least one tag. */
-    private static boolean matches(final Collection<TagMatcher> matchers, final Metric metric) {
-        final Set<Tag> searchableTags = new HashSet<>(metric.getIntrinsicTags());
-        searchableTags.addAll(metric.getMetaTags());
+        indexLock.readLock().lock();
+        try {
+            // Each matcher must be matched by at least one tag
+            BitSet result = null;
+            for (final TagMatcher matcher : tagMatchers) {
+                final BitSet matching = findMatching(matcher);
+                if (result == null) {
+                    result = matching;
+                } else {
+                    result.and(matching);
+                }
+                if (result.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
 
-        for(TagMatcher matcher : matchers) {
-            if(searchableTags.stream().noneMatch(t -> matches(matcher, t))) {
-                return false; // this TagMatcher didn't find any matching tag => this Metric is not part of search result;
+            final List<Metric> metrics = new ArrayList<>(result.cardinality());
+            for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+                metrics.add(seriesById.get(id).metric);
             }
+            return metrics;
+        } finally {
+            indexLock.readLock().unlock();
         }
-        return true; // all matched
     }
 
-    private static boolean matches(final TagMatcher matcher, final Tag tag) {
-
-        if(!matcher.getKey().equals(tag.getKey())) {
-            return false; // not even the key matches => we are done.
+    /** Returns the ids of all series having a tag that is matched by the given matcher. */
+    private BitSet findMatching(final TagMatcher matcher) {
+        final BitSet matching = new BitSet();
+        final Map<String, BitSet> values = tagIndex.get(matcher.getKey());
+        if (values == null) {
+            return matching; // not even the key matches => we are done.
         }
 
         // Tags have always a non null value so we don't have to null check for them.
-        if(TagMatcher.Type.EQUALS == matcher.getType()) {
-            return tag.getValue().equals(matcher.getValue());
-        } else if (TagMatcher.Type.NOT_EQUALS == matcher.getType()) {
-            return !tag.getValue().equals(matcher.getValue());
+        if (TagMatcher.Type.EQUALS == matcher.getType()) {
+            final BitSet ids = values.get(matcher.getValue());
+            if (ids != null) {
+                matching.or(ids);
+            }
+            return matching;
+        }
+
+        for (final Map.Entry<String, BitSet> entry : values.entrySet()) {
+            if (matches(matcher, entry.getKey())) {
+                matching.or(entry.getValue());
+            }
+        }
+        return matching;
+    }
+
+    private boolean matches(final TagMatcher matcher, final String value) {
+        if (TagMatcher.Type.NOT_EQUALS == matcher.getType()) {
+            return !value.equals(matcher.getValue());
         } else if (TagMatcher.Type.EQUALS_REGEX == matcher.getType()) {
-            return Pattern.matches(matcher.getValue(), tag.getValue());
+            return getPattern(matcher.getValue()).matcher(value).matches();
         } else if (TagMatcher.Type.NOT_EQUALS_REGEX == matcher.getType()) {
-            return !Pattern.matches(matcher.getValue(), tag.getValue());
+            return !getPattern(matcher.getValue()).matcher(value).matches();
         } else {
             throw new IllegalArgumentException("Implement me for " + matcher.getType());
         }
     }
 
+    private Pattern getPattern(final String regex) {
+        return patterns.computeIfAbsent(regex, Pattern::compile);
+    }
+
     @Override
     public List<Sample> getTimeseries(TimeSeriesFetchRequest request) throws StorageException {
         throw new UnsupportedOperationException("use getTimeSeriesData(TimeSeriesFetchRequest request) instead.");
@@ -136,19 +279,23 @@ public class InMemoryStorage implements TimeSeriesStorage {
         }
 
         // get the original metric instead of the one from the request since the one from the request might not have all tags
-        Metric metric = data.keySet().stream()
-                .filter(m -> m.getKey().equals(request.getMetric().getKey()))
-                .findFirst()
-                .orElse(request.getMetric());
+        final Series series = seriesByKey.get(request.getMetric().getKey());
+        if (series == null) {
+            return ImmutableTimeSeriesData.builder()
+                    .metric(request.getMetric())
+                    .dataPoints(Collections.emptyList())
+                    .build();
+        }
 
-        List<DataPoint> dataPoints = Optional.ofNullable(data.get(request.getMetric())).stream()
-                .flatMap(Collection::stream)
-                .filter(sample -> sample.getTime().isAfter(request.getStart()))
-                .filter(sample -> sample.getTime().isBefore(request.getEnd()))
-                .collect(Collectors.toList());
+        // Both the start and the end are exclusive
+        final long start = request.getStart().toEpochMilli();
+        final long end = request.getEnd().toEpochMilli();
+        final List<DataPoint> dataPoints = start == Long.MAX_VALUE || end == Long.MIN_VALUE
+                ? Collections.emptyList()
+                : series.getDataPoints(start + 1, end - 1);
 
         return ImmutableTimeSeriesData.builder()
-                .metric(metric)
+                .metric(series.metric)
                 .dataPoints(dataPoints)
                 .build();
     }
@@ -156,11 +303,172 @@ public class InMemoryStorage implements TimeSeriesStorage {
     @Override
     public void delete(Metric metric) {
         Objects.requireNonNull(metric);
-        this.data.remove(metric);
+        final Series series = seriesByKey.get(metric.getKey());
+        if (series != null) {
+            removeSeries(series, false);
+        }
+    }
+
+    public long getRetentionMs() {
+        return retentionMs;
+    }
+
+    public void setRetentionMs(final long retentionMs) {
+        if (retentionMs < 0) {
+            throw new IllegalArgumentException("retention must not be negative");
+        }
+        this.retentionMs = retentionMs;
+    }
+
+    /** Runs {@link #evict(long)} if the retention is set and at least a tenth of it has passed since the last run. */
+    private void maybeEvict() {
+        final long retention = retentionMs;
+        if (retention <= 0) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        if (now - lastEviction < Math.max(TimeUnit.SECONDS.toMillis(1), retention / 10)) {
+            return;
+        }
+        lastEviction = now;
+        evict(now - retention);
+    }
+
+    /**
+     * Drops all samples older than the given time and removes the metrics that are left without samples.
+     *
+     * @param cutoff epoch milliseconds
+     */
+    public void evict(final long cutoff) {
+        for (final Series series : seriesByKey.values()) {
+            if (series.evict(cutoff)) {
+                removeSeries(series, true);
+            }
+        }
     }
 
     @Override
     public String toString() {
         return this.getClass().getName();
     }
+
+    /**
+     * The samples of a single metric, sorted by time. Samples with the same time are kept in insertion order.
+     */
+    private static final class Series {
+        private final int id;
+        private final Metric metric;
+
+        private long[] times = new long[INITIAL_CAPACITY];
+        private double[] values = new double[INITIAL_CAPACITY];
+        private int size = 0;
+        private boolean removed = false;
+
+        private Series(final int id, final Metric metric) {
+            this.id = id;
+            this.metric = metric;
+        }
+
+        /**
+         * @return false if the series has been removed from the storage
+         */
+        private synchronized boolean add(final long time, final double value) {
+            if (removed) {
+                return false;
+            }
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            if (size == 0 || times[size - 1] <= time) {
+                // The common case: samples arrive in order
+                times[size] = time;
+                values[size] = value;
+            } else {
+                final int index = upperBound(time);
+                System.arraycopy(times, index, times, index + 1, size - index);
+                System.arraycopy(values, index, values, index + 1, size - index);
+                times[index] = time;
+                values[index] = value;
+            }
+            size++;
+            return true;
+        }
+
+        /**
+         * @return true if the series was marked as removed by this call
+         */
+        private synchronized boolean markRemoved(final boolean onlyIfEmpty) {
+            if (removed || (onlyIfEmpty && size > 0)) {
+                return false;
+            }
+            removed = true;
+            return true;
+        }
+
+        /** Returns the data points with from <= time <= to. */
+        private synchronized List<DataPoint> getDataPoints(final long from, final long to) {
+            final int lo = lowerBound(from);
+            final int hi = upperBound(to);
+            if (lo >= hi) {
+                return Collections.emptyList();
+            }
+            final List<DataPoint> dataPoints = new ArrayList<>(hi - lo);
+            for (int i = lo; i < hi; i++) {
+                dataPoints.add(new ImmutableDataPoint(Instant.ofEpochMilli(times[i]), values[i]));
+            }
+            return dataPoints;
+        }
+
+        /**
+         * Drops the samples older than the cutoff.
+         *
+         * @return true if no samples are left
+         */
+        private synchronized boolean evict(final long cutoff) {
+            final int index = lowerBound(cutoff);
+            if (index > 0) {
+                final int remaining = size - index;
+                final int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, remaining)) * 2);
+                final long[] newTimes = new long[capacity];
+                final double[] newValues = new double[capacity];
+                System.arraycopy(times, index, newTimes, 0, remaining);
+                System.arraycopy(values, index, newValues, 0, remaining);
+                times = newTimes;
+                values = newValues;
+                size = remaining;
+            }
+            return size == 0;
+        }
+
+        /** Index of the first sample with a time >= the given time. */
+        private int lowerBound(final long time) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (times[mid] < time) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /** Index of the first sample with a time > the given time. */
+        private int upperBound(final long time) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (times[mid] <= time) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
 }
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.features.timeseries.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.integration.api.v1.timeseries.Aggregation;
+import org.opennms.integration.api.v1.timeseries.DataPoint;
+import org.opennms.integration.api.v1.timeseries.Metric;
+import org.opennms.integration.api.v1.timeseries.TagMatcher;
+import org.opennms.integration.api.v1.timeseries.TimeSeriesFetchRequest;
+import org.opennms.integration.api.v1.timeseries.immutables.ImmutableMetric;
+import org.opennms.integration.api.v1.timeseries.immutables.ImmutableSample;
+import org.opennms.integration.api.v1.timeseries.immutables.ImmutableTagMatcher;
+import org.opennms.integration.api.v1.timeseries.immutables.ImmutableTimeSeriesFetchRequest;
+
+public class InMemoryStorageTest {
+
+    private InMemoryStorage storage;
+
+    private final Metric cpuNode1 = ImmutableMetric.builder()
+            .intrinsicTag("resourceId", "node1")
+            .intrinsicTag("name", "cpu")
+            .metaTag("location", "Default")
+            .build();
+
+    private final Metric cpuNode2 = ImmutableMetric.builder()
+            .intrinsicTag("resourceId", "node2")
+            .intrinsicTag("name", "cpu")
+            .metaTag("location", "Remote")
+            .build();
+
+    private final Metric memNode1 = ImmutableMetric.builder()
+            .intrinsicTag("resourceId", "node1")
+            .intrinsicTag("name", "mem")
+            .build();
+
+    @Before
+    public void setUp() {
+        storage = new InMemoryStorage();
+        store(cpuNode1, 1000, 1.0);
+        store(cpuNode2, 1000, 2.0);
+        store(memNode1, 1000, 3.0);
+    }
+
+    @Test
+    public void canFindMetricsByTags() {
+        assertEquals(Arrays.asList(cpuNode1, cpuNode2), find(matcher(TagMatcher.Type.EQUALS, "name", "cpu")));
+        assertEquals(Arrays.asList(cpuNode1), find(
+                matcher(TagMatcher.Type.EQUALS, "name", "cpu"),
+                matcher(TagMatcher.Type.EQUALS, "resourceId", "node1")));
+        assertEquals(Arrays.asList(memNode1), find(
+                matcher(TagMatcher.Type.NOT_EQUALS, "name", "cpu"),
+                matcher(TagMatcher.Type.EQUALS_REGEX, "resourceId", "node.*")));
+        assertEquals(Arrays.asList(cpuNode2), find(matcher(TagMatcher.Type.EQUALS_REGEX, "location", "Rem.*")));
+        assertEquals(Arrays.asList(cpuNode1), find(matcher(TagMatcher.Type.NOT_EQUALS_REGEX, "location", "Rem.*")));
+        assertEquals(Collections.emptyList(), find(matcher(TagMatcher.Type.EQUALS, "unknown", "cpu")));
+        assertEquals(Collections.emptyList(), find(
+                matcher(TagMatcher.Type.EQUALS, "name", "mem"),
+                matcher(TagMatcher.Type.EQUALS, "location", "Default")));
+    }
+
+    @Test
+    public void canReadRangesWithExclusiveBounds() {
+        // Store out of order to exercise the sorted insert
+        for (long time : new long[] { 5000, 2000, 4000, 3000 }) {
+            store(cpuNode1, time, time / 1000d);
+        }
+
+        assertEquals(Arrays.asList(2000L, 3000L, 4000L), times(fetch(cpuNode1, 1000, 5000)));
+        assertEquals(Arrays.asList(1000L, 2000L, 3000L, 4000L, 5000L), times(fetch(cpuNode1, 0, 6000)));
+        assertEquals(Collections.emptyList(), times(fetch(cpuNode1, 6000, 7000)));
+        assertEquals(Collections.emptyList(), times(fetch(ImmutableMetric.builder().intrinsicTag("name", "other").build(), 0, 6000)));
+    }
+
+    @Test
+    public void canDeleteMetrics() {
+        storage.delete(cpuNode1);
+        assertEquals(Arrays.asList(cpuNode2), find(matcher(TagMatcher.Type.EQUALS, "name", "cpu")));
+        assertEquals(Collections.emptyList(), times(fetch(cpuNode1, 0, 6000)));
+
+        // The id of the deleted metric is reused
+        store(cpuNode1, 1000, 1.0);
+        assertEquals(Arrays.asList(cpuNode1, cpuNode2), find(matcher(TagMatcher.Type.EQUALS, "name", "cpu")));
+    }
+
+    @Test
+    public void canEvictExpiredSamples() {
+        store(cpuNode1, 3000, 1.0);
+
+        storage.evict(2000);
+        assertEquals(Arrays.asList(3000L), times(fetch(cpuNode1, 0, 6000)));
+
+        // The other metrics have no samples left and are removed
+        assertEquals(Arrays.asList(cpuNode1), find(matcher(TagMatcher.Type.EQUALS_REGEX, "name", ".*")));
+        assertTrue(storage.getAllMetrics().keySet().stream().allMatch(cpuNode1::equals));
+    }
+
+    private void store(final Metric metric, final long time, final double value) {
+        storage.store(Collections.singletonList(ImmutableSample.builder()
+                .metric(metric)
+                .time(Instant.ofEpochMilli(time))
+                .value(value)
+                .build()));
+    }
+
+    private List<Metric> find(final TagMatcher... matchers) {
+        return storage.findMetrics(Arrays.asList(matchers));
+    }
+
+    private static TagMatcher matcher(final TagMatcher.Type type, final String key, final String value) {
+        return ImmutableTagMatcher.builder().type(type).key(key).value(value).build();
+    }
+
+    private List<DataPoint> fetch(final Metric metric, final long start, final long end) {
+        final TimeSeriesFetchRequest request = ImmutableTimeSeriesFetchRequest.builder()
+                .metric(metric)
+                .start(Instant.ofEpochMilli(start))
+                .end(Instant.ofEpochMilli(end))
+                .step(Duration.ofSeconds(1))
+                .aggregation(Aggregation.NONE)
+                .build();
+        return storage.getTimeSeriesData(request).getDataPoints();
+    }
+
+    private static List<Long> times(final List<DataPoint> dataPoints) {
+        return dataPoints.stream().map(dp -> dp.getTime().toEpochMilli()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,785 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.measurements.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+import org.apache.commons.jexl2.ExpressionImpl;
+import org.apache.commons.jexl2.JexlContext;
+import org.apache.commons.jexl2.JexlEngine;
+import org.apache.commons.jexl2.parser.ASTAdditiveNode;
+import org.apache.commons.jexl2.parser.ASTAdditiveOperator;
+import org.apache.commons.jexl2.parser.ASTAndNode;
+import org.apache.commons.jexl2.parser.ASTDivNode;
+import org.apache.commons.jexl2.parser.ASTEQNode;
+import org.apache.commons.jexl2.parser.ASTFunctionNode;
+import org.apache.commons.jexl2.parser.ASTGENode;
+import org.apache.commons.jexl2.parser.ASTGTNode;
+import org.apache.commons.jexl2.parser.ASTIdentifier;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.ASTLENode;
+import org.apache.commons.jexl2.parser.ASTLTNode;
+import org.apache.commons.jexl2.parser.ASTMulNode;
+import org.apache.commons.jexl2.parser.ASTNENode;
+import org.apache.commons.jexl2.parser.ASTNotNode;
+import org.apache.commons.jexl2.parser.ASTNumberLiteral;
+import org.apache.commons.jexl2.parser.ASTOrNode;
+import org.apache.commons.jexl2.parser.ASTReference;
+import org.apache.commons.jexl2.parser.ASTReferenceExpression;
+import org.apache.commons.jexl2.parser.ASTTernaryNode;
+import org.apache.commons.jexl2.parser.ASTUnaryMinusNode;
+import org.apache.commons.jexl2.parser.JexlNode;
+import org.opennms.core.utils.jexl.OnmsJexlEngine;
+import org.opennms.netmgt.measurements.api.FetchResults;
+import org.opennms.netmgt.measurements.model.Expression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Evaluates the arithmetic and conditional subset of JEXL expressions over whole columns of primitive doubles.
+ * <p>
+ * The syntax tree parsed by JEXL is compiled into a tree of nodes which is evaluated for all rows in a single loop,
+ * without populating a context or boxing any values. The nodes follow the JEXL arithmetic of the
+ * {@link JEXLExpressionEngine}: integer literals, timestamps and the row index use exact integer arithmetic, unsuffixed
+ * real literals are floats which are widened using their string representation, and {@code NaN} is equal to
+ * {@code NaN}.
+ * <p>
+ * Anything outside of the subset, or any case in which JEXL would behave in a way that is not modeled here (i.e.
+ * division by zero, integer overflow or ordering {@code NaN}), aborts the evaluation, and the caller must evaluate the
+ * request using JEXL instead.
+ */
+final class ColumnarExpressionEvaluator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ColumnarExpressionEvaluator.class);
+
+    private static final Map<String, DoubleUnaryOperator> MATH_UNARY = ImmutableMap.<String, DoubleUnaryOperator>builder()
+            .put("sin", Math::sin).put("cos", Math::cos).put("tan", Math::tan)
+            .put("asin", Math::asin).put("acos", Math::acos).put("atan", Math::atan)
+            .put("sinh", Math::sinh).put("cosh", Math::cosh).put("tanh", Math::tanh)
+            .put("sqrt", Math::sqrt).put("cbrt", Math::cbrt)
+            .put("exp", Math::exp).put("expm1", Math::expm1)
+            .put("log", Math::log).put("log10", Math::log10).put("log1p", Math::log1p)
+            .put("floor", Math::floor).put("ceil", Math::ceil).put("rint", Math::rint)
+            .put("toDegrees", Math::toDegrees).put("toRadians", Math::toRadians)
+            .build();
+
+    private static final Map<String, DoubleBinaryOperator> MATH_BINARY = ImmutableMap.<String, DoubleBinaryOperator>builder()
+            .put("atan2", Math::atan2).put("pow", Math::pow).put("hypot", Math::hypot)
+            .build();
+
+    private static final Map<String, DoubleUnaryOperator> STRICTMATH_UNARY = ImmutableMap.<String, DoubleUnaryOperator>builder()
+            .put("sin", StrictMath::sin).put("cos", StrictMath::cos).put("tan", StrictMath::tan)
+            .put("asin", StrictMath::asin).put("acos", StrictMath::acos).put("atan", StrictMath::atan)
+            .put("sinh", StrictMath::sinh).put("cosh", StrictMath::cosh).put("tanh", StrictMath::tanh)
+            .put("sqrt", StrictMath::sqrt).put("cbrt", StrictMath::cbrt)
+            .put("exp", StrictMath::exp).put("expm1", StrictMath::expm1)
+            .put("log", StrictMath::log).put("log10", StrictMath::log10).put("log1p", StrictMath::log1p)
+            .put("floor", StrictMath::floor).put("ceil", StrictMath::ceil).put("rint", StrictMath::rint)
+            .put("toDegrees", StrictMath::toDegrees).put("toRadians", StrictMath::toRadians)
+            .build();
+
+    private static final Map<String, DoubleBinaryOperator> STRICTMATH_BINARY = ImmutableMap.<String, DoubleBinaryOperator>builder()
+            .put("atan2", StrictMath::atan2).put("pow", StrictMath::pow).put("hypot", StrictMath::hypot)
+            .build();
+
+    private ColumnarExpressionEvaluator() {
+    }
+
+    /**
+     * Evaluates all of the expressions against the given results.
+     *
+     * @param compiled the expressions created by an {@link Engine}, in the same order as the expressions
+     * @return the values of every expression, transient or not, in the order in which they appear in the request,
+     * or null if the expressions must be evaluated using JEXL
+     */
+    static double[][] evaluate(final List<Expression> expressions, final List<org.apache.commons.jexl2.Expression> compiled,
+                               final FetchResults results) {
+        try {
+            final long[] timestamps = results.getTimestamps();
+            final Scope scope = new Scope(expressions, results);
+            final double[][] values = new double[expressions.size()][];
+            for (int k = 0; k < values.length; k++) {
+                final Num root = new Compiler(compiled.get(k), scope, k, values).compile();
+                final double[] column = new double[timestamps.length];
+                for (int i = 0; i < column.length; i++) {
+                    // JEXL converts the results to doubles using their string representation
+                    column[i] = root.jexlValue(i);
+                }
+                values[k] = column;
+            }
+            return values;
+        } catch (Unsupported e) {
+            LOG.debug("Evaluating expressions using JEXL: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * A JEXL engine which keeps the syntax tree of the expressions it creates, so that they can be compiled for
+     * the columnar evaluation.
+     */
+    static final class Engine extends OnmsJexlEngine {
+
+        @Override
+        protected org.apache.commons.jexl2.Expression createExpression(final ASTJexlScript tree, final String text) {
+            return new ParsedExpression(this, text, tree);
+        }
+
+        static final class ParsedExpression extends ExpressionImpl {
+            private ParsedExpression(final JexlEngine engine, final String text, final ASTJexlScript script) {
+                super(engine, text, script);
+            }
+
+            ASTJexlScript getSyntaxTree() {
+                return script;
+            }
+        }
+    }
+
+    /**
+     * Aborts the columnar evaluation.
+     */
+    private static final class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private Unsupported(final String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private enum Kind {
+        LONG, FLOAT, DOUBLE
+    }
+
+    /**
+     * A numeric node. The value of float nodes is widened to a double.
+     */
+    private abstract static class Num {
+        final Kind kind;
+
+        Num(final Kind kind) {
+            this.kind = kind;
+        }
+
+        abstract double value(int row);
+
+        /**
+         * Returns the value as converted by the JEXL arithmetic, which widens floats using their string representation.
+         */
+        double jexlValue(final int row) {
+            return kind == Kind.FLOAT ? widen((float) value(row)) : value(row);
+        }
+
+        long longValue(final int row) {
+            throw new IllegalStateException("Not an integer node");
+        }
+    }
+
+    private static double widen(final float value) {
+        return Double.parseDouble(Float.toString(value));
+    }
+
+    private abstract static class LongNum extends Num {
+        LongNum() {
+            super(Kind.LONG);
+        }
+
+        @Override
+        final double value(final int row) {
+            return longValue(row);
+        }
+
+        @Override
+        abstract long longValue(int row);
+    }
+
+    private abstract static class Bool {
+        abstract boolean test(int row);
+    }
+
+    private static Num constant(final Kind kind, final double value) {
+        return new Num(kind) {
+            @Override
+            double value(final int row) {
+                return value;
+            }
+        };
+    }
+
+    private static Num constant(final float value) {
+        final double widened = widen(value);
+        return new Num(Kind.FLOAT) {
+            @Override
+            double value(final int row) {
+                return value;
+            }
+
+            @Override
+            double jexlValue(final int row) {
+                return widened;
+            }
+        };
+    }
+
+    private static Num constant(final long value) {
+        return new LongNum() {
+            @Override
+            long longValue(final int row) {
+                return value;
+            }
+        };
+    }
+
+    private static Num column(final double[] column) {
+        return new Num(Kind.DOUBLE) {
+            @Override
+            double value(final int row) {
+                return column[row];
+            }
+        };
+    }
+
+    /**
+     * Resolves the identifiers of the expressions in the same order of precedence as the JEXL context of
+     * {@link JEXLExpressionEngine}.
+     */
+    private static final class Scope {
+        private final Map<String, Integer> labels = new HashMap<>();
+        private final Map<String, double[]> columns;
+        private final Map<String, Object> constants;
+        private final long[] timestamps;
+        private final long step;
+
+        private Scope(final List<Expression> expressions, final FetchResults results) {
+            columns = results.getColumns();
+            constants = results.getConstants();
+            timestamps = results.getTimestamps();
+            step = results.getStep();
+
+            for (int k = 0; k < expressions.size(); k++) {
+                final String label = expressions.get(k).getLabel();
+                if (label == null || labels.put(label, k) != null) {
+                    throw new Unsupported("duplicate label " + label);
+                }
+                if (columns.containsKey(label) || isReserved(label)
+                        || (label.startsWith("__") && columns.containsKey(label.substring(2)))) {
+                    throw new Unsupported("label " + label + " shadows a source or variable");
+                }
+            }
+        }
+
+        private static boolean isReserved(final String name) {
+            switch (name) {
+                case "timestamp":
+                case "__i":
+                case "__diff_time":
+                case "__step":
+                case "__inf":
+                case "__neg_inf":
+                case "NaN":
+                case "__E":
+                case "__PI":
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private Num resolve(final String name, final int expression, final double[][] values) {
+            final double[] column = columns.get(name);
+            if (column != null) {
+                return column(column);
+            }
+            switch (name) {
+                case "timestamp":
+                    return new LongNum() {
+                        @Override
+                        long longValue(final int row) {
+                            return timestamps[row];
+                        }
+                    };
+                case "__i":
+                    return new LongNum() {
+                        @Override
+                        long longValue(final int row) {
+                            return row;
+                        }
+                    };
+                default:
+                    break;
+            }
+            final Integer label = labels.get(name);
+            if (label != null) {
+                if (label >= expression) {
+                    // The value is the one of the previous row
+                    throw new Unsupported("forward reference to " + name);
+                }
+                return column(values[label]);
+            }
+            switch (name) {
+                case "__diff_time":
+                    return timestamps.length < 1 ? constant(Kind.DOUBLE, 0d)
+                            : constant(timestamps[timestamps.length - 1] - timestamps[0]);
+                case "__step":
+                    return constant(step);
+                case "__inf":
+                    return constant(Kind.DOUBLE, Double.POSITIVE_INFINITY);
+                case "__neg_inf":
+                    return constant(Kind.DOUBLE, Double.NEGATIVE_INFINITY);
+                case "NaN":
+                    return constant(Kind.DOUBLE, Double.NaN);
+                case "__E":
+                    return constant(Kind.DOUBLE, Math.E);
+                case "__PI":
+                    return constant(Kind.DOUBLE, Math.PI);
+                default:
+                    break;
+            }
+            final Object value = constants.get(name);
+            if (value instanceof Double) {
+                return constant(Kind.DOUBLE, (Double) value);
+            } else if (value instanceof Float) {
+                return constant(((Float) value).floatValue());
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return constant(((Number) value).longValue());
+            }
+            throw new Unsupported("variable " + name);
+        }
+    }
+
+    /**
+     * Compiles the syntax tree parsed by JEXL into nodes. Only the first statement of the script is compiled, as only
+     * that one is evaluated by {@link ExpressionImpl#evaluate(JexlContext)}.
+     */
+    private static final class Compiler {
+        private final org.apache.commons.jexl2.Expression compiled;
+        private final String text;
+        private final Scope scope;
+        private final int expression;
+        private final double[][] values;
+
+        private Compiler(final org.apache.commons.jexl2.Expression compiled, final Scope scope, final int expression, final double[][] values) {
+            this.compiled = compiled;
+            this.text = compiled.getExpression();
+            this.scope = scope;
+            this.expression = expression;
+            this.values = values;
+        }
+
+        private Num compile() {
+            if (!(compiled instanceof Engine.ParsedExpression)) {
+                throw unsupported(null);
+            }
+            final ASTJexlScript script = ((Engine.ParsedExpression) compiled).getSyntaxTree();
+            if (script.jjtGetNumChildren() < 1) {
+                throw unsupported(script);
+            }
+            return num(node(script.jjtGetChild(0)));
+        }
+
+        private Object node(final JexlNode node) {
+            if (node instanceof ASTReference || node instanceof ASTReferenceExpression) {
+                // Parentheses and plain identifiers, but no properties or array accesses
+                if (node.jjtGetNumChildren() != 1) {
+                    throw unsupported(node);
+                }
+                return node(node.jjtGetChild(0));
+            } else if (node instanceof ASTNumberLiteral) {
+                return number((ASTNumberLiteral) node);
+            } else if (node instanceof ASTIdentifier) {
+                return scope.resolve(node.image, expression, values);
+            } else if (node instanceof ASTFunctionNode) {
+                return function(node);
+            } else if (node instanceof ASTTernaryNode) {
+                if (node.jjtGetNumChildren() != 3) {
+                    // Elvis operator
+                    throw unsupported(node);
+                }
+                return conditional(bool(node(node.jjtGetChild(0))), num(node(node.jjtGetChild(1))), num(node(node.jjtGetChild(2))));
+            } else if (node instanceof ASTOrNode) {
+                final Bool l = bool(node(node.jjtGetChild(0)));
+                final Bool r = bool(node(node.jjtGetChild(1)));
+                return new Bool() {
+                    @Override
+                    boolean test(final int row) {
+                        return l.test(row) || r.test(row);
+                    }
+                };
+            } else if (node instanceof ASTAndNode) {
+                final Bool l = bool(node(node.jjtGetChild(0)));
+                final Bool r = bool(node(node.jjtGetChild(1)));
+                return new Bool() {
+                    @Override
+                    boolean test(final int row) {
+                        return l.test(row) && r.test(row);
+                    }
+                };
+            } else if (node instanceof ASTNotNode) {
+                final Bool operand = bool(node(node.jjtGetChild(0)));
+                return new Bool() {
+                    @Override
+                    boolean test(final int row) {
+                        return !operand.test(row);
+                    }
+                };
+            } else if (node instanceof ASTEQNode || node instanceof ASTNENode) {
+                return equal(num(node(node.jjtGetChild(0))), num(node(node.jjtGetChild(1))), node instanceof ASTEQNode);
+            } else if (node instanceof ASTLTNode) {
+                return compare(num(node(node.jjtGetChild(0))), num(node(node.jjtGetChild(1))), Comparison.LT);
+            } else if (node instanceof ASTLENode) {
+                return compare(num(node(node.jjtGetChild(0))), num(node(node.jjtGetChild(1))), Comparison.LE);
+            } else if (node instanceof ASTGTNode) {
+                return compare(num(node(node.jjtGetChild(0))), num(node(node.jjtGetChild(1))), Comparison.GT);
+            } else if (node instanceof ASTGENode) {
+                return compare(num(node(node.jjtGetChild(0))), num(node(node.jjtGetChild(1))), Comparison.GE);
+            } else if (node instanceof ASTAdditiveNode) {
+                // The operands are separated by the operators: a, +, b, -, c
+                Num left = num(node(node.jjtGetChild(0)));
+                for (int i = 1; i + 1 < node.jjtGetNumChildren(); i += 2) {
+                    final JexlNode operator = node.jjtGetChild(i);
+                    if (!(operator instanceof ASTAdditiveOperator) || !("+".equals(operator.image) || "-".equals(operator.image))) {
+                        throw unsupported(operator);
+                    }
+                    left = arithmetic(operator.image.charAt(0), left, num(node(node.jjtGetChild(i + 1))));
+                }
+                return left;
+            } else if (node instanceof ASTMulNode) {
+                return arithmetic('*', num(node(node.jjtGetChild(0))), num(node(node.jjtGetChild(1))));
+            } else if (node instanceof ASTDivNode) {
+                return arithmetic('/', num(node(node.jjtGetChild(0))), num(node(node.jjtGetChild(1))));
+            } else if (node instanceof ASTUnaryMinusNode) {
+                return negate(num(node(node.jjtGetChild(0))));
+            }
+            // Strings, booleans, regular expressions, modulo, bitwise operators, methods, assignments, ...
+            throw unsupported(node);
+        }
+
+        private Num number(final ASTNumberLiteral literal) {
+            final Number value = literal.getLiteral();
+            if (value instanceof Integer || value instanceof Long) {
+                return constant(value.longValue());
+            } else if (value instanceof Float) {
+                return constant(value.floatValue());
+            } else if (value instanceof Double) {
+                return constant(Kind.DOUBLE, value.doubleValue());
+            }
+            // Big integers and decimals
+            throw unsupported(literal);
+        }
+
+        private Num function(final JexlNode node) {
+            final Map<String, DoubleUnaryOperator> unary;
+            final Map<String, DoubleBinaryOperator> binary;
+            final String namespace = node.jjtGetChild(0).image;
+            if ("math".equals(namespace)) {
+                unary = MATH_UNARY;
+                binary = MATH_BINARY;
+            } else if ("strictmath".equals(namespace)) {
+                unary = STRICTMATH_UNARY;
+                binary = STRICTMATH_BINARY;
+            } else {
+                throw unsupported(node);
+            }
+
+            final String name = node.jjtGetChild(1).image;
+            final int arguments = node.jjtGetNumChildren() - 2;
+            if (arguments == 1) {
+                final Num first = num(node(node.jjtGetChild(2)));
+                final DoubleUnaryOperator f = unary.get(name);
+                if (f != null) {
+                    // Floats are widened by the method invocation, not by the JEXL arithmetic
+                    return new Num(Kind.DOUBLE) {
+                        @Override
+                        double value(final int row) {
+                            return f.applyAsDouble(first.value(row));
+                        }
+                    };
+                }
+                if ("abs".equals(name) && first.kind != Kind.LONG) {
+                    return new Num(first.kind) {
+                        @Override
+                        double value(final int row) {
+                            return Math.abs(first.value(row));
+                        }
+                    };
+                }
+            } else if (arguments == 2) {
+                final Num first = num(node(node.jjtGetChild(2)));
+                final Num second = num(node(node.jjtGetChild(3)));
+                final DoubleBinaryOperator f = binary.get(name);
+                if (f != null) {
+                    return new Num(Kind.DOUBLE) {
+                        @Override
+                        double value(final int row) {
+                            return f.applyAsDouble(first.value(row), second.value(row));
+                        }
+                    };
+                }
+                if ("min".equals(name) || "max".equals(name)) {
+                    return minMax("min".equals(name), first, second);
+                }
+            }
+            throw unsupported(node);
+        }
+
+        private Unsupported unsupported(final JexlNode node) {
+            return new Unsupported("'" + text + "' at " + (node != null ? node.getClass().getSimpleName() : "root"));
+        }
+    }
+
+    private static Num num(final Object node) {
+        if (node instanceof Num) {
+            return (Num) node;
+        }
+        throw new Unsupported("boolean used as a number");
+    }
+
+    private static Bool bool(final Object node) {
+        if (node instanceof Bool) {
+            return (Bool) node;
+        }
+        throw new Unsupported("number used as a boolean");
+    }
+
+    private static Num conditional(final Bool condition, final Num then, final Num otherwise) {
+        if (then.kind != otherwise.kind) {
+            throw new Unsupported("branches of different types");
+        }
+        if (then.kind == Kind.LONG) {
+            return new LongNum() {
+                @Override
+                long longValue(final int row) {
+                    return condition.test(row) ? then.longValue(row) : otherwise.longValue(row);
+                }
+            };
+        }
+        return new Num(then.kind) {
+            @Override
+            double value(final int row) {
+                return condition.test(row) ? then.value(row) : otherwise.value(row);
+            }
+        };
+    }
+
+    private static Num negate(final Num operand) {
+        if (operand.kind == Kind.LONG) {
+            return new LongNum() {
+                @Override
+                long longValue(final int row) {
+                    final long value = operand.longValue(row);
+                    if (value == Long.MIN_VALUE) {
+                        throw new Unsupported("integer overflow");
+                    }
+                    return -value;
+                }
+            };
+        }
+        return new Num(operand.kind) {
+            @Override
+            double value(final int row) {
+                return -operand.value(row);
+            }
+        };
+    }
+
+    private static Num arithmetic(final char op, final Num l, final Num r) {
+        if (l.kind == Kind.LONG && r.kind == Kind.LONG) {
+            switch (op) {
+                case '+':
+                    return new LongNum() {
+                        @Override
+                        long longValue(final int row) {
+                            try {
+                                return Math.addExact(l.longValue(row), r.longValue(row));
+                            } catch (ArithmeticException e) {
+                                throw new Unsupported("integer overflow");
+                            }
+                        }
+                    };
+                case '-':
+                    return new LongNum() {
+                        @Override
+                        long longValue(final int row) {
+                            try {
+                                return Math.subtractExact(l.longValue(row), r.longValue(row));
+                            } catch (ArithmeticException e) {
+                                throw new Unsupported("integer overflow");
+                            }
+                        }
+                    };
+                case '*':
+                    return new LongNum() {
+                        @Override
+                        long longValue(final int row) {
+                            try {
+                                return Math.multiplyExact(l.longValue(row), r.longValue(row));
+                            } catch (ArithmeticException e) {
+                                throw new Unsupported("integer overflow");
+                            }
+                        }
+                    };
+                default:
+                    return new LongNum() {
+                        @Override
+                        long longValue(final int row) {
+                            final long dividend = l.longValue(row);
+                            final long divisor = r.longValue(row);
+                            if (divisor == 0 || (dividend == Long.MIN_VALUE && divisor == -1)) {
+                                throw new Unsupported("integer division by zero or overflow");
+                            }
+                            return dividend / divisor;
+                        }
+                    };
+            }
+        }
+
+        switch (op) {
+            case '+':
+                return new Num(Kind.DOUBLE) {
+                    @Override
+                    double value(final int row) {
+                        return l.jexlValue(row) + r.jexlValue(row);
+                    }
+                };
+            case '-':
+                return new Num(Kind.DOUBLE) {
+                    @Override
+                    double value(final int row) {
+                        return l.jexlValue(row) - r.jexlValue(row);
+                    }
+                };
+            case '*':
+                return new Num(Kind.DOUBLE) {
+                    @Override
+                    double value(final int row) {
+                        return l.jexlValue(row) * r.jexlValue(row);
+                    }
+                };
+            default:
+                return new Num(Kind.DOUBLE) {
+                    @Override
+                    double value(final int row) {
+                        final double divisor = r.jexlValue(row);
+                        if (divisor == 0.0) {
+                            throw new Unsupported("division by zero");
+                        }
+                        return l.jexlValue(row) / divisor;
+                    }
+                };
+        }
+    }
+
+    private static Num minMax(final boolean min, final Num first, final Num second) {
+        if (first.kind == Kind.LONG && second.kind == Kind.LONG) {
+            return new LongNum() {
+                @Override
+                long longValue(final int row) {
+                    return min ? Math.min(first.longValue(row), second.longValue(row))
+                            : Math.max(first.longValue(row), second.longValue(row));
+                }
+            };
+        }
+        final Kind kind;
+        if (first.kind == Kind.DOUBLE || second.kind == Kind.DOUBLE) {
+            kind = Kind.DOUBLE;
+        } else if (first.kind == Kind.FLOAT && second.kind == Kind.FLOAT) {
+            kind = Kind.FLOAT;
+        } else {
+            // An integer and a float would be narrowed to a float
+            throw new Unsupported("min/max of an integer and a float");
+        }
+        return new Num(kind) {
+            @Override
+            double value(final int row) {
+                return min ? Math.min(first.value(row), second.value(row)) : Math.max(first.value(row), second.value(row));
+            }
+        };
+    }
+
+    private enum Comparison {
+        LT, LE, GT, GE
+    }
+
+    private static Bool equal(final Num l, final Num r, final boolean equals) {
+        if (l.kind == Kind.LONG && r.kind == Kind.LONG) {
+            return new Bool() {
+                @Override
+                boolean test(final int row) {
+                    return (l.longValue(row) == r.longValue(row)) == equals;
+                }
+            };
+        }
+        // JEXL compares values of the same type using equals(), which considers NaN to be equal to itself
+        final boolean sameType = l.kind == r.kind;
+        return new Bool() {
+            @Override
+            boolean test(final int row) {
+                final double a = l.jexlValue(row);
+                final double b = r.jexlValue(row);
+                return (a == b || (sameType && Double.isNaN(a) && Double.isNaN(b))) == equals;
+            }
+        };
+    }
+
+    private static Bool compare(final Num l, final Num r, final Comparison comparison) {
+        final boolean longs = l.kind == Kind.LONG && r.kind == Kind.LONG;
+        return new Bool() {
+            @Override
+            boolean test(final int row) {
+                final int result;
+                if (longs) {
+                    result = Long.compare(l.longValue(row), r.longValue(row));
+                } else {
+                    final double a = l.jexlValue(row);
+                    final double b = r.jexlValue(row);
+                    if (Double.isNaN(a) || Double.isNaN(b)) {
+                        throw new Unsupported("ordering NaN");
+                    }
+                    result = a < b ? -1 : (a > b ? 1 : 0);
+                }
+                switch (comparison) {
+                    case LT:
+                        return result < 0;
+                    case LE:
+                        return result <= 0;
+                    case GT:
+                        return result > 0;
+                    default:
+                        return result >= 0;
+                }
+            }
+        };
+    }
+}
@@ -28,6 +28,7 @@
 
 package org.opennms.netmgt.measurements.impl;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.SortedSet;
@@ -59,13 +60,28 @@ public class JEXLExpressionEngine implements ExpressionEngine {
 
     private static final Logger LOG = LoggerFactory.getLogger(JEXLExpressionEngine.class);
 
+    /**
+     * Set to false in order to evaluate all expressions row by row using JEXL.
+     */
+    public static final String COLUMNAR_EVALUATION_PROPERTY = "org.opennms.measurements.expressions.columnar";
+
     /**
      * Use a single instance of the JEXL engine, which is thread-safe.
      */
     private final OnmsJexlEngine jexl;
 
+    /**
+     * Evaluate the supported expressions using the {@link ColumnarExpressionEvaluator}.
+     */
+    private final boolean columnarEvaluation;
+
     public JEXLExpressionEngine() {
-        jexl = new OnmsJexlEngine();
+        this(Boolean.parseBoolean(System.getProperty(COLUMNAR_EVALUATION_PROPERTY, "true")));
+    }
+
+    public JEXLExpressionEngine(final boolean columnarEvaluation) {
+        this.columnarEvaluation = columnarEvaluation;
+        jexl = new ColumnarExpressionEvaluator.Engine();
         jexl.white(Math.class.getName());
         jexl.white(StrictMath.class.getName());
         jexl.white(SortedSet.class.getName());
@@ -122,6 +138,22 @@ public class JEXLExpressionEngine implements ExpressionEngine {
             }
         }
 
+        // Evaluate whole columns at once, unless some expression can only be evaluated by JEXL
+        if (columnarEvaluation) {
+            final double[][] values = ColumnarExpressionEvaluator.evaluate(request.getExpressions(), new ArrayList<>(expressions.values()), results);
+            if (values != null) {
+                final Map<String, double[]> columns = results.getColumns();
+                j = 0;
+                for (final String expressionLabel : expressions.keySet()) {
+                    if (!transientFlags[j]) {
+                        columns.put(expressionLabel, values[j]);
+                    }
+                    j++;
+                }
+                return;
+            }
+        }
+
         // Prepare the JEXL context
         final Map<String, Object> jexlValues = Maps.newHashMap();
         final JexlContext context = new MapContext(jexlValues);
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.measurements.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.opennms.netmgt.measurements.api.ExpressionEngine;
+import org.opennms.netmgt.measurements.api.FetchResults;
+import org.opennms.netmgt.measurements.api.exceptions.ExpressionException;
+import org.opennms.netmgt.measurements.model.Expression;
+import org.opennms.netmgt.measurements.model.QueryRequest;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Verifies that the {@link ColumnarExpressionEvaluator} yields the same results as evaluating the expressions
+ * row by row using JEXL.
+ */
+public class ColumnarExpressionEvaluatorTest {
+
+    private static final int N = 200;
+
+    private final ExpressionEngine columnarEngine = new JEXLExpressionEngine(true);
+    private final ExpressionEngine jexlEngine = new JEXLExpressionEngine(false);
+
+    @Test
+    public void matchesJexl() throws ExpressionException {
+        for (final String expression : new String[] {
+                "x * 5 + 7",
+                "x / 3",
+                "1 / 2",
+                "1 / 2.0",
+                "0.1",
+                "0.1d * x",
+                "2147483647 + 1",
+                "-x - -1",
+                "timestamp / 125.0d",
+                "timestamp / 1000",
+                "__i * 2 + x",
+                "1 * __diff_time",
+                "1 * __step",
+                "speed / 0.62137",
+                "x * 0.1 + 0.7 > 3.3 ? 0.3 : -0.3",
+                "010 + x",
+                "ratio * x",
+                "math:sin(x) + strictmath:cos(y)",
+                "math:pow(x, 2) + math:sqrt(y)",
+                "math:min(x, y) + math:max(1, 2)",
+                "math:abs(-x)",
+                "( ( x == NaN ) ? y : ( ( y == NaN ) ? x : math:min(x,y) ) )",
+                "( ( x == NaN ) && ( y == NaN ) ) ? NaN : x + y",
+                "x != NaN ? x : 0.0d",
+                "x > 3 && x < 10 ? x : NaN",
+                "x lt 3 or not (x ge 5) ? 1 : 0",
+                "x == 5 ? 1.5 : 2.5",
+                "(y == __inf) || (y == __neg_inf) ? NaN : y * __PI / __E",
+        }) {
+            assertMatches(Lists.newArrayList(expression(expression, false)));
+        }
+    }
+
+    @Test
+    public void matchesJexlWhenReferencingOtherExpressions() throws ExpressionException {
+        assertMatches(Lists.newArrayList(
+                expression("a", "x * 8", true),
+                expression("b", "a / 1000", false),
+                expression("c", "b > 1 ? b : a", false)));
+    }
+
+    @Test
+    public void fallsBackForUnsupportedExpressions() {
+        for (final String expression : new String[] {
+                "fn:arrayNaN(\"x\", 5)",
+                "jexl:evaluate(\"x * 2\")",
+                "x % 2",
+                "x / 0",
+                "x.y",
+                "x < NaN ? 1 : 0",
+                "true ? x : y",
+                "missing * 2",
+        }) {
+            assertNull(expression, evaluate(Lists.newArrayList(expression(expression, false))));
+        }
+
+        // Forward references see the value of the previous row
+        assertNull(evaluate(Lists.newArrayList(
+                expression("a", "b + 1", false),
+                expression("b", "x", false))));
+
+        assertNotNull(evaluate(Lists.newArrayList(expression("a", "x + y", false))));
+    }
+
+    @Test
+    public void widensFloatLiteralsLikeJexl() throws ExpressionException {
+        // 0.62137 is not representable as a float, widening its bits yields a different double
+        assertNotEquals(Double.parseDouble("0.62137"), (double) 0.62137f, 0.0d);
+
+        final double[][] values = evaluate(Lists.newArrayList(expression("speed / 0.62137", false)));
+        assertNotNull(values);
+        assertEquals(65 / Double.parseDouble("0.62137"), values[0][0], 0.0d);
+
+        assertMatches(Lists.newArrayList(expression("speed / 0.62137", false)));
+    }
+
+    @Test
+    public void fallsBackAtRuntime() throws ExpressionException {
+        // The division by zero only happens for a single row
+        assertMatches(Lists.newArrayList(expression("z", "x == 0 ? 0 : 1 / (x - 10)", false)));
+    }
+
+    private void assertMatches(final List<Expression> expressions) throws ExpressionException {
+        final QueryRequest request = new QueryRequest();
+        request.setExpressions(expressions);
+
+        final FetchResults expected = results();
+        final FetchResults actual = results();
+        ExpressionException expectedException = null;
+        ExpressionException actualException = null;
+        try {
+            jexlEngine.applyExpressions(request, expected);
+        } catch (ExpressionException e) {
+            expectedException = e;
+        }
+        try {
+            columnarEngine.applyExpressions(request, actual);
+        } catch (ExpressionException e) {
+            actualException = e;
+        }
+
+        if (expectedException != null || actualException != null) {
+            assertNotNull("JEXL failed with " + expectedException, actualException);
+            assertNotNull("Columnar evaluation failed with " + actualException, expectedException);
+            assertEquals(expectedException.getMessage(), actualException.getMessage());
+            return;
+        }
+
+        assertEquals(expected.getColumns().keySet(), actual.getColumns().keySet());
+        for (final Map.Entry<String, double[]> column : expected.getColumns().entrySet()) {
+            assertArrayEquals(expressions.toString(), column.getValue(), actual.getColumns().get(column.getKey()), 0.0d);
+        }
+    }
+
+    private static double[][] evaluate(final List<Expression> expressions) {
+        final ColumnarExpressionEvaluator.Engine engine = new ColumnarExpressionEvaluator.Engine();
+        final List<org.apache.commons.jexl2.Expression> compiled = new ArrayList<>();
+        for (final Expression expression : expressions) {
+            compiled.add(engine.createExpression(expression.getExpression()));
+        }
+        return ColumnarExpressionEvaluator.evaluate(expressions, compiled, results());
+    }
+
+    private static Expression expression(final String label, final String expression, final boolean transientFlag) {
+        final Expression e = new Expression();
+        e.setLabel(label);
+        e.setExpression(expression);
+        e.setTransient(transientFlag);
+        return e;
+    }
+
+    private static Expression expression(final String expression, final boolean transientFlag) {
+        return expression("result", expression, transientFlag);
+    }
+
+    private static FetchResults results() {
+        final long[] timestamps = new long[N];
+        final double[] x = new double[N];
+        final double[] y = new double[N];
+        for (int i = 0; i < N; i++) {
+            timestamps[i] = 1700000000000L + i * 300000L;
+            x[i] = i % 17 == 0 ? Double.NaN : i - 20;
+            y[i] = i % 23 == 0 ? Double.NaN : (i % 41 == 0 ? Double.POSITIVE_INFINITY : i * 0.37d);
+        }
+        final Map<String, double[]> columns = Maps.newHashMap();
+        columns.put("x", x);
+        columns.put("y", y);
+        final Map<String, Object> constants = Maps.newHashMap();
+        constants.put("speed", 65);
+        constants.put("ratio", 0.75d);
+        return new FetchResults(timestamps, columns, 300000L, constants, null);
+    }
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.measurements.impl;
+
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opennms.netmgt.measurements.api.exceptions.ExpressionException;
+import org.opennms.netmgt.measurements.api.FetchResults;
+import org.opennms.netmgt.measurements.model.Expression;
+import org.opennms.netmgt.measurements.model.QueryRequest;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to compare the columnar evaluation of expressions with the row by
+ * row evaluation using JEXL.
+ * <p>
+ * The request resembles a graph with several series over a long range: {@link #SOURCES} sources with
+ * {@link #ROWS} rows each and expressions that reference the sources, the timestamps and each other. The setup
+ * verifies that both engines yield the same results.
+ */
+public class JEXLExpressionEngineBenchmark {
+
+    private static final int ROWS = 10000;
+    private static final int SOURCES = 8;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        private final JEXLExpressionEngine columnarEngine = new JEXLExpressionEngine(true);
+        private final JEXLExpressionEngine jexlEngine = new JEXLExpressionEngine(false);
+        private QueryRequest request;
+        private long[] timestamps;
+        private Map<String, double[]> columns;
+
+        @Setup
+        public void setup() throws Exception {
+            timestamps = new long[ROWS];
+            columns = Maps.newHashMap();
+            for (int s = 0; s < SOURCES; s++) {
+                columns.put("s" + s, new double[ROWS]);
+            }
+            for (int i = 0; i < ROWS; i++) {
+                timestamps[i] = 1700000000000L + i * 300000L;
+                for (int s = 0; s < SOURCES; s++) {
+                    columns.get("s" + s)[i] = i % 97 == s ? Double.NaN : (i * 31 + s * 7) % 1000 * 1.5d;
+                }
+            }
+
+            final List<Expression> expressions = Lists.newArrayList();
+            expressions.add(new Expression("inBits", "s0 * 8", true));
+            expressions.add(new Expression("outBits", "s1 * 8", true));
+            expressions.add(new Expression("inPercent", "( ( s2 == NaN ) || ( s2 == 0 ) ) ? NaN : inBits / ( s2 * 10.0d )", false));
+            expressions.add(new Expression("outPercent", "( ( s2 == NaN ) || ( s2 == 0 ) ) ? NaN : outBits / ( s2 * 10.0d )", false));
+            expressions.add(new Expression("total", "( ( s3 == NaN ) ? 0.0d : s3 ) + ( ( s4 == NaN ) ? 0.0d : s4 ) + ( ( s5 == NaN ) ? 0.0d : s5 )", false));
+            expressions.add(new Expression("minutes", "( timestamp - 1700000000000 ) / 60000", false));
+            expressions.add(new Expression("wave", "math:sin(__i * __PI / 180.0d) * s6 + math:sqrt(math:abs(s7))", false));
+            request = new QueryRequest();
+            request.setExpressions(expressions);
+
+            final FetchResults expected = results();
+            final FetchResults actual = results();
+            jexlEngine.applyExpressions(request, expected);
+            columnarEngine.applyExpressions(request, actual);
+            for (final Expression expression : expressions) {
+                final double[] e = expected.getColumns().get(expression.getLabel());
+                final double[] a = actual.getColumns().get(expression.getLabel());
+                for (int i = 0; e != null && i < ROWS; i++) {
+                    if (Double.doubleToLongBits(e[i]) != Double.doubleToLongBits(a[i])) {
+                        throw new IllegalStateException("Results differ for " + expression.getLabel() + " at row " + i);
+                    }
+                }
+            }
+        }
+
+        private FetchResults results() {
+            // The engines add the results to the columns
+            return new FetchResults(timestamps, Maps.newHashMap(columns), 300000L, Maps.newHashMap(), null);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void jexl(BState state, Blackhole blackhole) throws ExpressionException {
+        final FetchResults results = state.results();
+        state.jexlEngine.applyExpressions(state.request, results);
+        blackhole.consume(results);
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void columnar(BState state, Blackhole blackhole) throws ExpressionException {
+        final FetchResults results = state.results();
+        state.columnarEngine.applyExpressions(state.request, results);
+        blackhole.consume(results);
+    }
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.poller;
+
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link ServiceMonitor} which polls without blocking the calling thread.
+ * <p>
+ * The poller framework calls {@link #pollAsync(MonitoredService, Map)} instead of {@link #poll(MonitoredService, Map)}
+ * for monitors implementing this interface, so no thread is held while waiting for the service to respond.
+ * Implementations should use a small, shared pool of I/O threads and complete the returned stage from there.
+ */
+public interface AsyncServiceMonitor extends ServiceMonitor {
+
+    /**
+     * Polls the service asynchronously.
+     *
+     * @param svc
+     *            Includes details about to the service being monitored.
+     * @param parameters
+     *            Includes the service parameters defined in <EM>poller-configuration.xml</EM> and those
+     *            returned by {@link #getRuntimeAttributes(MonitoredService, Map)}.
+     * @return A stage completed with the availability of the service. The stage should not complete exceptionally,
+     *         failures are reported as a poll status instead.
+     */
+    CompletionStage<PollStatus> pollAsync(MonitoredService svc, Map<String, Object> parameters);
+
+    /**
+     * Polls the service and waits for the result.
+     */
+    @Override
+    default PollStatus poll(MonitoredService svc, Map<String, Object> parameters) {
+        return pollAsync(svc, parameters).toCompletableFuture().join();
+    }
+}
@@ -30,10 +30,12 @@ package org.opennms.netmgt.poller.client.rpc;
 
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 import org.opennms.core.rpc.xml.AbstractXmlRpcModule;
+import org.opennms.netmgt.poller.AsyncServiceMonitor;
 import org.opennms.netmgt.poller.PollStatus;
 import org.opennms.netmgt.poller.ServiceMonitor;
 import org.opennms.netmgt.poller.ServiceMonitorRegistry;
@@ -68,6 +70,24 @@ public class PollerClientRpcModule extends AbstractXmlRpcModule<PollerRequestDTO
             return CompletableFuture.completedFuture(new PollerResponseDTO(PollStatus.unknown("No monitor found with class name '" + className + "'.")));
         }
 
+        // Asynchronous monitors don't need a thread while waiting for the service
+        if (monitor instanceof AsyncServiceMonitor) {
+            try {
+                final Map<String, Object> parameters = request.getMonitorParameters();
+                return ((AsyncServiceMonitor) monitor).pollAsync(request, parameters)
+                        .handle((pollStatus, ex) -> {
+                            if (ex != null) {
+                                final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                                return new PollerResponseDTO(PollStatus.unknown(cause.getMessage()));
+                            }
+                            return new PollerResponseDTO(pollStatus);
+                        })
+                        .toCompletableFuture();
+            } catch (RuntimeException e) {
+                return CompletableFuture.completedFuture(new PollerResponseDTO(PollStatus.unknown(e.getMessage())));
+            }
+        }
+
         return CompletableFuture.supplyAsync(new Supplier<PollerResponseDTO>() {
             @Override
             public PollerResponseDTO get() {
@@ -28,23 +28,20 @@
 
 package org.opennms.netmgt.poller.monitors;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.InterruptedIOException;
-import java.net.ConnectException;
 import java.net.InetAddress;
-import java.net.InetSocketAddress;
-import java.net.NoRouteToHostException;
-import java.net.Socket;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
-import org.opennms.core.utils.InetAddressUtils;
 import org.opennms.core.utils.ParameterMap;
 import org.opennms.core.utils.TimeoutTracker;
+import org.opennms.netmgt.poller.AsyncServiceMonitor;
 import org.opennms.netmgt.poller.MonitoredService;
 import org.opennms.netmgt.poller.PollStatus;
+import org.opennms.netmgt.poller.monitors.support.AsyncLineClient;
 import org.opennms.netmgt.poller.monitors.support.FtpResponse;
+import org.opennms.netmgt.poller.monitors.support.LineConversation;
+import org.opennms.netmgt.poller.monitors.support.MonitorEventLoop;
 import org.opennms.netmgt.poller.monitors.support.ParameterSubstitutingMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,7 +55,7 @@ import org.slf4j.LoggerFactory;
  * @author <A HREF="mailto:tarus@opennms.org">Tarus Balog </A>
  * @author <A HREF="http://www.opennms.org/">OpenNMS </A>
  */
-public class FtpMonitor extends ParameterSubstitutingMonitor {
+public class FtpMonitor extends ParameterSubstitutingMonitor implements AsyncServiceMonitor {
     
     
     public static final Logger LOG = LoggerFactory.getLogger(FtpMonitor.class);
@@ -80,6 +77,15 @@ public class FtpMonitor extends ParameterSubstitutingMonitor {
     private static final int DEFAULT_TIMEOUT = 3000; // 3 second timeout on
                                                         // read()
 
+    private MonitorEventLoop m_eventLoop;
+
+    /**
+     * Sets the event loop the connections run on. The default loop is used if none is set.
+     */
+    public void setEventLoop(MonitorEventLoop eventLoop) {
+        m_eventLoop = eventLoop;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -93,7 +99,7 @@ public class FtpMonitor extends ParameterSubstitutingMonitor {
      * valid we set the service status to SERVICE_AVAILABLE and return.
      */
     @Override
-    public PollStatus poll(MonitoredService svc, Map<String, Object> parameters) {
+    public CompletionStage<PollStatus> pollAsync(MonitoredService svc, Map<String, Object> parameters) {
         // Get the parameters
         TimeoutTracker tracker = new TimeoutTracker(parameters, DEFAULT_RETRY, DEFAULT_TIMEOUT);
         int port = ParameterMap.getKeyedInteger(parameters, "port", DEFAULT_PORT);
@@ -103,126 +109,121 @@ public class FtpMonitor extends ParameterSubstitutingMonitor {
         // Extract the address
         InetAddress ipAddr = svc.getAddress();
 
-        PollStatus serviceStatus = PollStatus.unavailable();
-        for (tracker.reset(); tracker.shouldRetry() && !serviceStatus.isAvailable(); tracker.nextAttempt()) {
+        return new AsyncLineClient(m_eventLoop, ipAddr, port, tracker, parameters)
+                .poll(() -> new FtpConversation(ipAddr, userid, password));
+    }
+
+    private enum State {
+        BANNER, USER, PASS, QUIT
+    }
 
-            LOG.debug("FtpMonitor.poll: Polling interface: {} {}", InetAddressUtils.str(ipAddr), tracker);
+    private static class FtpConversation extends LineConversation {
+        private final InetAddress m_ipAddr;
+        private final String m_userid;
+        private final String m_password;
 
-            Socket socket = null;
+        private State m_state = State.BANNER;
+        private FtpResponse.Parser m_parser = new FtpResponse.Parser();
+        private double m_responseTime;
+
+        private FtpConversation(InetAddress ipAddr, String userid, String password) {
+            m_ipAddr = ipAddr;
+            m_userid = userid;
+            m_password = password;
+        }
+
+        @Override
+        public PollStatus received(Exchange exchange, String line) {
+            final FtpResponse response;
             try {
-                // create a connected socket
-                tracker.startAttempt();
-
-                socket = new Socket();
-                socket.connect(new InetSocketAddress(ipAddr, port), tracker.getConnectionTimeout());
-                socket.setSoTimeout(tracker.getSoTimeout());
-                LOG.debug("FtpMonitor: connected to host: {} on port: {}", ipAddr, port);
-
-                // We're connected, so upgrade status to unresponsive
-                serviceStatus = PollStatus.unresponsive();
-
-                BufferedReader lineRdr = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                
-                FtpResponse bannerResponse = FtpResponse.readResponse(lineRdr);
-
-                if (bannerResponse.isSuccess()) {
-                    // Attempt to login if userid and password available
-                    boolean loggedInSuccessfully = false;
-                    LOG.debug("FtpMonitor: Banner response successful.");
-                    if (userid == null || userid.length() == 0 || password == null || password.length() == 0) {
-                        loggedInSuccessfully = true;
-                    } else {
-                        FtpResponse.sendCommand(socket, "USER " + userid);
-
-                        FtpResponse userResponse = FtpResponse.readResponse(lineRdr);
-
-                        if (userResponse.isSuccess() || userResponse.isIntermediate()) {
-                            LOG.debug("FtpMonitor: User response successful.");
-                            FtpResponse.sendCommand(socket, "PASS " + password);
-                            
-                            FtpResponse passResponse = FtpResponse.readResponse(lineRdr);
-                            if (passResponse.isSuccess()) {
-                                LOG.debug("FtpMonitor.poll: Login successful, parsed return code: {}", passResponse.getCode());
-                                loggedInSuccessfully = true;
-                            } else {
-                                LOG.debug("FtpMonitor.poll: Login failed, parsed return code: {}, full response: {}", passResponse.getCode(), passResponse);
-                                loggedInSuccessfully = false;
-                            }
+                response = m_parser.parseLine(line);
+            } catch (IOException e) {
+                String reason = "IOException while polling address: " + m_ipAddr;
+                LOG.debug(reason, e);
+                return PollStatus.unavailable(reason);
+            }
+            if (response == null) {
+                return null;
+            }
+            m_parser = new FtpResponse.Parser();
+
+            switch (m_state) {
+                case BANNER:
+                    if (response.isSuccess()) {
+                        // Attempt to login if userid and password available
+                        LOG.debug("FtpMonitor: Banner response successful.");
+                        if (m_userid == null || m_userid.length() == 0 || m_password == null || m_password.length() == 0) {
+                            return quit(exchange);
                         }
+                        send(exchange, "USER " + m_userid);
+                        m_state = State.USER;
+                        return null;
                     }
-
-                    // Store the response time before we try to quit
-                    double responseTime = tracker.elapsedTimeInMillis();
-
-                    if (loggedInSuccessfully) {
-                        FtpResponse.sendCommand(socket, "QUIT");
-
-                        FtpResponse quitResponse = FtpResponse.readResponse(lineRdr);
-
-                        /*
-                         * Special Cases for success:
-                         * 
-                         * Also want to accept the following
-                         * ERROR message generated by some FTP servers
-                         * following a QUIT command without a previous
-                         * successful login:
-                         *
-                         * "530 QUIT : User not logged in. Please login with
-                         * USER and PASS first."
-                         * 
-                         * Also want to accept the following ERROR
-                         * message generated by some FTP servers following a
-                         * QUIT command without a previously successful login:
-                         *
-                         * "425 Session is disconnected."
-                         */
-                        if (quitResponse.isSuccess()
-                                || (quitResponse.getCode() == 530 ) || (quitResponse.getCode() == 425 )) {
-                            serviceStatus = PollStatus.available(responseTime);
-                        }
+                    break;
+                case USER:
+                    if (response.isSuccess() || response.isIntermediate()) {
+                        LOG.debug("FtpMonitor: User response successful.");
+                        send(exchange, "PASS " + m_password);
+                        m_state = State.PASS;
+                        return null;
                     }
-                }
-
-                /*
-                 * If we get this far and the status has not been set
-                 * to available, then something didn't verify during
-                 * the banner checking or login/QUIT command process.
-                 */
-                if (!serviceStatus.isAvailable()) {
-                    serviceStatus = PollStatus.unavailable();
-                }
-            } catch (NumberFormatException e) {
-            	String reason = "NumberFormatException while polling address: " + ipAddr;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-            } catch (NoRouteToHostException e) {
-            	String reason = "No route to host exception for address: " + ipAddr;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-            } catch (InterruptedIOException e) {
-            	String reason = "did not connect to host with " + tracker;
-                LOG.debug(reason);
-                serviceStatus = PollStatus.unavailable(reason);
-            } catch (ConnectException e) {
-            	String reason = "Connection exception for address: " + ipAddr;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-            } catch (IOException e) {
-            	String reason = "IOException while polling address: " + ipAddr;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-            } finally {
-                try {
-                    // Close the socket
-                    if (socket != null) {
-                        socket.close();
+                    break;
+                case PASS:
+                    if (response.isSuccess()) {
+                        LOG.debug("FtpMonitor.poll: Login successful, parsed return code: {}", response.getCode());
+                        return quit(exchange);
                     }
-                } catch (IOException e) {
-                    LOG.debug("FtpMonitor.poll: Error closing socket", e);
-                }
+                    LOG.debug("FtpMonitor.poll: Login failed, parsed return code: {}, full response: {}", response.getCode(), response);
+                    break;
+                case QUIT:
+                    /*
+                     * Special Cases for success:
+                     * 
+                     * Also want to accept the following
+                     * ERROR message generated by some FTP servers
+                     * following a QUIT command without a previous
+                     * successful login:
+                     *
+                     * "530 QUIT : User not logged in. Please login with
+                     * USER and PASS first."
+                     * 
+                     * Also want to accept the following ERROR
+                     * message generated by some FTP servers following a
+                     * QUIT command without a previously successful login:
+                     *
+                     * "425 Session is disconnected."
+                     */
+                    if (response.isSuccess()
+                            || (response.getCode() == 530 ) || (response.getCode() == 425 )) {
+                        return PollStatus.available(m_responseTime);
+                    }
+                    break;
             }
+
+            /*
+             * If we get this far, then something didn't verify during
+             * the banner checking or login/QUIT command process.
+             */
+            return PollStatus.unavailable();
+        }
+
+        @Override
+        public PollStatus closed(Exchange exchange) {
+            String reason = "IOException while polling address: " + m_ipAddr;
+            LOG.debug("{}: End of stream was reached before a response could be read", reason);
+            return PollStatus.unavailable(reason);
         }
 
-        return serviceStatus;
+        private PollStatus quit(Exchange exchange) {
+            // Store the response time before we try to quit
+            m_responseTime = exchange.elapsedTimeInMillis();
+            send(exchange, "QUIT");
+            m_state = State.QUIT;
+            return null;
+        }
+
+        private static void send(Exchange exchange, String command) {
+            exchange.send(command + "\r\n");
+        }
     }
 }
@@ -28,37 +28,39 @@
 
 package org.opennms.netmgt.poller.monitors;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.InterruptedIOException;
 import java.net.ConnectException;
 import java.net.Inet6Address;
 import java.net.InetAddress;
-import java.net.InetSocketAddress;
 import java.net.NoRouteToHostException;
-import java.net.Socket;
-import java.net.SocketException;
-import java.net.SocketTimeoutException;
 import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.regex.Pattern;
 
+import javax.net.ssl.SSLContext;
+
 import org.apache.commons.lang.StringUtils;
 import org.opennms.core.utils.Base64;
-import org.opennms.core.utils.DefaultSocketWrapper;
 import org.opennms.core.utils.IPLike;
 import org.opennms.core.utils.InetAddressUtils;
 import org.opennms.core.utils.ParameterMap;
-import org.opennms.core.utils.SocketWrapper;
 import org.opennms.core.utils.TimeoutTracker;
+import org.opennms.netmgt.poller.AsyncServiceMonitor;
 import org.opennms.netmgt.poller.MonitoredService;
 import org.opennms.netmgt.poller.PollStatus;
+import org.opennms.netmgt.poller.monitors.support.AsyncLineClient;
+import org.opennms.netmgt.poller.monitors.support.LineConversation;
+import org.opennms.netmgt.poller.monitors.support.MonitorEventLoop;
 import org.opennms.netmgt.poller.monitors.support.ParameterSubstitutingMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutException;
+
 /**
  * This class is designed to be used by the service poller framework to test the availability
  * of the HTTP service on remote interfaces. The class implements the ServiceMonitor interface
@@ -69,7 +71,7 @@ import org.slf4j.LoggerFactory;
  * @author <A HREF="mailto:mike@opennms.org">Mike </A>
  * @author <a href="mailto:david@opennms.org">David Hustace</a>
  */
-public class HttpMonitor extends ParameterSubstitutingMonitor {
+public class HttpMonitor extends ParameterSubstitutingMonitor implements AsyncServiceMonitor {
     
     public static final Logger LOG = LoggerFactory.getLogger(HttpMonitor.class);
     
@@ -96,6 +98,12 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
      */
     private static final int DEFAULT_TIMEOUT = 3000; // 3 second timeout on read()
 
+    /**
+     * Default for the longest line of a response. A longer line, e.g. of a minified page without line breaks, fails
+     * the attempt, as it can't be matched against the response text.
+     */
+    private static final int DEFAULT_MAX_LINE_LENGTH = 1024 * 1024;
+
     public static final String PARAMETER_VERBOSE = "verbose";
     public static final String PARAMETER_USER_AGENT = "user-agent";
     public static final String PARAMETER_BASIC_AUTHENTICATION = "basic-authentication";
@@ -108,6 +116,16 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
     public static final String PARAMETER_RESPONSE = "response";
     public static final String PARAMETER_URL = "url";
     public static final String PARAMETER_PORT = "port";
+    public static final String PARAMETER_MAX_LINE_LENGTH = "max-line-length";
+
+    private MonitorEventLoop m_eventLoop;
+
+    /**
+     * Sets the event loop the connections run on. The default loop is used if none is set.
+     */
+    public void setEventLoop(MonitorEventLoop eventLoop) {
+        m_eventLoop = eventLoop;
+    }
 
     /**
      * {@inheritDoc}
@@ -121,90 +139,44 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
      * SERVICE_AVAILABLE and return.
      */
     @Override
-    public PollStatus poll(final MonitoredService svc, final Map<String, Object> parameters) {
+    public CompletionStage<PollStatus> pollAsync(final MonitoredService svc, final Map<String, Object> parameters) {
         final InetAddress addr = svc.getAddress();
         final String nodeLabel = svc.getNodeLabel();
 
-        // Cycle through the port list
-        //
-        int currentPort = -1;
         final HttpMonitorClient httpClient = new HttpMonitorClient(nodeLabel, addr, new TreeMap<String, Object>(parameters));
+        return pollPort(svc, parameters, httpClient, 0).thenApply(v -> httpClient.determinePollStatusResponse());
+    }
 
-        for (int portIndex = 0; portIndex < determinePorts(httpClient.getParameters()).length && httpClient.getPollStatus() != PollStatus.SERVICE_AVAILABLE; portIndex++) {
-            currentPort = determinePorts(httpClient.getParameters())[portIndex];
-
-            httpClient.setTimeoutTracker(new TimeoutTracker(parameters, DEFAULT_RETRY, DEFAULT_TIMEOUT));
-            LOG.debug("Port = {}, Address = {}, {}", currentPort, addr, httpClient.getTimeoutTracker());
-            
-            httpClient.setCurrentPort(currentPort);
-            String serviceInfo = new StringBuilder(addr.toString())
-            .append(":").append(svc.getSvcName()).append(":").append(currentPort)
-            .toString();
-
-            for(httpClient.getTimeoutTracker().reset();
-                httpClient.getTimeoutTracker().shouldRetry() && httpClient.getPollStatus() != PollStatus.SERVICE_AVAILABLE; 
-                httpClient.getTimeoutTracker().nextAttempt()) {
-                
-                try {
-                    httpClient.getTimeoutTracker().startAttempt();                    
-                    httpClient.connect();
-                    LOG.debug("HttpMonitor: connected to host: {} on port: {}", addr, currentPort);
-
-                    httpClient.sendHttpCommand();
-                    
-                    if (httpClient.isEndOfStream()) {
-                        continue;
-                    }
-
-                    httpClient.setResponseTime(httpClient.getTimeoutTracker().elapsedTimeInMillis());
-                    logResponseTimes(httpClient.getResponseTime(), httpClient.getCurrentLine());
-
-                    if (httpClient.getPollStatus() == PollStatus.SERVICE_AVAILABLE && StringUtils.isNotBlank(httpClient.getResponseText())) {
-                        httpClient.setPollStatus(PollStatus.SERVICE_UNAVAILABLE);
-                        httpClient.readLinedMatching();
-                        
-                        if (httpClient.isEndOfStream()) {
-                            continue;
-                        }
-
-                        httpClient.read();
-
-                        if (!httpClient.isResponseTextFound()) {
-                            String message = "Matching text: ["+httpClient.getResponseText()+"] not found in body of HTTP response for " + serviceInfo;
-                            LOG.debug(message);
-                            httpClient.setReason("Matching text: ["+httpClient.getResponseText()+"] not found in body of HTTP response");
-                        }
-                    }
-                    
-                } catch (NoRouteToHostException e) {
-                    LOG.warn("checkStatus: No route to host exception while polling {}", serviceInfo, e);
-                    portIndex = determinePorts(httpClient.getParameters()).length; // Will cause outer for(;;) to terminate
-                    httpClient.setReason("No route to host exception");
-                } catch (SocketTimeoutException e) {
-                    LOG.info("checkStatus: HTTP socket connection for service {} timed out with {}", serviceInfo, httpClient.getTimeoutTracker().toString());
-                    httpClient.setReason("HTTP connection timeout");
-                } catch (InterruptedIOException e) {
-                    LOG.info(String.format("checkStatus: HTTP connection for service {} interrupted after {} bytes transferred with {}", serviceInfo, e.bytesTransferred, httpClient.getTimeoutTracker().toString()), e);
-                    httpClient.setReason(String.format("HTTP connection interrupted, %d bytes transferred", e.bytesTransferred));
-                } catch (ConnectException e) {
-                    LOG.warn("Connection exception for {}", serviceInfo, e);
-                    httpClient.setReason("HTTP connection exception on port: "+determinePorts(httpClient.getParameters())[portIndex]+": "+e.getMessage());
-                } catch (IOException e) {
-                    String exceptionClass = e.getClass().getSimpleName();
-                    LOG.warn("{} while polling {}", exceptionClass, serviceInfo, e);
-                    httpClient.setReason("IOException while polling address: "+addr+": "+e.getMessage());
-                } catch (Throwable e) {
-                    String exceptionClass = e.getClass().getSimpleName();
-                    LOG.warn("Unexpected {} while polling {}", exceptionClass, serviceInfo, e);
-                    httpClient.setReason("Unexpected exception while polling address: "+addr+": "+e.getMessage());
-                } finally {
-                    httpClient.closeConnection();
-                }
-
-            } // end for (attempts)
-        } // end for (ports)
-        return httpClient.determinePollStatusResponse();
+    /**
+     * Polls the port with the given index and moves on to the next port until the service is available.
+     */
+    private CompletableFuture<Void> pollPort(final MonitoredService svc, final Map<String, Object> parameters, final HttpMonitorClient httpClient, final int portIndex) {
+        final int[] ports = determinePorts(httpClient.getParameters());
+        if (portIndex >= ports.length || httpClient.getPollStatus() == PollStatus.SERVICE_AVAILABLE) {
+            return CompletableFuture.completedFuture(null);
+        }
 
+        final InetAddress addr = svc.getAddress();
+        final int currentPort = ports[portIndex];
+        final TimeoutTracker tracker = new TimeoutTracker(parameters, DEFAULT_RETRY, DEFAULT_TIMEOUT);
+        httpClient.setTimeoutTracker(tracker);
+        LOG.debug("Port = {}, Address = {}, {}", currentPort, addr, tracker);
+
+        httpClient.setCurrentPort(currentPort);
+        final String serviceInfo = new StringBuilder(addr.toString())
+        .append(":").append(svc.getSvcName()).append(":").append(currentPort)
+        .toString();
+
+        final AsyncLineClient client = new AsyncLineClient(m_eventLoop, addr, currentPort, tracker, parameters)
+                .withSsl(getSslContext())
+                .withMaxLineLength(determineMaxLineLength(parameters));
+        return client.poll(() -> httpClient.new HttpConversation(serviceInfo)).thenCompose(status -> {
+            if (client.isAborted()) {
+                // No route to the host, so the other ports will not respond either
+                return CompletableFuture.completedFuture(null);
+            }
+            return pollPort(svc, parameters, httpClient, portIndex + 1);
+        });
     }
 
     private void logResponseTimes(Double responseTime, String line) {
@@ -213,14 +185,12 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
     }
 
     /**
-     * <p>wrapSocket</p>
+     * Returns the SSL context used to wrap the connections, or {@code null} to use plain connections.
      *
-     * @param socket a {@link java.net.Socket} object.
-     * @return a {@link java.net.Socket} object.
-     * @throws java.io.IOException if any.
+     * @return a {@link javax.net.ssl.SSLContext} object.
      */
-    protected SocketWrapper getSocketWrapper() {
-        return new DefaultSocketWrapper();
+    protected SSLContext getSslContext() {
+        return null;
     }
 
     private static boolean determineVerbosity(final Map<String, Object> parameters) {
@@ -268,6 +238,10 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
         return ParameterMap.getKeyedString(parameters, PARAMETER_RESPONSE, determineDefaultResponseRange(determineUrl(parameters)));
     }
 
+    private static int determineMaxLineLength(final Map<String, Object> parameters) {
+        return ParameterMap.getKeyedInteger(parameters, PARAMETER_MAX_LINE_LENGTH, DEFAULT_MAX_LINE_LENGTH);
+    }
+
     private static String determineUrl(final Map<String, Object> parameters) {
         String url = resolveKeyedString(parameters, PARAMETER_URL, DEFAULT_URL);
         return url;
@@ -303,12 +277,9 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
         final InetAddress m_addr;
         final Map<String, Object> m_parameters;
         String m_httpCmd;
-        Socket m_httpSocket;
-        private BufferedReader m_lineRdr;
         private String m_currentLine;
         private int m_serviceStatus;
         private String m_reason;
-        private final StringBuilder m_html = new StringBuilder();
         private int m_serverResponseCode;
         private TimeoutTracker m_timeoutTracker;
         private int m_currentPort;
@@ -325,15 +296,6 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
             m_serviceStatus = PollStatus.SERVICE_UNAVAILABLE;
             m_responseText = determineResponseText(parameters);
         }
-        
-        public void read() throws IOException {
-            for (int nullCount = 0; nullCount < 2;) {
-                readLinedMatching();
-                if (isEndOfStream()) {
-                    nullCount++;
-                }
-            }
-        }
 
         public int getCurrentPort() {
             return m_currentPort;
@@ -417,26 +379,6 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
             m_responseTime = elapsedTimeInMillis;
         }
 
-        private void connect() throws IOException, SocketException {
-            m_httpSocket = new Socket();
-            m_httpSocket.connect(new InetSocketAddress(m_addr, m_currentPort), m_timeoutTracker.getConnectionTimeout());
-            m_serviceStatus = PollStatus.SERVICE_UNRESPONSIVE;
-            m_httpSocket.setSoTimeout(m_timeoutTracker.getSoTimeout());
-            m_httpSocket = getSocketWrapper().wrapSocket(m_httpSocket);
-        }
-        
-        public void closeConnection() {
-            try {
-                if (m_httpSocket != null) {
-                    m_httpSocket.close();
-                    m_httpSocket = null;
-                }
-            } catch (final IOException e) {
-                e.fillInStackTrace();
-                HttpMonitor.LOG.warn("Error closing socket connection", e);
-            }
-        }
-
         public int getPollStatus() {
             return m_serviceStatus;
         }
@@ -501,26 +443,16 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
             return serverResponse;
         }
 
-        public boolean isEndOfStream() {
-            if (m_currentLine == null) {
-                return true;
-            }
-            return false;
-        }
-
-        public String readLine() throws IOException {
-            m_currentLine = m_lineRdr.readLine();
+        private void readLine(final String line) {
+            m_currentLine = line;
             
             if (determineVerbosity(m_parameters) && HttpMonitor.LOG.isDebugEnabled()) {
                 HttpMonitor.LOG.debug("\t<<: {}", m_currentLine);
             }
-            
-            m_html.append(m_currentLine);
-            return m_currentLine;
         }
 
-        public String readLinedMatching() throws IOException {
-            readLine();
+        private void readLineMatching(final String line) {
+            readLine(line);
             
             if (m_responseText != null && m_currentLine != null && !m_responseTextFound) {
                 if (checkCurrentLineMatchesResponseText()) {
@@ -530,21 +462,6 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
                     m_serviceStatus = PollStatus.SERVICE_AVAILABLE;
                 }
             }
-            return m_currentLine;
-        }
-
-        public void sendHttpCommand() throws IOException {
-            if (determineVerbosity(m_parameters) && HttpMonitor.LOG.isDebugEnabled()) {
-                HttpMonitor.LOG.debug("Sending HTTP command: {}", m_httpCmd);
-            }
-            m_httpSocket.getOutputStream().write(m_httpCmd.getBytes());
-            m_lineRdr = new BufferedReader(new InputStreamReader(m_httpSocket.getInputStream()));
-            readLine();
-            if (determineVerbosity(m_parameters)) {
-                HttpMonitor.LOG.debug("Server response: {}", m_currentLine);
-            }
-            determineServerInitialResponse();
-            m_headerFinished = false; // Clean header flag for each HTTP request.
         }
 
         private void buildCommand() {
@@ -584,12 +501,11 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
             return m_reason;
         }
 
-        public Socket getHttpSocket() {
-            return m_httpSocket;
-        }
-
-        public void setHttpSocket(final Socket httpSocket) {
-            m_httpSocket = httpSocket;
+        /**
+         * Returns the status of the current attempt, so the client retries until the service is available.
+         */
+        private PollStatus attemptStatus() {
+            return m_serviceStatus == PollStatus.SERVICE_AVAILABLE ? PollStatus.available(m_responseTime) : PollStatus.get(m_serviceStatus, m_reason);
         }
 
         protected PollStatus determinePollStatusResponse() {
@@ -629,7 +545,88 @@ public class HttpMonitor extends ParameterSubstitutingMonitor {
                 return PollStatus.get(getPollStatus(), getReason());
             }
         }
-        
+
+        /**
+         * Sends the request and checks the status line, and the body if a response text is expected, of one attempt.
+         */
+        final class HttpConversation extends LineConversation {
+            private final String m_serviceInfo;
+            private boolean m_statusLineRead = false;
+
+            HttpConversation(final String serviceInfo) {
+                m_serviceInfo = serviceInfo;
+            }
+
+            @Override
+            public PollStatus connected(final Exchange exchange) {
+                LOG.debug("HttpMonitor: connected to host: {} on port: {}", m_addr, m_currentPort);
+                m_serviceStatus = PollStatus.SERVICE_UNRESPONSIVE;
+                if (determineVerbosity(m_parameters) && HttpMonitor.LOG.isDebugEnabled()) {
+                    HttpMonitor.LOG.debug("Sending HTTP command: {}", m_httpCmd);
+                }
+                exchange.send(m_httpCmd);
+                return null;
+            }
+
+            @Override
+            public PollStatus received(final Exchange exchange, final String line) {
+                if (!m_statusLineRead) {
+                    m_statusLineRead = true;
+                    readLine(line);
+                    if (determineVerbosity(m_parameters)) {
+                        HttpMonitor.LOG.debug("Server response: {}", m_currentLine);
+                    }
+                    determineServerInitialResponse();
+                    m_headerFinished = false; // Clean header flag for each HTTP request.
+
+                    setResponseTime(exchange.elapsedTimeInMillis());
+                    logResponseTimes(getResponseTime(), getCurrentLine());
+
+                    if (m_serviceStatus == PollStatus.SERVICE_AVAILABLE && StringUtils.isNotBlank(m_responseText)) {
+                        // Keep reading the response until the text is found
+                        m_serviceStatus = PollStatus.SERVICE_UNAVAILABLE;
+                        return null;
+                    }
+                    return attemptStatus();
+                }
+
+                readLineMatching(line);
+                return m_responseTextFound ? attemptStatus() : null;
+            }
+
+            @Override
+            public PollStatus closed(final Exchange exchange) {
+                if (m_statusLineRead) {
+                    String message = "Matching text: ["+getResponseText()+"] not found in body of HTTP response for " + m_serviceInfo;
+                    LOG.debug(message);
+                    setReason("Matching text: ["+getResponseText()+"] not found in body of HTTP response");
+                }
+                return attemptStatus();
+            }
+
+            @Override
+            public PollStatus failed(final Throwable cause) {
+                if (cause instanceof NoRouteToHostException) {
+                    LOG.warn("checkStatus: No route to host exception while polling {}", m_serviceInfo, cause);
+                    setReason("No route to host exception");
+                } else if (cause instanceof ConnectTimeoutException || cause instanceof ReadTimeoutException) {
+                    LOG.info("checkStatus: HTTP socket connection for service {} timed out with {}", m_serviceInfo, getTimeoutTracker());
+                    setReason("HTTP connection timeout");
+                } else if (cause instanceof ConnectException) {
+                    LOG.warn("Connection exception for {}", m_serviceInfo, cause);
+                    setReason("HTTP connection exception on port: "+m_currentPort+": "+cause.getMessage());
+                } else if (cause instanceof IOException) {
+                    String exceptionClass = cause.getClass().getSimpleName();
+                    LOG.warn("{} while polling {}", exceptionClass, m_serviceInfo, cause);
+                    setReason("IOException while polling address: "+m_addr+": "+cause.getMessage());
+                } else {
+                    String exceptionClass = cause.getClass().getSimpleName();
+                    LOG.warn("Unexpected {} while polling {}", exceptionClass, m_serviceInfo, cause);
+                    setReason("Unexpected exception while polling address: "+m_addr+": "+cause.getMessage());
+                }
+                return attemptStatus();
+            }
+        }
     }
 
 }
@@ -28,23 +28,20 @@
 
 package org.opennms.netmgt.poller.monitors;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.InterruptedIOException;
-import java.net.ConnectException;
 import java.net.InetAddress;
-import java.net.InetSocketAddress;
-import java.net.NoRouteToHostException;
-import java.net.Socket;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import javax.net.ssl.SSLContext;
 
-import org.opennms.core.utils.DefaultSocketWrapper;
 import org.opennms.core.utils.ParameterMap;
-import org.opennms.core.utils.SocketWrapper;
 import org.opennms.core.utils.TimeoutTracker;
+import org.opennms.netmgt.poller.AsyncServiceMonitor;
 import org.opennms.netmgt.poller.MonitoredService;
 import org.opennms.netmgt.poller.PollStatus;
+import org.opennms.netmgt.poller.monitors.support.AsyncLineClient;
+import org.opennms.netmgt.poller.monitors.support.LineConversation;
+import org.opennms.netmgt.poller.monitors.support.MonitorEventLoop;
 import org.opennms.netmgt.poller.support.AbstractServiceMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,7 +72,7 @@ import org.slf4j.LoggerFactory;
  * @author <A HREF="http://www.opennms.org/">OpenNMS </A>
  * @version CVS 1.1.1.1
  */
-public class ImapMonitor extends AbstractServiceMonitor {
+public class ImapMonitor extends AbstractServiceMonitor implements AsyncServiceMonitor {
     private static final Logger LOG = LoggerFactory.getLogger(ImapMonitor.class);
 
     /**
@@ -114,6 +111,15 @@ public class ImapMonitor extends AbstractServiceMonitor {
      */
     private static String IMAP_LOGOUT_RESPONSE_PREFIX = "ONMSPOLLER OK ";
 
+    private MonitorEventLoop m_eventLoop;
+
+    /**
+     * Sets the event loop the connections run on. The default loop is used if none is set.
+     */
+    public void setEventLoop(MonitorEventLoop eventLoop) {
+        m_eventLoop = eventLoop;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -133,7 +139,7 @@ public class ImapMonitor extends AbstractServiceMonitor {
      * </P>
      */
     @Override
-    public PollStatus poll(MonitoredService svc, Map<String, Object> parameters) {
+    public CompletionStage<PollStatus> pollAsync(MonitoredService svc, Map<String, Object> parameters) {
         // Process parameters
         //
 
@@ -149,100 +155,10 @@ public class ImapMonitor extends AbstractServiceMonitor {
 
         LOG.debug("ImapMonitor.poll: address: {} port: {} {}", ipAddr, port, tracker);
 
-        PollStatus serviceStatus = PollStatus.unavailable();
-
-        for (tracker.reset(); tracker.shouldRetry() && !serviceStatus.isAvailable(); tracker.nextAttempt()) {
-            Socket socket = null;
-            try {
-                //
-                // create a connected socket
-                //
-                tracker.startAttempt();
-
-                socket = new Socket();
-                socket.connect(new InetSocketAddress(ipAddr, port), tracker.getConnectionTimeout());
-                socket.setSoTimeout(tracker.getSoTimeout());
-
-                // We're connected, so upgrade status to unresponsive
-                serviceStatus = PollStatus.unresponsive();
-                
- 		// For SSL support
-                socket = getSocketWrapper().wrapSocket(socket);
-
-                BufferedReader rdr = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-
-                //
-                // Tokenize the Banner Line, and check the first
-                // line for a valid return.
-                //
-                String banner = rdr.readLine();
-                
-                double responseTime = tracker.elapsedTimeInMillis();
-
-
-                LOG.debug("ImapMonitor.Poll(): banner: {}", banner);
-
-                if (banner != null && banner.startsWith(IMAP_START_RESPONSE_PREFIX)) {
-                    //
-                    // Send the LOGOUT
-                    //
-                    socket.getOutputStream().write(IMAP_LOGOUT_REQUEST.getBytes());
-
-                    //
-                    // get the returned string, tokenize, and
-                    // verify the correct output.
-                    //
-                    String response = rdr.readLine();
-                    if (response != null && response.startsWith(IMAP_BYE_RESPONSE_PREFIX)) {
-                        response = rdr.readLine();
-                        if (response != null && response.startsWith(IMAP_LOGOUT_RESPONSE_PREFIX)) {
-                            serviceStatus = PollStatus.available(responseTime);
-                        }
-                    }
-                }
-
-                // If we get this far and the status has not been set
-                // to available, then something didn't verify during
-                // the banner checking or logout process.
-                if (!serviceStatus.isAvailable()) {
-                    serviceStatus = PollStatus.unavailable();
-                }
-
-            } catch (NoRouteToHostException e) {
-            	
-            	String reason = "No route to host exception for address: " + ipAddr;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-
-            } catch (ConnectException e) {
-                // Connection refused. Continue to retry.
-            	String reason = "Connection exception for address: " + ipAddr;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-            } catch (InterruptedIOException e) {
-            	String reason = "did not connect to host with " + tracker;
-                LOG.debug(reason);
-                serviceStatus = PollStatus.unavailable(reason);
-            } catch (IOException e) {
-            	String reason = "IOException while polling address: " + ipAddr;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-            } finally {
-                try {
-                    // Close the socket
-                    if (socket != null)
-                        socket.close();
-                } catch (IOException e) {
-                    e.fillInStackTrace();
-                    LOG.debug("ImapMonitor.poll: Error closing socket.", e);
-                }
-            }
-        }
-
-        //
-        // return the status of the service
-        //
-        return serviceStatus;
+        return new AsyncLineClient(m_eventLoop, ipAddr, port, tracker, parameters)
+                // For SSL support
+                .withSsl(getSslContext())
+                .poll(ImapConversation::new);
     }
 
     protected int determinePort(final Map<String, Object> parameters) {
@@ -250,15 +166,59 @@ public class ImapMonitor extends AbstractServiceMonitor {
     }
 
     /**
-     * <p>wrapSocket</p>
+     * <p>getSslContext</p>
      *
-     * @param socket a {@link java.net.Socket} object.
-     * @return a {@link java.net.Socket} object.
-     * @throws java.io.IOException if any.
+     * @return the {@link javax.net.ssl.SSLContext} used to wrap the connection, or {@code null} for plain IMAP.
      */
-    protected SocketWrapper getSocketWrapper() {
-        return new DefaultSocketWrapper();
+    protected SSLContext getSslContext() {
+        return null;
+    }
+
+    private enum State {
+        BANNER, BYE, LOGOUT
     }
 
+    private static class ImapConversation extends LineConversation {
+        private State m_state = State.BANNER;
+        private double m_responseTime;
+
+        @Override
+        public PollStatus received(Exchange exchange, String line) {
+            switch (m_state) {
+                case BANNER:
+                    m_responseTime = exchange.elapsedTimeInMillis();
+                    LOG.debug("ImapMonitor.Poll(): banner: {}", line);
+                    if (line.startsWith(IMAP_START_RESPONSE_PREFIX)) {
+                        //
+                        // Send the LOGOUT
+                        //
+                        exchange.send(IMAP_LOGOUT_REQUEST);
+                        m_state = State.BYE;
+                        return null;
+                    }
+                    break;
+                case BYE:
+                    if (line.startsWith(IMAP_BYE_RESPONSE_PREFIX)) {
+                        m_state = State.LOGOUT;
+                        return null;
+                    }
+                    break;
+                case LOGOUT:
+                    if (line.startsWith(IMAP_LOGOUT_RESPONSE_PREFIX)) {
+                        return PollStatus.available(m_responseTime);
+                    }
+                    break;
+            }
+
+            // If we get this far, then something didn't verify during
+            // the banner checking or logout process.
+            return PollStatus.unavailable();
+        }
+
+        @Override
+        public PollStatus closed(Exchange exchange) {
+            return PollStatus.unavailable();
+        }
+    }
 
 }
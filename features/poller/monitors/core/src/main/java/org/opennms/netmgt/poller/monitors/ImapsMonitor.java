@@ -30,9 +30,10 @@ package org.opennms.netmgt.poller.monitors;
 
 import java.util.Map;
 
+import javax.net.ssl.SSLContext;
+
 import org.opennms.core.utils.ParameterMap;
-import org.opennms.core.utils.SocketWrapper;
-import org.opennms.core.utils.SslSocketWrapper;
+import org.opennms.core.utils.SocketUtils;
 
 /**
  * This class is designed to be used by the service poller framework to test the
@@ -55,8 +56,8 @@ final public class ImapsMonitor extends ImapMonitor {
 
     /** {@inheritDoc} */
     @Override
-    protected SocketWrapper getSocketWrapper() {
-        return new SslSocketWrapper();
+    protected SSLContext getSslContext() {
+        return SocketUtils.createRelaxedSslContext(null);
     }
 
 }
@@ -28,23 +28,19 @@
 
 package org.opennms.netmgt.poller.monitors;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.InterruptedIOException;
-import java.net.ConnectException;
 import java.net.InetAddress;
-import java.net.InetSocketAddress;
-import java.net.NoRouteToHostException;
-import java.net.Socket;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.CompletionStage;
 
-import org.opennms.core.utils.InetAddressUtils;
 import org.opennms.core.utils.ParameterMap;
 import org.opennms.core.utils.TimeoutTracker;
+import org.opennms.netmgt.poller.AsyncServiceMonitor;
 import org.opennms.netmgt.poller.MonitoredService;
 import org.opennms.netmgt.poller.PollStatus;
+import org.opennms.netmgt.poller.monitors.support.AsyncLineClient;
+import org.opennms.netmgt.poller.monitors.support.LineConversation;
+import org.opennms.netmgt.poller.monitors.support.MonitorEventLoop;
 import org.opennms.netmgt.poller.support.AbstractServiceMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,7 +56,7 @@ import org.slf4j.LoggerFactory;
  * @author <A HREF="mailto:tarus@opennms.org">Tarus Balog </A>
  * @author <A HREF="mailto:mike@opennms.org">Mike </A>
  */
-final public class Pop3Monitor extends AbstractServiceMonitor {
+final public class Pop3Monitor extends AbstractServiceMonitor implements AsyncServiceMonitor {
 
     public static final Logger LOG = LoggerFactory.getLogger(Pop3Monitor.class);
 
@@ -80,6 +76,15 @@ final public class Pop3Monitor extends AbstractServiceMonitor {
      */
     private static final int DEFAULT_TIMEOUT = 3000;
 
+    private MonitorEventLoop m_eventLoop;
+
+    /**
+     * Sets the event loop the connections run on. The default loop is used if none is set.
+     */
+    public void setEventLoop(MonitorEventLoop eventLoop) {
+        m_eventLoop = eventLoop;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -98,7 +103,7 @@ final public class Pop3Monitor extends AbstractServiceMonitor {
      * </P>
      */
     @Override
-    public PollStatus poll(MonitoredService svc, Map<String, Object> parameters) {
+    public CompletionStage<PollStatus> pollAsync(MonitoredService svc, Map<String, Object> parameters) {
         // Process parameters
         //
         TimeoutTracker tracker = new TimeoutTracker(parameters, DEFAULT_RETRY, DEFAULT_TIMEOUT);
@@ -107,103 +112,35 @@ final public class Pop3Monitor extends AbstractServiceMonitor {
 
         InetAddress ipAddr = svc.getAddress();
 
-        LOG.debug("poll: address = {}, port = {}, {}", ipAddr, port, tracker);
-
-        PollStatus serviceStatus = PollStatus.unavailable();
-
-        for (tracker.reset(); tracker.shouldRetry() && !serviceStatus.isAvailable(); tracker.nextAttempt()) {
-            Socket socket = null;
-            final String hostAddress = InetAddressUtils.str(ipAddr);
-			try {
-                //
-                // create a connected socket
-                //
-                tracker.startAttempt();
-
-                socket = new Socket();
-                socket.connect(new InetSocketAddress(ipAddr, port), tracker.getConnectionTimeout());
-                socket.setSoTimeout(tracker.getSoTimeout());
-                LOG.debug("Pop3Monitor: connected to host: {} on port: {}", ipAddr, port);
+        return new AsyncLineClient(m_eventLoop, ipAddr, port, tracker, parameters)
+                .poll(Pop3Conversation::new);
+    }
 
-                // We're connected, so upgrade status to unresponsive
-                serviceStatus = PollStatus.unresponsive();
-                BufferedReader rdr = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+    private static class Pop3Conversation extends LineConversation {
+        private double m_responseTime = -1;
+
+        @Override
+        public PollStatus received(Exchange exchange, String line) {
+            //
+            // Server response should start with: "+OK"
+            //
+            if (!new StringTokenizer(line).nextToken().equals("+OK")) {
+                // Something didn't verify during the banner checking
+                // or QUIT command process.
+                return PollStatus.unavailable();
+            }
 
+            if (m_responseTime < 0) {
+                m_responseTime = exchange.elapsedTimeInMillis();
                 //
-                // Tokenize the Banner Line, and check the first
-                // line for a valid return.
-                //
-                // Server response should start with: "+OK"
+                // POP3 server should recoginize the QUIT command
                 //
-                String banner = rdr.readLine();
-                double responseTime = tracker.elapsedTimeInMillis();
-
-                if (banner == null)
-                    continue;
-                StringTokenizer t = new StringTokenizer(banner);
-
-                if (t.nextToken().equals("+OK")) {
-                    //
-                    // POP3 server should recoginize the QUIT command
-                    //
-                    String cmd = "QUIT\r\n";
-                    socket.getOutputStream().write(cmd.getBytes());
-
-                    //
-                    // Parse the response to the QUIT command
-                    //
-                    // Server response should start with: "+OK"
-                    //
-                    t = new StringTokenizer(rdr.readLine());
-                    if (t.nextToken().equals("+OK")) {
-                        serviceStatus = PollStatus.available(responseTime);
-                    }
-                }
-
-                // If we get this far and the status has not been set
-                // to available, then something didn't verify during
-                // the banner checking or QUIT command process.
-                if (!serviceStatus.isAvailable()) {
-                    serviceStatus = PollStatus.unavailable();
-                }
-            } catch (NoRouteToHostException e) {
-            	
-            	String reason = "No route to host exception for address " + hostAddress;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-                
-            } catch (InterruptedIOException e) {
-            	
-            	String reason = "did not connect to host with " + tracker;
-                LOG.debug(reason);
-                serviceStatus = PollStatus.unavailable(reason);
-            	
-            } catch (ConnectException e) {
-            	
-            	String reason = "Connection exception for address " + hostAddress;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-            } catch (IOException e) {
-            	
-            	String reason = "IOException while polling address " + hostAddress;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-            } finally {
-                try {
-                    // Close the socket
-                    if (socket != null)
-                        socket.close();
-
-                } catch (IOException e) {
-                    LOG.debug("poll: Error closing socket.", e);
-                }
+                exchange.send("QUIT\r\n");
+                return null;
             }
-        }
 
-        //
-        // return the status of the service
-        //
-        return serviceStatus;
+            return PollStatus.available(m_responseTime);
+        }
     }
 
 }
@@ -28,26 +28,22 @@
 
 package org.opennms.netmgt.poller.monitors;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.InterruptedIOException;
-import java.net.ConnectException;
 import java.net.InetAddress;
-import java.net.InetSocketAddress;
-import java.net.NoRouteToHostException;
-import java.net.Socket;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.CompletionStage;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
-import org.apache.commons.net.io.CRLFLineReader;
 import org.opennms.core.utils.InetAddressUtils;
 import org.opennms.core.utils.ParameterMap;
 import org.opennms.core.utils.TimeoutTracker;
+import org.opennms.netmgt.poller.AsyncServiceMonitor;
 import org.opennms.netmgt.poller.MonitoredService;
 import org.opennms.netmgt.poller.PollStatus;
+import org.opennms.netmgt.poller.monitors.support.AsyncLineClient;
+import org.opennms.netmgt.poller.monitors.support.LineConversation;
+import org.opennms.netmgt.poller.monitors.support.MonitorEventLoop;
 import org.opennms.netmgt.poller.support.AbstractServiceMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,7 +59,7 @@ import org.slf4j.LoggerFactory;
  * @author <A HREF="mailto:tarus@opennms.org">Tarus Balog </A>
  * @author <A HREF="http://www.opennms.org/">OpenNMS </A>
  */
-public final class SmtpMonitor extends AbstractServiceMonitor {
+public final class SmtpMonitor extends AbstractServiceMonitor implements AsyncServiceMonitor {
 
     public static final Logger LOG = LoggerFactory.getLogger(SmtpMonitor.class);
 
@@ -106,6 +102,15 @@ public final class SmtpMonitor extends AbstractServiceMonitor {
         }
     }
 
+    private MonitorEventLoop m_eventLoop;
+
+    /**
+     * Sets the event loop the connections run on. The default loop is used if none is set.
+     */
+    public void setEventLoop(MonitorEventLoop eventLoop) {
+        m_eventLoop = eventLoop;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -125,190 +130,72 @@ public final class SmtpMonitor extends AbstractServiceMonitor {
      * </P>
      */
     @Override
-    public PollStatus poll(MonitoredService svc, Map<String, Object> parameters) {
+    public CompletionStage<PollStatus> pollAsync(MonitoredService svc, Map<String, Object> parameters) {
         TimeoutTracker tracker = new TimeoutTracker(parameters, DEFAULT_RETRY, DEFAULT_TIMEOUT);
 
         int port = ParameterMap.getKeyedInteger(parameters, "port", DEFAULT_PORT);
         InetAddress ipAddr = svc.getAddress();
 
-        final String hostAddress = InetAddressUtils.str(ipAddr);
-        LOG.debug("poll: address = {}, port = {}, {}", hostAddress, port, tracker);
-
-        PollStatus serviceStatus = PollStatus.unavailable();
-
-        for (tracker.reset(); tracker.shouldRetry() && !serviceStatus.isAvailable(); tracker.nextAttempt()) {
-            Socket socket = null;
-            try {
-                // create a connected socket
-                //
-                tracker.startAttempt();
-
-                socket = new Socket();
-                socket.connect(new InetSocketAddress(ipAddr, port), tracker.getConnectionTimeout());
-                socket.setSoTimeout(tracker.getSoTimeout());
-
-                LOG.debug("SmtpMonitor: connected to host: {} on port: {}", ipAddr, port);
-
-                // We're connected, so upgrade status to unresponsive
-                serviceStatus = PollStatus.unresponsive();
-                // Forcing to check for CRLF instead of any other line terminator as per RFC specification
-                CRLFLineReader rdr = new CRLFLineReader(new InputStreamReader(socket.getInputStream(), "ASCII"));
-
-                //
-                // Tokenize the Banner Line, and check the first
-                // line for a valid return.
-                //
-                String banner = sendMessage(socket, rdr, null);
-                LOG.debug("poll: banner = {}", banner);
-
-                StringTokenizer t = new StringTokenizer(banner);
-                int rc = Integer.parseInt(t.nextToken());
-                if (rc == 220) {
-                    //
-                    // Send the HELO command
-                    //
-                    String cmd = "HELO " + LOCALHOST_NAME + "\r\n";
-                    socket.getOutputStream().write(cmd.getBytes());
+        // Forcing to check for CRLF instead of any other line terminator as per RFC specification
+        return new AsyncLineClient(m_eventLoop, ipAddr, port, tracker, parameters)
+                .withCrlfLines()
+                .poll(SmtpConversation::new);
+    }
 
-                    //
-                    // get the returned string, tokenize, and
-                    // verify the correct output.
-                    //
-                    String response = rdr.readLine();
-                    double responseTime = tracker.elapsedTimeInMillis();
+    private enum State {
+        BANNER, HELO, QUIT
+    }
 
-                    if (response == null) {
-                        continue;
-                    }
+    private static class SmtpConversation extends LineConversation {
+        private State m_state = State.BANNER;
+        private double m_responseTime = -1;
 
-                    if (MULTILINE.matcher(response).find()) {
-                        // Ok we have a multi-line response...first three
-                        // chars of the response line are the return code.
-                        // The last line of the response will start with
-                        // return code followed by a space.
-                        String multiLineRC = new String(response.getBytes("ASCII"), 0, 3, "ASCII");
+        @Override
+        public PollStatus received(Exchange exchange, String line) {
+            if (m_state == State.HELO && m_responseTime < 0) {
+                m_responseTime = exchange.elapsedTimeInMillis();
+            }
 
-                        // Create new regExp to look for last line
-                        // of this multi line response
-                        Pattern endMultiline = null;
-                        try {
-                            endMultiline = Pattern.compile(multiLineRC);
-                        } catch (PatternSyntaxException ex) {
-                            throw new java.lang.reflect.UndeclaredThrowableException(ex);
-                        }
+            // Ok we have a multi-line response, wait for its last line which
+            // starts with the return code followed by a space.
+            if (MULTILINE.matcher(line).find()) {
+                return null;
+            }
 
-                        // read until we hit the last line of the multi-line
-                        // response
-                        do {
-                            response = rdr.readLine();
-                        } while (response != null && !endMultiline.matcher(response).find());
-                        if (response == null) {
-                            continue;
-                        }
+            int rc = Integer.parseInt(new StringTokenizer(line).nextToken());
+            switch (m_state) {
+                case BANNER:
+                    LOG.debug("poll: banner = {}", line);
+                    if (rc == 220) {
+                        //
+                        // Send the HELO command
+                        //
+                        exchange.send("HELO " + LOCALHOST_NAME + "\r\n");
+                        m_state = State.HELO;
+                        return null;
+                    } else if (rc == 554) {
+                        exchange.send("QUIT\r\n");
+                        return PollStatus.unavailable("Server rejecting transactions with 554");
                     }
-
-                    t = new StringTokenizer(response);
-                    rc = Integer.parseInt(t.nextToken());
+                    break;
+                case HELO:
                     if (rc == 250) {
-                        response = sendMessage(socket, rdr, "QUIT\r\n");
-
-                        t = new StringTokenizer(response);
-                        rc = Integer.parseInt(t.nextToken());
-
-                        if (rc == 221) {
-                            serviceStatus = PollStatus.available(responseTime);
-                        }
+                        exchange.send("QUIT\r\n");
+                        m_state = State.QUIT;
+                        return null;
                     }
-                } else if (rc == 554) {
-                    String response = sendMessage(socket, rdr, "QUIT\r\n");
-                    serviceStatus = PollStatus.unavailable("Server rejecting transactions with 554");
-                }
-
-                // If we get this far and the status has not been set to
-                // available, then something didn't verify during the banner
-                // checking or HELO/QUIT comand process.
-                if (!serviceStatus.isAvailable()) {
-                    serviceStatus = PollStatus.unavailable(serviceStatus.getReason());
-                }
-            } catch (NumberFormatException e) {
-                String reason = "NumberFormatException while polling address " + hostAddress;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-            } catch (NoRouteToHostException e) {
-                String reason = "No route to host exception for address " + hostAddress;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-                break; // Break out of for(;;)
-            } catch (InterruptedIOException e) {
-                String reason = "Did not receive expected response within timeout " + tracker;
-                LOG.debug(reason);
-                serviceStatus = PollStatus.unavailable(reason);
-            } catch (ConnectException e) {
-                String reason = "Unable to connect to address " + hostAddress;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-            } catch (IOException e) {
-                String reason = "IOException while polling address " + hostAddress;
-                LOG.debug(reason, e);
-                serviceStatus = PollStatus.unavailable(reason);
-            } finally {
-                try {
-                    // Close the socket
-                    if (socket != null) {
-                        socket.close();
+                    break;
+                case QUIT:
+                    if (rc == 221) {
+                        return PollStatus.available(m_responseTime);
                     }
-                } catch (IOException e) {
-                    e.fillInStackTrace();
-                    LOG.debug("poll: Error closing socket.", e);
-                }
+                    break;
             }
-        }
-
-        //
-        // return the status of the service
-        //
-        return serviceStatus;
-    }
 
-    private String sendMessage(Socket socket, BufferedReader rdr, String command) throws IOException {
-        if (command != null && !"".equals(command)) {
-            socket.getOutputStream().write(command.getBytes("ASCII"));
-        }
-
-        //
-        // get the returned string, tokenize, and
-        // verify the correct output.
-        //
-        String response = rdr.readLine();
-        if (response == null) {
-            return "";
-        }
-        if (MULTILINE.matcher(response).find()) {
-            // Ok we have a multi-line response...first three
-            // chars of the response line are the return code.
-            // The last line of the response will start with
-            // return code followed by a space.
-            String multiLineRC = new String(response.getBytes("ASCII"), 0, 3, "ASCII") + " ";
-
-            // Create new regExp to look for last line
-            // of this multi line response
-            Pattern endMultiline = null;
-            try {
-                endMultiline = Pattern.compile(multiLineRC);
-            } catch (PatternSyntaxException ex) {
-                throw new java.lang.reflect.UndeclaredThrowableException(ex);
-            }
-
-            // read until we hit the last line of the multi-line
-            // response
-            do {
-                response = rdr.readLine();
-            } while (response != null && !endMultiline.matcher(response).find());
-            if (response == null) {
-                return "";
-            }
+            // If we get this far, then something didn't verify during the
+            // banner checking or HELO/QUIT comand process.
+            return PollStatus.unavailable();
         }
-        return response;
     }
 
 }
@@ -0,0 +1,348 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.poller.monitors.support;
+
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import org.opennms.core.utils.InetAddressUtils;
+import org.opennms.core.utils.ParameterMap;
+import org.opennms.core.utils.TimeoutTracker;
+import org.opennms.netmgt.poller.PollStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.util.CharsetUtil;
+
+/**
+ * Polls line based TCP services without blocking a thread.
+ * <p>
+ * All connections are handled by the {@link MonitorEventLoop} of the monitor, a small set of I/O threads shared by
+ * all monitors. Every attempt runs a new {@link LineConversation} on a new connection. Attempts are retried as
+ * configured by the {@link TimeoutTracker} until the service is available; the
+ * {@code timeout} applies to connecting and to waiting for every line, as with a socket timeout.
+ */
+public class AsyncLineClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncLineClient.class);
+
+    private static final int DEFAULT_MAX_LINE_LENGTH = 8192;
+
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    private final MonitorEventLoop m_eventLoop;
+    private final InetAddress m_address;
+    private final int m_port;
+    private final TimeoutTracker m_tracker;
+    private final boolean m_strictTimeouts;
+    private final long m_timeoutInNanos;
+
+    private SSLContext m_sslContext;
+    private boolean m_crlfOnly = false;
+    private int m_maxLineLength = DEFAULT_MAX_LINE_LENGTH;
+
+    private boolean m_aborted = false;
+    private long m_nextAttemptNanos = -1L;
+
+    public AsyncLineClient(final MonitorEventLoop eventLoop, final InetAddress address, final int port, final TimeoutTracker tracker, final Map<String, Object> parameters) {
+        m_eventLoop = MonitorEventLoop.orDefault(eventLoop);
+        m_address = address;
+        m_port = port;
+        m_tracker = tracker;
+        m_strictTimeouts = ParameterMap.getKeyedBoolean(parameters, "strict-timeout", false);
+        m_timeoutInNanos = TimeUnit.MILLISECONDS.toNanos(tracker.getTimeoutInMillis());
+    }
+
+    /**
+     * Wraps the connections in TLS using the given context.
+     */
+    public AsyncLineClient withSsl(final SSLContext sslContext) {
+        m_sslContext = sslContext;
+        return this;
+    }
+
+    /**
+     * Only accepts CRLF as line terminator, as required by some protocols. Lines are terminated by LF otherwise.
+     */
+    public AsyncLineClient withCrlfLines() {
+        m_crlfOnly = true;
+        return this;
+    }
+
+    /**
+     * Sets the maximum length of a line. Longer lines fail the attempt. Defaults to 8192.
+     */
+    public AsyncLineClient withMaxLineLength(final int maxLineLength) {
+        m_maxLineLength = maxLineLength;
+        return this;
+    }
+
+    /**
+     * Returns true if the last attempt failed in a way that makes further attempts, also on other ports, useless.
+     */
+    public boolean isAborted() {
+        return m_aborted;
+    }
+
+    /**
+     * Runs conversations until the service is available or all attempts are used up.
+     *
+     * @param conversations creates the conversation of each attempt
+     * @return the status of the last attempt; never completes exceptionally
+     */
+    public CompletableFuture<PollStatus> poll(final Supplier<? extends LineConversation> conversations) {
+        final CompletableFuture<PollStatus> result = new CompletableFuture<>();
+        m_tracker.reset();
+        nextAttempt(conversations, result);
+        return result;
+    }
+
+    private void nextAttempt(final Supplier<? extends LineConversation> conversations, final CompletableFuture<PollStatus> result) {
+        // Strict timeouts delay the next attempt until the timeout of the previous one passed
+        final long delayNanos = m_strictTimeouts ? m_nextAttemptNanos - System.nanoTime() : 0L;
+        if (delayNanos > 0) {
+            try {
+                m_eventLoop.getGroup().schedule(() -> nextAttempt(conversations, result), delayNanos, TimeUnit.NANOSECONDS)
+                        .addListener(future -> {
+                            if (future.isCancelled()) {
+                                result.complete(PollStatus.unavailable("The poller monitor event loop was stopped"));
+                            }
+                        });
+            } catch (final IllegalStateException | RejectedExecutionException e) {
+                result.complete(PollStatus.unavailable("The poller monitor event loop was stopped"));
+            }
+            return;
+        }
+
+        final LineConversation conversation = conversations.get();
+        attempt(conversation).whenComplete((status, ex) -> {
+            final PollStatus attemptStatus = ex == null ? status : failed(conversation, ex);
+            m_tracker.nextAttempt();
+            if (attemptStatus.isAvailable() || m_aborted || !m_tracker.shouldRetry()) {
+                result.complete(attemptStatus);
+            } else {
+                nextAttempt(conversations, result);
+            }
+        });
+    }
+
+    private CompletableFuture<PollStatus> attempt(final LineConversation conversation) {
+        final CompletableFuture<PollStatus> status = new CompletableFuture<>();
+
+        m_tracker.startAttempt();
+        m_nextAttemptNanos = System.nanoTime() + m_timeoutInNanos;
+        LOG.debug("poll: address = {}, port = {}, {}", InetAddressUtils.str(m_address), m_port, m_tracker);
+
+        try {
+            new Bootstrap()
+                    .group(m_eventLoop.getGroup())
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, m_tracker.getConnectionTimeout())
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel ch) {
+                            if (m_sslContext != null) {
+                                final SSLEngine engine = m_sslContext.createSSLEngine(InetAddressUtils.str(m_address), m_port);
+                                engine.setUseClientMode(true);
+                                ch.pipeline().addLast(new SslHandler(engine));
+                            }
+                            ch.pipeline().addLast(
+                                    new ReadTimeoutHandler(m_tracker.getSoTimeout(), TimeUnit.MILLISECONDS),
+                                    m_crlfOnly
+                                            ? new LastLineDelimiterBasedFrameDecoder(m_maxLineLength, Unpooled.wrappedBuffer(CRLF))
+                                            : new LastLineBasedFrameDecoder(m_maxLineLength),
+                                    new StringDecoder(CharsetUtil.UTF_8),
+                                    new StringEncoder(CharsetUtil.UTF_8),
+                                    new ConversationHandler(conversation, status));
+                        }
+                    })
+                    .connect(new InetSocketAddress(m_address, m_port))
+                    .addListener((ChannelFutureListener) future -> {
+                        if (!future.isSuccess()) {
+                            status.complete(failed(conversation, future.cause()));
+                        }
+                    });
+        } catch (final RuntimeException e) {
+            status.complete(failed(conversation, e));
+        }
+
+        return status;
+    }
+
+    private PollStatus failed(final LineConversation conversation, final Throwable cause) {
+        if (cause instanceof NoRouteToHostException) {
+            // No use in trying again
+            m_aborted = true;
+        }
+        final PollStatus status = conversation.failed(cause);
+        return status != null ? status : unavailable(cause);
+    }
+
+    private PollStatus unavailable(final Throwable cause) {
+        final String hostAddress = InetAddressUtils.str(m_address);
+        final String reason;
+        if (cause instanceof ConnectTimeoutException) {
+            reason = "did not connect to host with " + m_tracker;
+        } else if (cause instanceof ReadTimeoutException) {
+            reason = "Did not receive expected response within timeout " + m_tracker;
+        } else if (cause instanceof NoRouteToHostException) {
+            reason = "No route to host exception for address " + hostAddress;
+        } else if (cause instanceof ConnectException) {
+            reason = "Connection exception for address " + hostAddress;
+        } else {
+            reason = cause.getClass().getSimpleName() + " while polling address " + hostAddress;
+        }
+        LOG.debug(reason, cause);
+        return PollStatus.unavailable(reason);
+    }
+
+    private class ConversationHandler extends SimpleChannelInboundHandler<String> {
+        private final LineConversation m_conversation;
+        private final CompletableFuture<PollStatus> m_status;
+
+        private ConversationHandler(final LineConversation conversation, final CompletableFuture<PollStatus> status) {
+            m_conversation = conversation;
+            m_status = status;
+        }
+
+        @Override
+        public void channelActive(final ChannelHandlerContext ctx) {
+            LOG.debug("connected to host: {} on port: {}", InetAddressUtils.str(m_address), m_port);
+            finish(ctx, m_conversation.connected(exchange(ctx)));
+        }
+
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final String line) {
+            if (!m_status.isDone()) {
+                finish(ctx, m_conversation.received(exchange(ctx), line));
+            }
+        }
+
+        @Override
+        public void channelInactive(final ChannelHandlerContext ctx) {
+            if (!m_status.isDone()) {
+                finish(ctx, m_conversation.closed(exchange(ctx)));
+            }
+        }
+
+        @Override
+        public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) {
+            if (!m_status.isDone()) {
+                finish(ctx, failed(m_conversation, cause));
+            }
+        }
+
+        private void finish(final ChannelHandlerContext ctx, final PollStatus status) {
+            if (status != null) {
+                m_status.complete(status);
+                // Close once the pending writes are flushed
+                ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+
+        private LineConversation.Exchange exchange(final ChannelHandlerContext ctx) {
+            return new LineConversation.Exchange() {
+                @Override
+                public void send(final String text) {
+                    ctx.writeAndFlush(text);
+                }
+
+                @Override
+                public double elapsedTimeInMillis() {
+                    return m_tracker.elapsedTimeInMillis();
+                }
+            };
+        }
+    }
+
+    /**
+     * Emits the bytes after the last line terminator as a line when the connection is closed, as a
+     * {@link java.io.BufferedReader} does. Without it, an unterminated last line, e.g. at the end of an HTTP body,
+     * is dropped.
+     */
+    private static void decodeLastLine(final ByteBuf in, final List<Object> out) {
+        if (in.isReadable()) {
+            out.add(in.readRetainedSlice(in.readableBytes()));
+        }
+    }
+
+    private static class LastLineBasedFrameDecoder extends LineBasedFrameDecoder {
+        private LastLineBasedFrameDecoder(final int maxLength) {
+            super(maxLength);
+        }
+
+        @Override
+        protected void decodeLast(final ChannelHandlerContext ctx, final ByteBuf in, final List<Object> out) throws Exception {
+            super.decodeLast(ctx, in, out);
+            decodeLastLine(in, out);
+        }
+    }
+
+    private static class LastLineDelimiterBasedFrameDecoder extends DelimiterBasedFrameDecoder {
+        private LastLineDelimiterBasedFrameDecoder(final int maxFrameLength, final ByteBuf delimiter) {
+            super(maxFrameLength, delimiter);
+        }
+
+        @Override
+        protected void decodeLast(final ChannelHandlerContext ctx, final ByteBuf in, final List<Object> out) throws Exception {
+            super.decodeLast(ctx, in, out);
+            decodeLastLine(in, out);
+        }
+    }
+}
@@ -197,47 +197,84 @@ public class FtpResponse {
      * @throws java.io.IOException if any.
      */
     public static FtpResponse readResponse(BufferedReader in) throws IOException {
-        int code;
-        List<String> response = new ArrayList<>();
-
-        String firstResponseLine = in.readLine();
-        if (firstResponseLine == null) {
-            throw new IOException("End of stream was reached before a response could be read");
-            
-        }
-        
-        // XXX this could use better error checking!
-        String codeString = firstResponseLine.substring(0, 3);
-        response.add(firstResponseLine.substring(4));
-
-        try {
-            code = Integer.parseInt(codeString);
-        } catch (NumberFormatException e) {
-            IOException newE = new IOException("First response line returned a non-numeric result code \"" + codeString + "\": " + firstResponseLine);
-            newE.initCause(e);
-            throw newE;
+        final Parser parser = new Parser();
+        FtpResponse response = null;
+        while (response == null) {
+            response = parser.parseLine(in.readLine());
         }
+        return response;
+    }
 
-        // Is the fourth character a hyphen (if so, it's a continuation)?
-        if ("-".equals(firstResponseLine.substring(3, 4))) {
-            // The multi-line response ends with a line that begins with this:
-            String endMultiLine = code + " ";
+    /**
+     * Assembles a response from its lines as they are received.
+     */
+    public static class Parser {
+        private int m_code = -1;
+        private String m_endMultiLine;
+        private final List<String> m_response = new ArrayList<>();
 
-            while (true) {
-                String subsequentResponse = in.readLine();
-                if (subsequentResponse == null) {
-                    throw new IOException("End of stream was reached before the complete multi-line response could be read.  What was read: " + StringUtils.collectionToDelimitedString(response, "\n"));
+        /**
+         * Parses the next line of the response.
+         *
+         * @param line the line or {@code null} if the end of stream was reached
+         * @return the response once its last line was parsed, or {@code null} if more lines are expected
+         * @throws IOException if the line is not a valid response line or the end of stream was reached
+         */
+        public FtpResponse parseLine(String line) throws IOException {
+            if (m_code < 0) {
+                if (line == null) {
+                    throw new IOException("End of stream was reached before a response could be read");
                 }
-                
-                if (subsequentResponse.startsWith(endMultiLine)) {
-                    response.add(subsequentResponse.substring(4));
-                    break;
+
+                if (line.length() < 3 || (line.length() > 3 && line.charAt(3) != ' ' && line.charAt(3) != '-')) {
+                    throw new IOException("First response line is not a valid response line: " + line);
+                }
+
+                String codeString = line.substring(0, 3);
+                if (!isCode(codeString)) {
+                    throw new IOException("First response line returned a non-numeric result code \"" + codeString + "\": " + line);
                 }
-                
-                response.add(subsequentResponse);
+                m_code = Integer.parseInt(codeString);
+                m_response.add(text(line));
+
+                // Is the fourth character a hyphen (if so, it's a continuation)?
+                if (line.length() == 3 || line.charAt(3) != '-') {
+                    return build();
+                }
+
+                // The multi-line response ends with a line that begins with this:
+                m_endMultiLine = codeString;
+                return null;
             }
+
+            if (line == null) {
+                throw new IOException("End of stream was reached before the complete multi-line response could be read.  What was read: " + StringUtils.collectionToDelimitedString(m_response, "\n"));
+            }
+
+            if (line.startsWith(m_endMultiLine) && (line.length() == 3 || line.charAt(3) == ' ')) {
+                m_response.add(text(line));
+                return build();
+            }
+
+            m_response.add(line);
+            return null;
+        }
+
+        private static boolean isCode(final String codeString) {
+            for (int i = 0; i < codeString.length(); i++) {
+                if (codeString.charAt(i) < '0' || codeString.charAt(i) > '9') {
+                    return false;
+                }
+            }
+            return true;
         }
 
-        return new FtpResponse(code, response.toArray(new String[response.size()]));
+        private static String text(final String line) {
+            return line.length() > 4 ? line.substring(4) : "";
+        }
+
+        private FtpResponse build() {
+            return new FtpResponse(m_code, m_response.toArray(new String[m_response.size()]));
+        }
     }
 }
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.poller.monitors.support;
+
+import org.opennms.netmgt.poller.PollStatus;
+
+/**
+ * The client side of a line based protocol exchange run by the {@link AsyncLineClient}.
+ * <p>
+ * A new conversation is created for every attempt. All methods are called on the I/O thread of the connection, so
+ * implementations must not block. A conversation finishes the attempt by returning a poll status; returning
+ * {@code null} waits for the next line.
+ */
+public abstract class LineConversation {
+
+    /**
+     * The connection of the conversation.
+     */
+    public interface Exchange {
+        /**
+         * Sends the given text to the server. Line terminators must be included.
+         */
+        void send(String text);
+
+        /**
+         * Returns the time elapsed since the attempt was started.
+         */
+        double elapsedTimeInMillis();
+    }
+
+    /**
+     * Called once the connection is established.
+     *
+     * @return the status of the poll or {@code null} to wait for the first line
+     */
+    public PollStatus connected(Exchange exchange) {
+        return null;
+    }
+
+    /**
+     * Called for every line received from the server.
+     *
+     * @param line the line without the line terminator
+     * @return the status of the poll or {@code null} to wait for the next line
+     */
+    public abstract PollStatus received(Exchange exchange, String line);
+
+    /**
+     * Called if the server closed the connection before the conversation finished.
+     *
+     * @return the status of the poll
+     */
+    public PollStatus closed(Exchange exchange) {
+        return PollStatus.unresponsive();
+    }
+
+    /**
+     * Called if the attempt failed, e.g. because the connection could not be established or a line did not arrive
+     * within the timeout. This may be called before the connection was established.
+     *
+     * @return the status of the poll or {@code null} to let the client derive it from the cause
+     */
+    public PollStatus failed(Throwable cause) {
+        return null;
+    }
+}
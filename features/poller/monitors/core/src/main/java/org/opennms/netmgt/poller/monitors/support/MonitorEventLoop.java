@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.poller.monitors.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.opennms.core.sysprops.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+
+/**
+ * The NIO event loop on which the asynchronous monitors run their connections.
+ * <p>
+ * The blueprint container creates the loop, hands it to the monitors it exposes and shuts it down with the bundle.
+ * Monitors which are instantiated otherwise, e.g. through the {@link java.util.ServiceLoader}, share a default loop
+ * which is started on first use and shut down when the JVM exits.
+ * <p>
+ * The number of I/O threads can be set with the {@value #IO_THREADS_PROPERTY} system property.
+ */
+public class MonitorEventLoop {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MonitorEventLoop.class);
+
+    public static final String IO_THREADS_PROPERTY = "org.opennms.netmgt.poller.monitors.ioThreads";
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private static class Default {
+        private static final MonitorEventLoop INSTANCE = new MonitorEventLoop();
+
+        static {
+            INSTANCE.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(INSTANCE::stop, "poller-monitor-io-shutdown"));
+        }
+    }
+
+    private int m_ioThreads = SystemProperties.getInteger(IO_THREADS_PROPERTY, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private volatile EventLoopGroup m_group;
+
+    /**
+     * Returns the given loop, or the default loop if it is {@code null}.
+     */
+    public static MonitorEventLoop orDefault(final MonitorEventLoop eventLoop) {
+        return eventLoop != null ? eventLoop : Default.INSTANCE;
+    }
+
+    public void setIoThreads(final int ioThreads) {
+        m_ioThreads = ioThreads;
+    }
+
+    public synchronized void start() {
+        if (m_group != null) {
+            return;
+        }
+        m_group = new NioEventLoopGroup(Math.max(1, m_ioThreads), new ThreadFactoryBuilder()
+                .setNameFormat("poller-monitor-io-%d")
+                .setDaemon(true)
+                .build());
+        LOG.debug("Started the poller monitor event loop with {} I/O threads.", m_ioThreads);
+    }
+
+    /**
+     * Shuts the loop down and waits for its threads to terminate. Polls which are still in progress are closed
+     * and complete as unavailable.
+     */
+    public synchronized void stop() {
+        if (m_group == null) {
+            return;
+        }
+        if (!m_group.shutdownGracefully(0, SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .awaitUninterruptibly(2 * SHUTDOWN_TIMEOUT_MS)) {
+            LOG.warn("The poller monitor event loop did not terminate within {}ms.", 2 * SHUTDOWN_TIMEOUT_MS);
+        }
+        m_group = null;
+    }
+
+    /**
+     * Returns the event loop group.
+     *
+     * @throws IllegalStateException if the loop is not running
+     */
+    public EventLoopGroup getGroup() {
+        final EventLoopGroup group = m_group;
+        if (group == null) {
+            throw new IllegalStateException("The poller monitor event loop is not running");
+        }
+        return group;
+    }
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.poller.monitors;
+
+import static org.junit.Assert.assertEquals;
+import static org.opennms.core.utils.InetAddressUtils.addr;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.core.test.MockLogAppender;
+import org.opennms.netmgt.poller.MonitoredService;
+import org.opennms.netmgt.poller.PollStatus;
+import org.opennms.netmgt.poller.monitors.support.MonitorEventLoop;
+import org.opennms.netmgt.poller.support.SimpleMonitoredService;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+
+/**
+ * Polls an HTTP server which closes the connection after a body without a final line break.
+ */
+public class AsyncHttpMonitorIT {
+
+    private static final String BODY = "<html><body>Everything is fine</body></html>";
+
+    private EventLoopGroup m_serverGroup;
+
+    private MonitorEventLoop m_eventLoop;
+
+    private Channel m_serverChannel;
+
+    @Before
+    public void setUp() throws Exception {
+        MockLogAppender.setupLogging();
+
+        m_eventLoop = new MonitorEventLoop();
+        m_eventLoop.start();
+
+        m_serverGroup = new NioEventLoopGroup(1);
+        m_serverChannel = new ServerBootstrap()
+                .group(m_serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline().addLast(
+                                new LineBasedFrameDecoder(1024),
+                                new StringDecoder(),
+                                new StringEncoder(),
+                                new UnterminatedBodyHandler());
+                    }
+                })
+                .bind(new InetSocketAddress(addr("127.0.0.1"), 0))
+                .sync()
+                .channel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (m_eventLoop != null) {
+            m_eventLoop.stop();
+        }
+        if (m_serverChannel != null) {
+            m_serverChannel.close().sync();
+            m_serverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test
+    public void testMatchesUnterminatedLastLine() throws Exception {
+        final Map<String, Object> parameters = createParameters();
+        parameters.put("response-text", "~.*Everything is fine.*");
+
+        assertEquals(PollStatus.SERVICE_AVAILABLE, poll(parameters).getStatusCode());
+    }
+
+    @Test
+    public void testFailsLinesLongerThanMaxLineLength() throws Exception {
+        final Map<String, Object> parameters = createParameters();
+        parameters.put("response-text", "~.*Everything is fine.*");
+        parameters.put("max-line-length", BODY.length() - 1);
+
+        assertEquals(PollStatus.SERVICE_UNAVAILABLE, poll(parameters).getStatusCode());
+    }
+
+    private Map<String, Object> createParameters() {
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put("port", ((InetSocketAddress) m_serverChannel.localAddress()).getPort());
+        parameters.put("retry", 0);
+        parameters.put("timeout", 3000);
+        return parameters;
+    }
+
+    private PollStatus poll(final Map<String, Object> parameters) throws Exception {
+        final HttpMonitor monitor = new HttpMonitor();
+        monitor.setEventLoop(m_eventLoop);
+        final MonitoredService svc = new SimpleMonitoredService(addr("127.0.0.1"), 1, "Node One", "HTTP");
+        return monitor.pollAsync(svc, parameters).toCompletableFuture().get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Answers the request once its headers are read and closes the connection right after the body.
+     */
+    private static class UnterminatedBodyHandler extends SimpleChannelInboundHandler<String> {
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final String line) {
+            if (line.isEmpty()) {
+                ctx.writeAndFlush("HTTP/1.1 200 OK\r\n"
+                        + "Content-Type: text/html\r\n"
+                        + "Connection: close\r\n"
+                        + "\r\n"
+                        + BODY).addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.poller.monitors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.opennms.core.utils.InetAddressUtils.addr;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.core.test.MockLogAppender;
+import org.opennms.netmgt.poller.MonitoredService;
+import org.opennms.netmgt.poller.PollStatus;
+import org.opennms.netmgt.poller.monitors.support.MonitorEventLoop;
+import org.opennms.netmgt.poller.support.SimpleMonitoredService;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+
+/**
+ * Polls a slow POP3 server with many concurrent polls to verify that waiting for responses does not hold a thread
+ * per poll.
+ */
+public class AsyncServiceMonitorIT {
+
+    private static final int POLLS = 5000;
+
+    private static final int IO_THREADS = 2;
+
+    private static final long BANNER_DELAY_MS = 500;
+
+    private EventLoopGroup m_serverGroup;
+
+    private MonitorEventLoop m_eventLoop;
+
+    private Channel m_serverChannel;
+
+    @Before
+    public void setUp() throws Exception {
+        MockLogAppender.setupLogging();
+
+        // Both ends of every connection live in this JVM
+        final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        assumeTrue("the file descriptor limit is too low for " + POLLS + " concurrent polls",
+                !(os instanceof UnixOperatingSystemMXBean) || ((UnixOperatingSystemMXBean) os).getMaxFileDescriptorCount() >= 2 * POLLS + 1024);
+
+        m_eventLoop = new MonitorEventLoop();
+        m_eventLoop.setIoThreads(IO_THREADS);
+        m_eventLoop.start();
+
+        m_serverGroup = new NioEventLoopGroup(2);
+        m_serverChannel = new ServerBootstrap()
+                .group(m_serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, POLLS)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline().addLast(
+                                new LineBasedFrameDecoder(1024),
+                                new StringDecoder(),
+                                new StringEncoder(),
+                                new SlowPop3Handler());
+                    }
+                })
+                .bind(new InetSocketAddress(addr("127.0.0.1"), 0))
+                .sync()
+                .channel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (m_eventLoop != null) {
+            m_eventLoop.stop();
+        }
+        if (m_serverChannel != null) {
+            m_serverChannel.close().sync();
+            m_serverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test
+    public void testConcurrentPolls() throws Exception {
+        final Pop3Monitor monitor = new Pop3Monitor();
+        monitor.setEventLoop(m_eventLoop);
+        final MonitoredService svc = new SimpleMonitoredService(addr("127.0.0.1"), 1, "Node One", "POP3");
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put("port", ((InetSocketAddress) m_serverChannel.localAddress()).getPort());
+        parameters.put("timeout", 30000);
+
+        final long start = System.currentTimeMillis();
+        final List<CompletableFuture<PollStatus>> polls = new ArrayList<>(POLLS);
+        for (int i = 0; i < POLLS; i++) {
+            polls.add(monitor.pollAsync(svc, parameters).toCompletableFuture());
+        }
+        CompletableFuture.allOf(polls.toArray(new CompletableFuture[0])).get(120, TimeUnit.SECONDS);
+        final long elapsed = System.currentTimeMillis() - start;
+
+        for (final CompletableFuture<PollStatus> poll : polls) {
+            assertEquals(PollStatus.SERVICE_AVAILABLE, poll.get().getStatusCode());
+        }
+
+        // A thread per poll would take POLLS * BANNER_DELAY_MS / IO_THREADS
+        assertTrue("polls took " + elapsed + "ms", elapsed < 20 * BANNER_DELAY_MS);
+
+        final long ioThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("poller-monitor-io-"))
+                .count();
+        assertTrue("found " + ioThreads + " I/O threads", ioThreads > 0 && ioThreads <= IO_THREADS);
+
+        // Stopping the loop terminates its threads
+        final EventLoopGroup group = m_eventLoop.getGroup();
+        m_eventLoop.stop();
+        assertTrue(group.isTerminated());
+    }
+
+    /**
+     * Sends the banner after a delay and answers QUIT.
+     */
+    private static class SlowPop3Handler extends SimpleChannelInboundHandler<String> {
+        @Override
+        public void channelActive(final ChannelHandlerContext ctx) {
+            ctx.executor().schedule(() -> ctx.writeAndFlush("+OK POP3 server ready\r\n"), BANNER_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final String line) {
+            if ("QUIT".equals(line.trim())) {
+                ctx.writeAndFlush("+OK bye\r\n").addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+    }
+}
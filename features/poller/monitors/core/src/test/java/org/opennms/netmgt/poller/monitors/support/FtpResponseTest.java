@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.poller.monitors.support;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class FtpResponseTest {
+
+    @Test
+    public void testSingleLineResponse() throws IOException {
+        final FtpResponse response = new FtpResponse.Parser().parseLine("220 Service ready");
+        assertEquals(220, response.getCode());
+        assertArrayEquals(new String[] { "Service ready" }, response.getResponse());
+    }
+
+    @Test
+    public void testResponseWithoutText() throws IOException {
+        final FtpResponse response = new FtpResponse.Parser().parseLine("220");
+        assertEquals(220, response.getCode());
+        assertArrayEquals(new String[] { "" }, response.getResponse());
+    }
+
+    @Test
+    public void testMultiLineResponse() throws IOException {
+        final FtpResponse.Parser parser = new FtpResponse.Parser();
+        assertNull(parser.parseLine("220-Welcome"));
+        assertNull(parser.parseLine("220-this is not the end"));
+        assertNull(parser.parseLine("  220 indented"));
+        final FtpResponse response = parser.parseLine("220 ready");
+        assertEquals(220, response.getCode());
+        assertArrayEquals(new String[] { "Welcome", "220-this is not the end", "  220 indented", "ready" }, response.getResponse());
+    }
+
+    @Test
+    public void testMultiLineResponseEndingWithBareCode() throws IOException {
+        final FtpResponse.Parser parser = new FtpResponse.Parser();
+        assertNull(parser.parseLine("230-Logged in"));
+        final FtpResponse response = parser.parseLine("230");
+        assertEquals(230, response.getCode());
+        assertArrayEquals(new String[] { "Logged in", "" }, response.getResponse());
+    }
+
+    @Test
+    public void testInvalidLines() {
+        for (final String line : new String[] { "", "22", "2x0 Service ready", "220Service ready", "-220 ready" }) {
+            try {
+                new FtpResponse.Parser().parseLine(line);
+                fail("expected an IOException for \"" + line + "\"");
+            } catch (final IOException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testEndOfStreamInMultiLineResponse() throws IOException {
+        final FtpResponse.Parser parser = new FtpResponse.Parser();
+        assertNull(parser.parseLine("220-Welcome"));
+        parser.parseLine(null);
+    }
+}
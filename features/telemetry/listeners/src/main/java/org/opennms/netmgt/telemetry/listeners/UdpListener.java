@@ -30,9 +30,11 @@ package org.opennms.netmgt.telemetry.listeners;
 
 import java.net.InetSocketAddress;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.OptionalLong;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -43,15 +45,19 @@ import org.opennms.netmgt.telemetry.api.receiver.Listener;
 import org.opennms.netmgt.telemetry.api.receiver.Parser;
 import org.opennms.netmgt.telemetry.listeners.utils.BufferUtils;
 import org.opennms.netmgt.telemetry.listeners.utils.NettyEventListener;
+import org.opennms.netmgt.telemetry.listeners.utils.UdpSocketStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.swrve.ratelimitedlogger.RateLimitedLog;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -60,10 +66,15 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.util.NettyRuntime;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.SocketUtils;
 
@@ -78,21 +89,24 @@ public class UdpListener implements GracefulShutdownListener {
     private final String name;
     private final List<UdpParser> parsers;
 
+    private final MetricRegistry metrics;
     private final Meter packetsReceived;
+    private final List<String> socketMetricNames = new ArrayList<>();
 
     private EventLoopGroup bossGroup;
-    private ChannelFuture socketFuture;
+    private final List<ChannelFuture> socketFutures = new ArrayList<>();
 
     private String host = null;
     private int port = 50000;
     private int maxPacketSize = 8096;
+    private int sockets = 1;
 
     private Future<String> stopFuture;
 
     public UdpListener(final String name, final List<UdpParser> parsers, final MetricRegistry metrics) {
         this.name = Objects.requireNonNull(name);
         this.parsers = Objects.requireNonNull(parsers);
-        Objects.requireNonNull(metrics);
+        this.metrics = Objects.requireNonNull(metrics);
 
         if (this.parsers.isEmpty()) {
             throw new IllegalArgumentException("At least 1 parsers must be defined");
@@ -107,10 +121,26 @@ public class UdpListener implements GracefulShutdownListener {
     }
 
     public void start() throws InterruptedException {
+        // Multiple sockets bound to the same port require SO_REUSEPORT, which is only exposed by the epoll transport
+        final boolean epoll = this.sockets > 1 && Epoll.isAvailable();
+        if (this.sockets > 1 && !epoll) {
+            LOG.warn("Listener {} is configured to use {} sockets, but the native epoll transport is not available. Using a single socket instead.",
+                    this.name, this.sockets, Epoll.unavailabilityCause());
+        }
+        final int numSockets = epoll ? this.sockets : 1;
+
         // Netty defaults to 2 * num cores when the number of threads is set to 0
-        this.bossGroup = new NioEventLoopGroup(0, new ThreadFactoryBuilder()
-                .setNameFormat("telemetryd-nio-" + name + "-%d")
-                .build() );
+        // Ensure that each socket is served by a thread of its own
+        final int threads = numSockets > 1 ? Math.max(numSockets, 2 * NettyRuntime.availableProcessors()) : 0;
+        if (epoll) {
+            this.bossGroup = new EpollEventLoopGroup(threads, new ThreadFactoryBuilder()
+                    .setNameFormat("telemetryd-epoll-" + name + "-%d")
+                    .build());
+        } else {
+            this.bossGroup = new NioEventLoopGroup(threads, new ThreadFactoryBuilder()
+                    .setNameFormat("telemetryd-nio-" + name + "-%d")
+                    .build());
+        }
 
         this.parsers.forEach(parser -> parser.start(this.bossGroup));
 
@@ -118,15 +148,52 @@ public class UdpListener implements GracefulShutdownListener {
                 ? SocketUtils.socketAddress(this.host, this.port)
                 : new InetSocketAddress(this.port);
 
-        this.socketFuture = new Bootstrap()
+        // Datagrams are read into pooled buffers which are handed to the parsers without copying
+        final Bootstrap bootstrap = new Bootstrap()
                 .group(this.bossGroup)
-                .channel(NioDatagramChannel.class)
+                .channel(epoll ? EpollDatagramChannel.class : NioDatagramChannel.class)
                 .option(ChannelOption.SO_REUSEADDR, true)
                 .option(ChannelOption.SO_RCVBUF, Integer.MAX_VALUE)
-                .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(this.maxPacketSize))
-                .handler(new DefaultChannelInitializer())
-                .bind(address)
-                .sync();
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(this.maxPacketSize));
+        if (epoll) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+
+        // Each bind registers the channel with the next event loop of the group, so every socket gets its own thread
+        // and the kernel distributes the incoming datagrams between the sockets
+        for (int i = 0; i < numSockets; i++) {
+            final ChannelFuture socketFuture = bootstrap.clone()
+                    .handler(new DefaultChannelInitializer(i))
+                    .bind(address)
+                    .sync();
+            this.socketFutures.add(socketFuture);
+            registerDropsGauge(i, socketFuture.channel(), numSockets);
+        }
+    }
+
+    private void registerDropsGauge(final int socket, final Channel channel, final int numSockets) {
+        if (!UdpSocketStats.isAvailable()) {
+            return;
+        }
+
+        final Gauge<Long> drops;
+        final OptionalLong inode = channel instanceof EpollDatagramChannel
+                ? UdpSocketStats.getInode(((EpollDatagramChannel) channel).fd().intValue())
+                : OptionalLong.empty();
+        if (inode.isPresent()) {
+            drops = () -> UdpSocketStats.getDropsByInode(inode.getAsLong());
+        } else if (numSockets == 1) {
+            final int localPort = ((InetSocketAddress) channel.localAddress()).getPort();
+            drops = () -> UdpSocketStats.getDropsByPort(localPort);
+        } else {
+            return;
+        }
+
+        final String metricName = MetricRegistry.name("listeners", this.name, "socket" + socket, "packetsDropped");
+        this.metrics.remove(metricName);
+        this.metrics.register(metricName, drops);
+        this.socketMetricNames.add(metricName);
     }
 
     public void stop() throws InterruptedException {
@@ -138,13 +205,17 @@ public class UdpListener implements GracefulShutdownListener {
             this.bossGroup.shutdownGracefully().addListener(bossListener);
         }
 
-        if (this.socketFuture != null) {
+        for (final ChannelFuture socketFuture : this.socketFutures) {
             LOG.info("Closing channel...");
-            this.socketFuture.channel().close().sync();
-            if (this.socketFuture.channel().parent() != null) {
-                this.socketFuture.channel().parent().close().sync();
+            socketFuture.channel().close().sync();
+            if (socketFuture.channel().parent() != null) {
+                socketFuture.channel().parent().close().sync();
             }
         }
+        this.socketFutures.clear();
+
+        this.socketMetricNames.forEach(this.metrics::remove);
+        this.socketMetricNames.clear();
 
         this.parsers.forEach(Parser::stop);
 
@@ -200,6 +271,17 @@ public class UdpListener implements GracefulShutdownListener {
         this.maxPacketSize = maxPacketSize;
     }
 
+    public int getSockets() {
+        return sockets;
+    }
+
+    public void setSockets(int sockets) {
+        if (sockets < 1) {
+            throw new IllegalArgumentException("At least 1 socket is required");
+        }
+        this.sockets = sockets;
+    }
+
     @Override
     public String getName() {
         return name;
@@ -223,10 +305,18 @@ public class UdpListener implements GracefulShutdownListener {
 
     private class DefaultChannelInitializer extends ChannelInitializer<DatagramChannel> {
 
+        private final Meter socketPacketsReceived;
+
+        private DefaultChannelInitializer(final int socket) {
+            final String metricName = MetricRegistry.name("listeners", name, "socket" + socket, "packetsReceived");
+            this.socketPacketsReceived = metrics.meter(metricName);
+            socketMetricNames.add(metricName);
+        }
+
         @Override
         protected void initChannel(DatagramChannel ch) {
             // Accounting
-            ch.pipeline().addFirst(new AccountingHandler());
+            ch.pipeline().addFirst(new AccountingHandler(socketPacketsReceived));
 
             if (parsers.size() == 1) {
                 final UdpParser parser = parsers.get(0);
@@ -234,12 +324,14 @@ public class UdpListener implements GracefulShutdownListener {
                 ch.pipeline().addLast(new SingleDatagramPacketParserHandler(parser));
             } else {
                 // Otherwise dispatch
+                final List<SingleDatagramPacketParserHandler> handlers = new ArrayList<>(parsers.size());
+                parsers.forEach(parser -> handlers.add(new SingleDatagramPacketParserHandler(parser)));
                 ch.pipeline().addLast(new SimpleChannelInboundHandler<DatagramPacket>() {
                     @Override
                     protected void channelRead0(final ChannelHandlerContext ctx, final DatagramPacket msg) throws Exception {
-                        for (final UdpParser parser : parsers) {
-                            if (BufferUtils.peek(msg.content(), ((Dispatchable) parser)::handles)) {
-                                new SingleDatagramPacketParserHandler(parser).channelRead0(ctx, msg);
+                        for (final SingleDatagramPacketParserHandler handler : handlers) {
+                            if (BufferUtils.peek(msg.content(), ((Dispatchable) handler.parser)::handles)) {
+                                handler.channelRead0(ctx, msg);
                                 return;
                             }
                         }
@@ -260,9 +352,16 @@ public class UdpListener implements GracefulShutdownListener {
     }
 
     private class AccountingHandler extends ChannelInboundHandlerAdapter {
+        private final Meter socketPacketsReceived;
+
+        private AccountingHandler(final Meter socketPacketsReceived) {
+            this.socketPacketsReceived = socketPacketsReceived;
+        }
+
         @Override
         public  void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
             packetsReceived.mark();
+            socketPacketsReceived.mark();
             super.channelRead(ctx, msg);
         }
     }
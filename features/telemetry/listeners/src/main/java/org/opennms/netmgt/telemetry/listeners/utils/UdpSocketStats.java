@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.listeners.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Predicate;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Reads the kernel statistics of UDP sockets from <code>/proc/net/udp</code> and <code>/proc/net/udp6</code>.
+ *
+ * Each line of these files describes one socket and ends with the number of datagrams the kernel dropped for that
+ * socket, i.e. because its receive buffer was full. This is only available on Linux.
+ */
+public final class UdpSocketStats {
+
+    private static final Path[] PROC_FILES = new Path[] { Paths.get("/proc/net/udp"), Paths.get("/proc/net/udp6") };
+
+    private static final int LOCAL_ADDRESS_COLUMN = 1;
+    private static final int INODE_COLUMN = 9;
+    private static final int DROPS_COLUMN = 12;
+
+    private UdpSocketStats() {
+    }
+
+    public static boolean isAvailable() {
+        return Files.isReadable(PROC_FILES[0]);
+    }
+
+    /**
+     * Returns the inode of the socket behind the given file descriptor of this process.
+     */
+    public static OptionalLong getInode(final int fd) {
+        try {
+            final String link = Files.readSymbolicLink(Paths.get("/proc/self/fd", Integer.toString(fd))).toString();
+            if (link.startsWith("socket:[") && link.endsWith("]")) {
+                return OptionalLong.of(Long.parseLong(link.substring(8, link.length() - 1)));
+            }
+        } catch (IOException | UnsupportedOperationException | NumberFormatException e) {
+            // Not available
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Returns the number of datagrams dropped by the kernel for the socket with the given inode.
+     */
+    public static long getDropsByInode(final long inode) {
+        return sumDrops(byInode(inode));
+    }
+
+    /**
+     * Returns the number of datagrams dropped by the kernel for all sockets bound to the given local port.
+     */
+    public static long getDropsByPort(final int port) {
+        return sumDrops(byPort(port));
+    }
+
+    @VisibleForTesting
+    static Predicate<String[]> byInode(final long inode) {
+        final String inodeString = Long.toString(inode);
+        return columns -> inodeString.equals(columns[INODE_COLUMN]);
+    }
+
+    @VisibleForTesting
+    static Predicate<String[]> byPort(final int port) {
+        final String portSuffix = String.format(":%04X", port);
+        return columns -> columns[LOCAL_ADDRESS_COLUMN].endsWith(portSuffix);
+    }
+
+    private static long sumDrops(final Predicate<String[]> filter) {
+        long drops = 0;
+        for (final Path file : PROC_FILES) {
+            final List<String> lines;
+            try {
+                lines = Files.readAllLines(file);
+            } catch (IOException e) {
+                continue;
+            }
+            drops += sumDrops(lines, filter);
+        }
+        return drops;
+    }
+
+    @VisibleForTesting
+    static long sumDrops(final List<String> lines, final Predicate<String[]> filter) {
+        long drops = 0;
+        // Skip the header
+        for (int i = 1; i < lines.size(); i++) {
+            final String[] columns = lines.get(i).trim().split("\\s+");
+            if (columns.length > DROPS_COLUMN && filter.test(columns)) {
+                try {
+                    drops += Long.parseLong(columns[DROPS_COLUMN]);
+                } catch (NumberFormatException e) {
+                    // Ignore malformed lines
+                }
+            }
+        }
+        return drops;
+    }
+}
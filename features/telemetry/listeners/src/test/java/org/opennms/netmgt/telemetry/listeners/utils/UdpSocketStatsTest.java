@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.listeners.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class UdpSocketStatsTest {
+
+    private static final List<String> PROC_NET_UDP = Arrays.asList(
+            "   sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt   uid  timeout inode ref pointer drops",
+            // Two sockets bound to port 50000 using SO_REUSEPORT
+            "  123: 00000000:C350 00000000:0000 07 00000000:00000000 00:00000000 00000000     0        0 1001 2 0000000000000000 17",
+            "  124: 00000000:C350 00000000:0000 07 00000000:00000000 00:00000000 00000000     0        0 1002 2 0000000000000000 25",
+            // Port 848, which shares the last digits of port 50000
+            "  125: 0100007F:0350 00000000:0000 07 00000000:00000000 00:00000000 00000000     0        0 1003 2 0000000000000000 100",
+            // Truncated and malformed lines
+            "  126: 00000000:C350 00000000:0000 07",
+            "  127: 00000000:C350 00000000:0000 07 00000000:00000000 00:00000000 00000000     0        0 1004 2 0000000000000000 many");
+
+    private static final List<String> PROC_NET_UDP6 = Arrays.asList(
+            "  sl  local_address                         remote_address                        st tx_queue rx_queue tr tm->when retrnsmt   uid  timeout inode ref pointer drops",
+            "  200: 00000000000000000000000000000000:C350 00000000000000000000000000000000:0000 07 00000000:00000000 00:00000000 00000000     0        0 2001 2 0000000000000000 3");
+
+    @Test
+    public void canSumDropsByInode() {
+        assertEquals(17L, UdpSocketStats.sumDrops(PROC_NET_UDP, UdpSocketStats.byInode(1001)));
+        assertEquals(25L, UdpSocketStats.sumDrops(PROC_NET_UDP, UdpSocketStats.byInode(1002)));
+        assertEquals(3L, UdpSocketStats.sumDrops(PROC_NET_UDP6, UdpSocketStats.byInode(2001)));
+        assertEquals(0L, UdpSocketStats.sumDrops(PROC_NET_UDP, UdpSocketStats.byInode(9999)));
+    }
+
+    @Test
+    public void canSumDropsByPort() {
+        // All of the sockets bound to the port, but not the ones whose port only ends with the same digits
+        assertEquals(42L, UdpSocketStats.sumDrops(PROC_NET_UDP, UdpSocketStats.byPort(50000)));
+        assertEquals(100L, UdpSocketStats.sumDrops(PROC_NET_UDP, UdpSocketStats.byPort(848)));
+        assertEquals(3L, UdpSocketStats.sumDrops(PROC_NET_UDP6, UdpSocketStats.byPort(50000)));
+        assertEquals(0L, UdpSocketStats.sumDrops(PROC_NET_UDP, UdpSocketStats.byPort(50001)));
+    }
+
+    @Test
+    public void ignoresTheHeader() {
+        assertEquals(0L, UdpSocketStats.sumDrops(PROC_NET_UDP.subList(0, 1), columns -> true));
+    }
+
+    @Test
+    public void canReadDropsOfBoundSocket() throws Exception {
+        assumeTrue(UdpSocketStats.isAvailable());
+
+        try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            // Nothing was sent to the socket, so nothing could be dropped
+            assertEquals(0L, UdpSocketStats.getDropsByPort(socket.getLocalPort()));
+        }
+    }
+}
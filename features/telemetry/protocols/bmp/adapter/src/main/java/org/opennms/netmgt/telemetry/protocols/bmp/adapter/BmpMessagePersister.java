@@ -34,9 +34,17 @@ import static java.lang.Boolean.TRUE;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -115,8 +123,58 @@ public class BmpMessagePersister implements BmpMessageHandler {
 
     private SetMultimap<String, BmpPeer> peerMultimap = HashMultimap.create();
 
+    // Ids of persisted routers and peers by hash id
+    private final ConcurrentMap<String, Long> routerIds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> peerIds = new ConcurrentHashMap<>();
+
+    private int prefixPersisterThreads = 4;
+    private int prefixBatchSize = 1000;
+    private long prefixFlushIntervalMs = 1000;
+
+    private UnicastPrefixPipeline unicastPrefixPipeline;
+
+    // Unicast prefix messages are enqueued holding the read lock, peer messages are handled holding the write lock
+    private final ReadWriteLock prefixOrderLock = new ReentrantReadWriteLock();
+
     @Override
-    public synchronized void handle(Message message, Context context) {
+    public void handle(Message message, Context context) {
+        if (message.getType() == Type.UNICAST_PREFIX) {
+            final List<UnicastPrefix> unicastPrefixes = new ArrayList<>();
+            message.getRecords().forEach(record -> {
+                if (record.getType().equals(Type.UNICAST_PREFIX)) {
+                    unicastPrefixes.add((UnicastPrefix) record);
+                }
+            });
+            prefixOrderLock.readLock().lock();
+            try {
+                getUnicastPrefixPipeline().enqueue(unicastPrefixes);
+            } finally {
+                prefixOrderLock.readLock().unlock();
+            }
+            return;
+        }
+
+        // Peer messages remove outdated prefixes of the peer, so all prefixes received so far must be persisted first
+        // and no prefixes must be persisted while the peer is handled
+        if (message.getType() == Type.PEER) {
+            prefixOrderLock.writeLock().lock();
+            try {
+                flush();
+                synchronized (this) {
+                    handleInTransaction(message);
+                }
+            } finally {
+                prefixOrderLock.writeLock().unlock();
+            }
+            return;
+        }
+
+        synchronized (this) {
+            handleInTransaction(message);
+        }
+    }
+
+    private void handleInTransaction(Message message) {
         sessionUtils.withTransaction(() -> {
             switch (message.getType()) {
                 case COLLECTOR:
@@ -193,46 +251,191 @@ public class BmpMessagePersister implements BmpMessageHandler {
 
                     });
                     break;
-                case UNICAST_PREFIX:
-                    List<BmpUnicastPrefix> bmpUnicastPrefixes = buildBmpUnicastPrefix(message);
-                    bmpUnicastPrefixes.forEach(unicastPrefix -> {
-                        try {
-                            updateStats(unicastPrefix, context.location);
-                            bmpUnicastPrefixDao.saveOrUpdate(unicastPrefix);
-                        } catch (Exception e) {
-                            LOG.error("Exception while persisting BMP unicast prefix {}", unicastPrefix, e);
-                        }
-                    });
-                    break;
             }
         });
     }
 
+    /**
+     * Persists a batch of unicast prefix updates in a single transaction.
+     * <p>
+     * If the batch fails, the updates are persisted again one at a time, so a single bad update doesn't drop the whole
+     * batch.
+     */
+    void persistUnicastPrefixes(List<UnicastPrefix> unicastPrefixes) {
+        try {
+            persistUnicastPrefixBatch(unicastPrefixes);
+        } catch (Exception e) {
+            // Cached ids may be outdated if the batch failed
+            routerIds.clear();
+            peerIds.clear();
+            if (unicastPrefixes.size() == 1) {
+                LOG.error("Exception while persisting BMP unicast prefix {}", InetAddressUtils.str(unicastPrefixes.get(0).prefix), e);
+                return;
+            }
+
+            LOG.warn("Exception while persisting {} BMP unicast prefixes, persisting them one at a time", unicastPrefixes.size(), e);
+            for (final UnicastPrefix unicastPrefix : unicastPrefixes) {
+                try {
+                    persistUnicastPrefixBatch(Collections.singletonList(unicastPrefix));
+                } catch (Exception ex) {
+                    LOG.error("Exception while persisting BMP unicast prefix {}", InetAddressUtils.str(unicastPrefix.prefix), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Persists the given unicast prefix updates in a single transaction.
+     * <p>
+     * The updates are applied in order to the current state of the prefixes to decide which updates are logged for the
+     * BMP statistics. Afterwards, the resulting state of all prefixes is upserted at once.
+     */
+    private void persistUnicastPrefixBatch(List<UnicastPrefix> unicastPrefixes) {
+        sessionUtils.withTransaction(() -> {
+            final Map<String, BmpUnicastPrefix> current = new LinkedHashMap<>();
+            bmpUnicastPrefixDao.findStatesByHashIds(unicastPrefixes.stream()
+                    .map(unicastPrefix -> unicastPrefix.hash)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet()))
+                    .forEach(bmpUnicastPrefix -> current.put(bmpUnicastPrefix.getHashId(), bmpUnicastPrefix));
+
+            final Map<String, BmpUnicastPrefix> updated = new LinkedHashMap<>();
+            final List<BmpIpRibLog> bmpIpRibLogs = new ArrayList<>();
+            for (final UnicastPrefix unicastPrefix : unicastPrefixes) {
+                try {
+                    final Long peerId = findPeerId(unicastPrefix.peerHash);
+                    if (peerId == null) {
+                        RATE_LIMITED_LOGGER.warn("Peer entity with hashId '{}', IpAddress = {} doesn't exist yet",
+                                unicastPrefix.peerHash, unicastPrefix.peerIp);
+                        continue;
+                    }
+
+                    final BmpUnicastPrefix previous = updated.containsKey(unicastPrefix.hash)
+                            ? updated.get(unicastPrefix.hash)
+                            : current.get(unicastPrefix.hash);
+                    final BmpUnicastPrefix bmpUnicastPrefix = buildBmpUnicastPrefix(unicastPrefix, peerId);
+                    if (previous == null) {
+                        bmpUnicastPrefix.setFirstAddedTimestamp(Date.from(unicastPrefix.timestamp));
+                    } else {
+                        bmpUnicastPrefix.setId(previous.getId());
+                        // Only known for prefixes which are added earlier in this batch, existing rows keep theirs
+                        bmpUnicastPrefix.setFirstAddedTimestamp(previous.getFirstAddedTimestamp());
+                        bmpUnicastPrefix.setPrevBaseAttrHashId(previous.getBaseAttrHashId());
+                        bmpUnicastPrefix.setPrevWithDrawnState(previous.isWithDrawn());
+                    }
+
+                    if (isLogged(bmpUnicastPrefix, previous == null)) {
+                        bmpIpRibLogs.add(buildBmpIpRibLog(bmpUnicastPrefix));
+                    }
+                    updated.put(bmpUnicastPrefix.getHashId(), bmpUnicastPrefix);
+                } catch (Exception e) {
+                    LOG.error("Exception while mapping Unicast prefix with prefix {} to UnicastPrefix entity",
+                            InetAddressUtils.str(unicastPrefix.prefix), e);
+                }
+            }
+
+            bmpUnicastPrefixDao.upsert(updated.values());
+            bmpIpRibLogDao.insertAll(bmpIpRibLogs);
+        });
+    }
 
-    private void updateStats(BmpUnicastPrefix unicastPrefix, String location) {
+    private static boolean isLogged(BmpUnicastPrefix unicastPrefix, boolean added) {
         // Update counts if this is new prefix update or
         // if previous withdrawn state is different or it's an update with different base attributes
-        if (unicastPrefix.getId() == null ||
-                (unicastPrefix.isWithDrawn() != unicastPrefix.isPrevWithDrawnState() ||
-                        (!unicastPrefix.isWithDrawn() && !unicastPrefix.getBaseAttrHashId().equals(unicastPrefix.getPrevBaseAttrHashId())))) {
-
-            String peerHashId = unicastPrefix.getBmpPeer().getHashId();
-            BmpIpRibLog bmpIpRibLog = new BmpIpRibLog();
-            bmpIpRibLog.setPeerHashId(peerHashId);
-            bmpIpRibLog.setBaseAttrHashId(unicastPrefix.getBaseAttrHashId());
-            bmpIpRibLog.setPrefix(unicastPrefix.getPrefix());
-            bmpIpRibLog.setPrefixLen(unicastPrefix.getPrefixLen());
-            bmpIpRibLog.setOriginAs(unicastPrefix.getOriginAs());
-            bmpIpRibLog.setTimestamp(new Date());
-            bmpIpRibLog.setWithDrawn(unicastPrefix.isWithDrawn());
-            bmpIpRibLogDao.saveOrUpdate(bmpIpRibLog);
+        return added ||
+                unicastPrefix.isWithDrawn() != unicastPrefix.isPrevWithDrawnState() ||
+                (!unicastPrefix.isWithDrawn() && !Objects.equals(unicastPrefix.getBaseAttrHashId(), unicastPrefix.getPrevBaseAttrHashId()));
+    }
+
+    private static BmpIpRibLog buildBmpIpRibLog(BmpUnicastPrefix unicastPrefix) {
+        BmpIpRibLog bmpIpRibLog = new BmpIpRibLog();
+        bmpIpRibLog.setPeerHashId(unicastPrefix.getBmpPeer().getHashId());
+        bmpIpRibLog.setBaseAttrHashId(unicastPrefix.getBaseAttrHashId());
+        bmpIpRibLog.setPrefix(unicastPrefix.getPrefix());
+        bmpIpRibLog.setPrefixLen(unicastPrefix.getPrefixLen());
+        bmpIpRibLog.setOriginAs(unicastPrefix.getOriginAs());
+        bmpIpRibLog.setTimestamp(new Date());
+        bmpIpRibLog.setWithDrawn(unicastPrefix.isWithDrawn());
+        return bmpIpRibLog;
+    }
+
+    private BmpRouter findRouter(String hashId) {
+        final Long id = routerIds.get(hashId);
+        if (id != null) {
+            final BmpRouter bmpRouter = bmpRouterDao.get(id);
+            if (bmpRouter != null) {
+                return bmpRouter;
+            }
+            routerIds.remove(hashId);
+        }
+        final BmpRouter bmpRouter = bmpRouterDao.findByRouterHashId(hashId);
+        if (bmpRouter != null && bmpRouter.getId() != null) {
+            routerIds.put(hashId, bmpRouter.getId());
         }
+        return bmpRouter;
+    }
 
+    private BmpPeer findPeer(String hashId) {
+        final Long id = peerIds.get(hashId);
+        if (id != null) {
+            final BmpPeer bmpPeer = bmpPeerDao.get(id);
+            if (bmpPeer != null) {
+                return bmpPeer;
+            }
+            peerIds.remove(hashId);
+        }
+        final BmpPeer bmpPeer = bmpPeerDao.findByPeerHashId(hashId);
+        if (bmpPeer != null && bmpPeer.getId() != null) {
+            peerIds.put(hashId, bmpPeer.getId());
+        }
+        return bmpPeer;
     }
 
+    private Long findPeerId(String hashId) {
+        if (hashId == null) {
+            return null;
+        }
+        final Long id = peerIds.get(hashId);
+        if (id != null) {
+            return id;
+        }
+        final BmpPeer bmpPeer = findPeer(hashId);
+        return bmpPeer != null ? bmpPeer.getId() : null;
+    }
+
+    private synchronized UnicastPrefixPipeline getUnicastPrefixPipeline() {
+        if (unicastPrefixPipeline == null) {
+            unicastPrefixPipeline = new UnicastPrefixPipeline(prefixPersisterThreads,
+                    prefixBatchSize,
+                    prefixFlushIntervalMs,
+                    this::persistUnicastPrefixes);
+        }
+        return unicastPrefixPipeline;
+    }
+
+    /**
+     * Persists all unicast prefixes received so far.
+     */
+    public void flush() {
+        final UnicastPrefixPipeline pipeline;
+        synchronized (this) {
+            pipeline = unicastPrefixPipeline;
+        }
+        if (pipeline != null) {
+            pipeline.flush();
+        }
+    }
 
     @Override
     public void close() {
+        final UnicastPrefixPipeline pipeline;
+        synchronized (this) {
+            pipeline = unicastPrefixPipeline;
+            unicastPrefixPipeline = null;
+        }
+        if (pipeline != null) {
+            pipeline.close();
+        }
     }
 
     private List<BmpCollector> buildBmpCollectors(Message message) {
@@ -272,7 +475,7 @@ public class BmpMessagePersister implements BmpMessageHandler {
             if (record.getType().equals(Type.ROUTER)) {
                 Router router = (Router) record;
                 try {
-                    BmpRouter bmpRouterEntity = bmpRouterDao.findByRouterHashId(router.hash);
+                    BmpRouter bmpRouterEntity = findRouter(router.hash);
                     if (bmpRouterEntity == null) {
                         bmpRouterEntity = new BmpRouter();
                     }
@@ -307,10 +510,10 @@ public class BmpMessagePersister implements BmpMessageHandler {
                 Peer peer = (Peer) record;
                 try {
                     BmpRouter bmpRouter;
-                    BmpPeer peerEntity = bmpPeerDao.findByPeerHashId(peer.hash);
+                    BmpPeer peerEntity = findPeer(peer.hash);
                     if (peerEntity == null) {
                         peerEntity = new BmpPeer();
-                        bmpRouter = bmpRouterDao.findByRouterHashId(peer.routerHash);
+                        bmpRouter = findRouter(peer.routerHash);
                     } else {
                         bmpRouter = peerEntity.getBmpRouter();
                     }
@@ -393,51 +596,28 @@ public class BmpMessagePersister implements BmpMessageHandler {
         return bmpBaseAttributes;
     }
 
-    private List<BmpUnicastPrefix> buildBmpUnicastPrefix(Message message) {
-
-        List<BmpUnicastPrefix> bmpUnicastPrefixes = new ArrayList<>();
-        message.getRecords().forEach(record -> {
-            if (record.getType().equals(Type.UNICAST_PREFIX)) {
-                BmpPeer bmpPeer;
-                UnicastPrefix unicastPrefix = (UnicastPrefix) record;
-                try {
-                    BmpUnicastPrefix bmpUnicastPrefix = bmpUnicastPrefixDao.findByHashId(unicastPrefix.hash);
-                    if (bmpUnicastPrefix == null) {
-                        bmpUnicastPrefix = new BmpUnicastPrefix();
-                        bmpUnicastPrefix.setFirstAddedTimestamp(Date.from(unicastPrefix.timestamp));
-                        bmpPeer = bmpPeerDao.findByPeerHashId(unicastPrefix.peerHash);
-                    } else {
-                        bmpUnicastPrefix.setPrevBaseAttrHashId(bmpUnicastPrefix.getBaseAttrHashId());
-                        bmpUnicastPrefix.setPrevWithDrawnState(bmpUnicastPrefix.isWithDrawn());
-                        bmpPeer = bmpUnicastPrefix.getBmpPeer();
-                    }
-                    if (bmpPeer == null) {
-                        RATE_LIMITED_LOGGER.warn("Peer entity with hashId '{}', IpAddress = {} doesn't exist yet",
-                                unicastPrefix.peerHash, unicastPrefix.peerIp);
-                        return;
-                    }
-                    bmpUnicastPrefix.setBmpPeer(bmpPeer);
-                    bmpUnicastPrefix.setHashId(unicastPrefix.hash);
-                    bmpUnicastPrefix.setBaseAttrHashId(unicastPrefix.baseAttrHash);
-                    bmpUnicastPrefix.setIpv4(unicastPrefix.ipv4);
-                    bmpUnicastPrefix.setOriginAs(unicastPrefix.originAs);
-                    bmpUnicastPrefix.setPrefix(InetAddressUtils.str(unicastPrefix.prefix));
-                    bmpUnicastPrefix.setPrefixLen(unicastPrefix.length);
-                    bmpUnicastPrefix.setTimestamp(Date.from(unicastPrefix.timestamp));
-                    boolean withDrawn = !unicastPrefix.action.equals(UnicastPrefix.Action.ADD);
-                    bmpUnicastPrefix.setWithDrawn(withDrawn);
-                    bmpUnicastPrefix.setPathId(unicastPrefix.pathId);
-                    bmpUnicastPrefix.setLabels(unicastPrefix.labels);
-                    bmpUnicastPrefix.setPrePolicy(unicastPrefix.prePolicy);
-                    bmpUnicastPrefix.setAdjRibIn(unicastPrefix.adjIn);
-                    bmpUnicastPrefixes.add(bmpUnicastPrefix);
-                } catch (Exception e) {
-                    LOG.error("Exception while mapping Unicast prefix with prefix {} to UnicastPrefix entity",
-                            InetAddressUtils.str(unicastPrefix.prefix), e);
-                }
-            }
-        });
-        return bmpUnicastPrefixes;
+    private static BmpUnicastPrefix buildBmpUnicastPrefix(UnicastPrefix unicastPrefix, Long peerId) {
+        // Only the hash id of the peer is persisted
+        final BmpPeer bmpPeer = new BmpPeer();
+        bmpPeer.setId(peerId);
+        bmpPeer.setHashId(unicastPrefix.peerHash);
+
+        final BmpUnicastPrefix bmpUnicastPrefix = new BmpUnicastPrefix();
+        bmpUnicastPrefix.setBmpPeer(bmpPeer);
+        bmpUnicastPrefix.setHashId(unicastPrefix.hash);
+        bmpUnicastPrefix.setBaseAttrHashId(unicastPrefix.baseAttrHash);
+        bmpUnicastPrefix.setIpv4(unicastPrefix.ipv4);
+        bmpUnicastPrefix.setOriginAs(unicastPrefix.originAs);
+        bmpUnicastPrefix.setPrefix(InetAddressUtils.str(unicastPrefix.prefix));
+        bmpUnicastPrefix.setPrefixLen(unicastPrefix.length);
+        bmpUnicastPrefix.setTimestamp(Date.from(unicastPrefix.timestamp));
+        boolean withDrawn = !unicastPrefix.action.equals(UnicastPrefix.Action.ADD);
+        bmpUnicastPrefix.setWithDrawn(withDrawn);
+        bmpUnicastPrefix.setPathId(unicastPrefix.pathId);
+        bmpUnicastPrefix.setLabels(unicastPrefix.labels);
+        bmpUnicastPrefix.setPrePolicy(unicastPrefix.prePolicy);
+        bmpUnicastPrefix.setAdjRibIn(unicastPrefix.adjIn);
+        return bmpUnicastPrefix;
     }
 
 
@@ -569,6 +749,30 @@ public class BmpMessagePersister implements BmpMessageHandler {
         this.bmpIpRibLogDao = bmpIpRibLogDao;
     }
 
+    public int getPrefixPersisterThreads() {
+        return prefixPersisterThreads;
+    }
+
+    public void setPrefixPersisterThreads(int prefixPersisterThreads) {
+        this.prefixPersisterThreads = prefixPersisterThreads;
+    }
+
+    public int getPrefixBatchSize() {
+        return prefixBatchSize;
+    }
+
+    public void setPrefixBatchSize(int prefixBatchSize) {
+        this.prefixBatchSize = prefixBatchSize;
+    }
+
+    public long getPrefixFlushIntervalMs() {
+        return prefixFlushIntervalMs;
+    }
+
+    public void setPrefixFlushIntervalMs(long prefixFlushIntervalMs) {
+        this.prefixFlushIntervalMs = prefixFlushIntervalMs;
+    }
+
     public SessionUtils getSessionUtils() {
         return sessionUtils;
     }
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.bmp.adapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.opennms.netmgt.telemetry.protocols.bmp.adapter.openbmp.proto.records.UnicastPrefix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Accumulates unicast prefix updates and hands them to the persister in batches.
+ * <p>
+ * Updates are sharded by peer hash. Each shard persists its batches in order on a dedicated thread, so the prefixes of
+ * different peers are persisted in parallel while the updates of a single prefix are never reordered. Pending updates
+ * are handed over once a shard has accumulated a full batch or when the flush interval elapsed. Producers are blocked
+ * if a shard falls behind by more than a few batches.
+ */
+public class UnicastPrefixPipeline implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UnicastPrefixPipeline.class);
+
+    private static final int MAX_PENDING_BATCHES = 4;
+
+    private static class Shard {
+        private final ExecutorService executor;
+        private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+
+        // guarded by this
+        private List<UnicastPrefix> pending = new ArrayList<>();
+
+        private Shard(final int index) {
+            this.executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("bmp-prefix-persister-" + index)
+                    .setDaemon(true)
+                    .build());
+        }
+    }
+
+    private final Shard[] shards;
+    private final int batchSize;
+    private final Consumer<List<UnicastPrefix>> persister;
+    private final ScheduledExecutorService flusher;
+
+    public UnicastPrefixPipeline(final int shards,
+                                 final int batchSize,
+                                 final long flushIntervalMs,
+                                 final Consumer<List<UnicastPrefix>> persister) {
+        this.shards = new Shard[Math.max(shards, 1)];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard(i);
+        }
+        this.batchSize = Math.max(batchSize, 1);
+        this.persister = Objects.requireNonNull(persister);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("bmp-prefix-flusher")
+                .setDaemon(true)
+                .build());
+        this.flusher.scheduleWithFixedDelay(this::flushPending, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void enqueue(final List<UnicastPrefix> unicastPrefixes) {
+        final List<List<UnicastPrefix>> sharded = new ArrayList<>(this.shards.length);
+        for (int i = 0; i < this.shards.length; i++) {
+            sharded.add(new ArrayList<>());
+        }
+        for (final UnicastPrefix unicastPrefix : unicastPrefixes) {
+            sharded.get(Math.floorMod(Objects.hashCode(unicastPrefix.peerHash), this.shards.length)).add(unicastPrefix);
+        }
+
+        for (int i = 0; i < this.shards.length; i++) {
+            if (sharded.get(i).isEmpty()) {
+                continue;
+            }
+            final Shard shard = this.shards[i];
+            synchronized (shard) {
+                shard.pending.addAll(sharded.get(i));
+                if (shard.pending.size() >= this.batchSize) {
+                    this.submitPending(shard);
+                }
+            }
+        }
+    }
+
+    /**
+     * Persists all pending updates and waits until they have been persisted.
+     */
+    public void flush() {
+        final List<Future<?>> futures = new ArrayList<>(this.shards.length);
+        for (final Shard shard : this.shards) {
+            synchronized (shard) {
+                this.submitPending(shard);
+                futures.add(shard.executor.submit(() -> {}));
+            }
+        }
+
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final ExecutionException e) {
+                LOG.error("Failed to flush unicast prefixes", e.getCause());
+            }
+        }
+    }
+
+    private void flushPending() {
+        for (final Shard shard : this.shards) {
+            synchronized (shard) {
+                this.submitPending(shard);
+            }
+        }
+    }
+
+    // must be called while holding the lock of the shard to keep batches in order
+    private void submitPending(final Shard shard) {
+        if (shard.pending.isEmpty()) {
+            return;
+        }
+        final List<UnicastPrefix> pending = shard.pending;
+        shard.pending = new ArrayList<>();
+
+        for (final List<UnicastPrefix> batch : Lists.partition(pending, this.batchSize)) {
+            shard.pendingBatches.acquireUninterruptibly();
+            shard.executor.execute(() -> {
+                try {
+                    this.persister.accept(batch);
+                } catch (final Exception e) {
+                    LOG.error("Failed to persist batch of {} unicast prefixes", batch.size(), e);
+                } finally {
+                    shard.pendingBatches.release();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        this.flusher.shutdown();
+        this.flush();
+        for (final Shard shard : this.shards) {
+            shard.executor.shutdown();
+        }
+    }
+}
@@ -173,6 +173,8 @@ public class BmpMessagePersisterIT {
         UnicastPrefix unicastPrefix = getUnicastPrefix();
         msg = new Message("91e3a7ff9f5676ed6ae6fcd8a6b455ec", Type.UNICAST_PREFIX, ImmutableList.of(unicastPrefix));
         bmpMessageHandler.handle(msg, context);
+        // Unicast prefixes are persisted asynchronously
+        bmpMessageHandler.flush();
         List<BmpUnicastPrefix> prefixList = bmpUnicastPrefixDao.findAll();
         Assert.assertFalse(prefixList.isEmpty());
 
@@ -227,6 +229,39 @@ public class BmpMessagePersisterIT {
     }
 
 
+    @Test
+    public void testPersistingOfPrefixAddedTwiceInOneBatch() {
+
+        Context context = mock(Context.class);
+        when(context.getLocation()).thenReturn(LocationUtils.DEFAULT_LOCATION_NAME);
+        Message msg = new Message("91e3a7ff9f5676ed6ae6fcd8a6b455ec", Type.COLLECTOR, ImmutableList.of(getCollector()));
+        bmpMessageHandler.handle(msg, context);
+        msg = new Message("91e3a7ff9f5676ed6ae6fcd8a6b455ec", Type.ROUTER, ImmutableList.of(getRouter1()));
+        bmpMessageHandler.handle(msg, context);
+        msg = new Message("91e3a7ff9f5676ed6ae6fcd8a6b455ec", Type.PEER, ImmutableList.of(getPeer()));
+        bmpMessageHandler.handle(msg, context);
+
+        final int ribLogCount = bmpIpRibLogDao.countAll();
+
+        // The same new prefix is announced twice with different attributes before the batch is persisted
+        final UnicastPrefix added = getUnicastPrefix();
+        added.timestamp = Instant.now().minusSeconds(10);
+        final UnicastPrefix changed = getUnicastPrefix();
+        changed.baseAttrHash = "45323a7ff9f5433ed6ae6fcd9a2b432gf";
+        msg = new Message("91e3a7ff9f5676ed6ae6fcd8a6b455ec", Type.UNICAST_PREFIX, ImmutableList.of(added, changed));
+        bmpMessageHandler.handle(msg, context);
+        bmpMessageHandler.flush();
+
+        BmpUnicastPrefix bmpUnicastPrefix = bmpUnicastPrefixDao.findByHashId(added.hash);
+        Assert.assertNotNull(bmpUnicastPrefix);
+        Assert.assertEquals(changed.baseAttrHash, bmpUnicastPrefix.getBaseAttrHashId());
+        Assert.assertNotNull(bmpUnicastPrefix.getFirstAddedTimestamp());
+        Assert.assertEquals(added.timestamp.toEpochMilli(), bmpUnicastPrefix.getFirstAddedTimestamp().getTime());
+
+        // Both announcements are logged
+        Assert.assertEquals(ribLogCount + 2, bmpIpRibLogDao.countAll());
+    }
+
     private static Collector getCollector() {
         final Collector collector = new Collector();
         collector.action = Collector.Action.CHANGE;
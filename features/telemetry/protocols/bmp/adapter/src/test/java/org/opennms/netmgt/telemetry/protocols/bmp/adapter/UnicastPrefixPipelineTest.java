@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.bmp.adapter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+import org.opennms.netmgt.telemetry.protocols.bmp.adapter.openbmp.proto.records.UnicastPrefix;
+
+public class UnicastPrefixPipelineTest {
+
+    @Test
+    public void testOrderPerPeer() {
+        final Map<String, List<Long>> persisted = new ConcurrentHashMap<>();
+        try (UnicastPrefixPipeline pipeline = new UnicastPrefixPipeline(3, 7, 60_000, batch -> {
+            for (final UnicastPrefix unicastPrefix : batch) {
+                persisted.computeIfAbsent(unicastPrefix.peerHash, k -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(unicastPrefix.sequence);
+            }
+        })) {
+            for (long sequence = 0; sequence < 100; sequence++) {
+                final List<UnicastPrefix> unicastPrefixes = new ArrayList<>();
+                for (int peer = 0; peer < 5; peer++) {
+                    unicastPrefixes.add(unicastPrefix("peer" + peer, sequence));
+                }
+                pipeline.enqueue(unicastPrefixes);
+            }
+            pipeline.flush();
+
+            assertEquals(5, persisted.size());
+            for (final List<Long> sequences : persisted.values()) {
+                assertEquals(100, sequences.size());
+                for (int i = 0; i < sequences.size(); i++) {
+                    assertEquals(i, sequences.get(i).longValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFlushPersistsPartialBatches() {
+        final List<UnicastPrefix> persisted = Collections.synchronizedList(new ArrayList<>());
+        try (UnicastPrefixPipeline pipeline = new UnicastPrefixPipeline(2, 1000, 60_000, persisted::addAll)) {
+            pipeline.enqueue(Collections.singletonList(unicastPrefix("peer", 1L)));
+            assertEquals(0, persisted.size());
+
+            pipeline.flush();
+            assertEquals(1, persisted.size());
+        }
+    }
+
+    private static UnicastPrefix unicastPrefix(final String peerHash, final long sequence) {
+        final UnicastPrefix unicastPrefix = new UnicastPrefix();
+        unicastPrefix.peerHash = peerHash;
+        unicastPrefix.sequence = sequence;
+        return unicastPrefix;
+    }
+}
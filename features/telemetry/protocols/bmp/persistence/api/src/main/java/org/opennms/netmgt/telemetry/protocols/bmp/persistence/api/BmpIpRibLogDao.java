@@ -28,12 +28,18 @@
 
 package org.opennms.netmgt.telemetry.protocols.bmp.persistence.api;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.opennms.netmgt.dao.api.OnmsDao;
 
 public interface BmpIpRibLogDao extends OnmsDao<BmpIpRibLog, Long> {
 
+    /**
+     * Inserts the given log entries using as few statements as the bind parameter limit of the database allows.
+     */
+    void insertAll(Collection<BmpIpRibLog> bmpIpRibLogs);
+
     List<StatsByPeer> getStatsByPeerForInterval(String interval);
 
     List<StatsByAsn> getStatsByAsnForInterval(String interval);
@@ -29,6 +29,7 @@
 package org.opennms.netmgt.telemetry.protocols.bmp.persistence.api;
 
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -38,6 +39,23 @@ public interface BmpUnicastPrefixDao extends OnmsDao<BmpUnicastPrefix, Long> {
 
     BmpUnicastPrefix findByHashId(String hashId);
 
+    /**
+     * Finds the current state of the prefixes with the given hash ids.
+     * <p>
+     * Only the id, hash id, base attribute hash id and withdrawn state of the returned prefixes are populated.
+     */
+    List<BmpUnicastPrefix> findStatesByHashIds(Collection<String> hashIds);
+
+    /**
+     * Updates the given prefixes which have an id and inserts the others, using as few statements as the bind
+     * parameter limit of the database allows.
+     * <p>
+     * Ids are only drawn from the sequence for inserted prefixes. Inserted prefixes which exist by now are updated
+     * instead. The first added timestamp of existing prefixes is retained. The hash ids of the given prefixes must be
+     * unique and only the hash id of the referenced peers is used.
+     */
+    void upsert(Collection<BmpUnicastPrefix> unicastPrefixes);
+
     List<BmpUnicastPrefix> getUnicastPrefixesAfterDate(String hashId, Date time);
 
     List<PrefixByAS> getPrefixesGroupedByAS();
@@ -29,10 +29,18 @@
 package org.opennms.netmgt.telemetry.protocols.bmp.persistence.impl;
 
 import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
+import org.hibernate.Query;
 import org.hibernate.transform.ResultTransformer;
+import org.hibernate.type.BooleanType;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import org.hibernate.type.TimestampType;
 import org.opennms.netmgt.dao.hibernate.AbstractDaoHibernate;
 import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.BmpIpRibLog;
 import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.BmpIpRibLogDao;
@@ -40,11 +48,49 @@ import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.StatsByAsn;
 import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.StatsByPeer;
 import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.StatsByPrefix;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
 public class BmpIpRibLogDaoImpl extends AbstractDaoHibernate<BmpIpRibLog, Long> implements BmpIpRibLogDao {
+
+    /**
+     * PostgreSQL accepts at most this many bind parameters per statement.
+     */
+    private static final int MAX_PARAMETERS = 32767;
+
+    private static final int INSERT_PARAMETERS_PER_ROW = 7;
+
     public BmpIpRibLogDaoImpl() {
         super(BmpIpRibLog.class);
     }
 
+    @Override
+    public void insertAll(Collection<BmpIpRibLog> bmpIpRibLogs) {
+        for (final List<BmpIpRibLog> rows : Lists.partition(ImmutableList.copyOf(bmpIpRibLogs), MAX_PARAMETERS / INSERT_PARAMETERS_PER_ROW)) {
+            insert(rows);
+        }
+    }
+
+    private void insert(List<BmpIpRibLog> bmpIpRibLogs) {
+        final String values = String.join(",", Collections.nCopies(bmpIpRibLogs.size(), "(nextval('bmpipriblognxtid'), ?, ?, ?, ?, ?, ?, ?)"));
+        getHibernateTemplate().executeWithNativeSession(session -> {
+            final Query query = session.createSQLQuery("INSERT INTO bmp_ip_rib_log " +
+                    "(id, peer_hash_id, base_attr_hash_id, last_updated, prefix, prefix_len, origin_as, is_withdrawn) " +
+                    "VALUES " + values);
+            int i = 0;
+            for (final BmpIpRibLog bmpIpRibLog : bmpIpRibLogs) {
+                query.setParameter(i++, bmpIpRibLog.getPeerHashId(), StringType.INSTANCE);
+                query.setParameter(i++, bmpIpRibLog.getBaseAttrHashId(), StringType.INSTANCE);
+                query.setParameter(i++, bmpIpRibLog.getTimestamp(), TimestampType.INSTANCE);
+                query.setParameter(i++, bmpIpRibLog.getPrefix(), StringType.INSTANCE);
+                query.setParameter(i++, bmpIpRibLog.getPrefixLen(), IntegerType.INSTANCE);
+                query.setParameter(i++, bmpIpRibLog.getOriginAs(), LongType.INSTANCE);
+                query.setParameter(i++, bmpIpRibLog.isWithDrawn(), BooleanType.INSTANCE);
+            }
+            return query.executeUpdate();
+        });
+    }
+
     @Override
     public List<StatsByPeer> getStatsByPeerForInterval(String interval) {
 
@@ -29,10 +29,19 @@
 package org.opennms.netmgt.telemetry.protocols.bmp.persistence.impl;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
+import org.hibernate.Query;
 import org.hibernate.transform.ResultTransformer;
+import org.hibernate.type.BooleanType;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import org.hibernate.type.TimestampType;
 import org.opennms.core.criteria.Criteria;
 import org.opennms.core.criteria.CriteriaBuilder;
 import org.opennms.core.criteria.restrictions.EqRestriction;
@@ -44,9 +53,19 @@ import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.PrefixByAS;
 import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.StatsPeerRib;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 
 public class BmpUnicastPrefixDaoImpl extends AbstractDaoHibernate<BmpUnicastPrefix, Long> implements BmpUnicastPrefixDao {
 
+    /**
+     * PostgreSQL accepts at most this many bind parameters per statement.
+     */
+    private static final int MAX_PARAMETERS = 32767;
+
+    private static final int UPDATE_PARAMETERS_PER_ROW = 13;
+
+    private static final int INSERT_PARAMETERS_PER_ROW = 14;
+
     public BmpUnicastPrefixDaoImpl() {
         super(BmpUnicastPrefix.class);
     }
@@ -65,6 +84,133 @@ public class BmpUnicastPrefixDaoImpl extends AbstractDaoHibernate<BmpUnicastPref
         return null;
     }
 
+    @Override
+    public List<BmpUnicastPrefix> findStatesByHashIds(Collection<String> hashIds) {
+        if (hashIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<Object[]> rows = getHibernateTemplate().execute(session -> (List<Object[]>) session.createQuery(
+                "SELECT prefix.id, prefix.hashId, prefix.baseAttrHashId, prefix.isWithDrawn " +
+                        "FROM BmpUnicastPrefix AS prefix " +
+                        "WHERE prefix.hashId IN (:hashIds)")
+                .setParameterList("hashIds", hashIds)
+                .list());
+
+        final List<BmpUnicastPrefix> bmpUnicastPrefixes = new ArrayList<>(rows.size());
+        for (final Object[] row : rows) {
+            final BmpUnicastPrefix bmpUnicastPrefix = new BmpUnicastPrefix();
+            bmpUnicastPrefix.setId((Long) row[0]);
+            bmpUnicastPrefix.setHashId((String) row[1]);
+            bmpUnicastPrefix.setBaseAttrHashId((String) row[2]);
+            bmpUnicastPrefix.setWithDrawn((Boolean) row[3]);
+            bmpUnicastPrefixes.add(bmpUnicastPrefix);
+        }
+        return bmpUnicastPrefixes;
+    }
+
+    @Override
+    public void upsert(Collection<BmpUnicastPrefix> unicastPrefixes) {
+        // Prefixes with a known id are updated in place, so the id sequence is only advanced for new prefixes
+        final List<BmpUnicastPrefix> existing = new ArrayList<>();
+        final List<BmpUnicastPrefix> added = new ArrayList<>();
+        for (final BmpUnicastPrefix unicastPrefix : unicastPrefixes) {
+            if (unicastPrefix.getId() != null) {
+                existing.add(unicastPrefix);
+            } else {
+                added.add(unicastPrefix);
+            }
+        }
+        for (final List<BmpUnicastPrefix> rows : Lists.partition(existing, MAX_PARAMETERS / UPDATE_PARAMETERS_PER_ROW)) {
+            update(rows);
+        }
+        for (final List<BmpUnicastPrefix> rows : Lists.partition(added, MAX_PARAMETERS / INSERT_PARAMETERS_PER_ROW)) {
+            insert(rows);
+        }
+    }
+
+    private void update(List<BmpUnicastPrefix> unicastPrefixes) {
+        final String values = String.join(",", Collections.nCopies(unicastPrefixes.size(),
+                "(CAST(? AS bigint), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS boolean), CAST(? AS bigint), " +
+                        "CAST(? AS varchar), CAST(? AS smallint), CAST(? AS timestamp), CAST(? AS boolean), " +
+                        "CAST(? AS bigint), CAST(? AS varchar), CAST(? AS boolean), CAST(? AS boolean))"));
+        getHibernateTemplate().executeWithNativeSession(session -> {
+            final Query query = session.createSQLQuery("UPDATE bmp_ip_ribs SET " +
+                    "peer_hash_id = v.peer_hash_id, " +
+                    "base_attr_hash_id = v.base_attr_hash_id, " +
+                    "is_ipv4 = v.is_ipv4, " +
+                    "origin_as = v.origin_as, " +
+                    "prefix = v.prefix, " +
+                    "prefix_len = v.prefix_len, " +
+                    "last_updated = v.last_updated, " +
+                    "is_withdrawn = v.is_withdrawn, " +
+                    "path_id = v.path_id, " +
+                    "labels = v.labels, " +
+                    "is_pre_policy = v.is_pre_policy, " +
+                    "is_adj_ribin = v.is_adj_ribin " +
+                    "FROM (VALUES " + values + ") AS v(id, peer_hash_id, base_attr_hash_id, is_ipv4, origin_as, prefix, " +
+                    "prefix_len, last_updated, is_withdrawn, path_id, labels, is_pre_policy, is_adj_ribin) " +
+                    "WHERE bmp_ip_ribs.id = v.id");
+            int i = 0;
+            for (final BmpUnicastPrefix unicastPrefix : unicastPrefixes) {
+                query.setParameter(i++, unicastPrefix.getId(), LongType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getBmpPeer().getHashId(), StringType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getBaseAttrHashId(), StringType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.isIpv4(), BooleanType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getOriginAs(), LongType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getPrefix(), StringType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getPrefixLen(), IntegerType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getTimestamp(), TimestampType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.isWithDrawn(), BooleanType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getPathId(), LongType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getLabels(), StringType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.isPrePolicy(), BooleanType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.isAdjRibIn(), BooleanType.INSTANCE);
+            }
+            return query.executeUpdate();
+        });
+    }
+
+    private void insert(List<BmpUnicastPrefix> unicastPrefixes) {
+        final String values = String.join(",", Collections.nCopies(unicastPrefixes.size(), "(nextval('bmpunicastnxtid'), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"));
+        getHibernateTemplate().executeWithNativeSession(session -> {
+            final Query query = session.createSQLQuery("INSERT INTO bmp_ip_ribs " +
+                    "(id, hash_id, peer_hash_id, base_attr_hash_id, is_ipv4, origin_as, prefix, prefix_len, last_updated, " +
+                    "first_added_timestamp, is_withdrawn, path_id, labels, is_pre_policy, is_adj_ribin) " +
+                    "VALUES " + values + " " +
+                    "ON CONFLICT (hash_id) DO UPDATE SET " +
+                    "peer_hash_id = EXCLUDED.peer_hash_id, " +
+                    "base_attr_hash_id = EXCLUDED.base_attr_hash_id, " +
+                    "is_ipv4 = EXCLUDED.is_ipv4, " +
+                    "origin_as = EXCLUDED.origin_as, " +
+                    "prefix = EXCLUDED.prefix, " +
+                    "prefix_len = EXCLUDED.prefix_len, " +
+                    "last_updated = EXCLUDED.last_updated, " +
+                    "is_withdrawn = EXCLUDED.is_withdrawn, " +
+                    "path_id = EXCLUDED.path_id, " +
+                    "labels = EXCLUDED.labels, " +
+                    "is_pre_policy = EXCLUDED.is_pre_policy, " +
+                    "is_adj_ribin = EXCLUDED.is_adj_ribin");
+            int i = 0;
+            for (final BmpUnicastPrefix unicastPrefix : unicastPrefixes) {
+                query.setParameter(i++, unicastPrefix.getHashId(), StringType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getBmpPeer().getHashId(), StringType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getBaseAttrHashId(), StringType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.isIpv4(), BooleanType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getOriginAs(), LongType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getPrefix(), StringType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getPrefixLen(), IntegerType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getTimestamp(), TimestampType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getFirstAddedTimestamp(), TimestampType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.isWithDrawn(), BooleanType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getPathId(), LongType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.getLabels(), StringType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.isPrePolicy(), BooleanType.INSTANCE);
+                query.setParameter(i++, unicastPrefix.isAdjRibIn(), BooleanType.INSTANCE);
+            }
+            return query.executeUpdate();
+        });
+    }
+
     @Override
     public List<BmpUnicastPrefix> getUnicastPrefixesAfterDate(String hashId, Date time) {
         CriteriaBuilder criteriaBuilder = new CriteriaBuilder(BmpUnicastPrefix.class);
@@ -33,8 +33,10 @@ import static org.junit.Assert.assertThat;
 
 import java.math.BigInteger;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.sql.DataSource;
 
@@ -48,6 +50,7 @@ import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.BmpCollector;
 import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.BmpCollectorDao;
 import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.BmpGlobalIpRib;
 import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.BmpGlobalIpRibDao;
+import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.BmpIpRibLog;
 import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.BmpIpRibLogDao;
 import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.BmpPeer;
 import org.opennms.netmgt.telemetry.protocols.bmp.persistence.api.BmpPeerDao;
@@ -222,6 +225,68 @@ public class BmpDaoIT {
         assertEquals(1L, statsPeerRibs.get(0).getV4prefixes().longValue());
     }
 
+    @Test
+    public void testUpsertOfMoreRowsThanBindParameters() {
+
+        // 5000 rows need more than the 32767 bind parameters PostgreSQL allows in one statement
+        final int count = 5000;
+        Date lastUpdated = new Date();
+        String collectorHashId = "91e3a7ff9f5676ed6ae6fcd8a6b455ec";
+        bmpCollectorDao.save(buildBmpCollector(collectorHashId, lastUpdated));
+        BmpRouter bmpRouter = buildBmpRouter(lastUpdated);
+        bmpRouter.setCollectorHashId(collectorHashId);
+        bmpRouterDao.saveOrUpdate(bmpRouter);
+        BmpPeer bmpPeer = buildBmpPeer(lastUpdated);
+        bmpPeer.setBmpRouter(bmpRouter);
+        bmpPeerDao.saveOrUpdate(bmpPeer);
+        bmpPeerDao.flush();
+
+        final List<BmpUnicastPrefix> prefixes = new ArrayList<>(count);
+        final List<BmpIpRibLog> ribLogs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BmpUnicastPrefix bmpUnicastPrefix = buildBmpUnicastPrefix(lastUpdated);
+            bmpUnicastPrefix.setHashId("prefix-" + i);
+            bmpUnicastPrefix.setPrefix(String.format("10.%d.%d.0", i / 256, i % 256));
+            bmpUnicastPrefix.setBmpPeer(bmpPeer);
+            prefixes.add(bmpUnicastPrefix);
+
+            BmpIpRibLog bmpIpRibLog = new BmpIpRibLog();
+            bmpIpRibLog.setPeerHashId(bmpPeer.getHashId());
+            bmpIpRibLog.setBaseAttrHashId(bmpUnicastPrefix.getBaseAttrHashId());
+            bmpIpRibLog.setPrefix(bmpUnicastPrefix.getPrefix());
+            bmpIpRibLog.setPrefixLen(bmpUnicastPrefix.getPrefixLen());
+            bmpIpRibLog.setOriginAs(0L);
+            bmpIpRibLog.setTimestamp(lastUpdated);
+            bmpIpRibLog.setWithDrawn(false);
+            ribLogs.add(bmpIpRibLog);
+        }
+
+        // All prefixes are new, so they are inserted
+        bmpUnicastPrefixDao.upsert(prefixes);
+        bmpIpRibLogDao.insertAll(ribLogs);
+        List<BmpUnicastPrefix> persisted = bmpUnicastPrefixDao.findStatesByHashIds(prefixes.stream()
+                .map(BmpUnicastPrefix::getHashId)
+                .collect(Collectors.toList()));
+        assertEquals(count, persisted.size());
+        assertEquals(count, bmpIpRibLogDao.countAll());
+
+        // With their ids known, they are updated
+        for (BmpUnicastPrefix bmpUnicastPrefix : persisted) {
+            bmpUnicastPrefix.setBmpPeer(bmpPeer);
+            bmpUnicastPrefix.setPrefix("10.0.0.0");
+            bmpUnicastPrefix.setPrefixLen(8);
+            bmpUnicastPrefix.setIpv4(true);
+            bmpUnicastPrefix.setWithDrawn(true);
+            bmpUnicastPrefix.setTimestamp(lastUpdated);
+        }
+        bmpUnicastPrefixDao.upsert(persisted);
+        for (BmpUnicastPrefix bmpUnicastPrefix : bmpUnicastPrefixDao.findStatesByHashIds(prefixes.stream()
+                .map(BmpUnicastPrefix::getHashId)
+                .collect(Collectors.toList()))) {
+            Assert.assertTrue(bmpUnicastPrefix.isWithDrawn());
+        }
+    }
+
     @Test
     public void testRpkiValidator() {
 
@@ -28,6 +28,7 @@
 
 package org.opennms.netmgt.telemetry.protocols.netflow.parser;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
@@ -45,6 +46,8 @@ import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.opennms.core.concurrent.LogPreservingThreadFactory;
 import org.opennms.core.ipc.sink.api.AsyncDispatcher;
@@ -55,6 +58,7 @@ import org.opennms.netmgt.model.events.EventBuilder;
 import org.opennms.netmgt.telemetry.api.receiver.Parser;
 import org.opennms.netmgt.telemetry.api.receiver.TelemetryMessage;
 import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.RecordProvider;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.Value;
 import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.SequenceNumberTracker;
 import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.Session;
 import org.opennms.netmgt.telemetry.protocols.netflow.parser.transport.MessageBuilder;
@@ -71,8 +75,12 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
+import com.google.protobuf.CodedOutputStream;
 import com.swrve.ratelimitedlogger.RateLimitedLog;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
 public abstract class ParserBase implements Parser {
     private static final Logger LOG = LoggerFactory.getLogger(ParserBase.class);
 
@@ -93,6 +101,9 @@ public abstract class ParserBase implements Parser {
 
     private final ThreadLocal<Boolean> isParserThread = new ThreadLocal<>();
 
+    // Builder re-used by the parser threads while serializing the records of a packet in batch mode
+    private final ThreadLocal<FlowMessage.Builder> batchMessageBuilder = ThreadLocal.withInitial(FlowMessage::newBuilder);
+
     private final Protocol protocol;
 
     private final String name;
@@ -121,6 +132,8 @@ public abstract class ParserBase implements Parser {
 
     private final Timer recordEnrichmentTimer;
 
+    private final Timer packetEnrichmentTimer;
+
     private final Counter sequenceErrors;
 
     private final ThreadFactory threadFactory;
@@ -137,6 +150,8 @@ public abstract class ParserBase implements Parser {
 
     private boolean dnsLookupsEnabled = true;
 
+    private boolean batchMode = false;
+
     private LoadingCache<InetAddress, Optional<Instant>> clockSkewEventCache;
 
     private LoadingCache<InetAddress, Optional<Instant>> illegalFlowEventCache;
@@ -180,6 +195,7 @@ public abstract class ParserBase implements Parser {
         recordsCompleted = metricRegistry.meter(MetricRegistry.name("parsers",  name, "recordsCompleted"));
         recordDispatchErrors = metricRegistry.counter(MetricRegistry.name("parsers",  name, "recordDispatchErrors"));
         sequenceErrors = metricRegistry.counter(MetricRegistry.name("parsers", name, "sequenceErrors"));
+        packetEnrichmentTimer = metricRegistry.timer(MetricRegistry.name("parsers",  name, "packetEnrichment"));
 
         // Call setters since these also perform additional handling
         setClockSkewEventRate(DEFAULT_CLOCK_SKEW_EVENT_RATE_SECONDS);
@@ -280,6 +296,14 @@ public abstract class ParserBase implements Parser {
         this.dnsLookupsEnabled = dnsLookupsEnabled;
     }
 
+    public boolean getBatchMode() {
+        return batchMode;
+    }
+
+    public void setBatchMode(boolean batchMode) {
+        this.batchMode = batchMode;
+    }
+
     public int getThreads() {
         return threads;
     }
@@ -298,6 +322,10 @@ public abstract class ParserBase implements Parser {
             this.sequenceErrors.inc();
         }
 
+        if (this.batchMode) {
+            return transmitBatch(packet, session, remoteAddress);
+        }
+
         // The packets are coming in hot - performance here is critical
         //   LOG.trace("Got packet: {}", packet);
         // Perform the record enrichment and serialization in a thread pool allowing these to be parallelized
@@ -336,30 +364,7 @@ public abstract class ParserBase implements Parser {
                         // Check if the flow is valid (and maybe correct it)
                         final List<String> corrections = this.correctFlow(flowMessage);
                         if (!corrections.isEmpty()) {
-                            this.invalidFlows.mark();
-
-                            final Optional<Instant> instant = illegalFlowEventCache.getUnchecked(session.getRemoteAddress());
-
-                            if (!instant.isPresent() || Duration.between(instant.get(), Instant.now()).getSeconds() > getIllegalFlowEventRate()) {
-                                illegalFlowEventCache.put(session.getRemoteAddress(), Optional.of(Instant.now()));
-
-                                eventForwarder.sendNow(new EventBuilder()
-                                        .setUei(ILLEGAL_FLOW_EVENT_UEI)
-                                        .setTime(new Date())
-                                        .setSource(getName())
-                                        .setInterface(session.getRemoteAddress())
-                                        .setDistPoller(identity.getId())
-                                        .addParam("monitoringSystemId", identity.getId())
-                                        .addParam("monitoringSystemLocation", identity.getLocation())
-                                        .setParam("cause", Joiner.on('\n').join(corrections))
-                                        .setParam("protocol", protocol.name())
-                                        .setParam("illegalFlowEventRate", (int) getIllegalFlowEventRate())
-                                        .getEvent());
-
-                                for (final String correction : corrections) {
-                                    LOG.warn("Illegal flow detected from exporter {}: \n{}", session.getRemoteAddress().getAddress(), correction);
-                                }
-                            }
+                            this.illegalFlowDetected(session, corrections);
                         }
 
                         // Build the message to dispatch
@@ -416,6 +421,156 @@ public abstract class ParserBase implements Parser {
         return future;
     }
 
+    /**
+     * Transmits all records of a packet as a single unit.
+     *
+     * In contrast to the per-record path, the records are enriched together (looking up every distinct address only
+     * once), serialized by a single task using a re-used builder into one pooled buffer and tracked by a single
+     * future for the whole packet.
+     */
+    private CompletableFuture<?> transmitBatch(final RecordProvider packet, final Session session, final InetSocketAddress remoteAddress) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        CompletableFuture.supplyAsync(() -> packet.getRecords().collect(Collectors.toList()), executor).whenComplete((records, ex) -> {
+            if (ex != null) {
+                LOG.warn("Error preparing records for dispatch.", ex);
+                future.completeExceptionally(ex);
+                return;
+            }
+
+            if (records.isEmpty()) {
+                future.complete(null);
+                return;
+            }
+
+            this.recordsReceived.mark(records.size());
+
+            final Timer.Context timerContext = packetEnrichmentTimer.time();
+            final RecordEnricher recordEnricher = new RecordEnricher(dnsResolver, getDnsLookupsEnabled());
+            recordEnricher.enrichAll(records).whenComplete((enrichment, exx) -> {
+                timerContext.close();
+                if (exx != null) {
+                    this.recordEnrichmentErrors.inc(records.size());
+                    future.completeExceptionally(exx);
+                    return;
+                }
+
+                final Runnable dispatch = () -> {
+                    try {
+                        dispatchBatch(records, enrichment, session, remoteAddress, future);
+                    } catch (final Exception e) {
+                        LOG.warn("Error preparing records for dispatch.", e);
+                        future.completeExceptionally(e);
+                    }
+                };
+
+                // See transmit() - avoid deadlocks by running in the current thread if it already belongs to the pool
+                if (Boolean.TRUE.equals(isParserThread.get())) {
+                    dispatch.run();
+                } else {
+                    executor.execute(dispatch);
+                }
+
+                this.recordsScheduled.mark(records.size());
+            });
+        });
+
+        return future;
+    }
+
+    private void dispatchBatch(final List<Iterable<Value<?>>> records,
+                               final RecordEnrichment enrichment,
+                               final Session session,
+                               final InetSocketAddress remoteAddress,
+                               final CompletableFuture<Void> future) throws IOException {
+        final FlowMessage.Builder builder = this.batchMessageBuilder.get();
+
+        // Serialize all records into a single pooled buffer - the messages handed to the dispatcher are views on this
+        // buffer, so it is returned to the pool once the dispatcher is done with all of them
+        final int[] offsets = new int[records.size() + 1];
+        ByteBuf buffer = null;
+        try {
+            for (int i = 0; i < records.size(); i++) {
+                builder.clear();
+                final FlowMessage.Builder flowMessage = this.getMessageBuilder().buildMessage(builder, records.get(i), enrichment);
+
+                final List<String> corrections = this.correctFlow(flowMessage);
+                if (!corrections.isEmpty()) {
+                    this.illegalFlowDetected(session, corrections);
+                }
+
+                final FlowMessage message = flowMessage.build();
+                final int size = message.getSerializedSize();
+                if (buffer == null) {
+                    buffer = PooledByteBufAllocator.DEFAULT.heapBuffer(size * records.size());
+                }
+                buffer.ensureWritable(size);
+
+                final int position = buffer.writerIndex();
+                final CodedOutputStream out = CodedOutputStream.newInstance(buffer.array(), buffer.arrayOffset() + position, size);
+                message.writeTo(out);
+                out.checkNoSpaceLeft();
+
+                offsets[i] = position;
+                buffer.writerIndex(position + size);
+            }
+            offsets[records.size()] = buffer.writerIndex();
+        } catch (final IOException | RuntimeException e) {
+            if (buffer != null) {
+                buffer.release();
+            }
+            throw e;
+        }
+
+        final ByteBuf packetBuffer = buffer;
+        final AtomicInteger pending = new AtomicInteger(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            final TelemetryMessage msg = new TelemetryMessage(remoteAddress, ByteBuffer.wrap(packetBuffer.array(), packetBuffer.arrayOffset() + offsets[i], offsets[i + 1] - offsets[i]).slice());
+
+            dispatcher.send(msg).whenComplete((b, ex) -> {
+                if (ex != null) {
+                    this.recordDispatchErrors.inc();
+                    future.completeExceptionally(ex);
+                } else {
+                    this.recordsCompleted.mark();
+                }
+                if (pending.decrementAndGet() == 0) {
+                    packetBuffer.release();
+                    future.complete(null);
+                }
+            });
+
+            recordsDispatched.mark();
+        }
+    }
+
+    private void illegalFlowDetected(final Session session, final List<String> corrections) {
+        this.invalidFlows.mark();
+
+        final Optional<Instant> instant = illegalFlowEventCache.getUnchecked(session.getRemoteAddress());
+
+        if (!instant.isPresent() || Duration.between(instant.get(), Instant.now()).getSeconds() > getIllegalFlowEventRate()) {
+            illegalFlowEventCache.put(session.getRemoteAddress(), Optional.of(Instant.now()));
+
+            eventForwarder.sendNow(new EventBuilder()
+                    .setUei(ILLEGAL_FLOW_EVENT_UEI)
+                    .setTime(new Date())
+                    .setSource(getName())
+                    .setInterface(session.getRemoteAddress())
+                    .setDistPoller(identity.getId())
+                    .addParam("monitoringSystemId", identity.getId())
+                    .addParam("monitoringSystemLocation", identity.getLocation())
+                    .setParam("cause", Joiner.on('\n').join(corrections))
+                    .setParam("protocol", protocol.name())
+                    .setParam("illegalFlowEventRate", (int) getIllegalFlowEventRate())
+                    .getEvent());
+
+            for (final String correction : corrections) {
+                LOG.warn("Illegal flow detected from exporter {}: \n{}", session.getRemoteAddress().getAddress(), correction);
+            }
+        }
+    }
+
     protected void detectClockSkew(final long packetTimestampMs, final InetAddress remoteAddress) {
         if (getMaxClockSkew() > 0) {
             long deltaMs = Math.abs(packetTimestampMs - System.currentTimeMillis());
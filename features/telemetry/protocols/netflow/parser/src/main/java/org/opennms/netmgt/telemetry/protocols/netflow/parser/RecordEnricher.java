@@ -61,6 +61,8 @@ import com.google.common.collect.Sets;
 public class RecordEnricher {
     private static final Logger LOG = LoggerFactory.getLogger(RecordEnricher.class);
 
+    private static final RecordEnrichment EMPTY_ENRICHMENT = new DefaultRecordEnrichment(Collections.<InetAddress, String>emptyMap());
+
     private final DnsResolver dnsResolver;
     private boolean dnsLookupsEnabled;
 
@@ -70,15 +72,24 @@ public class RecordEnricher {
     }
 
     public CompletableFuture<RecordEnrichment> enrich(Iterable<Value<?>> record) {
+        return enrichAll(Collections.singletonList(record));
+    }
+
+    /**
+     * Enriches all the given records at once.
+     *
+     * Addresses are de-duplicated across all records, so every distinct address is looked up only once and the
+     * returned enrichment can be shared by all records of a packet.
+     */
+    public CompletableFuture<RecordEnrichment> enrichAll(Iterable<? extends Iterable<Value<?>>> records) {
         if (!this.dnsLookupsEnabled) {
-            final CompletableFuture<RecordEnrichment> emptyFuture = new CompletableFuture<>();
-            final RecordEnrichment emptyEnrichment = new DefaultRecordEnrichment(Collections.<InetAddress, String>emptyMap());
-            emptyFuture.complete(emptyEnrichment);
-            return emptyFuture;
+            return CompletableFuture.completedFuture(EMPTY_ENRICHMENT);
         }
         final IpAddressCapturingVisitor ipAddressCapturingVisitor = new IpAddressCapturingVisitor();
-        for (final Value<?> value : record) {
-            value.visit(ipAddressCapturingVisitor);
+        for (final Iterable<Value<?>> record : records) {
+            for (final Value<?> value : record) {
+                value.visit(ipAddressCapturingVisitor);
+            }
         }
         final Set<InetAddress> addressesToReverseLookup = ipAddressCapturingVisitor.getAddresses();
         final Map<InetAddress, String> hostnamesByAddress = new HashMap<>(addressesToReverseLookup.size());
@@ -63,7 +63,11 @@ public class IpFixMessageBuilder implements MessageBuilder {
 
     @Override
     public FlowMessage.Builder buildMessage(final Iterable<Value<?>> values, final RecordEnrichment enrichment) {
-        final FlowMessage.Builder builder = FlowMessage.newBuilder();
+        return buildMessage(FlowMessage.newBuilder(), values, enrichment);
+    }
+
+    @Override
+    public FlowMessage.Builder buildMessage(final FlowMessage.Builder builder, final Iterable<Value<?>> values, final RecordEnrichment enrichment) {
         builder.setDirection(Direction.UNKNOWN);
 
         Long exportTime = null;
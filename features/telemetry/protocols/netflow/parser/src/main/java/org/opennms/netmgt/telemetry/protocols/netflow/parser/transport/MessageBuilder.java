@@ -34,4 +34,14 @@ import org.opennms.netmgt.telemetry.protocols.netflow.transport.FlowMessage;
 
 public interface MessageBuilder {
     FlowMessage.Builder buildMessage(final Iterable<Value<?>> values, final RecordEnrichment enrichment);
+
+    /**
+     * Builds the message into the given (empty) builder.
+     *
+     * This allows callers to re-use a single builder for multiple records. Implementations which do not support
+     * this fall back to creating a new builder for every message.
+     */
+    default FlowMessage.Builder buildMessage(final FlowMessage.Builder builder, final Iterable<Value<?>> values, final RecordEnrichment enrichment) {
+        return buildMessage(values, enrichment);
+    }
 }
@@ -50,8 +50,11 @@ import org.opennms.netmgt.telemetry.protocols.netflow.transport.SamplingAlgorith
 public class Netflow5MessageBuilder implements MessageBuilder {
     @Override
     public FlowMessage.Builder buildMessage(final Iterable<Value<?>> values, final RecordEnrichment enrichment) {
-        final FlowMessage.Builder builder = FlowMessage.newBuilder();
+        return buildMessage(FlowMessage.newBuilder(), values, enrichment);
+    }
 
+    @Override
+    public FlowMessage.Builder buildMessage(final FlowMessage.Builder builder, final Iterable<Value<?>> values, final RecordEnrichment enrichment) {
         long unixSecs = 0;
         long unixNSecs = 0;
         long sysUpTime = 0;
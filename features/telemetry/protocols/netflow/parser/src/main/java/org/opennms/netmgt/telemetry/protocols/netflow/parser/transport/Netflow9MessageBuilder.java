@@ -58,7 +58,11 @@ public class Netflow9MessageBuilder implements MessageBuilder {
 
     @Override
     public FlowMessage.Builder buildMessage(final Iterable<Value<?>> values, final RecordEnrichment enrichment) {
-        final FlowMessage.Builder builder = FlowMessage.newBuilder();
+        return buildMessage(FlowMessage.newBuilder(), values, enrichment);
+    }
+
+    @Override
+    public FlowMessage.Builder buildMessage(final FlowMessage.Builder builder, final Iterable<Value<?>> values, final RecordEnrichment enrichment) {
         builder.setDirection(Direction.UNKNOWN);
 
         InetAddress ipv4DstAddress = null;
@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.telemetry.protocols.netflow.parser;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.opennms.core.ipc.sink.api.AsyncDispatcher;
+import org.opennms.distributed.core.api.Identity;
+import org.opennms.netmgt.dnsresolver.api.DnsResolver;
+import org.opennms.netmgt.events.api.EventForwarder;
+import org.opennms.netmgt.telemetry.api.receiver.TelemetryMessage;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.RecordProvider;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.Value;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.IPv4AddressValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.UnsignedValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.SequenceNumberTracker;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.TcpSession;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.transport.MessageBuilder;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.transport.Netflow5MessageBuilder;
+import org.opennms.netmgt.telemetry.protocols.netflow.transport.FlowMessage;
+import org.opennms.netmgt.xml.event.Event;
+import org.opennms.netmgt.xml.event.Log;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.net.InetAddresses;
+
+public class BatchModeTest {
+
+    @Test
+    public void batchModeDispatchesSameMessages() throws Exception {
+        final List<Iterable<Value<?>>> records = records(0, 10);
+
+        final List<FlowMessage> perRecord = transmit(records, false);
+        final List<FlowMessage> batched = transmit(records, true);
+
+        assertThat(batched.size(), is(records.size()));
+        assertThat(batched, is(perRecord));
+    }
+
+    @Test
+    public void batchBuffersAreKeptUntilDispatched() throws Exception {
+        final List<TelemetryMessage> messages = Collections.synchronizedList(new ArrayList<>());
+        final List<CompletableFuture<AsyncDispatcher.DispatchStatus>> dispatches = Collections.synchronizedList(new ArrayList<>());
+        final TestParser parser = new TestParser(message -> {
+            // Keep the view on the buffer of the packet instead of a copy
+            messages.add(message);
+            final CompletableFuture<AsyncDispatcher.DispatchStatus> dispatch = new CompletableFuture<>();
+            dispatches.add(dispatch);
+            return dispatch;
+        });
+        parser.setBatchMode(true);
+        parser.start(null);
+        try {
+            final List<Iterable<Value<?>>> first = records(0, 10);
+            final List<Iterable<Value<?>>> second = records(10, 10);
+
+            final CompletableFuture<?> firstPacket = transmit(parser, first);
+            await().atMost(10, SECONDS).until(messages::size, equalTo(first.size()));
+            final List<FlowMessage> firstExpected = parse(messages);
+
+            // Returned buffers would be handed out again for the second packet
+            for (int i = 0; i < 10; i++) {
+                final int dispatched = messages.size();
+                final CompletableFuture<?> secondPacket = transmit(parser, second);
+                await().atMost(10, SECONDS).until(messages::size, equalTo(dispatched + second.size()));
+                dispatches.subList(dispatched, dispatched + second.size()).forEach(d -> d.complete(AsyncDispatcher.DispatchStatus.DISPATCHED));
+                secondPacket.get(10, SECONDS);
+            }
+
+            assertThat(firstPacket.isDone(), is(false));
+            assertThat(parse(messages.subList(0, first.size())), is(firstExpected));
+
+            dispatches.subList(0, first.size()).forEach(d -> d.complete(AsyncDispatcher.DispatchStatus.DISPATCHED));
+            firstPacket.get(10, SECONDS);
+        } finally {
+            parser.stop();
+        }
+    }
+
+    private static List<Iterable<Value<?>>> records(final int first, final int count) {
+        final List<Iterable<Value<?>>> records = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            final List<Value<?>> record = new ArrayList<>();
+            record.add(new UnsignedValue("@unixSecs", 1_600_000_000L));
+            record.add(new UnsignedValue("@sysUptime", 100_000L));
+            record.add(new IPv4AddressValue("srcAddr", (Inet4Address) InetAddresses.fromInteger(0x0a000000 + i)));
+            record.add(new IPv4AddressValue("dstAddr", (Inet4Address) InetAddresses.fromInteger(0x0a010000 + (i % 3))));
+            record.add(new UnsignedValue("dOctets", 1000 * i));
+            record.add(new UnsignedValue("first", 90_000L));
+            // Every other record is malformed and must be corrected in both modes
+            record.add(new UnsignedValue("last", i % 2 == 0 ? 95_000L : 80_000L));
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static List<FlowMessage> transmit(final List<Iterable<Value<?>>> records, final boolean batchMode) throws Exception {
+        final List<TelemetryMessage> messages = Collections.synchronizedList(new ArrayList<>());
+        final TestParser parser = new TestParser(message -> {
+            // The buffer of a message is only valid until its dispatch completed
+            final ByteBuffer copy = ByteBuffer.allocate(message.getBuffer().remaining());
+            copy.put(message.getBuffer().duplicate()).flip();
+            messages.add(new TelemetryMessage(message.getSource(), copy));
+            return CompletableFuture.completedFuture(AsyncDispatcher.DispatchStatus.DISPATCHED);
+        });
+        parser.setBatchMode(batchMode);
+        parser.setDnsLookupsEnabled(true);
+        parser.start(null);
+        try {
+            transmit(parser, records).get();
+        } finally {
+            parser.stop();
+        }
+
+        return parse(messages);
+    }
+
+    private static CompletableFuture<?> transmit(final TestParser parser, final List<Iterable<Value<?>>> records) {
+        return parser.transmit(new RecordProvider() {
+            @Override
+            public Stream<Iterable<Value<?>>> getRecords() {
+                return records.stream();
+            }
+
+            @Override
+            public long getObservationDomainId() {
+                return 0;
+            }
+
+            @Override
+            public long getSequenceNumber() {
+                return 0;
+            }
+        }, new TcpSession(InetAddress.getLoopbackAddress(), () -> new SequenceNumberTracker(32)),
+           new InetSocketAddress(InetAddress.getLoopbackAddress(), 9999));
+    }
+
+    private static List<FlowMessage> parse(final List<TelemetryMessage> messages) throws Exception {
+        final List<FlowMessage> flows = new ArrayList<>(messages.size());
+        synchronized (messages) {
+            for (final TelemetryMessage message : messages) {
+                flows.add(FlowMessage.parseFrom(message.getBuffer().duplicate()));
+            }
+        }
+        // Records are dispatched in parallel in per-record mode, so compare them in a stable order
+        return flows.stream()
+                .sorted((a, b) -> a.getSrcAddress().compareTo(b.getSrcAddress()))
+                .collect(Collectors.toList());
+    }
+
+    private static class TestParser extends ParserBase {
+        private final MessageBuilder messageBuilder = new Netflow5MessageBuilder();
+
+        TestParser(final Function<TelemetryMessage, CompletableFuture<AsyncDispatcher.DispatchStatus>> dispatcher) {
+            super(Protocol.NETFLOW5, "test", new AsyncDispatcher<TelemetryMessage>() {
+                @Override
+                public CompletableFuture<DispatchStatus> send(TelemetryMessage message) {
+                    return dispatcher.apply(message);
+                }
+
+                @Override
+                public int getQueueSize() {
+                    return 0;
+                }
+
+                @Override
+                public void close() {
+                }
+            }, new EventForwarder() {
+                @Override
+                public void sendNow(Event event) {
+                }
+
+                @Override
+                public void sendNow(Log eventLog) {
+                }
+
+                @Override
+                public void sendNowSync(Event event) {
+                }
+
+                @Override
+                public void sendNowSync(Log eventLog) {
+                }
+            }, new Identity() {
+                @Override
+                public String getId() {
+                    return "myId";
+                }
+
+                @Override
+                public String getLocation() {
+                    return "myLocation";
+                }
+
+                @Override
+                public String getType() {
+                    return "MINION";
+                }
+            }, new DnsResolver() {
+                @Override
+                public CompletableFuture<Optional<InetAddress>> lookup(String hostname) {
+                    return CompletableFuture.completedFuture(Optional.empty());
+                }
+
+                @Override
+                public CompletableFuture<Optional<String>> reverseLookup(InetAddress inetAddress) {
+                    return CompletableFuture.completedFuture(Optional.of("host-" + InetAddresses.toAddrString(inetAddress)));
+                }
+            }, new MetricRegistry());
+        }
+
+        @Override
+        protected MessageBuilder getMessageBuilder() {
+            return messageBuilder;
+        }
+
+        @Override
+        public Object dumpInternalState() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.netmgt.telemetry.protocols.netflow.parser;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opennms.core.ipc.sink.api.AsyncDispatcher;
+import org.opennms.distributed.core.api.Identity;
+import org.opennms.netmgt.dnsresolver.api.DnsResolver;
+import org.opennms.netmgt.events.api.EventForwarder;
+import org.opennms.netmgt.telemetry.api.receiver.TelemetryMessage;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.RecordProvider;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.Value;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.IPv4AddressValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.ie.values.UnsignedValue;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.SequenceNumberTracker;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.Session;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.session.TcpSession;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.transport.MessageBuilder;
+import org.opennms.netmgt.telemetry.protocols.netflow.parser.transport.Netflow5MessageBuilder;
+import org.opennms.netmgt.xml.event.Event;
+import org.opennms.netmgt.xml.event.Log;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.net.InetAddresses;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to compare the per-record and the batch transmit path.
+ * <p>
+ * Every benchmark method call transmits a single Netflow v5 packet with the configured number of records. The
+ * reported number of operations per second must be multiplied by the number of records to get the records per
+ * second. Run with {@code -prof gc} to compare the allocation rate of both paths.
+ */
+public class ParserBaseBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+
+        @Param({"false", "true"})
+        public boolean batchMode;
+
+        @Param({"30"})
+        public int recordsPerPacket;
+
+        private ParserBase parser;
+        private Session session;
+        private RecordProvider packet;
+        private InetSocketAddress remoteAddress;
+
+        @Setup
+        public void setup() {
+            parser = new BenchmarkParser();
+            parser.setBatchMode(batchMode);
+            parser.setDnsLookupsEnabled(false);
+            parser.start(null);
+
+            session = new TcpSession(InetAddress.getLoopbackAddress(), () -> new SequenceNumberTracker(32));
+            remoteAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), 9999);
+
+            final List<Iterable<Value<?>>> records = new ArrayList<>(recordsPerPacket);
+            for (int i = 0; i < recordsPerPacket; i++) {
+                final List<Value<?>> record = new ArrayList<>();
+                record.add(new UnsignedValue("@unixSecs", 1_600_000_000L));
+                record.add(new UnsignedValue("@sysUptime", 100_000L));
+                record.add(new IPv4AddressValue("srcAddr", (Inet4Address) InetAddresses.fromInteger(0x0a000000 + i)));
+                record.add(new IPv4AddressValue("dstAddr", (Inet4Address) InetAddresses.fromInteger(0x0a010000 + i)));
+                record.add(new UnsignedValue("input", 1));
+                record.add(new UnsignedValue("output", 2));
+                record.add(new UnsignedValue("dPkts", 10 + i));
+                record.add(new UnsignedValue("dOctets", 1500 * (10 + i)));
+                record.add(new UnsignedValue("first", 90_000L));
+                record.add(new UnsignedValue("last", 95_000L));
+                record.add(new UnsignedValue("srcPort", 1024 + i));
+                record.add(new UnsignedValue("dstPort", 443));
+                record.add(new UnsignedValue("proto", 6));
+                records.add(record);
+            }
+            packet = new RecordProvider() {
+                @Override
+                public Stream<Iterable<Value<?>>> getRecords() {
+                    return records.stream();
+                }
+
+                @Override
+                public long getObservationDomainId() {
+                    return 0;
+                }
+
+                @Override
+                public long getSequenceNumber() {
+                    return 0;
+                }
+            };
+        }
+
+        @TearDown
+        public void tearDown() {
+            parser.stop();
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public Object transmit(BState state) throws Exception {
+        return state.parser.transmit(state.packet, state.session, state.remoteAddress).get();
+    }
+
+    private static class BenchmarkParser extends ParserBase {
+        private final MessageBuilder messageBuilder = new Netflow5MessageBuilder();
+
+        BenchmarkParser() {
+            super(Protocol.NETFLOW5, "benchmark", new AsyncDispatcher<TelemetryMessage>() {
+                @Override
+                public CompletableFuture<DispatchStatus> send(TelemetryMessage message) {
+                    return CompletableFuture.completedFuture(DispatchStatus.DISPATCHED);
+                }
+
+                @Override
+                public int getQueueSize() {
+                    return 0;
+                }
+
+                @Override
+                public void close() {
+                }
+            }, new EventForwarder() {
+                @Override
+                public void sendNow(Event event) {
+                }
+
+                @Override
+                public void sendNow(Log eventLog) {
+                }
+
+                @Override
+                public void sendNowSync(Event event) {
+                }
+
+                @Override
+                public void sendNowSync(Log eventLog) {
+                }
+            }, new Identity() {
+                @Override
+                public String getId() {
+                    return "benchmark";
+                }
+
+                @Override
+                public String getLocation() {
+                    return "benchmark";
+                }
+
+                @Override
+                public String getType() {
+                    return "MINION";
+                }
+            }, new DnsResolver() {
+                @Override
+                public CompletableFuture<Optional<InetAddress>> lookup(String hostname) {
+                    return CompletableFuture.completedFuture(Optional.empty());
+                }
+
+                @Override
+                public CompletableFuture<Optional<String>> reverseLookup(InetAddress inetAddress) {
+                    return CompletableFuture.completedFuture(Optional.empty());
+                }
+            }, new MetricRegistry());
+        }
+
+        @Override
+        protected MessageBuilder getMessageBuilder() {
+            return messageBuilder;
+        }
+
+        @Override
+        public Object dumpInternalState() {
+            return null;
+        }
+    }
+}
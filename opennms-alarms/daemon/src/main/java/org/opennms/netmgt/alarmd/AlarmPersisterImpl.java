@@ -29,17 +29,24 @@
 package org.opennms.netmgt.alarmd;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.opennms.core.criteria.CriteriaBuilder;
 import org.opennms.core.sysprops.SystemProperties;
 import org.opennms.netmgt.alarmd.api.AlarmPersisterExtension;
 import org.opennms.netmgt.dao.api.AlarmDao;
@@ -77,6 +84,17 @@ public class AlarmPersisterImpl implements AlarmPersister {
     protected static boolean NEW_IF_CLEARED = Boolean.getBoolean("org.opennms.alarmd.newIfClearedAlarmExists");
     protected static boolean LEGACY_ALARM_STATE = Boolean.getBoolean("org.opennms.alarmd.legacyAlarmState");
 
+    /**
+     * Maximum number of events that are persisted in a single transaction. Group commit is disabled
+     * when this is set to 1, in which case every event is persisted in its own transaction.
+     */
+    protected static final Integer BATCH_SIZE = SystemProperties.getInteger("org.opennms.alarmd.batch.size", 1);
+
+    /**
+     * Time in milliseconds to wait for more events to arrive before a partial batch is persisted.
+     */
+    protected static final Long BATCH_DELAY_MS = SystemProperties.getLong("org.opennms.alarmd.batch.delay", 5);
+
     @Autowired
     private AlarmDao m_alarmDao;
 
@@ -100,6 +118,20 @@ public class AlarmPersisterImpl implements AlarmPersister {
     
     private boolean m_legacyAlarmState = LEGACY_ALARM_STATE;
 
+    private int m_batchSize = BATCH_SIZE;
+
+    private long m_batchDelayMs = BATCH_DELAY_MS;
+
+    /**
+     * Events waiting to be persisted by the next group commit, in arrival order. Guarded by itself.
+     */
+    private final List<PendingAlarm> m_pending = new ArrayList<>();
+
+    /**
+     * Set while a caller is collecting and persisting a batch. Guarded by {@link #m_pending}.
+     */
+    private boolean m_flushing = false;
+
     @Override
     public OnmsAlarm persist(Event event) {
         Objects.requireNonNull(event, "Cannot create alarm from null event.");
@@ -111,6 +143,10 @@ public class AlarmPersisterImpl implements AlarmPersister {
             LOG.debug("process: {}; nodeid: {}; ipaddr: {}; serviceid: {}", event.getUei(), event.getNodeid(), event.getInterface(), event.getService());
         }
 
+        if (m_batchSize > 1) {
+            return persistWithGroupCommit(event);
+        }
+
         // Lock both the reduction and clear keys (if set) using a fair striped lock
         // We do this to ensure that clears and triggers are processed in the same order
         // as the calls are made
@@ -119,7 +155,7 @@ public class AlarmPersisterImpl implements AlarmPersister {
         try {
             locks.forEach(Lock::lock);
             // Process the alarm inside a transaction
-            alarm = m_transactionOperations.execute((action) -> addOrReduceEventAsAlarm(event));
+            alarm = m_transactionOperations.execute((action) -> addOrReduceEventAsAlarm(event, Runnable::run));
         } finally {
             locks.forEach(Lock::unlock);
         }
@@ -127,13 +163,193 @@ public class AlarmPersisterImpl implements AlarmPersister {
         return alarm;
     }
 
-    private OnmsAlarm addOrReduceEventAsAlarm(Event event) throws IllegalStateException {
+    /**
+     * Queues the event for the next group commit and waits until it has been persisted.
+     *
+     * The first caller that finds no batch in progress becomes the leader: it waits up to
+     * {@link #m_batchDelayMs} for the batch to fill up and then persists all of the queued events,
+     * in arrival order, within a single transaction. All other callers wait for their event to be
+     * handled by a leader. Since only one batch is persisted at a time, events for the same
+     * reduction or clear key are processed in the same order as the calls are made.
+     */
+    private OnmsAlarm persistWithGroupCommit(Event event) {
+        final PendingAlarm pending = new PendingAlarm(event);
+        synchronized (m_pending) {
+            m_pending.add(pending);
+            if (m_pending.size() >= m_batchSize) {
+                m_pending.notifyAll();
+            }
+        }
+
+        boolean interrupted = false;
+        try {
+            for (;;) {
+                final List<PendingAlarm> batch;
+                synchronized (m_pending) {
+                    while (m_flushing && !pending.done) {
+                        try {
+                            m_pending.wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (pending.done) {
+                        break;
+                    }
+
+                    // We're the leader, give the others a chance to join the batch
+                    m_flushing = true;
+                    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(m_batchDelayMs);
+                    long remaining;
+                    while (m_pending.size() < m_batchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                        try {
+                            TimeUnit.NANOSECONDS.timedWait(m_pending, remaining);
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+
+                    final List<PendingAlarm> head = m_pending.subList(0, Math.min(m_batchSize, m_pending.size()));
+                    batch = new ArrayList<>(head);
+                    head.clear();
+                }
+
+                try {
+                    persistBatch(batch);
+                } finally {
+                    synchronized (m_pending) {
+                        m_flushing = false;
+                        m_pending.notifyAll();
+                    }
+                }
+
+                // Our event may not have fit in the batch, in which case it is still queued for the next one
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (pending.failure != null) {
+            throw pending.failure;
+        }
+        return pending.alarm;
+    }
+
+    /**
+     * Persists the given events within a single transaction.
+     *
+     * The persisted events and the alarms for all of the reduction and clear keys are retrieved
+     * with one query each, and the reductions are then applied in arrival order. Alarms created
+     * while processing the batch are tracked so that later events in the same batch are reduced
+     * into them.
+     *
+     * The {@link AlarmEntityNotifier} callbacks are collected while the batch is processed and invoked
+     * within the transaction once all of the events were flushed successfully. If the batch fails, the
+     * collected callbacks are discarded and the events are retried one at a time, each notifying the
+     * listeners within its own transaction, so that a single bad event only fails its own caller.
+     */
+    private void persistBatch(List<PendingAlarm> batch) {
+        LOG.debug("persistBatch: persisting {} events", batch.size());
+        try {
+            m_transactionOperations.execute((action) -> {
+                final List<Runnable> notifications = new ArrayList<>();
+                final Map<Integer, OnmsEvent> persistedEvents = m_eventDao.findMatching(new CriteriaBuilder(OnmsEvent.class)
+                        .in("id", batch.stream().map(p -> p.event.getDbid()).collect(Collectors.toSet()))
+                        .toCriteria()).stream()
+                        .collect(Collectors.toMap(OnmsEvent::getId, e -> e));
+
+                final Set<String> keys = new LinkedHashSet<>();
+                for (final PendingAlarm pending : batch) {
+                    keys.add(pending.event.getAlarmData().getReductionKey());
+                    if (pending.event.getAlarmData().getClearKey() != null) {
+                        keys.add(pending.event.getAlarmData().getClearKey());
+                    }
+                }
+                final Map<String, OnmsAlarm> alarmsByReductionKey = new HashMap<>();
+                keys.forEach(key -> alarmsByReductionKey.put(key, null));
+                keys.remove(null);
+                if (!keys.isEmpty()) {
+                    m_alarmDao.findMatching(new CriteriaBuilder(OnmsAlarm.class).in("reductionKey", keys).toCriteria())
+                            .forEach(alarm -> alarmsByReductionKey.put(alarm.getReductionKey(), alarm));
+                }
+
+                // Keys we haven't seen yet, i.e. related reduction keys, are retrieved on demand
+                final Function<String, OnmsAlarm> alarmLookup = key -> {
+                    if (!alarmsByReductionKey.containsKey(key)) {
+                        alarmsByReductionKey.put(key, m_alarmDao.findByReductionKey(key));
+                    }
+                    return alarmsByReductionKey.get(key);
+                };
+
+                for (final PendingAlarm pending : batch) {
+                    final OnmsEvent persistedEvent = persistedEvents.get(pending.event.getDbid());
+                    if (persistedEvent == null) {
+                        pending.failure = new IllegalStateException("Event with id " + pending.event.getDbid() + " was deleted before we could retrieve it and create an alarm.");
+                        continue;
+                    }
+                    final OnmsAlarm alarm = addOrReduceEventAsAlarm(pending.event, persistedEvent, alarmLookup, notifications::add);
+                    alarmsByReductionKey.put(alarm.getReductionKey(), alarm);
+                    pending.alarm = alarm;
+                }
+
+                // Only notify the listeners once the whole batch made it to the database
+                m_alarmDao.flush();
+                fireNotifications(notifications);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            LOG.warn("persistBatch: failed to persist batch of {} events, retrying them one at a time", batch.size(), e);
+            for (final PendingAlarm pending : batch) {
+                persistPending(pending);
+            }
+        } finally {
+            batch.forEach(pending -> pending.done = true);
+        }
+    }
+
+    /**
+     * Persists a single event of a failed batch within its own transaction.
+     */
+    private void persistPending(PendingAlarm pending) {
+        try {
+            pending.alarm = m_transactionOperations.execute((action) -> addOrReduceEventAsAlarm(pending.event, Runnable::run));
+            pending.failure = null;
+        } catch (RuntimeException e) {
+            LOG.warn("persistPending: failed to persist event with id {}", pending.event.getDbid(), e);
+            pending.alarm = null;
+            pending.failure = e;
+        }
+    }
+
+    private static void fireNotifications(List<Runnable> notifications) {
+        for (final Runnable notification : notifications) {
+            try {
+                notification.run();
+            } catch (RuntimeException e) {
+                LOG.error("An error occurred while notifying the alarm entity listeners.", e);
+            }
+        }
+    }
+
+    private OnmsAlarm addOrReduceEventAsAlarm(Event event, Consumer<Runnable> notifications) throws IllegalStateException {
         
         final OnmsEvent persistedEvent = m_eventDao.get(event.getDbid());
         if (persistedEvent == null) {
             throw new IllegalStateException("Event with id " + event.getDbid() + " was deleted before we could retrieve it and create an alarm.");
         }
 
+        return addOrReduceEventAsAlarm(event, persistedEvent, m_alarmDao::findByReductionKey, notifications);
+    }
+
+    /**
+     * Creates a new alarm for the event, or reduces the event into an existing one.
+     *
+     * The {@link AlarmEntityNotifier} callbacks are handed to the given consumer, which either runs
+     * them right away or defers them until the rest of the batch was processed.
+     */
+    private OnmsAlarm addOrReduceEventAsAlarm(Event event, OnmsEvent persistedEvent, Function<String, OnmsAlarm> alarmLookup, Consumer<Runnable> notifications) {
         final String reductionKey = event.getAlarmData().getReductionKey();
         LOG.debug("addOrReduceEventAsAlarm: looking for existing reduction key: {}", reductionKey);
         
@@ -146,11 +362,11 @@ public class AlarmPersisterImpl implements AlarmPersister {
             didSwapReductionKeyWithClearKey = true;
         }
 
-        OnmsAlarm alarm = m_alarmDao.findByReductionKey(key);
+        OnmsAlarm alarm = alarmLookup.apply(key);
 
         if (alarm == null && didSwapReductionKeyWithClearKey) {
             // if the clearKey returns null, still need to check the reductionKey
-            alarm = m_alarmDao.findByReductionKey(reductionKey);
+            alarm = alarmLookup.apply(reductionKey);
         }
 
         if (alarm == null || (m_createNewAlarmIfClearedAlarmExists && OnmsSeverity.CLEARED.equals(alarm.getSeverity()))) {
@@ -165,10 +381,11 @@ public class AlarmPersisterImpl implements AlarmPersister {
                 m_alarmDao.save(alarm);
                 m_alarmDao.flush();
 
-                m_alarmEntityNotifier.didArchiveAlarm(alarm, reductionKey);
+                final OnmsAlarm archivedAlarm = alarm;
+                notifications.accept(() -> m_alarmEntityNotifier.didArchiveAlarm(archivedAlarm, reductionKey));
             }
 
-            alarm = createNewAlarm(persistedEvent, event);
+            alarm = createNewAlarm(persistedEvent, event, alarmLookup);
 
             // Trigger extensions, allowing them to mangle the alarm
             try {
@@ -181,10 +398,11 @@ public class AlarmPersisterImpl implements AlarmPersister {
             m_alarmDao.save(alarm);
             m_eventDao.saveOrUpdate(persistedEvent);
 
-            m_alarmEntityNotifier.didCreateAlarm(alarm);
+            final OnmsAlarm createdAlarm = alarm;
+            notifications.accept(() -> m_alarmEntityNotifier.didCreateAlarm(createdAlarm));
         } else {
             LOG.debug("addOrReduceEventAsAlarm: reductionKey:{} found, reducing event to existing alarm: {}", reductionKey, alarm.getId());
-            reduceEvent(persistedEvent, alarm, event);
+            reduceEvent(persistedEvent, alarm, event, alarmLookup);
 
             // Trigger extensions, allowing them to mangle the alarm
             try {
@@ -201,12 +419,13 @@ public class AlarmPersisterImpl implements AlarmPersister {
                 m_eventDao.deletePreviousEventsForAlarm(alarm.getId(), persistedEvent);
             }
 
-            m_alarmEntityNotifier.didUpdateAlarmWithReducedEvent(alarm);
+            final OnmsAlarm reducedAlarm = alarm;
+            notifications.accept(() -> m_alarmEntityNotifier.didUpdateAlarmWithReducedEvent(reducedAlarm));
         }
         return alarm;
     }
 
-    private void reduceEvent(OnmsEvent persistedEvent, OnmsAlarm alarm, Event event) {
+    private void reduceEvent(OnmsEvent persistedEvent, OnmsAlarm alarm, Event event, Function<String, OnmsAlarm> alarmLookup) {
         // Always set these
         alarm.setLastEvent(persistedEvent);
         alarm.setLastEventTime(persistedEvent.getEventTime());
@@ -297,14 +516,14 @@ public class AlarmPersisterImpl implements AlarmPersister {
             }
         }
 
-        updateRelatedAlarms(alarm, event);
+        updateRelatedAlarms(alarm, event, alarmLookup);
 
         persistedEvent.setAlarm(alarm);
     }
     
-    private void updateRelatedAlarms(OnmsAlarm alarm, Event event) {
+    private void updateRelatedAlarms(OnmsAlarm alarm, Event event, Function<String, OnmsAlarm> alarmLookup) {
         // Retrieve the related alarms as given by the event parameters
-        final Set<OnmsAlarm> relatedAlarms = getRelatedAlarms(event.getParmCollection());
+        final Set<OnmsAlarm> relatedAlarms = getRelatedAlarms(event.getParmCollection(), alarmLookup);
         // Index these by id
         final Map<Integer, OnmsAlarm> relatedAlarmsByIds = relatedAlarms.stream()
                 .collect(Collectors.toMap(OnmsAlarm::getId, a -> a));
@@ -349,10 +568,10 @@ public class AlarmPersisterImpl implements AlarmPersister {
         return Objects.equals(event.getAlarmData().getAlarmType(), Integer.valueOf(OnmsAlarm.RESOLUTION_TYPE));
     }
 
-    private OnmsAlarm createNewAlarm(OnmsEvent e, Event event) {
+    private OnmsAlarm createNewAlarm(OnmsEvent e, Event event, Function<String, OnmsAlarm> alarmLookup) {
         OnmsAlarm alarm = new OnmsAlarm();
         // Situations are denoted by the existance of related-reductionKeys
-        alarm.setRelatedAlarms(getRelatedAlarms(event.getParmCollection()), event.getTime());
+        alarm.setRelatedAlarms(getRelatedAlarms(event.getParmCollection(), alarmLookup), event.getTime());
         alarm.setAlarmType(event.getAlarmData().getAlarmType());
         alarm.setClearKey(event.getAlarmData().getClearKey());
         alarm.setCounter(1);
@@ -386,13 +605,13 @@ public class AlarmPersisterImpl implements AlarmPersister {
                 relatedAlarm.getRelatedAlarms().stream().anyMatch(ra -> formingCyclicGraph(situation, ra));
     }
     
-    private Set<OnmsAlarm> getRelatedAlarms(List<Parm> list) {
+    private Set<OnmsAlarm> getRelatedAlarms(List<Parm> list, Function<String, OnmsAlarm> alarmLookup) {
         if (list == null || list.isEmpty()) {
             return Collections.emptySet();
         }
         Set<String> reductionKeys = list.stream().filter(AlarmPersisterImpl::isRelatedReductionKeyWithContent).map(p -> p.getValue().getContent()).collect(Collectors.toSet());
         // Only existing alarms are returned. Reduction Keys for non-existing alarms are dropped.
-        return reductionKeys.stream().map(reductionKey -> m_alarmDao.findByReductionKey(reductionKey)).filter(Objects::nonNull).collect(Collectors.toSet());
+        return reductionKeys.stream().map(alarmLookup).filter(Objects::nonNull).collect(Collectors.toSet());
     }
 
     private static boolean isRelatedReductionKeyWithContent(Parm param) {
@@ -527,4 +746,31 @@ public class AlarmPersisterImpl implements AlarmPersister {
     public void setLegacyAlarmState(boolean legacyAlarmState) {
         m_legacyAlarmState = legacyAlarmState;
     }
+
+    public int getBatchSize() {
+        return m_batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        m_batchSize = batchSize;
+    }
+
+    public long getBatchDelayMs() {
+        return m_batchDelayMs;
+    }
+
+    public void setBatchDelayMs(long batchDelayMs) {
+        m_batchDelayMs = batchDelayMs;
+    }
+
+    private static class PendingAlarm {
+        private final Event event;
+        private volatile OnmsAlarm alarm;
+        private volatile RuntimeException failure;
+        private volatile boolean done = false;
+
+        private PendingAlarm(Event event) {
+            this.event = event;
+        }
+    }
 }
@@ -743,6 +743,34 @@ public class AlarmdIT implements TemporaryDatabaseAware<MockDatabase>, Initializ
 
     }
     
+    @Test
+    public void testPersistManyAlarmsWithGroupCommit() throws Exception {
+        AlarmPersisterImpl persisterImpl = (AlarmPersisterImpl)m_alarmd.getPersister();
+
+        // Enable group commit
+        persisterImpl.setBatchSize(8);
+        persisterImpl.setBatchDelayMs(50);
+        try {
+            final MockNode node = m_mockNetwork.getNode(1);
+
+            // There should be no alarms in the alarms table
+            assertEmptyAlarmTable();
+
+            // Interleave two reduction keys, these should end up in the same batches
+            for (int i = 0; i < 10; i++) {
+                sendNodeDownEvent("groupCommitA", node);
+                sendNodeDownEvent("groupCommitB", node);
+            }
+
+            // We should have two alarms, each reduced ten times
+            await().atMost(10, SECONDS).until(getNumAlarmsCallable(), equalTo(2));
+            await().atMost(10, SECONDS).until(() -> m_alarmDao.findByReductionKey("groupCommitA").getCounter(), equalTo(10));
+            await().atMost(10, SECONDS).until(() -> m_alarmDao.findByReductionKey("groupCommitB").getCounter(), equalTo(10));
+        } finally {
+            persisterImpl.setBatchSize(1);
+        }
+    }
+
     private Callable<Integer> getNumAlarmsCallable() {
         return () -> m_alarmDao.countAll();
     }
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.xml.eventconf;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled index over the event definitions of a single {@link Events} element.
+ *
+ * For every definition, a single mask element that can cheaply rule the definition out is selected and the
+ * definition is indexed by the exact values or the prefixes ({@code %} wildcards) of that element. Definitions
+ * without such an element (i.e. only using regular expressions) are always considered. Candidates are visited in
+ * priority order, so the first matching candidate is the same definition a linear scan would have returned.
+ *
+ * Instances are immutable once built.
+ */
+public class EventMatcherIndex {
+
+    private final Partition m_partition;
+
+    /** The event definitions in priority order - positions in this array are used as bits in the candidate sets */
+    private final Event[] m_events;
+
+    /** The partition keys of each definition or {@code null} if the definition belongs to all partitions */
+    private final List<List<String>> m_partitionKeys;
+
+    /** Definitions that must always be tested */
+    private final BitSet m_unindexed = new BitSet();
+
+    private final Map<String, FieldIndex> m_fieldIndexes = new HashMap<>();
+
+    public EventMatcherIndex(final List<Event> events, final Partition partition) {
+        m_partition = partition;
+
+        final List<Event> sortedEvents = new ArrayList<>(events);
+        Collections.sort(sortedEvents);
+
+        m_events = sortedEvents.toArray(new Event[0]);
+        m_partitionKeys = new ArrayList<>(m_events.length);
+
+        for (int i = 0; i < m_events.length; i++) {
+            final Event event = m_events[i];
+
+            // Prioritized definitions are tested regardless of their partition
+            m_partitionKeys.add(event.getPriority() > 0 ? null : partition.group(event));
+
+            final Mask mask = event.getMask();
+            if (mask == null || mask.getMaskelements().isEmpty()) {
+                // The definition is matched by UEI only and can never match if it doesn't have one
+                if (event.getUei() != null) {
+                    fieldIndex(Maskelement.TAG_UEI).addExact(event.getUei(), i);
+                }
+                continue;
+            }
+
+            final Maskelement element = selectIndexedElement(mask);
+            if (element == null) {
+                m_unindexed.set(i);
+                continue;
+            }
+
+            final FieldIndex fieldIndex = fieldIndex(element.getMename());
+            for (final String value : element.getMevalues()) {
+                if (value == null) {
+                    continue;
+                }
+                if (value.endsWith("%")) {
+                    fieldIndex.addPrefix(value.substring(0, value.length() - 1), i);
+                } else {
+                    fieldIndex.addExact(value, i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the first event definition in priority order matching the given event.
+     *
+     * @param matchingEvent the event to match
+     * @return the matching event definition or {@code null} if none matches
+     */
+    public Event findFirstMatchingEvent(final org.opennms.netmgt.xml.event.Event matchingEvent) {
+        final BitSet candidates = (BitSet) m_unindexed.clone();
+        for (final FieldIndex fieldIndex : m_fieldIndexes.values()) {
+            fieldIndex.collect(matchingEvent, candidates);
+        }
+
+        final String key = m_partition.group(matchingEvent);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            final List<String> partitionKeys = m_partitionKeys.get(i);
+            if (partitionKeys != null && (key == null || !partitionKeys.contains(key))) {
+                continue;
+            }
+
+            final Event event = m_events[i];
+            if (event.matches(matchingEvent).matched()) {
+                return event;
+            }
+        }
+
+        return null;
+    }
+
+    public int size() {
+        return m_events.length;
+    }
+
+    public int getUnindexedCount() {
+        return m_unindexed.cardinality();
+    }
+
+    private FieldIndex fieldIndex(final String name) {
+        return m_fieldIndexes.computeIfAbsent(name, FieldIndex::new);
+    }
+
+    /**
+     * Selects the mask element used to index the definition.
+     *
+     * Only elements without regular expressions qualify. Elements with exact values only are preferred over ones
+     * using prefixes and the more selective fields are preferred over the others.
+     */
+    private static Maskelement selectIndexedElement(final Mask mask) {
+        Maskelement selected = null;
+        int selectedRank = Integer.MAX_VALUE;
+        for (final Maskelement element : mask.getMaskelements()) {
+            final int rank = rank(element);
+            if (rank < selectedRank) {
+                selected = element;
+                selectedRank = rank;
+            }
+        }
+        return selected;
+    }
+
+    private static int rank(final Maskelement element) {
+        final String name = element.getMename();
+        if (name == null) {
+            return Integer.MAX_VALUE;
+        }
+        try {
+            EventMatchers.field(name);
+        } catch (final IllegalStateException e) {
+            return Integer.MAX_VALUE;
+        }
+
+        boolean hasValue = false;
+        boolean hasPrefix = false;
+        for (final String value : element.getMevalues()) {
+            if (value == null) {
+                continue;
+            }
+            if (value.startsWith("~")) {
+                return Integer.MAX_VALUE;
+            }
+            hasValue = true;
+            hasPrefix |= value.endsWith("%");
+        }
+        if (!hasValue) {
+            return Integer.MAX_VALUE;
+        }
+
+        final int fieldRank;
+        switch (name) {
+            case Maskelement.TAG_UEI:
+                fieldRank = 0;
+                break;
+            case Maskelement.TAG_SNMP_EID:
+                fieldRank = 1;
+                break;
+            case Maskelement.TAG_SNMP_SPECIFIC:
+                fieldRank = 2;
+                break;
+            case Maskelement.TAG_SNMP_GENERIC:
+                fieldRank = 4;
+                break;
+            default:
+                fieldRank = 3;
+        }
+        return (hasPrefix ? 10 : 0) + fieldRank;
+    }
+
+    private static class FieldIndex {
+        private final Field m_field;
+        private final Map<String, BitSet> m_exact = new HashMap<>();
+        private PrefixNode m_prefixes;
+
+        private FieldIndex(final String name) {
+            m_field = EventMatchers.field(name);
+        }
+
+        private void addExact(final String value, final int index) {
+            m_exact.computeIfAbsent(value, v -> new BitSet()).set(index);
+        }
+
+        private void addPrefix(final String prefix, final int index) {
+            if (m_prefixes == null) {
+                m_prefixes = new PrefixNode();
+            }
+            PrefixNode node = m_prefixes;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.m_children.computeIfAbsent(prefix.charAt(i), c -> new PrefixNode());
+            }
+            if (node.m_events == null) {
+                node.m_events = new BitSet();
+            }
+            node.m_events.set(index);
+        }
+
+        private void collect(final org.opennms.netmgt.xml.event.Event matchingEvent, final BitSet candidates) {
+            final String value = m_field.get(matchingEvent);
+            if (value == null) {
+                return;
+            }
+
+            final BitSet exact = m_exact.get(value);
+            if (exact != null) {
+                candidates.or(exact);
+            }
+
+            // Walk down the trie along the value and collect all definitions with a prefix of the value
+            PrefixNode node = m_prefixes;
+            for (int i = 0; node != null; i++) {
+                if (node.m_events != null) {
+                    candidates.or(node.m_events);
+                }
+                if (i == value.length()) {
+                    break;
+                }
+                node = node.m_children.get(value.charAt(i));
+            }
+        }
+    }
+
+    private static class PrefixNode {
+        private final Map<Character, PrefixNode> m_children = new HashMap<>();
+        private BitSet m_events;
+    }
+}
@@ -38,8 +38,6 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -49,7 +47,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -103,13 +100,7 @@ public class Events implements Serializable {
     private Map<String, Events> m_loadedEventFiles = new LinkedHashMap<>();
 
     @XmlTransient
-    private Partition m_partition;
-
-    @XmlTransient
-    private Map<String, List<Event>> m_partitionedEvents;
-
-    @XmlTransient
-    private List<Event> m_nullPartitionedEvents;
+    private transient volatile EventMatcherIndex m_matcherIndex;
 
     @XmlTransient
     private Map<String, Event> m_eventsByUei = new ConcurrentSkipListMap<>();
@@ -250,30 +241,6 @@ public class Events implements Serializable {
         return m_global != null && m_global.isSecureTag(tag);
     }
 
-    private void partitionEvents(final Partition partition) {
-        m_partition = partition;
-
-        m_partitionedEvents = new LinkedHashMap<>();
-        m_nullPartitionedEvents = new ArrayList<>();
-
-        for (final Event event : m_events) {
-            final List<String> keys = partition.group(event);
-            if (keys == null) {
-                m_nullPartitionedEvents.add(event);
-            } else {
-                for (final String key : keys) {
-                    List<Event> events = m_partitionedEvents.computeIfAbsent(key, k -> new ArrayList<Event>());
-                    events.add(event);
-                }
-            }
-        }
-
-        // Place all the partitioned and nullPartitioned event definitions in priority order.
-        m_partitionedEvents.values().forEach(Collections::sort);
-        Collections.sort(m_nullPartitionedEvents);
-    }
-
-
     public Event findFirstMatchingEvent(final org.opennms.netmgt.xml.event.Event matchingEvent) {
         // Atempt to match the event definition by UEI
         final String ueiToMatch = matchingEvent.getUei();
@@ -284,21 +251,10 @@ public class Events implements Serializable {
             }
         }
 
-        // If the UEI match failed, fallback to searching with the matchers through the partitions
-        final String key = m_partition.group(matchingEvent);
-        Collection<Event> potentialMatches = m_nullPartitionedEvents;
-        if (key != null) {
-            final List<Event> events = m_partitionedEvents.get(key);
-            if (events != null) {
-                potentialMatches = new TreeSet<Event>(m_nullPartitionedEvents);
-                potentialMatches.addAll(events);
-            }
-        }
-
-        for (final Event event : potentialMatches) {
-            if (event.matches(matchingEvent).matched()) {
-                return event;
-            }
+        // If the UEI match failed, fallback to the index which only tests the definitions that can possibly match
+        final Event matchedEvent = m_matcherIndex.findFirstMatchingEvent(matchingEvent);
+        if (matchedEvent != null) {
+            return matchedEvent;
         }
 
         for (Events subEvents : m_loadedEventFiles.values()) {
@@ -369,8 +325,6 @@ public class Events implements Serializable {
             event.initialize(m_ordering.next());
         }
 
-        partitionEvents(partition);
-
         for (final Events events : m_loadedEventFiles.values()) {
             events.initialize(partition, m_ordering.subsequence());
         }
@@ -383,10 +337,9 @@ public class Events implements Serializable {
         m_events.addAll(prioritizedEvents);
         m_events.sort(Comparator.naturalOrder());
 
-        // Also add to unpartitioned events for first crack when not using a UEI match
-        m_nullPartitionedEvents.removeAll(prioritizedEvents); // prevent duplicates
-        m_nullPartitionedEvents.addAll(prioritizedEvents);
-        m_nullPartitionedEvents.sort(Comparator.naturalOrder());
+        // Build the index used when not using a UEI match - prioritized events get the first crack regardless of
+        // their partition. The index is swapped in as a whole, so concurrent lookups see either the old or the new one.
+        m_matcherIndex = new EventMatcherIndex(m_events, partition);
 
         indexEventsByUei();
     }
@@ -159,6 +159,15 @@ public interface SyslogdConfig {
      */
     boolean shouldIncludeRawSyslogmessage();
 
+    /**
+     * Returns the generation of the configuration. The generation changes whenever the lists
+     * returned by {@link #getUeiList()} and {@link #getHideMessages()} may have changed, so that
+     * anything derived from the rules can be kept until the next change.
+     *
+     * @return the generation of the configuration
+     */
+    long getGeneration();
+
     /**
      * reload configuration
      * @throws IOException
@@ -68,6 +68,11 @@ public final class SyslogdConfigFactory implements SyslogdConfig {
 
     private ConfigReloadContainer<SyslogdConfigurationGroup> m_extContainer;
 
+    /**
+     * Incremented whenever the config is reloaded
+     */
+    private long m_generation;
+
     /**
      * Private constructor
      *
@@ -103,6 +108,7 @@ public final class SyslogdConfigFactory implements SyslogdConfig {
         File configFile = ConfigFileConstants.getFile(ConfigFileConstants.SYSLOGD_CONFIG_FILE_NAME);
         m_config = JaxbUtils.unmarshal(SyslogdConfiguration.class, new FileSystemResource(configFile));
         parseIncludedFiles();
+        m_generation++;
     }
 
     /**
@@ -188,6 +194,11 @@ public final class SyslogdConfigFactory implements SyslogdConfig {
     public synchronized List<HideMatch> getHideMessages() {
         return m_config.getHideMatches();
     }
+
+    @Override
+    public synchronized long getGeneration() {
+        return m_generation;
+    }
     
     /**
      * <p>getDiscardUei</p>
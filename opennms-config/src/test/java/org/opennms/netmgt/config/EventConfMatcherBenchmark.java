@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opennms.netmgt.xml.eventconf.Event;
+import org.opennms.netmgt.xml.eventconf.Events;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to measure event definition lookups against the stock eventconf.
+ * <p>
+ * A mix of events generated from the stock definitions is replayed against the indexed lookup of the DAO and
+ * against a linear scan over all definitions in priority order. Every benchmark method call processes the whole
+ * mix, so the reported number of operations per second must be multiplied by {@link #MIX_SIZE} to get the number
+ * of lookups per second.
+ */
+public class EventConfMatcherBenchmark {
+
+    private static final int MIX_SIZE = 10000;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        private DefaultEventConfDao eventConfDao;
+        private List<org.opennms.netmgt.xml.event.Event> eventMix;
+        private List<List<Event>> sortedLevels;
+
+        @Setup
+        public void setup() throws Exception {
+            eventConfDao = EventMatcherIndexTest.loadStockEventConf();
+            eventMix = EventMatcherIndexTest.generateEventMix(eventConfDao, MIX_SIZE, 1234L);
+
+            final Events root = eventConfDao.getRootEvents();
+            sortedLevels = new ArrayList<>();
+            sortedLevels.add(sorted(root.getEvents()));
+            for (final String eventFile : root.getEventFiles()) {
+                sortedLevels.add(sorted(root.getLoadEventsByFile(eventFile).getEvents()));
+            }
+        }
+
+        private static List<Event> sorted(final List<Event> events) {
+            final List<Event> sorted = new ArrayList<>(events);
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void indexed(BState state, Blackhole blackhole) {
+        for (final org.opennms.netmgt.xml.event.Event event : state.eventMix) {
+            blackhole.consume(state.eventConfDao.findByEvent(event));
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void linearScan(BState state, Blackhole blackhole) {
+        for (final org.opennms.netmgt.xml.event.Event event : state.eventMix) {
+            blackhole.consume(linearScan(state.sortedLevels, event));
+        }
+    }
+
+    private static Event linearScan(final List<List<Event>> levels, final org.opennms.netmgt.xml.event.Event matchingEvent) {
+        for (final List<Event> level : levels) {
+            for (final Event event : level) {
+                if (event.matches(matchingEvent).matched()) {
+                    return event;
+                }
+            }
+        }
+        return null;
+    }
+}
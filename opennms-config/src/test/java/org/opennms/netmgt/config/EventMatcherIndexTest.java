@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.config;
+
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opennms.core.test.ConfigurationTestUtils;
+import org.opennms.netmgt.model.events.EventBuilder;
+import org.opennms.netmgt.xml.event.Snmp;
+import org.opennms.netmgt.xml.eventconf.Event;
+import org.opennms.netmgt.xml.eventconf.EventMatcherIndex;
+import org.opennms.netmgt.xml.eventconf.Events;
+import org.opennms.netmgt.xml.eventconf.Maskelement;
+import org.opennms.netmgt.xml.eventconf.Partition;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * Verifies that the {@link EventMatcherIndex} returns the same definitions as a linear scan in priority order
+ * using the stock event configuration.
+ */
+public class EventMatcherIndexTest {
+
+    private static final Partition NO_PARTITION = new Partition() {
+        @Override
+        public List<String> group(Event eventConf) {
+            return null;
+        }
+
+        @Override
+        public String group(org.opennms.netmgt.xml.event.Event matchingEvent) {
+            return null;
+        }
+    };
+
+    private DefaultEventConfDao eventConfDao;
+
+    @Before
+    public void setUp() throws Exception {
+        eventConfDao = loadStockEventConf();
+    }
+
+    @Test
+    public void canMatchSameDefinitionsAsLinearScan() {
+        final List<org.opennms.netmgt.xml.event.Event> eventMix = generateEventMix(eventConfDao, 5000, 42L);
+
+        final List<Events> levels = new ArrayList<>();
+        levels.add(eventConfDao.getRootEvents());
+        for (final String eventFile : eventConfDao.getRootEvents().getEventFiles()) {
+            levels.add(eventConfDao.getRootEvents().getLoadEventsByFile(eventFile));
+        }
+
+        for (final Events level : levels) {
+            final EventMatcherIndex index = new EventMatcherIndex(level.getEvents(), NO_PARTITION);
+
+            final List<Event> sortedEvents = new ArrayList<>(level.getEvents());
+            Collections.sort(sortedEvents);
+
+            for (final org.opennms.netmgt.xml.event.Event matchingEvent : eventMix) {
+                Event expected = null;
+                for (final Event event : sortedEvents) {
+                    if (event.matches(matchingEvent).matched()) {
+                        expected = event;
+                        break;
+                    }
+                }
+                assertThat(index.findFirstMatchingEvent(matchingEvent), sameInstance(expected));
+            }
+        }
+    }
+
+    public static DefaultEventConfDao loadStockEventConf() throws Exception {
+        final DefaultEventConfDao eventConfDao = new DefaultEventConfDao();
+        eventConfDao.setConfigResource(new FileSystemResource(ConfigurationTestUtils.getFileForConfigFile("eventconf.xml")));
+        eventConfDao.afterPropertiesSet();
+        return eventConfDao;
+    }
+
+    /**
+     * Generates a mix of events based on the mask elements of the given event definitions.
+     *
+     * Most of the events match a definition, the remaining ones are built from random values which are unlikely to
+     * match anything but the catch-all definitions.
+     */
+    public static List<org.opennms.netmgt.xml.event.Event> generateEventMix(final DefaultEventConfDao eventConfDao, final int count, final long seed) {
+        final Random random = new Random(seed);
+        final List<Event> definitions = eventConfDao.getAllEvents();
+
+        final List<org.opennms.netmgt.xml.event.Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(10) == 0) {
+                final EventBuilder eb = new EventBuilder(null, "bench");
+                final Snmp snmp = new Snmp();
+                snmp.setId(".1.3.6.1.4.1." + random.nextInt(100000));
+                snmp.setGeneric(6);
+                snmp.setSpecific(random.nextInt(100));
+                final org.opennms.netmgt.xml.event.Event event = eb.getEvent();
+                event.setSnmp(snmp);
+                events.add(event);
+                continue;
+            }
+
+            final Event definition = definitions.get(random.nextInt(definitions.size()));
+            if (definition.getMask() == null || definition.getMask().getMaskelements().isEmpty()) {
+                events.add(new EventBuilder(definition.getUei(), "bench").getEvent());
+                continue;
+            }
+
+            final EventBuilder eb = new EventBuilder(null, "bench");
+            final org.opennms.netmgt.xml.event.Event event = eb.getEvent();
+            for (final Maskelement element : definition.getMask().getMaskelements()) {
+                final List<String> values = element.getMevalues();
+                if (values.isEmpty()) {
+                    continue;
+                }
+                String value = values.get(random.nextInt(values.size()));
+                if (value == null || value.startsWith("~")) {
+                    continue;
+                }
+                if (value.endsWith("%")) {
+                    value = value.substring(0, value.length() - 1) + random.nextInt(10);
+                }
+                setField(eb, event, element.getMename(), value);
+            }
+            events.add(eb.getEvent());
+        }
+        return events;
+    }
+
+    private static void setField(final EventBuilder eb, final org.opennms.netmgt.xml.event.Event event, final String name, final String value) {
+        if (name.startsWith("parm[") && name.endsWith("]")) {
+            eb.addParam(name.substring(5, name.length() - 1), value);
+            return;
+        }
+        if (event.getSnmp() == null) {
+            event.setSnmp(new Snmp());
+        }
+        try {
+            switch (name) {
+                case Maskelement.TAG_UEI: event.setUei(value); break;
+                case Maskelement.TAG_SOURCE: event.setSource(value); break;
+                case Maskelement.TAG_NODEID: event.setNodeid(Long.parseLong(value)); break;
+                case Maskelement.TAG_HOST: event.setHost(value); break;
+                case Maskelement.TAG_INTERFACE: event.setInterface(value); break;
+                case Maskelement.TAG_SNMPHOST: event.setSnmphost(value); break;
+                case Maskelement.TAG_SERVICE: event.setService(value); break;
+                case Maskelement.TAG_SNMP_EID: event.getSnmp().setId(value); break;
+                case Maskelement.TAG_SNMP_TRAPOID: event.getSnmp().setTrapOID(value); break;
+                case Maskelement.TAG_SNMP_SPECIFIC: event.getSnmp().setSpecific(Integer.parseInt(value)); break;
+                case Maskelement.TAG_SNMP_GENERIC: event.getSnmp().setGeneric(Integer.parseInt(value)); break;
+                case Maskelement.TAG_SNMP_COMMUNITY: event.getSnmp().setCommunity(value); break;
+                default: break;
+            }
+        } catch (final NumberFormatException e) {
+            // Leave the field unset
+        }
+    }
+}
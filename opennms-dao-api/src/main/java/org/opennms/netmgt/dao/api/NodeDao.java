@@ -104,6 +104,15 @@ public interface NodeDao extends LegacyOnmsDao<OnmsNode, Integer> {
      * @return a {@link org.opennms.netmgt.model.OnmsNode} object.
      */
     OnmsNode getHierarchy(Integer id);
+
+    /**
+     * Loads the nodes with the given IDs together with their assets, categories, meta-data, interfaces
+     * and services. The number of queries does not depend on the number of nodes.
+     *
+     * @param ids the IDs of the nodes to load
+     * @return the nodes which exist
+     */
+    List<OnmsNode> getHierarchies(Collection<Integer> ids);
     
     /**
      * <p>getForeignIdToNodeIdMap</p>
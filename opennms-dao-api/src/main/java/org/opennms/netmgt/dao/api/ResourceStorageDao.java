@@ -151,4 +151,18 @@ public interface ResourceStorageDao {
      * Retrieves the meta-data stored at the given path.
      */
     public Map<String,String> getMetaData(ResourcePath path);
+
+    /**
+     * Notifies the DAO that metrics were persisted to the resource with the given name
+     * at the given path, i.e. the .rrd or .jrb file name without the extension.
+     *
+     * Strategies which keep track of the available resources can use this to update
+     * their view of the tree without having to rescan the storage.
+     *
+     * @param path resource path, including the repository
+     * @param metricName name of the persisted resource
+     */
+    public default void metricsPersisted(ResourcePath path, String metricName) {
+        // Nothing to do by default
+    }
 }
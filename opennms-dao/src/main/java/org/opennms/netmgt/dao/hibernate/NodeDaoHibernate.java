@@ -182,6 +182,52 @@ public class NodeDaoHibernate extends AbstractDaoHibernate<OnmsNode, Integer> im
 
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<OnmsNode> getHierarchies(final Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return getHibernateTemplate().execute(new HibernateCallback<List<OnmsNode>>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public List<OnmsNode> doInHibernate(Session session) throws HibernateException, SQLException {
+                final List<OnmsNode> nodes = session.createQuery("select distinct n from OnmsNode as n "
+                        + "left join fetch n.assetRecord "
+                        + "left join fetch n.ipInterfaces as iface "
+                        + "left join fetch iface.monitoredServices as monSvc "
+                        + "left join fetch monSvc.serviceType "
+                        + "where n.id in (:ids)")
+                        .setParameterList("ids", ids)
+                        .list();
+
+                // the remaining collections are fetched by separate queries to avoid a cartesian product,
+                // the session initializes the collections of the nodes loaded above
+                session.createQuery("select distinct n from OnmsNode as n left join fetch n.categories where n.id in (:ids)")
+                        .setParameterList("ids", ids)
+                        .list();
+                session.createQuery("select distinct n from OnmsNode as n left join fetch n.metaData where n.id in (:ids)")
+                        .setParameterList("ids", ids)
+                        .list();
+                session.createQuery("select distinct n from OnmsNode as n "
+                        + "left join fetch n.snmpInterfaces as snmpIface "
+                        + "left join fetch snmpIface.ipInterfaces "
+                        + "where n.id in (:ids)")
+                        .setParameterList("ids", ids)
+                        .list();
+                session.createQuery("select distinct iface from OnmsIpInterface as iface left join fetch iface.metaData where iface.node.id in (:ids)")
+                        .setParameterList("ids", ids)
+                        .list();
+                session.createQuery("select distinct monSvc from OnmsMonitoredService as monSvc left join fetch monSvc.metaData where monSvc.ipInterface.node.id in (:ids)")
+                        .setParameterList("ids", ids)
+                        .list();
+
+                return nodes;
+            }
+        });
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<OnmsNode> findByLabel(String label) {
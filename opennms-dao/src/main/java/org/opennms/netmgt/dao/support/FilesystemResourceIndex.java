@@ -0,0 +1,677 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.dao.support;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory index of the metric files stored below the RRD directory.
+ * <p>
+ * The directory tree is mirrored by a trie of nodes, one per directory, each holding the names of the
+ * metric files it contains. The trie is built in parallel when the index is started and kept up to date
+ * by the persistence layer (see {@link #addMetric(Path, String)} and {@link #remove(Path)}) and by a
+ * {@link WatchService} which picks up changes made by other processes.
+ * <p>
+ * Directories which can not be watched, typically once the inotify limit is reached, are still indexed, but
+ * lookups list them again when their listing is older than the rescan interval. Changes made by other processes
+ * below such directories are therefore picked up with a delay, while the rest of the tree is unaffected.
+ * <p>
+ * Lookups may only be served from the index once {@link #recordLookup()} returns true. Until the initial
+ * build completes, and while rebuilding after the watcher lost events, callers must fall back to the filesystem.
+ * Rebuilds run on their own thread, so the watcher keeps processing events in the meantime.
+ */
+public class FilesystemResourceIndex implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FilesystemResourceIndex.class);
+
+    // Rough per-entry footprints used to estimate the heap used by the trie
+    private static final long NODE_BYTES = 256;
+    private static final long METRIC_BYTES = 64;
+    private static final long STRING_BYTES = 40;
+
+    private final Path m_root;
+    private final String m_extension;
+    private final int m_threads;
+    private final long m_rescanIntervalMs;
+
+    private volatile Node m_rootNode = new Node();
+    private volatile boolean m_available = false;
+    private volatile boolean m_closed = false;
+
+    private final Map<WatchKey, Path> m_watchKeys = new ConcurrentHashMap<>();
+    private WatchService m_watchService;
+    private ForkJoinPool m_pool;
+    private ExecutorService m_rebuilder;
+    private Thread m_thread;
+
+    /**
+     * Guards the transitions between rebuilding and serving lookups.
+     */
+    private final Object m_rebuildLock = new Object();
+    private boolean m_rebuildRequested = false;
+    private volatile boolean m_rebuilding = false;
+    /**
+     * Paths changed while rebuilding, which are applied to the new trie once it is in place.
+     */
+    private final Queue<Path> m_pending = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder m_hits = new LongAdder();
+    private final LongAdder m_misses = new LongAdder();
+    private final AtomicLong m_watchFailures = new AtomicLong();
+
+    public FilesystemResourceIndex(final Path root, final String extension, final int threads, final long rescanIntervalMs) {
+        m_root = root.toAbsolutePath();
+        m_extension = extension;
+        m_threads = Math.max(1, threads);
+        m_rescanIntervalMs = Math.max(0, rescanIntervalMs);
+    }
+
+    /**
+     * Builds the index in a background thread and starts watching for changes in another.
+     */
+    public synchronized void start() throws IOException {
+        if (m_thread != null) {
+            return;
+        }
+        m_watchService = FileSystems.getDefault().newWatchService();
+        m_pool = new ForkJoinPool(m_threads);
+        m_rebuilder = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "FilesystemResourceIndex-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        requestRebuild();
+        m_thread = new Thread(this::run, "FilesystemResourceIndex");
+        m_thread.setDaemon(true);
+        m_thread.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        m_closed = true;
+        m_available = false;
+        if (m_thread != null) {
+            m_thread.interrupt();
+            m_thread = null;
+        }
+        if (m_watchService != null) {
+            try {
+                m_watchService.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close the watch service.", e);
+            }
+        }
+        if (m_rebuilder != null) {
+            m_rebuilder.shutdownNow();
+        }
+        if (m_pool != null) {
+            m_pool.shutdownNow();
+        }
+        m_watchKeys.clear();
+        m_pending.clear();
+    }
+
+    private void run() {
+        try {
+            while (!m_closed) {
+                final WatchKey key = m_watchService.take();
+                processEvents(key);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            LOG.debug("Stopped watching {}.", m_root);
+        } catch (Exception e) {
+            failed(e);
+        }
+    }
+
+    private void failed(final Exception e) {
+        if (!m_closed) {
+            LOG.warn("Failed to maintain the resource index for {}. Resource lookups will use the filesystem.", m_root, e);
+            close();
+        }
+    }
+
+    /**
+     * Schedules a rebuild of the trie, unless one is already waiting to run. Lookups fall back to the
+     * filesystem until it completes.
+     */
+    private void requestRebuild() {
+        synchronized (m_rebuildLock) {
+            if (m_closed || m_rebuildRequested) {
+                return;
+            }
+            m_rebuildRequested = true;
+            m_rebuilding = true;
+            m_available = false;
+        }
+        try {
+            m_rebuilder.execute(() -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    failed(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Not rebuilding the resource index for {}, it is closed.", m_root);
+        }
+    }
+
+    private void rebuild() throws IOException {
+        synchronized (m_rebuildLock) {
+            m_rebuildRequested = false;
+        }
+        final long start = System.currentTimeMillis();
+        if (!Files.isDirectory(m_root)) {
+            // Nothing to watch, keep using the filesystem
+            LOG.warn("{} is not a directory. Resource lookups will use the filesystem.", m_root);
+            synchronized (m_rebuildLock) {
+                m_rebuilding = m_rebuildRequested;
+            }
+            return;
+        }
+        final Node rootNode = new Node();
+        scan(m_root, rootNode);
+        m_rootNode = rootNode;
+        synchronized (m_rebuildLock) {
+            // Another overflow while scanning, keep recording changes for the next rebuild
+            if (!m_rebuildRequested) {
+                m_rebuilding = false;
+            }
+        }
+        // Changes seen while scanning may have been applied to the previous trie only
+        Path pending;
+        while ((pending = m_pending.poll()) != null) {
+            apply(pending);
+        }
+        synchronized (m_rebuildLock) {
+            m_available = !m_closed && !m_rebuilding;
+        }
+        LOG.info("Indexed {} metric files in {} directories below {} in {}ms.",
+                getMetricFileCount(), getNodeCount(), m_root, System.currentTimeMillis() - start);
+    }
+
+    private void scan(final Path dir, final Node node) throws IOException {
+        try {
+            m_pool.invoke(new ScanTask(dir, node));
+        } catch (IndexException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void processEvents(final WatchKey key) throws IOException {
+        final Path dir = m_watchKeys.get(key);
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                LOG.info("Missed filesystem events below {}. Rebuilding the resource index.", m_root);
+                requestRebuild();
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+            final Path child = dir.resolve((Path) event.context());
+            if (m_rebuilding) {
+                m_pending.add(child);
+            }
+            apply(child);
+        }
+        if (!key.reset()) {
+            m_watchKeys.remove(key);
+        }
+    }
+
+    /**
+     * Brings the entry for the given path in line with the filesystem.
+     */
+    private void apply(final Path child) throws IOException {
+        final Path relative = m_root.relativize(child);
+        if (Files.isDirectory(child)) {
+            scan(child, getOrCreate(relative));
+        } else if (isMetricFile(child)) {
+            addMetric(relative.getParent(), child.getFileName().toString());
+        } else if (!Files.exists(child)) {
+            remove(relative);
+        }
+    }
+
+    /**
+     * Records a lookup against the index.
+     *
+     * @return true if the lookup can be served by the index, false if the caller must use the filesystem
+     */
+    public boolean recordLookup() {
+        if (m_available) {
+            m_hits.increment();
+            return true;
+        }
+        m_misses.increment();
+        return false;
+    }
+
+    public boolean isAvailable() {
+        return m_available;
+    }
+
+    /**
+     * @see org.opennms.netmgt.dao.api.ResourceStorageDao#exists(org.opennms.netmgt.model.ResourcePath, int)
+     */
+    public boolean exists(final Path relative, final int depth) {
+        return exists(lookup(relative), toAbsolute(relative), depth);
+    }
+
+    /**
+     * @see org.opennms.netmgt.dao.api.ResourceStorageDao#existsWithin(org.opennms.netmgt.model.ResourcePath, int)
+     */
+    public boolean existsWithin(final Path relative, final int depth) {
+        return existsWithin(lookup(relative), toAbsolute(relative), depth);
+    }
+
+    /**
+     * Returns the names of the child directories which contain one or more metric files at the given depth.
+     *
+     * @see org.opennms.netmgt.dao.api.ResourceStorageDao#children(org.opennms.netmgt.model.ResourcePath, int)
+     */
+    public Set<String> children(final Path relative, final int depth) {
+        final Node node = lookup(relative);
+        if (node == null) {
+            return Collections.emptySet();
+        }
+        final Path dir = toAbsolute(relative);
+        return node.children.entrySet().stream()
+                .filter(e -> exists(e.getValue(), dir.resolve(e.getKey()), depth - 1))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Adds a metric file, and any missing parent directories, to the index.
+     *
+     * @param relative directory of the metric file, relative to the RRD directory
+     * @param fileName name of the metric file, including the extension
+     */
+    public void addMetric(final Path relative, final String fileName) {
+        getOrCreate(relative).metrics.add(fileName);
+    }
+
+    /**
+     * Removes a directory, or a metric file, and everything below it from the index.
+     *
+     * @param relative path relative to the RRD directory
+     */
+    public void remove(final Path relative) {
+        if (isRoot(relative)) {
+            m_rootNode = new Node();
+            return;
+        }
+        final Node parent = find(relative.getParent());
+        if (parent != null) {
+            final String name = relative.getFileName().toString();
+            parent.children.remove(name);
+            parent.metrics.remove(name);
+        }
+    }
+
+    public long getHits() {
+        return m_hits.sum();
+    }
+
+    public long getMisses() {
+        return m_misses.sum();
+    }
+
+    /**
+     * @return the fraction of lookups which were served by the index
+     */
+    public double getHitRate() {
+        final long hits = getHits();
+        final long total = hits + getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public long getNodeCount() {
+        return count(m_rootNode, false);
+    }
+
+    public long getMetricFileCount() {
+        return count(m_rootNode, true);
+    }
+
+    /**
+     * @return the number of directories which could not be watched, and are rescanned on lookup instead
+     */
+    public long getUnwatchedNodeCount() {
+        return countUnwatched(m_rootNode);
+    }
+
+    /**
+     * @return a rough estimate of the heap used by the index, in bytes
+     */
+    public long getEstimatedSizeInBytes() {
+        return estimateSize(m_rootNode);
+    }
+
+    private boolean exists(final Node node, final Path dir, final int depth) {
+        if (node == null) {
+            return false;
+        }
+        refresh(node, dir);
+        if (depth == 0) {
+            return !node.metrics.isEmpty();
+        }
+        for (final Map.Entry<String, Node> child : node.children.entrySet()) {
+            if (exists(child.getValue(), dir.resolve(child.getKey()), depth - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean existsWithin(final Node node, final Path dir, final int depth) {
+        if (depth < 0 || node == null) {
+            return false;
+        }
+        refresh(node, dir);
+        if (!node.metrics.isEmpty()) {
+            return true;
+        }
+        for (final Map.Entry<String, Node> child : node.children.entrySet()) {
+            if (existsWithin(child.getValue(), dir.resolve(child.getKey()), depth - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long count(final Node node, final boolean metrics) {
+        long count = metrics ? node.metrics.size() : 1;
+        for (final Node child : node.children.values()) {
+            count += count(child, metrics);
+        }
+        return count;
+    }
+
+    private static long countUnwatched(final Node node) {
+        long count = node.watched ? 0 : 1;
+        for (final Node child : node.children.values()) {
+            count += countUnwatched(child);
+        }
+        return count;
+    }
+
+    private static long estimateSize(final Node node) {
+        long size = NODE_BYTES;
+        for (final String metric : node.metrics) {
+            size += METRIC_BYTES + STRING_BYTES + 2L * metric.length();
+        }
+        for (final Map.Entry<String, Node> child : node.children.entrySet()) {
+            size += STRING_BYTES + 2L * child.getKey().length() + estimateSize(child.getValue());
+        }
+        return size;
+    }
+
+    /**
+     * Finds the node of the given directory, listing unwatched directories along the way when they are stale.
+     */
+    private Node lookup(final Path relative) {
+        Node node = m_rootNode;
+        Path dir = m_root;
+        refresh(node, dir);
+        if (isRoot(relative)) {
+            return node;
+        }
+        for (final Path element : relative) {
+            node = node.children.get(element.toString());
+            if (node == null) {
+                return null;
+            }
+            dir = dir.resolve(element);
+            refresh(node, dir);
+        }
+        return node;
+    }
+
+    private Node find(final Path relative) {
+        Node node = m_rootNode;
+        if (isRoot(relative)) {
+            return node;
+        }
+        for (final Path element : relative) {
+            node = node.children.get(element.toString());
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private Node getOrCreate(final Path relative) {
+        Node node = m_rootNode;
+        if (isRoot(relative)) {
+            return node;
+        }
+        for (final Path element : relative) {
+            // Directories created below an unwatched one produce no events, so they must be listed on lookup
+            final boolean watched = node.watched;
+            node = node.children.computeIfAbsent(element.toString(), k -> watched ? new Node() : Node.unlisted());
+        }
+        return node;
+    }
+
+    private Path toAbsolute(final Path relative) {
+        return isRoot(relative) ? m_root : m_root.resolve(relative);
+    }
+
+    private static boolean isRoot(final Path relative) {
+        return relative == null || relative.toString().isEmpty();
+    }
+
+    private boolean isMetricFile(final Path path) {
+        return path.getFileName().toString().endsWith(m_extension) && Files.isRegularFile(path);
+    }
+
+    /**
+     * Lists an unwatched directory again if its last listing is older than the rescan interval. Directories
+     * found by the listing are listed in turn when a lookup reaches them.
+     */
+    private void refresh(final Node node, final Path dir) {
+        if (!node.isStale(m_rescanIntervalMs)) {
+            return;
+        }
+        synchronized (node) {
+            if (!node.isStale(m_rescanIntervalMs)) {
+                return;
+            }
+            try {
+                watch(dir, node);
+                final Set<String> dirs = new HashSet<>();
+                final Set<String> metrics = new HashSet<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                    for (final Path entry : stream) {
+                        final String name = entry.getFileName().toString();
+                        if (Files.isDirectory(entry)) {
+                            dirs.add(name);
+                            node.children.computeIfAbsent(name, k -> Node.unlisted());
+                        } else if (name.endsWith(m_extension) && Files.isRegularFile(entry)) {
+                            metrics.add(name);
+                            node.metrics.add(name);
+                        }
+                    }
+                }
+                node.children.keySet().retainAll(dirs);
+                node.metrics.retainAll(metrics);
+            } catch (NoSuchFileException | NotDirectoryException e) {
+                node.children.clear();
+                node.metrics.clear();
+            } catch (IOException e) {
+                LOG.debug("Failed to list {}. Keeping the previous listing.", dir, e);
+            }
+        }
+    }
+
+    /**
+     * Watches the given directory. A directory which can not be watched is marked as such and is listed
+     * again on lookup.
+     */
+    private void watch(final Path dir, final Node node) throws NoSuchFileException, NotDirectoryException {
+        try {
+            register(dir);
+            node.watched = true;
+        } catch (NoSuchFileException | NotDirectoryException e) {
+            throw e;
+        } catch (IOException e) {
+            // Typically once the inotify limit (fs.inotify.max_user_watches) is exhausted
+            if (m_watchFailures.getAndIncrement() == 0) {
+                LOG.warn("Failed to watch {}. Directories which can not be watched are listed again on lookup every {}ms.",
+                        dir, m_rescanIntervalMs, e);
+            } else {
+                LOG.debug("Failed to watch {}.", dir, e);
+            }
+            node.watched = false;
+        }
+        node.listedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Registers the directory with the watch service. Overridden by tests to simulate exhausted watches.
+     */
+    void register(final Path dir) throws IOException {
+        final WatchService watchService = m_watchService;
+        if (watchService == null || m_closed) {
+            return;
+        }
+        final WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE);
+        m_watchKeys.put(key, dir);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+        private final Set<String> metrics = ConcurrentHashMap.newKeySet();
+        private volatile boolean watched = true;
+        private volatile long listedAt;
+
+        /**
+         * Creates the node of a directory below an unwatched parent, which is listed on the next lookup.
+         */
+        private static Node unlisted() {
+            final Node node = new Node();
+            node.watched = false;
+            return node;
+        }
+
+        private boolean isStale(final long rescanIntervalMs) {
+            return !watched && System.currentTimeMillis() - listedAt >= rescanIntervalMs;
+        }
+    }
+
+    private class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path m_dir;
+        private final Node m_node;
+
+        private ScanTask(final Path dir, final Node node) {
+            m_dir = dir;
+            m_node = node;
+        }
+
+        @Override
+        protected void compute() {
+            final List<ScanTask> subtasks = new ArrayList<>();
+            try {
+                // Watch before listing so that entries created in between are not missed
+                watch(m_dir, m_node);
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(m_dir)) {
+                    for (final Path entry : stream) {
+                        final String name = entry.getFileName().toString();
+                        if (Files.isDirectory(entry)) {
+                            subtasks.add(new ScanTask(entry, m_node.children.computeIfAbsent(name, k -> new Node())));
+                        } else if (name.endsWith(m_extension) && Files.isRegularFile(entry)) {
+                            m_node.metrics.add(name);
+                        }
+                    }
+                }
+            } catch (NoSuchFileException | NotDirectoryException e) {
+                // Removed while scanning, the watcher takes care of the parent
+                return;
+            } catch (IOException e) {
+                throw new IndexException(e);
+            }
+            invokeAll(subtasks);
+        }
+    }
+
+    private static class IndexException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private IndexException(final IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
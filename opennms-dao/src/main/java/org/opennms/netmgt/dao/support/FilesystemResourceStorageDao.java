@@ -34,8 +34,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -49,6 +51,7 @@ import org.opennms.netmgt.rrd.RrdStrategy;
 import org.opennms.netmgt.rrd.RrdMetaDataUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -60,9 +63,12 @@ import com.google.common.collect.Maps;
  * Used in conjunction with RRD/JRB strategies that persist
  * metrics to the local disk.
  *
+ * When the index is enabled, lookups are served from a {@link FilesystemResourceIndex}
+ * instead of walking the RRD directory.
+ *
  * @author jwhite
  */
-public class FilesystemResourceStorageDao implements ResourceStorageDao, InitializingBean {
+public class FilesystemResourceStorageDao implements ResourceStorageDao, InitializingBean, DisposableBean {
 
     private static final Logger LOG = LoggerFactory.getLogger(FilesystemResourceStorageDao.class);
 
@@ -73,27 +79,63 @@ public class FilesystemResourceStorageDao implements ResourceStorageDao, Initial
 
     private File m_rrdDirectory;
 
+    private boolean m_indexEnabled = false;
+
+    private int m_indexThreads = Runtime.getRuntime().availableProcessors();
+
+    private long m_indexRescanInterval = TimeUnit.MINUTES.toMillis(5);
+
+    private FilesystemResourceIndex m_index;
+
     @Override
     public void afterPropertiesSet() throws Exception {
         BeanUtils.assertAutowiring(this);
         setRrdExtension(m_rrdStrategy.getDefaultFileExtension());
+        if (m_indexEnabled && m_index == null) {
+            Objects.requireNonNull(m_rrdDirectory, "rrdDirectory must be set to enable the index");
+            m_index = new FilesystemResourceIndex(m_rrdDirectory.toPath(), RRD_EXTENSION, m_indexThreads, m_indexRescanInterval);
+            m_index.start();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (m_index != null) {
+            m_index.close();
+            m_index = null;
+        }
     }
 
     @Override
     public boolean exists(ResourcePath path, int depth) {
         Preconditions.checkArgument(depth >= 0, "depth must be non-negative");
+        final FilesystemResourceIndex index = m_index;
+        if (index != null && index.recordLookup()) {
+            return index.exists(ResourcePath.resourceToFilesystemPath(path), depth);
+        }
         return exists(toPath(path), depth);
     }
 
     @Override
     public boolean existsWithin(ResourcePath path, int depth) {
         Preconditions.checkArgument(depth >= 0, "depth must be non-negative");
+        final FilesystemResourceIndex index = m_index;
+        if (index != null && index.recordLookup()) {
+            return index.existsWithin(ResourcePath.resourceToFilesystemPath(path), depth);
+        }
         return existsWithin(toPath(path), depth);
     }
 
     @Override
     public Set<ResourcePath> children(ResourcePath path, int depth) {
         Preconditions.checkArgument(depth > 0, "depth must be positive");
+        final FilesystemResourceIndex index = m_index;
+        if (index != null && index.recordLookup()) {
+            return index.children(ResourcePath.resourceToFilesystemPath(path), depth).stream()
+                    .map(name -> ResourcePath.get(path, name))
+                    .collect(Collectors.toSet());
+        }
+
         final Path root = toPath(path);
         if (!Files.isDirectory(root)) {
             return Collections.emptySet();
@@ -147,7 +189,18 @@ public class FilesystemResourceStorageDao implements ResourceStorageDao, Initial
 
     @Override
     public boolean delete(ResourcePath path) {
-        return FileUtils.deleteQuietly(toPath(path).toFile());
+        final boolean deleted = FileUtils.deleteQuietly(toPath(path).toFile());
+        if (m_index != null) {
+            m_index.remove(ResourcePath.resourceToFilesystemPath(path));
+        }
+        return deleted;
+    }
+
+    @Override
+    public void metricsPersisted(ResourcePath path, String metricName) {
+        if (m_index != null) {
+            m_index.addMetric(ResourcePath.resourceToFilesystemPath(path), metricName + RRD_EXTENSION);
+        }
     }
 
     private boolean exists(Path root, int depth) {
@@ -192,6 +245,33 @@ public class FilesystemResourceStorageDao implements ResourceStorageDao, Initial
         return m_rrdDirectory;
     }
 
+    public void setIndexEnabled(boolean indexEnabled) {
+        m_indexEnabled = indexEnabled;
+    }
+
+    public boolean isIndexEnabled() {
+        return m_indexEnabled;
+    }
+
+    public void setIndexThreads(int indexThreads) {
+        m_indexThreads = indexThreads;
+    }
+
+    /**
+     * Sets how long, in milliseconds, the listing of a directory which the index could not watch is used
+     * before it is listed again.
+     */
+    public void setIndexRescanInterval(long indexRescanInterval) {
+        m_indexRescanInterval = indexRescanInterval;
+    }
+
+    /**
+     * Returns the resource index, or null if it is disabled.
+     */
+    public FilesystemResourceIndex getIndex() {
+        return m_index;
+    }
+
     public void setRrdStrategy(RrdStrategy<?, ?> rrdStrategy) {
         m_rrdStrategy = rrdStrategy;
         setRrdExtension(m_rrdStrategy.getDefaultFileExtension());
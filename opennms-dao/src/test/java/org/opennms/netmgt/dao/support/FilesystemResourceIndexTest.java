@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.dao.support;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opennms.netmgt.model.ResourcePath;
+import org.opennms.netmgt.rrd.RrdStrategy;
+import org.opennms.netmgt.rrd.jrobin.JRobinRrdStrategy;
+
+public class FilesystemResourceIndexTest {
+
+    private FilesystemResourceStorageDao m_fsResourceStorageDao = new FilesystemResourceStorageDao();
+
+    private String m_rrdFileExtension;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        RrdStrategy<?, ?> rrdStrategy = new JRobinRrdStrategy();
+        m_rrdFileExtension = rrdStrategy.getDefaultFileExtension();
+
+        // Existing tree: a/b/c/ds.jrb and an empty folder a/d
+        new File(tempFolder.newFolder("a", "b", "c"), "ds" + m_rrdFileExtension).createNewFile();
+        tempFolder.newFolder("a", "d");
+
+        m_fsResourceStorageDao.setRrdDirectory(tempFolder.getRoot());
+        m_fsResourceStorageDao.setRrdStrategy(rrdStrategy);
+        m_fsResourceStorageDao.setIndexEnabled(true);
+        m_fsResourceStorageDao.setIndexThreads(2);
+        m_fsResourceStorageDao.afterPropertiesSet();
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> m_fsResourceStorageDao.getIndex().isAvailable());
+    }
+
+    @After
+    public void tearDown() {
+        m_fsResourceStorageDao.destroy();
+    }
+
+    @Test
+    public void canServeLookupsFromIndex() {
+        assertTrue(m_fsResourceStorageDao.exists(ResourcePath.get("a", "b", "c"), 0));
+        assertTrue(m_fsResourceStorageDao.exists(ResourcePath.get("a"), 2));
+        assertFalse(m_fsResourceStorageDao.exists(ResourcePath.get("a"), 1));
+        assertFalse(m_fsResourceStorageDao.exists(ResourcePath.get("a", "d"), 0));
+        assertFalse(m_fsResourceStorageDao.exists(ResourcePath.get("should", "not", "exist"), 0));
+
+        assertFalse(m_fsResourceStorageDao.existsWithin(ResourcePath.get("a"), 1));
+        assertTrue(m_fsResourceStorageDao.existsWithin(ResourcePath.get("a"), 2));
+
+        assertEquals(Collections.singleton(ResourcePath.get("a", "b")), m_fsResourceStorageDao.children(ResourcePath.get("a"), 2));
+        assertEquals(Collections.emptySet(), m_fsResourceStorageDao.children(ResourcePath.get("a"), 1));
+
+        final FilesystemResourceIndex index = m_fsResourceStorageDao.getIndex();
+        assertEquals(9, index.getHits());
+        assertEquals(0, index.getMisses());
+        assertEquals(1.0, index.getHitRate(), 0.0);
+        assertEquals(1, index.getMetricFileCount());
+        // Root, a, a/b, a/b/c and a/d
+        assertEquals(5, index.getNodeCount());
+        assertTrue(index.getEstimatedSizeInBytes() > 0);
+    }
+
+    @Test
+    public void canTrackPersistedMetricsAndDeletes() {
+        // The file is not on disk, so the change can only come from the notification
+        m_fsResourceStorageDao.metricsPersisted(ResourcePath.get("x", "y"), "ds");
+        assertTrue(m_fsResourceStorageDao.exists(ResourcePath.get("x", "y"), 0));
+        assertTrue(m_fsResourceStorageDao.exists(ResourcePath.get("x"), 1));
+
+        assertTrue(m_fsResourceStorageDao.delete(ResourcePath.get("a", "b")));
+        assertFalse(m_fsResourceStorageDao.exists(ResourcePath.get("a"), 2));
+        assertFalse(m_fsResourceStorageDao.existsWithin(ResourcePath.get("a"), 3));
+    }
+
+    @Test
+    public void canPickUpExternalChanges() throws IOException {
+        // Metric file created in a folder which is already indexed
+        final File rrd = new File(tempFolder.getRoot(), "a/d/ds" + m_rrdFileExtension);
+        rrd.createNewFile();
+        await().atMost(30, TimeUnit.SECONDS).until(() -> m_fsResourceStorageDao.exists(ResourcePath.get("a", "d"), 0), equalTo(true));
+
+        // Metric file created in a new folder
+        new File(tempFolder.newFolder("e", "f"), "ds" + m_rrdFileExtension).createNewFile();
+        await().atMost(30, TimeUnit.SECONDS).until(() -> m_fsResourceStorageDao.exists(ResourcePath.get("e"), 1), equalTo(true));
+
+        // Metric file removed
+        assertTrue(rrd.delete());
+        await().atMost(30, TimeUnit.SECONDS).until(() -> m_fsResourceStorageDao.exists(ResourcePath.get("a", "d"), 0), equalTo(false));
+    }
+
+    @Test
+    public void canListDirectoriesWhichCanNotBeWatched() throws IOException {
+        final Path unwatched = tempFolder.getRoot().toPath().resolve(Paths.get("a", "d"));
+        final FilesystemResourceIndex index = new FilesystemResourceIndex(tempFolder.getRoot().toPath(), m_rrdFileExtension, 2, 100) {
+            @Override
+            void register(Path dir) throws IOException {
+                if (dir.startsWith(unwatched)) {
+                    throw new IOException("User limit of inotify watches reached");
+                }
+                super.register(dir);
+            }
+        };
+        try {
+            index.start();
+            await().atMost(10, TimeUnit.SECONDS).until(index::isAvailable);
+            assertEquals(1, index.getUnwatchedNodeCount());
+            assertTrue(index.exists(Paths.get("a", "b", "c"), 0));
+            assertFalse(index.exists(Paths.get("a", "d"), 1));
+
+            // Changes below the unwatched directory show up once its listing is stale
+            new File(tempFolder.newFolder("a", "d", "g"), "ds" + m_rrdFileExtension).createNewFile();
+            await().atMost(30, TimeUnit.SECONDS).until(() -> index.exists(Paths.get("a", "d"), 1), equalTo(true));
+            assertEquals(2, index.getUnwatchedNodeCount());
+
+            // The rest of the tree is still watched
+            new File(tempFolder.newFolder("e"), "ds" + m_rrdFileExtension).createNewFile();
+            await().atMost(30, TimeUnit.SECONDS).until(() -> index.exists(Paths.get("e"), 0), equalTo(true));
+            assertTrue(index.isAvailable());
+        } finally {
+            index.close();
+        }
+    }
+}
@@ -62,6 +62,19 @@ import static org.opennms.netmgt.provision.service.ImportJob.MONITOR;
 @ActivityProvider
 public class CoreImportActivities {
     private static final Logger LOG = LoggerFactory.getLogger(CoreImportActivities.class);
+
+    /**
+     * If enabled, the nodes of a requisition are persisted in chunks during the delete, update and
+     * insert phases of the import instead of running a nodeImport lifecycle for every node.
+     */
+    public static final String BULK_IMPORT = "org.opennms.provisiond.bulkImport";
+
+    /**
+     * The maximum number of nodes which are persisted within a single transaction by a bulk import.
+     */
+    public static final String BULK_IMPORT_CHUNK_SIZE = "org.opennms.provisiond.bulkImportChunkSize";
+
+    private static final int DEFAULT_BULK_IMPORT_CHUNK_SIZE = 500;
     
     private final ProvisionService m_provisionService;
     
@@ -121,6 +134,11 @@ public class CoreImportActivities {
         }
         Objects.requireNonNull(monitor);
 
+        if (isBulkImport()) {
+            info("Bulk import is enabled, skipping the nodeImport lifecycles of phase {}", currentPhase);
+            return;
+        }
+
         info("Scheduling nodes for phase {}", currentPhase);
         monitor.beginScheduling();
         final Collection<ImportOperation> operations = opsMgr.getOperations();
@@ -176,6 +194,42 @@ public class CoreImportActivities {
         info("Finished Running persist phase of {}", operation);
     }
     
+    @Activity( lifecycle = "import", phase = "delete" , schedulingHint = "import" )
+    public static void deleteNodes(final ImportOperationsManager opsMgr, final RequisitionImport ri, final ProvisionMonitor monitor) {
+        if (ri.isAborted() || !isBulkImport()) {
+            return;
+        }
+        Objects.requireNonNull(monitor);
+
+        info("Running delete phase for {} nodes", opsMgr.getDeleteCount());
+        opsMgr.persistDeletes(getBulkImportChunkSize(), monitor);
+        info("Finished Running delete phase, {} operations failed so far", opsMgr.getFailedCount());
+    }
+
+    @Activity( lifecycle = "import", phase = "update" , schedulingHint = "import" )
+    public static void updateNodes(final Phase currentPhase, final ImportOperationsManager opsMgr, final RequisitionImport ri, final ProvisionMonitor monitor) {
+        if (ri.isAborted() || !isBulkImport()) {
+            return;
+        }
+        Objects.requireNonNull(monitor);
+
+        info("Running update phase for {} nodes", opsMgr.getUpdateCount());
+        opsMgr.persistUpdates(currentPhase.getCoordinator(), getBulkImportChunkSize(), monitor);
+        info("Finished Running update phase, {} operations failed so far", opsMgr.getFailedCount());
+    }
+
+    @Activity( lifecycle = "import", phase = "insert" , schedulingHint = "import" )
+    public static void insertNodes(final Phase currentPhase, final ImportOperationsManager opsMgr, final RequisitionImport ri, final ProvisionMonitor monitor) {
+        if (ri.isAborted() || !isBulkImport()) {
+            return;
+        }
+        Objects.requireNonNull(monitor);
+
+        info("Running insert phase for {} nodes", opsMgr.getInsertCount());
+        opsMgr.persistInserts(currentPhase.getCoordinator(), getBulkImportChunkSize(), monitor);
+        info("Finished Running insert phase, {} operations failed so far", opsMgr.getFailedCount());
+    }
+
     @Activity( lifecycle = "import", phase = "relate" , schedulingHint = "import" )
     public void relateNodes(final BatchTask currentPhase, final RequisitionImport ri, final ProvisionMonitor monitor) {
         if (ri.isAborted()) {
@@ -230,6 +284,15 @@ public class CoreImportActivities {
         }; 
     }
 
+    private static boolean isBulkImport() {
+        return Boolean.getBoolean(BULK_IMPORT);
+    }
+
+    private static int getBulkImportChunkSize() {
+        final int chunkSize = Integer.getInteger(BULK_IMPORT_CHUNK_SIZE, DEFAULT_BULK_IMPORT_CHUNK_SIZE);
+        return chunkSize > 0 ? chunkSize : DEFAULT_BULK_IMPORT_CHUNK_SIZE;
+    }
+
     protected static void info(String format, Object... args) {
     	LOG.info(format, args);
     }
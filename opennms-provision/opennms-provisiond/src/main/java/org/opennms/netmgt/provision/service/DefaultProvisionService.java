@@ -234,6 +234,17 @@ public class DefaultProvisionService implements ProvisionService, InitializingBe
         }
     }
 
+    private void updateLocations(final List<OnmsNode> nodes) {
+        final Map<String, OnmsMonitoringLocation> locations = new HashMap<>();
+        for (final OnmsNode node : nodes) {
+            if (node.getLocation() == null) {
+                node.setLocation(m_monitoringLocationDao.getDefaultLocation());
+            } else {
+                node.setLocation(locations.computeIfAbsent(node.getLocation().getLocationName(), this::createLocationIfNecessary));
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     @Transactional
     @Override
@@ -246,31 +257,83 @@ public class DefaultProvisionService implements ProvisionService, InitializingBe
         node.visit(visitor);
     }
 
+    /** {@inheritDoc} */
+    @Transactional
+    @Override
+    public void insertNodes(final List<OnmsNode> nodes, final String monitorKey) {
+        updateLocations(nodes);
+        for (final OnmsNode node : nodes) {
+            m_nodeDao.save(node);
+        }
+        m_nodeDao.flush();
+
+        final EntityVisitor visitor = new AddEventVisitor(m_eventForwarder, monitorKey);
+        for (final OnmsNode node : nodes) {
+            node.visit(visitor);
+        }
+    }
+
     /** {@inheritDoc} */
     @Transactional
     @Override
     public void updateNode(final OnmsNode node, String rescanExisting, String monitorKey) {
         updateLocation(node);
         final OnmsNode dbNode = m_nodeDao.getHierarchy(node.getId());
+
+        final EventAccumulator accumulator = new EventAccumulator(m_eventForwarder);
+        mergeNode(dbNode, node, accumulator);
+        m_nodeDao.flush();
+
+        accumulator.flush();
+        final EntityVisitor eventAccumlator = new UpdateEventVisitor(m_eventForwarder, rescanExisting, monitorKey);
+        dbNode.visit(eventAccumlator);
+    }
+
+    /** {@inheritDoc} */
+    @Transactional
+    @Override
+    public void updateNodes(final List<OnmsNode> nodes, final String rescanExisting, final String monitorKey) {
+        updateLocations(nodes);
+        final Map<Integer, OnmsNode> dbNodes = new HashMap<>();
+        for (final OnmsNode dbNode : m_nodeDao.getHierarchies(nodes.stream().map(OnmsNode::getId).collect(Collectors.toList()))) {
+            dbNodes.put(dbNode.getId(), dbNode);
+        }
+
+        final EventAccumulator accumulator = new EventAccumulator(m_eventForwarder);
+        final List<OnmsNode> updatedNodes = new ArrayList<>(nodes.size());
+        for (final OnmsNode node : nodes) {
+            final OnmsNode dbNode = dbNodes.get(node.getId());
+            if (dbNode == null) {
+                LOG.warn("updateNodes: node {} no longer exists, skipping update", node.getId());
+                continue;
+            }
+            mergeNode(dbNode, node, accumulator);
+            updatedNodes.add(dbNode);
+        }
+        m_nodeDao.flush();
+
+        accumulator.flush();
+        final EntityVisitor eventAccumlator = new UpdateEventVisitor(m_eventForwarder, rescanExisting, monitorKey);
+        for (final OnmsNode dbNode : updatedNodes) {
+            dbNode.visit(eventAccumlator);
+        }
+    }
+
+    private void mergeNode(final OnmsNode dbNode, final OnmsNode node, final EventAccumulator accumulator) {
         String prevLocation = dbNode.getLocation().getLocationName();
         String currentLocation = node.getLocation().getLocationName();
 
         // on an update, leave categories alone, let the NodeScan handle applying requisitioned categories
         node.setCategories(dbNode.getCategories());
 
-        final EventAccumulator accumulator = new EventAccumulator(m_eventForwarder);
         dbNode.mergeNode(node, accumulator, false);
 
         updateNodeHostname(dbNode);
         m_nodeDao.update(dbNode);
-        m_nodeDao.flush();
 
         if(!prevLocation.equals(currentLocation)) {
             accumulator.sendNow(EventUtils.createNodeLocationChangedEvent(PROVISIOND, dbNode.getId(), dbNode.getLabel(), prevLocation, currentLocation));
         }
-        accumulator.flush();
-        final EntityVisitor eventAccumlator = new UpdateEventVisitor(m_eventForwarder, rescanExisting, monitorKey);
-        dbNode.visit(eventAccumlator);
     }
 
     private void updateNodeHostname(final OnmsNode node) {
@@ -336,6 +399,24 @@ public class DefaultProvisionService implements ProvisionService, InitializingBe
         }
     }
 
+    /** {@inheritDoc} */
+    @Transactional
+    @Override
+    public void deleteNodes(final List<Integer> nodeIds) {
+        LOG.debug("deleteNodes: nodeIds={}", nodeIds);
+
+        final List<OnmsNode> nodes = m_nodeDao.getHierarchies(nodeIds);
+        for (final OnmsNode node : nodes) {
+            m_nodeDao.delete(node);
+        }
+        m_nodeDao.flush();
+
+        final DeleteEventVisitor visitor = new DeleteEventVisitor(m_eventForwarder);
+        for (final OnmsNode node : nodes) {
+            node.visit(visitor);
+        }
+    }
+
     /** {@inheritDoc} */
     @Transactional
     @Override
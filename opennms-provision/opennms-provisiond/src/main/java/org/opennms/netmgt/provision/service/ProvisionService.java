@@ -121,6 +121,16 @@ public interface ProvisionService {
      */
     @Transactional
     void updateNode(OnmsNode node, String rescanExisting, String monitorKey);
+
+    /**
+     * Update the database entries for the given nodes within a single
+     * transaction. The current state of all nodes is loaded up-front, and
+     * only the entries which differ from the given nodes are written.
+     * The same events as {@link #updateNode(OnmsNode, String, String)} are
+     * sent for every node.
+     */
+    @Transactional
+    void updateNodes(List<OnmsNode> nodes, String rescanExisting, String monitorKey);
     
     @Transactional
     OnmsNode updateNodeAttributes(OnmsNode node);
@@ -149,6 +159,12 @@ public interface ProvisionService {
     @Transactional
     void deleteNode(Integer nodeId);
 
+    /**
+     * Delete the indicated nodes from the database within a single transaction.
+     */
+    @Transactional
+    void deleteNodes(List<Integer> nodeIds);
+
     @Transactional
     void deleteInterface(Integer nodeId, String ipAddr);
 
@@ -172,6 +188,12 @@ public interface ProvisionService {
     @Transactional
     void insertNode(OnmsNode node, String monitorKey);
 
+    /**
+     * Insert the provided nodes into the database within a single transaction
+     */
+    @Transactional
+    void insertNodes(List<OnmsNode> nodes, String monitorKey);
+
     /**
      * Look up the OnmsServiceType with the given name, creating one if it
      * doesn't exist.
@@ -47,6 +47,10 @@ public class DeleteOperation extends ImportOperation {
         m_nodeId = nodeId;
     }
 
+    Integer getNodeId() {
+        return m_nodeId;
+    }
+
     /**
      * <p>toString</p>
      *
@@ -38,10 +38,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import org.opennms.core.tasks.BatchTask;
+import org.opennms.core.tasks.TaskCoordinator;
 import org.opennms.netmgt.model.OnmsNode;
 import org.opennms.netmgt.provision.persist.requisition.Requisition;
 import org.opennms.netmgt.provision.service.ProvisionService;
@@ -49,6 +55,8 @@ import org.opennms.netmgt.provision.service.RequisitionAccountant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Lists;
+
 /**
  * This class tracks nodes that need to be deleted, inserted, or updated during
  * provisioning import operations.
@@ -70,6 +78,8 @@ public class ImportOperationsManager {
     private final ProvisionService m_provisionService;
     private final Map<String, Integer> m_foreignIdToNodeMap;
     private String m_rescanExisting;
+
+    private final AtomicInteger m_failedCount = new AtomicInteger();
     
     private String m_foreignSource;
     
@@ -175,6 +185,15 @@ public class ImportOperationsManager {
     	return m_foreignIdToNodeMap.size();
     }
     
+    /**
+     * <p>getFailedCount</p>
+     *
+     * @return the number of operations which could not be persisted by a bulk import
+     */
+    public int getFailedCount() {
+        return m_failedCount.get();
+    }
+    
     private class DeleteIterator implements Iterator<ImportOperation> {
     	
     	private final Iterator<Entry<String, Integer>> m_foreignIdIterator = m_foreignIdToNodeMap.entrySet().iterator();
@@ -313,6 +332,149 @@ public class ImportOperationsManager {
         requisition.visit(new RequisitionAccountant(this, monitorKey));
     }
 
+    /**
+     * <p>persistDeletes</p>
+     *
+     * Deletes the nodes which are no longer part of the requisition, using
+     * one transaction per chunk of nodes.
+     *
+     * @param chunkSize the maximum number of nodes per transaction
+     * @param monitor a {@link org.opennms.netmgt.provision.service.operations.ProvisionMonitor} object.
+     */
+    public void persistDeletes(final int chunkSize, final ProvisionMonitor monitor) {
+        final List<DeleteOperation> deletes = new ArrayList<>(m_foreignIdToNodeMap.size());
+        for (final Entry<String, Integer> entry : m_foreignIdToNodeMap.entrySet()) {
+            deletes.add(new DeleteOperation(entry.getValue(), getForeignSource(), entry.getKey(), m_provisionService));
+        }
+        persistInChunks(deletes, chunkSize, monitor, null, chunk -> m_provisionService.deleteNodes(chunk.stream()
+                .map(DeleteOperation::getNodeId)
+                .collect(Collectors.toList())));
+    }
+
+    /**
+     * <p>persistUpdates</p>
+     *
+     * Updates the nodes which are already part of the database, using one
+     * transaction per chunk of nodes. Nothing is written if existing nodes
+     * are not to be rescanned. The nodes of each chunk are scanned in
+     * parallel before they are persisted, unless rescanExisting is set to
+     * dbonly.
+     *
+     * @param coordinator the task coordinator which runs the scans
+     * @param chunkSize the maximum number of nodes per transaction
+     * @param monitor a {@link org.opennms.netmgt.provision.service.operations.ProvisionMonitor} object.
+     */
+    public void persistUpdates(final TaskCoordinator coordinator, final int chunkSize, final ProvisionMonitor monitor) {
+        final List<SaveOrUpdateOperation> updates = new ArrayList<>(m_updates.size());
+        for (final ImportOperation update : m_updates) {
+            if (!(update instanceof NullUpdateOperation)) {
+                updates.add((SaveOrUpdateOperation)update);
+            }
+        }
+        final boolean scan = m_rescanExisting == null || Boolean.valueOf(m_rescanExisting);
+        persistInChunks(updates, chunkSize, monitor, scan ? coordinator : null, chunk -> m_provisionService.updateNodes(getNodes(chunk), m_rescanExisting, chunk.get(0).getMonitorKey()));
+    }
+
+    /**
+     * <p>persistInserts</p>
+     *
+     * Inserts the nodes which are new to the database, using one transaction
+     * per chunk of nodes. The nodes of each chunk are scanned in parallel
+     * before they are persisted.
+     *
+     * @param coordinator the task coordinator which runs the scans
+     * @param chunkSize the maximum number of nodes per transaction
+     * @param monitor a {@link org.opennms.netmgt.provision.service.operations.ProvisionMonitor} object.
+     */
+    public void persistInserts(final TaskCoordinator coordinator, final int chunkSize, final ProvisionMonitor monitor) {
+        final List<InsertOperation> inserts = new ArrayList<>(m_inserts.size());
+        for (final ImportOperation insert : m_inserts) {
+            inserts.add((InsertOperation)insert);
+        }
+        persistInChunks(inserts, chunkSize, monitor, coordinator, chunk -> {
+            try {
+                m_provisionService.insertNodes(getNodes(chunk), chunk.get(0).getMonitorKey());
+            } catch (final RuntimeException e) {
+                // the rolled back nodes must be inserted again when they are retried
+                chunk.forEach(InsertOperation::resetIds);
+                throw e;
+            }
+        });
+    }
+
+    private static List<OnmsNode> getNodes(final List<? extends SaveOrUpdateOperation> operations) {
+        return operations.stream()
+                .map(SaveOrUpdateOperation::getNode)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Persists the operations in chunks, each within a single transaction.
+     * If a coordinator is given, the operations of a chunk are scanned in
+     * parallel before the chunk is persisted.
+     *
+     * If a chunk fails, its operations are persisted one at a time, so a
+     * single bad node only fails itself.
+     */
+    private <T extends ImportOperation> void persistInChunks(final List<T> operations, final int chunkSize, final ProvisionMonitor monitor, final TaskCoordinator coordinator, final Consumer<List<T>> persister) {
+        for (final List<T> chunk : Lists.partition(operations, chunkSize)) {
+            if (coordinator != null) {
+                scan(coordinator, chunk, monitor);
+            }
+
+            LOG.info("Persist: {} operations starting with {}", chunk.size(), chunk.get(0));
+            chunk.forEach(monitor::beginPersisting);
+            try {
+                persister.accept(chunk);
+                chunk.forEach(monitor::finishPersisting);
+            } catch (final Exception e) {
+                LOG.warn("Failed to persist {} operations starting with {}, persisting them one at a time", chunk.size(), chunk.get(0), e);
+                m_provisionService.clearCache();
+                chunk.forEach(operation -> persist(operation, monitor));
+            }
+
+            // clear the cache to we don't use up all the memory
+            m_provisionService.clearCache();
+        }
+    }
+
+    private static void scan(final TaskCoordinator coordinator, final List<? extends ImportOperation> operations, final ProvisionMonitor monitor) {
+        final BatchTask scans = coordinator.createBatch().get();
+        for (final ImportOperation operation : operations) {
+            scans.add(() -> scan(operation, monitor), "scan");
+        }
+        scans.schedule();
+        try {
+            scans.waitFor();
+        } catch (final InterruptedException e) {
+            LOG.warn("Interrupted while scanning {} operations starting with {}", operations.size(), operations.get(0), e);
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            LOG.error("Failed to scan {} operations starting with {}", operations.size(), operations.get(0), e);
+        }
+    }
+
+    private static void scan(final ImportOperation operation, final ProvisionMonitor monitor) {
+        LOG.info("Scan: {}", operation);
+        monitor.beginScanEvent(operation);
+        try {
+            operation.scan();
+        } catch (final Exception e) {
+            LOG.error("Failed to scan {}", operation, e);
+        }
+        monitor.finishScanEvent(operation);
+    }
+
+    private void persist(final ImportOperation operation, final ProvisionMonitor monitor) {
+        try {
+            operation.persist();
+            monitor.finishPersisting(operation);
+        } catch (final Exception e) {
+            LOG.error("Failed to persist {}", operation, e);
+            m_failedCount.incrementAndGet();
+        }
+    }
+
     @SuppressWarnings("unused")
     private Runnable persister(final ImportOperation oper) {
         Runnable r = new Runnable() {
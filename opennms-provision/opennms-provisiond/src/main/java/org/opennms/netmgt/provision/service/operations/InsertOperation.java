@@ -28,6 +28,12 @@
 
 package org.opennms.netmgt.provision.service.operations;
 
+import org.opennms.netmgt.model.AbstractEntityVisitor;
+import org.opennms.netmgt.model.OnmsEntity;
+import org.opennms.netmgt.model.OnmsIpInterface;
+import org.opennms.netmgt.model.OnmsMonitoredService;
+import org.opennms.netmgt.model.OnmsNode;
+import org.opennms.netmgt.model.OnmsSnmpInterface;
 import org.opennms.netmgt.provision.service.ProvisionService;
 
 public class InsertOperation extends SaveOrUpdateOperation {
@@ -63,6 +69,38 @@ public class InsertOperation extends SaveOrUpdateOperation {
         getProvisionService().insertNode(getNode(), getMonitorKey());
     }
 
+    /**
+     * Clears the IDs which a rolled back insert has assigned to the node, its
+     * asset record, interfaces and services, so that retrying the insert
+     * saves them as new entities instead of updating rows which don't exist.
+     */
+    public void resetIds() {
+        getNode().visit(new AbstractEntityVisitor() {
+            @Override
+            public void visitNode(final OnmsNode node) {
+                node.setId(null);
+                if (node.getAssetRecord() != null) {
+                    node.getAssetRecord().setId(null);
+                }
+            }
+
+            @Override
+            public void visitSnmpInterface(final OnmsEntity snmpIface) {
+                ((OnmsSnmpInterface)snmpIface).setId(null);
+            }
+
+            @Override
+            public void visitIpInterface(final OnmsIpInterface iface) {
+                iface.setId(null);
+            }
+
+            @Override
+            public void visitMonitoredService(final OnmsMonitoredService monSvc) {
+                monSvc.setId(null);
+            }
+        });
+    }
+
     @Override
     public OperationType getOperationType() {
         return OperationType.INSERT;
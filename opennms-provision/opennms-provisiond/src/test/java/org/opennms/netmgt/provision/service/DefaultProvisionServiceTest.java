@@ -29,11 +29,15 @@
 package org.opennms.netmgt.provision.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.opennms.core.test.MockLogAppender;
@@ -45,10 +49,12 @@ import org.opennms.netmgt.dao.api.NodeDao;
 import org.opennms.netmgt.dao.api.ServiceTypeDao;
 import org.opennms.netmgt.dao.api.SnmpInterfaceDao;
 import org.opennms.netmgt.dao.mock.MockEventIpcManager;
+import org.opennms.netmgt.events.api.EventConstants;
 import org.opennms.netmgt.model.OnmsIpInterface;
 import org.opennms.netmgt.model.OnmsMonitoredService;
 import org.opennms.netmgt.model.OnmsNode;
 import org.opennms.netmgt.model.OnmsServiceType;
+import org.opennms.netmgt.model.monitoringLocations.OnmsMonitoringLocation;
 
 public class DefaultProvisionServiceTest {
     final MonitoringLocationDao m_monitoringLocationDao = mock(MonitoringLocationDao.class);
@@ -74,6 +80,71 @@ public class DefaultProvisionServiceTest {
         m_provisionService.setServiceTypeDao(m_serviceTypeDao);
 
         m_provisionService.setEventForwarder(m_eventIpcManager);
+
+        when(m_monitoringLocationDao.getDefaultLocation()).thenReturn(new OnmsMonitoringLocation(MonitoringLocationDao.DEFAULT_MONITORING_LOCATION_ID, MonitoringLocationDao.DEFAULT_MONITORING_LOCATION_ID));
+    }
+
+    private static OnmsNode createNode(final Integer id, final String label) {
+        final OnmsNode node = new OnmsNode();
+        node.setId(id);
+        node.setLabel(label);
+        node.setLabelSource(OnmsNode.NodeLabelSource.USER);
+        node.setType(OnmsNode.NodeType.ACTIVE);
+        node.setForeignSource("foreignSource");
+        node.setForeignId(label);
+        return node;
+    }
+
+    private long countEvents(final String uei) {
+        return m_eventIpcManager.getEventAnticipator().getUnanticipatedEvents().stream()
+                .filter(e -> uei.equals(e.getUei()))
+                .count();
+    }
+
+    @Test
+    public void testInsertNodes() throws Exception {
+        final OnmsNode node1 = createNode(1, "node1");
+        final OnmsNode node2 = createNode(2, "node2");
+
+        m_provisionService.insertNodes(Arrays.asList(node1, node2), "monitorKey");
+
+        verify(m_nodeDao, times(1)).save(node1);
+        verify(m_nodeDao, times(1)).save(node2);
+        verify(m_nodeDao, times(1)).flush();
+        assertEquals(2, countEvents(EventConstants.NODE_ADDED_EVENT_UEI));
+    }
+
+    @Test
+    public void testUpdateNodes() throws Exception {
+        final OnmsNode dbNode1 = createNode(1, "node1");
+        dbNode1.setLocation(m_monitoringLocationDao.getDefaultLocation());
+        final OnmsNode dbNode2 = createNode(2, "node2");
+        dbNode2.setLocation(m_monitoringLocationDao.getDefaultLocation());
+        when(m_nodeDao.getHierarchies(Arrays.asList(1, 2, 3))).thenReturn(Arrays.asList(dbNode1, dbNode2));
+
+        // node 3 has been deleted in the meantime
+        m_provisionService.updateNodes(Arrays.asList(createNode(1, "renamed"), createNode(2, "node2"), createNode(3, "node3")), "dbonly", "monitorKey");
+
+        assertEquals("renamed", dbNode1.getLabel());
+        verify(m_nodeDao, never()).getHierarchy(anyInt());
+        verify(m_nodeDao, times(1)).update(dbNode1);
+        verify(m_nodeDao, times(1)).update(dbNode2);
+        verify(m_nodeDao, times(1)).flush();
+        assertEquals(2, countEvents(EventConstants.NODE_UPDATED_EVENT_UEI));
+    }
+
+    @Test
+    public void testDeleteNodes() throws Exception {
+        final OnmsNode node1 = createNode(1, "node1");
+        final OnmsNode node2 = createNode(2, "node2");
+        when(m_nodeDao.getHierarchies(Arrays.asList(1, 2))).thenReturn(Arrays.asList(node1, node2));
+
+        m_provisionService.deleteNodes(Arrays.asList(1, 2));
+
+        verify(m_nodeDao, times(1)).delete(node1);
+        verify(m_nodeDao, times(1)).delete(node2);
+        verify(m_nodeDao, times(1)).flush();
+        assertEquals(2, countEvents(EventConstants.NODE_DELETED_EVENT_UEI));
     }
 
     @Test
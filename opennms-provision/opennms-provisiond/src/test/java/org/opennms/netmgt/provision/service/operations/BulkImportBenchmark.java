@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.provision.service.operations;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opennms.core.tasks.DefaultTaskCoordinator;
+import org.opennms.core.tasks.TaskCoordinator;
+import org.opennms.netmgt.model.OnmsCategory;
+import org.opennms.netmgt.model.OnmsServiceType;
+import org.opennms.netmgt.model.PrimaryType;
+import org.opennms.netmgt.provision.persist.requisition.Requisition;
+import org.opennms.netmgt.provision.persist.requisition.RequisitionCategory;
+import org.opennms.netmgt.provision.persist.requisition.RequisitionInterface;
+import org.opennms.netmgt.provision.persist.requisition.RequisitionMonitoredService;
+import org.opennms.netmgt.provision.persist.requisition.RequisitionNode;
+import org.opennms.netmgt.provision.service.ProvisionService;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to measure the import of synthetic requisitions with 10k and 100k nodes.
+ * <p>
+ * Nine out of ten nodes of the requisition already exist, and as many existing nodes as there are new ones are no longer
+ * part of the requisition. The {@link ProvisionService} is a stub, so the numbers cover auditing the requisition and
+ * handing the operations to the service, either one node or one chunk of nodes per call. Each of these calls is a
+ * transaction against the database in a running system.
+ */
+public class BulkImportBenchmark {
+
+    private static final int CHUNK_SIZE = 500;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        @Param({"10000", "100000"})
+        public int nodeCount;
+
+        private ProvisionService provisionService;
+        private TaskCoordinator coordinator;
+        private Requisition requisition;
+        private Map<String, Integer> foreignIdsToNodes;
+
+        @Setup
+        public void setup() {
+            System.setProperty("org.opennms.provisiond.reverseResolveRequisitionIpInterfaceHostnames", "false");
+
+            final Map<String, OnmsServiceType> serviceTypes = new ConcurrentHashMap<>();
+            final Map<String, OnmsCategory> categories = new ConcurrentHashMap<>();
+            provisionService = mock(ProvisionService.class, withSettings().stubOnly());
+            when(provisionService.createServiceTypeIfNecessary(anyString())).thenAnswer(i -> serviceTypes.computeIfAbsent(i.getArgument(0), OnmsServiceType::new));
+            when(provisionService.createCategoryIfNecessary(anyString())).thenAnswer(i -> categories.computeIfAbsent(i.getArgument(0), OnmsCategory::new));
+
+            coordinator = new DefaultTaskCoordinator("BulkImportBenchmark");
+            coordinator.addOrUpdateExecutor("scan", Executors.newFixedThreadPool(10));
+
+            final List<RequisitionNode> nodes = new ArrayList<>(nodeCount);
+            foreignIdsToNodes = new HashMap<>();
+            for (int i = 0; i < nodeCount; i++) {
+                nodes.add(createNode(i));
+                if (i % 10 != 0) {
+                    foreignIdsToNodes.put(Integer.toString(i), i + 1);
+                } else {
+                    foreignIdsToNodes.put("deleted-" + i, nodeCount + i + 1);
+                }
+            }
+
+            requisition = new Requisition();
+            requisition.setForeignSource("benchmark");
+            requisition.setDate(new Date());
+            requisition.setNodes(nodes);
+        }
+
+        private static RequisitionNode createNode(final int i) {
+            final RequisitionInterface iface = new RequisitionInterface();
+            iface.setIpAddr(String.format("10.%d.%d.%d", (i >> 16) & 0xff, (i >> 8) & 0xff, i & 0xff));
+            iface.setManaged(true);
+            iface.setStatus(1);
+            iface.setSnmpPrimary(PrimaryType.NOT_ELIGIBLE);
+            final List<RequisitionMonitoredService> services = new ArrayList<>();
+            services.add(new RequisitionMonitoredService("ICMP"));
+            services.add(new RequisitionMonitoredService("HTTP"));
+            iface.setMonitoredServices(services);
+
+            final RequisitionNode node = new RequisitionNode();
+            node.setForeignId(Integer.toString(i));
+            node.setNodeLabel("node-" + i);
+            node.setInterfaces(Collections.singletonList(iface));
+            node.setCategories(Collections.singletonList(new RequisitionCategory("Category" + (i % 16))));
+            return node;
+        }
+
+        private ImportOperationsManager audit() {
+            final ImportOperationsManager opsMgr = new ImportOperationsManager(foreignIdsToNodes, provisionService, "dbonly");
+            opsMgr.setForeignSource(requisition.getForeignSource());
+            opsMgr.auditNodes(requisition, "benchmark");
+            return opsMgr;
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void perNodeImport(BState state, Blackhole blackhole) {
+        final ImportOperationsManager opsMgr = state.audit();
+        for (final ImportOperation operation : opsMgr.getOperations()) {
+            operation.persist();
+        }
+        blackhole.consume(opsMgr);
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void bulkImport(BState state, Blackhole blackhole) {
+        final ImportOperationsManager opsMgr = state.audit();
+        final ProvisionMonitor monitor = new NoOpProvisionMonitor();
+        opsMgr.persistDeletes(CHUNK_SIZE, monitor);
+        opsMgr.persistUpdates(state.coordinator, CHUNK_SIZE, monitor);
+        opsMgr.persistInserts(state.coordinator, CHUNK_SIZE, monitor);
+        blackhole.consume(opsMgr);
+    }
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.provision.service.operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.opennms.core.tasks.DefaultTaskCoordinator;
+import org.opennms.core.tasks.TaskCoordinator;
+import org.opennms.netmgt.model.OnmsIpInterface;
+import org.opennms.netmgt.model.OnmsMonitoredService;
+import org.opennms.netmgt.model.OnmsNode;
+import org.opennms.netmgt.model.OnmsServiceType;
+import org.opennms.netmgt.model.OnmsSnmpInterface;
+import org.opennms.netmgt.provision.service.ProvisionService;
+
+public class ImportOperationsManagerTest {
+
+    private final ProvisionService m_provisionService = mock(ProvisionService.class);
+
+    private final TaskCoordinator m_coordinator = createTaskCoordinator();
+
+    private static TaskCoordinator createTaskCoordinator() {
+        final TaskCoordinator coordinator = new DefaultTaskCoordinator("ImportOperationsManagerTest");
+        coordinator.addOrUpdateExecutor("scan", Executors.newFixedThreadPool(3));
+        return coordinator;
+    }
+
+    private ImportOperationsManager createImportOperationsManager(final String rescanExisting) {
+        final Map<String, Integer> foreignIdsToNodes = new HashMap<>();
+        foreignIdsToNodes.put("node1", 1);
+        foreignIdsToNodes.put("node2", 2);
+        foreignIdsToNodes.put("node3", 3);
+        foreignIdsToNodes.put("node4", 4);
+        foreignIdsToNodes.put("node5", 5);
+
+        final ImportOperationsManager opsMgr = new ImportOperationsManager(foreignIdsToNodes, m_provisionService, rescanExisting);
+        opsMgr.setForeignSource("foreignSource");
+        opsMgr.foundNode("node1", "node1", "", "", "", "monitorKey");
+        opsMgr.foundNode("node2", "node2", "", "", "", "monitorKey");
+        opsMgr.foundNode("node6", "node6", "", "", "", "monitorKey");
+        opsMgr.foundNode("node7", "node7", "", "", "", "monitorKey");
+        opsMgr.foundNode("node8", "node8", "", "", "", "monitorKey");
+        return opsMgr;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void canPersistInChunks() {
+        final ImportOperationsManager opsMgr = createImportOperationsManager("dbonly");
+        final ProvisionMonitor monitor = new NoOpProvisionMonitor();
+
+        opsMgr.persistDeletes(2, monitor);
+        final ArgumentCaptor<List<Integer>> deleted = ArgumentCaptor.forClass(List.class);
+        verify(m_provisionService, times(2)).deleteNodes(deleted.capture());
+        assertEquals(2, deleted.getAllValues().get(0).size());
+        assertEquals(1, deleted.getAllValues().get(1).size());
+
+        opsMgr.persistUpdates(m_coordinator, 2, monitor);
+        final ArgumentCaptor<List<OnmsNode>> updated = ArgumentCaptor.forClass(List.class);
+        verify(m_provisionService, times(1)).updateNodes(updated.capture(), any(), any());
+        assertEquals(2, updated.getValue().size());
+
+        opsMgr.persistInserts(m_coordinator, 2, monitor);
+        final ArgumentCaptor<List<OnmsNode>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(m_provisionService, times(2)).insertNodes(inserted.capture(), any());
+        assertEquals("node6", inserted.getAllValues().get(0).get(0).getForeignId());
+        assertEquals("node8", inserted.getAllValues().get(1).get(0).getForeignId());
+
+        verify(m_provisionService, times(5)).clearCache();
+    }
+
+    @Test
+    public void skipsUpdatesIfExistingNodesAreNotRescanned() {
+        final ImportOperationsManager opsMgr = createImportOperationsManager(Boolean.FALSE.toString());
+
+        opsMgr.persistUpdates(m_coordinator, 2, new NoOpProvisionMonitor());
+
+        verify(m_provisionService, never()).updateNodes(anyList(), anyString(), anyString());
+    }
+
+    @Test
+    public void persistsFailedChunksOneNodeAtATime() {
+        final ImportOperationsManager opsMgr = createImportOperationsManager("dbonly");
+        final ProvisionMonitor monitor = spy(new NoOpProvisionMonitor());
+
+        doThrow(new IllegalStateException("chunk")).when(m_provisionService).insertNodes(anyList(), any());
+        doThrow(new IllegalStateException("node7")).when(m_provisionService).insertNode(argThat(node -> "node7".equals(node.getForeignId())), any());
+
+        opsMgr.persistInserts(m_coordinator, 3, monitor);
+
+        // the chunk is retried node by node, and only the bad node fails
+        verify(m_provisionService, times(1)).insertNodes(anyList(), any());
+        verify(m_provisionService, times(3)).insertNode(any(), any());
+        verify(monitor, times(3)).beginPersisting(any());
+        verify(monitor, times(2)).finishPersisting(any());
+        verify(monitor, times(3)).beginScanEvent(any());
+        assertEquals(1, opsMgr.getFailedCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void retriesFailedInsertsAsNewEntities() {
+        final ImportOperationsManager opsMgr = createImportOperationsManager("dbonly");
+
+        // like Hibernate, assign IDs to the nodes and their children before the chunk is rolled back
+        doAnswer(invocation -> {
+            int id = 100;
+            for (final OnmsNode node : (List<OnmsNode>)invocation.getArgument(0)) {
+                node.setId(id++);
+                final OnmsIpInterface iface = new OnmsIpInterface(InetAddress.getByName("192.0.2.1"), node);
+                iface.setId(id++);
+                final OnmsMonitoredService service = new OnmsMonitoredService(iface, new OnmsServiceType("ICMP"));
+                service.setId(id++);
+                final OnmsSnmpInterface snmpIface = new OnmsSnmpInterface(node, 1);
+                snmpIface.setId(id++);
+            }
+            throw new IllegalStateException("node7");
+        }).when(m_provisionService).insertNodes(anyList(), any());
+
+        final List<Integer> retriedIds = new ArrayList<>();
+        doAnswer(invocation -> {
+            final OnmsNode node = invocation.getArgument(0);
+            if ("node7".equals(node.getForeignId())) {
+                throw new IllegalStateException("node7");
+            }
+            retriedIds.add(node.getId());
+            for (final OnmsIpInterface iface : node.getIpInterfaces()) {
+                retriedIds.add(iface.getId());
+                iface.getMonitoredServices().forEach(service -> retriedIds.add(service.getId()));
+            }
+            node.getSnmpInterfaces().forEach(snmpIface -> retriedIds.add(snmpIface.getId()));
+            return null;
+        }).when(m_provisionService).insertNode(any(), any());
+
+        opsMgr.persistInserts(m_coordinator, 3, new NoOpProvisionMonitor());
+
+        verify(m_provisionService, times(3)).insertNode(any(), any());
+        assertEquals(8, retriedIds.size());
+        for (final Integer id : retriedIds) {
+            assertNull(id);
+        }
+        assertEquals(1, opsMgr.getFailedCount());
+    }
+}
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.collectd;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+/**
+ * Registry of all scheduled {@link CollectableService} objects.
+ * <p>
+ * Services are indexed by node and by interface address, so events only have to touch the services of the affected
+ * node or interface. The services of a node are only changed while holding the lock of the node's entry in the node
+ * index, so the services of different nodes are registered and removed concurrently.
+ */
+public class CollectableServiceRegistry {
+
+    /**
+     * Identifies a collectable service by the values it was registered with.
+     */
+    static final class Key {
+        private final int nodeId;
+        private final InetAddress address;
+        private final String serviceName;
+        private final String packageName;
+
+        Key(final int nodeId, final InetAddress address, final String serviceName, final String packageName) {
+            this.nodeId = nodeId;
+            this.address = address;
+            this.serviceName = serviceName;
+            this.packageName = packageName;
+        }
+
+        private Key withNodeId(final int nodeId) {
+            return new Key(nodeId, this.address, this.serviceName, this.packageName);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) o;
+            return this.nodeId == that.nodeId
+                    && Objects.equals(this.address, that.address)
+                    && Objects.equals(this.serviceName, that.serviceName)
+                    && Objects.equals(this.packageName, that.packageName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.nodeId, this.address, this.serviceName, this.packageName);
+        }
+    }
+
+    private final ConcurrentMap<Key, CollectableService> m_services = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Set<Key>> m_servicesByNode = new ConcurrentHashMap<>();
+    private final ConcurrentMap<InetAddress, Set<Key>> m_servicesByAddress = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the given service.
+     *
+     * @return false if a service for the same node, address, service and package is already registered
+     */
+    public boolean add(final CollectableService service) {
+        return add(new Key(service.getNodeId(), service.getAddress(), service.getServiceName(), service.getPackageName()), service);
+    }
+
+    boolean add(final Key key, final CollectableService service) {
+        final boolean[] added = { false };
+        m_servicesByNode.compute(key.nodeId, (nodeId, keys) -> {
+            if (keys == null) {
+                keys = ConcurrentHashMap.newKeySet();
+            }
+            if (m_services.putIfAbsent(key, service) == null) {
+                keys.add(key);
+                if (key.address != null) {
+                    m_servicesByAddress.computeIfAbsent(key.address, address -> ConcurrentHashMap.newKeySet()).add(key);
+                }
+                added[0] = true;
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+        return added[0];
+    }
+
+    public boolean contains(final int nodeId, final InetAddress address, final String serviceName, final String packageName) {
+        return m_services.containsKey(new Key(nodeId, address, serviceName, packageName));
+    }
+
+    /**
+     * Returns the services of the given interface.
+     */
+    public List<CollectableService> findByInterface(final int nodeId, final InetAddress address) {
+        final List<CollectableService> services = new ArrayList<>();
+        for (final Key key : m_servicesByNode.getOrDefault(nodeId, Collections.emptySet())) {
+            if (Objects.equals(key.address, address)) {
+                addIfPresent(key, services);
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Returns the services of all interfaces with the given address, regardless of the node.
+     */
+    public List<CollectableService> findByAddress(final InetAddress address) {
+        final List<CollectableService> services = new ArrayList<>();
+        if (address != null) {
+            for (final Key key : m_servicesByAddress.getOrDefault(address, Collections.emptySet())) {
+                addIfPresent(key, services);
+            }
+        }
+        return services;
+    }
+
+    public List<CollectableService> removeByNode(final int nodeId) {
+        return new ArrayList<>(removeFromNode(nodeId, key -> true).values());
+    }
+
+    public List<CollectableService> removeByInterface(final int nodeId, final InetAddress address) {
+        return new ArrayList<>(removeFromNode(nodeId, key -> Objects.equals(key.address, address)).values());
+    }
+
+    public List<CollectableService> removeByService(final int nodeId, final InetAddress address, final String serviceName) {
+        return new ArrayList<>(removeFromNode(nodeId, key -> Objects.equals(key.address, address)
+                && Objects.equals(key.serviceName, serviceName)).values());
+    }
+
+    /**
+     * Removes the services of all interfaces with the given address, regardless of the node.
+     */
+    public List<CollectableService> removeByAddress(final InetAddress address) {
+        final List<CollectableService> services = new ArrayList<>();
+        for (final int nodeId : nodeIdsOf(address)) {
+            services.addAll(removeFromNode(nodeId, key -> Objects.equals(key.address, address)).values());
+        }
+        return services;
+    }
+
+    /**
+     * Removes all services matching the given filter. This visits every service.
+     */
+    public List<CollectableService> removeIf(final Predicate<CollectableService> filter) {
+        final List<CollectableService> services = new ArrayList<>();
+        for (final Integer nodeId : new ArrayList<>(m_servicesByNode.keySet())) {
+            services.addAll(removeFromNode(nodeId, key -> {
+                final CollectableService service = m_services.get(key);
+                return service != null && filter.test(service);
+            }).values());
+        }
+        return services;
+    }
+
+    /**
+     * Moves the services of the interface with the given address from the old to the new node.
+     */
+    public void reparent(final InetAddress address, final int oldNodeId, final int newNodeId) {
+        final Map<Key, CollectableService> services = removeFromNode(oldNodeId, key -> Objects.equals(key.address, address));
+        services.forEach((key, service) -> add(key.withNodeId(newNodeId), service));
+    }
+
+    /**
+     * Returns a snapshot of all registered services.
+     */
+    public List<CollectableService> getAll() {
+        return new ArrayList<>(m_services.values());
+    }
+
+    public int size() {
+        return m_services.size();
+    }
+
+    private Map<Key, CollectableService> removeFromNode(final int nodeId, final Predicate<Key> filter) {
+        final Map<Key, CollectableService> removed = new LinkedHashMap<>();
+        m_servicesByNode.computeIfPresent(nodeId, (id, keys) -> {
+            for (final Iterator<Key> it = keys.iterator(); it.hasNext(); ) {
+                final Key key = it.next();
+                if (!filter.test(key)) {
+                    continue;
+                }
+                it.remove();
+                if (key.address != null) {
+                    m_servicesByAddress.computeIfPresent(key.address, (address, addressKeys) -> {
+                        addressKeys.remove(key);
+                        return addressKeys.isEmpty() ? null : addressKeys;
+                    });
+                }
+                final CollectableService service = m_services.remove(key);
+                if (service != null) {
+                    removed.put(key, service);
+                }
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+        return removed;
+    }
+
+    private Set<Integer> nodeIdsOf(final InetAddress address) {
+        final Set<Integer> nodeIds = new TreeSet<>();
+        if (address != null) {
+            for (final Key key : m_servicesByAddress.getOrDefault(address, Collections.emptySet())) {
+                nodeIds.add(key.nodeId);
+            }
+        }
+        return nodeIds;
+    }
+
+    private void addIfPresent(final Key key, final List<CollectableService> services) {
+        final CollectableService service = m_services.get(key);
+        if (service != null) {
+            services.add(service);
+        }
+    }
+}
@@ -28,17 +28,14 @@
 
 package org.opennms.netmgt.collectd;
 
+import static org.opennms.core.utils.InetAddressUtils.addr;
 import static org.opennms.core.utils.InetAddressUtils.str;
 
-import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -81,10 +78,9 @@ import org.opennms.netmgt.model.OnmsMonitoredService;
 import org.opennms.netmgt.model.OnmsNode;
 import org.opennms.netmgt.model.events.EventBuilder;
 import org.opennms.netmgt.model.events.EventUtils;
-import org.opennms.netmgt.scheduler.LegacyScheduler;
 import org.opennms.netmgt.scheduler.ReadyRunnable;
 import org.opennms.netmgt.scheduler.Scheduler;
-import org.opennms.netmgt.snmp.InetAddrUtils;
+import org.opennms.netmgt.scheduler.SchedulerFactory;
 import org.opennms.netmgt.threshd.api.ThresholdingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -139,9 +135,9 @@ public class Collectd extends AbstractServiceDaemon implements
     private final Map<String,ServiceCollector> m_collectors = new HashMap<>(4);
 
     /**
-     * List of all CollectableService objects.
+     * Registry of all CollectableService objects.
      */
-    private final List<CollectableService> m_collectableServices;
+    private final CollectableServiceRegistry m_collectableServices;
 
     /**
      * Reference to the collection scheduler
@@ -207,7 +203,7 @@ public class Collectd extends AbstractServiceDaemon implements
     public Collectd() {
         super(LOG4J_CATEGORY);
 
-        m_collectableServices = Collections.synchronizedList(new LinkedList<>());
+        m_collectableServices = new CollectableServiceRegistry();
     }
 
     /**
@@ -313,7 +309,7 @@ public class Collectd extends AbstractServiceDaemon implements
             // Create a scheduler
             try {
                 LOG.debug("init: Creating collectd scheduler");
-                setScheduler(new LegacyScheduler("Collectd", m_collectdConfigFactory.getThreads()));
+                setScheduler(SchedulerFactory.createScheduler("Collectd", m_collectdConfigFactory.getThreads()));
             } catch (final RuntimeException e) {
                 LOG.error("init: Failed to create collectd scheduler", e);
                 throw e;
@@ -473,8 +469,11 @@ public class Collectd extends AbstractServiceDaemon implements
                     m_thresholdingService
                 );
 
-                // Add new collectable service to the collectable service list.
-                m_collectableServices.add(cSvc);
+                // Add new collectable service to the collectable service registry.
+                if (!m_collectableServices.add(cSvc)) {
+                    LOG.debug("scheduleInterface: svc/pkgName {}/{} has been scheduled concurrently, skipping.", iface, spec);
+                    continue;
+                }
 
                 // Schedule the collectable service for immediate collection
                 getScheduler().schedule(0, cSvc.getReadyRunnable());
@@ -573,38 +572,9 @@ public class Collectd extends AbstractServiceDaemon implements
             return false;
         }
 
-        String svcName = spec.getServiceName();
-        String pkgName = spec.getPackageName();
-        StringBuilder sb;
-        boolean isScheduled = false;
-        
-        if (LOG.isDebugEnabled()) {
-            sb = new StringBuilder();
-            sb.append("alreadyScheduled: determining if interface: ");
-            sb.append(iface);
-            sb.append(" is already scheduled.");
-        }
-        
-        synchronized (m_collectableServices) {
-        	for (CollectableService cSvc : m_collectableServices) {
-                InetAddress addr = (InetAddress) cSvc.getAddress();
-                if (cSvc.getNodeId() == iface.getNode().getId()
-                        && str(addr).equals(ipAddress)
-                        && cSvc.getPackageName().equals(pkgName)
-                        && cSvc.getServiceName().equals(svcName)) {
-                    isScheduled = true;
-                    break;
-                }
-            }
-        }
+        boolean isScheduled = m_collectableServices.contains(iface.getNode().getId(), iface.getIpAddress(), spec.getServiceName(), spec.getPackageName());
 
-        if (LOG.isDebugEnabled()) {
-            sb = new StringBuilder();
-            sb.append("alreadyScheduled: interface ");
-            sb.append(iface);
-            sb.append("already scheduled check: ");
-            sb.append(isScheduled);
-        }
+        LOG.debug("alreadyScheduled: interface {} already scheduled check: {}", iface, isScheduled);
         return isScheduled;
     }
 
@@ -617,12 +587,12 @@ public class Collectd extends AbstractServiceDaemon implements
     }
 
     private void refreshServicePackages() throws CollectionInitializationException {
-    	for (CollectableService thisService : m_collectableServices) {
+    	for (CollectableService thisService : m_collectableServices.getAll()) {
             thisService.refreshPackage(m_collectdConfigFactory);
         }
     }
 
-    public List<CollectableService> getCollectableServices() {
+    public CollectableServiceRegistry getCollectableServices() {
         return m_collectableServices;
     }
 
@@ -767,37 +737,21 @@ public class Collectd extends AbstractServiceDaemon implements
 
         Long nodeId = event.getNodeid();
 
-        // Iterate over the collectable services list and mark any entries
-        // which match the deleted nodeId/IP address pair for deletion
-        synchronized (getCollectableServices()) {
-            CollectableService cSvc = null;
-            ListIterator<CollectableService> liter = getCollectableServices().listIterator();
-            while (liter.hasNext()) {
-                cSvc = liter.next();
-
-                // Only interested in entries with matching nodeId and IP
-                // address
-                InetAddress addr = (InetAddress) cSvc.getAddress();
-                if (!(cSvc.getNodeId() == nodeId && InetAddrUtils.str(addr).equals(ipAddr)))
-                    continue;
-
-                synchronized (cSvc) {
-                    // Retrieve the CollectorUpdates object associated with
-                    // this CollectableService if one exists.
-                    CollectorUpdates updates = cSvc.getCollectorUpdates();
-
-                    // Now set the update's deletion flag so the next
-                    // time it is selected for execution by the scheduler
-                    // the collection will be skipped and the service will not
-                    // be rescheduled.
-                    LOG.debug("Marking CollectableService for deletion because an interface was deleted:  Service nodeid={}, deleted node:{}service address:{}deleted interface:{}", cSvc.getNodeId(), nodeId, InetAddrUtils.str(addr), ipAddr);
-
-                    updates.markForDeletion();
-                }
-
-                // Now safe to remove the collectable service from
-                // the collectable services list
-                liter.remove();
+        // Remove the entries which match the deleted nodeId/IP address pair
+        // from the collectable services and mark them for deletion
+        for (CollectableService cSvc : getCollectableServices().removeByInterface(nodeId.intValue(), addr(ipAddr))) {
+            synchronized (cSvc) {
+                // Retrieve the CollectorUpdates object associated with
+                // this CollectableService if one exists.
+                CollectorUpdates updates = cSvc.getCollectorUpdates();
+
+                // Now set the update's deletion flag so the next
+                // time it is selected for execution by the scheduler
+                // the collection will be skipped and the service will not
+                // be rescheduled.
+                LOG.debug("Marking CollectableService for deletion because an interface was deleted: deleted node:{}, deleted interface:{}", nodeId, ipAddr);
+
+                updates.markForDeletion();
             }
         }
 
@@ -875,34 +829,33 @@ public class Collectd extends AbstractServiceDaemon implements
         // subsequent collections will then be updating the appropriate RRDs.
         //
         OnmsIpInterface iface = null;
-        synchronized (getCollectableServices()) {
-            CollectableService cSvc = null;
-            Iterator<CollectableService> iter = getCollectableServices().iterator();
-            while (iter.hasNext()) {
-                cSvc = iter.next();
-
-                InetAddress addr = (InetAddress) cSvc.getAddress();
-				if (addr.equals(event.getInterfaceAddress())) {
-                    synchronized (cSvc) {
-                        // Got a match!
-                        LOG.debug("interfaceReparentedHandler: got a CollectableService match for {}", event.getInterface());
-
-                        // Retrieve the CollectorUpdates object associated
-                        // with
-                        // this CollectableService.
-                        CollectorUpdates updates = cSvc.getCollectorUpdates();
-                        if (iface == null) {
-                        	iface = getIpInterface(event.getNodeid().intValue(), event.getInterface());
-                        }
-
-                        // Now set the reparenting flag
-                        updates.markForReparenting(oldNodeIdStr, newNodeIdStr, iface);
-                        LOG.debug("interfaceReparentedHandler: marking {} for reparenting for service SNMP.", event.getInterface());
-                    }
+        for (CollectableService cSvc : getCollectableServices().findByAddress(event.getInterfaceAddress())) {
+            synchronized (cSvc) {
+                // Got a match!
+                LOG.debug("interfaceReparentedHandler: got a CollectableService match for {}", event.getInterface());
+
+                // Retrieve the CollectorUpdates object associated
+                // with
+                // this CollectableService.
+                CollectorUpdates updates = cSvc.getCollectorUpdates();
+                if (iface == null) {
+                	iface = getIpInterface(event.getNodeid().intValue(), event.getInterface());
                 }
+
+                // Now set the reparenting flag
+                updates.markForReparenting(oldNodeIdStr, newNodeIdStr, iface);
+                LOG.debug("interfaceReparentedHandler: marking {} for reparenting for service SNMP.", event.getInterface());
             }
         }
 
+        // Index the services under the new nodeId, so events for the new
+        // node find them.
+        try {
+            getCollectableServices().reparent(event.getInterfaceAddress(), Integer.parseInt(oldNodeIdStr), Integer.parseInt(newNodeIdStr));
+        } catch (NumberFormatException e) {
+            LOG.warn("interfaceReparentedHandler: unable to convert nodeId values {} and {} to int.", oldNodeIdStr, newNodeIdStr);
+        }
+
         LOG.debug("interfaceReparentedHandler: processing of interfaceReparented event for interface {} completed.", event.getInterface());
     }
 
@@ -975,13 +928,8 @@ public class Collectd extends AbstractServiceDaemon implements
         removed.forEach(m_collectors::remove);
 
         // Remove all services using a removed collector
-        final var liter = m_collectableServices.listIterator();
-        while (liter.hasNext()) {
-            final var svc = liter.next();
-            if (removed.contains(svc.getServiceName())) {
-                svc.getCollectorUpdates().markForDeletion();
-                liter.remove();
-            }
+        for (final var svc : m_collectableServices.removeIf(svc -> removed.contains(svc.getServiceName()))) {
+            svc.getCollectorUpdates().markForDeletion();
         }
 
         //Re-instantiate collectors
@@ -989,34 +937,20 @@ public class Collectd extends AbstractServiceDaemon implements
     }
 
     private void unscheduleNodeAndMarkForDeletion(Long nodeId) {
-		// Iterate over the collectable service list and mark any entries
-        // which match the deleted nodeId for deletion.
-        synchronized (getCollectableServices()) {
-            CollectableService cSvc = null;
-            final ListIterator<CollectableService> liter = getCollectableServices().listIterator();
-            while (liter.hasNext()) {
-                cSvc = liter.next();
-
-                // Only interested in entries with matching nodeId
-                if (!(cSvc.getNodeId() == nodeId))
-                    continue;
-
-                synchronized (cSvc) {
-                    // Retrieve the CollectorUpdates object associated
-                    // with this CollectableService.
-                    CollectorUpdates updates = cSvc.getCollectorUpdates();
-
-                    // Now set the update's deletion flag so the next
-                    // time it is selected for execution by the scheduler
-                    // the collection will be skipped and the service will not
-                    // be rescheduled.
-                    LOG.debug("Marking CollectableService for deletion because a node was deleted:  Service nodeid={}, deleted node:{}", cSvc.getNodeId(), nodeId);
-                    updates.markForDeletion();
-                }
-
-                // Now safe to remove the collectable service from
-                // the collectable services list
-                liter.remove();
+        // Remove the entries which match the deleted nodeId from the
+        // collectable services and mark them for deletion.
+        for (CollectableService cSvc : getCollectableServices().removeByNode(nodeId.intValue())) {
+            synchronized (cSvc) {
+                // Retrieve the CollectorUpdates object associated
+                // with this CollectableService.
+                CollectorUpdates updates = cSvc.getCollectorUpdates();
+
+                // Now set the update's deletion flag so the next
+                // time it is selected for execution by the scheduler
+                // the collection will be skipped and the service will not
+                // be rescheduled.
+                LOG.debug("Marking CollectableService for deletion because a node was deleted: deleted node:{}", nodeId);
+                updates.markForDeletion();
             }
         }
 	}
@@ -1175,31 +1109,17 @@ public class Collectd extends AbstractServiceDaemon implements
             // primary SNMP interface and a service name of "SNMP" for
             // deletion.
             //
-            synchronized (getCollectableServices()) {
-                CollectableService cSvc = null;
-                ListIterator<CollectableService> liter = getCollectableServices().listIterator();
-                while (liter.hasNext()) {
-                    cSvc = liter.next();
-
-                    final InetAddress addr = (InetAddress) cSvc.getAddress();
-                    final String addrString = str(addr);
-					if (addrString != null && addrString.equals(oldPrimaryIfAddr)) {
-                        synchronized (cSvc) {
-                            // Got a match! Retrieve the CollectorUpdates
-                            // object
-                            // associated
-                            // with this CollectableService.
-                            CollectorUpdates updates = cSvc.getCollectorUpdates();
-
-                            // Now set the deleted flag
-                            updates.markForDeletion();
-                            LOG.debug("primarySnmpInterfaceChangedHandler: marking {} as deleted for service SNMP.", oldPrimaryIfAddr);
-                        }
+            for (CollectableService cSvc : getCollectableServices().removeByAddress(addr(oldPrimaryIfAddr))) {
+                synchronized (cSvc) {
+                    // Got a match! Retrieve the CollectorUpdates
+                    // object
+                    // associated
+                    // with this CollectableService.
+                    CollectorUpdates updates = cSvc.getCollectorUpdates();
 
-                        // Now safe to remove the collectable service from
-                        // the collectable services list
-                        liter.remove();
-                    }
+                    // Now set the deleted flag
+                    updates.markForDeletion();
+                    LOG.debug("primarySnmpInterfaceChangedHandler: marking {} as deleted for service SNMP.", oldPrimaryIfAddr);
                 }
             }
         }
@@ -1247,29 +1167,19 @@ public class Collectd extends AbstractServiceDaemon implements
         // address for reinitialization
         //
         OnmsIpInterface iface = null;
-        synchronized (getCollectableServices()) {
-            Iterator<CollectableService> iter = getCollectableServices().iterator();
-            while (iter.hasNext()) {
-                CollectableService cSvc = iter.next();
-        
-                final InetAddress addr = (InetAddress) cSvc.getAddress();
-                final String addrString = str(addr);
-                LOG.debug("Comparing CollectableService ip address = {} and event ip interface = {}", addrString, ipAddress);
-                if (addrString != null && addrString.equals(ipAddress) && cSvc.getNodeId() == nodeid.intValue()) {
-                    synchronized (cSvc) {
-                    	if (iface == null) {
-                            iface = getIpInterface(nodeid.intValue(), ipAddress);
-                    	}
-                        // Got a match! Retrieve the CollectorUpdates object
-                        // associated
-                        // with this CollectableService.
-                        CollectorUpdates updates = cSvc.getCollectorUpdates();
-        
-                        // Now set the reinitialization flag
-                        updates.markForReinitialization(iface);
-                        LOG.debug("reinitializePrimarySnmpInterfaceHandler: marking {} for reinitialization for service SNMP.", ipAddress);
-                    }
-                }
+        for (CollectableService cSvc : getCollectableServices().findByInterface(nodeid.intValue(), addr(ipAddress))) {
+            synchronized (cSvc) {
+            	if (iface == null) {
+                    iface = getIpInterface(nodeid.intValue(), ipAddress);
+            	}
+                // Got a match! Retrieve the CollectorUpdates object
+                // associated
+                // with this CollectableService.
+                CollectorUpdates updates = cSvc.getCollectorUpdates();
+
+                // Now set the reinitialization flag
+                updates.markForReinitialization(iface);
+                LOG.debug("reinitializePrimarySnmpInterfaceHandler: marking {} for reinitialization for service SNMP.", ipAddress);
             }
         }
     }
@@ -1300,41 +1210,20 @@ public class Collectd extends AbstractServiceDaemon implements
         String ipAddr = event.getInterface();
         String svcName = event.getService();
 
-        // Iterate over the collectable services list and mark any entries
-        // which match the nodeId/ipAddr of the deleted service
-        // for deletion.
-        synchronized (getCollectableServices()) {
-            CollectableService cSvc = null;
-            ListIterator<CollectableService> liter = getCollectableServices().listIterator();
-            while (liter.hasNext()) {
-                cSvc = liter.next();
-
-                // Only interested in entries with matching nodeId, IP address
-                // and service
-                InetAddress addr = (InetAddress) cSvc.getAddress();
-                
-                //WATCH the brackets; there used to be an extra close bracket after the ipAddr comparison which borked this whole expression
-                if (!(cSvc.getNodeId() == nodeId && 
-                        InetAddrUtils.str(addr).equals(ipAddr) &&
-                        cSvc.getServiceName().equals(svcName))) 
-                    continue;
-
-                synchronized (cSvc) {
-                    // Retrieve the CollectorUpdates object associated with
-                    // this CollectableService if one exists.
-                    CollectorUpdates updates = cSvc.getCollectorUpdates();
-
-                    // Now set the update's deletion flag so the next
-                    // time it is selected for execution by the scheduler
-                    // the collection will be skipped and the service will not
-                    // be rescheduled.
-                    LOG.debug("Marking CollectableService for deletion because a service was deleted:  Service nodeid={}, deleted node:{}, service address:{}, deleted interface:{}, service servicename:{}, deleted service name:{}, event source {}", cSvc.getNodeId(), nodeId, InetAddrUtils.str(addr), ipAddr, cSvc.getServiceName(), svcName, event.getSource());
-                    updates.markForDeletion();
-                }
-
-                // Now safe to remove the collectable service from
-                // the collectable services list
-                liter.remove();
+        // Remove the entries which match the nodeId/ipAddr of the deleted
+        // service from the collectable services and mark them for deletion.
+        for (CollectableService cSvc : getCollectableServices().removeByService(nodeId.intValue(), addr(ipAddr), svcName)) {
+            synchronized (cSvc) {
+                // Retrieve the CollectorUpdates object associated with
+                // this CollectableService if one exists.
+                CollectorUpdates updates = cSvc.getCollectorUpdates();
+
+                // Now set the update's deletion flag so the next
+                // time it is selected for execution by the scheduler
+                // the collection will be skipped and the service will not
+                // be rescheduled.
+                LOG.debug("Marking CollectableService for deletion because a service was deleted: deleted node:{}, deleted interface:{}, deleted service name:{}, event source {}", nodeId, ipAddr, svcName, event.getSource());
+                updates.markForDeletion();
             }
         }
 
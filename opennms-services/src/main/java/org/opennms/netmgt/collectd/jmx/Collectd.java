@@ -44,7 +44,7 @@ import javax.management.openmbean.TabularType;
 
 import org.opennms.netmgt.collectd.CollectableService;
 import org.opennms.netmgt.daemon.AbstractSpringContextJmxServiceDaemon;
-import org.opennms.netmgt.scheduler.LegacyScheduler;
+import org.opennms.netmgt.scheduler.PooledScheduler;
 
 /**
  * <p>Collectd class.</p>
@@ -186,39 +186,37 @@ public class Collectd extends AbstractSpringContextJmxServiceDaemon<org.opennms.
         final long currentTimeMs = System.currentTimeMillis();
         final TabularData tabularData = new TabularDataSupport(SCHEDULE_TABULAR_TYPE);
 
-        final List<CollectableService> collectableServiceList = getDaemon().getCollectableServices();
-
-        synchronized (collectableServiceList) {
-            final CompositeDataSupport[] compositeData = collectableServiceList.stream()
-                    .map(c -> {
-                                try {
-                                    final String ipAddress = str(c.getAddress());
-                                    final String pkg = c.getPackageName();
-                                    final String service = c.getServiceName();
-                                    final int nodeId = c.getNodeId();
-                                    final long intervalMs = c.getSpecification().getInterval();
-                                    final long lastRunAbsolute = c.getLastScheduledCollectionTime();
-                                    final long lastRunMs =  lastRunAbsolute - currentTimeMs;
-                                    final long timeLeftMs = c.getSpecification().getInterval() - (currentTimeMs - lastRunAbsolute);
-                                    final long nextRunMs = timeLeftMs;
-                                    final long nextRunAbsolute = lastRunAbsolute + timeLeftMs;
-
-                                    return new CompositeDataSupport(
-                                            SCHEDULE_COMPOSITE_TYPE,
-                                            SCHEDULE_ITEMS,
-                                            new Object[]{nodeId, ipAddress, pkg, service, intervalMs, lastRunMs, nextRunMs, lastRunAbsolute, nextRunAbsolute}
-                                    );
-                                } catch (OpenDataException e) {
-                                    throw new RuntimeException(e);
-                                }
+        final List<CollectableService> collectableServiceList = getDaemon().getCollectableServices().getAll();
+
+        final CompositeDataSupport[] compositeData = collectableServiceList.stream()
+                .map(c -> {
+                            try {
+                                final String ipAddress = str(c.getAddress());
+                                final String pkg = c.getPackageName();
+                                final String service = c.getServiceName();
+                                final int nodeId = c.getNodeId();
+                                final long intervalMs = c.getSpecification().getInterval();
+                                final long lastRunAbsolute = c.getLastScheduledCollectionTime();
+                                final long lastRunMs =  lastRunAbsolute - currentTimeMs;
+                                final long timeLeftMs = c.getSpecification().getInterval() - (currentTimeMs - lastRunAbsolute);
+                                final long nextRunMs = timeLeftMs;
+                                final long nextRunAbsolute = lastRunAbsolute + timeLeftMs;
+
+                                return new CompositeDataSupport(
+                                        SCHEDULE_COMPOSITE_TYPE,
+                                        SCHEDULE_ITEMS,
+                                        new Object[]{nodeId, ipAddress, pkg, service, intervalMs, lastRunMs, nextRunMs, lastRunAbsolute, nextRunAbsolute}
+                                );
+                            } catch (OpenDataException e) {
+                                throw new RuntimeException(e);
                             }
-                    )
-                    .toArray(CompositeDataSupport[]::new);
+                        }
+                )
+                .toArray(CompositeDataSupport[]::new);
 
-            tabularData.putAll(compositeData);
+        tabularData.putAll(compositeData);
 
-            return tabularData;
-        }
+        return tabularData;
     }
 
     @Override
@@ -227,10 +225,10 @@ public class Collectd extends AbstractSpringContextJmxServiceDaemon<org.opennms.
     }
     
     private ThreadPoolExecutor getExecutor() {
-        return (ThreadPoolExecutor) ((LegacyScheduler) getDaemon().getScheduler()).getRunner();
+        return (ThreadPoolExecutor) ((PooledScheduler) getDaemon().getScheduler()).getRunner();
     }
 
     private boolean getThreadPoolStatsStatus() {
-        return (getDaemon().getScheduler() instanceof LegacyScheduler);
+        return getDaemon().getScheduler() instanceof PooledScheduler;
     }
 }
@@ -28,24 +28,33 @@
 
 package org.opennms.netmgt.rtc;
 
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import org.opennms.core.criteria.Alias;
 import org.opennms.core.criteria.CriteriaBuilder;
-import org.opennms.core.criteria.restrictions.AllRestriction;
 import org.opennms.core.criteria.restrictions.GtRestriction;
-import org.opennms.core.criteria.restrictions.LeRestriction;
 import org.opennms.core.criteria.restrictions.NullRestriction;
-import org.opennms.core.criteria.restrictions.Restriction;
-import org.opennms.core.criteria.restrictions.Restrictions;
-import org.opennms.core.criteria.restrictions.SqlRestriction;
 import org.opennms.netmgt.dao.api.MonitoredServiceDao;
 import org.opennms.netmgt.dao.api.OutageDao;
 import org.opennms.netmgt.events.api.EventConstants;
 import org.opennms.netmgt.events.api.EventDatetimeFormatter;
+import org.opennms.netmgt.events.api.EventListener;
+import org.opennms.netmgt.events.api.EventSubscriptionService;
+import org.opennms.netmgt.events.api.model.IEvent;
+import org.opennms.netmgt.events.api.model.IParm;
 import org.opennms.netmgt.filter.api.FilterDao;
 import org.opennms.netmgt.model.OnmsMonitoredService;
 import org.opennms.netmgt.model.OnmsOutage;
@@ -56,24 +65,45 @@ import org.opennms.netmgt.xml.rtc.Header;
 import org.opennms.netmgt.xml.rtc.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-
 /**
- * This implementation of the {@link AvailabilityService} uses database calls
- * and stored procedures to calculate the availability percentages.
- * 
+ * This implementation of the {@link AvailabilityService} calculates the availability percentages
+ * from an in-memory {@link OutageIntervalIndex}.
+ *
+ * The index is loaded from the database, kept up to date with the outage and inventory events,
+ * and reloaded from the database periodically to correct any drift. Calculating the availability
+ * does not access the database, except for loading the index and the nodes of the categories.
+ *
  * @author Seth
  * @author Jesse White <jesse@opennms.org>
  */
-public class AvailabilityServiceHibernateImpl implements AvailabilityService {
+public class AvailabilityServiceHibernateImpl implements AvailabilityService, EventListener, InitializingBean, DisposableBean {
 
 	private static final Logger LOG = LoggerFactory.getLogger(AvailabilityServiceHibernateImpl.class);
 
+	/**
+	 * The rolling window over which the availability is calculated
+	 */
+	private static final long ROLLING_WINDOW = 24L * 60L * 60L * 1000L;
+
+	private static final List<String> UEIS = Arrays.asList(
+		EventConstants.OUTAGE_CREATED_EVENT_UEI,
+		EventConstants.OUTAGE_RESOLVED_EVENT_UEI,
+		EventConstants.NODE_GAINED_SERVICE_EVENT_UEI,
+		EventConstants.SERVICE_DELETED_EVENT_UEI,
+		EventConstants.SERVICE_UNMANAGED_EVENT_UEI,
+		EventConstants.INTERFACE_DELETED_EVENT_UEI,
+		EventConstants.NODE_DELETED_EVENT_UEI,
+		EventConstants.NODE_ADDED_EVENT_UEI,
+		EventConstants.NODE_UPDATED_EVENT_UEI,
+		EventConstants.INTERFACE_REPARENTED_EVENT_UEI,
+		EventConstants.NODE_CATEGORY_MEMBERSHIP_CHANGED_EVENT_UEI,
+		EventConstants.ASSET_INFO_CHANGED_EVENT_UEI);
+
 	@Autowired
 	private FilterDao m_filterDao;
 
@@ -83,8 +113,30 @@ public class AvailabilityServiceHibernateImpl implements AvailabilityService {
 	@Autowired
 	private OutageDao m_outageDao;
 
+	private EventSubscriptionService m_eventSubscriptionService;
+
     private static final EventDatetimeFormatter FORMATTER = EventConstants.getEventDatetimeFormatter();
 
+    private long m_resyncInterval = TimeUnit.MINUTES.toMillis(5);
+
+    private volatile OutageIntervalIndex m_index;
+    private volatile long m_lastResync;
+    private final Lock m_resyncLock = new ReentrantLock();
+
+    /**
+     * Updates received while the index is being reloaded, applied again to the reloaded index.
+     * Guarded by m_updateLock, null when no reload is in progress.
+     */
+    private List<Consumer<OutageIntervalIndex>> m_updatesDuringResync;
+    private final Object m_updateLock = new Object();
+
+    /**
+     * Node ids, keyed by the effective rule of the category. Cleared whenever the inventory changes.
+     */
+    private final Map<String, List<Integer>> m_nodeIdsByRule = new ConcurrentHashMap<>();
+
+    private final Map<String, Pattern> m_serviceNamePatterns = new ConcurrentHashMap<>();
+
     /**
      * Builds a map of configured categories, keyed by label.
      *
@@ -98,15 +150,15 @@ public class AvailabilityServiceHibernateImpl implements AvailabilityService {
     /**
      * Optimized method for calculating the category statistics.
      *
-     * We start off by retrieving outages affecting the nodes and services
-     * in the given category, and group these by node id.
-     *
-     * Using the outages, we calculate node-level statistics
-     * and tally the values to calculate the category statistics.
+     * We look up the services and outages of every node in the given category
+     * in the index, calculate node-level statistics and tally the values to
+     * calculate the category statistics.
      */
     @Override
     @Transactional(readOnly=true)
-    public synchronized EuiLevel getEuiLevel(RTCCategory category) {
+    public EuiLevel getEuiLevel(RTCCategory category) {
+        final OutageIntervalIndex index = getIndex();
+
         final Header header = new Header();
         header.setVer("1.9a");
         header.setMstation("");
@@ -116,7 +168,7 @@ public class AvailabilityServiceHibernateImpl implements AvailabilityService {
         final long curTime = curDate.getTime();
 
         // get the rolling window
-        final long rWindow = 24L * 60L * 60L * 1000L;
+        final long rWindow = ROLLING_WINDOW;
 
         LOG.debug("Retrieving availability statistics for {} with current date: {} and rolling window: {}",
                     category.getLabel(), curDate, rWindow);
@@ -144,26 +196,20 @@ public class AvailabilityServiceHibernateImpl implements AvailabilityService {
         final List<Integer> nodeIds = getNodes(category);
         final List<String> serviceNames = category.getServices();
 
-        // retrieve the outages associated with the given nodes, only retrieving those that affect our window
-        final Map<Integer, List<OnmsOutage>> outagesByNode = getOutages(nodeIds, serviceNames, windowStart, windowEnd);
+        final Predicate<String> serviceFilter = getServiceFilter(serviceNames);
 
         // calculate the node level statistics
         for (final int nodeId : nodeIds) {
-            List<OnmsOutage> outages = outagesByNode.get(nodeId);
-            if (outages == null) {
-                outages = Lists.newArrayList();
-            }
+            final OutageIntervalIndex.NodeSummary summary = index.getNodeSummary(nodeId, serviceFilter, windowStart.getTime(), windowEnd.getTime());
 
             // sum the outage time
-            final double outageTime = getOutageTimeInWindow(outages, windowStart, windowEnd);
+            final double outageTime = summary.getOutageTime();
 
             // determine the number of services
-            final int numServices = getNumServices(nodeId, serviceNames);
+            final int numServices = summary.getNumServices();
 
             // count the number of outstanding outages
-            final long numServicesDown = outages.stream()
-                    .filter(outage -> outage.getIfRegainedService() == null)
-                    .count();
+            final long numServicesDown = summary.getNumServicesDown();
 
             final Node levelNode = new Node();
             levelNode.setNodeid(nodeId);
@@ -196,97 +242,215 @@ public class AvailabilityServiceHibernateImpl implements AvailabilityService {
         return level;
     }
 
-    private static double getOutageTimeInWindow(List<OnmsOutage> outages, Date start, Date end) {
-        if (outages == null || outages.size() == 0) {
-            return 0.0d;
+    private Predicate<String> getServiceFilter(final List<String> serviceNames) {
+        if (serviceNames == null || serviceNames.size() == 0) {
+            return serviceName -> true;
         }
-
-        final long windowStart = start.getTime();
-        final long windowEnd = end.getTime();
-        Preconditions.checkArgument(0 <= windowStart && windowStart < windowEnd);
-
-        long downtimeInWindow = 0;
-        for (final OnmsOutage outage : outages) {
-            // When did the service go down?
-            // Use the start of the window if the service went down before this
-            final long lostAt = Math.max(windowStart, outage.getIfLostService().getTime());
-
-            // When did the service come back up?
-            long regainedAt;
-            if (outage.getIfRegainedService() == null) {
-                // It's still offline - use the end of the window
-                regainedAt = windowEnd;
+        final List<Predicate<String>> filters = serviceNames.stream().map(e -> {
+            if (e.startsWith("~")) {
+                final Pattern pattern = m_serviceNamePatterns.computeIfAbsent(e.substring(1), Pattern::compile);
+                return (Predicate<String>) serviceName -> pattern.matcher(serviceName).find();
             } else {
-                // Use the end of the window if the service came back up after this
-                regainedAt = Math.min(windowEnd, outage.getIfRegainedService().getTime());
+                return (Predicate<String>) e::equals;
             }
+        }).collect(Collectors.toList());
+        return serviceName -> filters.stream().anyMatch(filter -> filter.test(serviceName));
+    }
 
-            downtimeInWindow += (regainedAt - lostAt);
+    private OutageIntervalIndex getIndex() {
+        final OutageIntervalIndex index = m_index;
+        if (index == null) {
+            // Nothing to answer with yet, wait for the index to be loaded
+            m_resyncLock.lock();
+            try {
+                if (m_index == null) {
+                    doResync();
+                }
+            } finally {
+                m_resyncLock.unlock();
+            }
+        } else if (System.currentTimeMillis() - m_lastResync >= m_resyncInterval && m_resyncLock.tryLock()) {
+            // Reload the index, unless another thread already is
+            try {
+                doResync();
+            } finally {
+                m_resyncLock.unlock();
+            }
         }
-
-        return downtimeInWindow;
+        return m_index;
     }
 
-    private int getNumServices(int nodeId, List<String> serviceNames) {
-        final CriteriaBuilder builder = new CriteriaBuilder(OnmsMonitoredService.class)
-            .alias("ipInterface", "ipInterface")
-            .alias("ipInterface.node", "node")
-            .eq("ipInterface.isManaged", "M")
-            .eq("node.id", nodeId);
+    /**
+     * Reloads the index from the database.
+     */
+    @Transactional(readOnly=true)
+    public void resync() {
+        m_resyncLock.lock();
+        try {
+            doResync();
+        } finally {
+            m_resyncLock.unlock();
+        }
+    }
 
-        if (serviceNames != null && serviceNames.size() > 0) {
-            builder.alias("serviceType", "serviceType").or(getServiceNameRestrictions(serviceNames));
+    private void doResync() {
+        final long start = System.currentTimeMillis();
+        synchronized (m_updateLock) {
+            m_updatesDuringResync = new ArrayList<>();
         }
+        try {
+            final OutageIntervalIndex index = new OutageIntervalIndex(ROLLING_WINDOW);
+
+            final CriteriaBuilder serviceBuilder = new CriteriaBuilder(OnmsMonitoredService.class)
+                .alias("ipInterface", "ipInterface")
+                .alias("serviceType", "serviceType")
+                .eq("ipInterface.isManaged", "M");
+            for (final OnmsMonitoredService service : m_monitoredServiceDao.findMatching(serviceBuilder.toCriteria())) {
+                index.serviceAdded(service.getNodeId(), service.getIpAddress(), service.getServiceName());
+            }
 
-        // Retrieve the services and group them by node id
-        return m_monitoredServiceDao.countMatching(builder.toCriteria());
+            final CriteriaBuilder outageBuilder = new CriteriaBuilder(OnmsOutage.class)
+                .isNull("perspective")
+                // Only select the outages which are still open or were cleared after the start of the window
+                .or(new NullRestriction("ifRegainedService"),
+                    new GtRestriction("ifRegainedService", new Date(start - ROLLING_WINDOW)))
+                .alias("monitoredService", "monitoredService")
+                .alias("monitoredService.ipInterface", "ipInterface")
+                .alias("monitoredService.serviceType", "serviceType")
+                .eq("ipInterface.isManaged", "M")
+                .orderBy("ifLostService");
+            for (final OnmsOutage outage : m_outageDao.findMatching(outageBuilder.toCriteria())) {
+                index.outageLoaded(outage.getNodeId(), outage.getIpAddress(), outage.getMonitoredService().getServiceName(),
+                        outage.getIfLostService().getTime(),
+                        outage.getIfRegainedService() != null ? outage.getIfRegainedService().getTime() : null);
+            }
+
+            synchronized (m_updateLock) {
+                // Apply the updates which may have been missed by the queries
+                m_updatesDuringResync.forEach(update -> update.accept(index));
+                m_index = index;
+                m_nodeIdsByRule.clear();
+            }
+            m_lastResync = start;
+            LOG.debug("Loaded the availability index in {}ms.", System.currentTimeMillis() - start);
+        } finally {
+            synchronized (m_updateLock) {
+                m_updatesDuringResync = null;
+            }
+        }
     }
 
-    private Restriction[] getServiceNameRestrictions(final List<String> serviceNames) {
-        return serviceNames.stream().map(e -> {
-            if (e.startsWith("~")) {
-                return Restrictions.regExp("serviceType.name", e.substring(1));
-            } else {
-                return Restrictions.eq("serviceType.name", e);
+    private void update(final Consumer<OutageIntervalIndex> update) {
+        synchronized (m_updateLock) {
+            final OutageIntervalIndex index = m_index;
+            if (index != null) {
+                update.accept(index);
             }
-        }).toArray(Restriction[]::new);
+            if (m_updatesDuringResync != null) {
+                m_updatesDuringResync.add(update);
+            }
+        }
     }
 
-    private Map<Integer, List<OnmsOutage>> getOutages(List<Integer> nodeIds, List<String> serviceNames, Date start, Date end) {
-        if (nodeIds == null || nodeIds.size() == 0) {
-            return Maps.newHashMap();
+    @Override
+    public void afterPropertiesSet() {
+        // The index is kept up to date with events, and loaded on first use
+        m_eventSubscriptionService.addEventListener(this, UEIS);
+    }
+
+    @Override
+    public void destroy() {
+        m_eventSubscriptionService.removeEventListener(this, UEIS);
+    }
+
+    @Override
+    public String getName() {
+        return "RTC:AvailabilityService";
+    }
+
+    @Override
+    public void onEvent(final IEvent event) {
+        final IParm perspective = event.getParm("perspective");
+        if (perspective != null && perspective.getValue() != null) {
+            LOG.trace("Event's perspective is not null, nothing to process");
+            return;
         }
 
-        final CriteriaBuilder builder = new CriteriaBuilder(OnmsOutage.class)
-            // The outage must have started before the end of the window
-            .isNull("perspective")
-            .le("ifLostService", end)
-            .or(new NullRestriction("ifRegainedService"), // The outage is ongoing
-                new AllRestriction( // or the outage was cleared somewhere in the window
-                    new GtRestriction("ifRegainedService", start),
-                    new LeRestriction("ifRegainedService", end))
-            )
-            // Only select outages affecting our nodes
-            .alias("monitoredService", "monitoredService")
-            .alias("monitoredService.ipInterface", "ipInterface")
-            .alias("ipInterface.node", "node")
-            .eq("ipInterface.isManaged", "M")
-            .in("node.id", nodeIds);
-
-        // Only select outages affecting services with the given names, if set
-        if (serviceNames != null && serviceNames.size() > 0) {
-            builder.alias("monitoredService.serviceType", "serviceType").or(getServiceNameRestrictions(serviceNames));
+        final String uei = event.getUei();
+        final int nodeId = event.hasNodeid() ? event.getNodeid().intValue() : -1;
+        final InetAddress ip = event.getInterfaceAddress();
+        final String svcName = event.getService();
+        final long eventTime = event.getTime().getTime();
+
+        if (EventConstants.OUTAGE_CREATED_EVENT_UEI.equals(uei)) {
+            if (nodeId != -1 && ip != null && svcName != null) {
+                update(index -> index.outageCreated(nodeId, ip, svcName, eventTime));
+            }
+            return;
+        } else if (EventConstants.OUTAGE_RESOLVED_EVENT_UEI.equals(uei)) {
+            if (nodeId != -1 && ip != null && svcName != null) {
+                update(index -> index.outageResolved(nodeId, ip, svcName, eventTime));
+            }
+            return;
+        }
+
+        // Everything else may change the nodes in the categories
+        m_nodeIdsByRule.clear();
+
+        if (EventConstants.NODE_GAINED_SERVICE_EVENT_UEI.equals(uei)) {
+            if (nodeId != -1 && ip != null && svcName != null) {
+                update(index -> index.serviceAdded(nodeId, ip, svcName));
+            }
+        } else if (EventConstants.SERVICE_DELETED_EVENT_UEI.equals(uei) || EventConstants.SERVICE_UNMANAGED_EVENT_UEI.equals(uei)) {
+            if (nodeId != -1 && ip != null && svcName != null) {
+                update(index -> index.serviceRemoved(nodeId, ip, svcName));
+            }
+        } else if (EventConstants.INTERFACE_DELETED_EVENT_UEI.equals(uei)) {
+            if (nodeId != -1 && ip != null) {
+                update(index -> index.interfaceRemoved(nodeId, ip));
+            }
+        } else if (EventConstants.NODE_DELETED_EVENT_UEI.equals(uei)) {
+            if (nodeId != -1) {
+                update(index -> index.nodeRemoved(nodeId));
+            }
+        } else if (EventConstants.INTERFACE_REPARENTED_EVENT_UEI.equals(uei)) {
+            final int oldNodeId = getIntParm(event, EventConstants.PARM_OLD_NODEID);
+            final int newNodeId = getIntParm(event, EventConstants.PARM_NEW_NODEID);
+            if (ip != null && oldNodeId != -1 && newNodeId != -1) {
+                update(index -> index.interfaceReparented(ip, oldNodeId, newNodeId));
+            }
+        }
+    }
+
+    private static int getIntParm(final IEvent event, final String name) {
+        final IParm parm = event.getParm(name);
+        if (parm == null || parm.getValue() == null) {
+            return -1;
         }
+        try {
+            return Integer.parseInt(parm.getValue().getContent());
+        } catch (NumberFormatException nfe) {
+            LOG.warn("Parameter {} cannot be non-numeric", name, nfe);
+            return -1;
+        }
+    }
+
+    public void setEventSubscriptionService(EventSubscriptionService eventSubscriptionService) {
+        m_eventSubscriptionService = eventSubscriptionService;
+    }
 
-        // Retrieve the outages and group them by node id
-        return m_outageDao.findMatching(builder.toCriteria()).stream()
-            .collect(Collectors.groupingBy(OnmsOutage::getNodeId));
+    public void setResyncInterval(long resyncInterval) {
+        m_resyncInterval = resyncInterval;
     }
 
     private List<Integer> getNodes(RTCCategory category) {
         // Refresh the list of nodes contained inside the RTCCategory
+        final String rule = category.getEffectiveRule();
+        final Collection<Integer> nodeIds = rule != null
+                ? m_nodeIdsByRule.computeIfAbsent(rule, r -> new ArrayList<>(RTCUtils.getNodeIdsForCategory(m_filterDao, category)))
+                : RTCUtils.getNodeIdsForCategory(m_filterDao, category);
         category.clearNodes();
-        category.addAllNodes(RTCUtils.getNodeIdsForCategory(m_filterDao,  category));
+        category.addAllNodes(nodeIds);
         return category.getNodes();
     }
 }
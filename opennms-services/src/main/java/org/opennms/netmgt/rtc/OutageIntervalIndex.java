@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.rtc;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.opennms.netmgt.rtc.datablock.RTCNodeKey;
+
+/**
+ * In-memory index of the managed services of every node, along with the outages which
+ * affected them within the retention period.
+ *
+ * Updates must be serialized by the caller, lookups can be made concurrently with updates.
+ * Updates are idempotent so that events which raced with a reload from the database can
+ * safely be applied twice.
+ */
+public class OutageIntervalIndex {
+
+    private static final long OPEN = Long.MAX_VALUE;
+
+    private final long m_retention;
+
+    private final Map<Integer, Map<RTCNodeKey, ServiceOutages>> m_servicesByNode = new ConcurrentHashMap<>();
+
+    /**
+     * @param retention how long resolved outages are kept, in milliseconds
+     */
+    public OutageIntervalIndex(long retention) {
+        m_retention = retention;
+    }
+
+    /**
+     * Outages of a single service, stored as (lost, regained) pairs ordered by the time
+     * the service was lost. The array is replaced on every change.
+     */
+    private static class ServiceOutages {
+        private volatile long[] m_intervals = new long[0];
+
+        private boolean isDown() {
+            final long[] intervals = m_intervals;
+            return intervals.length > 0 && intervals[intervals.length - 1] == OPEN;
+        }
+    }
+
+    public static class NodeSummary {
+        private final int m_numServices;
+        private final int m_numServicesDown;
+        private final long m_outageTime;
+
+        private NodeSummary(int numServices, int numServicesDown, long outageTime) {
+            m_numServices = numServices;
+            m_numServicesDown = numServicesDown;
+            m_outageTime = outageTime;
+        }
+
+        public int getNumServices() {
+            return m_numServices;
+        }
+
+        public int getNumServicesDown() {
+            return m_numServicesDown;
+        }
+
+        /**
+         * @return the sum of the outage time of all services, in milliseconds
+         */
+        public long getOutageTime() {
+            return m_outageTime;
+        }
+    }
+
+    public void serviceAdded(int nodeId, InetAddress ip, String svcName) {
+        m_servicesByNode.computeIfAbsent(nodeId, k -> new ConcurrentHashMap<>())
+            .putIfAbsent(new RTCNodeKey(nodeId, ip, svcName), new ServiceOutages());
+    }
+
+    public void serviceRemoved(int nodeId, InetAddress ip, String svcName) {
+        final Map<RTCNodeKey, ServiceOutages> services = m_servicesByNode.get(nodeId);
+        if (services != null) {
+            services.remove(new RTCNodeKey(nodeId, ip, svcName));
+        }
+    }
+
+    public void interfaceRemoved(int nodeId, InetAddress ip) {
+        final Map<RTCNodeKey, ServiceOutages> services = m_servicesByNode.get(nodeId);
+        if (services != null) {
+            services.keySet().removeIf(key -> ip.equals(key.getIP()));
+        }
+    }
+
+    public void nodeRemoved(int nodeId) {
+        m_servicesByNode.remove(nodeId);
+    }
+
+    /**
+     * Moves the services of the given interface, along with their outages, to another node.
+     */
+    public void interfaceReparented(InetAddress ip, int oldNodeId, int newNodeId) {
+        final Map<RTCNodeKey, ServiceOutages> oldServices = m_servicesByNode.get(oldNodeId);
+        if (oldServices == null) {
+            return;
+        }
+        final Map<RTCNodeKey, ServiceOutages> newServices = m_servicesByNode.computeIfAbsent(newNodeId, k -> new ConcurrentHashMap<>());
+        for (final RTCNodeKey key : oldServices.keySet()) {
+            if (ip.equals(key.getIP())) {
+                newServices.put(new RTCNodeKey(newNodeId, ip, key.getSvcName()), oldServices.remove(key));
+            }
+        }
+    }
+
+    /**
+     * Opens an outage on the given service, unless one is already open.
+     * Outages on services which are not in the index are ignored.
+     */
+    public void outageCreated(int nodeId, InetAddress ip, String svcName, long lostAt) {
+        final ServiceOutages outages = getServiceOutages(nodeId, ip, svcName);
+        if (outages == null || outages.isDown()) {
+            return;
+        }
+        final long[] intervals = prune(outages.m_intervals, lostAt - m_retention, 2);
+        intervals[intervals.length - 2] = lostAt;
+        intervals[intervals.length - 1] = OPEN;
+        outages.m_intervals = intervals;
+    }
+
+    /**
+     * Closes the open outage on the given service, if any.
+     */
+    public void outageResolved(int nodeId, InetAddress ip, String svcName, long regainedAt) {
+        final ServiceOutages outages = getServiceOutages(nodeId, ip, svcName);
+        if (outages == null || !outages.isDown()) {
+            return;
+        }
+        final long[] intervals = prune(outages.m_intervals, regainedAt - m_retention, 0);
+        intervals[intervals.length - 1] = Math.max(regainedAt, intervals[intervals.length - 2]);
+        outages.m_intervals = intervals;
+    }
+
+    /**
+     * Adds an outage which was loaded from the database. Outages must be added in the
+     * order in which the services were lost.
+     *
+     * @param regainedAt the time the service was regained, or null if the outage is still open
+     */
+    public void outageLoaded(int nodeId, InetAddress ip, String svcName, long lostAt, Long regainedAt) {
+        final ServiceOutages outages = getServiceOutages(nodeId, ip, svcName);
+        if (outages == null) {
+            return;
+        }
+        final long[] intervals = Arrays.copyOf(outages.m_intervals, outages.m_intervals.length + 2);
+        intervals[intervals.length - 2] = lostAt;
+        intervals[intervals.length - 1] = regainedAt != null ? regainedAt : OPEN;
+        outages.m_intervals = intervals;
+    }
+
+    /**
+     * Tallies the services of the given node which match the given filter, and the time they
+     * were down within the given window.
+     */
+    public NodeSummary getNodeSummary(int nodeId, Predicate<String> serviceFilter, long windowStart, long windowEnd) {
+        final Map<RTCNodeKey, ServiceOutages> services = m_servicesByNode.getOrDefault(nodeId, Collections.emptyMap());
+        int numServices = 0;
+        int numServicesDown = 0;
+        long outageTime = 0;
+        for (final Map.Entry<RTCNodeKey, ServiceOutages> service : services.entrySet()) {
+            if (!serviceFilter.test(service.getKey().getSvcName())) {
+                continue;
+            }
+            numServices++;
+
+            final long[] intervals = service.getValue().m_intervals;
+            for (int i = 0; i < intervals.length; i += 2) {
+                if (intervals[i + 1] == OPEN) {
+                    numServicesDown++;
+                }
+                // Only count the part of the outage which lies within the window
+                final long lostAt = Math.max(windowStart, intervals[i]);
+                final long regainedAt = Math.min(windowEnd, intervals[i + 1]);
+                if (lostAt < regainedAt) {
+                    outageTime += regainedAt - lostAt;
+                }
+            }
+        }
+        return new NodeSummary(numServices, numServicesDown, outageTime);
+    }
+
+    private ServiceOutages getServiceOutages(int nodeId, InetAddress ip, String svcName) {
+        final Map<RTCNodeKey, ServiceOutages> services = m_servicesByNode.get(nodeId);
+        return services != null ? services.get(new RTCNodeKey(nodeId, ip, svcName)) : null;
+    }
+
+    /**
+     * Copies the intervals which were still open after the given time, leaving room for extra entries at the end.
+     */
+    private static long[] prune(long[] intervals, long since, int extra) {
+        int first = 0;
+        while (first < intervals.length && intervals[first + 1] < since) {
+            first += 2;
+        }
+        final long[] pruned = new long[intervals.length - first + extra];
+        System.arraycopy(intervals, first, pruned, 0, intervals.length - first);
+        return pruned;
+    }
+}
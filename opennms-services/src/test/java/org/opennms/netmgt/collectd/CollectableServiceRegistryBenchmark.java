@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.collectd;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opennms.core.utils.InetAddressUtils;
+
+/**
+ * Use the Java Microbenchmarking Harness (JMH) to measure the latency of handling node and service deletions with
+ * 100k and 1M collectable services.
+ * <p>
+ * Each node has two interfaces with two services each. Every benchmark method call removes the services of one node
+ * or of one service and registers them again afterwards, either in the {@link CollectableServiceRegistry} or in a
+ * synchronized linked list which is scanned as a whole, as Collectd did before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CollectableServiceRegistryBenchmark {
+
+    private static final String[] SERVICES = { "SNMP", "JMX" };
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    private static class Entry {
+        private final int nodeId;
+        private final InetAddress address;
+        private final String serviceName;
+
+        private Entry(final int nodeId, final InetAddress address, final String serviceName) {
+            this.nodeId = nodeId;
+            this.address = address;
+            this.serviceName = serviceName;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+        @Param({"100000", "1000000"})
+        public int serviceCount;
+
+        private CollectableService service;
+        private CollectableServiceRegistry registry;
+        private List<Entry> list;
+        private int nodeCount;
+        private int next;
+
+        @Setup
+        public void setup() {
+            service = mock(CollectableService.class, withSettings().stubOnly());
+            registry = new CollectableServiceRegistry();
+            list = Collections.synchronizedList(new LinkedList<>());
+
+            nodeCount = serviceCount / 4;
+            for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+                for (final Entry entry : entries(nodeId)) {
+                    registry.add(key(entry), service);
+                    list.add(entry);
+                }
+            }
+        }
+
+        private int nextNodeId() {
+            next = (next + 7919) % nodeCount;
+            return next;
+        }
+
+        private static InetAddress address(final int nodeId, final int iface) {
+            final int i = nodeId * 2 + iface;
+            return InetAddressUtils.addr(String.format("10.%d.%d.%d", (i >> 16) & 0xff, (i >> 8) & 0xff, i & 0xff));
+        }
+
+        private static List<Entry> entries(final int nodeId) {
+            final List<Entry> entries = new ArrayList<>(4);
+            for (int iface = 0; iface < 2; iface++) {
+                for (final String serviceName : SERVICES) {
+                    entries.add(new Entry(nodeId, address(nodeId, iface), serviceName));
+                }
+            }
+            return entries;
+        }
+
+        private static CollectableServiceRegistry.Key key(final Entry entry) {
+            return new CollectableServiceRegistry.Key(entry.nodeId, entry.address, entry.serviceName, "default");
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void indexedNodeDeleted(BState state, Blackhole blackhole) {
+        final int nodeId = state.nextNodeId();
+        blackhole.consume(state.registry.removeByNode(nodeId));
+        for (final Entry entry : BState.entries(nodeId)) {
+            state.registry.add(BState.key(entry), state.service);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void linearNodeDeleted(BState state, Blackhole blackhole) {
+        final int nodeId = state.nextNodeId();
+        synchronized (state.list) {
+            final ListIterator<Entry> liter = state.list.listIterator();
+            while (liter.hasNext()) {
+                final Entry entry = liter.next();
+                if (entry.nodeId == nodeId) {
+                    blackhole.consume(entry);
+                    liter.remove();
+                }
+            }
+        }
+        state.list.addAll(BState.entries(nodeId));
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void indexedServiceDeleted(BState state, Blackhole blackhole) {
+        final int nodeId = state.nextNodeId();
+        final Entry deleted = new Entry(nodeId, BState.address(nodeId, 1), "JMX");
+        blackhole.consume(state.registry.removeByService(nodeId, deleted.address, deleted.serviceName));
+        state.registry.add(BState.key(deleted), state.service);
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void linearServiceDeleted(BState state, Blackhole blackhole) {
+        final int nodeId = state.nextNodeId();
+        final Entry deleted = new Entry(nodeId, BState.address(nodeId, 1), "JMX");
+        synchronized (state.list) {
+            final ListIterator<Entry> liter = state.list.listIterator();
+            while (liter.hasNext()) {
+                final Entry entry = liter.next();
+                if (entry.nodeId == nodeId && entry.address.equals(deleted.address) && entry.serviceName.equals(deleted.serviceName)) {
+                    blackhole.consume(entry);
+                    liter.remove();
+                }
+            }
+        }
+        state.list.add(deleted);
+    }
+}
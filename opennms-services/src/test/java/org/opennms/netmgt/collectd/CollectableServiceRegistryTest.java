@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.collectd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.opennms.core.utils.InetAddressUtils.addr;
+
+import java.net.InetAddress;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class CollectableServiceRegistryTest {
+
+    private static final InetAddress ADDR1 = addr("10.0.0.1");
+    private static final InetAddress ADDR2 = addr("10.0.0.2");
+
+    private final CollectableServiceRegistry registry = new CollectableServiceRegistry();
+
+    private CollectableService register(int nodeId, InetAddress address, String serviceName, String packageName) {
+        final CollectableService service = mock(CollectableService.class);
+        assertTrue(registry.add(new CollectableServiceRegistry.Key(nodeId, address, serviceName, packageName), service));
+        return service;
+    }
+
+    @Test
+    public void canFindAndRemoveServices() {
+        final CollectableService snmp1 = register(1, ADDR1, "SNMP", "default");
+        final CollectableService jmx1 = register(1, ADDR1, "JMX", "default");
+        final CollectableService snmp2 = register(1, ADDR2, "SNMP", "default");
+        final CollectableService snmp3 = register(2, ADDR1, "SNMP", "default");
+        assertEquals(4, registry.size());
+
+        assertTrue(registry.contains(1, ADDR1, "SNMP", "default"));
+        assertFalse(registry.contains(1, ADDR1, "SNMP", "other"));
+        assertFalse(registry.add(new CollectableServiceRegistry.Key(1, ADDR1, "SNMP", "default"), mock(CollectableService.class)));
+
+        assertEquals(2, registry.findByInterface(1, ADDR1).size());
+        assertEquals(3, registry.findByAddress(ADDR1).size());
+
+        assertEquals(Collections.singletonList(jmx1), registry.removeByService(1, ADDR1, "JMX"));
+        assertEquals(Collections.singletonList(snmp1), registry.removeByInterface(1, ADDR1));
+        assertEquals(Collections.singletonList(snmp3), registry.findByAddress(ADDR1));
+        assertEquals(Collections.singletonList(snmp2), registry.removeByNode(1));
+        assertEquals(Collections.singletonList(snmp3), registry.removeByAddress(ADDR1));
+
+        assertEquals(0, registry.size());
+        assertTrue(registry.removeByNode(1).isEmpty());
+    }
+
+    @Test
+    public void canReparentServices() {
+        final CollectableService snmp = register(1, ADDR1, "SNMP", "default");
+        final CollectableService other = register(1, ADDR2, "SNMP", "default");
+
+        registry.reparent(ADDR1, 1, 2);
+
+        assertTrue(registry.findByInterface(1, ADDR1).isEmpty());
+        assertEquals(Collections.singletonList(snmp), registry.findByInterface(2, ADDR1));
+        assertEquals(Collections.singletonList(other), registry.removeByNode(1));
+        assertEquals(Collections.singletonList(snmp), registry.removeByNode(2));
+    }
+
+    @Test
+    public void canRemoveServicesMatchingFilter() {
+        final CollectableService snmp = register(1, ADDR1, "SNMP", "default");
+        register(2, ADDR2, "JMX", "default");
+
+        assertEquals(Collections.singletonList(snmp), registry.removeIf(service -> service == snmp));
+        assertEquals(1, registry.size());
+        assertTrue(registry.findByInterface(1, ADDR1).isEmpty());
+    }
+}
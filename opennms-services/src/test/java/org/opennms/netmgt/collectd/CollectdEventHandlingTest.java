@@ -99,9 +99,12 @@ public class CollectdEventHandlingTest {
         assertFalse("deletion flag was set on svc2!", svc2.getCollectorUpdates().isDeletionFlagSet());
 
         verify(svc1, times(2)).getCollectorUpdates();
-        verify(svc1, times(3)).getNodeId();
+        verify(svc1, times(2)).getNodeId();
+        verify(svc1, times(1)).getAddress();
+        verify(svc1, times(1)).getServiceName();
+        verify(svc1, times(1)).getPackageName();
         verify(svc2, times(1)).getCollectorUpdates();
-        verify(svc2, times(1)).getNodeId();
+        verifyRegistered(svc2);
     }
 
     @Test
@@ -126,10 +129,11 @@ public class CollectdEventHandlingTest {
 
         verify(svc1, times(2)).getCollectorUpdates();
         verify(svc1, times(2)).getAddress();
-        verify(svc1, times(3)).getNodeId();
-        verify(svc2, times(1)).getAddress();
+        verify(svc1, times(2)).getNodeId();
+        verify(svc1, times(1)).getServiceName();
+        verify(svc1, times(1)).getPackageName();
         verify(svc2, times(1)).getCollectorUpdates();
-        verify(svc2, times(1)).getNodeId();
+        verifyRegistered(svc2);
     }
 
     @Test
@@ -153,12 +157,23 @@ public class CollectdEventHandlingTest {
         assertFalse("deletion flag was set on svc1!", svc1.getCollectorUpdates().isDeletionFlagSet());
         assertTrue("deletion flag was not set on svc2!", svc2.getCollectorUpdates().isDeletionFlagSet());
 
-        verify(svc1, times(1)).getAddress();
         verify(svc1, times(1)).getCollectorUpdates();
-        verify(svc1, times(1)).getNodeId();
         verify(svc2, times(2)).getAddress();
         verify(svc2, times(2)).getCollectorUpdates();
-        verify(svc2, times(3)).getNodeId();
-        verify(svc2, times(3)).getServiceName();
+        verify(svc2, times(2)).getNodeId();
+        verify(svc2, times(2)).getServiceName();
+        verify(svc2, times(1)).getPackageName();
+        verifyRegistered(svc1);
+    }
+
+    /**
+     * Verifies the calls made while registering the service. A service which is not affected by an event must not
+     * be touched by the event handlers.
+     */
+    private static void verifyRegistered(CollectableService svc) {
+        verify(svc, times(1)).getNodeId();
+        verify(svc, times(1)).getAddress();
+        verify(svc, times(1)).getServiceName();
+        verify(svc, times(1)).getPackageName();
     }
 }
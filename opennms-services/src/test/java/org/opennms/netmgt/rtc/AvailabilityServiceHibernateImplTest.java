@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.rtc;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.opennms.core.utils.InetAddressUtils.addr;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.opennms.core.criteria.Criteria;
+import org.opennms.netmgt.dao.api.MonitoredServiceDao;
+import org.opennms.netmgt.dao.api.OutageDao;
+import org.opennms.netmgt.events.api.EventConstants;
+import org.opennms.netmgt.events.api.EventSubscriptionService;
+import org.opennms.netmgt.events.api.model.IEvent;
+import org.opennms.netmgt.events.api.model.ImmutableMapper;
+import org.opennms.netmgt.filter.api.FilterDao;
+import org.opennms.netmgt.model.OnmsIpInterface;
+import org.opennms.netmgt.model.OnmsMonitoredService;
+import org.opennms.netmgt.model.OnmsNode;
+import org.opennms.netmgt.model.OnmsServiceType;
+import org.opennms.netmgt.model.events.EventBuilder;
+import org.opennms.netmgt.rtc.datablock.RTCCategory;
+import org.opennms.netmgt.xml.rtc.Category;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AvailabilityServiceHibernateImplTest {
+
+    private static final long HOUR = 60L * 60L * 1000L;
+
+    private static final String RULE = "IPADDR != '0.0.0.0'";
+
+    @Mock
+    private FilterDao m_filterDao;
+
+    @Mock
+    private MonitoredServiceDao m_monitoredServiceDao;
+
+    @Mock
+    private OutageDao m_outageDao;
+
+    @Mock
+    private EventSubscriptionService m_eventSubscriptionService;
+
+    @Mock
+    private RTCCategory m_category;
+
+    @InjectMocks
+    private AvailabilityServiceHibernateImpl m_availabilityService;
+
+    @Test
+    public void doesNotAccessTheDatabaseWhenCalculatingAvailability() {
+        final OnmsNode node = new OnmsNode();
+        node.setId(1);
+        final OnmsIpInterface ipInterface = new OnmsIpInterface(addr("192.168.1.1"), node);
+        when(m_monitoredServiceDao.findMatching(any(Criteria.class))).thenReturn(Arrays.asList(
+                new OnmsMonitoredService(ipInterface, new OnmsServiceType("ICMP")),
+                new OnmsMonitoredService(ipInterface, new OnmsServiceType("HTTP"))));
+        when(m_outageDao.findMatching(any(Criteria.class))).thenReturn(Collections.emptyList());
+        when(m_filterDao.getNodeMap(RULE)).thenReturn(Collections.singletonMap(1, "node1"));
+        when(m_category.getEffectiveRule()).thenReturn(RULE);
+        when(m_category.getNodes()).thenReturn(Arrays.asList(1));
+
+        // The index and the nodes of the category are loaded on first use
+        Category category = m_availabilityService.getEuiLevel(m_category).getCategory().get(0);
+        assertEquals(100.0, category.getCatvalue(), 0.001);
+        assertEquals(2, category.getNode().get(0).getNodesvccount());
+        verify(m_monitoredServiceDao).findMatching(any(Criteria.class));
+        verify(m_outageDao).findMatching(any(Criteria.class));
+        verify(m_filterDao).getNodeMap(RULE);
+
+        // The outages are applied from the events
+        final long now = System.currentTimeMillis();
+        m_availabilityService.onEvent(outageEvent(EventConstants.OUTAGE_CREATED_EVENT_UEI, new Date(now - HOUR)));
+        category = m_availabilityService.getEuiLevel(m_category).getCategory().get(0);
+        assertEquals(1, category.getNode().get(0).getNodesvcdowncount());
+
+        m_availabilityService.onEvent(outageEvent(EventConstants.OUTAGE_RESOLVED_EVENT_UEI, new Date(now - HOUR / 2)));
+        category = m_availabilityService.getEuiLevel(m_category).getCategory().get(0);
+        assertEquals(0, category.getNode().get(0).getNodesvcdowncount());
+        assertEquals(RTCUtils.getOutagePercentage(HOUR / 2, 24 * HOUR, 2), category.getCatvalue(), 0.0001);
+
+        // None of the calls after the first one went to the database
+        verifyNoMoreInteractions(m_monitoredServiceDao, m_outageDao, m_filterDao);
+    }
+
+    private static IEvent outageEvent(String uei, Date time) {
+        return ImmutableMapper.fromMutableEvent(new EventBuilder(uei, "Test")
+                .setNodeid(1).setInterface(addr("192.168.1.1")).setService("ICMP").setTime(time)
+                .getEvent());
+    }
+}
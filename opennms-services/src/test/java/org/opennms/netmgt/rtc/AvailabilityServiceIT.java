@@ -31,6 +31,7 @@ package org.opennms.netmgt.rtc;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.opennms.core.utils.InetAddressUtils.addr;
 
 import java.util.Date;
 import java.util.List;
@@ -48,10 +49,13 @@ import org.opennms.core.test.db.TemporaryDatabaseAware;
 import org.opennms.core.test.db.annotations.JUnitTemporaryDatabase;
 import org.opennms.netmgt.dao.api.MonitoredServiceDao;
 import org.opennms.netmgt.dao.api.OutageDao;
+import org.opennms.netmgt.dao.mock.MockEventIpcManager;
+import org.opennms.netmgt.events.api.EventConstants;
 import org.opennms.netmgt.mock.MockNetwork;
 import org.opennms.netmgt.mock.MockService;
 import org.opennms.netmgt.model.OnmsMonitoredService;
 import org.opennms.netmgt.model.OnmsOutage;
+import org.opennms.netmgt.model.events.EventBuilder;
 import org.opennms.netmgt.rtc.datablock.RTCCategory;
 import org.opennms.netmgt.xml.rtc.Category;
 import org.opennms.netmgt.xml.rtc.EuiLevel;
@@ -87,6 +91,9 @@ public class AvailabilityServiceIT implements TemporaryDatabaseAware<MockDatabas
     @Autowired
     private MonitoredServiceDao m_monitoredServiceDao;
 
+    @Autowired
+    private MockEventIpcManager m_eventIpcManager;
+
     private MockDatabase m_mockDatabase;
 
     @Override
@@ -153,8 +160,7 @@ public class AvailabilityServiceIT implements TemporaryDatabaseAware<MockDatabas
         outage.setMonitoredService(icmpService);
         outage.setIfLostService(oneHourAgo);
         outage.setIfRegainedService(thirtyMinutesAgo);
-        m_outageDao.save(outage);
-        m_outageDao.flush();
+        saveOutage(outage);
 
         // Verify the availability when outages are present
         euiLevel = m_availabilityService.getEuiLevel(rtcCat);
@@ -167,6 +173,58 @@ public class AvailabilityServiceIT implements TemporaryDatabaseAware<MockDatabas
         assertEquals(2, category.getNode().size());
     }
 
+    @Test
+    public void canUpdateAvailabilityWithEvents() throws Exception {
+        final MockNetwork mockNetwork = new MockNetwork();
+        mockNetwork.createStandardNetwork();
+        m_mockDatabase.populate(mockNetwork);
+
+        final RTCCategory rtcCat = mock(RTCCategory.class);
+        when(rtcCat.getLabel()).thenReturn("NOC");
+        when(rtcCat.getNodes()).thenReturn(Lists.newArrayList(1, 2));
+
+        // Load the index
+        EuiLevel euiLevel = m_availabilityService.getEuiLevel(rtcCat);
+        Category category = euiLevel.getCategory().get(0);
+        assertEquals(100.0, category.getCatvalue(), 0.001);
+        assertEquals(0, category.getNode().get(0).getNodesvcdowncount());
+
+        final Date now = new Date();
+        final Date twoHoursAgo = new Date(now.getTime() - (2 * 60 * 60 * 1000));
+        final Date oneHourAgo = new Date(now.getTime() - (60 * 60 * 1000));
+        final Date thirtyMinutesAgo = new Date(now.getTime() - (30 * 60 * 1000));
+
+        // Write the outage like the poller does, followed by the event. The times in the database
+        // differ from the ones in the events on purpose, so that a reload of the index would show.
+        final OnmsMonitoredService icmpService = toMonitoredService(mockNetwork.getService(1, "192.168.1.1", "ICMP"));
+        final OnmsOutage outage = new OnmsOutage();
+        outage.setMonitoredService(icmpService);
+        outage.setIfLostService(twoHoursAgo);
+        m_outageDao.save(outage);
+        m_outageDao.flush();
+        m_eventIpcManager.sendNow(new EventBuilder(EventConstants.OUTAGE_CREATED_EVENT_UEI, "Test")
+                .setNodeid(1).setInterface(addr("192.168.1.1")).setService("ICMP").setTime(oneHourAgo)
+                .getEvent());
+
+        euiLevel = m_availabilityService.getEuiLevel(rtcCat);
+        category = euiLevel.getCategory().get(0);
+        assertEquals(1, category.getNode().get(0).getNodesvcdowncount());
+        assertEquals(0, category.getNode().get(1).getNodesvcdowncount());
+
+        outage.setIfRegainedService(thirtyMinutesAgo);
+        m_outageDao.update(outage);
+        m_outageDao.flush();
+        m_eventIpcManager.sendNow(new EventBuilder(EventConstants.OUTAGE_RESOLVED_EVENT_UEI, "Test")
+                .setNodeid(1).setInterface(addr("192.168.1.1")).setService("ICMP").setTime(thirtyMinutesAgo)
+                .getEvent());
+
+        euiLevel = m_availabilityService.getEuiLevel(rtcCat);
+        category = euiLevel.getCategory().get(0);
+        assertEquals(0, category.getNode().get(0).getNodesvcdowncount());
+        // The thirty minutes from the events, rather than the ninety from the database
+        assertEquals(RTCUtils.getOutagePercentage(1800000, 86400000, 6), category.getCatvalue(), 0.0001);
+    }
+
     @Test
     @Transactional
     public void compareServiceNamesAndRegExp() {
@@ -203,16 +261,14 @@ public class AvailabilityServiceIT implements TemporaryDatabaseAware<MockDatabas
         outage1.setMonitoredService(smtpService);
         outage1.setIfLostService(oneHourAgo);
         outage1.setIfRegainedService(thirtyMinutesAgo);
-        m_outageDao.save(outage1);
-        m_outageDao.flush();
+        saveOutage(outage1);
 
         final OnmsMonitoredService httpService = toMonitoredService(mockNetwork.getService(2, "192.168.1.3", "HTTP"));
         final OnmsOutage outage2 = new OnmsOutage();
         outage2.setMonitoredService(httpService);
         outage2.setIfLostService(fifteenMinutesAgo);
         outage2.setIfRegainedService(now);
-        m_outageDao.save(outage2);
-        m_outageDao.flush();
+        saveOutage(outage2);
 
         euiLevel1 = m_availabilityService.getEuiLevel(rtcCat1);
         euiLevel2 = m_availabilityService.getEuiLevel(rtcCat2);
@@ -289,6 +345,26 @@ public class AvailabilityServiceIT implements TemporaryDatabaseAware<MockDatabas
         return m_monitoredServiceDao.get(svc.getNodeId(), svc.getAddress(), svc.getSvcName());
     }
 
+    /**
+     * Saves the outage and sends the events the poller sends along with it, which keep the availability up to date.
+     */
+    private void saveOutage(OnmsOutage outage) {
+        m_outageDao.save(outage);
+        m_outageDao.flush();
+
+        final OnmsMonitoredService service = outage.getMonitoredService();
+        m_eventIpcManager.sendNow(new EventBuilder(EventConstants.OUTAGE_CREATED_EVENT_UEI, "Test")
+                .setNodeid(service.getNodeId()).setInterface(service.getIpAddress()).setService(service.getServiceName())
+                .setTime(outage.getIfLostService())
+                .getEvent());
+        if (outage.getIfRegainedService() != null) {
+            m_eventIpcManager.sendNow(new EventBuilder(EventConstants.OUTAGE_RESOLVED_EVENT_UEI, "Test")
+                    .setNodeid(service.getNodeId()).setInterface(service.getIpAddress()).setService(service.getServiceName())
+                    .setTime(outage.getIfRegainedService())
+                    .getEvent());
+        }
+    }
+
     private void createOutage(MockService mockService, long oneDayAgo) {
         final OnmsMonitoredService monitoredService = toMonitoredService(mockService);
         final OnmsOutage outage = new OnmsOutage();
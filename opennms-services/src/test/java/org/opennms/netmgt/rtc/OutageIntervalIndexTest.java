@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2024 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2024 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.netmgt.rtc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.InetAddress;
+
+import org.junit.Test;
+import org.opennms.core.utils.InetAddressUtils;
+
+public class OutageIntervalIndexTest {
+
+    private static final long HOUR = 60L * 60L * 1000L;
+    private static final long WINDOW = 24L * HOUR;
+
+    private final InetAddress m_ip = InetAddressUtils.addr("192.168.1.1");
+    private final InetAddress m_otherIp = InetAddressUtils.addr("192.168.1.2");
+
+    @Test
+    public void canTallyOutagesWithinWindow() {
+        final OutageIntervalIndex index = new OutageIntervalIndex(WINDOW);
+        index.serviceAdded(1, m_ip, "ICMP");
+        index.serviceAdded(1, m_ip, "HTTP");
+        index.serviceAdded(1, m_otherIp, "ICMP");
+
+        final long now = 100 * HOUR;
+        // Starts before the window, only the last hour counts
+        index.outageLoaded(1, m_ip, "ICMP", now - WINDOW - HOUR, now - WINDOW + HOUR);
+        // Closed within the window
+        index.outageLoaded(1, m_ip, "ICMP", now - 3 * HOUR, now - 2 * HOUR);
+        // Still open
+        index.outageCreated(1, m_ip, "HTTP", now - HOUR);
+
+        OutageIntervalIndex.NodeSummary summary = index.getNodeSummary(1, svc -> true, now - WINDOW, now);
+        assertEquals(3, summary.getNumServices());
+        assertEquals(1, summary.getNumServicesDown());
+        assertEquals(3 * HOUR, summary.getOutageTime());
+
+        summary = index.getNodeSummary(1, "ICMP"::equals, now - WINDOW, now);
+        assertEquals(2, summary.getNumServices());
+        assertEquals(0, summary.getNumServicesDown());
+        assertEquals(2 * HOUR, summary.getOutageTime());
+
+        // Nodes which aren't indexed have no services
+        summary = index.getNodeSummary(2, svc -> true, now - WINDOW, now);
+        assertEquals(0, summary.getNumServices());
+        assertEquals(0, summary.getOutageTime());
+    }
+
+    @Test
+    public void updatesAreIdempotent() {
+        final OutageIntervalIndex index = new OutageIntervalIndex(WINDOW);
+        index.serviceAdded(1, m_ip, "ICMP");
+
+        final long now = 100 * HOUR;
+        index.outageCreated(1, m_ip, "ICMP", now - 2 * HOUR);
+        // A second outageCreated for the same outage is ignored
+        index.outageCreated(1, m_ip, "ICMP", now - HOUR);
+        index.outageResolved(1, m_ip, "ICMP", now - HOUR);
+        // As is a second outageResolved
+        index.outageResolved(1, m_ip, "ICMP", now);
+        // Outages on services which aren't indexed are ignored
+        index.outageCreated(1, m_otherIp, "ICMP", now - HOUR);
+
+        final OutageIntervalIndex.NodeSummary summary = index.getNodeSummary(1, svc -> true, now - WINDOW, now);
+        assertEquals(1, summary.getNumServices());
+        assertEquals(0, summary.getNumServicesDown());
+        assertEquals(HOUR, summary.getOutageTime());
+    }
+
+    @Test
+    public void outagesOutsideOfTheRetentionPeriodArePruned() {
+        final OutageIntervalIndex index = new OutageIntervalIndex(WINDOW);
+        index.serviceAdded(1, m_ip, "ICMP");
+
+        index.outageCreated(1, m_ip, "ICMP", 0);
+        index.outageResolved(1, m_ip, "ICMP", HOUR);
+        index.outageCreated(1, m_ip, "ICMP", 2 * WINDOW);
+
+        // The first outage is gone, even when asking for a larger window
+        final OutageIntervalIndex.NodeSummary summary = index.getNodeSummary(1, svc -> true, 0, 2 * WINDOW + HOUR);
+        assertEquals(1, summary.getNumServicesDown());
+        assertEquals(HOUR, summary.getOutageTime());
+    }
+
+    @Test
+    public void canMoveAndRemoveServices() {
+        final OutageIntervalIndex index = new OutageIntervalIndex(WINDOW);
+        index.serviceAdded(1, m_ip, "ICMP");
+        index.serviceAdded(1, m_otherIp, "ICMP");
+        index.serviceAdded(1, m_otherIp, "HTTP");
+        index.outageCreated(1, m_ip, "ICMP", 0);
+
+        index.interfaceReparented(m_ip, 1, 2);
+        assertEquals(2, index.getNodeSummary(1, svc -> true, 0, HOUR).getNumServices());
+        assertEquals(1, index.getNodeSummary(2, svc -> true, 0, HOUR).getNumServicesDown());
+
+        index.serviceRemoved(1, m_otherIp, "HTTP");
+        assertEquals(1, index.getNodeSummary(1, svc -> true, 0, HOUR).getNumServices());
+
+        index.interfaceRemoved(1, m_otherIp);
+        assertEquals(0, index.getNodeSummary(1, svc -> true, 0, HOUR).getNumServices());
+
+        index.nodeRemoved(2);
+        assertEquals(0, index.getNodeSummary(2, svc -> true, 0, HOUR).getNumServices());
+    }
+}